@@ -0,0 +1,122 @@
+package adql.db;
+
+/*
+ * This file is part of ADQLLibrary.
+ *
+ * ADQLLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ADQLLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import adql.db.DBType.DBDatatype;
+import adql.parser.ADQLParser;
+import adql.parser.ParseException;
+import adql.query.ADQLQuery;
+
+/**
+ * Throughput of the resolution of tables and columns ({@link DBChecker#check(ADQLQuery)})
+ * against a big list of tables.
+ *
+ * <p>
+ * 	The queries are parsed only once, without any checker. Each call of a benchmark
+ * 	function checks again the same query.
+ * </p>
+ *
+ * <p>
+ * 	Usage: <code>gradle jmh -PjmhArgs="CheckerBenchmark"</code>
+ * </p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 1.5 (10/2026)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckerBenchmark {
+
+	/** Number of tables (of 20 columns each) known by the checker. */
+	@Param({ "10", "10000" })
+	public int nbTables;
+
+	private ADQLQuery simpleQuery;
+	private ADQLQuery joinQuery;
+	private ADQLQuery subQuery;
+
+	private DBChecker checker;
+
+	@Setup
+	public void setUp() throws Exception{
+		// Tables cat.table_0 ... cat.table_<nbTables-1> with the columns id, ra, dec and col_3 ... col_19:
+		ArrayList<DBTable> tables = new ArrayList<DBTable>(nbTables);
+		for(int t = 0; t < nbTables; t++){
+			DefaultDBTable table = new DefaultDBTable(null, null, "cat", "cat", "table_" + t, "table_" + t);
+			table.addColumn(new DefaultDBColumn("id", new DBType(DBDatatype.BIGINT), table));
+			table.addColumn(new DefaultDBColumn("ra", new DBType(DBDatatype.DOUBLE), table));
+			table.addColumn(new DefaultDBColumn("dec", new DBType(DBDatatype.DOUBLE), table));
+			for(int c = 3; c < 20; c++)
+				table.addColumn(new DefaultDBColumn("col_" + c, new DBType(DBDatatype.DOUBLE), table));
+			tables.add(table);
+		}
+		checker = new DBChecker(tables);
+
+		// Queries on the last tables:
+		String last = "cat.table_" + (nbTables - 1), beforeLast = "cat.table_" + Math.max(0, nbTables - 2);
+		ADQLParser parser = new ADQLParser();
+		simpleQuery = parser.parseQuery("SELECT id, ra, dec, col_3 FROM " + last + " WHERE col_10 < 10 ORDER BY col_3");
+		joinQuery = parser.parseQuery("SELECT a.*, b.col_19 FROM " + last + " AS a JOIN " + beforeLast + " AS b ON b.id = a.id WHERE CONTAINS(POINT('', a.ra, a.dec), CIRCLE('', 10, 20, 1)) = 1");
+		subQuery = parser.parseQuery("SELECT t.id, t.total FROM (SELECT id, col_3 + col_4 AS total FROM " + last + ") AS t WHERE t.id IN (SELECT id FROM " + beforeLast + " WHERE col_5 > 0)");
+
+		// Check all queries once, to ensure they are correct:
+		checkSimpleQuery();
+		checkJoin();
+		checkSubQueries();
+	}
+
+	@Benchmark
+	public ADQLQuery checkSimpleQuery() throws ParseException{
+		checker.check(simpleQuery);
+		return simpleQuery;
+	}
+
+	@Benchmark
+	public ADQLQuery checkJoin() throws ParseException{
+		checker.check(joinQuery);
+		return joinQuery;
+	}
+
+	@Benchmark
+	public ADQLQuery checkSubQueries() throws ParseException{
+		checker.check(subQuery);
+		return subQuery;
+	}
+
+}
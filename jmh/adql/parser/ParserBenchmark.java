@@ -0,0 +1,140 @@
+package adql.parser;
+
+/*
+ * This file is part of ADQLLibrary.
+ *
+ * ADQLLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ADQLLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import adql.query.ADQLQuery;
+
+/**
+ * Throughput of the parsing of big generated queries: huge numeric and
+ * string <code>IN</code> lists, a polygon with many vertices and a long list
+ * of columns. A typical small query (independent from <code>size</code>) is
+ * also parsed for comparison.
+ *
+ * <p>
+ * 	With <code>fastPath=false</code>, the fast parsing of long lists of
+ * 	literals is disabled (see {@link ADQLParser#setMinCompactListSize(int)}).
+ * </p>
+ *
+ * <p>
+ * 	Usage: <code>gradle jmh -PjmhArgs="ParserBenchmark"</code>
+ * </p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 1.5 (10/2026)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+	/** Number of items of the generated lists. */
+	@Param({ "10", "1000", "50000" })
+	public int size;
+
+	/** Whether long lists of literals are parsed with the fast path. */
+	@Param({ "true", "false" })
+	public boolean fastPath;
+
+	private String numericInQuery;
+	private String stringInQuery;
+	private String polygonQuery;
+	private String columnsQuery;
+
+	/** Typical small query. */
+	public final static String SMALL_QUERY = "SELECT TOP 100 s.id, s.ra, s.dec, DISTANCE(POINT('ICRS', s.ra, s.dec), POINT('ICRS', 10, 20)) AS dist FROM stars AS s JOIN mags AS m USING (id) WHERE CONTAINS(POINT('ICRS', s.ra, s.dec), CIRCLE('ICRS', 10, 20, 0.5)) = 1 AND m.vmag < 12 ORDER BY dist";
+
+	private ADQLParser parser;
+
+	@Setup
+	public void setUp(){
+		// SELECT ... WHERE id IN (0, 1, ..., size-1):
+		StringBuffer adql = new StringBuffer("SELECT id, ra, dec FROM stars WHERE id IN (0");
+		for(int i = 1; i < size; i++)
+			adql.append(", ").append(i);
+		numericInQuery = adql.append(')').toString();
+
+		// SELECT ... WHERE name IN ('star 0', ..., 'star size-1'):
+		adql = new StringBuffer("SELECT id, ra, dec FROM stars WHERE name IN ('star 0'");
+		for(int i = 1; i < size; i++)
+			adql.append(", 'star ").append(i).append('\'');
+		stringInQuery = adql.append(')').toString();
+
+		// SELECT ... WHERE CONTAINS(POINT(...), POLYGON(...size vertices...)) = 1:
+		adql = new StringBuffer("SELECT id FROM stars WHERE CONTAINS(POINT('ICRS', ra, dec), POLYGON('ICRS'");
+		for(int i = 0; i < Math.max(3, size); i++){
+			double angle = 2 * Math.PI * i / Math.max(3, size);
+			adql.append(", ").append(10 + Math.cos(angle)).append(", ").append(20 + Math.sin(angle));
+		}
+		polygonQuery = adql.append(")) = 1").toString();
+
+		// SELECT col0, s.col1, "Col2", ... FROM stars AS s (size columns):
+		adql = new StringBuffer("SELECT col0");
+		for(int i = 1; i < size; i++)
+			adql.append(", ").append((i % 3 == 0) ? "\"Col" : ((i % 3 == 1) ? "s.col" : "col")).append(i).append((i % 3 == 0) ? "\"" : "");
+		columnsQuery = adql.append(" FROM stars AS s").toString();
+
+		parser = new ADQLParser();
+		if (!fastPath)
+			parser.setMinCompactListSize(0);
+	}
+
+	@Benchmark
+	public ADQLQuery parseSmallQuery() throws ParseException{
+		return parser.parseQuery(SMALL_QUERY);
+	}
+
+	@Benchmark
+	public ADQLQuery parseNumericInList() throws ParseException{
+		return parser.parseQuery(numericInQuery);
+	}
+
+	@Benchmark
+	public ADQLQuery parseStringInList() throws ParseException{
+		return parser.parseQuery(stringInQuery);
+	}
+
+	@Benchmark
+	public ADQLQuery parsePolygon() throws ParseException{
+		return parser.parseQuery(polygonQuery);
+	}
+
+	@Benchmark
+	public ADQLQuery parseColumns() throws ParseException{
+		return parser.parseQuery(columnsQuery);
+	}
+
+}
@@ -0,0 +1,186 @@
+package adql.translator;
+
+/*
+ * This file is part of ADQLLibrary.
+ *
+ * ADQLLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ADQLLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import adql.db.DBChecker;
+import adql.db.DBTable;
+import adql.db.Healpix;
+import adql.db.SpatialIndex;
+import adql.parser.ADQLParser;
+import tap.metadata.TAPColumn;
+import tap.metadata.TAPTable;
+
+/**
+ * Execution time, on an H2 in-memory database, of cone searches translated
+ * without and with a HEALPix index column.
+ *
+ * <p>
+ * 	<code>mode</code> is one of:
+ * </p>
+ * <ul>
+ * 	<li><code>scan</code>: no spatial index,</li>
+ * 	<li><code>index</code>: with the spatial index,</li>
+ * 	<li><code>oneRange</code>: with the spatial index, but only one range of
+ * 	    cells (H2 can not use an index for a disjunction of ranges, which
+ * 	    PostgreSQL, MySQL, ... can do).</li>
+ * </ul>
+ *
+ * <p>
+ * 	All translations are checked to return the same counts as the
+ * 	translation without spatial index.
+ * </p>
+ *
+ * <p>
+ * 	Usage: <code>gradle jmh -PjmhArgs="PixelIndexBenchmark"</code>
+ * </p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 1.5 (10/2026)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PixelIndexBenchmark {
+
+	/** Number of rows of the table. */
+	@Param({ "1000000" })
+	public int nbRows;
+
+	/** HEALPix order of the index column. */
+	@Param({ "10" })
+	public int order;
+
+	/** Translation of the cone searches. */
+	@Param({ "scan", "index", "oneRange" })
+	public String mode;
+
+	/** Number of different cone searches. */
+	private final static int NB_QUERIES = 50;
+
+	private Connection connection;
+	private Statement stmt;
+	private String[] sql;
+	private int next = 0;
+
+	@Setup
+	public void setUp() throws Exception{
+		Class.forName("org.h2.Driver");
+		connection = DriverManager.getConnection("jdbc:h2:mem:pixelbenchmark", "sa", "");
+
+		// Build and fill the table:
+		stmt = connection.createStatement();
+		stmt.execute("CREATE TABLE stars (ra DOUBLE, dec DOUBLE, hpx BIGINT)");
+		Random random = new Random(42);
+		PreparedStatement insert = connection.prepareStatement("INSERT INTO stars VALUES (?, ?, ?)");
+		for(int i = 0; i < nbRows; i++){
+			double ra = random.nextDouble() * 360, dec = Math.toDegrees(Math.asin(random.nextDouble() * 2 - 1));
+			insert.setDouble(1, ra);
+			insert.setDouble(2, dec);
+			insert.setLong(3, Healpix.ang2pix(order, ra, dec));
+			insert.addBatch();
+			if (i % 10000 == 9999)
+				insert.executeBatch();
+		}
+		insert.executeBatch();
+		insert.close();
+		stmt.execute("CREATE INDEX stars_hpx ON stars(hpx)");
+
+		// Describe this table with and without spatial index:
+		TAPTable table = new TAPTable("stars");
+		table.addColumn("ra");
+		table.addColumn("dec");
+		TAPColumn hpx = new TAPColumn("hpx");
+		table.addColumn(hpx);
+		ArrayList<DBTable> tables = new ArrayList<DBTable>(1);
+		tables.add(table);
+		ADQLParser parser = new ADQLParser(new DBChecker(tables));
+		JDBCTranslator translator = new MySQLTranslator(false);
+
+		// Generate and translate the queries:
+		String[] scanSQL = new String[NB_QUERIES];
+		sql = new String[NB_QUERIES];
+		for(int i = 0; i < NB_QUERIES; i++){
+			String adql = "SELECT COUNT(*) FROM stars WHERE CONTAINS(POINT('ICRS', ra, dec), CIRCLE('ICRS', " + (random.nextDouble() * 360) + ", " + (random.nextDouble() * 160 - 80) + ", " + (0.05 + random.nextDouble() * 0.95) + ")) = 1";
+			hpx.setSpatialIndex(null);
+			scanSQL[i] = translator.translate(parser.parseQuery(adql));
+			if (!mode.equals("scan")){
+				hpx.setSpatialIndex(new SpatialIndex(SpatialIndex.Scheme.HEALPIX_NESTED, order, "ra", "dec"));
+				translator.setMaxPixelRanges(mode.equals("oneRange") ? 1 : JDBCTranslator.DEFAULT_MAX_PIXEL_RANGES);
+				sql[i] = translator.translate(parser.parseQuery(adql));
+			}else
+				sql[i] = scanSQL[i];
+		}
+
+		// Check that the spatial index does not change the results:
+		for(int i = 0; i < NB_QUERIES; i++){
+			if (count(scanSQL[i]) != count(sql[i]))
+				throw new IllegalStateException("Different results with and without spatial index for: " + sql[i]);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws Exception{
+		stmt.execute("DROP TABLE stars");
+		stmt.close();
+		connection.close();
+	}
+
+	@Benchmark
+	public long coneSearch() throws Exception{
+		next = (next + 1) % NB_QUERIES;
+		return count(sql[next]);
+	}
+
+	private long count(final String query) throws Exception{
+		ResultSet rs = stmt.executeQuery(query);
+		try{
+			rs.next();
+			return rs.getLong(1);
+		}finally{
+			rs.close();
+		}
+	}
+
+}
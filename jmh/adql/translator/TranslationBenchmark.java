@@ -0,0 +1,138 @@
+package adql.translator;
+
+/*
+ * This file is part of ADQLLibrary.
+ *
+ * ADQLLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ADQLLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import adql.parser.ADQLParser;
+import adql.parser.ParserBenchmark;
+import adql.query.ADQLQuery;
+
+/**
+ * Throughput of the ADQL to SQL translation of big generated queries: a
+ * huge <code>IN</code> list, a polygon with many vertices and a long list of
+ * constraints. A typical small query (independent from <code>size</code>) is
+ * also translated for comparison.
+ *
+ * <p>
+ * 	Usage: <code>gradle jmh -PjmhArgs="TranslationBenchmark"</code>
+ * </p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 1.5 (10/2026)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TranslationBenchmark {
+
+	/** Number of items of the generated lists. */
+	@Param({ "10", "1000", "10000" })
+	public int size;
+
+	private ADQLQuery inQuery;
+	private ADQLQuery polygonQuery;
+	private ADQLQuery constraintsQuery;
+	private ADQLQuery smallQuery;
+
+	private JDBCTranslator postgreSQL;
+	private JDBCTranslator pgSphere;
+
+	@Setup
+	public void setUp() throws Exception{
+		ADQLParser parser = new ADQLParser();
+
+		// SELECT ... WHERE id IN (0, 1, ..., size-1):
+		StringBuffer adql = new StringBuffer("SELECT id, ra, dec FROM stars WHERE id IN (0");
+		for(int i = 1; i < size; i++)
+			adql.append(", ").append(i);
+		inQuery = parser.parseQuery(adql.append(')').toString());
+
+		// SELECT ... WHERE CONTAINS(POINT(...), POLYGON(...size vertices...)) = 1:
+		adql = new StringBuffer("SELECT id FROM stars WHERE CONTAINS(POINT('ICRS', ra, dec), POLYGON('ICRS'");
+		for(int i = 0; i < Math.max(3, size); i++){
+			double angle = 2 * Math.PI * i / Math.max(3, size);
+			adql.append(", ").append(10 + Math.cos(angle)).append(", ").append(20 + Math.sin(angle));
+		}
+		polygonQuery = parser.parseQuery(adql.append(")) = 1").toString());
+
+		// SELECT ... WHERE (id = 0 OR mag < 0.5) AND ... (size times):
+		adql = new StringBuffer("SELECT id FROM stars WHERE (id = 0 OR mag < 0.5)");
+		for(int i = 1; i < size; i++)
+			adql.append(" AND (id <> ").append(i).append(" OR mag < ").append(i + 0.5).append(')');
+		constraintsQuery = parser.parseQuery(adql.toString());
+
+		smallQuery = parser.parseQuery(ParserBenchmark.SMALL_QUERY);
+
+		postgreSQL = new PostgreSQLTranslator();
+		pgSphere = new PgSphereTranslator();
+	}
+
+	@Benchmark
+	public String translateSmallQuery() throws TranslationException{
+		return postgreSQL.translate(smallQuery);
+	}
+
+	@Benchmark
+	public String translateSmallQueryWithPgSphere() throws TranslationException{
+		return pgSphere.translate(smallQuery);
+	}
+
+	@Benchmark
+	public String translateInList() throws TranslationException{
+		return postgreSQL.translate(inQuery);
+	}
+
+	@Benchmark
+	public String translateInListWithParameters() throws TranslationException{
+		return postgreSQL.translateWithParameters(inQuery).getSQL();
+	}
+
+	@Benchmark
+	public String translatePolygon() throws TranslationException{
+		return pgSphere.translate(polygonQuery);
+	}
+
+	@Benchmark
+	public String translateConstraints() throws TranslationException{
+		return postgreSQL.translate(constraintsQuery);
+	}
+
+	@Benchmark
+	public int appendConstraints() throws TranslationException{
+		return postgreSQL.append(new StringBuffer(), constraintsQuery).length();
+	}
+
+}
@@ -0,0 +1,141 @@
+package tap.data;
+
+/*
+ * This file is part of TAPLibrary.
+ *
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time needed to read a whole query result with a {@link ResultSetTableIterator},
+ * on an H2 in-memory database (numeric, string and timestamp columns).
+ *
+ * <p>
+ * 	With <code>iterator=false</code>, the same result is read directly from the
+ * 	{@link ResultSet} ; the difference is then the cost of {@link ResultSetTableIterator}.
+ * </p>
+ *
+ * <p>
+ * 	Usage: <code>gradle jmh -PjmhArgs="ResultSetTableIteratorBenchmark"</code>
+ * </p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 2.4 (10/2026)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultSetTableIteratorBenchmark {
+
+	/** Number of rows of the result. */
+	@Param({ "1000", "100000" })
+	public int nbRows;
+
+	/** Whether the result is read through a {@link ResultSetTableIterator}. */
+	@Param({ "true", "false" })
+	public boolean iterator;
+
+	private Connection connection;
+
+	@Setup
+	public void setUp() throws Exception{
+		Class.forName("org.h2.Driver");
+		connection = DriverManager.getConnection("jdbc:h2:mem:iteratorbenchmark", "sa", "");
+
+		Statement stmt = connection.createStatement();
+		stmt.executeUpdate("CREATE TABLE stars (id BIGINT, ra DOUBLE, dec DOUBLE, mag REAL, name VARCHAR(32), obs_time TIMESTAMP)");
+		stmt.close();
+
+		PreparedStatement insert = connection.prepareStatement("INSERT INTO stars VALUES (?, ?, ?, ?, ?, ?)");
+		for(int i = 0; i < nbRows; i++){
+			insert.setLong(1, i);
+			insert.setDouble(2, (i * 0.37) % 360);
+			insert.setDouble(3, ((i * 0.11) % 180) - 90);
+			insert.setFloat(4, (i % 200) / 10f);
+			insert.setString(5, "star " + i);
+			insert.setTimestamp(6, new Timestamp(1500000000000L + i * 1000L));
+			insert.addBatch();
+			if (i % 1000 == 999)
+				insert.executeBatch();
+		}
+		insert.executeBatch();
+		insert.close();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception{
+		Statement stmt = connection.createStatement();
+		stmt.executeUpdate("DROP TABLE stars");
+		stmt.close();
+		connection.close();
+	}
+
+	@Benchmark
+	public int readResult() throws Exception{
+		Statement stmt = connection.createStatement();
+		try{
+			ResultSet rs = stmt.executeQuery("SELECT id, ra, dec, mag, name, obs_time FROM stars");
+			int nbValues = 0;
+			if (iterator){
+				TableIterator it = new ResultSetTableIterator(rs);
+				while(it.nextRow()){
+					while(it.hasNextCol()){
+						if (it.nextCol() != null)
+							nbValues++;
+					}
+				}
+				it.close();
+			}else{
+				final int nbColumns = rs.getMetaData().getColumnCount();
+				while(rs.next()){
+					for(int c = 1; c <= nbColumns; c++){
+						if (rs.getObject(c) != null)
+							nbValues++;
+					}
+				}
+				rs.close();
+			}
+			return nbValues;
+		}finally{
+			stmt.close();
+		}
+	}
+
+}
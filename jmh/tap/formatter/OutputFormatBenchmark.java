@@ -0,0 +1,193 @@
+package tap.formatter;
+
+/*
+ * This file is part of TAPLibrary.
+ *
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import adql.db.DBType;
+import adql.db.DBType.DBDatatype;
+import tap.ServiceConnection;
+import tap.TAPExecutionReport;
+import tap.TAPJob;
+import tap.data.DataReadException;
+import tap.data.TableIterator;
+import tap.metadata.TAPColumn;
+import tap.parameters.TAPParameters;
+import uk.ac.starlink.votable.DataFormat;
+import uws.ISO8601Format;
+
+/**
+ * Time needed by each {@link OutputFormat} to write a big query result
+ * (numeric, string and timestamp columns) in a stream discarding everything.
+ *
+ * <p>
+ * 	The rows are generated in memory, so that only the formatting is measured.
+ * </p>
+ *
+ * <p>
+ * 	Usage: <code>gradle jmh -PjmhArgs="OutputFormatBenchmark -p format=csv,json"</code>
+ * </p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 2.4 (10/2026)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutputFormatBenchmark {
+
+	/** Output format to test. */
+	@Param({ "votable-tabledata", "votable-binary", "votable-binary2", "json", "csv", "tsv", "fits", "text" })
+	public String format;
+
+	/** Number of rows to write. */
+	@Param({ "1000000" })
+	public int nbRows;
+
+	/** Number of distinct rows (the written rows are cycling over them). */
+	private final static int NB_DISTINCT_ROWS = 1000;
+
+	private TAPColumn[] columns;
+	private Object[][] rows;
+
+	private OutputFormat formatter;
+	private TAPExecutionReport report;
+
+	@Setup
+	public void setUp() throws Exception{
+		columns = new TAPColumn[]{ new TAPColumn("id", new DBType(DBDatatype.BIGINT)), new TAPColumn("ra", new DBType(DBDatatype.DOUBLE), "Right ascension", "deg", "pos.eq.ra", null), new TAPColumn("dec", new DBType(DBDatatype.DOUBLE), "Declination", "deg", "pos.eq.dec", null), new TAPColumn("mag", new DBType(DBDatatype.REAL), "V magnitude", "mag", "phot.mag;em.opt.V", null), new TAPColumn("name", new DBType(DBDatatype.VARCHAR)), new TAPColumn("obs_time", new DBType(DBDatatype.TIMESTAMP)) };
+
+		// Rows with the values as returned by ResultSetTableIterator:
+		rows = new Object[NB_DISTINCT_ROWS][];
+		for(int i = 0; i < NB_DISTINCT_ROWS; i++)
+			rows[i] = new Object[]{ (long)i, (i * 0.37) % 360, ((i * 0.11) % 180) - 90, (i % 200) / 10f, "star " + i, ISO8601Format.format(1500000000000L + i * 1000L) };
+
+		ServiceConnection service = new ServiceConnection4Test();
+		if (format.equals("votable-tabledata"))
+			formatter = new VOTableFormat(service, DataFormat.TABLEDATA);
+		else if (format.equals("votable-binary"))
+			formatter = new VOTableFormat(service, DataFormat.BINARY);
+		else if (format.equals("votable-binary2"))
+			formatter = new VOTableFormat(service, DataFormat.BINARY2);
+		else if (format.equals("json"))
+			formatter = new JSONFormat(service);
+		else if (format.equals("csv"))
+			formatter = new SVFormat(service, SVFormat.COMMA_SEPARATOR);
+		else if (format.equals("tsv"))
+			formatter = new SVFormat(service, SVFormat.TAB_SEPARATOR);
+		else if (format.equals("fits"))
+			formatter = new FITSFormat(service);
+		else if (format.equals("text"))
+			formatter = new TextFormat(service);
+		else
+			throw new IllegalArgumentException("Unknown output format: \"" + format + "\"!");
+
+		HashMap<String,Object> tapParams = new HashMap<String,Object>(1);
+		tapParams.put(TAPJob.PARAM_MAX_REC, String.valueOf(nbRows));
+		report = new TAPExecutionReport("benchmark", true, new TAPParameters(service, tapParams));
+		report.resultingColumns = columns;
+	}
+
+	@Benchmark
+	public long writeResult() throws Exception{
+		NullOutputStream output = new NullOutputStream();
+		formatter.writeResult(new RowsIterator(), output, report, Thread.currentThread());
+		return output.nbBytes;
+	}
+
+	/**
+	 * Iterator over {@link OutputFormatBenchmark#nbRows} rows, cycling over the generated ones.
+	 */
+	private final class RowsIterator implements TableIterator {
+		private int row = -1;
+		private int col = 0;
+
+		@Override
+		public TAPColumn[] getMetadata() throws DataReadException{
+			return columns;
+		}
+
+		@Override
+		public boolean nextRow() throws DataReadException{
+			if (row < nbRows)
+				row++;
+			col = 0;
+			return row < nbRows;
+		}
+
+		@Override
+		public boolean hasNextCol() throws IllegalStateException, DataReadException{
+			return row < nbRows && col < columns.length;
+		}
+
+		@Override
+		public Object nextCol() throws NoSuchElementException, IllegalStateException, DataReadException{
+			if (!hasNextCol())
+				throw new NoSuchElementException("No more column to read!");
+			return rows[row % NB_DISTINCT_ROWS][col++];
+		}
+
+		@Override
+		public DBType getColType() throws IllegalStateException, DataReadException{
+			return columns[col - 1].getDatatype();
+		}
+
+		@Override
+		public void close() throws DataReadException{
+			row = nbRows;
+		}
+	}
+
+	/**
+	 * Output stream discarding everything, but counting the written bytes.
+	 */
+	private final static class NullOutputStream extends OutputStream {
+		private long nbBytes = 0;
+
+		@Override
+		public void write(final int b){
+			nbBytes++;
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len){
+			nbBytes += len;
+		}
+	}
+
+}
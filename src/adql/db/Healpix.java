@@ -0,0 +1,544 @@
+package adql.db;
+
+/*
+ * This file is part of ADQLLibrary.
+ *
+ * ADQLLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ADQLLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Pure-Java implementation of the few HEALPix functions (NESTED scheme only)
+ * needed to use a HEALPix index column as a prefilter of geometrical
+ * constraints.
+ *
+ * <p>
+ * 	The main functions of this class ({@link #queryDisc(int, double, double, double, int)},
+ * 	{@link #queryBox(int, double, double, double, double, int)} and
+ * 	{@link #queryPolygon(int, double[], double[], int)}) return the ranges of
+ * 	NESTED pixels (at the given order) which <b>may</b> overlap the given
+ * 	region. The result is always a superset of the exact answer: any
+ * 	position inside the region is in one of the returned pixels.
+ * </p>
+ *
+ * <p>
+ * 	Ranges are returned as a flat array of inclusive bounds:
+ * 	<code>{start1, end1, start2, end2, ...}</code>, sorted and without overlap.
+ * </p>
+ *
+ * <p><i>Note:
+ * 	All angles are expressed in degrees.
+ * </i></p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 1.5 (10/2026)
+ * @since 1.5
+ */
+public final class Healpix {
+
+	/** Biggest supported HEALPix order. */
+	public final static int MAX_ORDER = 29;
+
+	/** Safety factor applied on the maximum pixel radius, so that the
+	 * curved pixel boundaries are still covered. */
+	private final static double PIXRAD_SAFETY_FACTOR = 1.1;
+
+	private final static int[] JRLL = { 2, 2, 2, 2, 3, 3, 3, 3, 4, 4, 4, 4 };
+	private final static int[] JPLL = { 1, 3, 5, 7, 0, 2, 4, 6, 1, 3, 5, 7 };
+
+	private final static double HALF_PI = Math.PI / 2;
+
+	/** Result of the overlap test between a pixel and a region: the pixel is
+	 * completely outside. */
+	private final static int OUTSIDE = 0;
+	/** Result of the overlap test between a pixel and a region: the pixel may
+	 * overlap the region boundary. */
+	private final static int PARTIAL = 1;
+	/** Result of the overlap test between a pixel and a region: the pixel is
+	 * completely inside. */
+	private final static int INSIDE = 2;
+
+	private Healpix(){}
+
+	/**
+	 * Get the NESTED index of the pixel containing the given position.
+	 *
+	 * @param order	HEALPix order (between 0 and {@link #MAX_ORDER}).
+	 * @param ra	Right ascension (in degrees).
+	 * @param dec	Declination (in degrees).
+	 *
+	 * @return	The corresponding NESTED pixel index.
+	 *
+	 * @throws IllegalArgumentException	If the order is incorrect.
+	 */
+	public static long ang2pix(final int order, final double ra, final double dec) throws IllegalArgumentException{
+		checkOrder(order);
+		final long nside = 1L << order;
+		final double decRad = Math.toRadians(dec);
+		final double z = Math.sin(decRad), za = Math.abs(z);
+		double tt = (Math.toRadians(ra) / HALF_PI) % 4.0;
+		if (tt < 0)
+			tt += 4.0;
+		if (tt >= 4.0)
+			tt = 0;
+
+		int face;
+		long ix, iy;
+		// Equatorial region:
+		if (za <= 2. / 3){
+			double temp1 = nside * (0.5 + tt), temp2 = nside * (z * 0.75);
+			long jp = (long)(temp1 - temp2), jm = (long)(temp1 + temp2);
+			long ifp = jp >> order, ifm = jm >> order;
+			face = (int)((ifp == ifm) ? (ifp | 4) : ((ifp < ifm) ? ifp : (ifm + 8)));
+			ix = jm & (nside - 1);
+			iy = nside - (jp & (nside - 1)) - 1;
+		}
+		// Polar caps:
+		else{
+			int ntt = Math.min(3, (int)tt);
+			double tp = tt - ntt;
+			/* note: 1-|sin(dec)| = cos^2(dec) / (1+|sin(dec)|) is more precise
+			 *       near the poles: */
+			double cosDec = Math.cos(decRad);
+			double tmp = nside * Math.sqrt(3 * (cosDec * cosDec / (1 + za)));
+			long jp = Math.min(nside - 1, (long)(tp * tmp)), jm = Math.min(nside - 1, (long)((1.0 - tp) * tmp));
+			if (z >= 0){
+				face = ntt;
+				ix = nside - jm - 1;
+				iy = nside - jp - 1;
+			}else{
+				face = ntt + 8;
+				ix = jp;
+				iy = jm;
+			}
+		}
+
+		return ((long)face << (2 * order)) + spread(ix) + (spread(iy) << 1);
+	}
+
+	/**
+	 * Get the position of the center of the given NESTED pixel.
+	 *
+	 * @param order	HEALPix order (between 0 and {@link #MAX_ORDER}).
+	 * @param pix	NESTED pixel index.
+	 *
+	 * @return	<code>{ra, dec}</code> (in degrees).
+	 *
+	 * @throws IllegalArgumentException	If the order or the pixel index is
+	 *                                 	incorrect.
+	 */
+	public static double[] pix2ang(final int order, final long pix) throws IllegalArgumentException{
+		checkOrder(order);
+		if (pix < 0 || pix >= 12L << (2 * order))
+			throw new IllegalArgumentException("Incorrect HEALPix pixel index at order " + order + ": " + pix + "!");
+		double[] v = center(order, pix);
+		double ra = Math.toDegrees(Math.atan2(v[1], v[0]));
+		return new double[]{ (ra < 0) ? ra + 360 : ra, Math.toDegrees(Math.asin(Math.max(-1, Math.min(1, v[2])))) };
+	}
+
+	/**
+	 * Get the maximum angular distance between the center of a pixel and any
+	 * of its corners, at the given order.
+	 *
+	 * @param order	HEALPix order (between 0 and {@link #MAX_ORDER}).
+	 *
+	 * @return	The maximum pixel radius (in degrees).
+	 *
+	 * @throws IllegalArgumentException	If the order is incorrect.
+	 */
+	public static double getMaxPixelRadius(final int order) throws IllegalArgumentException{
+		checkOrder(order);
+		return Math.toDegrees(maxPixRad(order));
+	}
+
+	/**
+	 * Get the ranges of NESTED pixels which may overlap the given disc.
+	 *
+	 * @param order		HEALPix order (between 0 and {@link #MAX_ORDER}).
+	 * @param ra		Right ascension of the disc center (in degrees).
+	 * @param dec		Declination of the disc center (in degrees).
+	 * @param radius	Radius of the disc (in degrees).
+	 * @param maxRanges	Maximum number of returned ranges. If more ranges are
+	 *                 	needed, the closest ones are merged.
+	 *                 	<i>0 or a negative value means no limit.</i>
+	 *
+	 * @return	The pixel ranges (<code>{start1, end1, start2, end2, ...}</code>).
+	 *
+	 * @throws IllegalArgumentException	If the order is incorrect.
+	 */
+	public static long[] queryDisc(final int order, final double ra, final double dec, final double radius, final int maxRanges) throws IllegalArgumentException{
+		checkOrder(order);
+		final double[] c = toVector(ra, dec);
+		final double r = Math.toRadians(Math.max(0, radius));
+		return query(order, new Region(){
+			@Override
+			public int test(final double[] v, final double pixRad){
+				double d = angle(v, c);
+				if (d > r + pixRad)
+					return OUTSIDE;
+				else if (d + pixRad <= r)
+					return INSIDE;
+				else
+					return PARTIAL;
+			}
+		}, maxRanges);
+	}
+
+	/**
+	 * Get the ranges of NESTED pixels which may overlap the given box.
+	 *
+	 * <p><i>Note:
+	 * 	As for ADQL's BOX, the box is delimited by meridians and parallels:
+	 * 	it covers the right ascensions <code>ra &plusmn; width/2</code> and the
+	 * 	declinations <code>dec &plusmn; height/2</code>.
+	 * </i></p>
+	 *
+	 * @param order		HEALPix order (between 0 and {@link #MAX_ORDER}).
+	 * @param ra		Right ascension of the box center (in degrees).
+	 * @param dec		Declination of the box center (in degrees).
+	 * @param width		Full width of the box (in degrees).
+	 * @param height	Full height of the box (in degrees).
+	 * @param maxRanges	Maximum number of returned ranges. If more ranges are
+	 *                 	needed, the closest ones are merged.
+	 *                 	<i>0 or a negative value means no limit.</i>
+	 *
+	 * @return	The pixel ranges (<code>{start1, end1, start2, end2, ...}</code>).
+	 *
+	 * @throws IllegalArgumentException	If the order is incorrect.
+	 */
+	public static long[] queryBox(final int order, final double ra, final double dec, final double width, final double height, final int maxRanges) throws IllegalArgumentException{
+		checkOrder(order);
+		final double halfWidth = Math.abs(width) / 2, decMin = Math.max(-90, dec - Math.abs(height) / 2), decMax = Math.min(90, dec + Math.abs(height) / 2);
+		return query(order, new Region(){
+			@Override
+			public int test(final double[] v, final double pixRad){
+				double r = Math.toDegrees(pixRad);
+				double vDec = Math.toDegrees(Math.asin(Math.max(-1, Math.min(1, v[2]))));
+
+				// Declination extent of the pixel (bounding cap):
+				if (vDec + r < decMin || vDec - r > decMax)
+					return OUTSIDE;
+				boolean decInside = (vDec - r >= decMin && vDec + r <= decMax);
+
+				// Whole RA range:
+				if (halfWidth >= 180)
+					return decInside ? INSIDE : PARTIAL;
+
+				// Bounding cap including a pole => no RA limit:
+				if (Math.abs(vDec) + r >= 90)
+					return PARTIAL;
+
+				// RA extent of the pixel (bounding cap):
+				double alpha = Math.toDegrees(Math.asin(Math.min(1, Math.sin(pixRad) / Math.cos(Math.toRadians(vDec)))));
+				double diff = Math.abs(((Math.toDegrees(Math.atan2(v[1], v[0])) - ra) % 360 + 540) % 360 - 180);
+				if (diff > halfWidth + alpha)
+					return OUTSIDE;
+				else if (decInside && diff + alpha <= halfWidth)
+					return INSIDE;
+				else
+					return PARTIAL;
+			}
+		}, maxRanges);
+	}
+
+	/**
+	 * Get the ranges of NESTED pixels which may overlap the given polygon.
+	 *
+	 * <p><i>Note:
+	 * 	As for ADQL's POLYGON, the polygon edges are great circle arcs. The
+	 * 	polygon is expected to be smaller than a hemisphere.
+	 * </i></p>
+	 *
+	 * @param order		HEALPix order (between 0 and {@link #MAX_ORDER}).
+	 * @param ras		Right ascension of all vertices (in degrees).
+	 * @param decs		Declination of all vertices (in degrees).
+	 * @param maxRanges	Maximum number of returned ranges. If more ranges are
+	 *                 	needed, the closest ones are merged.
+	 *                 	<i>0 or a negative value means no limit.</i>
+	 *
+	 * @return	The pixel ranges (<code>{start1, end1, start2, end2, ...}</code>).
+	 *
+	 * @throws IllegalArgumentException	If the order is incorrect or if less
+	 *                                 	than 3 vertices are given.
+	 */
+	public static long[] queryPolygon(final int order, final double[] ras, final double[] decs, final int maxRanges) throws IllegalArgumentException{
+		checkOrder(order);
+		if (ras == null || decs == null || ras.length != decs.length || ras.length < 3)
+			throw new IllegalArgumentException("A polygon must have at least 3 vertices!");
+
+		final int n = ras.length;
+		final double[][] vertices = new double[n][];
+		final double[] centroid = new double[3];
+		for(int i = 0; i < n; i++){
+			vertices[i] = toVector(ras[i], decs[i]);
+			for(int j = 0; j < 3; j++)
+				centroid[j] += vertices[i][j];
+		}
+		normalize(centroid);
+
+		return query(order, new Region(){
+			@Override
+			public int test(final double[] v, final double pixRad){
+				// Distance to the polygon boundary:
+				double minDist = Double.MAX_VALUE;
+				for(int i = 0; i < n && minDist > pixRad; i++)
+					minDist = Math.min(minDist, distanceToArc(v, vertices[i], vertices[(i + 1) % n]));
+
+				// The pixel may cross the boundary:
+				if (minDist <= pixRad)
+					return PARTIAL;
+
+				// Otherwise the pixel is entirely on one side of the boundary:
+				return isInside(v, vertices, centroid) ? INSIDE : OUTSIDE;
+			}
+		}, maxRanges);
+	}
+
+	/* ******************* */
+	/* INTERNAL FUNCTIONS */
+	/* ******************* */
+
+	/**
+	 * Region to test against HEALPix pixels.
+	 */
+	private static interface Region {
+		/**
+		 * Test whether the pixel (approximated by its bounding cap) overlaps
+		 * this region.
+		 *
+		 * @param v			Unit vector of the pixel center.
+		 * @param pixRad	Radius of the bounding cap of the pixel (in radians).
+		 *
+		 * @return	{@link Healpix#OUTSIDE}, {@link Healpix#PARTIAL} or
+		 *        	{@link Healpix#INSIDE}.
+		 */
+		public int test(final double[] v, final double pixRad);
+	}
+
+	/**
+	 * Collect the ranges of NESTED pixels which may overlap the given region,
+	 * by descending the HEALPix hierarchy from the 12 base pixels.
+	 */
+	private static long[] query(final int order, final Region region, final int maxRanges){
+		final double[] pixRads = new double[order + 1];
+		for(int o = 0; o <= order; o++)
+			pixRads[o] = maxPixRad(o) * PIXRAD_SAFETY_FACTOR;
+
+		final ArrayList<long[]> ranges = new ArrayList<long[]>();
+		for(long pix = 0; pix < 12; pix++)
+			visit(0, pix, order, region, pixRads, ranges);
+
+		return limit(ranges, maxRanges);
+	}
+
+	private static void visit(final int o, final long pix, final int order, final Region region, final double[] pixRads, final ArrayList<long[]> ranges){
+		switch(region.test(center(o, pix), pixRads[o])){
+			case OUTSIDE:
+				return;
+			case INSIDE:
+				addRange(ranges, pix << (2 * (order - o)), ((pix + 1) << (2 * (order - o))) - 1);
+				return;
+			default:
+				if (o == order)
+					addRange(ranges, pix, pix);
+				else{
+					for(int i = 0; i < 4; i++)
+						visit(o + 1, (pix << 2) + i, order, region, pixRads, ranges);
+				}
+		}
+	}
+
+	/** Append the given range, merging it with the last one if contiguous.
+	 * (ranges are always added in increasing order) */
+	private static void addRange(final ArrayList<long[]> ranges, final long start, final long end){
+		if (!ranges.isEmpty()){
+			long[] last = ranges.get(ranges.size() - 1);
+			if (last[1] + 1 >= start){
+				last[1] = Math.max(last[1], end);
+				return;
+			}
+		}
+		ranges.add(new long[]{ start, end });
+	}
+
+	/** Merge the closest ranges until the number of ranges is at most
+	 * <code>maxRanges</code>, and flatten the result. */
+	private static long[] limit(final ArrayList<long[]> ranges, final int maxRanges){
+		int nbRanges = ranges.size();
+		boolean[] merged = new boolean[nbRanges];
+		if (maxRanges > 0 && nbRanges > maxRanges){
+			// Sort the gaps between 2 consecutive ranges:
+			long[][] gaps = new long[nbRanges - 1][];
+			for(int i = 0; i + 1 < nbRanges; i++)
+				gaps[i] = new long[]{ ranges.get(i + 1)[0] - ranges.get(i)[1], i };
+			Arrays.sort(gaps, new Comparator<long[]>(){
+				@Override
+				public int compare(final long[] g1, final long[] g2){
+					return (g1[0] < g2[0]) ? -1 : ((g1[0] == g2[0]) ? 0 : 1);
+				}
+			});
+			// Merge the smallest gaps:
+			for(int i = 0; i < nbRanges - maxRanges; i++)
+				merged[(int)gaps[i][1] + 1] = true;
+			nbRanges = maxRanges;
+		}
+
+		long[] result = new long[2 * nbRanges];
+		int n = -1;
+		for(int i = 0; i < ranges.size(); i++){
+			if (merged[i])
+				result[2 * n + 1] = ranges.get(i)[1];
+			else{
+				n++;
+				result[2 * n] = ranges.get(i)[0];
+				result[2 * n + 1] = ranges.get(i)[1];
+			}
+		}
+		return result;
+	}
+
+	private static void checkOrder(final int order) throws IllegalArgumentException{
+		if (order < 0 || order > MAX_ORDER)
+			throw new IllegalArgumentException("Incorrect HEALPix order: " + order + "! It must be between 0 and " + MAX_ORDER + ".");
+	}
+
+	/** Maximum angular distance (in radians) between a pixel center and its
+	 * corners (as in Healpix_Base::max_pixrad()). */
+	private static double maxPixRad(final int order){
+		final long nside = 1L << order;
+		double[] va = toVector(Math.toDegrees(Math.PI / (4 * nside)), Math.toDegrees(Math.asin(2. / 3)));
+		double t1 = 1. - 1. / nside;
+		t1 *= t1;
+		double[] vb = toVector(0, Math.toDegrees(Math.asin(1 - t1 / 3)));
+		return angle(va, vb);
+	}
+
+	/** Unit vector of the center of the given NESTED pixel
+	 * (as in Healpix_Base::pix2loc()). */
+	private static double[] center(final int order, final long pix){
+		final long nside = 1L << order, npface = nside * nside;
+		final int face = (int)(pix >> (2 * order));
+		final long p = pix & (npface - 1);
+		final long ix = compress(p), iy = compress(p >> 1);
+		final double fact2 = 4.0 / (12.0 * npface), fact1 = (nside << 1) * fact2;
+
+		final long jr = ((long)JRLL[face] << order) - ix - iy - 1;
+		long nr;
+		double z, sth;
+		if (jr < nside){
+			nr = jr;
+			double tmp = (double)nr * nr * fact2;
+			z = 1 - tmp;
+			sth = Math.sqrt(tmp * (2 - tmp));
+		}else if (jr > 3 * nside){
+			nr = 4 * nside - jr;
+			double tmp = (double)nr * nr * fact2;
+			z = tmp - 1;
+			sth = Math.sqrt(tmp * (2 - tmp));
+		}else{
+			nr = nside;
+			z = (2 * nside - jr) * fact1;
+			sth = Math.sqrt((1 - z) * (1 + z));
+		}
+
+		long tmp = JPLL[face] * nr + ix - iy;
+		if (tmp < 0)
+			tmp += 8 * nr;
+		final double phi = (nr == nside) ? 0.75 * HALF_PI * tmp * fact1 : (0.5 * HALF_PI * tmp) / nr;
+
+		return new double[]{ sth * Math.cos(phi), sth * Math.sin(phi), z };
+	}
+
+	/** Interleave the bits of the given value with zeros. */
+	private static long spread(final long v){
+		long r = 0;
+		for(int i = 0; i < 32 && (v >> i) != 0; i++)
+			r |= ((v >> i) & 1L) << (2 * i);
+		return r;
+	}
+
+	/** Inverse of {@link #spread(long)}: extract the even bits. */
+	private static long compress(final long v){
+		long r = 0;
+		for(int i = 0; i < 32; i++)
+			r |= ((v >> (2 * i)) & 1L) << i;
+		return r;
+	}
+
+	private static double[] toVector(final double ra, final double dec){
+		double a = Math.toRadians(ra), d = Math.toRadians(dec);
+		return new double[]{ Math.cos(d) * Math.cos(a), Math.cos(d) * Math.sin(a), Math.sin(d) };
+	}
+
+	private static double dot(final double[] a, final double[] b){
+		return a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+	}
+
+	private static double[] cross(final double[] a, final double[] b){
+		return new double[]{ a[1] * b[2] - a[2] * b[1], a[2] * b[0] - a[0] * b[2], a[0] * b[1] - a[1] * b[0] };
+	}
+
+	private static double norm(final double[] a){
+		return Math.sqrt(dot(a, a));
+	}
+
+	private static void normalize(final double[] a){
+		double n = norm(a);
+		if (n > 0){
+			a[0] /= n;
+			a[1] /= n;
+			a[2] /= n;
+		}
+	}
+
+	/** Angle (in radians) between 2 unit vectors. */
+	private static double angle(final double[] a, final double[] b){
+		return Math.atan2(norm(cross(a, b)), dot(a, b));
+	}
+
+	/** Angular distance (in radians) between the point v and the great
+	 * circle arc [a,b]. */
+	private static double distanceToArc(final double[] v, final double[] a, final double[] b){
+		double[] n = cross(a, b);
+		if (norm(n) < 1e-15)
+			return angle(v, a);
+		normalize(n);
+		double s = dot(v, n);
+		double[] foot = new double[]{ v[0] - s * n[0], v[1] - s * n[1], v[2] - s * n[2] };
+		if (norm(foot) > 1e-15 && dot(cross(a, foot), n) >= 0 && dot(cross(foot, b), n) >= 0)
+			return Math.asin(Math.min(1, Math.abs(s)));
+		else
+			return Math.min(angle(v, a), angle(v, b));
+	}
+
+	/** Tell whether the point v is inside the polygon (smaller than a
+	 * hemisphere centered on the given centroid), thanks to its winding
+	 * number. */
+	private static boolean isInside(final double[] v, final double[][] vertices, final double[] centroid){
+		if (dot(v, centroid) <= 0)
+			return false;
+		double sum = 0;
+		for(int i = 0; i < vertices.length; i++){
+			double[] a = vertices[i], b = vertices[(i + 1) % vertices.length];
+			sum += Math.atan2(dot(v, cross(a, b)), dot(a, b) - dot(v, a) * dot(v, b));
+		}
+		return Math.abs(sum) > Math.PI;
+	}
+
+}
@@ -0,0 +1,188 @@
+package adql.db;
+
+/*
+ * This file is part of ADQLLibrary.
+ *
+ * ADQLLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ADQLLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+/**
+ * Description of a spatial index column: a column containing, for each row,
+ * the index of the sky pixel containing the position given by 2 other
+ * columns (RA and Dec) of the same table.
+ *
+ * <p>
+ * 	Such column lets translators (see
+ * 	{@link adql.translator.JDBCTranslator#getPixelIndexConstraint(adql.query.constraint.Comparison)})
+ * 	prefix geometrical constraints by a pixel range constraint, which can be
+ * 	resolved with a simple B-tree index on the pixel column.
+ * </p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 1.5 (10/2026)
+ * @since 1.5
+ *
+ * @see DBSpatialIndexColumn
+ */
+public class SpatialIndex {
+
+	/**
+	 * Supported pixelization schemes.
+	 *
+	 * @author Gr&eacute;gory Mantelet (CDS)
+	 * @version 1.5 (10/2026)
+	 * @since 1.5
+	 */
+	public static enum Scheme {
+		/** HEALPix, NESTED numbering (see {@link Healpix}). */
+		HEALPIX_NESTED;
+	}
+
+	/** Pixelization scheme. */
+	protected final Scheme scheme;
+
+	/** Order (i.e. depth) of the pixelization. */
+	protected final int order;
+
+	/** Name of the indexed RA column. */
+	protected final String raColumn;
+
+	/** Name of the indexed Dec column. */
+	protected final String decColumn;
+
+	/**
+	 * Build the description of a spatial index column.
+	 *
+	 * @param scheme	Pixelization scheme.
+	 * @param order		Order (i.e. depth) of the pixelization.
+	 * @param raColumn	Name (ADQL or DB) of the indexed RA column.
+	 * @param decColumn	Name (ADQL or DB) of the indexed Dec column.
+	 *
+	 * @throws NullPointerException		If a parameter is missing.
+	 * @throws IllegalArgumentException	If the order is incorrect.
+	 */
+	public SpatialIndex(final Scheme scheme, final int order, final String raColumn, final String decColumn) throws NullPointerException, IllegalArgumentException{
+		if (scheme == null || raColumn == null || decColumn == null)
+			throw new NullPointerException("Missing pixelization scheme, RA or Dec column!");
+		if (order < 0 || order > Healpix.MAX_ORDER)
+			throw new IllegalArgumentException("Incorrect " + scheme + " order: " + order + "! It must be between 0 and " + Healpix.MAX_ORDER + ".");
+		this.scheme = scheme;
+		this.order = order;
+		this.raColumn = raColumn.trim();
+		this.decColumn = decColumn.trim();
+	}
+
+	/**
+	 * Get the pixelization scheme.
+	 *
+	 * @return	The pixelization scheme.
+	 */
+	public final Scheme getScheme(){
+		return scheme;
+	}
+
+	/**
+	 * Get the order (i.e. depth) of the pixelization.
+	 *
+	 * @return	The pixelization order.
+	 */
+	public final int getOrder(){
+		return order;
+	}
+
+	/**
+	 * Get the name of the indexed RA column.
+	 *
+	 * @return	Name of the RA column.
+	 */
+	public final String getRAColumn(){
+		return raColumn;
+	}
+
+	/**
+	 * Get the name of the indexed Dec column.
+	 *
+	 * @return	Name of the Dec column.
+	 */
+	public final String getDecColumn(){
+		return decColumn;
+	}
+
+	/**
+	 * Tell whether this index is computed from the given RA and Dec columns.
+	 *
+	 * @param ra	A RA column.
+	 * @param dec	A Dec column.
+	 *
+	 * @return	<i>true</i> if the given columns are the indexed ones,
+	 *        	<i>false</i> otherwise.
+	 */
+	public boolean isIndexing(final DBColumn ra, final DBColumn dec){
+		return ra != null && dec != null && hasName(ra, raColumn) && hasName(dec, decColumn);
+	}
+
+	private static boolean hasName(final DBColumn column, final String name){
+		return name.equalsIgnoreCase(column.getADQLName()) || name.equalsIgnoreCase(column.getDBName());
+	}
+
+	/**
+	 * Get the ranges of pixels which may overlap the given disc.
+	 *
+	 * @param ra		RA of the disc center (in degrees).
+	 * @param dec		Dec of the disc center (in degrees).
+	 * @param radius	Radius of the disc (in degrees).
+	 * @param maxRanges	Maximum number of ranges. <i>0 = no limit.</i>
+	 *
+	 * @return	The pixel ranges (<code>{start1, end1, start2, end2, ...}</code>).
+	 */
+	public long[] getDiscRanges(final double ra, final double dec, final double radius, final int maxRanges){
+		return Healpix.queryDisc(order, ra, dec, radius, maxRanges);
+	}
+
+	/**
+	 * Get the ranges of pixels which may overlap the given box.
+	 *
+	 * @param ra		RA of the box center (in degrees).
+	 * @param dec		Dec of the box center (in degrees).
+	 * @param width		Full width of the box (in degrees).
+	 * @param height	Full height of the box (in degrees).
+	 * @param maxRanges	Maximum number of ranges. <i>0 = no limit.</i>
+	 *
+	 * @return	The pixel ranges (<code>{start1, end1, start2, end2, ...}</code>).
+	 */
+	public long[] getBoxRanges(final double ra, final double dec, final double width, final double height, final int maxRanges){
+		return Healpix.queryBox(order, ra, dec, width, height, maxRanges);
+	}
+
+	/**
+	 * Get the ranges of pixels which may overlap the given polygon.
+	 *
+	 * @param ras		RA of all vertices (in degrees).
+	 * @param decs		Dec of all vertices (in degrees).
+	 * @param maxRanges	Maximum number of ranges. <i>0 = no limit.</i>
+	 *
+	 * @return	The pixel ranges (<code>{start1, end1, start2, end2, ...}</code>).
+	 */
+	public long[] getPolygonRanges(final double[] ras, final double[] decs, final int maxRanges){
+		return Healpix.queryPolygon(order, ras, decs, maxRanges);
+	}
+
+	@Override
+	public String toString(){
+		return scheme + "(" + order + ") of (" + raColumn + ", " + decColumn + ")";
+	}
+
+}
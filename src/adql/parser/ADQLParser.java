@@ -14,6 +14,7 @@ import adql.query.ADQLQuery;
 import adql.query.ClauseADQL;
 import adql.query.ClauseConstraints;
 import adql.query.ClauseSelect;
+import adql.query.LiteralList;
 import adql.query.SelectAllColumns;
 import adql.query.SelectItem;
 import adql.query.TextPosition;
@@ -90,7 +91,7 @@ import adql.translator.TranslationException;
 * @see ADQLQueryFactory
 *
 * @author Gr&eacute;gory Mantelet (CDS;ARI)
-* @version 1.5-2 (10/2020)
+* @version 1.5-3 (10/2026)
 */
 public class ADQLParser implements ADQLParserConstants {
 
@@ -112,6 +113,17 @@ public class ADQLParser implements ADQLParserConstants {
 	* {@link #Identifier()}. */
 	private Token currentIdentifierToken = null;
 
+	/** Minimum number of items of a list of literals to parse it with the
+	* fast path of {@link #parseQuery(String)}. <i>0 if disabled.</i>
+	* @since 1.5 */
+	private int minCompactListSize = LiteralListScanner.DEFAULT_MIN_LIST_SIZE;
+
+	/** Long lists of literals extracted from the query being parsed by
+	* {@link #parseQuery(String)}.
+	* (ONLY USED DURING THE PARSING, else it is always <i>null</i>).
+	* @since 1.5 */
+	private LiteralListScanner literalLists = null;
+
 	/**
 	* Builds an ADQL parser without a query to parse.
 	*/
@@ -348,6 +360,42 @@ public class ADQLParser implements ADQLParserConstants {
 		queryFactory = (factory != null) ? factory : (new ADQLQueryFactory());
 	}
 
+	/**
+	* Get the minimum number of items of a list of literals (values of an
+	* IN constraint, coordinates of a POLYGON) to parse it with the fast path
+	* of {@link #parseQuery(String)}.
+	*
+	* @return	Minimum list size. <i>0 if the fast path is disabled.</i>
+	*
+	* @see LiteralListScanner
+	*
+	* @since 1.5
+	*/
+	public final int getMinCompactListSize() {
+		return minCompactListSize;
+	}
+
+	/**
+	* Set the minimum number of items of a list of literals (values of an
+	* IN constraint, coordinates of a POLYGON) to parse it with the fast path
+	* of {@link #parseQuery(String)}.
+	*
+	* <p><i>Note:
+	* 	The items of such list are stored in a {@link LiteralList} ; they are
+	* 	not created by the {@link ADQLQueryFactory}.
+	* </i></p>
+	*
+	* @param minSize	Minimum list size. <i>0 or a negative value to
+	*               	disable the fast path.</i>
+	*
+	* @see LiteralListScanner
+	*
+	* @since 1.5
+	*/
+	public final void setMinCompactListSize(final int minSize) {
+		minCompactListSize = (minSize < 0) ? 0 : minSize;
+	}
+
 	/* EXCEPTION HELPER FUNCTION */
 
 	private final ParseException generateParseException(Exception ex) {
@@ -359,6 +407,30 @@ public class ADQLParser implements ADQLParserConstants {
 			return (ParseException)ex;
 	}
 
+	/* FAST PATH HELPER FUNCTION */
+
+	/**
+	* Get the long list of literals extracted by the fast path of
+	* {@link #parseQuery(String)} whose first items have just been parsed.
+	*
+	* @param keyword		Token of the IN or POLYGON keyword.
+	* @param items			The items parsed normally (i.e. those kept by the
+	*             			fast path).
+	* @param nbKeptItems	Number of items kept by the fast path for such
+	*                   	list.
+	*
+	* @return	The full list of literals,
+	*        	or NULL if this list has not been extracted.
+	*
+	* @since 1.5
+	*/
+	private final LiteralList getCompactList(final Token keyword, final Vector<ADQLOperand> items, final int nbKeptItems) {
+		if (literalLists == null || items.size() != nbKeptItems)
+			return null;
+		else
+			return literalLists.claim(keyword, items.get(0));
+	}
+
 	/* QUERY PARSING FUNCTIONS */
 
 	/**
@@ -384,7 +456,17 @@ public class ADQLParser implements ADQLParserConstants {
 	* @since 1.5
 	*/
 	public final boolean isRegularIdentifier(final String idCandidate) {
-		return idCandidate.matches("[a-zA-Z]+[a-zA-Z0-9_]*");
+		// Note: tested by hand instead of with a regular expression, since this
+		//       function is called for every identifier.
+		final int length = idCandidate.length();
+		if (length == 0)
+			return false;
+		for(int i = 0; i < length; i++) {
+			char c = idCandidate.charAt(i);
+			if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (i > 0 && ((c >= '0' && c <= '9') || c == '_'))))
+				return false;
+		}
+		return true;
 	}
 
 	/**
@@ -433,6 +515,12 @@ public class ADQLParser implements ADQLParserConstants {
 	/**
 	* Parses the query given in parameter.
 	*
+	* <p>
+	* 	Long lists of literals (e.g. <code>IN (1, 2, ...)</code>) are read by
+	* 	a fast path instead of the generated lexer and parser (see
+	* 	{@link LiteralListScanner} and {@link #setMinCompactListSize(int)}).
+	* </p>
+	*
 	* @param q	The ADQL query to parse.
 	*
 	* @return	The object representation of the given ADQL query.
@@ -444,6 +532,29 @@ public class ADQLParser implements ADQLParserConstants {
 	* @see ADQLParser#Query()
 	*/
 	public final ADQLQuery parseQuery(String q) throws ParseException {
+		// Fast path for the long lists of literals:
+		literalLists = LiteralListScanner.scan(q, minCompactListSize);
+		if (literalLists != null) {
+			stackQuery.clear();
+			query = null;
+			ReInit(new ADQLParserTokenManager(literalLists.getCharStream()));
+			try {
+				ADQLQuery parsedQuery = Query();
+				if (literalLists.isFullyClaimed())
+					return parsedQuery;
+			} catch(ParseException pe) {
+				if (literalLists.isFullyClaimed())
+					throw pe;
+			} catch(TokenMgrError tme) {
+				if (literalLists.isFullyClaimed())
+					throw new ParseException(tme);
+			} finally {
+				literalLists = null;
+			}
+			/* Note: if not all extracted lists have been recognized by the
+			 *       parser, the query is parsed again without fast path. */
+		}
+
 		stackQuery.clear();
 		query = null;
 		ReInit(new java.io.ByteArrayInputStream(q.getBytes()));
@@ -3091,10 +3202,14 @@ public class ADQLParser implements ADQLParserConstants {
 			}
 			try {
 				In in;
+				LiteralList compact = (q == null) ? getCompactList(start, items, 1) : null;
 				start = (not != null) ? not : start;
 				if (q != null) {
 					in = queryFactory.createIn(leftOp, q, not != null);
 					in.setPosition(new TextPosition(start.beginLine, start.beginColumn, q.getPosition().endLine, q.getPosition().endColumn));
+				} else if (compact != null) {
+					in = queryFactory.createIn(leftOp, compact, not != null);
+					in.setPosition(new TextPosition(start.beginLine, start.beginColumn, compact.getPosition().endLine, compact.getPosition().endColumn));
 				} else {
 					ADQLOperand[] list = new ADQLOperand[items.size()];
 					int i = 0;
@@ -3528,7 +3643,8 @@ public class ADQLParser implements ADQLParserConstants {
 							vCoords.add(tmp[1]);
 						}
 						end = jj_consume_token(RIGHT_PAR);
-						gf = queryFactory.createPolygon(coordSys, vCoords);
+						LiteralList compact = getCompactList(fct, vCoords, 6);
+						gf = (compact != null) ? queryFactory.createPolygon(coordSys, compact) : queryFactory.createPolygon(coordSys, vCoords);
 						break;
 					case REGION:
 						fct = jj_consume_token(REGION);
@@ -16,7 +16,7 @@ package adql.parser;
  * You should have received a copy of the GNU Lesser General Public License
  * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
  * 
- * Copyright 2012-2017 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -29,6 +29,7 @@ import adql.query.ADQLQuery;
 import adql.query.ClauseConstraints;
 import adql.query.ColumnReference;
 import adql.query.IdentifierField;
+import adql.query.LiteralList;
 import adql.query.SelectItem;
 import adql.query.TextPosition;
 import adql.query.constraint.ADQLConstraint;
@@ -82,8 +83,14 @@ import adql.query.operand.function.geometry.RegionFunction;
  * 
  * <p>To customize the object representation you merely have to extends the appropriate functions of this class.</p>
  * 
+ * <p><i>Note:
+ * 	Items of the long lists of literals read by the fast path of {@link ADQLParser#parseQuery(String)} are
+ * 	not created by this factory: they are stored in a {@link LiteralList} given to
+ * 	{@link #createIn(ADQLOperand, LiteralList, boolean)} and {@link #createPolygon(ADQLOperand, LiteralList)}.
+ * </i></p>
+ * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 1.4 (04/2017)
+ * @version 1.5 (10/2026)
  * 
  * @see ADQLParser
  */
@@ -261,6 +268,23 @@ public class ADQLQueryFactory {
 		return new In(leftOp, valuesList, notIn);
 	}
 
+	/**
+	 * Create an IN constraint whose values are a compact list of literals.
+	 * 
+	 * @param leftOp		The operand to test.
+	 * @param valuesList	All the possible values.
+	 * @param notIn			<i>true</i> for a NOT IN constraint.
+	 * 
+	 * @return	The created IN constraint.
+	 * 
+	 * @throws Exception	If there is an error while creating the constraint.
+	 * 
+	 * @since 1.5
+	 */
+	public In createIn(ADQLOperand leftOp, LiteralList valuesList, boolean notIn) throws Exception{
+		return new In(leftOp, valuesList, notIn);
+	}
+
 	public SQLFunction createSQLFunction(SQLFunctionType type, ADQLOperand op, boolean distinctValues) throws Exception{
 		return new SQLFunction(type, op, distinctValues);
 	}
@@ -332,6 +356,23 @@ public class ADQLQueryFactory {
 		return new PolygonFunction(coordSys, coords);
 	}
 
+	/**
+	 * Create a POLYGON function whose coordinates are a compact list of
+	 * numeric literals.
+	 * 
+	 * @param coordSys	The coordinate system.
+	 * @param coords	All the coordinates of the vertices.
+	 * 
+	 * @return	The created POLYGON function.
+	 * 
+	 * @throws Exception	If there is an error while creating the function.
+	 * 
+	 * @since 1.5
+	 */
+	public PolygonFunction createPolygon(ADQLOperand coordSys, LiteralList coords) throws Exception{
+		return new PolygonFunction(coordSys, coords);
+	}
+
 	public AreaFunction createArea(GeometryFunction param) throws Exception{
 		return new AreaFunction(new GeometryValue<GeometryFunction>(param));
 	}
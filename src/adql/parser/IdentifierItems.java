@@ -16,7 +16,7 @@ package adql.parser;
  * You should have received a copy of the GNU Lesser General Public License
  * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2012-2017 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -43,7 +43,7 @@ import adql.query.TextPosition;
  * </p>
  *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 1.4 (11/2017)
+ * @version 1.5 (10/2026)
  *
  * @see IdentifierItem
  */
@@ -54,7 +54,7 @@ public class IdentifierItems {
 	 * alias).
 	 *
 	 * @author Gr&eacute;gory Mantelet (CDS;ARI)
-	 * @version 1.4 (11/2017)
+	 * @version 1.5 (10/2026)
 	 */
 	public static class IdentifierItem {
 		public String identifier = null;
@@ -62,7 +62,7 @@ public class IdentifierItems {
 		public TextPosition position = null;
 
 		public IdentifierItem(final Token token, final boolean caseSensitive){
-			identifier = token.image.replaceAll("\"\"", "\"");
+			identifier = (token.image.indexOf('"') < 0) ? token.image : token.image.replace("\"\"", "\"");
 			caseSensitivity = caseSensitive;
 			position = new TextPosition(token);
 		}
@@ -0,0 +1,700 @@
+package adql.parser;
+
+/*
+ * This file is part of ADQLLibrary.
+ *
+ * ADQLLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ADQLLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import adql.query.LiteralList;
+import adql.query.TextPosition;
+import adql.query.operand.ADQLOperand;
+
+/**
+ * Fast path of {@link ADQLParser#parseQuery(String)} for long lists of
+ * literals.
+ *
+ * <p>
+ * 	The lexer generated by JavaCC creates a token (and its image) for each
+ * 	literal and for each comma, and the parser then creates one operand per
+ * 	literal. With an <code>IN</code> list of several thousands identifiers or
+ * 	a polygon of several thousands vertices, that takes most of the parsing
+ * 	time. This class detects such lists in the query text, before the
+ * 	parsing, with a hand-written scanner:
+ * </p>
+ * <ul>
+ * 	<li><code>IN (literal, literal, ...)</code> with only numeric literals or
+ * 		only strings,</li>
+ * 	<li><code>POLYGON('coordsys', number, number, ...)</code>.</li>
+ * </ul>
+ * <p>
+ * 	When such list has at least the given minimum number of items, all its
+ * 	items are stored in a {@link LiteralList} and removed from the text given
+ * 	to the lexer, except the first one for <code>IN</code> and the first 3
+ * 	vertices for <code>POLYGON</code> (so that the query stays valid). Then,
+ * 	the parser replaces these kept items by the corresponding
+ * 	{@link LiteralList} (see {@link #claim(Token, ADQLOperand)}).
+ * </p>
+ *
+ * <h3>Positions</h3>
+ * <p>
+ * 	The char stream given to the lexer ({@link #getCharStream()}) restores the
+ * 	original line and column of the character following each removed part.
+ * 	So, the position of all tokens (and then of all ADQL objects and errors)
+ * 	are the same as without this fast path.
+ * </p>
+ *
+ * <h3>Safety</h3>
+ * <p>
+ * 	This scanner only recognizes plain literals separated by commas. Any
+ * 	other content (comment, expression, mixed numeric and string items,
+ * 	concatenated strings, ...) makes it give up the list, which is then
+ * 	parsed normally. Besides, if a removed list has not been claimed by the
+ * 	parser (see {@link #isFullyClaimed()}), the query must be parsed again
+ * 	without this fast path.
+ * </p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 1.5 (10/2026)
+ * @since 1.5
+ */
+public class LiteralListScanner {
+
+	/** Default minimum number of items a list must have to be parsed by this
+	 * fast path. */
+	public final static int DEFAULT_MIN_LIST_SIZE = 100;
+
+	/** Number of coordinates of a polygon always kept in the text given to the
+	 * lexer: 3 vertices, the minimum required by the grammar. */
+	protected final static int NB_POLYGON_KEPT_ITEMS = 6;
+
+	/** Tab size used by {@link SimpleCharStream} to compute columns. */
+	private final static int TAB_SIZE = 8;
+
+	/** The original ADQL query. */
+	private final String adql;
+
+	/** The ADQL query without the removed lists. */
+	private final StringBuffer reducedQuery;
+
+	/** Extracted lists, by position of their keyword (<code>IN</code> or
+	 * <code>POLYGON</code>). See {@link #getKey(int, int)}. */
+	private final Map<Long, LiteralList> lists = new HashMap<Long, LiteralList>();
+
+	/* Original position of the first character following each removed part: */
+	/** Index, in {@link #reducedQuery}, of the first character following each
+	 * removed part. */
+	private int[] jumpIndexes = new int[4];
+	/** Original line of the first character following each removed part. */
+	private int[] jumpLines = new int[4];
+	/** Original column of the first character following each removed part. */
+	private int[] jumpColumns = new int[4];
+	/** Number of removed parts. */
+	private int nbJumps = 0;
+
+	/* Items of the list being scanned: */
+	/** Begin index of each item of the list being scanned. */
+	private int[] begins = new int[64];
+	/** End index of each item of the list being scanned. */
+	private int[] ends = new int[64];
+	/** Number of items of the list being scanned. */
+	private int nbItems = 0;
+
+	/* Position (line and column) computation, exactly as SimpleCharStream: */
+	/** Index of the next character whose position must be computed. */
+	private int trackedIndex = 0;
+	/** Line of the last character whose position has been computed. */
+	private int line = 1;
+	/** Column of the last character whose position has been computed. */
+	private int column = 0;
+	/** Whether the last character was a carriage return. */
+	private boolean prevCharIsCR = false;
+	/** Whether the last character was a line feed. */
+	private boolean prevCharIsLF = false;
+
+	/**
+	 * Build a scanner of the given query.
+	 *
+	 * @param adql	The ADQL query to scan.
+	 */
+	protected LiteralListScanner(final String adql){
+		this.adql = adql;
+		this.reducedQuery = new StringBuffer(256);
+	}
+
+	/**
+	 * Detect and extract the long lists of literals of the given ADQL query.
+	 *
+	 * @param adql			The ADQL query to scan.
+	 * @param minListSize	Minimum number of items of a list to extract.
+	 *
+	 * @return	The scan result,
+	 *        	or NULL if no list has been extracted.
+	 */
+	public static LiteralListScanner scan(final String adql, final int minListSize){
+		// Nothing to do if the query is too short to contain such list:
+		if (adql == null || minListSize <= 0 || adql.length() < 2 * minListSize)
+			return null;
+
+		LiteralListScanner scanner = new LiteralListScanner(adql);
+		scanner.scan(minListSize);
+		return scanner.lists.isEmpty() ? null : scanner;
+	}
+
+	/**
+	 * Scan the whole query.
+	 *
+	 * @param minListSize	Minimum number of items of a list to extract.
+	 */
+	protected void scan(final int minListSize){
+		final int length = adql.length();
+		int copied = 0, i = 0;
+		while(i < length){
+			char c = adql.charAt(i);
+			// skip strings and delimited identifiers:
+			if (c == '\'' || c == '"')
+				i = skipQuoted(i);
+			// skip comments:
+			else if (c == '-' && i + 1 < length && adql.charAt(i + 1) == '-'){
+				while(i < length && adql.charAt(i) != '\n' && adql.charAt(i) != '\r')
+					i++;
+			}
+			// try to read a list:
+			else if (c == '('){
+				int keyword = getKeywordStart(i, "IN");
+				boolean polygon = (keyword < 0);
+				if (polygon)
+					keyword = getKeywordStart(i, "POLYGON");
+				int end = (keyword < 0) ? -1 : (polygon ? scanPolygon(i + 1) : scanValues(i + 1));
+				if (end > 0 && nbItems >= Math.max(minListSize, polygon ? NB_POLYGON_KEPT_ITEMS + 1 : 2)){
+					extract(keyword, copied, polygon ? NB_POLYGON_KEPT_ITEMS : 1, end, polygon);
+					copied = end;
+					i = end;
+				}else
+					i++;
+			}else
+				i++;
+		}
+		if (!lists.isEmpty())
+			reducedQuery.append(adql, copied, length);
+	}
+
+	/**
+	 * Store the list just scanned and remove its items from the text given to
+	 * the lexer.
+	 *
+	 * @param keyword		Index of the keyword (IN or POLYGON).
+	 * @param copied		Index of the first character not yet copied in
+	 *              		{@link #reducedQuery}.
+	 * @param nbKeptItems	Number of items to keep in the text given to the
+	 *                   	lexer.
+	 * @param end			Index of the closing parenthesis.
+	 * @param polygon		Whether the list is a polygon.
+	 */
+	private void extract(final int keyword, final int copied, final int nbKeptItems, final int end, final boolean polygon){
+		// Build the list:
+		boolean strings = !polygon && adql.charAt(begins[0] - 1) == '\'';
+		LiteralList list = new LiteralList(adql, Arrays.copyOf(begins, nbItems), Arrays.copyOf(ends, nbItems), nbItems, strings);
+		long key = getKey(keyword);
+		int[] beginPos = getPosition(strings ? begins[0] - 1 : begins[0]);
+		int beginLine = beginPos[0], beginColumn = beginPos[1];
+		int[] endPos = getPosition(ends[nbItems - 1] - (strings ? 0 : 1));
+		list.setPosition(new TextPosition(beginLine, beginColumn, endPos[0], endPos[1] + 1));
+		lists.put(key, list);
+
+		// Keep the beginning of the list and skip the rest:
+		int lastKept = ends[nbKeptItems - 1] + (strings ? 1 : 0);
+		reducedQuery.append(adql, copied, lastKept);
+		int[] closePos = getPosition(end);
+		addJump(reducedQuery.length(), closePos[0], closePos[1]);
+	}
+
+	/**
+	 * Remember the original position of a character following a removed part.
+	 *
+	 * @param reducedIndex	Index of this character in {@link #reducedQuery}.
+	 * @param origLine		Its original line.
+	 * @param origColumn	Its original column.
+	 */
+	private void addJump(final int reducedIndex, final int origLine, final int origColumn){
+		if (nbJumps == jumpIndexes.length){
+			jumpIndexes = Arrays.copyOf(jumpIndexes, nbJumps * 2);
+			jumpLines = Arrays.copyOf(jumpLines, nbJumps * 2);
+			jumpColumns = Arrays.copyOf(jumpColumns, nbJumps * 2);
+		}
+		jumpIndexes[nbJumps] = reducedIndex;
+		jumpLines[nbJumps] = origLine;
+		jumpColumns[nbJumps] = origColumn;
+		nbJumps++;
+	}
+
+	/* ********************************************************************* */
+	/* LIST SCANNING                                                         */
+	/* ********************************************************************* */
+
+	/**
+	 * Scan the values of an IN list: only numeric literals or only strings,
+	 * separated by commas.
+	 *
+	 * @param start	Index of the character following the opening parenthesis.
+	 *
+	 * @return	Index of the closing parenthesis,
+	 *        	or -1 if this is not a list of literals.
+	 */
+	private int scanValues(final int start){
+		nbItems = 0;
+		int i = skipWhitespaces(start);
+		if (i >= adql.length())
+			return -1;
+		final boolean strings = (adql.charAt(i) == '\'');
+		while(true){
+			i = strings ? scanString(i) : scanNumber(i);
+			if (i < 0)
+				return -1;
+			i = skipWhitespaces(i);
+			if (i >= adql.length())
+				return -1;
+			else if (adql.charAt(i) == ')')
+				return i;
+			else if (adql.charAt(i) != ',')
+				return -1;
+			i = skipWhitespaces(i + 1);
+		}
+	}
+
+	/**
+	 * Scan the parameters of a POLYGON: a string (the coordinate system)
+	 * followed by numeric literals, separated by commas.
+	 *
+	 * @param start	Index of the character following the opening parenthesis.
+	 *
+	 * @return	Index of the closing parenthesis,
+	 *        	or -1 if these are not only literals or if the number of
+	 *        	coordinates is odd.
+	 */
+	private int scanPolygon(final int start){
+		// the coordinate system:
+		nbItems = 0;
+		int i = skipWhitespaces(start);
+		if (i >= adql.length() || adql.charAt(i) != '\'' || (i = scanString(i)) < 0)
+			return -1;
+		nbItems = 0;
+		i = skipWhitespaces(i);
+		if (i >= adql.length() || adql.charAt(i) != ',')
+			return -1;
+
+		// the coordinates:
+		i = skipWhitespaces(i + 1);
+		while(true){
+			if ((i = scanNumber(i)) < 0)
+				return -1;
+			i = skipWhitespaces(i);
+			if (i >= adql.length())
+				return -1;
+			else if (adql.charAt(i) == ')')
+				return (nbItems % 2 == 0) ? i : -1;
+			else if (adql.charAt(i) != ',')
+				return -1;
+			i = skipWhitespaces(i + 1);
+		}
+	}
+
+	/**
+	 * Scan a numeric literal, optionally signed, and add it to the items of
+	 * the list being scanned.
+	 *
+	 * <p><i>Note:
+	 * 	A plus sign is not part of the item (as the parser does). A minus sign
+	 * 	is (see {@link LiteralList}).
+	 * </i></p>
+	 *
+	 * @param start	Index of the first character of the literal.
+	 *
+	 * @return	Index of the character following the literal,
+	 *        	or -1 if there is no valid numeric literal at this index.
+	 */
+	private int scanNumber(final int start){
+		final int length = adql.length();
+		int i = start, begin = start;
+		if (i < length && (adql.charAt(i) == '+' || adql.charAt(i) == '-')){
+			if (adql.charAt(i) == '+')
+				begin++;
+			i++;
+		}
+
+		// integer and decimal parts:
+		int nbDigits = 0;
+		while(i < length && isDigit(adql.charAt(i))){
+			i++;
+			nbDigits++;
+		}
+		if (i < length && adql.charAt(i) == '.'){
+			i++;
+			while(i < length && isDigit(adql.charAt(i))){
+				i++;
+				nbDigits++;
+			}
+		}
+		if (nbDigits == 0)
+			return -1;
+
+		// exponent:
+		if (i < length && (adql.charAt(i) == 'e' || adql.charAt(i) == 'E')){
+			i++;
+			if (i < length && (adql.charAt(i) == '+' || adql.charAt(i) == '-'))
+				i++;
+			int expBegin = i;
+			while(i < length && isDigit(adql.charAt(i)))
+				i++;
+			if (i == expBegin)
+				return -1;
+		}
+
+		// the literal must end here:
+		if (i >= length || !(isWhitespace(adql.charAt(i)) || adql.charAt(i) == ',' || adql.charAt(i) == ')'))
+			return -1;
+
+		addItem(begin, i);
+		return i;
+	}
+
+	/**
+	 * Scan a string literal and add its content to the items of the list
+	 * being scanned.
+	 *
+	 * <p><i>Note:
+	 * 	Consecutive strings (which are concatenated in ADQL) are not
+	 * 	supported.
+	 * </i></p>
+	 *
+	 * @param start	Index of the opening simple quote.
+	 *
+	 * @return	Index of the character following the closing quote,
+	 *        	or -1 if there is no valid string literal at this index.
+	 */
+	private int scanString(final int start){
+		if (start >= adql.length() || adql.charAt(start) != '\'')
+			return -1;
+		int end = skipQuoted(start);
+		if (end > adql.length())
+			return -1;
+		int next = skipWhitespaces(end);
+		if (next < adql.length() && adql.charAt(next) == '\'')
+			return -1;
+		addItem(start + 1, end - 1);
+		return end;
+	}
+
+	/**
+	 * Add an item to the list being scanned.
+	 *
+	 * @param begin	Index of its first character.
+	 * @param end	Index of the character following it.
+	 */
+	private void addItem(final int begin, final int end){
+		if (nbItems == begins.length){
+			begins = Arrays.copyOf(begins, nbItems * 2);
+			ends = Arrays.copyOf(ends, nbItems * 2);
+		}
+		begins[nbItems] = begin;
+		ends[nbItems] = end;
+		nbItems++;
+	}
+
+	/* ********************************************************************* */
+	/* LEXICAL TOOLS                                                         */
+	/* ********************************************************************* */
+
+	/**
+	 * Skip a string or a delimited identifier (doubled quotes included).
+	 *
+	 * @param start	Index of the opening quote.
+	 *
+	 * @return	Index of the character following the closing quote,
+	 *        	or the query length + 1 if there is no closing quote.
+	 */
+	private int skipQuoted(final int start){
+		final char quote = adql.charAt(start);
+		int i = start + 1;
+		while(true){
+			i = adql.indexOf(quote, i);
+			if (i < 0)
+				return adql.length() + 1;
+			else if (i + 1 < adql.length() && adql.charAt(i + 1) == quote)
+				i += 2;
+			else
+				return i + 1;
+		}
+	}
+
+	/**
+	 * Skip all whitespaces.
+	 *
+	 * @param start	Index of the first character to test.
+	 *
+	 * @return	Index of the first character which is not a whitespace.
+	 */
+	private int skipWhitespaces(int start){
+		while(start < adql.length() && isWhitespace(adql.charAt(start)))
+			start++;
+		return start;
+	}
+
+	/**
+	 * Get the index of the given keyword if it is just before the given
+	 * opening parenthesis.
+	 *
+	 * @param parenthesis	Index of the opening parenthesis.
+	 * @param keyword		The keyword to search (upper case).
+	 *
+	 * @return	Index of the first character of the keyword,
+	 *        	or -1 if not found.
+	 */
+	private int getKeywordStart(final int parenthesis, final String keyword){
+		int end = parenthesis;
+		while(end > 0 && isWhitespace(adql.charAt(end - 1)))
+			end--;
+		int start = end - keyword.length();
+		if (start < 0 || !adql.regionMatches(true, start, keyword, 0, keyword.length()))
+			return -1;
+		else if (start > 0 && isIdentifierPart(adql.charAt(start - 1)))
+			return -1;
+		else
+			return start;
+	}
+
+	/**
+	 * Tell whether the given character is a whitespace for the ADQL lexer.
+	 *
+	 * @param c	Character to test.
+	 *
+	 * @return	<i>true</i> for a space, tab, carriage return or line feed,
+	 *        	<i>false</i> otherwise.
+	 */
+	private static boolean isWhitespace(final char c){
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+	}
+
+	/**
+	 * Tell whether the given character is a decimal digit.
+	 *
+	 * @param c	Character to test.
+	 *
+	 * @return	<i>true</i> if between 0 and 9,
+	 *        	<i>false</i> otherwise.
+	 */
+	private static boolean isDigit(final char c){
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * Tell whether the given character may be part of a regular identifier or
+	 * of a keyword, for the ADQL lexer.
+	 *
+	 * @param c	Character to test.
+	 *
+	 * @return	<i>true</i> if it may be part of an identifier,
+	 *        	<i>false</i> otherwise.
+	 */
+	private static boolean isIdentifierPart(final char c){
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c) || "_?$@^#`~[]{}".indexOf(c) >= 0;
+	}
+
+	/* ********************************************************************* */
+	/* POSITIONS                                                             */
+	/* ********************************************************************* */
+
+	/**
+	 * Compute the line and column of the specified character, exactly as
+	 * {@link SimpleCharStream} does.
+	 *
+	 * <p><i><b>Warning:</b>
+	 * 	The characters must be asked in the order of the query.
+	 * </i></p>
+	 *
+	 * @param index	Index of the character in the original query.
+	 *
+	 * @return	Its line and column.
+	 */
+	private int[] getPosition(final int index){
+		while(trackedIndex <= index){
+			char c = adql.charAt(trackedIndex++);
+			column++;
+			if (prevCharIsLF){
+				prevCharIsLF = false;
+				line += (column = 1);
+			}else if (prevCharIsCR){
+				prevCharIsCR = false;
+				if (c == '\n')
+					prevCharIsLF = true;
+				else
+					line += (column = 1);
+			}
+			switch(c){
+				case '\r':
+					prevCharIsCR = true;
+					break;
+				case '\n':
+					prevCharIsLF = true;
+					break;
+				case '\t':
+					column--;
+					column += (TAB_SIZE - (column % TAB_SIZE));
+					break;
+				default:
+					break;
+			}
+		}
+		return new int[]{ line, column };
+	}
+
+	/**
+	 * Build the key of the list whose keyword starts at the given index.
+	 *
+	 * @param keyword	Index of the first character of the keyword.
+	 *
+	 * @return	The key of the list.
+	 */
+	private long getKey(final int keyword){
+		int[] position = getPosition(keyword);
+		return getKey(position[0], position[1]);
+	}
+
+	/**
+	 * Build the key of the list whose keyword is at the given position.
+	 *
+	 * @param line		Line of the keyword.
+	 * @param column	Column of the keyword.
+	 *
+	 * @return	The key of the list.
+	 */
+	private static long getKey(final int line, final int column){
+		return (((long)line) << 32) | (column & 0xFFFFFFFFL);
+	}
+
+	/* ********************************************************************* */
+	/* PARSER INTERFACE                                                      */
+	/* ********************************************************************* */
+
+	/**
+	 * Get the query to give to the lexer, without the extracted lists.
+	 *
+	 * @return	The reduced query.
+	 */
+	public String getReducedQuery(){
+		return reducedQuery.toString();
+	}
+
+	/**
+	 * Get the char stream to give to the lexer. It reads the reduced query
+	 * (see {@link #getReducedQuery()}) but with the original line and column
+	 * of all characters.
+	 *
+	 * @return	A new char stream.
+	 */
+	public SimpleCharStream getCharStream(){
+		return new ReducedCharStream(getReducedQuery(), jumpIndexes, jumpLines, jumpColumns, nbJumps);
+	}
+
+	/**
+	 * Get the extracted list of the IN or POLYGON whose keyword is the given
+	 * token.
+	 *
+	 * <p>
+	 * 	The list is returned only if its first item is the given one (i.e. the
+	 * 	first item kept in the reduced query and parsed normally). Once
+	 * 	returned, a list is considered as claimed and can not be got again.
+	 * </p>
+	 *
+	 * @param keyword		Token of the IN or POLYGON keyword.
+	 * @param firstItem		The first item parsed in this list.
+	 *
+	 * @return	The extracted list,
+	 *        	or NULL if none.
+	 */
+	public LiteralList claim(final Token keyword, final ADQLOperand firstItem){
+		if (keyword == null || firstItem == null)
+			return null;
+		Long key = getKey(keyword.beginLine, keyword.beginColumn);
+		LiteralList list = lists.get(key);
+		if (list == null || !list.get(0).toADQL().equals(firstItem.toADQL()))
+			return null;
+		lists.remove(key);
+		return list;
+	}
+
+	/**
+	 * Tell whether all extracted lists have been claimed by the parser.
+	 *
+	 * <p>
+	 * 	If not, the result of the parsing of the reduced query can not be
+	 * 	trusted: the query must be parsed again without this fast path.
+	 * </p>
+	 *
+	 * @return	<i>true</i> if all lists have been claimed,
+	 *        	<i>false</i> otherwise.
+	 */
+	public boolean isFullyClaimed(){
+		return lists.isEmpty();
+	}
+
+	/**
+	 * Char stream reading a reduced query, but setting the original line and
+	 * column of the characters following a removed part.
+	 *
+	 * @author Gr&eacute;gory Mantelet (CDS)
+	 * @version 1.5 (10/2026)
+	 * @since 1.5
+	 */
+	protected static class ReducedCharStream extends SimpleCharStream {
+		private final int[] jumpIndexes;
+		private final int[] jumpLines;
+		private final int[] jumpColumns;
+		private final int nbJumps;
+		/** Number of characters read so far. */
+		private int nbReadChars = 0;
+		/** Index of the next jump to apply. */
+		private int nextJump = 0;
+
+		protected ReducedCharStream(final String reducedQuery, final int[] jumpIndexes, final int[] jumpLines, final int[] jumpColumns, final int nbJumps){
+			super(new StringReader(reducedQuery), 1, 1);
+			this.jumpIndexes = jumpIndexes;
+			this.jumpLines = jumpLines;
+			this.jumpColumns = jumpColumns;
+			this.nbJumps = nbJumps;
+		}
+
+		@Override
+		protected void UpdateLineColumn(final char c){
+			super.UpdateLineColumn(c);
+			if (nextJump < nbJumps && nbReadChars == jumpIndexes[nextJump]){
+				line = jumpLines[nextJump];
+				column = jumpColumns[nextJump];
+				prevCharIsCR = prevCharIsLF = false;
+				bufline[bufpos] = line;
+				bufcolumn[bufpos] = column;
+				nextJump++;
+			}
+			nbReadChars++;
+		}
+	}
+
+}
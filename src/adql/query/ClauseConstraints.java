@@ -16,7 +16,7 @@ package adql.query;
  * You should have received a copy of the GNU Lesser General Public License
  * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
  * 
- * Copyright 2012 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
  */
 
 import java.util.Vector;
@@ -40,7 +40,7 @@ import adql.query.constraint.ADQLConstraint;
  * (see {@link ClauseConstraints#ClauseConstraints(String, String) ClauseConstraints(String, String)}).</p>
  * 
  * @author Gr&eacute;gory Mantelet (CDS)
- * @version 01/2012
+ * @version 1.5 (10/2026)
  * 
  * @see adql.query.constraint.ConstraintsGroup
  */
@@ -96,8 +96,14 @@ public class ClauseConstraints extends ClauseADQL<ADQLConstraint> {
 	 * @see ClauseConstraints#checkSeparator(String)
 	 */
 	public ClauseConstraints(ClauseConstraints toCopy) throws Exception{
-		super(toCopy);
+		super(toCopy.getName());
 		defaultSeparator = checkSeparator(toCopy.defaultSeparator);
+		/* Note: the items are copied here (and not by the super constructor)
+		 *       because the separators list does not exist yet while the
+		 *       super constructor is running. */
+		for(int i = 0; i < toCopy.size(); i++)
+			add((i == 0) ? defaultSeparator : toCopy.getSeparator(i), (ADQLConstraint)toCopy.get(i).getCopy());
+		setPosition((toCopy.getPosition() == null) ? null : new TextPosition(toCopy.getPosition()));
 	}
 
 	/**
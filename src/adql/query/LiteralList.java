@@ -0,0 +1,329 @@
+package adql.query;
+
+/*
+ * This file is part of ADQLLibrary.
+ *
+ * ADQLLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ADQLLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import adql.query.operand.ADQLOperand;
+import adql.query.operand.NegativeOperand;
+import adql.query.operand.NumericConstant;
+import adql.query.operand.StringConstant;
+
+/**
+ * Compact list of literals, all numeric or all strings (e.g. the values of a
+ * long <code>IN</code> list or the coordinates of a big polygon).
+ *
+ * <p>
+ * 	Instead of one {@link NumericConstant} or {@link StringConstant} per item,
+ * 	this list only keeps the text in which all literals are written (usually,
+ * 	the ADQL query itself) and the begin and end index of each literal in
+ * 	this text. Items are created only when asked with {@link #get(int)} or
+ * 	{@link #iterator()} ; they are not kept by this list. So, modifying such
+ * 	item (e.g. its position) has no effect on this list. Use
+ * 	{@link #getValue(int)} to read an item without creating any object.
+ * </p>
+ *
+ * <p>
+ * 	As soon as this list is modified (e.g. {@link #add(ADQLOperand)},
+ * 	{@link #set(int, ADQLOperand)}, ...), all its items are created and
+ * 	stored as in any other {@link ClauseADQL}. From then on, it is not
+ * 	compact any more (see {@link #isCompact()}).
+ * </p>
+ *
+ * <p><i>Note:
+ * 	A numeric item may be prefixed by a minus sign. In such case, the created
+ * 	item is a {@link NegativeOperand}, exactly as the ADQL parser would do.
+ * </i></p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 1.5 (10/2026)
+ * @since 1.5
+ *
+ * @see adql.parser.LiteralListScanner
+ */
+public class LiteralList extends ClauseADQL<ADQLOperand> {
+
+	/** Text in which all literals are written. */
+	private final String source;
+
+	/** Index (in {@link #source}) of the first character of each literal.
+	 * <i>For a string, the opening quote is not included.</i> */
+	private final int[] begins;
+
+	/** Index (in {@link #source}) of the character following each literal.
+	 * <i>For a string, the closing quote is not included.</i> */
+	private final int[] ends;
+
+	/** Number of literals. */
+	private final int nbItems;
+
+	/** Indicate whether all literals are strings (<i>true</i>) or numbers
+	 * (<i>false</i>). */
+	private final boolean strings;
+
+	/** Indicate whether the items have been created and stored in the super
+	 * class, following a modification of this list. */
+	private boolean inflated = false;
+
+	/**
+	 * Builds a compact list of literals.
+	 *
+	 * <p><i><b>Warning:</b>
+	 * 	The given arrays are not copied and must not be modified after this
+	 * 	call. Besides, the given text portions are not checked: they must be
+	 * 	valid ADQL numeric literals or strings contents (i.e. with doubled
+	 * 	simple quotes).
+	 * </i></p>
+	 *
+	 * @param source	Text in which all literals are written.
+	 * @param begins	Index of the first character of each literal.
+	 * @param ends		Index of the character following each literal.
+	 * @param nbItems	Number of literals (to read in the given arrays).
+	 * @param strings	<i>true</i> if all literals are strings (without their
+	 *               	surrounding simple quotes),
+	 *               	<i>false</i> if they are all numeric.
+	 *
+	 * @throws NullPointerException		If one of the parameters is missing.
+	 * @throws IllegalArgumentException	If the arrays are too small for the
+	 *                                 	given number of items.
+	 */
+	public LiteralList(final String source, final int[] begins, final int[] ends, final int nbItems, final boolean strings) throws NullPointerException, IllegalArgumentException{
+		super();
+		if (source == null || begins == null || ends == null)
+			throw new NullPointerException("Missing source text or literals position for a list of literals!");
+		if (nbItems < 0 || begins.length < nbItems || ends.length < nbItems)
+			throw new IllegalArgumentException("Incorrect number of literals: " + nbItems + "!");
+		this.source = source;
+		this.begins = begins;
+		this.ends = ends;
+		this.nbItems = nbItems;
+		this.strings = strings;
+	}
+
+	/**
+	 * Builds a copy of the given list.
+	 *
+	 * <p><i>Note:
+	 * 	If the given list is still compact, the copy shares its source text
+	 * 	and positions (which are never modified).
+	 * </i></p>
+	 *
+	 * @param toCopy	The list to copy.
+	 *
+	 * @throws Exception	If there is an unexpected error during the copy.
+	 */
+	public LiteralList(final LiteralList toCopy) throws Exception{
+		super();
+		source = toCopy.source;
+		begins = toCopy.begins;
+		ends = toCopy.ends;
+		nbItems = toCopy.nbItems;
+		strings = toCopy.strings;
+		if (toCopy.inflated){
+			inflated = true;
+			for(ADQLOperand item : toCopy)
+				super.add((ADQLOperand)item.getCopy());
+		}
+		setPosition((toCopy.getPosition() == null) ? null : new TextPosition(toCopy.getPosition()));
+	}
+
+	/**
+	 * Tell whether all items are still stored compactly (i.e. whether this
+	 * list has never been modified).
+	 *
+	 * @return	<i>true</i> if compact,
+	 *        	<i>false</i> otherwise.
+	 */
+	public final boolean isCompact(){
+		return !inflated;
+	}
+
+	/**
+	 * Tell whether the literals of this list are strings or numbers.
+	 *
+	 * <p><i>Note:
+	 * 	If this list is not compact any more, this function returns what it
+	 * 	was at creation.
+	 * </i></p>
+	 *
+	 * @return	<i>true</i> if all items are strings,
+	 *        	<i>false</i> if they are all numeric.
+	 */
+	public final boolean isStringList(){
+		return strings;
+	}
+
+	/**
+	 * Get the value of the specified item, without creating it.
+	 *
+	 * <p>
+	 * 	For a number, this value is the literal as written in ADQL (with its
+	 * 	minus sign, if any). For a string, it is the string content (i.e.
+	 * 	without the surrounding simple quotes, and with simple quotes not
+	 * 	doubled any more).
+	 * </p>
+	 *
+	 * @param index	Index of the item.
+	 *
+	 * @return	Its value.
+	 *
+	 * @throws ArrayIndexOutOfBoundsException	If the index is incorrect.
+	 * @throws IllegalStateException			If this list is not compact any
+	 *                              			more.
+	 */
+	public String getValue(final int index) throws ArrayIndexOutOfBoundsException, IllegalStateException{
+		if (inflated)
+			throw new IllegalStateException("This list of literals has been modified: its values must be read with get(int)!");
+		if (index < 0 || index >= nbItems)
+			throw new ArrayIndexOutOfBoundsException("No item at the index " + index + " (size: " + nbItems + ")!");
+		String value = source.substring(begins[index], ends[index]);
+		if (strings && value.indexOf('\'') >= 0)
+			value = value.replace("''", "'");
+		return value;
+	}
+
+	/**
+	 * Create the item at the given index.
+	 *
+	 * @param index	Index of the item.
+	 *
+	 * @return	A new operand.
+	 */
+	protected ADQLOperand createItem(final int index){
+		String value = getValue(index);
+		if (strings)
+			return new StringConstant(value);
+		else if (value.charAt(0) == '-')
+			return new NegativeOperand(new NumericConstant(value.substring(1), false));
+		else
+			return new NumericConstant(value, false);
+	}
+
+	/**
+	 * Create and store all items in the super class, so that they can be
+	 * modified.
+	 */
+	protected void inflate(){
+		if (!inflated){
+			TextPosition position = getPosition();
+			for(int i = 0; i < nbItems; i++)
+				super.add(createItem(i));
+			inflated = true;
+			setPosition(position);
+		}
+	}
+
+	@Override
+	public ADQLOperand get(final int index) throws ArrayIndexOutOfBoundsException{
+		return inflated ? super.get(index) : createItem(index);
+	}
+
+	@Override
+	public int size(){
+		return inflated ? super.size() : nbItems;
+	}
+
+	@Override
+	public boolean isEmpty(){
+		return size() == 0;
+	}
+
+	@Override
+	public boolean add(final ADQLOperand item) throws NullPointerException{
+		inflate();
+		return super.add(item);
+	}
+
+	@Override
+	public void add(final int index, final ADQLOperand item) throws NullPointerException, ArrayIndexOutOfBoundsException{
+		inflate();
+		super.add(index, item);
+	}
+
+	@Override
+	public ADQLOperand set(final int index, final ADQLOperand item) throws NullPointerException, ArrayIndexOutOfBoundsException{
+		inflate();
+		return super.set(index, item);
+	}
+
+	@Override
+	public ADQLOperand remove(final int index) throws ArrayIndexOutOfBoundsException{
+		inflate();
+		return super.remove(index);
+	}
+
+	@Override
+	public void clear(){
+		inflated = true;
+		super.clear();
+	}
+
+	@Override
+	public Iterator<ADQLOperand> iterator(){
+		if (inflated)
+			return super.iterator();
+		else{
+			return new Iterator<ADQLOperand>(){
+				private int index = 0;
+
+				@Override
+				public boolean hasNext(){
+					return index < nbItems;
+				}
+
+				@Override
+				public ADQLOperand next(){
+					if (index >= nbItems)
+						throw new NoSuchElementException();
+					return createItem(index++);
+				}
+
+				@Override
+				public void remove(){
+					throw new UnsupportedOperationException("Impossible to remove an item of a list of literals while iterating on it!");
+				}
+			};
+		}
+	}
+
+	@Override
+	public String toADQL(){
+		if (inflated)
+			return super.toADQL();
+
+		StringBuffer adql = new StringBuffer(8 * nbItems + 16);
+		for(int i = 0; i < nbItems; i++){
+			if (i > 0)
+				adql.append(" , ");
+			if (strings)
+				adql.append('\'').append(source, begins[i], ends[i]).append('\'');
+			else
+				adql.append(source, begins[i], ends[i]);
+		}
+		return adql.toString();
+	}
+
+	@Override
+	public ADQLObject getCopy() throws Exception{
+		return new LiteralList(this);
+	}
+
+}
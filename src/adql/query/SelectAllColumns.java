@@ -20,7 +20,7 @@ import adql.query.from.ADQLTable;
  * You should have received a copy of the GNU Lesser General Public License
  * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
  * 
- * Copyright 2012-2015 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -29,7 +29,7 @@ import adql.query.from.ADQLTable;
  * It means: 'select all columns'.
  * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 1.4 (06/2015)
+ * @version 1.5 (10/2026)
  */
 public final class SelectAllColumns extends SelectItem {
 
@@ -67,6 +67,8 @@ public final class SelectAllColumns extends SelectItem {
 	 */
 	public SelectAllColumns(SelectAllColumns toCopy) throws Exception{
 		super(toCopy);
+		query = toCopy.query;
+		adqlTable = toCopy.adqlTable;
 	}
 
 	/**
@@ -16,7 +16,7 @@ package adql.query.from;
  * You should have received a copy of the GNU Lesser General Public License
  * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
  * 
- * Copyright 2012-2017 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -43,7 +43,7 @@ import adql.query.operand.ADQLColumn;
  * Defines a join between two "tables".
  * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 1.4 (09/2017)
+ * @version 1.5 (10/2026)
  */
 public abstract class ADQLJoin implements ADQLObject, FromContent {
 
@@ -92,7 +92,7 @@ public abstract class ADQLJoin implements ADQLObject, FromContent {
 		leftTable = (FromContent)(toCopy.leftTable.getCopy());
 		rightTable = (FromContent)(toCopy.rightTable.getCopy());
 		natural = toCopy.natural;
-		condition = (ClauseConstraints)(toCopy.condition.getCopy());
+		condition = (toCopy.condition == null) ? null : (ClauseConstraints)(toCopy.condition.getCopy());
 		if (toCopy.lstColumns != null){
 			lstColumns = new ArrayList<ADQLColumn>(toCopy.lstColumns.size());
 			for(ADQLColumn col : toCopy.lstColumns)
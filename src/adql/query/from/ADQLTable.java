@@ -16,7 +16,7 @@ package adql.query.from;
  * You should have received a copy of the GNU Lesser General Public License
  * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2012-2019 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -40,7 +40,7 @@ import adql.query.TextPosition;
  * A table reference may have an alias (MUST if it is a sub-query).
  *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 1.5 (09/2019)
+ * @version 1.5 (10/2026)
  */
 public class ADQLTable implements ADQLObject, FromContent {
 
@@ -127,6 +127,7 @@ public class ADQLTable implements ADQLObject, FromContent {
 		subQuery = (toCopy.subQuery == null) ? null : (ADQLQuery)toCopy.subQuery.getCopy();
 		alias = toCopy.alias;
 		caseSensitivity = toCopy.caseSensitivity;
+		dbLink = toCopy.dbLink;
 		position = toCopy.position;
 	}
 
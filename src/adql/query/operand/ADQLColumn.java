@@ -16,7 +16,7 @@ package adql.query.operand;
  * You should have received a copy of the GNU Lesser General Public License
  * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
  * 
- * Copyright 2012-2016 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -32,7 +32,7 @@ import adql.query.from.ADQLTable;
  * Represents the complete (literal) reference to a column ({schema(s)}.{table}.{column}).
  * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 1.4 (03/2016)
+ * @version 1.5 (10/2026)
  */
 public class ADQLColumn implements ADQLOperand, UnknownType {
 
@@ -126,11 +126,25 @@ public class ADQLColumn implements ADQLOperand, UnknownType {
 	/**
 	 * Builds a Column by copying the given one.
 	 * 
+	 * <p><i>Note:
+	 * 	The links toward the database column and toward the {@link ADQLTable}
+	 * 	(set by {@link adql.db.DBChecker}) are also copied, so that a copy of
+	 * 	an already checked query can be translated without being checked
+	 * 	again.
+	 * </i></p>
+	 * 
 	 * @param toCopy	The Column to copy.
 	 */
 	public ADQLColumn(ADQLColumn toCopy){
+		position = (toCopy.position == null) ? null : new TextPosition(toCopy.position);
+		catalog = toCopy.catalog;
+		schema = toCopy.schema;
 		column = toCopy.column;
 		table = toCopy.table;
+		caseSensitivity = toCopy.caseSensitivity;
+		dbLink = toCopy.dbLink;
+		adqlTable = toCopy.adqlTable;
+		expectedType = toCopy.expectedType;
 	}
 
 	/**
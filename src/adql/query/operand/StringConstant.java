@@ -16,7 +16,7 @@ package adql.query.operand;
  * You should have received a copy of the GNU Lesser General Public License
  * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
  * 
- * Copyright 2012-2015 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -29,7 +29,7 @@ import adql.query.TextPosition;
  * A string constant.
  * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 1.4 (06/2015)
+ * @version 1.5 (10/2026)
  */
 public final class StringConstant implements ADQLOperand {
 
@@ -102,7 +102,7 @@ public final class StringConstant implements ADQLOperand {
 
 	@Override
 	public String toADQL(){
-		return "'" + value.replaceAll("'", "''") + "'";
+		return "'" + ((value.indexOf('\'') < 0) ? value : value.replace("'", "''")) + "'";
 	}
 
 }
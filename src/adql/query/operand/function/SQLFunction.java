@@ -16,7 +16,7 @@ package adql.query.operand.function;
  * You should have received a copy of the GNU Lesser General Public License
  * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
  * 
- * Copyright 2011-2015 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2011-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institute (ARI)
  */
 
@@ -28,7 +28,7 @@ import adql.query.operand.ADQLOperand;
  * It represents any SQL function (COUNT, MAX, MIN, AVG, SUM, etc...).
  * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 1.4 (06/2015)
+ * @version 1.5 (10/2026)
  * 
  * @see SQLFunctionType
  */
@@ -86,7 +86,7 @@ public class SQLFunction extends ADQLFunction {
 	 */
 	public SQLFunction(SQLFunction toCopy) throws Exception{
 		type = toCopy.type;
-		param = (ADQLOperand)toCopy.param.getCopy();
+		param = (toCopy.param == null) ? null : (ADQLOperand)toCopy.param.getCopy();
 		distinct = toCopy.distinct;
 		setPosition((toCopy.getPosition() == null) ? null : new TextPosition(toCopy.getPosition()));;
 	}
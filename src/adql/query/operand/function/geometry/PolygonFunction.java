@@ -16,7 +16,7 @@ package adql.query.operand.function.geometry;
  * You should have received a copy of the GNU Lesser General Public License
  * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
  * 
- * Copyright 2012-2015 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -24,6 +24,7 @@ import java.util.Collection;
 import java.util.Vector;
 
 import adql.query.ADQLObject;
+import adql.query.LiteralList;
 import adql.query.operand.ADQLOperand;
 
 /**
@@ -41,14 +42,26 @@ import adql.query.operand.ADQLOperand;
  * In this example the function expresses a triangle, whose vertices are (10.0, -10.5), (20.0, 20.5) and (30.0, 30.5) in degrees
  * according to the STC coordinate system with GEOCENTER reference position.</i></p>
  * 
+ * <p><i>Note:
+ * 	A polygon with many vertices, all numeric literals, may be built with a compact list of coordinates
+ * 	(see {@link #PolygonFunction(ADQLOperand, LiteralList)}). In such case, {@link #coordinates} stays NULL
+ * 	until one of the coordinates is replaced.
+ * </i></p>
+ * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 1.4 (06/2015)
+ * @version 1.5 (10/2026)
  */
 public class PolygonFunction extends GeometryFunction {
 
-	/** The coordinates of vertices. */
+	/** The coordinates of vertices.
+	 * <i>NULL if {@link #compactCoordinates} is set.</i> */
 	protected Vector<ADQLOperand> coordinates;
 
+	/** The coordinates of vertices, if all are numeric literals stored compactly.
+	 * <i>NULL if {@link #coordinates} is set.</i>
+	 * @since 1.5 */
+	protected LiteralList compactCoordinates = null;
+
 	/**
 	 * Builds a polygon function with at least 3 2-D coordinates (that is to say, the array must contain at least 6 operands).
 	 * 
@@ -90,6 +103,30 @@ public class PolygonFunction extends GeometryFunction {
 		}
 	}
 
+	/**
+	 * Builds a polygon function with at least 3 2-D coordinates stored in a compact list of numeric literals.
+	 * 
+	 * <p><i>Note:
+	 * 	The coordinates are kept in the given list as long as none of them is replaced.
+	 * </i></p>
+	 * 
+	 * @param coordSystem						A string operand which corresponds to a valid coordinate system.
+	 * @param coords							A list of at least 3 2-D coordinates (size()>=6).
+	 * 
+	 * @throws UnsupportedOperationException	If this function is not associated with a coordinate system.
+	 * @throws NullPointerException				If one of the parameters is <i>null</i>.
+	 * @throws Exception						If there is another error.
+	 * 
+	 * @since 1.5
+	 */
+	public PolygonFunction(ADQLOperand coordSystem, LiteralList coords) throws UnsupportedOperationException, NullPointerException, Exception{
+		super(coordSystem);
+		if (coords == null || coords.size() < 6)
+			throw new NullPointerException("A POLYGON function must have at least 3 2-D coordinates !");
+		else
+			compactCoordinates = coords;
+	}
+
 	/**
 	 * Builds a POLYGON function by copying the given one.
 	 * 
@@ -98,9 +135,13 @@ public class PolygonFunction extends GeometryFunction {
 	 */
 	public PolygonFunction(PolygonFunction toCopy) throws Exception{
 		super(toCopy);
-		coordinates = new Vector<ADQLOperand>(toCopy.coordinates.size());
-		for(ADQLOperand item : toCopy.coordinates)
-			coordinates.add((ADQLOperand)(item.getCopy()));
+		if (toCopy.compactCoordinates != null)
+			compactCoordinates = (LiteralList)toCopy.compactCoordinates.getCopy();
+		else{
+			coordinates = new Vector<ADQLOperand>(toCopy.coordinates.size());
+			for(ADQLOperand item : toCopy.coordinates)
+				coordinates.add((ADQLOperand)(item.getCopy()));
+		}
 	}
 
 	@Override
@@ -130,26 +171,26 @@ public class PolygonFunction extends GeometryFunction {
 
 	@Override
 	public ADQLOperand[] getParameters(){
-		ADQLOperand[] params = new ADQLOperand[coordinates.size() + 1];
+		ADQLOperand[] params = new ADQLOperand[getNbParameters()];
 
 		params[0] = coordSys;
-		for(int i = 0; i < coordinates.size(); i++)
-			params[i + 1] = coordinates.get(i);
+		for(int i = 1; i < params.length; i++)
+			params[i] = getParameter(i);
 
 		return params;
 	}
 
 	@Override
 	public int getNbParameters(){
-		return coordinates.size() + 1;
+		return ((compactCoordinates != null) ? compactCoordinates.size() : coordinates.size()) + 1;
 	}
 
 	@Override
 	public ADQLOperand getParameter(int index) throws ArrayIndexOutOfBoundsException{
 		if (index == 0)
 			return coordSys;
-		else if (index >= 1 && index <= coordinates.size())
-			return coordinates.get(index - 1);
+		else if (index >= 1 && index < getNbParameters())
+			return (compactCoordinates != null) ? compactCoordinates.get(index - 1) : coordinates.get(index - 1);
 		else
 			throw new ArrayIndexOutOfBoundsException("No " + index + "-th parameter for the function \"" + getName() + "\" (" + toADQL() + ") !");
 	}
@@ -163,7 +204,13 @@ public class PolygonFunction extends GeometryFunction {
 		if (index == 0){
 			replaced = coordSys;
 			setCoordinateSystem(replacer);
-		}else if (index >= 1 && index <= coordinates.size()){
+		}else if (index >= 1 && index < getNbParameters()){
+			if (compactCoordinates != null){
+				coordinates = new Vector<ADQLOperand>(compactCoordinates.size());
+				for(ADQLOperand item : compactCoordinates)
+					coordinates.add(item);
+				compactCoordinates = null;
+			}
 			replaced = coordinates.get(index - 1);
 			coordinates.set(index - 1, replacer);
 		}else
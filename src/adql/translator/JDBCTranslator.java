@@ -16,17 +16,28 @@ package adql.translator;
  * You should have received a copy of the GNU Lesser General Public License
  * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2017-2019 - Astronomisches Rechen Institut (ARI),
+ * Copyright 2017-2026 - Astronomisches Rechen Institut (ARI),
  *                       UDS/Centre de Données astronomiques de Strasbourg (CDS)
  */
 
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 import adql.db.DBColumn;
+import adql.db.DBSpatialIndexColumn;
 import adql.db.DBTable;
 import adql.db.DBTableAlias;
 import adql.db.DBType;
 import adql.db.STCS.Region;
+import adql.db.SpatialIndex;
 import adql.db.exception.UnresolvedJoinException;
 import adql.parser.ParseException;
 import adql.query.ADQLList;
@@ -42,6 +53,7 @@ import adql.query.SelectItem;
 import adql.query.constraint.ADQLConstraint;
 import adql.query.constraint.Between;
 import adql.query.constraint.Comparison;
+import adql.query.constraint.ComparisonOperator;
 import adql.query.constraint.ConstraintsGroup;
 import adql.query.constraint.Exists;
 import adql.query.constraint.In;
@@ -161,8 +173,47 @@ import adql.query.operand.function.geometry.RegionFunction;
  * 	and their case sensitivity are kept like in ADQL.
  * </p>
  *
+ * <h3>Translation in a single buffer</h3>
+ *
+ * <p>
+ * 	Each <code>translate(...)</code> function returns the translation of one
+ * 	ADQL object, built from the translation of its children. For big queries
+ * 	(e.g. a huge IN list or a long list of constraints), all these
+ * 	intermediate strings are copied again and again. So, the translation of
+ * 	the query, of the lists, of the constraints and of the operations is
+ * 	actually performed by the <code>append(StringBuffer, ...)</code>
+ * 	functions which write directly in one buffer shared by the whole
+ * 	translation (e.g. {@link #append(StringBuffer, ADQLQuery)}).
+ * </p>
+ *
+ * <p>
+ * 	Extensions of this translator do not have to care about these functions:
+ * 	if a <code>translate(...)</code> function is overridden, the
+ * 	corresponding <code>append(...)</code> function just appends its result
+ * 	(see {@link #isOverridden(String, Class...)}).
+ * </p>
+ *
+ * <h3>Bind parameters</h3>
+ *
+ * <p>
+ * 	{@link #translateWithParameters(ADQLQuery)} translates a query like
+ * 	{@link #translate(ADQLQuery)}, except that the numeric and string literals
+ * 	of all constraints (WHERE, HAVING and JOIN conditions) are replaced by
+ * 	positional bind parameters (<code>?</code>). Thus, all queries differing
+ * 	only by these literals (e.g. the position and radius of a cone search)
+ * 	have the same SQL and may share the same execution plan in the DBMS.
+ * 	Literals of the SELECT clause are always inlined because some DBMS can not
+ * 	determine the type of a parameter there.
+ * </p>
+ *
+ * <p>
+ * 	Extensions of this translator which must keep a literal inlined (e.g.
+ * 	because it is written inside a SQL string) should translate it after
+ * 	{@link #setBinding(boolean) setBinding(false)}.
+ * </p>
+ *
  * @author Gr&eacute;gory Mantelet (ARI;CDS)
- * @version 1.5 (03/2019)
+ * @version 1.5 (10/2026)
  * @since 1.4
  *
  * @see PostgreSQLTranslator
@@ -172,6 +223,67 @@ import adql.query.operand.function.geometry.RegionFunction;
  */
 public abstract class JDBCTranslator implements ADQLTranslator {
 
+	/** Default maximum number of pixel ranges in a pixel index constraint.
+	 * @since 1.5 */
+	public final static int DEFAULT_MAX_PIXEL_RANGES = 50;
+
+	/** Maximum number of pixel ranges in a pixel index constraint.
+	 * <i>0 means no limit.</i>
+	 * @since 1.5 */
+	protected int maxPixelRanges = DEFAULT_MAX_PIXEL_RANGES;
+
+	/** Default maximum number of bind parameters in a SQL query.
+	 * @since 1.5 */
+	public final static int DEFAULT_MAX_BIND_PARAMETERS = 2000;
+
+	/** Maximum number of bind parameters in a SQL query. Above, all literals
+	 * are inlined. <i>0 means no limit.</i>
+	 * @since 1.5 */
+	protected int maxBindParameters = DEFAULT_MAX_BIND_PARAMETERS;
+
+	/** Character delimiting the index of a bind parameter in the SQL being
+	 * translated by {@link #translateWithParameters(ADQLQuery)}.
+	 * <p>The opening one is always followed by a key drawn for each translation
+	 * (see {@link BindContext#marker}). Thus, the same character in a string
+	 * constant or in an identifier can not be taken for a bind parameter.</p>
+	 * @since 1.5 */
+	private final static char PARAMETER_MARKER = '\u0000';
+
+	/** Bind parameters collected by the translation in progress in the
+	 * current thread. <i>Not set if not translating with parameters.</i>
+	 * @since 1.5 */
+	private final ThreadLocal<BindContext> bindContext = new ThreadLocal<BindContext>();
+
+	/** Signature of the functions which may be overridden instead of the
+	 * <code>append(StringBuffer, ...)</code> functions.
+	 * @since 1.5 */
+	private final static String SIG_TRANSLATE_ADQL_OBJECT = getSignature("translate", new Class<?>[]{ ADQLObject.class });
+	private final static String SIG_TRANSLATE_ADQL_QUERY = getSignature("translate", new Class<?>[]{ ADQLQuery.class });
+	private final static String SIG_TRANSLATE_ADQL_LIST = getSignature("translate", new Class<?>[]{ ADQLList.class });
+	private final static String SIG_TRANSLATE_CLAUSE_SELECT = getSignature("translate", new Class<?>[]{ ClauseSelect.class });
+	private final static String SIG_TRANSLATE_CLAUSE_CONSTRAINTS = getSignature("translate", new Class<?>[]{ ClauseConstraints.class });
+	private final static String SIG_DEFAULT_ADQL_LIST = getSignature("getDefaultADQLList", new Class<?>[]{ ADQLList.class, boolean.class });
+	private final static String SIG_TRANSLATE_ADQL_OPERAND = getSignature("translate", new Class<?>[]{ ADQLOperand.class });
+	private final static String SIG_TRANSLATE_CONCATENATION = getSignature("translate", new Class<?>[]{ Concatenation.class });
+	private final static String SIG_TRANSLATE_NEGATIVE_OPERAND = getSignature("translate", new Class<?>[]{ NegativeOperand.class });
+	private final static String SIG_TRANSLATE_WRAPPED_OPERAND = getSignature("translate", new Class<?>[]{ WrappedOperand.class });
+	private final static String SIG_TRANSLATE_OPERATION = getSignature("translate", new Class<?>[]{ Operation.class });
+	private final static String SIG_TRANSLATE_ADQL_CONSTRAINT = getSignature("translate", new Class<?>[]{ ADQLConstraint.class });
+	private final static String SIG_TRANSLATE_EXISTS = getSignature("translate", new Class<?>[]{ Exists.class });
+	private final static String SIG_TRANSLATE_IN = getSignature("translate", new Class<?>[]{ In.class });
+	private final static String SIG_TRANSLATE_NOT_CONSTRAINT = getSignature("translate", new Class<?>[]{ NotConstraint.class });
+
+	/** Signature of the functions of {@link JDBCTranslator} overridden by
+	 * each of its extensions.
+	 * @since 1.5 */
+	private final static Map<Class<?>, Set<String>> overriddenFunctions = new ConcurrentHashMap<Class<?>, Set<String>>();
+
+	/** Signature of the functions of {@link JDBCTranslator} overridden by
+	 * the class of this translator. <i>Set at the first call of
+	 * {@link #isOverridden(String, Class...)}.</i>
+	 * @since 1.5 */
+	private Set<String> overridden = null;
+
 	/**
 	 * <p>Tell whether the specified identifier MUST be translated so that being interpreted case sensitively or not.
 	 * By default, an identifier that must be translated with case sensitivity will be surrounded by double quotes.
@@ -326,12 +438,33 @@ public abstract class JDBCTranslator implements ADQLTranslator {
 	 * @return					The string buffer + identifier.
 	 */
 	public StringBuffer appendIdentifier(final StringBuffer str, final String id, final boolean caseSensitive){
-		if (caseSensitive && !id.matches("\"[^\"]*\""))
+		if (caseSensitive && !isDoubleQuoted(id))
 			return str.append('"').append(id).append('"');
 		else
 			return str.append(id);
 	}
 
+	/**
+	 * Tell whether the given identifier is already between double quotes
+	 * (and does not contain any other double quote).
+	 *
+	 * <p><i>Note:
+	 * 	This is the test <code>id.matches("\"[^\"]*\"")</code>, but written
+	 * 	by hand since it is done for every translated identifier.
+	 * </i></p>
+	 *
+	 * @param id	The identifier to test.
+	 *
+	 * @return	<i>true</i> if it is double quoted,
+	 *        	<i>false</i> otherwise.
+	 *
+	 * @since 1.5
+	 */
+	protected static boolean isDoubleQuoted(final String id){
+		final int last = id.length() - 1;
+		return last > 0 && id.charAt(0) == '"' && id.indexOf('"', 1) == last;
+	}
+
 	@Override
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public String translate(ADQLObject obj) throws TranslationException{
@@ -357,26 +490,46 @@ public abstract class JDBCTranslator implements ADQLTranslator {
 
 	@Override
 	public String translate(ADQLQuery query) throws TranslationException{
-		StringBuffer sql = new StringBuffer(translate(query.getSelect()));
+		return appendQuery(new StringBuffer(), query).toString();
+	}
+
+	/**
+	 * Append the SQL translation of the given ADQL query.
+	 *
+	 * <p><i>Note:
+	 * 	This function is the implementation of {@link #translate(ADQLQuery)}.
+	 * </i></p>
+	 *
+	 * @param sql	Buffer in which the translation must be appended.
+	 * @param query	The ADQL query to translate.
+	 *
+	 * @return	The given buffer.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @since 1.5
+	 */
+	protected StringBuffer appendQuery(final StringBuffer sql, final ADQLQuery query) throws TranslationException{
+		append(sql, query.getSelect());
 
 		sql.append("\nFROM ").append(translate(query.getFrom()));
 
 		if (!query.getWhere().isEmpty())
-			sql.append('\n').append(translate(query.getWhere()));
+			append(sql.append('\n'), query.getWhere());
 
 		if (!query.getGroupBy().isEmpty())
-			sql.append('\n').append(translate(query.getGroupBy()));
+			append(sql.append('\n'), query.getGroupBy());
 
 		if (!query.getHaving().isEmpty())
-			sql.append('\n').append(translate(query.getHaving()));
+			append(sql.append('\n'), query.getHaving());
 
 		if (!query.getOrderBy().isEmpty())
-			sql.append('\n').append(translate(query.getOrderBy()));
+			append(sql.append('\n'), query.getOrderBy());
 
 		if (query.getSelect().hasLimit())
 			sql.append("\nLimit ").append(query.getSelect().getLimit());
 
-		return sql.toString();
+		return sql;
 	}
 
 	/* *************************** */
@@ -430,25 +583,72 @@ public abstract class JDBCTranslator implements ADQLTranslator {
 	 * @since 1.4
 	 */
 	protected String getDefaultADQLList(ADQLList<? extends ADQLObject> list, final boolean withNamePrefix) throws TranslationException{
-		String sql = (list.getName() == null || !withNamePrefix) ? "" : (list.getName() + " ");
+		return appendList(new StringBuffer(), list, withNamePrefix).toString();
+	}
 
-		for(int i = 0; i < list.size(); i++)
-			sql += ((i == 0) ? "" : (" " + list.getSeparator(i) + " ")) + translate(list.get(i));
+	/**
+	 * Append the default SQL output for a list of ADQL objects.
+	 *
+	 * <p><i>Note:
+	 * 	This function is the implementation of
+	 * 	{@link #getDefaultADQLList(ADQLList, boolean)}.
+	 * </i></p>
+	 *
+	 * @param sql				Buffer in which the translation must be appended.
+	 * @param list				List to format into SQL.
+	 * @param withNamePrefix	Prefix the list by its name or not.
+	 *                      	(e.g. 'false' for a Concatenation)
+	 *
+	 * @return	The given buffer.
+	 *
+	 * @throws TranslationException If there is an error during the translation.
+	 *
+	 * @since 1.5
+	 */
+	protected StringBuffer appendList(final StringBuffer sql, final ADQLList<? extends ADQLObject> list, final boolean withNamePrefix) throws TranslationException{
+		if (list.getName() != null && withNamePrefix)
+			sql.append(list.getName()).append(' ');
+
+		for(int i = 0; i < list.size(); i++){
+			if (i > 0)
+				sql.append(' ').append(list.getSeparator(i)).append(' ');
+			append(sql, list.get(i));
+		}
 
 		return sql;
 	}
 
 	@Override
 	public String translate(ClauseSelect clause) throws TranslationException{
-		String sql = null;
+		return clause.isEmpty() ? null : appendSelect(new StringBuffer(), clause).toString();
+	}
 
+	/**
+	 * Append the SQL translation of the given SELECT clause.
+	 *
+	 * <p><i>Note:
+	 * 	This function is the implementation of {@link #translate(ClauseSelect)}.
+	 * </i></p>
+	 *
+	 * @param sql		Buffer in which the translation must be appended.
+	 * @param clause	The SELECT clause to translate.
+	 *
+	 * @return	The given buffer.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @since 1.5
+	 */
+	protected StringBuffer appendSelect(final StringBuffer sql, final ClauseSelect clause) throws TranslationException{
 		for(int i = 0; i < clause.size(); i++){
 			if (i == 0){
-				sql = clause.getName() + (clause.distinctColumns() ? " DISTINCT" : "");
+				sql.append(clause.getName());
+				if (clause.distinctColumns())
+					sql.append(" DISTINCT");
 			}else
-				sql += " " + clause.getSeparator(i);
+				sql.append(' ').append(clause.getSeparator(i));
 
-			sql += " " + translate(clause.get(i));
+			sql.append(' ').append(translate(clause.get(i)));
 		}
 
 		return sql;
@@ -456,10 +656,31 @@ public abstract class JDBCTranslator implements ADQLTranslator {
 
 	@Override
 	public String translate(ClauseConstraints clause) throws TranslationException{
+		return appendConstraints(new StringBuffer(), clause).toString();
+	}
+
+	/**
+	 * Append the SQL translation of the given list of constraints.
+	 *
+	 * <p><i>Note:
+	 * 	This function is the implementation of
+	 * 	{@link #translate(ClauseConstraints)}.
+	 * </i></p>
+	 *
+	 * @param sql		Buffer in which the translation must be appended.
+	 * @param clause	The constraints to translate.
+	 *
+	 * @return	The given buffer.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @since 1.5
+	 */
+	protected StringBuffer appendConstraints(final StringBuffer sql, final ClauseConstraints clause) throws TranslationException{
 		if (clause instanceof ConstraintsGroup)
-			return "(" + getDefaultADQLList(clause) + ")";
+			return appendDefaultList(sql.append('('), clause, true).append(')');
 		else
-			return getDefaultADQLList(clause);
+			return appendDefaultList(sql, clause, true);
 	}
 
 	@Override
@@ -467,7 +688,14 @@ public abstract class JDBCTranslator implements ADQLTranslator {
 		if (item instanceof SelectAllColumns)
 			return translate((SelectAllColumns)item);
 
-		StringBuffer translation = new StringBuffer(translate(item.getOperand()));
+		// Literals of the SELECT clause are never bind parameters:
+		final boolean binding = setBinding(false);
+		StringBuffer translation;
+		try{
+			translation = new StringBuffer(translate(item.getOperand()));
+		}finally{
+			setBinding(binding);
+		}
 		if (item.hasAlias()){
 			translation.append(" AS ");
 			if (item.isCaseSensitive())
@@ -663,24 +891,44 @@ public abstract class JDBCTranslator implements ADQLTranslator {
 	/* ********************* */
 	@Override
 	public String translate(ADQLOperand op) throws TranslationException{
+		return appendOperand(new StringBuffer(), op).toString();
+	}
+
+	/**
+	 * Append the SQL translation of the given ADQL operand.
+	 *
+	 * <p><i>Note:
+	 * 	This function is the implementation of {@link #translate(ADQLOperand)}.
+	 * </i></p>
+	 *
+	 * @param sql	Buffer in which the translation must be appended.
+	 * @param op	The ADQL operand to translate.
+	 *
+	 * @return	The given buffer.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @since 1.5
+	 */
+	protected StringBuffer appendOperand(final StringBuffer sql, final ADQLOperand op) throws TranslationException{
 		if (op instanceof ADQLColumn)
-			return translate((ADQLColumn)op);
+			return sql.append(translate((ADQLColumn)op));
 		else if (op instanceof Concatenation)
-			return translate((Concatenation)op);
+			return append(sql, (Concatenation)op);
 		else if (op instanceof NegativeOperand)
-			return translate((NegativeOperand)op);
+			return append(sql, (NegativeOperand)op);
 		else if (op instanceof NumericConstant)
-			return translate((NumericConstant)op);
+			return sql.append(translate((NumericConstant)op));
 		else if (op instanceof StringConstant)
-			return translate((StringConstant)op);
+			return sql.append(translate((StringConstant)op));
 		else if (op instanceof WrappedOperand)
-			return translate((WrappedOperand)op);
+			return append(sql, (WrappedOperand)op);
 		else if (op instanceof Operation)
-			return translate((Operation)op);
+			return append(sql, (Operation)op);
 		else if (op instanceof ADQLFunction)
-			return translate((ADQLFunction)op);
+			return sql.append(translate((ADQLFunction)op));
 		else
-			return op.toADQL();
+			return sql.append(op.toADQL());
 	}
 
 	@Override
@@ -720,27 +968,52 @@ public abstract class JDBCTranslator implements ADQLTranslator {
 
 	@Override
 	public String translate(NegativeOperand negOp) throws TranslationException{
-		return "-" + translate(negOp.getOperand());
+		return append(new StringBuffer("-"), negOp.getOperand()).toString();
 	}
 
 	@Override
 	public String translate(NumericConstant numConst) throws TranslationException{
-		return numConst.getValue();
+		if (isBinding())
+			return bindParameter(toBindValue(numConst.getValue()), numConst.getValue());
+		else
+			return numConst.getValue();
 	}
 
 	@Override
 	public String translate(StringConstant strConst) throws TranslationException{
-		return "'" + strConst.getValue().replaceAll("'", "''") + "'";
+		final String value = strConst.getValue();
+		return bindParameter(value, "'" + ((value.indexOf('\'') < 0) ? value : value.replace("'", "''")) + "'");
 	}
 
 	@Override
 	public String translate(WrappedOperand op) throws TranslationException{
-		return "(" + translate(op.getOperand()) + ")";
+		return append(new StringBuffer("("), op.getOperand()).append(')').toString();
 	}
 
 	@Override
 	public String translate(Operation op) throws TranslationException{
-		return translate(op.getLeftOperand()) + op.getOperation().toADQL() + translate(op.getRightOperand());
+		return appendOperation(new StringBuffer(), op).toString();
+	}
+
+	/**
+	 * Append the SQL translation of the given operation.
+	 *
+	 * <p><i>Note:
+	 * 	This function is the implementation of {@link #translate(Operation)}.
+	 * </i></p>
+	 *
+	 * @param sql	Buffer in which the translation must be appended.
+	 * @param op	The operation to translate.
+	 *
+	 * @return	The given buffer.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @since 1.5
+	 */
+	protected StringBuffer appendOperation(final StringBuffer sql, final Operation op) throws TranslationException{
+		append(sql, op.getLeftOperand()).append(op.getOperation().toADQL());
+		return append(sql, op.getRightOperand());
 	}
 
 	/* ************************ */
@@ -748,20 +1021,53 @@ public abstract class JDBCTranslator implements ADQLTranslator {
 	/* ************************ */
 	@Override
 	public String translate(ADQLConstraint cons) throws TranslationException{
-		if (cons instanceof Comparison)
-			return translate((Comparison)cons);
-		else if (cons instanceof Between)
-			return translate((Between)cons);
-		else if (cons instanceof Exists)
-			return translate((Exists)cons);
-		else if (cons instanceof In)
-			return translate((In)cons);
-		else if (cons instanceof IsNull)
-			return translate((IsNull)cons);
-		else if (cons instanceof NotConstraint)
-			return translate((NotConstraint)cons);
-		else
-			return cons.toADQL();
+		return appendConstraint(new StringBuffer(), cons).toString();
+	}
+
+	/**
+	 * Append the SQL translation of the given ADQL constraint.
+	 *
+	 * <p><i>Note:
+	 * 	This function is the implementation of
+	 * 	{@link #translate(ADQLConstraint)}.
+	 * </i></p>
+	 *
+	 * @param sql	Buffer in which the translation must be appended.
+	 * @param cons	The ADQL constraint to translate.
+	 *
+	 * @return	The given buffer.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @since 1.5
+	 */
+	protected StringBuffer appendConstraint(final StringBuffer sql, final ADQLConstraint cons) throws TranslationException{
+		// Literals of a constraint may be bind parameters:
+		final boolean binding = setBinding(true);
+		try{
+			if (cons instanceof Comparison){
+				/* Prefix the geometrical comparisons by a pixel range constraint
+				 * if a spatial index column can be used: */
+				String prefilter = getPixelIndexConstraint((Comparison)cons);
+				if (prefilter == null)
+					return sql.append(translate((Comparison)cons));
+				else
+					return sql.append('(').append(prefilter).append(" AND ").append(translate((Comparison)cons)).append(')');
+			}else if (cons instanceof Between)
+				return sql.append(translate((Between)cons));
+			else if (cons instanceof Exists)
+				return append(sql, (Exists)cons);
+			else if (cons instanceof In)
+				return append(sql, (In)cons);
+			else if (cons instanceof IsNull)
+				return sql.append(translate((IsNull)cons));
+			else if (cons instanceof NotConstraint)
+				return append(sql, (NotConstraint)cons);
+			else
+				return sql.append(cons.toADQL());
+		}finally{
+			setBinding(binding);
+		}
 	}
 
 	@Override
@@ -776,12 +1082,37 @@ public abstract class JDBCTranslator implements ADQLTranslator {
 
 	@Override
 	public String translate(Exists exists) throws TranslationException{
-		return "EXISTS(" + translate(exists.getSubQuery()) + ")";
+		return append(new StringBuffer("EXISTS("), exists.getSubQuery()).append(')').toString();
 	}
 
 	@Override
 	public String translate(In in) throws TranslationException{
-		return translate(in.getOperand()) + " " + in.getName() + " (" + (in.hasSubQuery() ? translate(in.getSubQuery()) : translate(in.getValuesList())) + ")";
+		return appendIn(new StringBuffer(), in).toString();
+	}
+
+	/**
+	 * Append the SQL translation of the given IN constraint.
+	 *
+	 * <p><i>Note:
+	 * 	This function is the implementation of {@link #translate(In)}.
+	 * </i></p>
+	 *
+	 * @param sql	Buffer in which the translation must be appended.
+	 * @param in	The IN constraint to translate.
+	 *
+	 * @return	The given buffer.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @since 1.5
+	 */
+	protected StringBuffer appendIn(final StringBuffer sql, final In in) throws TranslationException{
+		append(sql, in.getOperand()).append(' ').append(in.getName()).append(" (");
+		if (in.hasSubQuery())
+			append(sql, in.getSubQuery());
+		else
+			append(sql, in.getValuesList());
+		return sql.append(')');
 	}
 
 	@Override
@@ -791,7 +1122,7 @@ public abstract class JDBCTranslator implements ADQLTranslator {
 
 	@Override
 	public String translate(NotConstraint notCons) throws TranslationException{
-		return "NOT " + translate(notCons.getConstraint());
+		return append(new StringBuffer("NOT "), notCons.getConstraint()).toString();
 	}
 
 	/* *********************** */
@@ -821,12 +1152,15 @@ public abstract class JDBCTranslator implements ADQLTranslator {
 	 * @throws TranslationException	If there is an error during the translation.
 	 */
 	protected final String getDefaultADQLFunction(ADQLFunction fct) throws TranslationException{
-		String sql = fct.getName() + "(";
+		StringBuffer sql = new StringBuffer(fct.getName()).append('(');
 
-		for(int i = 0; i < fct.getNbParameters(); i++)
-			sql += ((i == 0) ? "" : ", ") + translate(fct.getParameter(i));
+		for(int i = 0; i < fct.getNbParameters(); i++){
+			if (i > 0)
+				sql.append(", ");
+			append(sql, fct.getParameter(i));
+		}
 
-		return sql + ")";
+		return sql.append(')').toString();
 	}
 
 	@Override
@@ -885,58 +1219,1243 @@ public abstract class JDBCTranslator implements ADQLTranslator {
 		return translate(geomValue.getValue());
 	}
 
+	/* ********************************* */
+	/* ****** APPENDING FUNCTIONS ****** */
+	/* ********************************* */
+
 	/**
-	 * Convert any type provided by a JDBC driver into a type understandable by the ADQL/TAP library.
+	 * Append the SQL translation of the given ADQL object.
 	 *
-	 * @param dbmsType			Type returned by a JDBC driver. <i>Note: this value is returned by ResultSetMetadata.getColumnType(int) and correspond to a type of java.sql.Types</i>
-	 * @param rawDbmsTypeName	Full name of the type returned by a JDBC driver. <i>Note: this name is returned by ResultSetMetadata.getColumnTypeName(int) ; this name may contain parameters</i>
-	 * @param dbmsTypeName		Name of type, without the eventual parameters. <i>Note: this name is extracted from rawDbmsTypeName.</i>
-	 * @param typeParams		The eventual type parameters (e.g. char string length). <i>Note: these parameters are extracted from rawDbmsTypeName.</i>
+	 * <p>
+	 * 	Like {@link #translate(ADQLObject)}, but the translation is written
+	 * 	directly in the given buffer.
+	 * </p>
 	 *
-	 * @return	The corresponding ADQL/TAP type or NULL if the specified type is unknown.
+	 * @param sql	Buffer in which the translation must be appended.
+	 * @param obj	The ADQL object to translate.
+	 *
+	 * @return	The given buffer.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @since 1.5
 	 */
-	public abstract DBType convertTypeFromDB(final int dbmsType, final String rawDbmsTypeName, final String dbmsTypeName, final String[] typeParams);
+	public final StringBuffer append(final StringBuffer sql, final ADQLObject obj) throws TranslationException{
+		if (isOverridden(SIG_TRANSLATE_ADQL_OBJECT))
+			return sql.append(translate(obj));
+		else if (obj instanceof ADQLQuery)
+			return append(sql, (ADQLQuery)obj);
+		else if (obj instanceof ADQLList)
+			return append(sql, (ADQLList<?>)obj);
+		else if (obj instanceof ADQLOperand)
+			return append(sql, (ADQLOperand)obj);
+		else if (obj instanceof ADQLConstraint)
+			return append(sql, (ADQLConstraint)obj);
+		else
+			return sql.append(translate(obj));
+	}
 
 	/**
-	 * <p>Convert any type provided by the ADQL/TAP library into a type understandable by a JDBC driver.</p>
+	 * Append the SQL translation of the given ADQL query.
 	 *
-	 * <p><i>Note:
-	 * 	The returned DBMS type may contain some parameters between brackets.
-	 * </i></p>
+	 * @param sql	Buffer in which the translation must be appended.
+	 * @param query	The ADQL query to translate.
 	 *
-	 * @param type	The ADQL/TAP library's type to convert.
+	 * @return	The given buffer.
 	 *
-	 * @return	The corresponding DBMS type or NULL if the specified type is unknown.
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @see #translate(ADQLQuery)
+	 *
+	 * @since 1.5
 	 */
-	public abstract String convertTypeToDB(final DBType type);
+	public final StringBuffer append(final StringBuffer sql, final ADQLQuery query) throws TranslationException{
+		if (isOverridden(SIG_TRANSLATE_ADQL_QUERY))
+			return sql.append(translate(query));
+		else
+			return appendQuery(sql, query);
+	}
 
 	/**
-	 * <p>Parse the given JDBC column value as a geometry object and convert it into a {@link Region}.</p>
+	 * Append the SQL translation of the given list of ADQL objects.
 	 *
-	 * <p><i>Note:
-	 * 	Generally the returned object will be used to get its STC-S expression.
-	 * </i></p>
+	 * @param sql	Buffer in which the translation must be appended.
+	 * @param list	The list to translate.
 	 *
-	 * <p><i>Note:
-	 * 	If the given column value is NULL, NULL will be returned.
-	 * </i></p>
+	 * @return	The given buffer.
 	 *
-	 * <p><i><b>Important note:</b>
-	 * 	This function is called ONLY for value of columns flagged as geometries by
-	 * 	{@link #convertTypeFromDB(int, String, String, String[])}. So the value should always
-	 * 	be of the expected type and format. However, if it turns out that the type is wrong
-	 * 	and that the conversion is finally impossible, this function SHOULD throw a
-	 * 	{@link ParseException}.
-	 * </i></p>
+	 * @throws TranslationException	If there is an error during the translation.
 	 *
-	 * @param jdbcColValue	A JDBC column value (returned by ResultSet.getObject(int)).
+	 * @see #translate(ADQLList)
 	 *
-	 * @return	The corresponding {@link Region} if the given value is a geometry.
+	 * @since 1.5
+	 */
+	public final StringBuffer append(final StringBuffer sql, final ADQLList<? extends ADQLObject> list) throws TranslationException{
+		if (isOverridden(SIG_TRANSLATE_ADQL_LIST))
+			return sql.append(translate(list));
+		else if (list instanceof ClauseSelect)
+			return append(sql, (ClauseSelect)list);
+		else if (list instanceof ClauseConstraints)
+			return append(sql, (ClauseConstraints)list);
+		else if (list instanceof Concatenation)
+			return appendDefaultList(sql, list, false);
+		else
+			return appendDefaultList(sql, list, true);
+	}
+
+	/**
+	 * Append the SQL translation of the given SELECT clause.
 	 *
-	 * @throws ParseException	If the given object is not a geometrical object
-	 *                       	or can not be transformed into a {@link Region} object.
+	 * @param sql		Buffer in which the translation must be appended.
+	 * @param clause	The SELECT clause to translate.
+	 *
+	 * @return	The given buffer.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @see #translate(ClauseSelect)
+	 *
+	 * @since 1.5
 	 */
-	public abstract Region translateGeometryFromDB(final Object jdbcColValue) throws ParseException;
+	public final StringBuffer append(final StringBuffer sql, final ClauseSelect clause) throws TranslationException{
+		if (isOverridden(SIG_TRANSLATE_CLAUSE_SELECT))
+			return sql.append(translate(clause));
+		else
+			return appendSelect(sql, clause);
+	}
+
+	/**
+	 * Append the SQL translation of the given list of constraints.
+	 *
+	 * @param sql		Buffer in which the translation must be appended.
+	 * @param clause	The constraints to translate.
+	 *
+	 * @return	The given buffer.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @see #translate(ClauseConstraints)
+	 *
+	 * @since 1.5
+	 */
+	public final StringBuffer append(final StringBuffer sql, final ClauseConstraints clause) throws TranslationException{
+		if (isOverridden(SIG_TRANSLATE_CLAUSE_CONSTRAINTS))
+			return sql.append(translate(clause));
+		else
+			return appendConstraints(sql, clause);
+	}
+
+	/**
+	 * Append the default SQL output for a list of ADQL objects.
+	 *
+	 * @param sql				Buffer in which the translation must be appended.
+	 * @param list				List to format into SQL.
+	 * @param withNamePrefix	Prefix the list by its name or not.
+	 *
+	 * @return	The given buffer.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @see #getDefaultADQLList(ADQLList, boolean)
+	 *
+	 * @since 1.5
+	 */
+	private StringBuffer appendDefaultList(final StringBuffer sql, final ADQLList<? extends ADQLObject> list, final boolean withNamePrefix) throws TranslationException{
+		if (isOverridden(SIG_DEFAULT_ADQL_LIST))
+			return sql.append(getDefaultADQLList(list, withNamePrefix));
+		else
+			return appendList(sql, list, withNamePrefix);
+	}
+
+	/**
+	 * Append the SQL translation of the given ADQL operand.
+	 *
+	 * @param sql	Buffer in which the translation must be appended.
+	 * @param op	The ADQL operand to translate.
+	 *
+	 * @return	The given buffer.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @see #translate(ADQLOperand)
+	 *
+	 * @since 1.5
+	 */
+	public final StringBuffer append(final StringBuffer sql, final ADQLOperand op) throws TranslationException{
+		if (isOverridden(SIG_TRANSLATE_ADQL_OPERAND))
+			return sql.append(translate(op));
+		else
+			return appendOperand(sql, op);
+	}
+
+	/**
+	 * Append the SQL translation of the given concatenation.
+	 *
+	 * @param sql		Buffer in which the translation must be appended.
+	 * @param concat	The concatenation to translate.
+	 *
+	 * @return	The given buffer.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @see #translate(Concatenation)
+	 *
+	 * @since 1.5
+	 */
+	public final StringBuffer append(final StringBuffer sql, final Concatenation concat) throws TranslationException{
+		if (isOverridden(SIG_TRANSLATE_CONCATENATION))
+			return sql.append(translate(concat));
+		else
+			return append(sql, (ADQLList<ADQLOperand>)concat);
+	}
+
+	/**
+	 * Append the SQL translation of the given negative operand.
+	 *
+	 * @param sql	Buffer in which the translation must be appended.
+	 * @param negOp	The negative operand to translate.
+	 *
+	 * @return	The given buffer.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @see #translate(NegativeOperand)
+	 *
+	 * @since 1.5
+	 */
+	public final StringBuffer append(final StringBuffer sql, final NegativeOperand negOp) throws TranslationException{
+		if (isOverridden(SIG_TRANSLATE_NEGATIVE_OPERAND))
+			return sql.append(translate(negOp));
+		else
+			return append(sql.append('-'), negOp.getOperand());
+	}
+
+	/**
+	 * Append the SQL translation of the given wrapped operand.
+	 *
+	 * @param sql	Buffer in which the translation must be appended.
+	 * @param op	The wrapped operand to translate.
+	 *
+	 * @return	The given buffer.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @see #translate(WrappedOperand)
+	 *
+	 * @since 1.5
+	 */
+	public final StringBuffer append(final StringBuffer sql, final WrappedOperand op) throws TranslationException{
+		if (isOverridden(SIG_TRANSLATE_WRAPPED_OPERAND))
+			return sql.append(translate(op));
+		else
+			return append(sql.append('('), op.getOperand()).append(')');
+	}
+
+	/**
+	 * Append the SQL translation of the given operation.
+	 *
+	 * @param sql	Buffer in which the translation must be appended.
+	 * @param op	The operation to translate.
+	 *
+	 * @return	The given buffer.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @see #translate(Operation)
+	 *
+	 * @since 1.5
+	 */
+	public final StringBuffer append(final StringBuffer sql, final Operation op) throws TranslationException{
+		if (isOverridden(SIG_TRANSLATE_OPERATION))
+			return sql.append(translate(op));
+		else
+			return appendOperation(sql, op);
+	}
+
+	/**
+	 * Append the SQL translation of the given ADQL constraint.
+	 *
+	 * @param sql	Buffer in which the translation must be appended.
+	 * @param cons	The ADQL constraint to translate.
+	 *
+	 * @return	The given buffer.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @see #translate(ADQLConstraint)
+	 *
+	 * @since 1.5
+	 */
+	public final StringBuffer append(final StringBuffer sql, final ADQLConstraint cons) throws TranslationException{
+		if (isOverridden(SIG_TRANSLATE_ADQL_CONSTRAINT))
+			return sql.append(translate(cons));
+		else
+			return appendConstraint(sql, cons);
+	}
+
+	/**
+	 * Append the SQL translation of the given EXISTS constraint.
+	 *
+	 * @param sql		Buffer in which the translation must be appended.
+	 * @param exists	The EXISTS constraint to translate.
+	 *
+	 * @return	The given buffer.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @see #translate(Exists)
+	 *
+	 * @since 1.5
+	 */
+	public final StringBuffer append(final StringBuffer sql, final Exists exists) throws TranslationException{
+		if (isOverridden(SIG_TRANSLATE_EXISTS))
+			return sql.append(translate(exists));
+		else
+			return append(sql.append("EXISTS("), exists.getSubQuery()).append(')');
+	}
+
+	/**
+	 * Append the SQL translation of the given IN constraint.
+	 *
+	 * @param sql	Buffer in which the translation must be appended.
+	 * @param in	The IN constraint to translate.
+	 *
+	 * @return	The given buffer.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @see #translate(In)
+	 *
+	 * @since 1.5
+	 */
+	public final StringBuffer append(final StringBuffer sql, final In in) throws TranslationException{
+		if (isOverridden(SIG_TRANSLATE_IN))
+			return sql.append(translate(in));
+		else
+			return appendIn(sql, in);
+	}
+
+	/**
+	 * Append the SQL translation of the given NOT constraint.
+	 *
+	 * @param sql		Buffer in which the translation must be appended.
+	 * @param notCons	The NOT constraint to translate.
+	 *
+	 * @return	The given buffer.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @see #translate(NotConstraint)
+	 *
+	 * @since 1.5
+	 */
+	public final StringBuffer append(final StringBuffer sql, final NotConstraint notCons) throws TranslationException{
+		if (isOverridden(SIG_TRANSLATE_NOT_CONSTRAINT))
+			return sql.append(translate(notCons));
+		else
+			return append(sql.append("NOT "), notCons.getConstraint());
+	}
+
+	/**
+	 * Tell whether the specified function of {@link JDBCTranslator} is
+	 * overridden by the class of this translator.
+	 *
+	 * <p>
+	 * 	The <code>append(StringBuffer, ...)</code> functions use it so that any
+	 * 	overridden <code>translate(...)</code> function is still called.
+	 * </p>
+	 *
+	 * @param name				Name of the function.
+	 * @param parameterTypes	Type of all its parameters.
+	 *
+	 * @return	<i>true</i> if an extension of {@link JDBCTranslator} declares
+	 *        	this function, <i>false</i> otherwise.
+	 *
+	 * @since 1.5
+	 */
+	protected final boolean isOverridden(final String name, final Class<?>... parameterTypes){
+		return isOverridden(getSignature(name, parameterTypes));
+	}
+
+	/**
+	 * Tell whether the function having the given signature is overridden by
+	 * the class of this translator.
+	 *
+	 * @param signature	Signature of the function
+	 *                 	(see {@link #getSignature(String, Class[])}).
+	 *
+	 * @return	<i>true</i> if an extension of {@link JDBCTranslator} declares
+	 *        	this function, <i>false</i> otherwise.
+	 *
+	 * @since 1.5
+	 */
+	private boolean isOverridden(final String signature){
+		if (overridden == null){
+			Set<String> functions = overriddenFunctions.get(getClass());
+			if (functions == null){
+				functions = new HashSet<String>();
+				for(Class<?> c = getClass(); c != null && c != JDBCTranslator.class; c = c.getSuperclass()){
+					for(Method m : c.getDeclaredMethods()){
+						if (!m.isBridge() && !m.isSynthetic())
+							functions.add(getSignature(m.getName(), m.getParameterTypes()));
+					}
+				}
+				functions = Collections.unmodifiableSet(functions);
+				overriddenFunctions.put(getClass(), functions);
+			}
+			overridden = functions;
+		}
+		return !overridden.isEmpty() && overridden.contains(signature);
+	}
+
+	/**
+	 * Build the signature of a function.
+	 *
+	 * @param name				Name of the function.
+	 * @param parameterTypes	Type of all its parameters.
+	 *
+	 * @return	The signature of the function.
+	 *
+	 * @since 1.5
+	 */
+	private static String getSignature(final String name, final Class<?>[] parameterTypes){
+		StringBuffer signature = new StringBuffer(name).append('(');
+		for(int i = 0; i < parameterTypes.length; i++){
+			if (i > 0)
+				signature.append(',');
+			signature.append(parameterTypes[i].getName());
+		}
+		return signature.append(')').toString();
+	}
+
+	/* ***************************** */
+	/* ****** BIND PARAMETERS ****** */
+	/* ***************************** */
+
+	/**
+	 * Get the maximum number of bind parameters in a SQL query built by
+	 * {@link #translateWithParameters(ADQLQuery)}.
+	 *
+	 * @return	Maximum number of bind parameters. <i>0 means no limit.</i>
+	 *
+	 * @since 1.5
+	 */
+	public final int getMaxBindParameters(){
+		return maxBindParameters;
+	}
+
+	/**
+	 * Set the maximum number of bind parameters in a SQL query built by
+	 * {@link #translateWithParameters(ADQLQuery)}.
+	 *
+	 * <p>
+	 * 	If a query has more literals (e.g. a huge IN list), all of them are
+	 * 	inlined. Most DBMS limit the number of parameters of a statement
+	 * 	(e.g. 2100 for SQL Server).
+	 * </p>
+	 *
+	 * @param maxParameters	Maximum number of bind parameters.
+	 *                     	<i>0 or a negative value means no limit.</i>
+	 *
+	 * @since 1.5
+	 */
+	public final void setMaxBindParameters(final int maxParameters){
+		maxBindParameters = (maxParameters < 0) ? 0 : maxParameters;
+	}
+
+	/**
+	 * Translate the given ADQL query into a SQL query whose literals are
+	 * positional bind parameters.
+	 *
+	 * <p>
+	 * 	The translation is performed by {@link #translate(ADQLQuery)}, but
+	 * 	each numeric or string literal of a constraint (WHERE, HAVING, JOIN
+	 * 	conditions, also in sub-queries) is replaced by <code>?</code>. The
+	 * 	corresponding values are listed, in order, in the returned object.
+	 * </p>
+	 *
+	 * <p><i>Note:
+	 * 	Integer literals are bound as {@link Long}, decimal literals as
+	 * 	{@link BigDecimal} (so that keeping the exact semantics of a SQL
+	 * 	literal) and strings as {@link String}.
+	 * </i></p>
+	 *
+	 * @param query	The ADQL query to translate.
+	 *
+	 * @return	The parameterized SQL query.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @since 1.5
+	 */
+	public ParameterizedSQL translateWithParameters(final ADQLQuery query) throws TranslationException{
+		// Translate the query while collecting all bind parameters:
+		final BindContext previous = bindContext.get();
+		final BindContext context = new BindContext();
+		final String sql;
+		bindContext.set(context);
+		try{
+			sql = translate(query);
+		}finally{
+			if (previous == null)
+				bindContext.remove();
+			else
+				bindContext.set(previous);
+		}
+
+		if (context.values.isEmpty())
+			return new ParameterizedSQL(sql, sql, null);
+
+		/* Replace all parameter markers by ? in the SQL to prepare and by the
+		 * corresponding literal in the expanded SQL (anything else, even
+		 * containing the marker character, is kept as such): */
+		StringBuffer paramSQL = new StringBuffer(sql.length()), expandedSQL = new StringBuffer(sql.length());
+		ArrayList<Object> parameters = new ArrayList<Object>(context.values.size());
+		int from = 0, start = sql.indexOf(context.marker), end, index;
+		while(start >= 0){
+			end = sql.indexOf(PARAMETER_MARKER, start + context.marker.length());
+			index = (end < 0) ? -1 : parseParameterIndex(sql, start + context.marker.length(), end);
+			if (index < 0 || index >= context.values.size()){
+				start = sql.indexOf(context.marker, start + 1);
+				continue;
+			}
+			paramSQL.append(sql, from, start).append('?');
+			expandedSQL.append(sql, from, start).append(context.literals.get(index));
+			parameters.add(context.values.get(index));
+			from = end + 1;
+			start = sql.indexOf(context.marker, from);
+		}
+		paramSQL.append(sql, from, sql.length());
+		expandedSQL.append(sql, from, sql.length());
+
+		// Too many parameters => inline all of them:
+		if (maxBindParameters > 0 && parameters.size() > maxBindParameters)
+			return new ParameterizedSQL(expandedSQL.toString(), expandedSQL.toString(), null);
+		else
+			return new ParameterizedSQL(paramSQL.toString(), expandedSQL.toString(), parameters.toArray());
+	}
+
+	/**
+	 * Parse the index of a bind parameter written in a parameter marker.
+	 *
+	 * @param sql	The SQL containing the marker.
+	 * @param start	Index (inclusive) of the first digit.
+	 * @param end	Index (exclusive) of the last digit.
+	 *
+	 * @return	The parameter index,
+	 *        	or -1 if the given characters are not a positive integer.
+	 *
+	 * @since 1.5
+	 */
+	private static int parseParameterIndex(final String sql, final int start, final int end){
+		if (start >= end || end - start > 9)
+			return -1;
+		int index = 0;
+		for(int i = start; i < end; i++){
+			char c = sql.charAt(i);
+			if (c < '0' || c > '9')
+				return -1;
+			index = index * 10 + (c - '0');
+		}
+		return index;
+	}
+
+	/**
+	 * Tell whether the literal being translated must be a bind parameter.
+	 *
+	 * @return	<i>true</i> if inside {@link #translateWithParameters(ADQLQuery)}
+	 *        	and in a part of the query where literals are bind parameters,
+	 *        	<i>false</i> otherwise.
+	 *
+	 * @since 1.5
+	 */
+	protected final boolean isBinding(){
+		BindContext context = bindContext.get();
+		return (context != null && context.enabled);
+	}
+
+	/**
+	 * Enable or disable the replacement of literals by bind parameters.
+	 *
+	 * <p>
+	 * 	This function has no effect outside of
+	 * 	{@link #translateWithParameters(ADQLQuery)}. It is aimed to be used as
+	 * 	follows:
+	 * </p>
+	 * <pre>final boolean binding = setBinding(false);
+	 *try{
+	 *	...
+	 *}finally{
+	 *	setBinding(binding);
+	 *}</pre>
+	 *
+	 * @param enabled	<i>true</i> to replace literals by bind parameters,
+	 *               	<i>false</i> to inline them.
+	 *
+	 * @return	The previous state.
+	 *
+	 * @since 1.5
+	 */
+	protected final boolean setBinding(final boolean enabled){
+		BindContext context = bindContext.get();
+		if (context == null)
+			return false;
+		boolean previous = context.enabled;
+		context.enabled = enabled;
+		return previous;
+	}
+
+	/**
+	 * Get the SQL to write for a literal.
+	 *
+	 * @param value		Value of the bind parameter.
+	 *             		<i>If NULL, the literal is inlined.</i>
+	 * @param literal	SQL of the inlined literal.
+	 *
+	 * @return	A bind parameter marker if {@link #isBinding()},
+	 *        	the given literal otherwise.
+	 *
+	 * @since 1.5
+	 */
+	protected final String bindParameter(final Object value, final String literal){
+		BindContext context = bindContext.get();
+		if (value == null || context == null || !context.enabled)
+			return literal;
+		context.values.add(value);
+		context.literals.add(literal);
+		return context.marker + String.valueOf(context.values.size() - 1) + PARAMETER_MARKER;
+	}
+
+	/**
+	 * Convert the given numeric literal into the value of a bind parameter.
+	 *
+	 * @param value	An ADQL numeric literal.
+	 *
+	 * @return	A {@link Long}, a {@link BigDecimal},
+	 *        	or NULL if not a finite number.
+	 */
+	private static Object toBindValue(final String value){
+		try{
+			return Long.valueOf(value);
+		}catch(NumberFormatException nfe){
+			try{
+				return new BigDecimal(value);
+			}catch(NumberFormatException nfe2){
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Bind parameters collected while translating a query.
+	 *
+	 * @since 1.5
+	 */
+	private final static class BindContext {
+		/** Whether literals must be bind parameters at this point of the
+		 * translation. */
+		boolean enabled = false;
+		/** Value of each parameter. */
+		final ArrayList<Object> values = new ArrayList<Object>();
+		/** Inlined SQL of each parameter. */
+		final ArrayList<String> literals = new ArrayList<String>();
+		/** Beginning of all parameter markers of this translation:
+		 * {@link JDBCTranslator#PARAMETER_MARKER} followed by a random key
+		 * (16 hexadecimal digits). The marker is closed by
+		 * {@link JDBCTranslator#PARAMETER_MARKER} after the parameter index. */
+		final String marker = PARAMETER_MARKER + Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+	}
+
+	/* ************************************** */
+	/* ****** PIXEL INDEX PREFILTERING ****** */
+	/* ************************************** */
+
+	/**
+	 * Get the maximum number of pixel ranges that a pixel index constraint
+	 * may contain.
+	 *
+	 * @return	The maximum number of pixel ranges.
+	 *        	<i>0 means no limit.</i>
+	 *
+	 * @since 1.5
+	 *
+	 * @see #getPixelIndexConstraint(Comparison)
+	 */
+	public final int getMaxPixelRanges(){
+		return maxPixelRanges;
+	}
+
+	/**
+	 * Set the maximum number of pixel ranges that a pixel index constraint
+	 * may contain. If more ranges are needed, the closest ones are merged
+	 * (the constraint is then less selective, but still correct).
+	 *
+	 * @param maxRanges	The maximum number of pixel ranges.
+	 *                 	<i>0 or a negative value means no limit.</i>
+	 *
+	 * @since 1.5
+	 *
+	 * @see #getPixelIndexConstraint(Comparison)
+	 */
+	public final void setMaxPixelRanges(final int maxRanges){
+		maxPixelRanges = (maxRanges < 0) ? 0 : maxRanges;
+	}
+
+	/**
+	 * Get a pixel range constraint selecting a superset of the rows matched
+	 * by the given geometrical comparison, if the compared position is indexed
+	 * by a spatial index column (see {@link DBSpatialIndexColumn}).
+	 *
+	 * <p>The following comparisons are supported:</p>
+	 * <ul>
+	 * 	<li><code>CONTAINS(POINT(..., ra, dec), CIRCLE|BOX|POLYGON(...)) = 1</code>,</li>
+	 * 	<li><code>INTERSECTS(POINT(..., ra, dec), CIRCLE|BOX|POLYGON(...)) = 1</code>
+	 * 		(and reciprocally),</li>
+	 * 	<li><code>DISTANCE(POINT(..., ra, dec), POINT(..., ra0, dec0)) &lt; r</code>
+	 * 		(or <code>&lt;=</code>, or <code>r &gt; DISTANCE(...)</code>,
+	 * 		or <code>r &gt;= DISTANCE(...)</code>),</li>
+	 * </ul>
+	 * <p>
+	 * 	where <code>ra</code> and <code>dec</code> are the columns indexed by
+	 * 	a spatial index column of the same table, and where all parameters of
+	 * 	the region are numeric constants.
+	 * </p>
+	 *
+	 * <p>
+	 * 	The pixel ranges overlapping the region are computed in Java (see
+	 * 	{@link SpatialIndex}) and returned as a list of
+	 * 	<code>pix BETWEEN start AND end</code> and <code>pix IN (...)</code>.
+	 * 	{@link #translate(ADQLConstraint)} then adds this prefilter in front of
+	 * 	the exact geometrical test.
+	 * </p>
+	 *
+	 * @param comp	The comparison to prefilter.
+	 *
+	 * @return	The pixel range constraint,
+	 *        	or NULL if no pixel index can be used.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @since 1.5
+	 */
+	public String getPixelIndexConstraint(final Comparison comp) throws TranslationException{
+		if (comp == null)
+			return null;
+
+		ADQLOperand left = comp.getLeftOperand(), right = comp.getRightOperand();
+		ComparisonOperator op = comp.getOperator();
+		ADQLOperand point = null, region = null, radius = null;
+
+		// CASE: CONTAINS/INTERSECTS(POINT, region) = 1
+		if (op == ComparisonOperator.EQUAL){
+			ADQLOperand fct = null;
+			if ((left instanceof ContainsFunction || left instanceof IntersectsFunction) && isConstant(right, 1))
+				fct = left;
+			else if ((right instanceof ContainsFunction || right instanceof IntersectsFunction) && isConstant(left, 1))
+				fct = right;
+			if (fct instanceof ContainsFunction){
+				point = ((ContainsFunction)fct).getLeftParam().getValue();
+				region = ((ContainsFunction)fct).getRightParam().getValue();
+			}else if (fct instanceof IntersectsFunction){
+				point = ((IntersectsFunction)fct).getLeftParam().getValue();
+				region = ((IntersectsFunction)fct).getRightParam().getValue();
+				if (!(point instanceof PointFunction)){
+					region = point;
+					point = ((IntersectsFunction)fct).getRightParam().getValue();
+				}
+			}
+		}
+
+		// CASE: DISTANCE(POINT, POINT) < r
+		else if (left instanceof DistanceFunction && (op == ComparisonOperator.LESS_THAN || op == ComparisonOperator.LESS_OR_EQUAL) || right instanceof DistanceFunction && (op == ComparisonOperator.GREATER_THAN || op == ComparisonOperator.GREATER_OR_EQUAL)){
+			DistanceFunction distance = (DistanceFunction)((left instanceof DistanceFunction) ? left : right);
+			radius = (left instanceof DistanceFunction) ? right : left;
+			point = distance.getP1().getValue();
+			region = distance.getP2().getValue();
+			if (region instanceof PointFunction && ((PointFunction)region).getCoord1() instanceof ADQLColumn){
+				region = point;
+				point = distance.getP2().getValue();
+			}
+		}
+
+		// Only a position made of indexed columns can be prefiltered:
+		if (!(point instanceof PointFunction) || !(((PointFunction)point).getCoord1() instanceof ADQLColumn) || !(((PointFunction)point).getCoord2() instanceof ADQLColumn))
+			return null;
+		ADQLColumn ra = (ADQLColumn)((PointFunction)point).getCoord1(), dec = (ADQLColumn)((PointFunction)point).getCoord2();
+		DBSpatialIndexColumn indexColumn = getSpatialIndexColumn(ra, dec);
+		if (indexColumn == null)
+			return null;
+		SpatialIndex index = indexColumn.getSpatialIndex();
+
+		// Compute the pixel ranges of the region:
+		long[] ranges = null;
+		if (region instanceof PointFunction && radius != null){
+			Double ra0 = getConstantValue(((PointFunction)region).getCoord1()), dec0 = getConstantValue(((PointFunction)region).getCoord2()), r = getConstantValue(radius);
+			if (ra0 != null && dec0 != null && r != null)
+				ranges = index.getDiscRanges(ra0, dec0, r, maxPixelRanges);
+		}else if (region instanceof CircleFunction){
+			CircleFunction circle = (CircleFunction)region;
+			Double ra0 = getConstantValue(circle.getCoord1()), dec0 = getConstantValue(circle.getCoord2()), r = getConstantValue(circle.getRadius());
+			if (ra0 != null && dec0 != null && r != null)
+				ranges = index.getDiscRanges(ra0, dec0, r, maxPixelRanges);
+		}else if (region instanceof BoxFunction){
+			BoxFunction box = (BoxFunction)region;
+			Double ra0 = getConstantValue(box.getCoord1()), dec0 = getConstantValue(box.getCoord2()), width = getConstantValue(box.getWidth()), height = getConstantValue(box.getHeight());
+			if (ra0 != null && dec0 != null && width != null && height != null)
+				ranges = index.getBoxRanges(ra0, dec0, width, height, maxPixelRanges);
+		}else if (region instanceof PolygonFunction){
+			PolygonFunction polygon = (PolygonFunction)region;
+			int nbVertices = (polygon.getNbParameters() - 1) / 2;
+			double[] ras = new double[nbVertices], decs = new double[nbVertices];
+			for(int i = 0; i < nbVertices; i++){
+				Double vRA = getConstantValue(polygon.getParameter(1 + 2 * i)), vDec = getConstantValue(polygon.getParameter(2 + 2 * i));
+				if (vRA == null || vDec == null)
+					return null;
+				ras[i] = vRA;
+				decs[i] = vDec;
+			}
+			if (nbVertices >= 3)
+				ranges = index.getPolygonRanges(ras, decs, maxPixelRanges);
+		}
+		if (ranges == null)
+			return null;
+
+		// Nothing can match:
+		if (ranges.length == 0)
+			return "1=0";
+
+		// Write the pixel range constraint:
+		ADQLColumn pixColumn = new ADQLColumn(ra);
+		pixColumn.setColumnName(indexColumn.getADQLName());
+		pixColumn.setDBLink(indexColumn);
+		String pix = translate(pixColumn);
+
+		StringBuffer sql = new StringBuffer();
+		StringBuffer singles = new StringBuffer();
+		int nbItems = 0, nbSingles = 0;
+		for(int i = 0; i < ranges.length; i += 2){
+			if (ranges[i] == ranges[i + 1]){
+				singles.append((nbSingles++ == 0) ? "" : ", ").append(ranges[i]);
+			}else{
+				sql.append((nbItems++ == 0) ? "" : " OR ").append(pix).append(" BETWEEN ").append(ranges[i]).append(" AND ").append(ranges[i + 1]);
+			}
+		}
+		if (nbSingles > 0){
+			sql.append((nbItems++ == 0) ? "" : " OR ").append(pix);
+			if (nbSingles == 1)
+				sql.append(" = ").append(singles);
+			else
+				sql.append(" IN (").append(singles).append(')');
+		}
+
+		return (nbItems > 1) ? "(" + sql + ")" : sql.toString();
+	}
+
+	/**
+	 * Get the spatial index column indexing the given RA and Dec columns.
+	 *
+	 * @param ra	The RA column.
+	 * @param dec	The Dec column.
+	 *
+	 * @return	The corresponding spatial index column,
+	 *        	or NULL if none.
+	 *
+	 * @since 1.5
+	 */
+	protected DBSpatialIndexColumn getSpatialIndexColumn(final ADQLColumn ra, final ADQLColumn dec){
+		DBColumn dbRA = ra.getDBLink(), dbDec = dec.getDBLink();
+		if (dbRA == null || dbDec == null || dbRA.getTable() == null || dbRA.getTable() != dbDec.getTable())
+			return null;
+
+		for(DBColumn column : dbRA.getTable()){
+			if (column instanceof DBSpatialIndexColumn && ((DBSpatialIndexColumn)column).getSpatialIndex() != null && ((DBSpatialIndexColumn)column).getSpatialIndex().isIndexing(dbRA, dbDec))
+				return (DBSpatialIndexColumn)column;
+		}
+
+		return null;
+	}
+
+	/* ********************************** */
+	/* ****** CONE SEARCH REWRITING ****** */
+	/* ********************************** */
+
+	/**
+	 * Translate the given comparison into an index-friendly SQL constraint if
+	 * it is a cone search.
+	 *
+	 * <p>The following comparisons are considered as cone searches:</p>
+	 * <ul>
+	 * 	<li><code>CONTAINS(POINT(..., ra, dec), CIRCLE(..., ra0, dec0, r)) = 1</code>
+	 * 		(or <code>1 = CONTAINS(...)</code>),</li>
+	 * 	<li><code>DISTANCE(POINT(..., ra, dec), POINT(..., ra0, dec0)) &lt; r</code>
+	 * 		(or <code>&lt;=</code>, or <code>r &gt; DISTANCE(...)</code>,
+	 * 		or <code>r &gt;= DISTANCE(...)</code>).</li>
+	 * </ul>
+	 *
+	 * <p>
+	 * 	They are rewritten into a Dec band and, when the center and the radius
+	 * 	are numeric constants, an RA range (RA wrap-around and poles included).
+	 * 	These range predicates can be resolved with a B-tree index on the
+	 * 	ra/dec columns. The exact constraint is then checked with the
+	 * 	haversine formula (see {@link #getConeSearchConstraint(ADQLOperand, ADQLOperand, ADQLOperand, ADQLOperand, ADQLOperand, boolean)}).
+	 * </p>
+	 *
+	 * <p><i>Note:
+	 * 	This function is not used by default. A translator of a DBMS without
+	 * 	any spherical type (e.g. {@link MySQLTranslator},
+	 * 	{@link SQLServerTranslator}) can use it by overriding
+	 * 	{@link #translate(Comparison)} as follows:
+	 * </i></p>
+	 * <pre>
+	 * 	String sql = translateConeSearch(comp);
+	 * 	return (sql != null) ? sql : super.translate(comp);
+	 * </pre>
+	 *
+	 * @param comp	The comparison to translate.
+	 *
+	 * @return	The SQL translation of the cone search,
+	 *        	or NULL if the given comparison is not a cone search.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @since 1.5
+	 */
+	protected String translateConeSearch(final Comparison comp) throws TranslationException{
+		if (comp == null)
+			return null;
+
+		ADQLOperand left = comp.getLeftOperand(), right = comp.getRightOperand();
+		ComparisonOperator op = comp.getOperator();
+
+		// CASE: CONTAINS(POINT, CIRCLE) = 1
+		if (op == ComparisonOperator.EQUAL){
+			ContainsFunction contains = null;
+			if (left instanceof ContainsFunction && isConstant(right, 1))
+				contains = (ContainsFunction)left;
+			else if (right instanceof ContainsFunction && isConstant(left, 1))
+				contains = (ContainsFunction)right;
+			if (contains != null && contains.getLeftParam().getValue() instanceof PointFunction && contains.getRightParam().getValue() instanceof CircleFunction){
+				PointFunction point = (PointFunction)contains.getLeftParam().getValue();
+				CircleFunction circle = (CircleFunction)contains.getRightParam().getValue();
+				return getConeSearchConstraint(point.getCoord1(), point.getCoord2(), circle.getCoord1(), circle.getCoord2(), circle.getRadius(), false);
+			}
+		}
+
+		// CASE: DISTANCE(POINT, POINT) < r
+		else{
+			DistanceFunction distance = null;
+			ADQLOperand radius = null;
+			if (left instanceof DistanceFunction && (op == ComparisonOperator.LESS_THAN || op == ComparisonOperator.LESS_OR_EQUAL)){
+				distance = (DistanceFunction)left;
+				radius = right;
+			}else if (right instanceof DistanceFunction && (op == ComparisonOperator.GREATER_THAN || op == ComparisonOperator.GREATER_OR_EQUAL)){
+				distance = (DistanceFunction)right;
+				radius = left;
+			}
+			if (distance != null && distance.getP1().getValue() instanceof PointFunction && distance.getP2().getValue() instanceof PointFunction){
+				PointFunction p1 = (PointFunction)distance.getP1().getValue();
+				PointFunction p2 = (PointFunction)distance.getP2().getValue();
+				boolean strict = (op == ComparisonOperator.LESS_THAN || op == ComparisonOperator.GREATER_THAN);
+				/* note: the column position should be the first point, but
+				 *       it is often written the other way around: */
+				if (getConstantValue(p1.getCoord1()) != null && getConstantValue(p1.getCoord2()) != null)
+					return getConeSearchConstraint(p2.getCoord1(), p2.getCoord2(), p1.getCoord1(), p1.getCoord2(), radius, strict);
+				else
+					return getConeSearchConstraint(p1.getCoord1(), p1.getCoord2(), p2.getCoord1(), p2.getCoord2(), radius, strict);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Get the SQL constraint selecting all positions (ra, dec) whose the
+	 * angular distance to (ra0, dec0) is smaller than the given radius.
+	 *
+	 * <p>The returned constraint is made of:</p>
+	 * <ol>
+	 * 	<li>a Dec band: <code>dec BETWEEN dec0-r AND dec0+r</code>,</li>
+	 * 	<li>if the center and the radius are numeric constants and if the cone
+	 * 		does not include a pole, an RA range:
+	 * 		<code>ra BETWEEN ra0-&alpha; AND ra0+&alpha;</code> with
+	 * 		<code>&alpha; = asin(sin(r) / cos(dec0))</code> ; this range is
+	 * 		split in two if it crosses RA=0,</li>
+	 * 	<li>the exact constraint:
+	 * 		<code>sin&sup2;((dec-dec0)/2) + cos(dec) cos(dec0) sin&sup2;((ra-ra0)/2) &lt;= sin&sup2;(r/2)</code>
+	 * 		(haversine formula).</li>
+	 * </ol>
+	 *
+	 * <p><i>Note:
+	 * 	All values are expected in degrees. The RA range assumes RA values
+	 * 	between 0 and 360 degrees.
+	 * </i></p>
+	 *
+	 * @param ra		RA of the positions to select.
+	 * @param dec		Dec of the positions to select.
+	 * @param ra0		RA of the cone center.
+	 * @param dec0		Dec of the cone center.
+	 * @param radius	Radius of the cone.
+	 * @param strict	<i>true</i> to exclude the positions at exactly the
+	 *              	given radius, <i>false</i> to include them.
+	 *
+	 * @return	The corresponding SQL constraint.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @since 1.5
+	 */
+	protected String getConeSearchConstraint(final ADQLOperand ra, final ADQLOperand dec, final ADQLOperand ra0, final ADQLOperand dec0, final ADQLOperand radius, final boolean strict) throws TranslationException{
+		Double constRA0 = getConstantValue(ra0), constDec0 = getConstantValue(dec0), constRadius = getConstantValue(radius);
+		String sqlRA = translateTerm(ra), sqlDec = translateTerm(dec);
+
+		StringBuffer sql = new StringBuffer("(");
+
+		// CASE: Constant center and radius => all bounds can be computed now
+		if (constRA0 != null && constDec0 != null && constRadius != null){
+			double r = Math.min(constRadius, 180), d0 = constDec0;
+			double a0 = (constRA0 < 0 || constRA0 >= 360) ? ((constRA0 % 360) + 360) % 360 : constRA0;
+
+			// Dec band:
+			sql.append(sqlDec).append(" BETWEEN ").append(toSQL(Math.max(d0 - r, -90))).append(" AND ").append(toSQL(Math.min(d0 + r, 90)));
+
+			// RA range (only if no pole is inside the cone):
+			if (d0 - r > -90 && d0 + r < 90){
+				double alpha = Math.toDegrees(Math.asin(Math.sin(Math.toRadians(r)) / Math.cos(Math.toRadians(d0))));
+				double min = a0 - alpha, max = a0 + alpha;
+				sql.append(" AND ");
+				if (min < 0)
+					sql.append('(').append(sqlRA).append(" >= ").append(toSQL(min + 360)).append(" OR ").append(sqlRA).append(" <= ").append(toSQL(max)).append(')');
+				else if (max >= 360)
+					sql.append('(').append(sqlRA).append(" >= ").append(toSQL(min)).append(" OR ").append(sqlRA).append(" <= ").append(toSQL(max - 360)).append(')');
+				else
+					sql.append(sqlRA).append(" BETWEEN ").append(toSQL(min)).append(" AND ").append(toSQL(max));
+			}
+
+			// Exact constraint:
+			double sinR = Math.sin(Math.toRadians(r) / 2);
+			sql.append(" AND ").append(getHaversine(sqlRA, sqlDec, toSQL(a0), toSQL(d0), toSQL(Math.cos(Math.toRadians(d0))))).append(strict ? " < " : " <= ").append(toSQL(sinR * sinR));
+		}
+
+		// OTHERWISE: Only the Dec band can be expressed with a range
+		else{
+			String sqlRA0 = translateTerm(ra0), sqlDec0 = translateTerm(dec0), sqlRadius = translateTerm(radius);
+
+			// Dec band:
+			sql.append(sqlDec).append(" BETWEEN ").append(sqlDec0).append(" - ").append(sqlRadius).append(" AND ").append(sqlDec0).append(" + ").append(sqlRadius);
+
+			// Exact constraint:
+			sql.append(" AND ").append(getHaversine(sqlRA, sqlDec, sqlRA0, sqlDec0, "COS(" + getRadians(sqlDec0) + ")")).append(strict ? " < " : " <= ").append("POWER(SIN(").append(getRadians(sqlRadius)).append(" / 2), 2)");
+		}
+
+		return sql.append(')').toString();
+	}
+
+	/**
+	 * Get the SQL expression computing the angular distance (in degrees)
+	 * between the 2 given positions, with the haversine formula.
+	 *
+	 * <p><i>Note:
+	 * 	A translator of a DBMS without any spherical type may use it in order
+	 * 	to translate {@link DistanceFunction}.
+	 * </i></p>
+	 *
+	 * @param ra1	RA of the first position (in degrees).
+	 * @param dec1	Dec of the first position (in degrees).
+	 * @param ra2	RA of the second position (in degrees).
+	 * @param dec2	Dec of the second position (in degrees).
+	 *
+	 * @return	The corresponding SQL expression.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @since 1.5
+	 */
+	protected String getSphericalDistance(final ADQLOperand ra1, final ADQLOperand dec1, final ADQLOperand ra2, final ADQLOperand dec2) throws TranslationException{
+		String sqlDec2 = translateTerm(dec2);
+		return "DEGREES(2 * ASIN(SQRT(" + getHaversine(translateTerm(ra1), translateTerm(dec1), translateTerm(ra2), sqlDec2, "COS(" + getRadians(sqlDec2) + ")") + ")))";
+	}
+
+	/**
+	 * Get the SQL expression of the haversine of the angular distance between
+	 * the 2 given positions (in degrees).
+	 *
+	 * @param ra		SQL expression of the first RA.
+	 * @param dec		SQL expression of the first Dec.
+	 * @param ra0		SQL expression of the second RA.
+	 * @param dec0		SQL expression of the second Dec.
+	 * @param cosDec0	SQL expression of the cosine of the second Dec.
+	 *
+	 * @return	<code>sin&sup2;((dec-dec0)/2) + cos(dec) cos(dec0) sin&sup2;((ra-ra0)/2)</code>
+	 */
+	private String getHaversine(final String ra, final String dec, final String ra0, final String dec0, final String cosDec0){
+		return "POWER(SIN(" + getRadians(dec + " - " + dec0) + " / 2), 2) + COS(" + getRadians(dec) + ") * " + cosDec0 + " * POWER(SIN(" + getRadians(ra + " - " + ra0) + " / 2), 2)";
+	}
+
+	/**
+	 * Get the SQL expression converting the given angle from degrees into
+	 * radians.
+	 *
+	 * <p>
+	 * 	By default, <code>RADIANS(angle)</code> is returned. A translator must
+	 * 	overwrite this function if, in its DBMS, this function does not
+	 * 	return a floating point value for an integer argument (e.g. MS SQL
+	 * 	Server).
+	 * </p>
+	 *
+	 * @param sqlDegrees	SQL expression of an angle in degrees.
+	 *
+	 * @return	The SQL expression of this angle in radians.
+	 *
+	 * @since 1.5
+	 */
+	protected String getRadians(final String sqlDegrees){
+		return "RADIANS(" + sqlDegrees + ")";
+	}
+
+	/**
+	 * Translate the given operand so that it can be safely used as a term of
+	 * an arithmetic expression (i.e. surrounded by parenthesis if needed).
+	 *
+	 * @param op	The operand to translate.
+	 *
+	 * @return	The SQL translation.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 */
+	private String translateTerm(final ADQLOperand op) throws TranslationException{
+		if (op instanceof ADQLColumn || op instanceof NumericConstant || op instanceof WrappedOperand || op instanceof ADQLFunction)
+			return translate(op);
+		else
+			return "(" + translate(op) + ")";
+	}
+
+	/**
+	 * Format the given number for SQL (negative values between parenthesis).
+	 *
+	 * @param value	The number to format.
+	 *
+	 * @return	The SQL expression of this number.
+	 */
+	private static String toSQL(final double value){
+		return (value < 0) ? "(" + value + ")" : String.valueOf(value);
+	}
+
+	/**
+	 * Tell whether the given operand is the given numeric constant.
+	 *
+	 * @param op	The operand to test.
+	 * @param value	The expected value.
+	 *
+	 * @return	<i>true</i> if the operand is a numeric constant with the given
+	 *        	value, <i>false</i> otherwise.
+	 */
+	private static boolean isConstant(final ADQLOperand op, final double value){
+		Double constant = getConstantValue(op);
+		return (constant != null && constant == value);
+	}
+
+	/**
+	 * Get the value of the given operand if it is a numeric constant
+	 * (possibly negative or between parenthesis).
+	 *
+	 * @param op	The operand to evaluate.
+	 *
+	 * @return	Its numeric value,
+	 *        	or NULL if it is not a numeric constant.
+	 */
+	private static Double getConstantValue(final ADQLOperand op){
+		if (op instanceof NumericConstant){
+			double value = ((NumericConstant)op).getNumericValue();
+			return Double.isNaN(value) ? null : value;
+		}else if (op instanceof NegativeOperand){
+			Double value = getConstantValue(((NegativeOperand)op).getOperand());
+			return (value == null) ? null : -value;
+		}else if (op instanceof WrappedOperand)
+			return getConstantValue(((WrappedOperand)op).getOperand());
+		else
+			return null;
+	}
+
+	/**
+	 * Convert any type provided by a JDBC driver into a type understandable by the ADQL/TAP library.
+	 *
+	 * @param dbmsType			Type returned by a JDBC driver. <i>Note: this value is returned by ResultSetMetadata.getColumnType(int) and correspond to a type of java.sql.Types</i>
+	 * @param rawDbmsTypeName	Full name of the type returned by a JDBC driver. <i>Note: this name is returned by ResultSetMetadata.getColumnTypeName(int) ; this name may contain parameters</i>
+	 * @param dbmsTypeName		Name of type, without the eventual parameters. <i>Note: this name is extracted from rawDbmsTypeName.</i>
+	 * @param typeParams		The eventual type parameters (e.g. char string length). <i>Note: these parameters are extracted from rawDbmsTypeName.</i>
+	 *
+	 * @return	The corresponding ADQL/TAP type or NULL if the specified type is unknown.
+	 */
+	public abstract DBType convertTypeFromDB(final int dbmsType, final String rawDbmsTypeName, final String dbmsTypeName, final String[] typeParams);
+
+	/**
+	 * <p>Convert any type provided by the ADQL/TAP library into a type understandable by a JDBC driver.</p>
+	 *
+	 * <p><i>Note:
+	 * 	The returned DBMS type may contain some parameters between brackets.
+	 * </i></p>
+	 *
+	 * @param type	The ADQL/TAP library's type to convert.
+	 *
+	 * @return	The corresponding DBMS type or NULL if the specified type is unknown.
+	 */
+	public abstract String convertTypeToDB(final DBType type);
+
+	/**
+	 * <p>Parse the given JDBC column value as a geometry object and convert it into a {@link Region}.</p>
+	 *
+	 * <p><i>Note:
+	 * 	Generally the returned object will be used to get its STC-S expression.
+	 * </i></p>
+	 *
+	 * <p><i>Note:
+	 * 	If the given column value is NULL, NULL will be returned.
+	 * </i></p>
+	 *
+	 * <p><i><b>Important note:</b>
+	 * 	This function is called ONLY for value of columns flagged as geometries by
+	 * 	{@link #convertTypeFromDB(int, String, String, String[])}. So the value should always
+	 * 	be of the expected type and format. However, if it turns out that the type is wrong
+	 * 	and that the conversion is finally impossible, this function SHOULD throw a
+	 * 	{@link ParseException}.
+	 * </i></p>
+	 *
+	 * @param jdbcColValue	A JDBC column value (returned by ResultSet.getObject(int)).
+	 *
+	 * @return	The corresponding {@link Region} if the given value is a geometry.
+	 *
+	 * @throws ParseException	If the given object is not a geometrical object
+	 *                       	or can not be transformed into a {@link Region} object.
+	 */
+	public abstract Region translateGeometryFromDB(final Object jdbcColValue) throws ParseException;
+
+	/**
+	 * <p>Parse the given JDBC column value as a geometry object and serialize it directly in STC-S.</p>
+	 *
+	 * <p>
+	 * 	This function is called for each geometry value of a query result. By default, it builds a {@link Region}
+	 * 	with {@link #translateGeometryFromDB(Object)} and returns {@link Region#toSTCS()}. A translator able to
+	 * 	read the DB serialization of a geometry should overwrite it in order to write the STC-S expression
+	 * 	without creating any intermediate {@link Region}, but the result MUST be the same.
+	 * </p>
+	 *
+	 * <p><i>Note:
+	 * 	If the given column value is NULL (or an empty geometry), NULL will be returned.
+	 * </i></p>
+	 *
+	 * @param jdbcColValue	A JDBC column value (returned by ResultSet.getObject(int)).
+	 *
+	 * @return	The corresponding STC-S expression if the given value is a geometry.
+	 *
+	 * @throws ParseException	If the given object is not a geometrical object
+	 *                       	or can not be serialized in STC-S.
+	 *
+	 * @since 1.5
+	 */
+	public String translateGeometryToSTCS(final Object jdbcColValue) throws ParseException{
+		Region region = translateGeometryFromDB(jdbcColValue);
+		return (region == null) ? null : region.toSTCS();
+	}
 
 	/**
 	 * <p>Convert the given STC region into a DB column value.</p>
@@ -5,6 +5,7 @@ import adql.db.DBType.DBDatatype;
 import adql.db.STCS.Region;
 import adql.parser.ParseException;
 import adql.query.IdentifierField;
+import adql.query.constraint.Comparison;
 import adql.query.operand.ADQLOperand;
 import adql.query.operand.Concatenation;
 import adql.query.operand.function.geometry.AreaFunction;
@@ -36,7 +37,7 @@ import adql.query.operand.function.geometry.RegionFunction;
  * You should have received a copy of the GNU Lesser General Public License
  * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2017-2023 - Astronomisches Rechen Institut (ARI),
+ * Copyright 2017-2026 - Astronomisches Rechen Institut (ARI),
  *                       UDS/Centre de Données astronomiques de Strasbourg (CDS)
  */
 
@@ -47,11 +48,15 @@ import adql.query.operand.function.geometry.RegionFunction;
  * <p><i><b>Important</b>:
  * 	The geometrical functions are translated exactly as in ADQL.
  * 	You will probably need to extend this translator to correctly manage the
- * 	geometrical functions.
+ * 	geometrical functions. The only exceptions are DISTANCE between 2 POINTs
+ * 	(computed with the haversine formula) and cone searches
+ * 	(<code>CONTAINS(POINT, CIRCLE) = 1</code> and
+ * 	<code>DISTANCE(POINT, POINT) &lt; r</code>) which are rewritten into
+ * 	RA/Dec range constraints (see {@link #translateConeSearch(Comparison)}).
  * </i></p>
  *
  * @author Gr&eacute;gory Mantelet (ARI;CDS)
- * @version 1.5 (08/2023)
+ * @version 1.5 (10/2026)
  * @since 1.4
  */
 public class MySQLTranslator extends JDBCTranslator {
@@ -124,7 +129,7 @@ public class MySQLTranslator extends JDBCTranslator {
 	@Override
 	public StringBuffer appendIdentifier(final StringBuffer str, final String id, final boolean caseSensitive){
 		/* Note: In MySQL the identifier quoting character is a back-quote. */
-		if (caseSensitive && !id.matches("\"[^\"]*\""))
+		if (caseSensitive && !isDoubleQuoted(id))
 			return str.append('`').append(id).append('`');
 		else
 			return str.append(id);
@@ -270,6 +275,14 @@ public class MySQLTranslator extends JDBCTranslator {
 	/* *                                                                    * */
 	/* ********************************************************************** */
 
+	@Override
+	public String translate(Comparison comp) throws TranslationException{
+		/* Rewrite cone searches into constraints able to use an index on
+		 * RA/Dec columns: */
+		String sql = translateConeSearch(comp);
+		return (sql != null) ? sql : super.translate(comp);
+	}
+
 	@Override
 	public String translate(ExtractCoord extractCoord) throws TranslationException{
 		return getDefaultADQLFunction(extractCoord);
@@ -292,7 +305,12 @@ public class MySQLTranslator extends JDBCTranslator {
 
 	@Override
 	public String translate(DistanceFunction fct) throws TranslationException{
-		return getDefaultADQLFunction(fct);
+		// Compute the distance with the haversine formula if possible:
+		if (fct.getP1().getValue() instanceof PointFunction && fct.getP2().getValue() instanceof PointFunction){
+			PointFunction p1 = (PointFunction)fct.getP1().getValue(), p2 = (PointFunction)fct.getP2().getValue();
+			return getSphericalDistance(p1.getCoord1(), p1.getCoord2(), p2.getCoord1(), p2.getCoord2());
+		}else
+			return getDefaultADQLFunction(fct);
 	}
 
 	@Override
@@ -0,0 +1,119 @@
+package adql.translator;
+
+/*
+ * This file is part of ADQLLibrary.
+ *
+ * ADQLLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ADQLLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+/**
+ * SQL query whose literals have been extracted into positional bind
+ * parameters (<code>?</code>).
+ *
+ * <p>
+ * 	Such query is built by {@link JDBCTranslator#translateWithParameters(adql.query.ADQLQuery)}.
+ * 	It is aimed to be executed with a {@link java.sql.PreparedStatement},
+ * 	so that the DBMS can reuse the plan of all queries differing only by their
+ * 	literals (e.g. the coordinates of a cone search).
+ * </p>
+ *
+ * <p>
+ * 	The same SQL query with all literals inlined is also provided
+ * 	({@link #getExpandedSQL()}), mainly for logging purpose.
+ * </p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 1.5 (10/2026)
+ * @since 1.5
+ */
+public class ParameterizedSQL {
+
+	/** SQL query with <code>?</code> in place of each parameter. */
+	private final String sql;
+
+	/** Same SQL query but with all parameters inlined. */
+	private final String expandedSQL;
+
+	/** Value of each parameter, in the same order as in {@link #sql}. */
+	private final Object[] parameters;
+
+	/**
+	 * Build a parameterized SQL query.
+	 *
+	 * @param sql			SQL query with <code>?</code> in place of each
+	 *           			parameter.
+	 * @param expandedSQL	Same SQL query but with all parameters inlined.
+	 * @param parameters	Value of each parameter, in the same order as in
+	 *                  	the SQL query. <i>May be NULL if no parameter.</i>
+	 *
+	 * @throws NullPointerException	If one of the SQL queries is missing.
+	 */
+	public ParameterizedSQL(final String sql, final String expandedSQL, final Object[] parameters) throws NullPointerException{
+		if (sql == null || expandedSQL == null)
+			throw new NullPointerException("Missing SQL query!");
+		this.sql = sql;
+		this.expandedSQL = expandedSQL;
+		this.parameters = (parameters == null) ? new Object[0] : parameters;
+	}
+
+	/**
+	 * Get the SQL query to prepare.
+	 *
+	 * @return	SQL query with <code>?</code> in place of each parameter.
+	 */
+	public final String getSQL(){
+		return sql;
+	}
+
+	/**
+	 * Get the SQL query with all parameters inlined.
+	 *
+	 * @return	The expanded SQL query.
+	 */
+	public final String getExpandedSQL(){
+		return expandedSQL;
+	}
+
+	/**
+	 * Get the value of all parameters.
+	 *
+	 * <p><i>Note:
+	 * 	Values are either a {@link Long}, a {@link java.math.BigDecimal} or a
+	 * 	{@link String}.
+	 * </i></p>
+	 *
+	 * @return	Value of each parameter, in the same order as in the SQL query.
+	 *        	<i>Never NULL, but may be empty.</i>
+	 */
+	public final Object[] getParameters(){
+		return parameters;
+	}
+
+	/**
+	 * Get the number of parameters.
+	 *
+	 * @return	Number of <code>?</code> in the SQL query.
+	 */
+	public final int getNbParameters(){
+		return parameters.length;
+	}
+
+	@Override
+	public String toString(){
+		return expandedSQL;
+	}
+
+}
@@ -16,7 +16,7 @@ package adql.translator;
  * You should have received a copy of the GNU Lesser General Public License
  * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2012-2017 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -32,6 +32,7 @@ import adql.parser.ParseException;
 import adql.query.TextPosition;
 import adql.query.constraint.Comparison;
 import adql.query.constraint.ComparisonOperator;
+import adql.query.operand.ADQLOperand;
 import adql.query.operand.function.geometry.AreaFunction;
 import adql.query.operand.function.geometry.BoxFunction;
 import adql.query.operand.function.geometry.CentroidFunction;
@@ -52,7 +53,7 @@ import adql.query.operand.function.geometry.PolygonFunction;
  * </p>
  *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 1.4 (07/2017)
+ * @version 1.5 (10/2026)
  */
 public class PgSphereTranslator extends PostgreSQLTranslator {
 
@@ -202,13 +203,38 @@ public class PgSphereTranslator extends PostgreSQLTranslator {
 	@Override
 	public String translate(Comparison comp) throws TranslationException{
 		if ((comp.getLeftOperand() instanceof ContainsFunction || comp.getLeftOperand() instanceof IntersectsFunction) && (comp.getOperator() == ComparisonOperator.EQUAL || comp.getOperator() == ComparisonOperator.NOT_EQUAL) && comp.getRightOperand().isNumeric())
-			return translate(comp.getLeftOperand()) + " " + comp.getOperator().toADQL() + " '" + translate(comp.getRightOperand()) + "'";
+			return translate(comp.getLeftOperand()) + " " + comp.getOperator().toADQL() + " '" + translateInlined(comp.getRightOperand()) + "'";
 		else if ((comp.getRightOperand() instanceof ContainsFunction || comp.getRightOperand() instanceof IntersectsFunction) && (comp.getOperator() == ComparisonOperator.EQUAL || comp.getOperator() == ComparisonOperator.NOT_EQUAL) && comp.getLeftOperand().isNumeric())
-			return "'" + translate(comp.getLeftOperand()) + "' " + comp.getOperator().toADQL() + " " + translate(comp.getRightOperand());
+			return "'" + translateInlined(comp.getLeftOperand()) + "' " + comp.getOperator().toADQL() + " " + translate(comp.getRightOperand());
 		else
 			return super.translate(comp);
 	}
 
+	/**
+	 * Translate the given operand without any bind parameter
+	 * (see {@link #translateWithParameters(adql.query.ADQLQuery)}).
+	 *
+	 * <p><i>Note:
+	 * 	This is needed when the translation is written inside a SQL string.
+	 * </i></p>
+	 *
+	 * @param op	The operand to translate.
+	 *
+	 * @return	Its SQL translation.
+	 *
+	 * @throws TranslationException	If there is an error during the translation.
+	 *
+	 * @since 1.5
+	 */
+	private String translateInlined(final ADQLOperand op) throws TranslationException{
+		final boolean binding = setBinding(false);
+		try{
+			return translate(op);
+		}finally{
+			setBinding(binding);
+		}
+	}
+
 	@Override
 	public DBType convertTypeFromDB(final int dbmsType, final String rawDbmsTypeName, String dbmsTypeName, final String[] params){
 		// If no type is provided return VARCHAR:
@@ -270,6 +296,32 @@ public class PgSphereTranslator extends PostgreSQLTranslator {
 			throw new ParseException("Unsupported PgSphere type: \"" + objType + "\"! Impossible to convert the column value \"" + geomStr + "\" into a Region.");
 	}
 
+	/**
+	 * <p>Serialize directly in STC-S the given pgSphere geometry.</p>
+	 *
+	 * <p>
+	 * 	The pgSphere expression is read only once and the STC-S expression is written while reading it, without
+	 * 	creating any intermediate {@link Region} (see {@link PgSphereGeometryParser#toSTCS(String, String)}).
+	 * 	Only the angles expressed in radians or in degrees (i.e. the output modes <code>RAD</code> and
+	 * 	<code>DEG</code> of pgSphere) are read this way ; all other expressions are converted
+	 * 	with {@link #translateGeometryFromDB(Object)}.
+	 * </p>
+	 *
+	 * @since 1.5
+	 */
+	@Override
+	public String translateGeometryToSTCS(final Object jdbcColValue) throws ParseException{
+		if (jdbcColValue != null && jdbcColValue instanceof PGobject){
+			PGobject pgo = (PGobject)jdbcColValue;
+			if (pgo.getType() != null && pgo.getValue() != null && pgo.getValue().length() > 0){
+				String stcs = (new PgSphereGeometryParser()).toSTCS(pgo.getType(), pgo.getValue());
+				if (stcs != null)
+					return stcs;
+			}
+		}
+		return super.translateGeometryToSTCS(jdbcColValue);
+	}
+
 	@Override
 	public Object translateGeometryToDB(final Region region) throws ParseException{
 		// A NULL value stays NULL:
@@ -382,7 +434,7 @@ public class PgSphereTranslator extends PostgreSQLTranslator {
 	 * </p>
 	 *
 	 * @author Gr&eacute;gory Mantelet (ARI)
-	 * @version 1.3 (11/2014)
+	 * @version 1.5 (10/2026)
 	 * @since 1.3
 	 */
 	protected static class PgSphereGeometryParser {
@@ -677,6 +729,152 @@ public class PgSphereTranslator extends PostgreSQLTranslator {
 			return new Region(null, points.toArray(new double[points.size()][2]));
 		}
 
+		/**
+		 * <p>Serialize directly in STC-S the given pgSphere geometry, while reading it.</p>
+		 *
+		 * <p>
+		 * 	The result is exactly the same as the STC-S serialization of the {@link Region} returned by the
+		 * 	corresponding parseXxx(String) function. But this function only supports angles expressed in radians
+		 * 	or in degrees, as written by pgSphere with the output modes <code>RAD</code> (default) and <code>DEG</code>:
+		 * 	e.g. <code>(0.1745329251994 , 0.3490658503988)</code> or <code>(10d , 20d)</code>.
+		 * </p>
+		 *
+		 * @param pgsphereType	Name of the pgSphere type (spoint, scircle, sbox or spoly).
+		 * @param pgsphereExpr	The pgSphere expression to serialize in STC-S.
+		 *
+		 * @return	The corresponding STC-S expression,
+		 *        	or NULL if the given expression is not supported by this function (or is incorrect).
+		 *        	<i>In this case, the parseXxx(String) functions should be used instead.</i>
+		 *
+		 * @since 1.5
+		 */
+		public String toSTCS(final String pgsphereType, final String pgsphereExpr){
+			expr = pgsphereExpr;
+			pos = 0;
+			StringBuilder stcs = new StringBuilder(pgsphereExpr.length());
+
+			boolean ok;
+			if (pgsphereType.equalsIgnoreCase("spoint"))
+				ok = appendPoint(stcs.append("POSITION "));
+			else if (pgsphereType.equalsIgnoreCase("scircle")){
+				double radius = Double.NaN;
+				ok = nextChar(LESS_THAN) && appendPoint(stcs.append("CIRCLE ")) && nextChar(COMMA) && !Double.isNaN(radius = readAngle()) && nextChar(GREATER_THAN);
+				if (ok)
+					stcs.append(' ').append(radius);
+			}else if (pgsphereType.equalsIgnoreCase("sbox")){
+				double swRa = Double.NaN, swDec = Double.NaN, neRa = Double.NaN, neDec = Double.NaN;
+				ok = nextChar(OPEN_PAR) && nextChar(OPEN_PAR) && !Double.isNaN(swRa = readAngle()) && nextChar(COMMA) && !Double.isNaN(swDec = readAngle()) && nextChar(CLOSE_PAR) && nextChar(COMMA) && nextChar(OPEN_PAR) && !Double.isNaN(neRa = readAngle()) && nextChar(COMMA) && !Double.isNaN(neDec = readAngle()) && nextChar(CLOSE_PAR) && nextChar(CLOSE_PAR);
+				if (ok){
+					// same computation as in parseBox(String):
+					double width = Math.abs(neRa - swRa), height = Math.abs(neDec - swDec);
+					stcs.append("BOX ").append(neRa - width / 2).append(' ').append(neDec - height / 2).append(' ').append(width).append(' ').append(height);
+				}
+			}else if (pgsphereType.equalsIgnoreCase("spoly")){
+				int nbPoints = 1;
+				ok = nextChar(OPEN_BRACE) && appendPoint(stcs.append("POLYGON "));
+				while(ok && nextChar(COMMA)){
+					ok = appendPoint(stcs.append(' '));
+					nbPoints++;
+				}
+				// at least 3 points are expected and the expression must end with a } :
+				ok = ok && nbPoints >= 3 && nextChar(CLOSE_BRACE);
+			}else
+				ok = false;
+
+			// No more character should remain after that:
+			if (ok){
+				skipSpaces();
+				ok = (pos == expr.length());
+			}
+
+			expr = null;
+			return ok ? stcs.toString() : null;
+		}
+
+		/**
+		 * Read a point (with {@link #readAngle()}) and append its coordinates in the given STC-S expression.
+		 *
+		 * @param stcs	The STC-S expression to complete.
+		 *
+		 * @return	<i>true</i> if a point has been read,
+		 *        	<i>false</i> otherwise (i.e. incorrect or unsupported syntax).
+		 *
+		 * @since 1.5
+		 */
+		private boolean appendPoint(final StringBuilder stcs){
+			double ra, dec;
+			if (nextChar(OPEN_PAR) && !Double.isNaN(ra = readAngle()) && nextChar(COMMA) && !Double.isNaN(dec = readAngle()) && nextChar(CLOSE_PAR)){
+				stcs.append(ra).append(' ').append(dec);
+				return true;
+			}else
+				return false;
+		}
+
+		/**
+		 * Skip all space characters and read the next character if it is the expected one.
+		 *
+		 * @param expected	Expected character.
+		 *
+		 * @return	<i>true</i> if the next character is the expected one,
+		 *        	<i>false</i> otherwise (and then, nothing is read).
+		 *
+		 * @since 1.5
+		 */
+		private boolean nextChar(final char expected){
+			skipSpaces();
+			if (pos < expr.length() && expr.charAt(pos) == expected){
+				pos++;
+				return true;
+			}else
+				return false;
+		}
+
+		/**
+		 * <p>Read an angle expressed in radians (<code>{number}</code>) or in degrees (<code>{number}d</code>)
+		 * and return it in <b>degrees</b>.</p>
+		 *
+		 * <p>
+		 * 	The angle must be followed by a separator (',', ')', '&gt;' or '}').
+		 * 	Other syntaxes of angles (DMS and HMS) are not supported here (see {@link #parseAngle()}).
+		 * </p>
+		 *
+		 * @return	The corresponding angle in degrees,
+		 *        	or {@link Double#NaN} if the syntax is wrong or not supported.
+		 *
+		 * @since 1.5
+		 */
+		private double readAngle(){
+			// Read the number:
+			skipSpaces();
+			int start = pos;
+			char c;
+			while(pos < expr.length() && (((c = expr.charAt(pos)) >= '0' && c <= '9') || c == '.' || c == '-' || c == '+' || c == 'e' || c == 'E'))
+				pos++;
+			if (start == pos)
+				return Double.NaN;
+			double degrees;
+			try{
+				degrees = Double.parseDouble(expr.substring(start, pos));
+			}catch(NumberFormatException nfe){
+				return Double.NaN;
+			}
+
+			// Read the unit (same computation as parseAngle()):
+			int sign = (degrees < 0) ? -1 : 1;
+			degrees = Math.abs(degrees);
+			if (nextChar(DEGREE))
+				degrees = degrees * sign;
+			else
+				degrees = degrees * 180 / Math.PI * sign;
+
+			// A separator must follow:
+			skipSpaces();
+			if (pos < expr.length() && ((c = expr.charAt(pos)) == COMMA || c == CLOSE_PAR || c == GREATER_THAN || c == CLOSE_BRACE))
+				return degrees;
+			else
+				return Double.NaN;
+		}
+
 		/**
 		 * <p>Read the next tokens as an angle expression and returns the corresponding angle in <b>degrees</b>.</p>
 		 *
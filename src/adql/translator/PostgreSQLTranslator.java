@@ -16,7 +16,7 @@ package adql.translator;
  * You should have received a copy of the GNU Lesser General Public License
  * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2012-2023 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -64,7 +64,7 @@ import adql.query.operand.function.geometry.RegionFunction;
  * </i></p>
  *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 1.5 (08/2023)
+ * @version 1.5 (10/2026)
  *
  * @see PgSphereTranslator
  */
@@ -156,12 +156,15 @@ public class PostgreSQLTranslator extends JDBCTranslator {
 			case PI:
 				return getDefaultADQLFunction(fct);
 			default:
-				String sql = fct.getName() + "(";
+				StringBuffer sql = new StringBuffer(fct.getName()).append('(');
 
-				for(int i = 0; i < fct.getNbParameters(); i++)
-					sql += ((i == 0) ? "" : ", ") + "CAST(" + translate(fct.getParameter(i)) + " AS numeric)";
+				for(int i = 0; i < fct.getNbParameters(); i++){
+					if (i > 0)
+						sql.append(", ");
+					append(sql.append("CAST("), fct.getParameter(i)).append(" AS numeric)");
+				}
 
-				return sql + ")";
+				return sql.append(')').toString();
 		}
 	}
 
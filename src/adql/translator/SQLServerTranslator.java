@@ -16,7 +16,7 @@ package adql.translator;
  * You should have received a copy of the GNU Lesser General Public License
  * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2017-2023 - Astronomisches Rechen Institut (ARI),
+ * Copyright 2017-2026 - Astronomisches Rechen Institut (ARI),
  *                       UDS/Centre de Données astronomiques de Strasbourg (CDS)
  */
 
@@ -33,6 +33,7 @@ import adql.parser.SQLServer_ADQLQueryFactory;
 import adql.query.ADQLQuery;
 import adql.query.ClauseSelect;
 import adql.query.IdentifierField;
+import adql.query.constraint.Comparison;
 import adql.query.from.ADQLJoin;
 import adql.query.from.ADQLTable;
 import adql.query.from.FromContent;
@@ -73,11 +74,15 @@ import adql.query.operand.function.geometry.RegionFunction;
  *
  * <p><i><b>Important note:</b>
  * 	Geometrical functions are not translated ; the translation returned for them
- * 	is their ADQL expression.
+ * 	is their ADQL expression. The only exceptions are DISTANCE between 2 POINTs
+ * 	(computed with the haversine formula) and cone searches
+ * 	(<code>CONTAINS(POINT, CIRCLE) = 1</code> and
+ * 	<code>DISTANCE(POINT, POINT) &lt; r</code>) which are rewritten into
+ * 	RA/Dec range constraints (see {@link #translateConeSearch(Comparison)}).
  * </i></p>
  *
  * @author Gr&eacute;gory Mantelet (ARI;CDS)
- * @version 1.5 (03/2023)
+ * @version 1.5 (10/2026)
  * @since 1.4
  *
  * @see SQLServer_ADQLQueryFactory
@@ -132,44 +137,46 @@ public class SQLServerTranslator extends JDBCTranslator {
 	}
 
 	/**
-	 * For SQL Server, {@link #translate(ClauseSelect)} must be overridden for
-	 * TOP/LIMIT handling. We must not add the LIMIT at the end of the query, it
-	 * must go in the SELECT.
+	 * For SQL Server, {@link #appendSelect(StringBuffer, ClauseSelect)} must be
+	 * overridden for TOP/LIMIT handling. We must not add the LIMIT at the end
+	 * of the query, it must go in the SELECT.
 	 *
-	 * @see #translate(ClauseSelect)
+	 * @see #appendSelect(StringBuffer, ClauseSelect)
 	 */
 	@Override
-	public String translate(ADQLQuery query) throws TranslationException{
-		StringBuffer sql = new StringBuffer(translate(query.getSelect()));
+	protected StringBuffer appendQuery(final StringBuffer sql, final ADQLQuery query) throws TranslationException{
+		append(sql, query.getSelect());
 
 		sql.append("\nFROM ").append(translate(query.getFrom()));
 
 		if (!query.getWhere().isEmpty())
-			sql.append('\n').append(translate(query.getWhere()));
+			append(sql.append('\n'), query.getWhere());
 
 		if (!query.getGroupBy().isEmpty())
-			sql.append('\n').append(translate(query.getGroupBy()));
+			append(sql.append('\n'), query.getGroupBy());
 
 		if (!query.getHaving().isEmpty())
-			sql.append('\n').append(translate(query.getHaving()));
+			append(sql.append('\n'), query.getHaving());
 
 		if (!query.getOrderBy().isEmpty())
-			sql.append('\n').append(translate(query.getOrderBy()));
+			append(sql.append('\n'), query.getOrderBy());
 
-		return sql.toString();
+		return sql;
 	}
 
 	@Override
-	public String translate(ClauseSelect clause) throws TranslationException{
-		String sql = null;
-
+	protected StringBuffer appendSelect(final StringBuffer sql, final ClauseSelect clause) throws TranslationException{
 		for(int i = 0; i < clause.size(); i++){
 			if (i == 0){
-				sql = clause.getName() + (clause.distinctColumns() ? " DISTINCT" : "") + (clause.hasLimit() ? " TOP " + clause.getLimit() + " " : "");
+				sql.append(clause.getName());
+				if (clause.distinctColumns())
+					sql.append(" DISTINCT");
+				if (clause.hasLimit())
+					sql.append(" TOP ").append(clause.getLimit()).append(' ');
 			}else
-				sql += " " + clause.getSeparator(i);
+				sql.append(' ').append(clause.getSeparator(i));
 
-			sql += " " + translate(clause.get(i));
+			sql.append(' ').append(translate(clause.get(i)));
 		}
 
 		return sql;
@@ -290,6 +297,24 @@ public class SQLServerTranslator extends JDBCTranslator {
 		return newCol;
 	}
 
+	@Override
+	public String translate(final Comparison comp) throws TranslationException{
+		/* Rewrite cone searches into constraints able to use an index on
+		 * RA/Dec columns: */
+		String sql = translateConeSearch(comp);
+		return (sql != null) ? sql : super.translate(comp);
+	}
+
+	/**
+	 * In MS SQL Server, RADIANS(...) returns a value of the same type as its
+	 * argument (e.g. <code>RADIANS(1) = 0</code>). So, the angle is first
+	 * converted into a float.
+	 */
+	@Override
+	protected String getRadians(final String sqlDegrees){
+		return "radians(convert(float, " + sqlDegrees + "))";
+	}
+
 	@Override
 	public String translate(final ExtractCoord extractCoord) throws TranslationException{
 		return getDefaultADQLFunction(extractCoord);
@@ -312,7 +337,12 @@ public class SQLServerTranslator extends JDBCTranslator {
 
 	@Override
 	public String translate(final DistanceFunction fct) throws TranslationException{
-		return getDefaultADQLFunction(fct);
+		// Compute the distance with the haversine formula if possible:
+		if (fct.getP1().getValue() instanceof PointFunction && fct.getP2().getValue() instanceof PointFunction){
+			PointFunction p1 = (PointFunction)fct.getP1().getValue(), p2 = (PointFunction)fct.getP2().getValue();
+			return getSphericalDistance(p1.getCoord1(), p1.getCoord2(), p2.getCoord1(), p2.getCoord2());
+		}else
+			return getDefaultADQLFunction(fct);
 	}
 
 	@Override
@@ -16,12 +16,17 @@ package tap;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2012-2019 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.http.HttpServletResponse;
 
@@ -29,15 +34,25 @@ import adql.parser.ADQLParser;
 import adql.parser.ADQLQueryFactory;
 import adql.parser.ParseException;
 import adql.query.ADQLQuery;
+import tap.cache.ParsedQueryCache;
+import tap.cache.ResultCache;
 import tap.data.DataReadException;
+import tap.data.MergedTableIterator;
+import tap.data.SpooledTableIterator;
 import tap.data.TableIterator;
 import tap.db.DBCancelledException;
+import tap.db.DBTimeoutException;
 import tap.db.DBConnection;
 import tap.db.DBException;
+import tap.db.JDBCConnection;
+import tap.db.QueryCost;
 import tap.formatter.OutputFormat;
 import tap.log.TAPLog;
+import tap.metadata.TAPMetadata;
 import tap.metadata.TAPSchema;
 import tap.metadata.TAPTable;
+import tap.metrics.CountingOutputStream;
+import tap.metrics.TAPMetrics;
 import tap.parameters.DALIUpload;
 import tap.parameters.TAPParameters;
 import tap.upload.Uploader;
@@ -105,7 +120,7 @@ import uws.service.log.UWSLog.LogLevel;
  * </p>
  *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.4 (10/2020)
+ * @version 2.4 (10/2026)
  */
 public class ADQLExecutor {
 
@@ -131,11 +146,55 @@ public class ADQLExecutor {
 	/** Connection to the "database".
 	 * <i>Note: This attribute is NULL before and after the query processing (= call of a start(...) function).</i> */
 	protected DBConnection dbConn = null;
+	/** Additional connections to the "database", used to execute a partitioned query in parallel
+	 * (see {@link #executePartitioned(ADQLQuery)}).
+	 * <i>Note: This attribute is NULL if the query is not executed in parallel.</i>
+	 * @since 2.4 */
+	protected DBConnection[] partitionConns = null;
+	/** Threads (and their connections) executing the partitions of the current query in parallel
+	 * (see {@link #executePartitioned(ADQLQuery)}).
+	 * <i>Note: This attribute is NULL if the query is not executed in parallel.</i>
+	 * @since 2.4 */
+	private volatile PartitionWorkers partitionWorkers = null;
 	/** ID of the current query processing step (uploading, parsing, execution, writing result, ...).
 	 * <i>Note: This attribute is NULL before and after the query processing (= call of a start(...) function).</i> */
 	protected ExecutionProgression progression = null;
 	/** Date/Time at which the current query processing step has started. */
 	protected long startStep = -1;
+	/** Date/Time (in milliseconds) at which the whole execution must be stopped.
+	 * The remaining time is given to the database as query timeout (see {@link DBConnection#setQueryTimeout(int)}).
+	 * <i>Note: If negative or null, the execution duration is not limited.</i>
+	 * @since 2.4 */
+	protected long executionDeadline = -1;
+
+	/** Result of the query found in the result cache.
+	 * <i>Note: This attribute is NULL if there is no result cache or if the result is not in it.</i>
+	 * @since 2.4 */
+	private ResultCache.CachedResult cachedResult = null;
+	/** Key of the query result in the result cache.
+	 * <i>Note: This attribute is NULL if the result must not be cached.</i>
+	 * @since 2.4 */
+	private String resultCacheKey = null;
+	/** Indicate whether this execution leads the computation of its result
+	 * for identical concurrent queries (see {@link ResultCache#lead(String)}).
+	 * @since 2.4 */
+	private boolean leadingResult = false;
+	/** Statistics in which this execution must be recorded.
+	 * <i>NULL if no statistic must be recorded.</i>
+	 * @since 2.4 */
+	private final TAPMetrics metrics;
+	/** Value of {@link System#nanoTime()} when the current step has started.
+	 * @since 2.4 */
+	private long startStepNano = -1;
+	/** Time (in milliseconds) spent to get the database connection.
+	 * <i>-1 if no connection has been got yet.</i>
+	 * @since 2.4 */
+	private long connectionWaitTime = -1;
+
+	/** The query whose the result must be cached.
+	 * <i>Note: This attribute is NULL if the result must not be cached.</i>
+	 * @since 2.4 */
+	private ADQLQuery cacheableQuery = null;
 
 	/**
 	 * Build an {@link ADQLExecutor}.
@@ -145,6 +204,7 @@ public class ADQLExecutor {
 	public ADQLExecutor(final ServiceConnection service) {
 		this.service = service;
 		this.logger = service.getLogger();
+		this.metrics = service.getMetrics();
 	}
 
 	/**
@@ -221,6 +281,8 @@ public class ADQLExecutor {
 		this.tapParams = tapJob.getTapParams();
 		this.report = new TAPExecutionReport(tapJob.getJobId(), false, tapParams);
 		this.response = null;
+		if (tapJob.getExecutionDuration() > 0 && tapJob.getStartTime() != null)
+			this.executionDeadline = tapJob.getStartTime().getTime() + tapJob.getExecutionDuration() * 1000;
 
 		try {
 			return start();
@@ -257,19 +319,97 @@ public class ADQLExecutor {
 	 * @since 2.0
 	 */
 	public final void initDBConnection(final String jobID) throws TAPException {
-		if (dbConn == null)
+		if (dbConn == null) {
+			final long start = System.nanoTime();
 			dbConn = service.getFactory().getConnection(jobID);
+			connectionWaitTime = (System.nanoTime() - start) / 1000000;
+			if (metrics != null)
+				metrics.recordConnection((System.nanoTime() - start) / 1000);
+		}
 	}
 
 	/**
 	 * Cancel the current SQL query execution or result set fetching if any is currently running.
 	 * If no such process is on going, this function has no effect.
 	 *
+	 * <p><i>Note:
+	 * 	Whatever is the current step, the threads executing partitions of the query
+	 * 	(see {@link #executePartitioned(ADQLQuery)}) are interrupted and their connections canceled.
+	 * </i></p>
+	 *
+	 * <p><i>Note:
+	 * 	The database connection is also canceled while writing the result, because the rows may still be
+	 * 	produced by the database at this step (e.g. binary COPY, see {@link tap.data.PgCopyTableIterator}).
+	 * </i></p>
+	 *
 	 * @since 2.1
 	 */
 	public final void cancelQuery() {
-		if (dbConn != null && (progression == ExecutionProgression.EXECUTING_ADQL || progression == ExecutionProgression.UPLOADING))
+		if (dbConn != null && (progression == ExecutionProgression.EXECUTING_ADQL || progression == ExecutionProgression.UPLOADING || progression == ExecutionProgression.SPOOLING_RESULT || progression == ExecutionProgression.WRITING_RESULT))
 			dbConn.cancel(true);
+		final PartitionWorkers workers = partitionWorkers;
+		if (workers != null)
+			workers.cancel();
+	}
+
+	/**
+	 * Estimate the cost of the query of the given job, before its execution.
+	 *
+	 * <p>
+	 * 	This estimation is used to order the queue of asynchronous jobs by cost
+	 * 	(see {@link QueryLimits#isQueueOrderedByCost()}). So, nothing is done
+	 * 	if the service does not ask it.
+	 * </p>
+	 *
+	 * <p>
+	 * 	The query is parsed (and so put in the parsed query cache, if any) and
+	 * 	its cost is estimated with {@link DBConnection#estimateCost(ADQLQuery)}.
+	 * 	The database connection used for that is freed just after.
+	 * </p>
+	 *
+	 * <p><i>Note:
+	 * 	The job must not have any table to upload: they would not be known by
+	 * 	the query checker and by the database.
+	 * </i></p>
+	 *
+	 * @param job	The job whose the query cost must be estimated.
+	 *
+	 * @return	The estimated cost,
+	 *        	or NULL if the queue is not ordered by cost, if the query can not
+	 *        	be parsed or if the database can not estimate it.
+	 *
+	 * @throws TAPException	If this executor has already been executed,
+	 *                     	or if the database connection or the estimation
+	 *                     	fails.
+	 *
+	 * @since 2.4
+	 */
+	public final QueryCost estimateCost(final TAPJob job) throws TAPException {
+		if (this.thread != null || this.report != null)
+			throw new TAPException("This ADQLExecutor has already been executed!");
+		else if (service.getQueryLimits() == null || !service.getQueryLimits().isQueueOrderedByCost())
+			return null;
+
+		this.tapParams = job.getTapParams();
+		this.report = new TAPExecutionReport(job.getJobId(), false, tapParams);
+		try {
+			ADQLQuery query = parseADQL();
+			initDBConnection(report.jobID);
+			return dbConn.estimateCost(query);
+		} catch(ParseException pe) {
+			// the error will be reported by the job execution
+			return null;
+		} catch(InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			return null;
+		} finally {
+			if (dbConn != null) {
+				service.getFactory().freeConnection(dbConn);
+				dbConn = null;
+			}
+			this.report = null;
+			this.tapParams = null;
+		}
 	}
 
 	/**
@@ -314,7 +454,8 @@ public class ADQLExecutor {
 	 * 	<li>{@link TAPFactory#getConnection(String)}</li>
 	 * 	<li>{@link #uploadTables()}</li>
 	 * 	<li>{@link #parseADQL()}</li>
-	 * 	<li>{@link #executeADQL(ADQLQuery)}</li>
+	 * 	<li>{@link ResultCache#get(String)} <i>(only if there is a result cache ; see {@link ServiceConnection#getResultCache()})</i></li>
+	 * 	<li>{@link #executeADQL(ADQLQuery)} <i>(only if the result is not in cache)</i></li>
 	 * 	<li>{@link #writeResult(TableIterator)}</li>
 	 * 	<li>{@link #dropUploadedTables()}</li>
 	 * 	<li>{@link TAPFactory#freeConnection(DBConnection)}</li>
@@ -344,12 +485,14 @@ public class ADQLExecutor {
 
 		TableIterator queryResult = null;
 
-		try {
-			// Get a "database" connection:
-			initDBConnection(report.jobID);
+		if (metrics != null)
+			metrics.executionStarted(report.synchronous);
 
+		try {
 			// 1. UPLOAD TABLES, if there is any:
 			if (tapParams.getUploadedTables() != null && tapParams.getUploadedTables().length > 0) {
+				// Get a "database" connection:
+				initDBConnection(report.jobID);
 				startStep(ExecutionProgression.UPLOADING);
 				uploadTables();
 				endStep();
@@ -370,6 +513,9 @@ public class ADQLExecutor {
 				else
 					throw new UWSException(UWSException.BAD_REQUEST, pe, "Incorrect ADQL query: " + pe.getMessage());
 			}
+			// Check the complexity of the query, if limited:
+			if (service.getQueryLimits() != null)
+				service.getQueryLimits().check(adqlQuery);
 			// List all resulting columns (it will be useful later to format the result):
 			report.resultingColumns = adqlQuery.getResultingColumns();
 			endStep();
@@ -377,17 +523,35 @@ public class ADQLExecutor {
 			if (thread.isInterrupted())
 				throw new InterruptedException();
 
-			// 3. EXECUTE THE ADQL QUERY:
-			startStep(ExecutionProgression.EXECUTING_ADQL);
-			queryResult = executeADQL(adqlQuery);
-			endStep();
+			// 3. LOOK FOR THE RESULT IN CACHE, if any:
+			cachedResult = getCachedResult(adqlQuery);
 
-			if (queryResult == null || thread.isInterrupted())
-				/* Note: 'queryResult == null' is for former version of the library
-				 *       ; now, a DBCancelledException should be thrown instead */
-				throw new InterruptedException();
+			// 4. EXECUTE THE ADQL QUERY (only if not already in cache):
+			if (cachedResult == null) {
+				// Get a "database" connection:
+				initDBConnection(report.jobID);
+
+				startStep(ExecutionProgression.EXECUTING_ADQL);
+				queryResult = executeADQL(adqlQuery);
+				endStep();
 
-			// 4. WRITE RESULT:
+				if (queryResult == null || thread.isInterrupted())
+					/* Note: 'queryResult == null' is for former version of the library
+					 *       ; now, a DBCancelledException should be thrown instead */
+					throw new InterruptedException();
+
+				// Spool the result and free the connection, if required:
+				if (mustSpoolResult()) {
+					startStep(ExecutionProgression.SPOOLING_RESULT);
+					queryResult = spoolResult(queryResult);
+					endStep();
+
+					if (thread.isInterrupted())
+						throw new InterruptedException();
+				}
+			}
+
+			// 5. WRITE RESULT:
 			startStep(ExecutionProgression.WRITING_RESULT);
 			writeResult(queryResult);
 			endStep();
@@ -404,9 +568,30 @@ public class ADQLExecutor {
 
 			return report;
 
+		} catch(DBTimeoutException dte) {
+			// The database stopped the query because of the execution duration:
+			if (report.synchronous)
+				throw new TAPException("Time out! The execution of this synchronous TAP query was stopped by the database after " + dte.getTimeout() + " seconds. You should try again but in asynchronous mode.", UWSException.ACCEPTED_BUT_NOT_COMPLETE);
+			else
+				throw new InterruptedException();
 		} catch(DBCancelledException dce) {
 			throw new InterruptedException();
 		} finally {
+			// Wake up the executions of identical queries waiting for this result, if any:
+			if (leadingResult) {
+				service.getResultCache().land(resultCacheKey);
+				leadingResult = false;
+			}
+
+			// Close the cached result if any:
+			if (cachedResult != null) {
+				try {
+					cachedResult.input.close();
+				} catch(IOException ioe) {
+					logger.logTAP(LogLevel.WARNING, report, "END_EXEC", "Can not close the cached query result!", ioe);
+				}
+			}
+
 			// Close the result if any:
 			if (queryResult != null) {
 				try {
@@ -428,6 +613,10 @@ public class ADQLExecutor {
 				service.getFactory().freeConnection(dbConn);
 				dbConn = null;
 			}
+			freePartitionConnections();
+
+			if (metrics != null)
+				metrics.executionEnded(report);
 		}
 	}
 
@@ -451,6 +640,7 @@ public class ADQLExecutor {
 	private void startStep(final ExecutionProgression progression) {
 		// Save the start time (for report usage):
 		startStep = System.currentTimeMillis();
+		startStepNano = System.nanoTime();
 		// Memorize the current step:
 		this.progression = progression;
 		// Update the job parameter "progression", to notify the user about the progression of the query processing:
@@ -480,6 +670,8 @@ public class ADQLExecutor {
 		if (progression != null) {
 			// Set the duration of this step in the execution report:
 			report.setDuration(progression, System.currentTimeMillis() - startStep);
+			if (metrics != null)
+				metrics.recordStage(progression, (System.nanoTime() - startStepNano) / 1000);
 			// No start time:
 			startStep = -1;
 			// No step for the moment:
@@ -504,7 +696,11 @@ public class ADQLExecutor {
 		// Upload them, if needed:
 		if (tables.length > 0) {
 			logger.logTAP(LogLevel.INFO, report, "UPLOADING", "Loading uploaded tables (" + tables.length + ")", null);
-			uploadSchema = service.getFactory().createUploader(dbConn).upload(tables);
+			final long start = System.nanoTime();
+			Uploader uploader = service.getFactory().createUploader(dbConn);
+			uploadSchema = uploader.upload(tables);
+			if (metrics != null)
+				metrics.recordUpload(uploader.getNbRows(), (System.nanoTime() - start) / 1000);
 		}
 	}
 
@@ -525,6 +721,13 @@ public class ADQLExecutor {
 	 * 	The "+1" aims to detect overflows.
 	 * </p>
 	 *
+	 * <p>
+	 * 	If the TAP service has a parsed query cache (see {@link ServiceConnection#getParsedQueryCache()}) and if no table has been
+	 * 	uploaded, the result of the parsing (checked query or error, after a quick fix if any) is searched first in this cache and,
+	 * 	if not found, added in it. In both cases, a copy of the cached query is returned, so that the row limit set here does not
+	 * 	affect the other jobs.
+	 * </p>
+	 *
 	 * @return	The object representation of the ADQL query.
 	 *
 	 * @throws ParseException			If the given ADQL query can not be parsed or if the construction of the object representation has failed.
@@ -535,6 +738,64 @@ public class ADQLExecutor {
 		// Log the start of the parsing:
 		logger.logTAP(LogLevel.INFO, report, "PARSING", "Parsing ADQL: " + tapParams.getQuery().replaceAll("(\t|\r?\n)+", " "), null);
 
+		// Search the query in the parsed query cache (only if no table has been uploaded):
+		final ParsedQueryCache cache = (uploadSchema == null) ? service.getParsedQueryCache() : null;
+		final String cacheContext = (cache == null) ? null : getParsedQueryContext();
+		ParsedQueryCache.ParsedQuery cachedQuery = (cache == null) ? null : cache.get(tapParams.getQuery(), cacheContext);
+
+		ADQLQuery query = null;
+		// if found, just copy it:
+		if (cachedQuery != null) {
+			logger.logTAP(LogLevel.INFO, report, "PARSING", "Parsed query found in cache (hits: " + cache.getNbHits() + " ; misses: " + cache.getNbMisses() + ")!", null);
+			if (cachedQuery.getFixedQuery() != null) {
+				logger.logTAP(LogLevel.INFO, report, "PARSING", "Auto-fixed query: " + cachedQuery.getFixedQuery().replaceAll("(\t|\r?\n)+", " "), null);
+				report.fixedQuery = cachedQuery.getFixedQuery();
+			}
+			query = cachedQuery.getQuery();
+		}
+		// otherwise, parse it (and put the result in cache):
+		else {
+			try {
+				query = parseADQL(tapParams.getQuery());
+			} catch(ParseException pe) {
+				if (cache != null)
+					cache.putError(tapParams.getQuery(), cacheContext, pe, report.fixedQuery);
+				throw pe;
+			}
+			// the cached query must not be modified => use a copy for this job:
+			if (cache != null)
+				query = cache.put(tapParams.getQuery(), cacheContext, query, report.fixedQuery).getQuery();
+		}
+
+		// Set or check the row limit:
+		final int limit = query.getSelect().getLimit();
+		final Integer maxRec = tapParams.getMaxRec();
+		if (maxRec != null && maxRec > -1) {
+			if (limit <= -1 || limit > maxRec)
+				query.getSelect().setLimit(maxRec + 1);
+		}
+
+		return query;
+	}
+
+	/**
+	 * Parse and check the given ADQL query.
+	 *
+	 * <p>
+	 * 	If the parsing fails and if the fixOnFail option is enabled (see {@link ServiceConnection#fixOnFailEnabled()}),
+	 * 	the query is fixed (see {@link ADQLParser#tryQuickFix(String)}), kept in the execution report and parsed again.
+	 * </p>
+	 *
+	 * @param adql	The ADQL query to parse.
+	 *
+	 * @return	The object representation of the ADQL query.
+	 *
+	 * @throws ParseException	If the given ADQL query can not be parsed or if the construction of the object representation has failed.
+	 * @throws TAPException		If the TAP factory is unable to create the ADQL factory or the query checker.
+	 *
+	 * @since 2.4
+	 */
+	private ADQLQuery parseADQL(final String adql) throws ParseException, TAPException {
 		// Create the ADQL parser:
 		ADQLParser parser = service.getFactory().createADQLParser();
 		if (parser == null) {
@@ -550,41 +811,104 @@ public class ADQLExecutor {
 		if (parser.getQueryChecker() == null)
 			parser.setQueryChecker(service.getFactory().createQueryChecker(uploadSchema));
 
-		// Parse the ADQL query:
-		ADQLQuery query = null;
 		// if the fixOnFail option is enabled...
 		if (service.fixOnFailEnabled()) {
 			try {
 				// try parsing the query:
-				query = parser.parseQuery(tapParams.getQuery());
+				return parser.parseQuery(adql);
 			} catch(ParseException pe) {
 				// if it fails...
 				// ...log the auto fix attempt:
 				logger.logTAP(LogLevel.INFO, report, "PARSING", "Parse attempt of the original input query failed! Trying auto-fix...", null);
 				// ...try fixing the query:
-				String fixedQuery = parser.tryQuickFix(tapParams.getQuery());
+				String fixedQuery = parser.tryQuickFix(adql);
 				// ...log the auto fixed query, if successful:
 				logger.logTAP(LogLevel.INFO, report, "PARSING", "Auto-fixed query: " + fixedQuery.replaceAll("(\t|\r?\n)+", " "), null);
 				// ...keep this fixed query in the exec report:
 				report.fixedQuery = fixedQuery;
 				// ...and finally try parsing it a last time:
-				query = parser.parseQuery(fixedQuery);
+				return parser.parseQuery(fixedQuery);
 			}
 		}
 		// if not enabled, parse immediately the query:
-		else {
-			query = parser.parseQuery(tapParams.getQuery());
-		}
+		else
+			return parser.parseQuery(adql);
+	}
 
-		// Set or check the row limit:
-		final int limit = query.getSelect().getLimit();
-		final Integer maxRec = tapParams.getMaxRec();
-		if (maxRec != null && maxRec > -1) {
-			if (limit <= -1 || limit > maxRec)
-				query.getSelect().setLimit(maxRec + 1);
-		}
+	/**
+	 * Identify everything, except the query text, the parsing depends on.
+	 * It is used to identify a query in the parsed query cache
+	 * (see {@link ServiceConnection#getParsedQueryCache()}).
+	 *
+	 * <p>
+	 * 	By default, it is made of the fixOnFail option, the version of the TAP metadata (see {@link TAPMetadata#getVersion()})
+	 * 	and the class of the TAP factory. Thus, a query parsed before any change of the TAP metadata is parsed again.
+	 * 	This function should be overwritten if the ADQL parser or the query checker depends on anything else.
+	 * </p>
+	 *
+	 * @return	The parsing context.
+	 *
+	 * @since 2.4
+	 */
+	protected String getParsedQueryContext() {
+		return "fixOnFail=" + service.fixOnFailEnabled() + ";metadata=" + ((service.getTAPMetadata() == null) ? "none" : service.getTAPMetadata().getVersion()) + ";factory=" + service.getFactory().getClass().getName();
+	}
 
-		return query;
+	/**
+	 * <p>Get the result of the given query from the result cache.</p>
+	 *
+	 * <p>
+	 * 	Nothing is searched if there is no result cache (see {@link ServiceConnection#getResultCache()}),
+	 * 	if some tables have been uploaded or if the query is not cacheable (see {@link ResultCache#isCacheable(ADQLQuery)}).
+	 * 	Otherwise, if the result is not in cache, it will be added to the cache while being written.
+	 * </p>
+	 *
+	 * <p>
+	 * 	If the coalescing of identical queries is enabled (see {@link ResultCache#setCoalescing(boolean)}) and
+	 * 	the same query is currently executed by another job, this function waits for the end of this other
+	 * 	execution and returns its result, so that the query is executed only once in the database.
+	 * </p>
+	 *
+	 * @param adql	The object representation of the ADQL query.
+	 *
+	 * @return	The cached result,
+	 *        	or NULL if not found.
+	 *
+	 * @throws TAPException			If no result formatter can be found.
+	 * @throws InterruptedException	If the thread has been interrupted while waiting for the result of an identical query.
+	 *
+	 * @since 2.4
+	 */
+	private ResultCache.CachedResult getCachedResult(final ADQLQuery adql) throws TAPException, InterruptedException {
+		final ResultCache cache = service.getResultCache();
+		if (cache == null || uploadSchema != null || !cache.isCacheable(adql))
+			return null;
+
+		// Identify the result (by the normalized query, the output format and MAXREC):
+		OutputFormat formatter = getFormatter();
+		resultCacheKey = cache.getKey(adql, formatter.getMimeType() + " " + formatter.getShortMimeType() + " " + System.identityHashCode(formatter), tapParams.getMaxRec());
+		cacheableQuery = adql;
+		// (the result may be served to other jobs => nothing specific to this job must be written)
+		report.sharedQuery = adql.toADQL();
+
+		// Search it in the cache...
+		ResultCache.CachedResult result;
+		if (cache.lead(resultCacheKey)) {
+			leadingResult = cache.isCoalescing();
+			result = cache.get(resultCacheKey);
+		}
+		// ...or wait for an identical query being executed:
+		else {
+			if (cache.isInFlight(resultCacheKey))
+				logger.logTAP(LogLevel.INFO, report, "RESULT_CACHE", "The same query is already being executed. Waiting for its result...", null);
+			// (no longer than the remaining execution duration of this job:)
+			result = cache.await(resultCacheKey, (executionDeadline > 0) ? Math.max(1, executionDeadline - System.currentTimeMillis()) : 0);
+			if (result == null)
+				logger.logTAP(LogLevel.INFO, report, "RESULT_CACHE", "The result of the identical query could not be cached. The query will be executed in the database.", null);
+		}
+		if (result != null)
+			logger.logTAP(LogLevel.INFO, report, "RESULT_CACHE", "Query result found in cache (" + result.size + " bytes ; hits: " + cache.getNbHits() + " ; misses: " + cache.getNbMisses() + ")! The query will not be executed in the database.", null);
+		return result;
 	}
 
 	/**
@@ -592,6 +916,12 @@ public class ADQLExecutor {
 	 *
 	 * <p>By default, this function is just calling {@link DBConnection#executeQuery(ADQLQuery)} and then it returns the value returned by this call.</p>
 	 *
+	 * <p>
+	 * 	If the service limits the estimated cost of queries (see {@link QueryLimits#isCostChecked(boolean)}),
+	 * 	this cost is first estimated with {@link DBConnection#estimateCost(ADQLQuery)}. A too expensive query is
+	 * 	then rejected without being executed.
+	 * </p>
+	 *
 	 * <p><i>Note:
 	 * 	An INFO message is logged at the end of the query execution in order to report the result status (success or error)
 	 * 	and the execution duration.
@@ -603,7 +933,8 @@ public class ADQLExecutor {
 	 *
 	 * @throws InterruptedException	If the thread has been interrupted.
 	 * @throws DBCancelledException	If the inner DB connection has been canceled.
-	 * @throws TAPException			If the {@link DBConnection} has failed to deal with the given ADQL query.
+	 * @throws TAPException			If the {@link DBConnection} has failed to deal with the given ADQL query,
+	 *                     			or if the query is too expensive.
 	 *
 	 * @see DBConnection#executeQuery(ADQLQuery)
 	 */
@@ -612,16 +943,26 @@ public class ADQLExecutor {
 		logger.logTAP(LogLevel.INFO, report, "START_DB_EXECUTION", "ADQL query: " + adql.toADQL().replaceAll("(\t|\r?\n)+", " "), null);
 
 		// Set the fetch size, if any:
-		if (service.getFetchSize() != null && service.getFetchSize().length >= 1) {
-			if (report.synchronous && service.getFetchSize().length >= 2)
-				dbConn.setFetchSize(service.getFetchSize()[1]);
-			else
-				dbConn.setFetchSize(service.getFetchSize()[0]);
+		initFetchSize(dbConn);
+
+		// Limit the execution duration in the database, if needed:
+		initQueryTimeout(dbConn);
+
+		// Reject the query if its estimated cost is too high, if limited:
+		QueryLimits limits = service.getQueryLimits();
+		if (limits != null && limits.isCostChecked(report.synchronous)) {
+			QueryCost cost = dbConn.estimateCost(adql);
+			if (cost != null) {
+				logger.logTAP(LogLevel.INFO, report, "ESTIMATED_COST", "Estimated query cost: " + cost, null);
+				limits.check(cost);
+			}
 		}
 
 		try {
-			// Execute the ADQL query:
-			TableIterator result = dbConn.executeQuery(adql);
+			// Execute the ADQL query (in parallel on all partitions, if possible):
+			TableIterator result = executePartitioned(adql);
+			if (result == null)
+				result = dbConn.executeQuery(adql);
 
 			// If NULL, in a former version of the library, it means the query execution has been aborted:
 			if (result == null)
@@ -637,6 +978,489 @@ public class ADQLExecutor {
 		}
 	}
 
+	/**
+	 * Set the fetch size of the given connection, if any is set by the service
+	 * (see {@link ServiceConnection#getFetchSize()}).
+	 *
+	 * @param conn	The connection to configure.
+	 *
+	 * @since 2.4
+	 */
+	private void initFetchSize(final DBConnection conn) {
+		if (service.getFetchSize() != null && service.getFetchSize().length >= 1) {
+			if (report.synchronous && service.getFetchSize().length >= 2)
+				conn.setFetchSize(service.getFetchSize()[1]);
+			else
+				conn.setFetchSize(service.getFetchSize()[0]);
+		}
+	}
+
+	/**
+	 * Set the query timeout of the given connection to the time remaining
+	 * before the end of the execution duration (see {@link #setExecutionDeadline(long)}).
+	 *
+	 * <p><i>Note:
+	 * 	If this deadline is already reached, the timeout is set to 1 second
+	 * 	(the smallest possible timeout) ; the job is anyway going to be stopped.
+	 * </i></p>
+	 *
+	 * @param conn	The connection to configure.
+	 *
+	 * @since 2.4
+	 */
+	private void initQueryTimeout(final DBConnection conn) {
+		if (executionDeadline > 0) {
+			long remaining = executionDeadline - System.currentTimeMillis();
+			conn.setQueryTimeout((int)Math.max(1, Math.min((remaining + 999) / 1000, Integer.MAX_VALUE)));
+		} else
+			conn.setQueryTimeout(0);
+	}
+
+	/**
+	 * Set the date/time at which the whole execution must be stopped.
+	 *
+	 * <p>
+	 * 	Before each query execution, the remaining time is given to the
+	 * 	database as query timeout (see {@link DBConnection#setQueryTimeout(int)}),
+	 * 	so that the query is stopped by the database itself when the job
+	 * 	execution duration is exceeded.
+	 * </p>
+	 *
+	 * <p><i>Note:
+	 * 	In asynchronous mode, this deadline is automatically computed from the
+	 * 	start time and the execution duration of the job. In synchronous mode,
+	 * 	it is set by {@link TAPSyncJob}.
+	 * </i></p>
+	 *
+	 * @param deadline	Date/Time (in milliseconds) at which the execution must be stopped.
+	 *                	<i>If negative or null, the execution duration is not limited.</i>
+	 *
+	 * @since 2.4
+	 */
+	public final void setExecutionDeadline(final long deadline) {
+		executionDeadline = deadline;
+	}
+
+	/**
+	 * Execute the given query in parallel on all partitions of its table, if
+	 * possible.
+	 *
+	 * <p>
+	 * 	The query is split by {@link QueryPartitioner#split(ADQLQuery)}: only
+	 * 	queries scanning a single partitioned table (see {@link TAPTable#setPartitioning(String, Number...)})
+	 * 	can be split. The first partition is queried with the main connection,
+	 * 	each of the others with an additional connection (see {@link #partitionConns})
+	 * 	in a thread of the service's {@link PartitionExecutor}.
+	 * 	All results are then merged concurrently by a {@link MergedTableIterator},
+	 * 	sorted again if the query has an ORDER BY and limited again to its TOP.
+	 * </p>
+	 *
+	 * <p>
+	 * 	Nothing is done (and NULL is returned) if some tables have been uploaded,
+	 * 	if the service has no {@link PartitionExecutor}, if the query can not be split,
+	 * 	if not enough threads are free or if not all additional connections can be got
+	 * 	within {@link PartitionExecutor#getConnectionTimeout()}. In these cases, the
+	 * 	query must be executed as usual with the main connection. Waiting for a
+	 * 	connection never lasts longer, so that jobs holding their main connection
+	 * 	can not wait for each other's connections.
+	 * </p>
+	 *
+	 * @param adql	The object representation of the ADQL query to execute.
+	 *
+	 * @return	The merged result of all partitions,
+	 *        	or NULL if the query can not be executed in parallel.
+	 *
+	 * @throws InterruptedException	If the thread has been interrupted.
+	 * @throws DBCancelledException	If a DB connection has been canceled.
+	 * @throws TAPException			If the execution of a partition has failed.
+	 *
+	 * @since 2.4
+	 */
+	protected TableIterator executePartitioned(final ADQLQuery adql) throws InterruptedException, DBCancelledException, TAPException {
+		final PartitionExecutor executor = service.getPartitionExecutor();
+		if (uploadSchema != null || executor == null)
+			return null;
+
+		// Split the query:
+		final ADQLQuery[] parts;
+		try {
+			parts = QueryPartitioner.split(adql);
+		} catch(Exception ex) {
+			logger.logTAP(LogLevel.WARNING, report, "PARTITIONING", "Impossible to split the query on the partitions of its table! It will be executed as a whole.", ex);
+			return null;
+		}
+		if (parts == null)
+			return null;
+
+		// Reserve one thread per partition (except the first one):
+		if (!executor.reserve(parts.length - 1)) {
+			logger.logTAP(LogLevel.INFO, report, "PARTITIONING", "Not enough free threads for a parallel execution on " + parts.length + " partitions! The query will be executed as a whole.", null);
+			return null;
+		}
+
+		// Get one additional connection per partition (except the first one), in these threads:
+		final PartitionWorkers workers = new PartitionWorkers(parts);
+		partitionWorkers = workers;
+		workers.start(executor);
+		try {
+			if (!workers.awaitConnections(executor.getConnectionTimeout())) {
+				workers.stop();
+				partitionWorkers = null;
+				logger.logTAP(LogLevel.INFO, report, "PARTITIONING", "Not enough database connections for a parallel execution on " + parts.length + " partitions! The query will be executed as a whole.", null);
+				return null;
+			}
+		} catch(InterruptedException ie) {
+			workers.stop();
+			partitionWorkers = null;
+			throw ie;
+		}
+		partitionConns = workers.conns;
+		logger.logTAP(LogLevel.INFO, report, "PARTITIONING", "Parallel execution on " + parts.length + " partitions.", null);
+
+		// Execute all partitions in parallel (the first one in this thread):
+		final TableIterator[] results = workers.results;
+		final Throwable[] errors = workers.errors;
+		workers.go.countDown();
+		try {
+			results[0] = dbConn.executeQuery(parts[0]);
+		} catch(Throwable t) {
+			errors[0] = t;
+		}
+		try {
+			workers.ended.await();
+		} catch(InterruptedException ie) {
+			workers.cancel();
+			boolean ended = false;
+			while(!ended) {
+				try {
+					workers.ended.await();
+					ended = true;
+				} catch(InterruptedException ie2) {}
+			}
+			errors[0] = ie;
+		}
+
+		// Report the first error, if any:
+		for(int i = 0; i < parts.length; i++) {
+			if (errors[i] != null || results[i] == null) {
+				for(TableIterator result : results) {
+					if (result != null) {
+						try {
+							result.close();
+						} catch(DataReadException dre) {}
+					}
+				}
+				if (errors[i] instanceof DBTimeoutException)
+					throw (DBTimeoutException)errors[i];
+				else if (errors[i] == null || errors[i] instanceof DBCancelledException)
+					throw new DBCancelledException();
+				else if (errors[i] instanceof InterruptedException)
+					throw (InterruptedException)errors[i];
+				else if (errors[i] instanceof TAPException)
+					throw (TAPException)errors[i];
+				else
+					throw new TAPException("Unexpected error while executing the partition " + (i + 1) + "/" + parts.length + " of the query!", errors[i]);
+			}
+		}
+
+		// Merge all results:
+		final boolean nullsHigh = !(dbConn instanceof JDBCConnection) || !((JDBCConnection)dbConn).areNullsSortedLow();
+		return new MergedTableIterator(results, QueryPartitioner.getOrderColumns(adql), QueryPartitioner.getOrderDirections(adql), nullsHigh, adql.getSelect().getLimit());
+	}
+
+	/**
+	 * Threads of the {@link PartitionExecutor} executing the partitions of a
+	 * query (except the first one), each with its own additional connection.
+	 *
+	 * <p>
+	 * 	Each thread first gets its connection. Partitions are executed only
+	 * 	once all connections have been got (see {@link #go}). If the execution
+	 * 	is given up before (see {@link #stop()}), the connections are freed
+	 * 	immediately, or as soon as they are got.
+	 * </p>
+	 *
+	 * @author Gr&eacute;gory Mantelet (CDS)
+	 * @version 2.4 (10/2026)
+	 * @since 2.4
+	 */
+	private class PartitionWorkers {
+
+		/** Queries of all partitions. */
+		private final ADQLQuery[] parts;
+
+		/** Additional connection of each worker.
+		 * <i>An item is NULL as long as its connection has not been got.</i> */
+		private final DBConnection[] conns;
+
+		/** Thread of each worker. <i>An item is NULL if not running.</i> */
+		private final Thread[] threads;
+
+		/** Result of each partition. */
+		private final TableIterator[] results;
+
+		/** Error of each partition. <i>An item is NULL if no error.</i> */
+		private final Throwable[] errors;
+
+		/** Count of the workers still getting their connection. */
+		private final CountDownLatch connected;
+
+		/** Released when the partitions can be executed. */
+		private final CountDownLatch go = new CountDownLatch(1);
+
+		/** Count of the workers still running. */
+		private final CountDownLatch ended;
+
+		/** Whether the parallel execution has been given up or canceled. */
+		private boolean stopped = false;
+
+		public PartitionWorkers(final ADQLQuery[] parts) {
+			this.parts = parts;
+			this.conns = new DBConnection[parts.length - 1];
+			this.threads = new Thread[parts.length - 1];
+			this.results = new TableIterator[parts.length];
+			this.errors = new Throwable[parts.length];
+			this.connected = new CountDownLatch(parts.length - 1);
+			this.ended = new CountDownLatch(parts.length - 1);
+		}
+
+		/**
+		 * Submit all workers in the given executor (whose threads must have been reserved).
+		 *
+		 * @param executor	The executor of partitions.
+		 */
+		public void start(final PartitionExecutor executor) {
+			for(int i = 1; i < parts.length; i++) {
+				final int index = i;
+				try {
+					executor.submit(new Callable<Void>() {
+						@Override
+						public Void call() {
+							run(index);
+							return null;
+						}
+					});
+				} catch(RejectedExecutionException ree) {
+					executor.release(1);
+					errors[index] = ree;
+					connected.countDown();
+					ended.countDown();
+				}
+			}
+		}
+
+		/**
+		 * Get the connection of the given partition and execute its query once allowed.
+		 *
+		 * @param index	Index of the partition (&ge;1).
+		 */
+		private void run(final int index) {
+			boolean connecting = true;
+			try {
+				synchronized(this) {
+					if (stopped)
+						return;
+					threads[index - 1] = Thread.currentThread();
+				}
+
+				// Get the connection:
+				DBConnection conn = service.getFactory().getConnection(report.jobID + "_" + index);
+				synchronized(this) {
+					if (stopped) {
+						service.getFactory().freeConnection(conn);
+						return;
+					}
+					conns[index - 1] = conn;
+				}
+				initFetchSize(conn);
+				initQueryTimeout(conn);
+				connecting = false;
+				connected.countDown();
+
+				// Execute the partition:
+				go.await();
+				synchronized(this) {
+					if (stopped)
+						return;
+				}
+				results[index] = conn.executeQuery(parts[index]);
+			} catch(Throwable t) {
+				errors[index] = t;
+			} finally {
+				if (connecting)
+					connected.countDown();
+				synchronized(this) {
+					threads[index - 1] = null;
+				}
+				ended.countDown();
+			}
+		}
+
+		/**
+		 * Wait until all workers have got their connection.
+		 *
+		 * @param timeout	Maximum time to wait (in milliseconds).
+		 *
+		 * @return	<i>true</i> if all connections have been got,
+		 *        	<i>false</i> if the timeout elapsed, if a connection could not be got
+		 *        	or if the execution has been canceled.
+		 *
+		 * @throws InterruptedException	If the current thread has been interrupted while waiting.
+		 */
+		public boolean awaitConnections(final long timeout) throws InterruptedException {
+			if (!connected.await(timeout, TimeUnit.MILLISECONDS))
+				return false;
+			synchronized(this) {
+				if (stopped)
+					return false;
+			}
+			for(int i = 1; i < errors.length; i++) {
+				if (errors[i] != null)
+					return false;
+			}
+			return true;
+		}
+
+		/**
+		 * Give up the parallel execution before it starts: free all connections
+		 * already got and interrupt the workers still getting one.
+		 */
+		public synchronized void stop() {
+			stopped = true;
+			for(int i = 0; i < conns.length; i++) {
+				if (conns[i] != null) {
+					service.getFactory().freeConnection(conns[i]);
+					conns[i] = null;
+				}
+			}
+			for(Thread t : threads) {
+				if (t != null)
+					t.interrupt();
+			}
+			go.countDown();
+		}
+
+		/**
+		 * Cancel the queries of all partitions and interrupt all workers.
+		 * The connections are not freed.
+		 */
+		public synchronized void cancel() {
+			stopped = true;
+			for(DBConnection conn : conns) {
+				if (conn != null)
+					conn.cancel(true);
+			}
+			for(Thread t : threads) {
+				if (t != null)
+					t.interrupt();
+			}
+			go.countDown();
+		}
+	}
+
+	/**
+	 * Tell whether the result of the query must be spooled in a local file
+	 * before being written (see {@link #spoolResult(TableIterator)}).
+	 *
+	 * <p>
+	 * 	By default, only results of asynchronous queries may be spooled,
+	 * 	depending on {@link ServiceConnection#getResultSpoolingThreshold()}
+	 * 	and on the time spent to get the database connection.
+	 * </p>
+	 *
+	 * @return	<i>true</i> if the result must be spooled,
+	 *        	<i>false</i> otherwise.
+	 *
+	 * @since 2.4
+	 */
+	protected boolean mustSpoolResult() {
+		if (report.synchronous || dbConn == null)
+			return false;
+		final long threshold = service.getResultSpoolingThreshold();
+		return threshold == 0 || (threshold > 0 && connectionWaitTime >= threshold);
+	}
+
+	/**
+	 * Read entirely the given query result, write it into a local temporary
+	 * file and free all database resources used by this execution (result,
+	 * uploaded tables and connections).
+	 *
+	 * <p>
+	 * 	The temporary file is created in the temporary directory of the file
+	 * 	manager (see {@link uws.service.file.UWSFileManager#getTmpDirectory()}).
+	 * 	The returned iterator reads it, and deletes it when closed.
+	 * </p>
+	 *
+	 * <p><i>Note:
+	 * 	This function is called during the step {@link ExecutionProgression#SPOOLING_RESULT},
+	 * 	so that its duration is reported and that it can be canceled with {@link #cancelQuery()}.
+	 * </i></p>
+	 *
+	 * @param queryResult	The result to spool.
+	 *
+	 * @return	The spooled result.
+	 *
+	 * @throws InterruptedException	If the thread has been interrupted.
+	 * @throws TAPException			If the result can not be spooled.
+	 *
+	 * @see SpooledTableIterator
+	 *
+	 * @since 2.4
+	 */
+	protected TableIterator spoolResult(final TableIterator queryResult) throws InterruptedException, TAPException {
+		final long start = System.currentTimeMillis();
+
+		// Copy the result in a temporary file:
+		SpooledTableIterator spool;
+		try {
+			spool = new SpooledTableIterator(queryResult, File.createTempFile("tap_spool_" + report.jobID + "_", ".bin", service.getFileManager().getTmpDirectory()));
+		} catch(IOException ioe) {
+			throw new TAPException("Can not create the spool file of the query result!", ioe);
+		} catch(DataReadException dre) {
+			if (thread.isInterrupted())
+				throw new InterruptedException();
+			throw dre;
+		} finally {
+			try {
+				queryResult.close();
+			} catch(DataReadException dre) {
+				logger.logTAP(LogLevel.WARNING, report, "END_EXEC", "Can not close the database query result!", dre);
+			}
+		}
+
+		// Drop all the uploaded tables:
+		try {
+			dropUploadedTables();
+		} catch(TAPException e) {
+			logger.logTAP(LogLevel.WARNING, report, "END_EXEC", "Can not drop the uploaded tables from the database!", e);
+		}
+		uploadSchema = null;
+
+		// Free the connections:
+		service.getFactory().freeConnection(dbConn);
+		dbConn = null;
+		freePartitionConnections();
+
+		logger.logTAP(LogLevel.INFO, report, "SPOOL", spool.getNbRows() + " rows (" + spool.getSpoolSize() + " bytes) spooled in " + (System.currentTimeMillis() - start) + "ms ; database connection freed.", null);
+
+		return spool;
+	}
+
+	/**
+	 * Free all additional connections used for a parallel execution, if any.
+	 *
+	 * @see #executePartitioned(ADQLQuery)
+	 *
+	 * @since 2.4
+	 */
+	private void freePartitionConnections() {
+		partitionWorkers = null;
+		if (partitionConns != null) {
+			for(DBConnection conn : partitionConns)
+				service.getFactory().freeConnection(conn);
+			partitionConns = null;
+		}
+	}
+
 	/**
 	 * <p>Write the given query result into the appropriate format in the appropriate output
 	 * (HTTP response for a synchronous execution, otherwise a file or any output provided by UWS).</p>
@@ -676,7 +1500,12 @@ public class ADQLExecutor {
 
 			// Write the formatted result in the HTTP response output:
 			start = System.currentTimeMillis();
-			writeResult(queryResult, formatter, response.getOutputStream());
+			final long startNano = System.nanoTime();
+			OutputStream output = response.getOutputStream();
+			if (metrics != null)
+				output = new CountingOutputStream(output);
+			writeFormattedResult(queryResult, formatter, output);
+			recordResult(formatter, output, startNano);
 
 			logger.logTAP(LogLevel.INFO, report, "RESULT_WRITTEN", "Result formatted (in " + formatter.getMimeType() + " ; " + (report.nbRows < 0 ? "?" : report.nbRows) + " rows ; " + ((report.resultingColumns == null) ? "?" : report.resultingColumns.length) + " columns) in " + ((start <= 0) ? "?" : (System.currentTimeMillis() - start)) + "ms!", null);
 		}
@@ -696,8 +1525,18 @@ public class ADQLExecutor {
 
 				// Write the formatted result in the file output:
 				start = System.currentTimeMillis();
-				writeResult(queryResult, formatter, jobThread.getResultOutput(result));
+				final long startNano = System.nanoTime();
+				OutputStream output = jobThread.getResultOutput(result);
+				if (metrics != null)
+					output = new CountingOutputStream(output);
+				try {
+					writeFormattedResult(queryResult, formatter, output);
+				} finally {
+					// close the output so that the result is completely written (e.g. compressed results) before getting its size:
+					output.close();
+				}
 				end = System.currentTimeMillis();
+				recordResult(formatter, output, startNano);
 
 				// Set the size (in bytes) of the result in the result description:
 				result.setSize(jobThread.getResultSize(result));
@@ -728,6 +1567,78 @@ public class ADQLExecutor {
 		}
 	}
 
+	/**
+	 * Record the writing of the result in the execution statistics, if any.
+	 *
+	 * @param formatter	The format of the written result.
+	 * @param output	The stream in which the result has been written.
+	 *              	<i>The number of bytes is recorded only if it is a
+	 *              	{@link CountingOutputStream}.</i>
+	 * @param startNano	Value of {@link System#nanoTime()} when the writing
+	 *                 	started.
+	 *
+	 * @since 2.4
+	 */
+	private void recordResult(final OutputFormat formatter, final OutputStream output, final long startNano) {
+		if (metrics != null)
+			metrics.recordResult((formatter.getShortMimeType() != null) ? formatter.getShortMimeType() : formatter.getMimeType(), report.nbRows, (output instanceof CountingOutputStream) ? ((CountingOutputStream)output).getNbBytes() : -1, (System.nanoTime() - startNano) / 1000);
+	}
+
+	/**
+	 * <p>Write the query result in the given output.</p>
+	 *
+	 * <p>
+	 * 	If the result has been found in the result cache, it is just copied. Otherwise, it is formatted
+	 * 	by {@link #writeResult(TableIterator, OutputFormat, OutputStream)} and, if cacheable, also written
+	 * 	in the result cache. A result is cached only if it has been completely written (i.e. no interruption,
+	 * 	no error reported inside the result ; see {@link TAPExecutionReport#resultTruncated}).
+	 * </p>
+	 *
+	 * @param queryResult	Query result to format and to output. <i>NULL if the result has been found in cache.</i>
+	 * @param formatter		The object able to write the result in the appropriate format.
+	 * @param output		The stream in which the result must be written.
+	 *
+	 * @throws InterruptedException	If the thread has been interrupted.
+	 * @throws IOException			If there is an error while writing the result in the given stream.
+	 * @throws TAPException			If there is an error while formatting the result.
+	 *
+	 * @since 2.4
+	 */
+	private void writeFormattedResult(final TableIterator queryResult, final OutputFormat formatter, final OutputStream output) throws InterruptedException, IOException, TAPException {
+		// CASE: Result found in cache => copy it:
+		if (cachedResult != null) {
+			byte[] buffer = new byte[8192];
+			int len;
+			while((len = cachedResult.input.read(buffer)) > 0) {
+				if (thread.isInterrupted())
+					throw new InterruptedException();
+				output.write(buffer, 0, len);
+			}
+			output.flush();
+			report.nbRows = cachedResult.nbRows;
+		}
+
+		// CASE: Cacheable result => format it and record it in the cache:
+		else if (resultCacheKey != null) {
+			ResultCache.Recorder recorder = service.getResultCache().record(resultCacheKey, cacheableQuery, output);
+			try {
+				writeResult(queryResult, formatter, recorder);
+				// only a complete result can be cached:
+				if (!thread.isInterrupted() && !report.resultTruncated && report.nbRows >= 0)
+					recorder.commit(formatter.getMimeType(), report.nbRows);
+				else
+					logger.logTAP(LogLevel.WARNING, report, "RESULT_CACHE", "Incomplete query result! It will not be cached.", null);
+			} finally {
+				if (recorder.isRecording())
+					recorder.discard();
+			}
+		}
+
+		// CASE: Not cacheable result => just format it:
+		else
+			writeResult(queryResult, formatter, output);
+	}
+
 	/**
 	 * <p>Format and write the given result in the given output with the given formatter.</p>
 	 *
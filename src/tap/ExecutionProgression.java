@@ -16,16 +16,21 @@ package tap;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  * 
- * Copyright 2012,2014 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
 /**
  * Let describe the current status of a job execution.
  * 
+ * <p><i>Note:
+ * 	{@link #SPOOLING_RESULT} happens only if the query result is copied into a
+ * 	local file before being written (see {@link ADQLExecutor#spoolResult(tap.data.TableIterator)}).
+ * </i></p>
+ * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.0 (07/2014)
+ * @version 2.4 (10/2026)
  */
 public enum ExecutionProgression{
-	PENDING, UPLOADING, PARSING, EXECUTING_ADQL, WRITING_RESULT, FINISHED;
+	PENDING, UPLOADING, PARSING, EXECUTING_ADQL, SPOOLING_RESULT, WRITING_RESULT, FINISHED;
 }
@@ -0,0 +1,244 @@
+package tap;
+
+/*
+ * This file is part of TAPLibrary.
+ *
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pool of threads executing the partitions of a query in parallel
+ * (see {@link ADQLExecutor#executePartitioned(adql.query.ADQLQuery)}).
+ *
+ * <p>
+ * 	This pool is shared by all the jobs of a TAP service. Its number of
+ * 	threads ({@link #getNbThreads()}) bounds the number of partitions executed
+ * 	at the same time, and so the number of additional database connections
+ * 	used for that.
+ * </p>
+ *
+ * <p>
+ * 	Threads must be reserved with {@link #reserve(int)} before submitting any
+ * 	task with {@link #submit(Callable)}. A reservation never waits: if not
+ * 	enough threads are free, it fails and the query should be executed as a
+ * 	whole. Each thread is given back when its task ends, or when its task is
+ * 	cancelled before being started. Thus, a submitted task never waits for a
+ * 	free thread.
+ * </p>
+ *
+ * <p>
+ * 	The additional database connections of a partitioned execution are also
+ * 	got in these threads. {@link #getConnectionTimeout()} is the time a job
+ * 	should wait for all of them before giving up the parallel execution.
+ * </p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 2.4 (10/2026)
+ * @since 2.4
+ */
+public class PartitionExecutor {
+
+	/** Default number of threads executing partitions. */
+	public final static int DEFAULT_NB_THREADS = 4;
+
+	/** Default time (in milliseconds) to wait for the additional database
+	 * connections of a partitioned execution. */
+	public final static long DEFAULT_CONNECTION_TIMEOUT = 1000;
+
+	/** Number of threads executing partitions. */
+	protected final int nbThreads;
+
+	/** Time (in milliseconds) to wait for the additional database connections
+	 * of a partitioned execution. */
+	protected final long connectionTimeout;
+
+	/** Pool of threads executing partitions. */
+	protected final ExecutorService executor;
+
+	/** Threads not yet reserved. */
+	private final Semaphore freeThreads;
+
+	/**
+	 * Create a pool of {@link #DEFAULT_NB_THREADS} threads, waiting at most
+	 * {@link #DEFAULT_CONNECTION_TIMEOUT} ms for the additional database
+	 * connections.
+	 */
+	public PartitionExecutor(){
+		this(DEFAULT_NB_THREADS, DEFAULT_CONNECTION_TIMEOUT);
+	}
+
+	/**
+	 * Create a pool of threads executing partitions.
+	 *
+	 * @param nbThreads			Maximum number of partitions executed at the
+	 *                 			same time by all jobs.
+	 *                 			<i>If &le;0, {@link #DEFAULT_NB_THREADS} is used.</i>
+	 * @param connectionTimeout	Time (in milliseconds) to wait for the
+	 *                         	additional database connections.
+	 *                         	<i>If &lt;0, {@link #DEFAULT_CONNECTION_TIMEOUT} is used.</i>
+	 */
+	public PartitionExecutor(final int nbThreads, final long connectionTimeout){
+		this.nbThreads = (nbThreads <= 0) ? DEFAULT_NB_THREADS : nbThreads;
+		this.connectionTimeout = (connectionTimeout < 0) ? DEFAULT_CONNECTION_TIMEOUT : connectionTimeout;
+		this.freeThreads = new Semaphore(this.nbThreads);
+		this.executor = Executors.newFixedThreadPool(this.nbThreads, new ThreadFactory(){
+			private int cnt = 0;
+
+			@Override
+			public synchronized Thread newThread(final Runnable r){
+				Thread t = new Thread(r, "PartitionExecutor-" + (++cnt));
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	/**
+	 * Get the maximum number of partitions executed at the same time.
+	 *
+	 * @return	Number of threads.
+	 */
+	public final int getNbThreads(){
+		return nbThreads;
+	}
+
+	/**
+	 * Get the number of threads not reserved at this moment.
+	 *
+	 * @return	Number of free threads.
+	 */
+	public final int getNbFreeThreads(){
+		return freeThreads.availablePermits();
+	}
+
+	/**
+	 * Get the time to wait for the additional database connections of a
+	 * partitioned execution.
+	 *
+	 * @return	Connection timeout (in milliseconds).
+	 */
+	public final long getConnectionTimeout(){
+		return connectionTimeout;
+	}
+
+	/**
+	 * Reserve the given number of threads, without waiting.
+	 *
+	 * <p><i>Note:
+	 * 	Each reserved thread must then be used by exactly one task submitted
+	 * 	with {@link #submit(Callable)}, or be given back with
+	 * 	{@link #release(int)}.
+	 * </i></p>
+	 *
+	 * @param nb	Number of threads to reserve.
+	 *
+	 * @return	<i>true</i> if all threads have been reserved,
+	 *        	<i>false</i> if not enough threads are free (then, none is reserved).
+	 */
+	public boolean reserve(final int nb){
+		return nb <= 0 || freeThreads.tryAcquire(nb);
+	}
+
+	/**
+	 * Give back the given number of reserved threads.
+	 *
+	 * @param nb	Number of threads to give back.
+	 */
+	public void release(final int nb){
+		if (nb > 0)
+			freeThreads.release(nb);
+	}
+
+	/**
+	 * Execute the given task in one of the threads reserved with
+	 * {@link #reserve(int)}.
+	 *
+	 * <p>
+	 * 	The reserved thread is given back when the task ends, even if it has
+	 * 	been cancelled while running (i.e. only once it has really stopped), or
+	 * 	when it is cancelled before being started.
+	 * </p>
+	 *
+	 * @param task	The task to execute.
+	 *
+	 * @return	The result of the task.
+	 */
+	public <T> Future<T> submit(final Callable<T> task){
+		ReservedTask<T> future = new ReservedTask<T>(task);
+		executor.execute(future);
+		return future;
+	}
+
+	/**
+	 * Interrupt all running tasks and stop all threads.
+	 */
+	public void close(){
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Task giving back its reserved thread once ended.
+	 *
+	 * @author Gr&eacute;gory Mantelet (CDS)
+	 * @version 2.4 (10/2026)
+	 * @since 2.4
+	 */
+	private class ReservedTask<T> extends FutureTask<T> {
+
+		/** Whether this task has been started. */
+		private volatile boolean started = false;
+
+		/** Whether the reserved thread has already been given back. */
+		private final AtomicBoolean released = new AtomicBoolean(false);
+
+		public ReservedTask(final Callable<T> task){
+			super(task);
+		}
+
+		@Override
+		public void run(){
+			started = true;
+			try{
+				super.run();
+			}finally{
+				releaseThread();
+			}
+		}
+
+		@Override
+		protected void done(){
+			// A task cancelled before its start will never run:
+			if (isCancelled() && !started)
+				releaseThread();
+		}
+
+		/** Give back the reserved thread, if not already done. */
+		private void releaseThread(){
+			if (released.compareAndSet(false, true))
+				freeThreads.release();
+		}
+	}
+
+}
@@ -0,0 +1,346 @@
+package tap;
+
+/*
+ * This file is part of TAPLibrary.
+ *
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import adql.query.ADQLObject;
+import adql.query.ADQLQuery;
+import adql.query.from.ADQLJoin;
+import adql.search.SimpleSearchHandler;
+import tap.db.QueryCost;
+import uws.UWSException;
+
+/**
+ * Limits on the complexity and on the estimated cost of the queries accepted
+ * by a TAP service.
+ *
+ * <p>These limits are checked by {@link ADQLExecutor} just before executing a query:</p>
+ * <ul>
+ * 	<li><b>Complexity</b> - the number of joins and the depth of nested
+ * 		sub-queries are checked on the parsed ADQL query, in any execution
+ * 		mode (see {@link #check(ADQLQuery)}).</li>
+ * 	<li><b>Estimated cost</b> - if a maximum cost or number of rows is set,
+ * 		the cost of synchronous queries is estimated by the database (see
+ * 		{@link tap.db.DBConnection#estimateCost(ADQLQuery)}). Too expensive
+ * 		queries are rejected with an error suggesting the asynchronous mode
+ * 		(see {@link #check(QueryCost)}).</li>
+ * </ul>
+ *
+ * <p>
+ * 	Besides, if {@link #isQueueOrderedByCost()} is <i>true</i>, the cost of
+ * 	asynchronous queries is estimated when they have to wait in the queue, so
+ * 	that the cheapest ones are executed first (see {@link TAPJob#getEstimatedCost()}).
+ * 	To avoid the starvation of expensive queries, a queued job can not be
+ * 	overtaken more than {@link #getQueueMaxOvertakes()} times (see
+ * 	{@link #getQueuePosition(double, double[], int[])}).
+ * </p>
+ *
+ * <p><i>Note:
+ * 	A negative or null limit means "no limit".
+ * </i></p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 2.4 (10/2026)
+ * @since 2.4
+ */
+public class QueryLimits {
+
+	/** Maximum number of joins in a query (sub-queries included). */
+	protected int maxJoins = -1;
+
+	/** Maximum depth of nested sub-queries. */
+	protected int maxSubQueryDepth = -1;
+
+	/** Maximum estimated cost of a synchronous query. */
+	protected double syncMaxCost = -1;
+
+	/** Maximum estimated number of rows returned by a synchronous query. */
+	protected double syncMaxRows = -1;
+
+	/** Indicate whether queued asynchronous jobs are ordered by estimated cost. */
+	protected boolean queueOrderedByCost = false;
+
+	/** Default maximum number of times a queued job can be overtaken by cheaper jobs. */
+	public final static int DEFAULT_QUEUE_MAX_OVERTAKES = 10;
+
+	/** Maximum number of times a queued job can be overtaken by cheaper jobs. */
+	protected int queueMaxOvertakes = DEFAULT_QUEUE_MAX_OVERTAKES;
+
+	/**
+	 * Get the maximum number of joins in a query (sub-queries included).
+	 *
+	 * @return	The maximum number of joins, or a negative value if no limit.
+	 */
+	public final int getMaxJoins(){
+		return maxJoins;
+	}
+
+	/**
+	 * Set the maximum number of joins in a query (sub-queries included).
+	 *
+	 * @param maxJoins	The maximum number of joins. <i>A negative value means no limit.</i>
+	 */
+	public final void setMaxJoins(final int maxJoins){
+		this.maxJoins = maxJoins;
+	}
+
+	/**
+	 * Get the maximum depth of nested sub-queries.
+	 *
+	 * @return	The maximum depth, or a negative value if no limit.
+	 */
+	public final int getMaxSubQueryDepth(){
+		return maxSubQueryDepth;
+	}
+
+	/**
+	 * Set the maximum depth of nested sub-queries.
+	 *
+	 * <p><i>Note:
+	 * 	A query without sub-query has a depth of 0. 0 then forbids any
+	 * 	sub-query.
+	 * </i></p>
+	 *
+	 * @param maxDepth	The maximum depth. <i>A negative value means no limit.</i>
+	 */
+	public final void setMaxSubQueryDepth(final int maxDepth){
+		maxSubQueryDepth = maxDepth;
+	}
+
+	/**
+	 * Get the maximum estimated cost of a synchronous query.
+	 *
+	 * @return	The maximum cost, or a negative value if no limit.
+	 */
+	public final double getSyncMaxCost(){
+		return syncMaxCost;
+	}
+
+	/**
+	 * Set the maximum estimated cost of a synchronous query.
+	 *
+	 * @param maxCost	The maximum cost (in the unit of the database).
+	 *               	<i>A negative or null value means no limit.</i>
+	 */
+	public final void setSyncMaxCost(final double maxCost){
+		syncMaxCost = maxCost;
+	}
+
+	/**
+	 * Get the maximum estimated number of rows returned by a synchronous
+	 * query.
+	 *
+	 * @return	The maximum number of rows, or a negative value if no limit.
+	 */
+	public final double getSyncMaxRows(){
+		return syncMaxRows;
+	}
+
+	/**
+	 * Set the maximum estimated number of rows returned by a synchronous
+	 * query.
+	 *
+	 * @param maxRows	The maximum number of rows.
+	 *               	<i>A negative or null value means no limit.</i>
+	 */
+	public final void setSyncMaxRows(final double maxRows){
+		syncMaxRows = maxRows;
+	}
+
+	/**
+	 * Tell whether queued asynchronous jobs are ordered by estimated cost.
+	 *
+	 * @return	<i>true</i> if the cheapest jobs are executed first,
+	 *        	<i>false</i> if jobs are executed in their submission order.
+	 */
+	public final boolean isQueueOrderedByCost(){
+		return queueOrderedByCost;
+	}
+
+	/**
+	 * Set whether queued asynchronous jobs are ordered by estimated cost.
+	 *
+	 * @param orderedByCost	<i>true</i> to execute the cheapest jobs first,
+	 *                     	<i>false</i> to execute jobs in their submission
+	 *                     	order.
+	 */
+	public final void setQueueOrderedByCost(final boolean orderedByCost){
+		queueOrderedByCost = orderedByCost;
+	}
+
+	/**
+	 * Get the maximum number of times a queued job can be overtaken by cheaper
+	 * jobs, when the queue is ordered by cost.
+	 *
+	 * @return	The maximum number of overtakes,
+	 *        	or a negative value if no limit.
+	 */
+	public final int getQueueMaxOvertakes(){
+		return queueMaxOvertakes;
+	}
+
+	/**
+	 * Set the maximum number of times a queued job can be overtaken by cheaper
+	 * jobs, when the queue is ordered by cost.
+	 *
+	 * @param maxOvertakes	The maximum number of overtakes.
+	 *                    	<i>0 keeps the submission order ; a negative value
+	 *                    	means no limit (an expensive job may then wait
+	 *                    	forever).</i>
+	 */
+	public final void setQueueMaxOvertakes(final int maxOvertakes){
+		queueMaxOvertakes = maxOvertakes;
+	}
+
+	/**
+	 * Get the position at which a job must be put into a queue ordered by cost.
+	 *
+	 * <p>
+	 * 	The job is put before the first queued job having a higher or unknown
+	 * 	cost, but never before a job already overtaken
+	 * 	{@link #getQueueMaxOvertakes()} times. A job whose cost is unknown is
+	 * 	put at the end.
+	 * </p>
+	 *
+	 * <p><i>Note:
+	 * 	The caller has to increment the number of overtakes of all queued jobs
+	 * 	from the returned position.
+	 * </i></p>
+	 *
+	 * @param cost			Estimated cost of the job to queue. <i>NaN if unknown.</i>
+	 * @param queuedCosts	Estimated costs of the queued jobs, in the queue order.
+	 *                   	<i>NaN if unknown.</i>
+	 * @param nbOvertakes	Number of times each queued job has already been
+	 *                   	overtaken, in the queue order.
+	 *
+	 * @return	The position of the job, between 0 (i.e. first job to execute)
+	 *        	and the number of queued jobs (i.e. end of the queue).
+	 */
+	public int getQueuePosition(final double cost, final double[] queuedCosts, final int[] nbOvertakes){
+		if (Double.isNaN(cost))
+			return queuedCosts.length;
+
+		// Never overtake a job already overtaken too many times:
+		int minPosition = 0;
+		if (queueMaxOvertakes >= 0){
+			for(int i = 0; i < queuedCosts.length; i++){
+				if (nbOvertakes[i] >= queueMaxOvertakes)
+					minPosition = i + 1;
+			}
+		}
+
+		// Put the job before the first one having a higher or unknown cost:
+		for(int i = minPosition; i < queuedCosts.length; i++){
+			if (Double.isNaN(queuedCosts[i]) || queuedCosts[i] > cost)
+				return i;
+		}
+		return queuedCosts.length;
+	}
+
+	/**
+	 * Tell whether the cost of a query must be estimated before its
+	 * execution.
+	 *
+	 * @param synchronous	<i>true</i> for a synchronous execution,
+	 *                   	<i>false</i> for an asynchronous one.
+	 *
+	 * @return	<i>true</i> if a maximum cost or number of rows is set for
+	 *        	the given execution mode, <i>false</i> otherwise.
+	 */
+	public boolean isCostChecked(final boolean synchronous){
+		return synchronous && (syncMaxCost > 0 || syncMaxRows > 0);
+	}
+
+	/**
+	 * Check the complexity of the given query.
+	 *
+	 * @param query	The query to check.
+	 *
+	 * @throws TAPException	If the query has too many joins or too deeply
+	 *                     	nested sub-queries.
+	 */
+	public void check(final ADQLQuery query) throws TAPException{
+		if (maxJoins >= 0){
+			int nbJoins = countJoins(query);
+			if (nbJoins > maxJoins)
+				throw new TAPException("Too complex query: " + nbJoins + " joins, while at most " + maxJoins + " are allowed by this TAP service!", UWSException.BAD_REQUEST);
+		}
+		if (maxSubQueryDepth >= 0){
+			int depth = getSubQueryDepth(query);
+			if (depth > maxSubQueryDepth)
+				throw new TAPException("Too complex query: sub-queries nested on " + depth + " levels, while at most " + maxSubQueryDepth + " are allowed by this TAP service!", UWSException.BAD_REQUEST);
+		}
+	}
+
+	/**
+	 * Check the estimated cost of a synchronous query.
+	 *
+	 * @param cost	The estimated cost. <i>If NULL, nothing is checked.</i>
+	 *
+	 * @throws TAPException	If the query is too expensive for a synchronous
+	 *                     	execution.
+	 */
+	public void check(final QueryCost cost) throws TAPException{
+		if (cost == null)
+			return;
+		if ((syncMaxCost > 0 && cost.cost > syncMaxCost) || (syncMaxRows > 0 && cost.nbRows > syncMaxRows))
+			throw new TAPException("Too expensive query for a synchronous execution (estimated " + cost + " ; allowed: cost=" + (syncMaxCost > 0 ? syncMaxCost : "unlimited") + " ; rows=" + (syncMaxRows > 0 ? Math.round(syncMaxRows) : "unlimited") + ")! You should submit it in asynchronous mode (i.e. on /async).", UWSException.BAD_REQUEST);
+	}
+
+	/**
+	 * Count all joins of the given query, sub-queries included.
+	 *
+	 * @param query	A query.
+	 *
+	 * @return	Its number of joins.
+	 */
+	public static int countJoins(final ADQLQuery query){
+		SimpleSearchHandler sHandler = new SimpleSearchHandler(true){
+			@Override
+			protected boolean match(final ADQLObject obj){
+				return obj instanceof ADQLJoin;
+			}
+		};
+		sHandler.search(query);
+		return sHandler.getNbMatch();
+	}
+
+	/**
+	 * Get the maximum depth of nested sub-queries in the given query.
+	 *
+	 * @param query	A query.
+	 *
+	 * @return	0 if the query has no sub-query, 1 if its sub-queries have no
+	 *        	sub-query, etc.
+	 */
+	public static int getSubQueryDepth(final ADQLQuery query){
+		SimpleSearchHandler sHandler = new SimpleSearchHandler(false){
+			@Override
+			protected boolean match(final ADQLObject obj){
+				return obj instanceof ADQLQuery && obj != query;
+			}
+		};
+		sHandler.search(query);
+		int depth = 0;
+		for(ADQLObject subQuery : sHandler)
+			depth = Math.max(depth, 1 + getSubQueryDepth((ADQLQuery)subQuery));
+		return depth;
+	}
+
+}
@@ -0,0 +1,281 @@
+package tap;
+
+/*
+ * This file is part of TAPLibrary.
+ *
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import adql.db.DBColumn;
+import adql.db.DBTable;
+import adql.db.DBTableAlias;
+import adql.db.DBType;
+import adql.db.DBType.DBDatatype;
+import adql.query.ADQLObject;
+import adql.query.ADQLOrder;
+import adql.query.ADQLQuery;
+import adql.query.ClauseConstraints;
+import adql.query.constraint.Comparison;
+import adql.query.constraint.ComparisonOperator;
+import adql.query.constraint.ConstraintsGroup;
+import adql.query.constraint.IsNull;
+import adql.query.from.ADQLTable;
+import adql.query.operand.ADQLColumn;
+import adql.query.operand.NumericConstant;
+import adql.query.operand.function.SQLFunction;
+import adql.search.SimpleSearchHandler;
+import tap.metadata.TAPTable;
+
+/**
+ * Split a query on a partitioned table (see {@link TAPTable#setPartitioning(String, Number...)})
+ * into one query per partition, so that they can be executed in parallel.
+ *
+ * <p>A query can be split only if:</p>
+ * <ul>
+ * 	<li>its FROM clause is a single partitioned table (no join, no sub-query),</li>
+ * 	<li>it has no DISTINCT, GROUP BY, HAVING and aggregate function
+ * 		(their result would need to be computed again on all partitions),</li>
+ * 	<li>all its ORDER BY items are numeric or temporal columns of the result
+ * 		(so that the sorted results of all partitions can be merged, see
+ * 		{@link #isMergeable(DBType)}).</li>
+ * </ul>
+ *
+ * <p>
+ * 	Each partition query is a copy of the original one whose WHERE clause is
+ * 	restricted to the range of values of its partition. It keeps the same
+ * 	TOP and ORDER BY: the merged result must then be sorted again on the
+ * 	same columns (see {@link #getOrderColumns(ADQLQuery)}) and limited again
+ * 	to the same number of rows (see {@link tap.data.MergedTableIterator}).
+ * </p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 2.4 (10/2026)
+ * @since 2.4
+ */
+public final class QueryPartitioner {
+
+	/** No instance of this class. */
+	private QueryPartitioner(){}
+
+	/**
+	 * Get the partitioned table scanned by the given query, if the query can
+	 * be split.
+	 *
+	 * @param query	A query.
+	 *
+	 * @return	The FROM item of the query,
+	 *        	or NULL if the query can not be split.
+	 */
+	private static ADQLTable getPartitionedTable(final ADQLQuery query){
+		// only a partitioned table in the FROM clause:
+		if (!(query.getFrom() instanceof ADQLTable) || getTAPTable((ADQLTable)query.getFrom()) == null)
+			return null;
+
+		// no DISTINCT, GROUP BY or HAVING:
+		if (query.getSelect().distinctColumns() || !query.getGroupBy().isEmpty() || !query.getHaving().isEmpty())
+			return null;
+
+		// no aggregate function:
+		SimpleSearchHandler sHandler = new SimpleSearchHandler(true){
+			@Override
+			protected boolean match(final ADQLObject obj){
+				return obj instanceof SQLFunction;
+			}
+		};
+		sHandler.search(query.getSelect());
+		if (sHandler.getNbMatch() > 0)
+			return null;
+
+		// only ORDER BY on numeric or temporal output columns:
+		int[] orderColumns = getOrderColumns(query);
+		if (orderColumns == null)
+			return null;
+		DBColumn[] resultColumns = query.getResultingColumns();
+		for(int index : orderColumns){
+			if (!isMergeable(resultColumns[index].getDatatype()))
+				return null;
+		}
+
+		return (ADQLTable)query.getFrom();
+	}
+
+	/**
+	 * Tell whether the sorted results of several partitions can be merged on
+	 * a column of the given type.
+	 *
+	 * <p>
+	 * 	The merge compares the values in Java (see
+	 * 	{@link tap.data.MergedTableIterator#compareValues(Object, Object)}).
+	 * 	Only numbers and timestamps are sorted in the same way there and in the
+	 * 	database. Character strings are not: their order depends on the
+	 * 	collation of the database.
+	 * </p>
+	 *
+	 * @param type	Type of an ORDER BY column. <i>MAY be NULL</i>
+	 *
+	 * @return	<i>true</i> if a numeric or temporal type,
+	 *        	<i>false</i> otherwise (and if unknown).
+	 */
+	private static boolean isMergeable(final DBType type){
+		return type != null && !type.isUnknown() && (type.isNumeric() || type.type == DBDatatype.TIMESTAMP);
+	}
+
+	/**
+	 * Get the partitioned {@link TAPTable} described by the given FROM item.
+	 *
+	 * @param table	A FROM item.
+	 *
+	 * @return	The corresponding partitioned table,
+	 *        	or NULL if not a partitioned table.
+	 */
+	private static TAPTable getTAPTable(final ADQLTable table){
+		if (table.isSubQuery())
+			return null;
+		DBTable dbTable = table.getDBLink();
+		if (dbTable instanceof DBTableAlias)
+			dbTable = ((DBTableAlias)dbTable).getOriginTable();
+		if (dbTable instanceof TAPTable && ((TAPTable)dbTable).isPartitioned() && ((TAPTable)dbTable).getPartitionBoundaries().length > 0)
+			return (TAPTable)dbTable;
+		else
+			return null;
+	}
+
+	/**
+	 * Tell whether the given query can be split.
+	 *
+	 * @param query	A query.
+	 *
+	 * @return	<i>true</i> if {@link #split(ADQLQuery)} would return several queries,
+	 *        	<i>false</i> otherwise.
+	 */
+	public static boolean isSplittable(final ADQLQuery query){
+		return query != null && getPartitionedTable(query) != null;
+	}
+
+	/**
+	 * Split the given query into one query per partition of its table.
+	 *
+	 * @param query	The query to split. <i>It is not modified.</i>
+	 *
+	 * @return	One query per partition,
+	 *        	or NULL if the query can not be split.
+	 *
+	 * @throws Exception	If the query can not be copied.
+	 */
+	public static ADQLQuery[] split(final ADQLQuery query) throws Exception{
+		ADQLTable table = (query == null) ? null : getPartitionedTable(query);
+		if (table == null)
+			return null;
+
+		TAPTable tapTable = getTAPTable(table);
+		Number[] bounds = tapTable.getPartitionBoundaries();
+		// (if the table is aliased, the column must be the one of the alias):
+		DBColumn partCol = table.getDBLink().getColumn(tapTable.getPartitionColumn(), true);
+
+		ADQLQuery[] parts = new ADQLQuery[bounds.length + 1];
+		for(int i = 0; i < parts.length; i++){
+			ADQLQuery part = (ADQLQuery)query.getCopy();
+			ADQLTable partTable = (ADQLTable)part.getFrom();
+
+			// Put the original constraints in a group, so that they are all ANDed with the partition range:
+			ClauseConstraints where = new ClauseConstraints("WHERE", ClauseConstraints.AND);
+			if (!part.getWhere().isEmpty()){
+				ConstraintsGroup group = new ConstraintsGroup();
+				for(int c = 0; c < part.getWhere().size(); c++)
+					group.add((c == 0) ? ClauseConstraints.AND : part.getWhere().getSeparator(c), part.getWhere().get(c));
+				where.add(group);
+			}
+
+			// Restrict to the partition range:
+			if (i == 0){
+				ConstraintsGroup first = new ConstraintsGroup();
+				first.add(new Comparison(createColumn(partTable, partCol), ComparisonOperator.LESS_THAN, new NumericConstant(bounds[0].toString())));
+				first.add(ClauseConstraints.OR, new IsNull(createColumn(partTable, partCol)));
+				where.add(first);
+			}else{
+				where.add(new Comparison(createColumn(partTable, partCol), ComparisonOperator.GREATER_OR_EQUAL, new NumericConstant(bounds[i - 1].toString())));
+				if (i < bounds.length)
+					where.add(new Comparison(createColumn(partTable, partCol), ComparisonOperator.LESS_THAN, new NumericConstant(bounds[i].toString())));
+			}
+
+			part.setWhere(where);
+			parts[i] = part;
+		}
+		return parts;
+	}
+
+	/**
+	 * Create a reference to the partition column.
+	 *
+	 * @param table		The partitioned table of the query.
+	 * @param partCol	Description of the partition column.
+	 *
+	 * @return	The column reference.
+	 */
+	private static ADQLColumn createColumn(final ADQLTable table, final DBColumn partCol){
+		ADQLColumn column = new ADQLColumn(table.hasAlias() ? table.getAlias() : null, partCol.getADQLName());
+		column.setDBLink(partCol);
+		column.setAdqlTable(table);
+		return column;
+	}
+
+	/**
+	 * Get the index of the result columns on which the given query is sorted.
+	 *
+	 * @param query	A query.
+	 *
+	 * @return	Index (0-based) of each ORDER BY item in the result columns
+	 *        	(an empty array if no ORDER BY),
+	 *        	or NULL if an ORDER BY item is not a result column.
+	 */
+	public static int[] getOrderColumns(final ADQLQuery query){
+		DBColumn[] resultColumns = query.getResultingColumns();
+		int[] indexes = new int[query.getOrderBy().size()];
+		for(int i = 0; i < indexes.length; i++){
+			ADQLOrder order = query.getOrderBy().get(i);
+			indexes[i] = -1;
+			if (order.isIndex()){
+				if (order.getColumnIndex() >= 1 && order.getColumnIndex() <= resultColumns.length)
+					indexes[i] = order.getColumnIndex() - 1;
+			}else{
+				for(int c = 0; indexes[i] < 0 && c < resultColumns.length; c++){
+					String name = resultColumns[c].getADQLName();
+					if (order.isCaseSensitive() ? order.getColumnName().equals(name) : order.getColumnName().equalsIgnoreCase(name))
+						indexes[i] = c;
+				}
+			}
+			if (indexes[i] < 0)
+				return null;
+		}
+		return indexes;
+	}
+
+	/**
+	 * Tell, for each ORDER BY item of the given query, whether it is sorted
+	 * in descending order.
+	 *
+	 * @param query	A query.
+	 *
+	 * @return	The sorting direction of each ORDER BY item.
+	 */
+	public static boolean[] getOrderDirections(final ADQLQuery query){
+		boolean[] descending = new boolean[query.getOrderBy().size()];
+		for(int i = 0; i < descending.length; i++)
+			descending[i] = query.getOrderBy().get(i).isDescSorting();
+		return descending;
+	}
+
+}
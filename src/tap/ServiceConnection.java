@@ -16,16 +16,20 @@ package tap;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2012-2021 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
 import adql.db.FunctionDef;
+import tap.cache.ParsedQueryCache;
+import tap.cache.ResultCache;
 import tap.db.DBConnection;
 import tap.formatter.OutputFormat;
 import tap.log.DefaultTAPLog;
 import tap.log.TAPLog;
 import tap.metadata.TAPMetadata;
+import tap.metrics.TAPMetrics;
+import tap.upload.UploadCache;
 import uws.service.UserIdentifier;
 import uws.service.file.LocalUWSFileManager;
 import uws.service.file.UWSFileManager;
@@ -45,7 +49,7 @@ import java.util.Iterator;
  * </p>
  *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.4 (11/2021)
+ * @version 2.4 (10/2026)
  */
 public interface ServiceConnection {
 
@@ -885,4 +889,181 @@ public interface ServiceConnection {
 	 */
 	public boolean fixOnFailEnabled();
 
+	/**
+	 * <i>[OPTIONAL]</i>
+	 * <p>
+	 * 	Get the cache in which the content of uploads by reference must be
+	 * 	downloaded.
+	 * </p>
+	 *
+	 * <p>
+	 * 	With such cache, the content of uploads by reference is downloaded in
+	 * 	background as soon as the job is created, in parallel with the other
+	 * 	uploads. Besides, downloaded contents may be reused by other jobs
+	 * 	if the distant server says they have not changed.
+	 * </p>
+	 *
+	 * <p><i>Note:
+	 * 	If NULL is returned, the content of uploads by reference is downloaded
+	 * 	only when the job is executed, one upload after the other, and without
+	 * 	any caching.
+	 * </i></p>
+	 *
+	 * @return	The cache for uploads by reference,
+	 *        	or NULL if no such cache must be used.
+	 *
+	 * @since 2.4
+	 */
+	public UploadCache getUploadCache();
+
+	/**
+	 * <i>[OPTIONAL]</i>
+	 * <p>
+	 * 	Get the cache in which query results must be stored so that they can
+	 * 	be returned immediately when the same query is submitted again.
+	 * </p>
+	 *
+	 * <p><i>Note:
+	 * 	If NULL is returned, all queries are always executed in the database.
+	 * </i></p>
+	 *
+	 * <p><i><b>Warning:</b>
+	 * 	The content of the database is not watched by the cache. If a table is
+	 * 	modified, the corresponding cached results must be removed with
+	 * 	{@link ResultCache#invalidate(String)}.
+	 * </i></p>
+	 *
+	 * @return	The cache of query results,
+	 *        	or NULL if no result must be cached.
+	 *
+	 * @since 2.4
+	 */
+	public ResultCache getResultCache();
+
+	/**
+	 * <i>[OPTIONAL]</i>
+	 * <p>
+	 * 	Get the cache in which parsed and checked ADQL queries must be kept so
+	 * 	that the same query text does not have to be parsed again.
+	 * </p>
+	 *
+	 * <p><i>Note:
+	 * 	If NULL is returned, all queries are always parsed.
+	 * </i></p>
+	 *
+	 * <p><i><b>Warning:</b>
+	 * 	If the TAP metadata are modified in place, this cache must be cleared
+	 * 	with {@link ParsedQueryCache#clear()}.
+	 * </i></p>
+	 *
+	 * @return	The cache of parsed queries,
+	 *        	or NULL if no parsed query must be cached.
+	 *
+	 * @since 2.4
+	 */
+	public ParsedQueryCache getParsedQueryCache();
+
+	/**
+	 * <i>[OPTIONAL]</i>
+	 * <p>
+	 * 	Get the object in which statistics about all ADQL query executions
+	 * 	(durations of each step, written rows and bytes, ...) must be
+	 * 	recorded.
+	 * </p>
+	 *
+	 * <p>
+	 * 	If not NULL, these statistics are exposed, with the state of the job
+	 * 	queues and of the caches, by the TAP resource
+	 * 	{@link tap.resource.Metrics} (<code>/metrics</code>).
+	 * </p>
+	 *
+	 * <p><i>Note:
+	 * 	If NULL is returned, no statistic is recorded and there is no
+	 * 	<code>/metrics</code> resource.
+	 * </i></p>
+	 *
+	 * @return	The execution statistics,
+	 *        	or NULL if no statistic must be recorded.
+	 *
+	 * @since 2.4
+	 */
+	public TAPMetrics getMetrics();
+
+	/**
+	 * <i>[OPTIONAL]</i>
+	 * <p>
+	 * 	Get the limits on the complexity (number of joins, depth of
+	 * 	sub-queries) and on the estimated cost of the queries to execute.
+	 * </p>
+	 *
+	 * <p><i>Note:
+	 * 	If NULL is returned, all queries accepted by the ADQL parser are
+	 * 	executed, without any cost estimation.
+	 * </i></p>
+	 *
+	 * @return	The query limits,
+	 *        	or NULL if there is no limit.
+	 *
+	 * @since 2.4
+	 */
+	public QueryLimits getQueryLimits();
+
+	/**
+	 * <i>[OPTIONAL]</i>
+	 * <p>
+	 * 	Tell when the result of an asynchronous query must be spooled in a local
+	 * 	temporary file before being formatted.
+	 * </p>
+	 *
+	 * <p>
+	 * 	Spooling reads the whole result as fast as possible, so that the
+	 * 	database connection can be given back to the factory before the
+	 * 	formatting and writing of the result (which can be much slower, for
+	 * 	instance with FITS or VOTable-BINARY).
+	 * </p>
+	 *
+	 * <ul>
+	 * 	<li><b>a negative value:</b> results are never spooled,</li>
+	 * 	<li><b>0:</b> results are always spooled,</li>
+	 * 	<li><b>a positive value:</b> results are spooled only when getting
+	 * 	    the database connection of the job took at least this number of
+	 * 	    milliseconds ; that's to say when the connections are scarce.</li>
+	 * </ul>
+	 *
+	 * <p><i>Note:
+	 * 	Results of synchronous queries are never spooled.
+	 * </i></p>
+	 *
+	 * @return	The spooling threshold (in milliseconds).
+	 *
+	 * @since 2.4
+	 */
+	public long getResultSpoolingThreshold();
+
+	/**
+	 * <i>[OPTIONAL]</i>
+	 * <p>
+	 * 	Get the pool of threads in which the partitions of a query on a
+	 * 	partitioned table (see {@link tap.metadata.TAPTable#setPartitioning(String, Number...)})
+	 * 	must be executed in parallel.
+	 * </p>
+	 *
+	 * <p>
+	 * 	The size of this pool bounds the number of partitions executed at the
+	 * 	same time by all jobs, and so the number of additional database
+	 * 	connections they need. A query whose partitions can not all get a
+	 * 	thread and a connection immediately is executed as a whole.
+	 * </p>
+	 *
+	 * <p><i>Note:
+	 * 	If NULL is returned, queries are never executed in parallel.
+	 * </i></p>
+	 *
+	 * @return	The threads executing partitions,
+	 *        	or NULL if no query must be executed in parallel.
+	 *
+	 * @since 2.4
+	 */
+	public PartitionExecutor getPartitionExecutor();
+
 }
@@ -18,7 +18,7 @@ import adql.db.DBColumn;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2012-2019 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -41,7 +41,7 @@ import tap.parameters.TAPParameters;
  * </p>
  *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.3 (03/2019)
+ * @version 2.4 (10/2026)
  */
 public class TAPExecutionReport {
 
@@ -61,6 +61,16 @@ public class TAPExecutionReport {
 	 * @since 2.3 */
 	public String fixedQuery = null;
 
+	/** Normalized ADQL query (as executed, i.e. with the row limit set by
+	 * MAXREC) to write in a result shared with other jobs (e.g. stored in the
+	 * result cache).
+	 * <p>When set, output formats must write this query instead of the one
+	 * submitted by the user, and nothing specific to this job (e.g. its ID).
+	 * So, the written result can be served to any job running the same
+	 * query.</p>
+	 * @since 2.4 */
+	public String sharedQuery = null;
+
 	/** List of all resulting columns. <i>Empty array, if not yet known.</i> */
 	public DBColumn[] resultingColumns = new DBColumn[0];
 
@@ -68,9 +78,15 @@ public class TAPExecutionReport {
 	 * @since 2.0 */
 	public long nbRows = -1;
 
-	/** Duration of all execution steps. <i>For the moment only 4 steps (in the
-	 * order): uploading, parsing, executing and writing.</i> */
-	protected final long[] durations = new long[]{ -1, -1, -1, -1 };
+	/** Indicate whether the written result is incomplete because of an error
+	 * reported inside the result itself (e.g. in synchronous mode, a VOTable
+	 * ended by an INFO QUERY_STATUS=ERROR) instead of being thrown.
+	 * @since 2.4 */
+	public boolean resultTruncated = false;
+
+	/** Duration of all execution steps. <i>For the moment only 5 steps (in the
+	 * order): uploading, parsing, executing, writing and spooling.</i> */
+	protected final long[] durations = new long[]{ -1, -1, -1, -1, -1 };
 
 	/** Total duration of the job execution. */
 	protected long totalDuration = -1;
@@ -102,8 +118,9 @@ public class TAPExecutionReport {
 	 * <p><i><b>Warning:</b>
 	 * 	for the moment, only {@link ExecutionProgression#UPLOADING},
 	 * 	{@link ExecutionProgression#PARSING},
-	 * 	{@link ExecutionProgression#EXECUTING_ADQL} and
-	 * 	{@link ExecutionProgression#WRITING_RESULT} are managed.
+	 * 	{@link ExecutionProgression#EXECUTING_ADQL},
+	 * 	{@link ExecutionProgression#WRITING_RESULT} and
+	 * 	{@link ExecutionProgression#SPOOLING_RESULT} are managed.
 	 * </i></p>
 	 *
 	 * @param tapProgression	Execution progression.
@@ -121,6 +138,8 @@ public class TAPExecutionReport {
 				return 2;
 			case WRITING_RESULT:
 				return 3;
+			case SPOOLING_RESULT:
+				return 4;
 			default:
 				return -1;
 		}
@@ -194,6 +213,16 @@ public class TAPExecutionReport {
 		return getDuration(ExecutionProgression.WRITING_RESULT);
 	}
 
+	/**
+	 * Get the execution of the SPOOL step.
+	 * @return Duration (in ms), or -1 if the result has not been spooled.
+	 * @see #getDuration(ExecutionProgression)
+	 * @since 2.4
+	 */
+	public final long getSpoolingDuration(){
+		return getDuration(ExecutionProgression.SPOOLING_RESULT);
+	}
+
 	/**
 	 * Get the total duration of the job execution.
 	 * @return	Duration (in ms).
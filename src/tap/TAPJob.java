@@ -16,13 +16,14 @@ package tap;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2012-2017 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
 import java.util.Date;
 import java.util.List;
 
+import tap.db.QueryCost;
 import tap.log.TAPLog;
 import tap.parameters.DALIUpload;
 import tap.parameters.TAPParameters;
@@ -32,6 +33,7 @@ import uws.job.ExecutionPhase;
 import uws.job.JobThread;
 import uws.job.Result;
 import uws.job.UWSJob;
+import uws.job.manager.ExecutionManager;
 import uws.job.parameters.UWSParameters;
 import uws.job.user.JobOwner;
 import uws.service.log.UWSLog.LogLevel;
@@ -48,7 +50,7 @@ import uws.service.log.UWSLog.LogLevel;
  * </p>
  *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.2 (09/2017)
+ * @version 2.4 (10/2026)
  */
 public class TAPJob extends UWSJob {
 	private static final long serialVersionUID = 1L;
@@ -110,6 +112,11 @@ public class TAPJob extends UWSJob {
 	/** Parameters of this job for its execution. */
 	protected final TAPParameters tapParams;
 
+	/** Cost of the query of this job, as estimated by the database.
+	 * <i>NaN if unknown.</i>
+	 * @since 2.4 */
+	protected double estimatedCost = Double.NaN;
+
 	/**
 	 * Build a pending TAP job with the given parameters.
 	 *
@@ -339,6 +346,36 @@ public class TAPJob extends UWSJob {
 		this.execReport = execReport;
 	}
 
+	/**
+	 * Get the cost of the query of this job, as estimated by the database
+	 * just before the job has been given to the execution manager.
+	 *
+	 * <p>
+	 * 	The cost is estimated only if the queue of asynchronous jobs must be
+	 * 	ordered by cost (see {@link QueryLimits#isQueueOrderedByCost()}).
+	 * </p>
+	 *
+	 * @return	The estimated cost,
+	 *        	or <i>NaN</i> if unknown.
+	 *
+	 * @since 2.4
+	 */
+	public final double getEstimatedCost(){
+		return estimatedCost;
+	}
+
+	/**
+	 * Set the cost of the query of this job, as estimated by the database.
+	 *
+	 * @param cost	The estimated cost,
+	 *            	or <i>NaN</i> if unknown.
+	 *
+	 * @since 2.4
+	 */
+	public final void setEstimatedCost(final double cost){
+		estimatedCost = cost;
+	}
+
 	/**
 	 * Create the thread to use for the execution of this job.
 	 *
@@ -362,6 +399,77 @@ public class TAPJob extends UWSJob {
 		}
 	}
 
+	/**
+	 * Estimate the cost of the query of this job, if the queue of asynchronous
+	 * jobs must be ordered by cost (see {@link QueryLimits#isQueueOrderedByCost()}).
+	 *
+	 * <p>
+	 * 	This function is called by {@link #start(boolean)} just before giving
+	 * 	this job to the execution manager, and so never while the manager is
+	 * 	locked: it parses the query and borrows a database connection for a
+	 * 	short time. The execution manager then only reads the estimated cost
+	 * 	(see {@link #getEstimatedCost()}).
+	 * </p>
+	 *
+	 * <p>
+	 * 	Nothing is done if the cost is already known, if the thread of this job
+	 * 	is not yet created, if some tables must be uploaded (they do not exist
+	 * 	yet in the database) or if this job is likely to start immediately (no
+	 * 	queued job and less running jobs than {@link ServiceConnection#getNbMaxAsyncJobs()}).
+	 * 	If the estimation fails, the cost stays unknown (i.e. the job will be
+	 * 	queued at the end) and a warning is logged.
+	 * </p>
+	 *
+	 * @see ADQLExecutor#estimateCost(TAPJob)
+	 *
+	 * @since 2.4
+	 */
+	public final void estimateCost(){
+		if (!Double.isNaN(estimatedCost) || thread == null || getTablesToUpload() != null)
+			return;
+
+		// Nothing to estimate if the job will not wait in the queue:
+		final ExecutionManager manager = getJobList().getExecutionManager();
+		final int maxRunningJobs = ((AsyncThread)thread).executor.service.getNbMaxAsyncJobs();
+		if (manager.getNbQueuedJobs() == 0 && (maxRunningJobs <= 0 || manager.getNbRunningJobs() < maxRunningJobs))
+			return;
+
+		try{
+			QueryCost cost = ((AsyncThread)thread).executor.estimateCost(this);
+			if (cost != null){
+				estimatedCost = cost.cost;
+				getLogger().logJob(LogLevel.INFO, this, "ESTIMATED_COST", "Estimated query cost of the job \"" + jobId + "\": " + cost, null);
+			}
+		}catch(TAPException te){
+			getLogger().logJob(LogLevel.WARNING, this, "ESTIMATED_COST", "Impossible to estimate the query cost of the job \"" + jobId + "\"! It will be queued at the end.", te);
+		}
+	}
+
+	/**
+	 * Start downloading in background the tables uploaded by reference, in the
+	 * upload cache of the TAP service (see {@link ServiceConnection#getUploadCache()}).
+	 *
+	 * <p>
+	 * 	This function is called by {@link #start(boolean)}, and so only once this
+	 * 	job has been accepted: no download is started for a job which is never
+	 * 	run. The downloads are given back when the resources of this job are
+	 * 	cleared (see {@link #clearResources(boolean)}).
+	 * </p>
+	 *
+	 * <p><i>Note:
+	 * 	Nothing is done if the thread of this job is not yet created or if
+	 * 	the uploads are already prefetched.
+	 * </i></p>
+	 *
+	 * @see TAPParameters#prefetchUploads(tap.upload.UploadCache)
+	 *
+	 * @since 2.4
+	 */
+	protected void prefetchUploads(){
+		if (thread != null)
+			tapParams.prefetchUploads(((AsyncThread)thread).executor.service.getUploadCache());
+	}
+
 	/**
 	 * Check whether this job is able to start right now.
 	 *
@@ -401,6 +509,10 @@ public class TAPJob extends UWSJob {
 		else if (useManager){
 			// Create its corresponding thread, if not already existing:
 			createThread();
+			// The job is accepted => start downloading its uploads by reference:
+			prefetchUploads();
+			// Estimate the query cost, if needed to order the queue (never while the execution manager is locked):
+			estimateCost();
 			// Ask to the execution manager to test whether the job is ready for execution, and if, execute it (by calling this function with "false" as parameter):
 			getJobList().getExecutionManager().execute(this);
 
@@ -408,6 +520,8 @@ public class TAPJob extends UWSJob {
 		else{
 			// Create its corresponding thread, if not already existing:
 			createThread();
+			// Start downloading its uploads by reference (if not already done when queued):
+			prefetchUploads();
 			if (!isReadyForExecution()){
 				UWSException ue = new NoDBConnectionAvailableException();
 				((TAPLog)getLogger()).logDB(LogLevel.ERROR, null, "CONNECTION_LACK", "No more database connection available for the moment!", ue);
@@ -431,6 +545,18 @@ public class TAPJob extends UWSJob {
 		}
 	}
 
+	/**
+	 * Besides, the downloads of the tables uploaded by reference are given
+	 * back (and cancelled if no other job is waiting for them).
+	 *
+	 * @since 2.4
+	 */
+	@Override
+	public void clearResources(final boolean fullClean){
+		super.clearResources(fullClean);
+		tapParams.cancelPrefetchUploads();
+	}
+
 	/** @since 2.1 */
 	@Override
 	protected void stop(){
@@ -16,7 +16,7 @@ package tap;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2012-2020 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -24,6 +24,9 @@ import java.io.IOException;
 import java.util.Date;
 import java.util.Iterator;
 
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import tap.parameters.TAPExecutionDurationController;
@@ -51,6 +54,26 @@ import uws.service.request.UploadFile;
  * 	{@link #determineMaxExecutionDuration()}.
  * </p>
  *
+ * <h3>Client disconnection</h3>
+ *
+ * <p>
+ * 	While the query is executed, the connection with the HTTP client is
+ * 	checked every {@link #probeInterval} milliseconds with
+ * 	{@link #isClientDisconnected(HttpServletRequest, HttpServletResponse)}.
+ * 	As soon as the client is gone, the execution is interrupted: the running
+ * 	SQL query is cancelled (see {@link ADQLExecutor#cancelQuery()}) and the
+ * 	database connection is released, without waiting for a write error in
+ * 	the HTTP response.
+ * </p>
+ *
+ * <p>
+ * 	The disconnection is reported by the servlet container when the request
+ * 	is processed in asynchronous mode, as done by
+ * 	{@link tap.resource.TAP#executeRequest(HttpServletRequest, HttpServletResponse)}
+ * 	for the resource /sync: the {@link DisconnectionListener} then marks the
+ * 	request with the attribute {@link #REQ_ATTRIBUTE_CLIENT_DISCONNECTED}.
+ * </p>
+ *
  * <h3>Error management</h3>
  *
  * <p>
@@ -59,7 +82,7 @@ import uws.service.request.UploadFile;
  * </p>
  *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.4 (08/2020)
+ * @version 2.4 (10/2026)
  */
 public class TAPSyncJob {
 
@@ -71,6 +94,27 @@ public class TAPSyncJob {
 	/** The time (in ms) to wait the end of the thread after an interruption. */
 	protected long waitForStop = 1000;
 
+	/** Default time (in ms) between two checks of the connection with the
+	 * HTTP client.
+	 * @since 2.4 */
+	public final static long DEFAULT_PROBE_INTERVAL = 1000;
+
+	/** The time (in ms) between two checks of the connection with the HTTP
+	 * client (see {@link #isClientDisconnected(HttpServletRequest, HttpServletResponse)}).
+	 * @since 2.4 */
+	protected long probeInterval = DEFAULT_PROBE_INTERVAL;
+
+	/** Indicate whether the HTTP client has been notified as disconnected
+	 * (see {@link #notifyClientDisconnection()}).
+	 * @since 2.4 */
+	private volatile boolean clientDisconnected = false;
+
+	/** Name of the request attribute set by {@link DisconnectionListener}
+	 * when the servlet container reports the disconnection of the HTTP
+	 * client.
+	 * @since 2.4 */
+	public final static String REQ_ATTRIBUTE_CLIENT_DISCONNECTED = "tap_client_disconnected";
+
 	/** Last generated ID of a synchronous job. */
 	protected static String lastId = "S" + System.currentTimeMillis() + "A";
 
@@ -248,8 +292,49 @@ public class TAPSyncJob {
 	 *                     				ADQL query.
 	 *
 	 * @see SyncThread
+	 * @see #start(HttpServletRequest, HttpServletResponse)
 	 */
 	public synchronized boolean start(final HttpServletResponse response) throws IllegalStateException, IOException, TAPException {
+		return start(null, response);
+	}
+
+	/**
+	 * Start the execution of this job in order to execute the given ADQL query.
+	 *
+	 * <p>
+	 * 	The execution itself will be processed by an {@link ADQLExecutor} inside
+	 * 	a thread ({@link SyncThread}). Meanwhile, the connection with the HTTP
+	 * 	client is regularly checked: if it is closed, the execution is stopped
+	 * 	and an {@link IOException} is thrown.
+	 * </p>
+	 *
+	 * <p><i><b>Important:</b>
+	 * 	No error should be written in this function. If any error occurs it
+	 * 	should be thrown, in order to be manager on a top level.
+	 * </i></p>
+	 *
+	 * @param request	Request which asked for this job execution.
+	 *               	<i>May be NULL ; but then the disconnection of the HTTP
+	 *               	client is detected only when writing the result.</i>
+	 * @param response	Response in which the result must be written.
+	 *
+	 * @return	<code>true</code> if the execution was successful,
+	 *        	<code>false</code> otherwise.
+	 *
+	 * @throws IllegalStateException	If this synchronous job has already been
+	 *                              	started before.
+	 * @throws IOException				If any error occurs while writing the
+	 *                    				query result in the given
+	 *                    				{@link HttpServletResponse}, or if the
+	 *                    				HTTP client has disconnected.
+	 * @throws TAPException				If any error occurs while executing the
+	 *                     				ADQL query.
+	 *
+	 * @see SyncThread
+	 *
+	 * @since 2.4
+	 */
+	public synchronized boolean start(final HttpServletRequest request, final HttpServletResponse response) throws IllegalStateException, IOException, TAPException {
 		if (startedAt != null)
 			throw new IllegalStateException("Impossible to restart a synchronous TAP query!");
 
@@ -269,17 +354,42 @@ public class TAPSyncJob {
 		// Determine the maximum execution duration (in milliseconds):
 		final long timeToStop = determineMaxExecutionDuration();
 
+		// Let the database stop the query by itself when this duration is reached:
+		if (timeToStop > 0)
+			executor.setExecutionDeadline(System.currentTimeMillis() + timeToStop);
+
+		// The query is accepted => download its uploads by reference through the upload cache:
+		tapParams.prefetchUploads(service.getUploadCache());
+
 		// Give to a thread which will execute the query:
 		thread = new SyncThread(executor, ID, tapParams, response);
 		thread.start();
 
 		// Wait the end of the thread until the maximum execution duration is reached:
-		boolean timeout = false;
+		boolean timeout = false, disconnected = false;
 		try {
-			// wait the end:
-			thread.join(timeToStop);
+			// wait the end, while checking regularly the connection with the HTTP client:
+			final long deadline = System.currentTimeMillis() + timeToStop;
+			long remaining = (timeToStop > 0) ? timeToStop : Long.MAX_VALUE;
+			while(thread.isAlive() && remaining > 0) {
+				thread.join(Math.min(remaining, (probeInterval > 0) ? probeInterval : remaining));
+				if (thread.isAlive() && isClientDisconnected(request, response)) {
+					disconnected = true;
+					break;
+				}
+				if (timeToStop > 0)
+					remaining = deadline - System.currentTimeMillis();
+			}
+			// if the HTTP client is gone, stop immediately the execution:
+			if (disconnected) {
+				thread.interrupt();
+				thread.join(waitForStop);
+				if (service.getMetrics() != null)
+					service.getMetrics().recordClientDisconnection();
+				service.getLogger().logTAP(LogLevel.INFO, this, "END", "Abortion of the synchronous job " + ID + "! Cause: connection with the HTTP client closed during the execution.", null);
+			}
 			// if still alive after this duration, interrupt it:
-			if (thread.isAlive()) {
+			else if (thread.isAlive()) {
 				timeout = true;
 				thread.interrupt();
 				thread.join(waitForStop);
@@ -299,6 +409,10 @@ public class TAPSyncJob {
 			deleteUploads(tapParams);
 		}
 
+		// CASE: CLIENT DISCONNECTION
+		if (disconnected)
+			throw new IOException("Connection with the HTTP client closed during the execution of the synchronous job " + ID + "!");
+
 		// Report any error that may have occurred while the thread execution:
 		Throwable error = thread.getError();
 		// CASE: TIMEOUT
@@ -319,6 +433,8 @@ public class TAPSyncJob {
 			else if (error instanceof IOException) {
 				// log the unexpected interruption (unexpected because not caused by a timeout):
 				service.getLogger().logTAP(LogLevel.INFO, this, "END", "Abortion of the synchronous job " + ID + "! Cause: connection with the HTTP client unexpectedly closed.", error);
+				if (service.getMetrics() != null)
+					service.getMetrics().recordClientDisconnection();
 				// throw the error until the TAP instance to notify it about the abortion:
 				throw (IOException)error;
 			}
@@ -347,6 +463,88 @@ public class TAPSyncJob {
 		return thread.isSuccess();
 	}
 
+	/**
+	 * Tell whether the HTTP client which asked for this job is gone.
+	 *
+	 * <p>
+	 * 	This function is called every {@link #probeInterval} milliseconds
+	 * 	while the query is executed. It must return quickly and must not
+	 * 	block: the servlet API (3.0) does not let write or read anything in
+	 * 	the HTTP response/request for this purpose without interfering with
+	 * 	the query result.
+	 * </p>
+	 *
+	 * <p>
+	 * 	By default, <code>true</code> is returned if the disconnection has
+	 * 	been notified with {@link #notifyClientDisconnection()}, or if the
+	 * 	request has the attribute {@link #REQ_ATTRIBUTE_CLIENT_DISCONNECTED}.
+	 * 	This attribute is set by {@link DisconnectionListener} when the
+	 * 	request is processed in asynchronous mode and the servlet container
+	 * 	reports an error on it (see {@link AsyncListener#onError(AsyncEvent)}).
+	 * 	This function can be overwritten in order to use a probe specific to
+	 * 	the servlet container.
+	 * </p>
+	 *
+	 * @param request	The HTTP request which started this job.
+	 *               	<i>May be NULL.</i>
+	 * @param response	The HTTP response in which the result must be written.
+	 *
+	 * @return	<code>true</code> if the HTTP client is disconnected,
+	 *        	<code>false</code> otherwise.
+	 *
+	 * @since 2.4
+	 */
+	protected boolean isClientDisconnected(final HttpServletRequest request, final HttpServletResponse response) {
+		return clientDisconnected || (request != null && request.getAttribute(REQ_ATTRIBUTE_CLIENT_DISCONNECTED) != null);
+	}
+
+	/**
+	 * Notify this job that the HTTP client which asked for it is gone.
+	 *
+	 * <p>
+	 * 	The execution will be stopped at the next connection check (at most
+	 * 	{@link #probeInterval} milliseconds later).
+	 * </p>
+	 *
+	 * @since 2.4
+	 */
+	public final void notifyClientDisconnection() {
+		clientDisconnected = true;
+	}
+
+	/**
+	 * Listener of the asynchronous processing of the HTTP request. It marks
+	 * the request with the attribute {@link #REQ_ATTRIBUTE_CLIENT_DISCONNECTED}
+	 * as soon as the servlet container reports an error, so that the
+	 * synchronous job executing it stops at its next connection check.
+	 *
+	 * @author Gr&eacute;gory Mantelet (CDS)
+	 * @version 2.4 (10/2026)
+	 * @since 2.4
+	 */
+	public static class DisconnectionListener implements AsyncListener {
+		@Override
+		public void onError(final AsyncEvent event) throws IOException {
+			if (event.getSuppliedRequest() != null)
+				event.getSuppliedRequest().setAttribute(REQ_ATTRIBUTE_CLIENT_DISCONNECTED, Boolean.TRUE);
+		}
+
+		@Override
+		public void onComplete(final AsyncEvent event) throws IOException {
+			;
+		}
+
+		@Override
+		public void onTimeout(final AsyncEvent event) throws IOException {
+			;
+		}
+
+		@Override
+		public void onStartAsync(final AsyncEvent event) throws IOException {
+			;
+		}
+	}
+
 	/**
 	 * Determine the maximum execution duration of this synchronous query.
 	 *
@@ -404,11 +602,19 @@ public class TAPSyncJob {
 	/**
 	 * Delete all uploaded files.
 	 *
+	 * <p><i>Note:
+	 * 	Since v2.4, the downloads of the tables uploaded by reference are also
+	 * 	given back to the upload cache.
+	 * </i></p>
+	 *
 	 * @param tapParams	Input parameters (listing all uploaded files, if any).
 	 *
 	 * @since 2.3
 	 */
 	protected void deleteUploads(final TAPParameters tapParams) {
+		// Give back the downloads of the uploads by reference:
+		tapParams.cancelPrefetchUploads();
+
 		Iterator<UploadFile> itFiles = tapParams.getFiles();
 		while(itFiles.hasNext()) {
 			UploadFile uf = itFiles.next();
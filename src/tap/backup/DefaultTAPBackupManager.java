@@ -16,7 +16,7 @@ package tap.backup;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2012-2020 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -46,7 +46,7 @@ import uws.service.request.UploadFile;
  * <p><i>note: Basically the saved data are the same, but in addition some execution statistics are also added.</i></p>
  *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.4 (01/2020)
+ * @version 2.4 (10/2026)
  *
  * @see DefaultUWSBackupManager
  */
@@ -149,6 +149,7 @@ public class DefaultTAPBackupManager extends DefaultUWSBackupManager {
 			jsonExecReport.put("parsingduration", execReport.getParsingDuration());
 			jsonExecReport.put("executionduration", execReport.getExecutionDuration());
 			jsonExecReport.put("formattingduration", execReport.getFormattingDuration());
+			jsonExecReport.put("spoolingduration", execReport.getSpoolingDuration());
 			jsonExecReport.put("totalduration", execReport.getTotalDuration());
 
 			// Add the execution report into the parameters list:
@@ -243,6 +244,8 @@ public class DefaultTAPBackupManager extends DefaultUWSBackupManager {
 							execReport.setDuration(ExecutionProgression.EXECUTING_ADQL, jsonExecReport.getLong(key));
 						else if (key.equalsIgnoreCase("formattingduration"))
 							execReport.setDuration(ExecutionProgression.WRITING_RESULT, jsonExecReport.getLong(key));
+						else if (key.equalsIgnoreCase("spoolingduration"))
+							execReport.setDuration(ExecutionProgression.SPOOLING_RESULT, jsonExecReport.getLong(key));
 						else if (key.equalsIgnoreCase("totalduration"))
 							execReport.setTotalDuration(jsonExecReport.getLong(key));
 						else
@@ -0,0 +1,286 @@
+package tap.cache;
+
+/*
+ * This file is part of TAPLibrary.
+ *
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import adql.parser.ParseException;
+import adql.query.ADQLQuery;
+
+/**
+ * Cache of parsed (and checked) ADQL queries.
+ *
+ * <p>
+ * 	Parsing an ADQL query (tokenization, syntactic analysis, check of all
+ * 	identifiers against the metadata and, if enabled, quick fix and second
+ * 	parsing) is done again for each job, even when automated clients submit
+ * 	exactly the same query many times. This cache keeps, for each query
+ * 	text, the result of this parsing: either the checked query, or the
+ * 	error which has been raised.
+ * </p>
+ *
+ * <h3>Key</h3>
+ * <p>
+ * 	A parsed query is identified by its exact ADQL text and by a context
+ * 	string which must identify everything else the parsing depends on
+ * 	(e.g. the metadata used by the checker, whether the quick fix is
+ * 	enabled, ...). Queries depending on uploaded tables should not be put in
+ * 	this cache, since their check depends on the job.
+ * </p>
+ *
+ * <h3>Isolation</h3>
+ * <p>
+ * 	The cached query is never returned as such: {@link ParsedQuery#getQuery()}
+ * 	returns a copy of it (see {@link ADQLQuery#getCopy()}), so that any
+ * 	modification done for one job (e.g. the row limit set from MAXREC) does
+ * 	not affect the other ones.
+ * </p>
+ *
+ * <h3>Eviction</h3>
+ * <p>
+ * 	When the maximum number of entries is reached, the least recently used
+ * 	one is removed. The metadata are not watched by this cache: if they are
+ * 	modified in place, the cache should be cleared with {@link #clear()}.
+ * </p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 2.4 (10/2026)
+ * @since 2.4
+ */
+public class ParsedQueryCache {
+
+	/** Maximum number of parsed queries kept in this cache. */
+	protected final int maxEntries;
+
+	/** All cached parsed queries, from the least recently used to the most
+	 * recently used. */
+	protected final LinkedHashMap<String, ParsedQuery> entries;
+
+	/** Number of parsed queries found in this cache. */
+	private long nbHits = 0;
+
+	/** Number of parsed queries not found in this cache. */
+	private long nbMisses = 0;
+
+	/**
+	 * Create a cache of parsed queries.
+	 *
+	 * @param maxEntries	Maximum number of parsed queries to keep.
+	 *
+	 * @throws IllegalArgumentException	If the given maximum is not positive.
+	 */
+	public ParsedQueryCache(final int maxEntries) throws IllegalArgumentException{
+		if (maxEntries <= 0)
+			throw new IllegalArgumentException("The maximum number of entries of a parsed query cache must be positive (here: " + maxEntries + ")!");
+		this.maxEntries = maxEntries;
+		this.entries = new LinkedHashMap<String, ParsedQuery>(16, 0.75f, true){
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, ParsedQuery> eldest){
+				return size() > ParsedQueryCache.this.maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Get the maximum number of parsed queries kept in this cache.
+	 *
+	 * @return	Maximum number of entries.
+	 */
+	public final int getMaxEntries(){
+		return maxEntries;
+	}
+
+	/**
+	 * Get the number of parsed queries currently in this cache.
+	 *
+	 * @return	Number of cached parsed queries.
+	 */
+	public synchronized int getNbEntries(){
+		return entries.size();
+	}
+
+	/**
+	 * Get the number of times a parsed query has been found in this cache.
+	 *
+	 * @return	Number of cache hits.
+	 */
+	public synchronized long getNbHits(){
+		return nbHits;
+	}
+
+	/**
+	 * Get the number of times a parsed query has not been found in this cache.
+	 *
+	 * @return	Number of cache misses.
+	 */
+	public synchronized long getNbMisses(){
+		return nbMisses;
+	}
+
+	/**
+	 * Build the key identifying the parsing of the given query text in the
+	 * given context.
+	 *
+	 * @param adql		The ADQL query text.
+	 * @param context	Identification of everything else the parsing depends
+	 *               	on. <i>May be NULL.</i>
+	 *
+	 * @return	The corresponding cache key.
+	 */
+	protected String getKey(final String adql, final String context){
+		return context + "\n" + adql;
+	}
+
+	/**
+	 * Get the result of the parsing of the given query text.
+	 *
+	 * @param adql		The ADQL query text.
+	 * @param context	Identification of everything else the parsing depends
+	 *               	on. <i>May be NULL.</i>
+	 *
+	 * @return	The cached parsed query,
+	 *        	or NULL if not in this cache.
+	 */
+	public synchronized ParsedQuery get(final String adql, final String context){
+		ParsedQuery parsed = (adql == null) ? null : entries.get(getKey(adql, context));
+		if (parsed != null)
+			nbHits++;
+		else
+			nbMisses++;
+		return parsed;
+	}
+
+	/**
+	 * Add a successfully parsed query in this cache.
+	 *
+	 * <p><i><b>Warning:</b>
+	 * 	The given query must not be modified after this call. Only copies of it
+	 * 	should be used.
+	 * </i></p>
+	 *
+	 * @param adql			The ADQL query text.
+	 * @param context		Identification of everything else the parsing
+	 *               		depends on. <i>May be NULL.</i>
+	 * @param query			The parsed and checked query.
+	 * @param fixedQuery	The query text actually parsed if it had to be
+	 *                  	fixed first. <i>NULL if not fixed.</i>
+	 *
+	 * @return	The cached parsed query.
+	 */
+	public synchronized ParsedQuery put(final String adql, final String context, final ADQLQuery query, final String fixedQuery){
+		ParsedQuery parsed = new ParsedQuery(query, fixedQuery, null);
+		entries.put(getKey(adql, context), parsed);
+		return parsed;
+	}
+
+	/**
+	 * Add a failed parsing in this cache.
+	 *
+	 * @param adql			The ADQL query text.
+	 * @param context		Identification of everything else the parsing
+	 *               		depends on. <i>May be NULL.</i>
+	 * @param error			The error raised by the parsing.
+	 * @param fixedQuery	The query text whose the parsing failed if the
+	 *                  	original text had to be fixed first.
+	 *                  	<i>NULL if not fixed.</i>
+	 *
+	 * @return	The cached parsed query.
+	 */
+	public synchronized ParsedQuery putError(final String adql, final String context, final ParseException error, final String fixedQuery){
+		ParsedQuery parsed = new ParsedQuery(null, fixedQuery, error);
+		entries.put(getKey(adql, context), parsed);
+		return parsed;
+	}
+
+	/**
+	 * Remove all parsed queries from this cache.
+	 */
+	public synchronized void clear(){
+		entries.clear();
+	}
+
+	/**
+	 * Result of the parsing of an ADQL query text.
+	 *
+	 * @author Gr&eacute;gory Mantelet (CDS)
+	 * @version 2.4 (10/2026)
+	 * @since 2.4
+	 */
+	public static class ParsedQuery {
+		/** The parsed and checked query.
+		 * <i>NULL if the parsing failed.</i> */
+		private final ADQLQuery template;
+		/** The query text actually parsed, if it had to be fixed first.
+		 * <i>NULL if not fixed.</i> */
+		private final String fixedQuery;
+		/** The error raised by the parsing.
+		 * <i>NULL if the parsing succeeded.</i> */
+		private final ParseException error;
+
+		protected ParsedQuery(final ADQLQuery template, final String fixedQuery, final ParseException error){
+			this.template = template;
+			this.fixedQuery = fixedQuery;
+			this.error = error;
+		}
+
+		/**
+		 * Get the query text actually parsed, if the original one had to be
+		 * fixed first.
+		 *
+		 * @return	The fixed query,
+		 *        	or NULL if not fixed.
+		 */
+		public final String getFixedQuery(){
+			return fixedQuery;
+		}
+
+		/**
+		 * Tell whether the parsing failed.
+		 *
+		 * @return	<i>true</i> if {@link #getQuery()} throws an error,
+		 *        	<i>false</i> otherwise.
+		 */
+		public final boolean isError(){
+			return error != null;
+		}
+
+		/**
+		 * Get a copy of the parsed query.
+		 *
+		 * @return	A copy of the parsed and checked query.
+		 *
+		 * @throws ParseException	The error raised by the parsing, if it
+		 *                       	failed, or an error if the copy failed.
+		 */
+		public ADQLQuery getQuery() throws ParseException{
+			if (error != null)
+				throw error;
+			try{
+				return (ADQLQuery)template.getCopy();
+			}catch(Exception ex){
+				throw new ParseException("Impossible to copy the cached parsed query! Cause: " + ex.getMessage());
+			}
+		}
+	}
+
+}
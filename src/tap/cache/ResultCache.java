@@ -0,0 +1,915 @@
+package tap.cache;
+
+/*
+ * This file is part of TAPLibrary.
+ *
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+import adql.db.DBTable;
+import adql.query.ADQLObject;
+import adql.query.ADQLQuery;
+import adql.query.from.ADQLTable;
+import adql.query.operand.function.ADQLFunction;
+import adql.query.operand.function.MathFunction;
+import adql.query.operand.function.MathFunctionType;
+import adql.query.operand.function.UserDefinedFunction;
+import adql.search.SimpleSearchHandler;
+import tap.metadata.TAPMetadata.STDSchema;
+import tap.metadata.TAPTable;
+
+/**
+ * Cache of formatted query results.
+ *
+ * <h3>Key</h3>
+ * <p>
+ * 	A result is identified by the ADQL query as serialized by
+ * 	{@link ADQLQuery#toADQL()} once parsed (so that queries differing only by
+ * 	their whitespaces or by the case of their keywords share the same
+ * 	result), by the output format and by the MAXREC parameter (see
+ * 	{@link #getKey(ADQLQuery, String, Integer)}).
+ * </p>
+ *
+ * <h3>Cacheable queries</h3>
+ * <p>
+ * 	Queries on uploaded tables (i.e. in the schema <code>TAP_UPLOAD</code>)
+ * 	and queries using a non-deterministic function (e.g. <code>RAND</code>)
+ * 	are never cached (see {@link #isCacheable(ADQLQuery)}). Since their
+ * 	implementation is unknown, user defined functions are considered as
+ * 	non-deterministic, except the ones declared with
+ * 	{@link #addDeterministicFunction(String)}.
+ * </p>
+ *
+ * <h3>Storage and eviction</h3>
+ * <p>
+ * 	Each result is stored, already formatted, in a file of the cache
+ * 	directory, while it is written for the client (see
+ * 	{@link #record(String, ADQLQuery, OutputStream)}). When the total size of
+ * 	the cached results exceeds the maximum size of the cache, the least
+ * 	recently used results are deleted.
+ * </p>
+ *
+ * <h3>Coalescing of identical queries</h3>
+ * <p>
+ * 	When enabled (see {@link #setCoalescing(boolean)}), identical queries
+ * 	submitted while the first one is still running are not executed:
+ * 	the first execution "leads" the computation of the result (see
+ * 	{@link #lead(String)}) and the other ones wait for the end of this
+ * 	execution (see {@link #await(String)}) and then read the result from this
+ * 	cache. Thus, only one database connection is used for all these
+ * 	identical queries. If the result could not be cached (e.g. error, result
+ * 	too big, execution aborted), the waiting queries are executed normally.
+ * </p>
+ *
+ * <h3>Invalidation</h3>
+ * <p>
+ * 	The content of the database is not watched by this cache. So, when a
+ * 	table is modified, all cached results of queries using this table should
+ * 	be removed with {@link #invalidate(String)} (or {@link #clear()}).
+ * </p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 2.4 (10/2026)
+ * @since 2.4
+ */
+public class ResultCache {
+
+	/** Directory in which cached results are stored. */
+	protected final File directory;
+
+	/** Maximum total size (in bytes) of all cached results. */
+	protected final long maxSize;
+
+	/** All cached results, from the least recently used to the most
+	 * recently used. */
+	protected final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+	/** Names (lower case) of the user defined functions whose the result
+	 * depends only on their parameters. */
+	protected final Set<String> deterministicFunctions = Collections.synchronizedSet(new HashSet<String>());
+
+	/** Total size (in bytes) of all cached results. */
+	private long totalSize = 0;
+
+	/** Number of results found in this cache. */
+	private long nbHits = 0;
+
+	/** Number of results not found in this cache. */
+	private long nbMisses = 0;
+
+	/** Counter used to build unique temporary file names. */
+	private long tmpCounter = 0;
+
+	/** Indicate whether identical concurrent queries must be coalesced. */
+	private volatile boolean coalescing = false;
+
+	/** Keys of the results currently computed by a leading execution
+	 * (see {@link #lead(String)}), with the number of executions waiting for
+	 * each of them. */
+	protected final HashMap<String, Integer> flights = new HashMap<String, Integer>();
+
+	/** Number of query executions which have waited for the result of an
+	 * identical query. */
+	private long nbCoalesced = 0;
+
+	/**
+	 * Create a result cache.
+	 *
+	 * <p><i><b>Warning:</b>
+	 * 	The given directory should be dedicated to this cache: all files
+	 * 	already inside it are deleted.
+	 * </i></p>
+	 *
+	 * @param directory	Directory in which cached results must be stored.
+	 *                 	<i>It is created if it does not exist.</i>
+	 * @param maxSize	Maximum total size (in bytes) of all cached results.
+	 *
+	 * @throws NullPointerException		If the given directory is NULL.
+	 * @throws IllegalArgumentException	If the given directory can not be
+	 *                                 	created or is not writable.
+	 */
+	public ResultCache(final File directory, final long maxSize) throws NullPointerException, IllegalArgumentException{
+		if (directory == null)
+			throw new NullPointerException("Missing cache directory!");
+		else if (!directory.exists() && !directory.mkdirs())
+			throw new IllegalArgumentException("Impossible to create the result cache directory \"" + directory.getAbsolutePath() + "\"!");
+		else if (!directory.isDirectory() || !directory.canWrite())
+			throw new IllegalArgumentException("The result cache location \"" + directory.getAbsolutePath() + "\" is not a writable directory!");
+
+		this.directory = directory;
+		this.maxSize = maxSize;
+
+		// Delete results cached by a previous instance (they can not be identified anymore):
+		File[] files = directory.listFiles();
+		if (files != null){
+			for(File f : files){
+				if (f.isFile())
+					f.delete();
+			}
+		}
+	}
+
+	/**
+	 * Get the directory in which cached results are stored.
+	 *
+	 * @return	The cache directory.
+	 */
+	public final File getDirectory(){
+		return directory;
+	}
+
+	/**
+	 * Get the maximum total size (in bytes) of all cached results.
+	 *
+	 * @return	Maximum size of this cache.
+	 */
+	public final long getMaxSize(){
+		return maxSize;
+	}
+
+	/**
+	 * Get the current total size (in bytes) of all cached results.
+	 *
+	 * @return	Current size of this cache.
+	 */
+	public synchronized long getSize(){
+		return totalSize;
+	}
+
+	/**
+	 * Get the number of results currently in this cache.
+	 *
+	 * @return	Number of cached results.
+	 */
+	public synchronized int getNbEntries(){
+		return entries.size();
+	}
+
+	/**
+	 * Get the number of times a result has been found in this cache.
+	 *
+	 * @return	Number of cache hits.
+	 */
+	public synchronized long getNbHits(){
+		return nbHits;
+	}
+
+	/**
+	 * Get the number of times a result has not been found in this cache.
+	 *
+	 * @return	Number of cache misses.
+	 */
+	public synchronized long getNbMisses(){
+		return nbMisses;
+	}
+
+	/**
+	 * Tell whether identical concurrent queries are coalesced.
+	 *
+	 * @return	<i>true</i> if identical concurrent queries are coalesced,
+	 *        	<i>false</i> otherwise.
+	 */
+	public final boolean isCoalescing(){
+		return coalescing;
+	}
+
+	/**
+	 * Enable or disable the coalescing of identical concurrent queries.
+	 *
+	 * @param enabled	<i>true</i> to execute only once identical queries
+	 *               	submitted at the same time,
+	 *               	<i>false</i> to execute all of them.
+	 */
+	public void setCoalescing(final boolean enabled){
+		coalescing = enabled;
+	}
+
+	/**
+	 * Get the number of query executions which have waited for the result of
+	 * an identical query instead of being executed.
+	 *
+	 * @return	Number of coalesced executions.
+	 */
+	public synchronized long getNbCoalesced(){
+		return nbCoalesced;
+	}
+
+	/**
+	 * Declare the given user defined function as deterministic: its result
+	 * depends only on its parameters. Queries using it can then be cached.
+	 *
+	 * @param functionName	Name of the function (case insensitive).
+	 */
+	public void addDeterministicFunction(final String functionName){
+		if (functionName != null && functionName.trim().length() > 0)
+			deterministicFunctions.add(functionName.trim().toLowerCase());
+	}
+
+	/**
+	 * Tell whether the result of the given query can be cached.
+	 *
+	 * <p>
+	 * 	It can not if the query uses an uploaded table or a non-deterministic
+	 * 	function (see {@link #isDeterministic(ADQLFunction)}).
+	 * </p>
+	 *
+	 * @param query	The parsed query to test.
+	 *
+	 * @return	<i>true</i> if the result of this query can be cached,
+	 *        	<i>false</i> otherwise.
+	 */
+	public boolean isCacheable(final ADQLQuery query){
+		if (query == null)
+			return false;
+
+		// Search for any uploaded table or non-deterministic function:
+		SimpleSearchHandler searcher = new SimpleSearchHandler(true, true){
+			@Override
+			protected boolean match(final ADQLObject obj){
+				if (obj instanceof ADQLTable){
+					DBTable table = ((ADQLTable)obj).getDBLink();
+					return table != null && STDSchema.UPLOADSCHEMA.label.equalsIgnoreCase(table.getADQLSchemaName());
+				}else if (obj instanceof ADQLFunction)
+					return !isDeterministic((ADQLFunction)obj);
+				else
+					return false;
+			}
+		};
+		searcher.search(query);
+		return searcher.getNbMatch() == 0;
+	}
+
+	/**
+	 * Tell whether the given function always returns the same result with
+	 * the same parameters.
+	 *
+	 * <p>
+	 * 	By default, only <code>RAND</code> is non-deterministic among the
+	 * 	standard ADQL functions. User defined functions are non-deterministic
+	 * 	unless declared with {@link #addDeterministicFunction(String)}.
+	 * </p>
+	 *
+	 * @param fct	The function to test.
+	 *
+	 * @return	<i>true</i> if the function is deterministic,
+	 *        	<i>false</i> otherwise.
+	 */
+	protected boolean isDeterministic(final ADQLFunction fct){
+		if (fct instanceof MathFunction)
+			return ((MathFunction)fct).getType() != MathFunctionType.RAND;
+		else if (fct instanceof UserDefinedFunction)
+			return deterministicFunctions.contains(fct.getName().toLowerCase());
+		else
+			return true;
+	}
+
+	/**
+	 * Build the key identifying the result of the given query.
+	 *
+	 * @param query		The parsed query.
+	 * @param format	The output format of the result (e.g. its MIME type).
+	 * @param maxRec	The value of the parameter MAXREC. <i>May be NULL.</i>
+	 *
+	 * @return	The corresponding cache key.
+	 */
+	public String getKey(final ADQLQuery query, final String format, final Integer maxRec){
+		return hash(query.toADQL() + "\n" + format + "\n" + maxRec);
+	}
+
+	/**
+	 * Get the cached result corresponding to the given key.
+	 *
+	 * <p><i><b>Note:</b>
+	 * 	The returned stream must be closed by the caller.
+	 * </i></p>
+	 *
+	 * @param key	Key of the result (see {@link #getKey(ADQLQuery, String, Integer)}).
+	 *
+	 * @return	The cached result,
+	 *        	or NULL if not in this cache.
+	 */
+	public synchronized CachedResult get(final String key){
+		Entry entry = entries.get(key);
+		if (entry != null){
+			try{
+				CachedResult result = new CachedResult(new FileInputStream(entry.file), entry.mimeType, entry.nbRows, entry.size);
+				nbHits++;
+				return result;
+			}catch(FileNotFoundException fnfe){
+				remove(entry);
+			}
+		}
+		nbMisses++;
+		return null;
+	}
+
+	/**
+	 * Try to become the only execution computing the result corresponding to
+	 * the given key.
+	 *
+	 * <p>
+	 * 	If <i>true</i> is returned, the caller must execute the query, record
+	 * 	its result (see {@link #record(String, ADQLQuery, OutputStream)}) and
+	 * 	then, whatever happens, call {@link #land(String)} in order to wake up
+	 * 	the executions waiting for this result. Otherwise, the result is
+	 * 	already cached or being computed: it should be got with
+	 * 	{@link #await(String)}.
+	 * </p>
+	 *
+	 * <p><i><b>Note:</b>
+	 * 	If the coalescing is disabled (see {@link #setCoalescing(boolean)}),
+	 * 	<i>true</i> is always returned and nothing is registered.
+	 * </i></p>
+	 *
+	 * @param key	Key of the result (see {@link #getKey(ADQLQuery, String, Integer)}).
+	 *
+	 * @return	<i>true</i> if the caller leads the computation of this result,
+	 *        	<i>false</i> if this result is already cached or being computed.
+	 */
+	public synchronized boolean lead(final String key){
+		if (!coalescing)
+			return true;
+		else if (entries.containsKey(key) || flights.containsKey(key))
+			return false;
+		flights.put(key, 0);
+		return true;
+	}
+
+	/**
+	 * Tell whether the result corresponding to the given key is currently
+	 * computed by a leading execution (see {@link #lead(String)}).
+	 *
+	 * @param key	Key of the result.
+	 *
+	 * @return	<i>true</i> if this result is being computed,
+	 *        	<i>false</i> otherwise.
+	 */
+	public synchronized boolean isInFlight(final String key){
+		return flights.containsKey(key);
+	}
+
+	/**
+	 * Get the number of executions waiting for the result corresponding to
+	 * the given key.
+	 *
+	 * @param key	Key of the result.
+	 *
+	 * @return	Number of waiting executions.
+	 */
+	public synchronized int getNbWaiting(final String key){
+		Integer nb = flights.get(key);
+		return (nb == null) ? 0 : nb;
+	}
+
+	/**
+	 * Wait until the result corresponding to the given key is not computed
+	 * anymore and then get it from this cache.
+	 *
+	 * <p><i><b>Note:</b>
+	 * 	The returned stream must be closed by the caller.
+	 * </i></p>
+	 *
+	 * @param key	Key of the result (see {@link #getKey(ADQLQuery, String, Integer)}).
+	 *
+	 * @return	The cached result,
+	 *        	or NULL if it could not be cached by the leading execution.
+	 *
+	 * @throws InterruptedException	If the current thread has been interrupted
+	 *                             	while waiting.
+	 *
+	 * @see #await(String, long)
+	 */
+	public CachedResult await(final String key) throws InterruptedException{
+		return await(key, 0);
+	}
+
+	/**
+	 * Wait, at most the given time, until the result corresponding to the
+	 * given key is not computed anymore and then get it from this cache.
+	 *
+	 * <p>
+	 * 	Whatever happens (result available, timeout or interruption), the
+	 * 	caller is not counted anymore among the executions waiting for this
+	 * 	result (see {@link #getNbWaiting(String)}) when this function returns.
+	 * </p>
+	 *
+	 * <p><i><b>Note:</b>
+	 * 	The returned stream must be closed by the caller.
+	 * </i></p>
+	 *
+	 * @param key		Key of the result (see {@link #getKey(ADQLQuery, String, Integer)}).
+	 * @param timeout	Maximum waiting time (in milliseconds), typically the
+	 *               	time remaining before the end of the execution
+	 *               	duration of the waiting job.
+	 *               	<i>If negative or null, the waiting time is not limited.</i>
+	 *
+	 * @return	The cached result,
+	 *        	or NULL if it could not be cached by the leading execution
+	 *        	or if it is still computed after the given time.
+	 *
+	 * @throws InterruptedException	If the current thread has been interrupted
+	 *                             	while waiting.
+	 */
+	public synchronized CachedResult await(final String key, final long timeout) throws InterruptedException{
+		Integer nb = flights.get(key);
+		if (nb != null){
+			flights.put(key, nb + 1);
+			try{
+				final long deadline = (timeout > 0) ? System.currentTimeMillis() + timeout : 0;
+				while(flights.containsKey(key)){
+					if (deadline <= 0)
+						wait();
+					else{
+						long remaining = deadline - System.currentTimeMillis();
+						if (remaining <= 0)
+							return null;
+						wait(remaining);
+					}
+				}
+				nbCoalesced++;
+			}finally{
+				// this execution is not waiting anymore (if the leader is still running):
+				nb = flights.get(key);
+				if (nb != null && nb > 0)
+					flights.put(key, nb - 1);
+			}
+		}
+		return get(key);
+	}
+
+	/**
+	 * Declare the end of the computation of the result corresponding to the
+	 * given key, and wake up all executions waiting for it.
+	 *
+	 * <p><i><b>Note:</b>
+	 * 	This function must be called only by the execution which has got
+	 * 	<i>true</i> from {@link #lead(String)}, after the result has been
+	 * 	committed or discarded.
+	 * </i></p>
+	 *
+	 * @param key	Key of the result.
+	 */
+	public synchronized void land(final String key){
+		if (flights.remove(key) != null)
+			notifyAll();
+	}
+
+	/**
+	 * Wrap the given output stream so that everything written inside it is
+	 * also written in a new cache file.
+	 *
+	 * <p>
+	 * 	Once the result completely written, {@link Recorder#commit(String, long)}
+	 * 	must be called in order to add it to this cache. Otherwise,
+	 * 	{@link Recorder#discard()} must be called.
+	 * </p>
+	 *
+	 * <p><i><b>Note:</b>
+	 * 	Errors while writing in the cache file are never propagated: the
+	 * 	recording is just abandoned. It is also abandoned if the result
+	 * 	exceeds the maximum size of this cache.
+	 * </i></p>
+	 *
+	 * @param key		Key of the result (see {@link #getKey(ADQLQuery, String, Integer)}).
+	 * @param query		The query whose the result is recorded.
+	 * @param output	The stream in which the result must be written.
+	 *
+	 * @return	The stream to use in order to write the result.
+	 */
+	public Recorder record(final String key, final ADQLQuery query, final OutputStream output){
+		File tmpFile;
+		synchronized(this){
+			tmpFile = new File(directory, key + ".part" + (++tmpCounter));
+		}
+		return new Recorder(key, getTables(query), output, tmpFile);
+	}
+
+	/**
+	 * Add the given recorded file in this cache.
+	 *
+	 * @param key		Key of the result.
+	 * @param tables	Tables used by the query.
+	 * @param tmpFile	File containing the result.
+	 * @param mimeType	MIME type of the result.
+	 * @param nbRows	Number of rows of the result.
+	 */
+	protected synchronized void store(final String key, final Set<String> tables, final File tmpFile, final String mimeType, final long nbRows){
+		Entry entry = new Entry(key, tables, new File(directory, key), mimeType, nbRows);
+		Entry old = entries.get(key);
+		if (old != null)
+			remove(old);
+		if (!tmpFile.renameTo(entry.file)){
+			tmpFile.delete();
+			return;
+		}
+		entry.size = entry.file.length();
+		entries.put(key, entry);
+		totalSize += entry.size;
+		evict(entry);
+	}
+
+	/**
+	 * Delete the least recently used results until the total size of the
+	 * cache is below its limit.
+	 *
+	 * @param keep	A result which must not be deleted (i.e. the one just
+	 *            	added). <i>May be NULL.</i>
+	 */
+	protected synchronized void evict(final Entry keep){
+		Iterator<Entry> it = entries.values().iterator();
+		while(totalSize > maxSize && it.hasNext()){
+			Entry entry = it.next();
+			if (entry != keep){
+				it.remove();
+				forget(entry);
+			}
+		}
+	}
+
+	/**
+	 * Remove the given result from the cache and delete its file.
+	 *
+	 * @param entry	The result to remove.
+	 */
+	protected synchronized void remove(final Entry entry){
+		if (entries.remove(entry.key) != null)
+			forget(entry);
+	}
+
+	/**
+	 * Update the cache size and delete the file of a result already removed
+	 * from {@link #entries}.
+	 *
+	 * @param entry	The removed result.
+	 */
+	private void forget(final Entry entry){
+		totalSize -= entry.size;
+		entry.file.delete();
+	}
+
+	/**
+	 * Remove from this cache all results of queries using the given table.
+	 *
+	 * @param table	ADQL name of the table (case insensitive), prefixed or
+	 *             	not by its schema name.
+	 *
+	 * @return	The number of removed results.
+	 */
+	public synchronized int invalidate(final String table){
+		if (table == null)
+			return 0;
+
+		final String name = table.trim().toLowerCase();
+		final boolean prefixed = (name.indexOf('.') >= 0);
+
+		int nbRemoved = 0;
+		Iterator<Entry> it = entries.values().iterator();
+		while(it.hasNext()){
+			Entry entry = it.next();
+			for(String t : entry.tables){
+				if (prefixed ? t.equals(name) : t.substring(t.lastIndexOf('.') + 1).equals(name)){
+					it.remove();
+					forget(entry);
+					nbRemoved++;
+					break;
+				}
+			}
+		}
+		return nbRemoved;
+	}
+
+	/**
+	 * Remove from this cache all results of queries using the given table.
+	 *
+	 * @param table	The table whose the results must be removed.
+	 *
+	 * @return	The number of removed results.
+	 *
+	 * @see #invalidate(String)
+	 */
+	public int invalidate(final TAPTable table){
+		return (table == null) ? 0 : invalidate(table.getFullName());
+	}
+
+	/**
+	 * Delete all cached results.
+	 */
+	public synchronized void clear(){
+		for(Entry entry : entries.values())
+			entry.file.delete();
+		entries.clear();
+		totalSize = 0;
+	}
+
+	/**
+	 * List the full ADQL name (in lower case) of all tables used by the
+	 * given query (including its sub-queries).
+	 *
+	 * @param query	The query to inspect.
+	 *
+	 * @return	Names of all used tables.
+	 */
+	protected static Set<String> getTables(final ADQLQuery query){
+		SimpleSearchHandler searcher = new SimpleSearchHandler(true){
+			@Override
+			protected boolean match(final ADQLObject obj){
+				return (obj instanceof ADQLTable) && !((ADQLTable)obj).isSubQuery();
+			}
+		};
+		searcher.search(query);
+
+		Set<String> tables = new HashSet<String>();
+		Iterator<ADQLObject> it = searcher.iterator();
+		while(it.hasNext()){
+			ADQLTable t = (ADQLTable)it.next();
+			DBTable dbTable = t.getDBLink();
+			if (dbTable != null)
+				tables.add(((dbTable.getADQLSchemaName() == null) ? "" : dbTable.getADQLSchemaName() + ".").toLowerCase() + dbTable.getADQLName().toLowerCase());
+			else
+				tables.add(t.getFullTableName().toLowerCase());
+		}
+		return tables;
+	}
+
+	/**
+	 * Hash (SHA-256, in hexadecimal) the given string.
+	 *
+	 * @param str	The string to hash.
+	 *
+	 * @return	Its hash.
+	 */
+	protected static String hash(final String str){
+		try{
+			MessageDigest md = MessageDigest.getInstance("SHA-256");
+			byte[] hash = md.digest(str.getBytes("UTF-8"));
+			StringBuilder buf = new StringBuilder(hash.length * 2);
+			for(byte b : hash)
+				buf.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+			return buf.toString();
+		}catch(NoSuchAlgorithmException nsae){
+			// should never happen: SHA-256 is always supported by the JVM.
+			return Integer.toHexString(str.hashCode());
+		}catch(IOException ioe){
+			// should never happen: UTF-8 is always supported by the JVM.
+			return Integer.toHexString(str.hashCode());
+		}
+	}
+
+	/**
+	 * A result found in the cache.
+	 *
+	 * @author Gr&eacute;gory Mantelet (CDS)
+	 * @version 2.4 (10/2026)
+	 * @since 2.4
+	 */
+	public static class CachedResult {
+		/** Stream toward the formatted result. <i>Must be closed after
+		 * reading.</i> */
+		public final InputStream input;
+		/** MIME type of the result. */
+		public final String mimeType;
+		/** Number of rows of the result. */
+		public final long nbRows;
+		/** Size (in bytes) of the formatted result. */
+		public final long size;
+
+		public CachedResult(final InputStream input, final String mimeType, final long nbRows, final long size){
+			this.input = input;
+			this.mimeType = mimeType;
+			this.nbRows = nbRows;
+			this.size = size;
+		}
+	}
+
+	/**
+	 * Description of a cached result.
+	 *
+	 * @author Gr&eacute;gory Mantelet (CDS)
+	 * @version 2.4 (10/2026)
+	 * @since 2.4
+	 */
+	protected static class Entry {
+		/** Key of this result in the cache. */
+		public final String key;
+		/** Full ADQL name (in lower case) of all tables used by the query. */
+		public final Set<String> tables;
+		/** File containing the formatted result. */
+		public final File file;
+		/** MIME type of the result. */
+		public final String mimeType;
+		/** Number of rows of the result. */
+		public final long nbRows;
+		/** Size (in bytes) of the file. */
+		public long size = 0;
+
+		public Entry(final String key, final Set<String> tables, final File file, final String mimeType, final long nbRows){
+			this.key = key;
+			this.tables = tables;
+			this.file = file;
+			this.mimeType = mimeType;
+			this.nbRows = nbRows;
+		}
+	}
+
+	/**
+	 * Stream writing a result both in the output of the client and in a
+	 * cache file.
+	 *
+	 * <p><i><b>Note:</b>
+	 * 	Closing this stream closes only the output of the client.
+	 * </i></p>
+	 *
+	 * @author Gr&eacute;gory Mantelet (CDS)
+	 * @version 2.4 (10/2026)
+	 * @since 2.4
+	 */
+	public class Recorder extends OutputStream {
+		/** Key of the recorded result. */
+		private final String key;
+		/** Tables used by the query. */
+		private final Set<String> tables;
+		/** Output of the client. */
+		private final OutputStream output;
+		/** File in which the result is recorded. */
+		private final File tmpFile;
+		/** Stream toward {@link #tmpFile}.
+		 * <i>NULL if the recording has been abandoned or is finished.</i> */
+		private OutputStream fileOutput;
+		/** Number of bytes recorded so far. */
+		private long size = 0;
+
+		protected Recorder(final String key, final Set<String> tables, final OutputStream output, final File tmpFile){
+			this.key = key;
+			this.tables = tables;
+			this.output = output;
+			this.tmpFile = tmpFile;
+			try{
+				this.fileOutput = new FileOutputStream(tmpFile);
+			}catch(IOException ioe){
+				this.fileOutput = null;
+			}
+		}
+
+		@Override
+		public void write(final int b) throws IOException{
+			output.write(b);
+			record(new byte[]{ (byte)b }, 0, 1);
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException{
+			output.write(b, off, len);
+			record(b, off, len);
+		}
+
+		/**
+		 * Write the given bytes in the cache file, unless the recording has
+		 * been abandoned.
+		 *
+		 * @param b		Bytes to record.
+		 * @param off	Offset of the first byte to record.
+		 * @param len	Number of bytes to record.
+		 */
+		private void record(final byte[] b, final int off, final int len){
+			if (fileOutput == null)
+				return;
+			size += len;
+			if (size > maxSize)
+				discard();
+			else{
+				try{
+					fileOutput.write(b, off, len);
+				}catch(IOException ioe){
+					discard();
+				}
+			}
+		}
+
+		@Override
+		public void flush() throws IOException{
+			output.flush();
+		}
+
+		@Override
+		public void close() throws IOException{
+			output.close();
+		}
+
+		/**
+		 * Tell whether the result is still being recorded (i.e. the recording
+		 * has not been abandoned).
+		 *
+		 * @return	<i>true</i> if the result is recorded,
+		 *        	<i>false</i> otherwise.
+		 */
+		public boolean isRecording(){
+			return fileOutput != null;
+		}
+
+		/**
+		 * Add the recorded result to the cache.
+		 *
+		 * <p><i><b>Note:</b>
+		 * 	Nothing is done if the recording has been abandoned.
+		 * </i></p>
+		 *
+		 * @param mimeType	MIME type of the result.
+		 * @param nbRows	Number of rows of the result.
+		 */
+		public void commit(final String mimeType, final long nbRows){
+			if (fileOutput == null)
+				return;
+			try{
+				fileOutput.close();
+				fileOutput = null;
+				store(key, tables, tmpFile, mimeType, nbRows);
+			}catch(IOException ioe){
+				discard();
+			}
+		}
+
+		/**
+		 * Abandon the recording and delete the cache file.
+		 */
+		public void discard(){
+			if (fileOutput != null){
+				try{
+					fileOutput.close();
+				}catch(IOException ioe){
+				}
+				fileOutput = null;
+			}
+			tmpFile.delete();
+		}
+	}
+
+}
@@ -16,7 +16,7 @@ package tap.config;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2016-2021 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2016-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -24,9 +24,13 @@ import adql.db.FunctionDef;
 import adql.db.STCS;
 import adql.parser.ParseException;
 import adql.query.operand.function.UserDefinedFunction;
+import tap.PartitionExecutor;
+import tap.QueryLimits;
 import tap.ServiceConnection;
 import tap.TAPException;
 import tap.TAPFactory;
+import tap.cache.ParsedQueryCache;
+import tap.cache.ResultCache;
 import tap.db.DBConnection;
 import tap.db.JDBCConnection;
 import tap.formatter.*;
@@ -34,7 +38,10 @@ import tap.log.DefaultTAPLog;
 import tap.log.Slf4jTAPLog;
 import tap.log.TAPLog;
 import tap.metadata.TAPMetadata;
+import tap.metadata.TAPTable;
 import tap.metadata.TableSetParser;
+import tap.metrics.TAPMetrics;
+import tap.upload.UploadCache;
 import uk.ac.starlink.votable.DataFormat;
 import uk.ac.starlink.votable.VOTableVersion;
 import uws.UWSException;
@@ -66,7 +73,7 @@ import static tap.config.TAPConfiguration.*;
  * </p>
  *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.4 (11/2021)
+ * @version 2.4 (10/2026)
  * @since 2.0
  */
 public final class ConfigurableServiceConnection implements ServiceConnection {
@@ -163,6 +170,46 @@ public final class ConfigurableServiceConnection implements ServiceConnection {
 	 * @since 2.3 */
 	private boolean isFixOnFailEnabled = DEFAULT_FIX_ON_FAIL;
 
+	/** Cache in which uploads by reference are downloaded.
+	 * <em>If NULL, no cache is used.</em>
+	 * @since 2.4 */
+	private UploadCache uploadCache = null;
+
+	/** Cache of query results.
+	 * <em>If NULL, no result is cached.</em>
+	 * @since 2.4 */
+	private ResultCache resultCache = null;
+
+	/** Cache of parsed queries.
+	 * <em>If NULL, no parsed query is cached.</em>
+	 * @since 2.4 */
+	private ParsedQueryCache parsedQueryCache = null;
+
+	/** Statistics about all query executions.
+	 * <em>If NULL, no statistic is recorded.</em>
+	 * @since 2.4 */
+	private TAPMetrics metrics = null;
+
+	/** Syntax of a table declared in the property {@link TAPConfiguration#KEY_PARTITIONED_TABLES}:
+	 * <code>schema.table(column: b1, b2, ...)</code>.
+	 * @since 2.4 */
+	private final static Pattern PARTITIONED_TABLE_PATTERN = Pattern.compile("\\s*([^\\s.(]+)\\.([^\\s.(]+)\\s*\\(\\s*([^\\s:]+)\\s*:([^)]+)\\)\\s*");
+
+	/** Threads executing the partitions of queries in parallel.
+	 * <em>If NULL, no query is executed in parallel.</em>
+	 * @since 2.4 */
+	private PartitionExecutor partitionExecutor = null;
+
+	/** Limits on the complexity and on the estimated cost of queries.
+	 * <em>If NULL, there is no limit.</em>
+	 * @since 2.4 */
+	private QueryLimits queryLimits = null;
+
+	/** Tell when the results of asynchronous queries must be spooled.
+	 * See {@link #getResultSpoolingThreshold()}.
+	 * @since 2.4 */
+	private long resultSpoolingThreshold = -1;
+
 	/**
 	 * Create a TAP service description thanks to the given TAP configuration
 	 * file.
@@ -205,6 +252,7 @@ public final class ConfigurableServiceConnection implements ServiceConnection {
 
 		// 4. GET THE METADATA:
 		metadata = initMetadata(tapConfig, webAppRootDir);
+		initPartitionedTables(tapConfig);
 
 		// 6. SET ALL GENERAL SERVICE CONNECTION INFORMATION:
 		providerName = getProperty(tapConfig, KEY_PROVIDER_NAME);
@@ -212,6 +260,8 @@ public final class ConfigurableServiceConnection implements ServiceConnection {
 		initMaxAsyncJobs(tapConfig);
 		initRetentionPeriod(tapConfig);
 		initExecutionDuration(tapConfig);
+		initQueryLimits(tapConfig);
+		initResultSpooling(tapConfig);
 
 		// 7. CONFIGURE OUTPUT:
 		// default output format = VOTable:
@@ -230,6 +280,8 @@ public final class ConfigurableServiceConnection implements ServiceConnection {
 		initUploadLimits(tapConfig);
 		// set the maximum upload file size:
 		initMaxUploadSize(tapConfig);
+		// set the cache for uploads by reference:
+		initUploadCache(tapConfig);
 
 		// 9. SET A USER IDENTIFIER:
 		initUserIdentifier(tapConfig);
@@ -240,7 +292,17 @@ public final class ConfigurableServiceConnection implements ServiceConnection {
 		initUDFs(tapConfig);
 		isFixOnFailEnabled = Boolean.parseBoolean(getProperty(tapConfig, KEY_FIX_ON_FAIL));
 
-		// 11. BASE URL:
+		// 11. CONFIGURE THE RESULT CACHE:
+		initResultCache(tapConfig);
+
+		// 12. CONFIGURE THE PARSED QUERY CACHE:
+		initParsedQueryCache(tapConfig);
+
+		// 13. CONFIGURE THE EXECUTION STATISTICS:
+		if (Boolean.parseBoolean(getProperty(tapConfig, KEY_METRICS_ENABLED)))
+			metrics = new TAPMetrics();
+
+		// 14. BASE URL:
 		baseURL = initBaseURL(tapConfig);
 	}
 
@@ -300,9 +362,15 @@ public final class ConfigurableServiceConnection implements ServiceConnection {
 			propValue = getProperty(tapConfig, KEY_GROUP_USER_DIRECTORIES);
 			boolean groupUserDirectories = (propValue == null) ? DEFAULT_GROUP_USER_DIRECTORIES : Boolean.parseBoolean(propValue);
 
+			// Determine whether results must be compressed on disk:
+			propValue = getProperty(tapConfig, KEY_COMPRESS_RESULTS);
+			boolean compressResults = (propValue == null) ? DEFAULT_COMPRESS_RESULTS : Boolean.parseBoolean(propValue);
+
 			// Build the Local TAP File Manager:
 			try {
-				fileManager = new LocalUWSFileManager(rootFile, oneDirectoryPerUser, groupUserDirectories);
+				LocalUWSFileManager localFileManager = new LocalUWSFileManager(rootFile, oneDirectoryPerUser, groupUserDirectories);
+				localFileManager.setResultCompressionEnabled(compressResults);
+				fileManager = localFileManager;
 			} catch(UWSException e) {
 				throw new TAPException("The property \"" + KEY_FILE_ROOT_PATH + "\" (" + rootPath + ") is incorrect: " + e.getMessage());
 			}
@@ -681,6 +749,164 @@ public final class ConfigurableServiceConnection implements ServiceConnection {
 			executionDuration[2] = executionDuration[1];
 	}
 
+	/**
+	 * Declare the partitions of the tables listed in the property
+	 * {@link TAPConfiguration#KEY_PARTITIONED_TABLES}
+	 * (see {@link TAPTable#setPartitioning(String, Number...)}).
+	 *
+	 * @param tapConfig	The content of the TAP configuration file.
+	 *
+	 * @throws TAPException	If the property has a wrong syntax, or if a table
+	 *                     	or a column is unknown.
+	 *
+	 * @since 2.4
+	 */
+	private void initPartitionedTables(final Properties tapConfig) throws TAPException {
+		final String propValue = getProperty(tapConfig, KEY_PARTITIONED_TABLES);
+		if (propValue == null)
+			return;
+
+		int nbPartitionedTables = 0;
+		for(String item : propValue.split(";")) {
+			if (item.trim().length() == 0)
+				continue;
+			Matcher matcher = PARTITIONED_TABLE_PATTERN.matcher(item);
+			if (!matcher.matches())
+				throw new TAPException("Wrong syntax for the property \"" + KEY_PARTITIONED_TABLES + "\": \"" + item.trim() + "\"! Expected syntax: \"schema.table(column: b1, b2, ...)\".");
+
+			// Get the table:
+			TAPTable table = metadata.getTable(matcher.group(1), matcher.group(2));
+			if (table == null)
+				throw new TAPException("Unknown table \"" + matcher.group(1) + "." + matcher.group(2) + "\" in the property \"" + KEY_PARTITIONED_TABLES + "\"!");
+
+			// Get the boundaries:
+			String[] items = matcher.group(4).split(",");
+			Number[] bounds = new Number[items.length];
+			try {
+				for(int i = 0; i < items.length; i++) {
+					String bound = items[i].trim();
+					bounds[i] = bound.matches("[+-]?[0-9]+") ? (Number)Long.valueOf(bound) : (Number)Double.valueOf(bound);
+				}
+			} catch(NumberFormatException nfe) {
+				throw new TAPException("Numbers expected as partition boundaries of the table \"" + table.getFullName() + "\" in the property \"" + KEY_PARTITIONED_TABLES + "\", instead of: \"" + matcher.group(4).trim() + "\"!");
+			}
+
+			// Declare the partitions:
+			try {
+				table.setPartitioning(matcher.group(3), bounds);
+			} catch(IllegalArgumentException iae) {
+				throw new TAPException("Wrong partitions in the property \"" + KEY_PARTITIONED_TABLES + "\": " + iae.getMessage(), iae);
+			}
+			nbPartitionedTables++;
+		}
+		if (nbPartitionedTables == 0)
+			return;
+
+		// Create the threads executing the partitions:
+		int nbThreads = DEFAULT_PARTITIONED_TABLES_NB_THREADS;
+		String nbThreadsValue = getProperty(tapConfig, KEY_PARTITIONED_TABLES_NB_THREADS);
+		if (nbThreadsValue != null) {
+			try {
+				nbThreads = Integer.parseInt(nbThreadsValue);
+			} catch(NumberFormatException nfe) {
+				throw new TAPException("Integer expected for the property \"" + KEY_PARTITIONED_TABLES_NB_THREADS + "\", instead of: \"" + nbThreadsValue + "\"!");
+			}
+			if (nbThreads <= 0)
+				throw new TAPException("A strictly positive integer is expected for the property \"" + KEY_PARTITIONED_TABLES_NB_THREADS + "\", instead of: \"" + nbThreadsValue + "\"!");
+		}
+		partitionExecutor = new PartitionExecutor(nbThreads, PartitionExecutor.DEFAULT_CONNECTION_TIMEOUT);
+	}
+
+	/**
+	 * Initialize the limits on the complexity and on the estimated cost of
+	 * queries.
+	 *
+	 * @param tapConfig	The content of the TAP configuration file.
+	 *
+	 * @throws TAPException	If the corresponding TAP configuration properties
+	 *                     	are wrong.
+	 *
+	 * @since 2.4
+	 */
+	private void initQueryLimits(final Properties tapConfig) throws TAPException {
+		QueryLimits limits = new QueryLimits();
+		boolean limited = false;
+		String propValue = null;
+		try {
+			propValue = getProperty(tapConfig, KEY_MAX_JOINS);
+			if (propValue != null && Integer.parseInt(propValue) >= 0) {
+				limits.setMaxJoins(Integer.parseInt(propValue));
+				limited = true;
+			}
+		} catch(NumberFormatException nfe) {
+			throw new TAPException("Integer expected for the property \"" + KEY_MAX_JOINS + "\", instead of: \"" + propValue + "\"!");
+		}
+		try {
+			propValue = getProperty(tapConfig, KEY_MAX_SUBQUERY_DEPTH);
+			if (propValue != null && Integer.parseInt(propValue) >= 0) {
+				limits.setMaxSubQueryDepth(Integer.parseInt(propValue));
+				limited = true;
+			}
+		} catch(NumberFormatException nfe) {
+			throw new TAPException("Integer expected for the property \"" + KEY_MAX_SUBQUERY_DEPTH + "\", instead of: \"" + propValue + "\"!");
+		}
+		try {
+			propValue = getProperty(tapConfig, KEY_SYNC_MAX_ESTIMATED_COST);
+			if (propValue != null && Double.parseDouble(propValue) > 0) {
+				limits.setSyncMaxCost(Double.parseDouble(propValue));
+				limited = true;
+			}
+		} catch(NumberFormatException nfe) {
+			throw new TAPException("Number expected for the property \"" + KEY_SYNC_MAX_ESTIMATED_COST + "\", instead of: \"" + propValue + "\"!");
+		}
+		try {
+			propValue = getProperty(tapConfig, KEY_SYNC_MAX_ESTIMATED_ROWS);
+			if (propValue != null && Long.parseLong(propValue) > 0) {
+				limits.setSyncMaxRows(Long.parseLong(propValue));
+				limited = true;
+			}
+		} catch(NumberFormatException nfe) {
+			throw new TAPException("Integer expected for the property \"" + KEY_SYNC_MAX_ESTIMATED_ROWS + "\", instead of: \"" + propValue + "\"!");
+		}
+		if (Boolean.parseBoolean(getProperty(tapConfig, KEY_ASYNC_QUEUE_BY_COST))) {
+			limits.setQueueOrderedByCost(true);
+			limited = true;
+		}
+		try {
+			propValue = getProperty(tapConfig, KEY_ASYNC_QUEUE_MAX_OVERTAKES);
+			if (propValue != null)
+				limits.setQueueMaxOvertakes(Integer.parseInt(propValue));
+		} catch(NumberFormatException nfe) {
+			throw new TAPException("Integer expected for the property \"" + KEY_ASYNC_QUEUE_MAX_OVERTAKES + "\", instead of: \"" + propValue + "\"!");
+		}
+		queryLimits = limited ? limits : null;
+	}
+
+	/**
+	 * Initialize the spooling of asynchronous query results.
+	 *
+	 * @param tapConfig	The content of the TAP configuration file.
+	 *
+	 * @throws TAPException	If the corresponding TAP configuration property
+	 *                     	is wrong.
+	 *
+	 * @since 2.4
+	 */
+	private void initResultSpooling(final Properties tapConfig) throws TAPException {
+		String propValue = getProperty(tapConfig, KEY_SPOOL_ASYNC_RESULTS);
+		if (propValue == null || propValue.equalsIgnoreCase("false"))
+			resultSpoolingThreshold = -1;
+		else if (propValue.equalsIgnoreCase("true"))
+			resultSpoolingThreshold = 0;
+		else {
+			try {
+				resultSpoolingThreshold = Long.parseLong(propValue);
+			} catch(NumberFormatException nfe) {
+				throw new TAPException("Boolean or integer expected for the property \"" + KEY_SPOOL_ASYNC_RESULTS + "\", instead of: \"" + propValue + "\"!");
+			}
+		}
+	}
+
 	/**
 	 * <p>Initialize the list of all output format that the TAP service must support.</p>
 	 *
@@ -1044,6 +1270,112 @@ public final class ConfigurableServiceConnection implements ServiceConnection {
 		}
 	}
 
+	/**
+	 * Initialise the cache in which the content of uploads by reference is
+	 * downloaded.
+	 *
+	 * <p><em><b>Note:</b>
+	 * 	The cache is created only if upload is enabled and if a positive
+	 * 	maximum size is specified. Its files are stored in the sub-directory
+	 * 	<code>upload_cache</code> of the temporary directory of the file
+	 * 	manager. Each download is limited to the maximum upload limit (if in
+	 * 	bytes) and to the maximum upload size.
+	 * </em></p>
+	 *
+	 * @param tapConfig	The content of the TAP configuration file.
+	 *
+	 * @throws TAPException	If the corresponding TAP configuration properties
+	 *                     	are wrong.
+	 *
+	 * @since 2.4
+	 */
+	private void initUploadCache(final Properties tapConfig) throws TAPException {
+		String propValue = getProperty(tapConfig, KEY_UPLOAD_CACHE_SIZE);
+		if (!isUploadEnabled || propValue == null)
+			return;
+
+		// Parse the maximum size of the cache:
+		Object[] limit = parseLimit(propValue, KEY_UPLOAD_CACHE_SIZE, true, true);
+		if ((Long)limit[0] <= 0)
+			return;
+		else if (!LimitUnit.bytes.isCompatibleWith((LimitUnit)limit[1]))
+			throw new TAPException("The upload cache size " + KEY_UPLOAD_CACHE_SIZE + " (here: " + propValue + ") can not be expressed in a unit different from bytes (B, kB, MB, GB)!");
+		long maxSize = (Long)limit[0] * ((LimitUnit)limit[1]).bytesFactor();
+
+		// Parse the number of download threads:
+		int nbThreads = DEFAULT_UPLOAD_CACHE_NB_THREADS;
+		propValue = getProperty(tapConfig, KEY_UPLOAD_CACHE_NB_THREADS);
+		if (propValue != null) {
+			try {
+				nbThreads = Integer.parseInt(propValue);
+			} catch(NumberFormatException nfe) {
+				throw new TAPException("Integer expected for the property \"" + KEY_UPLOAD_CACHE_NB_THREADS + "\", instead of: \"" + propValue + "\"!");
+			}
+			if (nbThreads <= 0)
+				throw new TAPException("A strictly positive integer is expected for the property \"" + KEY_UPLOAD_CACHE_NB_THREADS + "\", instead of: \"" + propValue + "\"!");
+		}
+
+		// Create the cache:
+		try {
+			uploadCache = new UploadCache(new File(fileManager.getTmpDirectory(), "upload_cache"), maxSize, nbThreads);
+		} catch(IllegalArgumentException iae) {
+			throw new TAPException("Impossible to create the upload cache! Cause: " + iae.getMessage(), iae);
+		}
+
+		// Limit each download to the maximum upload size (if in bytes):
+		if (uploadLimitTypes[1] != null && LimitUnit.bytes.isCompatibleWith(uploadLimitTypes[1]) && uploadLimits[1] > 0)
+			uploadCache.setMaxFileSize(uploadLimits[1] * uploadLimitTypes[1].bytesFactor());
+		if (maxUploadSize > 0 && (uploadCache.getMaxFileSize() <= 0 || maxUploadSize < uploadCache.getMaxFileSize()))
+			uploadCache.setMaxFileSize(maxUploadSize);
+	}
+
+	/**
+	 * Initialise the cache of query results.
+	 *
+	 * <p><em><b>Note:</b>
+	 * 	The cache is created only if a positive maximum size is specified. Its
+	 * 	files are stored in the sub-directory <code>result_cache</code> of the
+	 * 	temporary directory of the file manager.
+	 * </em></p>
+	 *
+	 * @param tapConfig	The content of the TAP configuration file.
+	 *
+	 * @throws TAPException	If the corresponding TAP configuration properties
+	 *                     	are wrong.
+	 *
+	 * @since 2.4
+	 */
+	private void initResultCache(final Properties tapConfig) throws TAPException {
+		String propValue = getProperty(tapConfig, KEY_RESULT_CACHE_SIZE);
+		if (propValue == null)
+			return;
+
+		// Parse the maximum size of the cache:
+		Object[] limit = parseLimit(propValue, KEY_RESULT_CACHE_SIZE, true, true);
+		if ((Long)limit[0] <= 0)
+			return;
+		else if (!LimitUnit.bytes.isCompatibleWith((LimitUnit)limit[1]))
+			throw new TAPException("The result cache size " + KEY_RESULT_CACHE_SIZE + " (here: " + propValue + ") can not be expressed in a unit different from bytes (B, kB, MB, GB)!");
+		long maxSize = (Long)limit[0] * ((LimitUnit)limit[1]).bytesFactor();
+
+		// Create the cache:
+		try {
+			resultCache = new ResultCache(new File(fileManager.getTmpDirectory(), "result_cache"), maxSize);
+		} catch(IllegalArgumentException iae) {
+			throw new TAPException("Impossible to create the result cache! Cause: " + iae.getMessage(), iae);
+		}
+
+		// Declare the deterministic UDFs:
+		propValue = getProperty(tapConfig, KEY_RESULT_CACHE_DETERMINISTIC_UDFS);
+		if (propValue != null) {
+			for(String fctName : propValue.split(","))
+				resultCache.addDeterministicFunction(fctName);
+		}
+
+		// Enable the coalescing of identical queries, if asked:
+		resultCache.setCoalescing(Boolean.parseBoolean(getProperty(tapConfig, KEY_RESULT_CACHE_COALESCING)));
+	}
+
 	/**
 	 * Initialize the TAP user identification method.
 	 *
@@ -1748,9 +2080,75 @@ public final class ConfigurableServiceConnection implements ServiceConnection {
 		return fetchSize;
 	}
 
+	/**
+	 * Initialise the cache of parsed queries.
+	 *
+	 * <p><em><b>Note:</b>
+	 * 	The cache is created only if a positive maximum number of entries is
+	 * 	specified.
+	 * </em></p>
+	 *
+	 * @param tapConfig	The content of the TAP configuration file.
+	 *
+	 * @throws TAPException	If the corresponding TAP configuration property is
+	 *                     	wrong.
+	 *
+	 * @since 2.4
+	 */
+	private void initParsedQueryCache(final Properties tapConfig) throws TAPException {
+		String propValue = getProperty(tapConfig, KEY_PARSED_QUERY_CACHE_SIZE);
+		if (propValue == null)
+			return;
+
+		int maxEntries;
+		try {
+			maxEntries = Integer.parseInt(propValue);
+		} catch(NumberFormatException nfe) {
+			throw new TAPException("Integer expected for the property \"" + KEY_PARSED_QUERY_CACHE_SIZE + "\", instead of: \"" + propValue + "\"!");
+		}
+
+		if (maxEntries > 0)
+			parsedQueryCache = new ParsedQueryCache(maxEntries);
+	}
+
 	@Override
 	public boolean fixOnFailEnabled() {
 		return isFixOnFailEnabled;
 	}
 
+	@Override
+	public UploadCache getUploadCache() {
+		return uploadCache;
+	}
+
+	@Override
+	public ResultCache getResultCache() {
+		return resultCache;
+	}
+
+	@Override
+	public ParsedQueryCache getParsedQueryCache() {
+		return parsedQueryCache;
+	}
+
+	@Override
+	public TAPMetrics getMetrics() {
+		return metrics;
+	}
+
+	@Override
+	public QueryLimits getQueryLimits() {
+		return queryLimits;
+	}
+
+	@Override
+	public long getResultSpoolingThreshold() {
+		return resultSpoolingThreshold;
+	}
+
+	@Override
+	public PartitionExecutor getPartitionExecutor() {
+		return partitionExecutor;
+	}
+
 }
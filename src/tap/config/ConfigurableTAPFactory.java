@@ -16,19 +16,29 @@ package tap.config;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2016-2017 - Astronomisches Rechen Institut (ARI)
+ * Copyright 2016-2026 - Astronomisches Rechen Institut (ARI),
+ *                       UDS/Centre de Données astronomiques de Strasbourg (CDS)
  */
 
 import static tap.config.TAPConfiguration.DEFAULT_BACKUP_BY_USER;
 import static tap.config.TAPConfiguration.DEFAULT_BACKUP_FREQUENCY;
+import static tap.config.TAPConfiguration.DEFAULT_SQL_BIND_PARAMETERS;
+import static tap.config.TAPConfiguration.DEFAULT_SQL_COPY_EXPORT;
+import static tap.config.TAPConfiguration.DEFAULT_SQL_IN_LIST_TABLE_THRESHOLD;
+import static tap.config.TAPConfiguration.DEFAULT_SQL_STATEMENT_CACHE_SIZE;
 import static tap.config.TAPConfiguration.KEY_BACKUP_BY_USER;
 import static tap.config.TAPConfiguration.KEY_BACKUP_FREQUENCY;
 import static tap.config.TAPConfiguration.KEY_DATABASE_ACCESS;
 import static tap.config.TAPConfiguration.KEY_DATASOURCE_JNDI_NAME;
 import static tap.config.TAPConfiguration.KEY_DB_PASSWORD;
 import static tap.config.TAPConfiguration.KEY_DB_USERNAME;
+import static tap.config.TAPConfiguration.KEY_FETCH_MEMORY_BUDGET;
 import static tap.config.TAPConfiguration.KEY_JDBC_DRIVER;
 import static tap.config.TAPConfiguration.KEY_JDBC_URL;
+import static tap.config.TAPConfiguration.KEY_SQL_BIND_PARAMETERS;
+import static tap.config.TAPConfiguration.KEY_SQL_COPY_EXPORT;
+import static tap.config.TAPConfiguration.KEY_SQL_IN_LIST_TABLE_THRESHOLD;
+import static tap.config.TAPConfiguration.KEY_SQL_STATEMENT_CACHE_SIZE;
 import static tap.config.TAPConfiguration.KEY_SQL_TRANSLATOR;
 import static tap.config.TAPConfiguration.VALUE_JDBC;
 import static tap.config.TAPConfiguration.VALUE_JDBC_DRIVERS;
@@ -40,6 +50,7 @@ import static tap.config.TAPConfiguration.VALUE_POSTGRESQL;
 import static tap.config.TAPConfiguration.VALUE_SQLSERVER;
 import static tap.config.TAPConfiguration.VALUE_USER_ACTION;
 import static tap.config.TAPConfiguration.getProperty;
+import static tap.config.TAPConfiguration.parseLimit;
 
 import java.sql.Driver;
 import java.sql.DriverManager;
@@ -58,6 +69,7 @@ import adql.translator.PostgreSQLTranslator;
 import adql.translator.SQLServerTranslator;
 import tap.AbstractTAPFactory;
 import tap.ServiceConnection;
+import tap.ServiceConnection.LimitUnit;
 import tap.TAPException;
 import tap.TAPFactory;
 import tap.backup.DefaultTAPBackupManager;
@@ -77,8 +89,8 @@ import uws.service.log.UWSLog.LogLevel;
  *  {@link #destroy()}, {@link #createADQLTranslator()} and {@link #createUWSBackupManager(UWSService)}.
  * </p>
  *
- * @author Gr&eacute;gory Mantelet (ARI)
- * @version 2.1 (08/2017)
+ * @author Gr&eacute;gory Mantelet (ARI;CDS)
+ * @version 2.4 (10/2026)
  * @since 2.0
  */
 public class ConfigurableTAPFactory extends AbstractTAPFactory {
@@ -107,6 +119,30 @@ public class ConfigurableTAPFactory extends AbstractTAPFactory {
 	 * <em>This attribute is actually used only if the chosen database access method is JDBC.</em> */
 	protected final String dbPassword;
 
+	/* Bind parameters: */
+	/** Indicate whether the literals of ADQL constraints must be sent to the database as bind parameters.
+	 * @since 2.4 */
+	protected boolean bindParameters = DEFAULT_SQL_BIND_PARAMETERS;
+	/** Maximum number of prepared statements kept open by each database connection.
+	 * @since 2.4 */
+	protected int statementCacheSize = DEFAULT_SQL_STATEMENT_CACHE_SIZE;
+
+	/* Huge IN lists: */
+	/** Minimum number of values of an IN list for it to be loaded into a temporary table.
+	 * @since 2.4 */
+	protected int inListTableThreshold = DEFAULT_SQL_IN_LIST_TABLE_THRESHOLD;
+
+	/* Fetch size: */
+	/** Memory (in bytes) that one block of rows fetched from the database should not exceed.
+	 * <i>Note: 0 if the fetch size is not computed for each query.</i>
+	 * @since 2.4 */
+	protected long fetchMemoryBudget = 0;
+
+	/* Binary COPY: */
+	/** Indicate whether the query results must be exported with a binary COPY (PostgreSQL only).
+	 * @since 2.4 */
+	protected boolean copyExport = DEFAULT_SQL_COPY_EXPORT;
+
 	/* UWS's jobs backup: */
 	/** Indicate whether the jobs must be backuped gathered by user or just all mixed together. */
 	protected boolean backupByUser;
@@ -223,13 +259,52 @@ public class ConfigurableTAPFactory extends AbstractTAPFactory {
 		/* 3. Test the construction of the ADQLTranslator */
 		createADQLTranslator();
 
-		/* 4. Test the DB connection (note: a translator is needed to create a connection) */
+		/* 4. Set the use of bind parameters */
+		String propValue = getProperty(tapConfig, KEY_SQL_BIND_PARAMETERS);
+		bindParameters = (propValue == null) ? DEFAULT_SQL_BIND_PARAMETERS : Boolean.parseBoolean(propValue);
+		propValue = getProperty(tapConfig, KEY_SQL_STATEMENT_CACHE_SIZE);
+		if (propValue != null){
+			try{
+				statementCacheSize = Integer.parseInt(propValue);
+				if (statementCacheSize < 0)
+					statementCacheSize = 0;
+			}catch(NumberFormatException nfe){
+				throw new TAPException("Integer expected for the property " + KEY_SQL_STATEMENT_CACHE_SIZE + ": \"" + propValue + "\"!");
+			}
+		}
+
+		/* 4bis. Set the loading of huge IN lists into tables */
+		propValue = getProperty(tapConfig, KEY_SQL_IN_LIST_TABLE_THRESHOLD);
+		if (propValue != null){
+			try{
+				inListTableThreshold = Integer.parseInt(propValue);
+				if (inListTableThreshold < 0)
+					inListTableThreshold = 0;
+			}catch(NumberFormatException nfe){
+				throw new TAPException("Integer expected for the property " + KEY_SQL_IN_LIST_TABLE_THRESHOLD + ": \"" + propValue + "\"!");
+			}
+		}
+
+		/* 4ter. Set the memory budget of the fetched rows */
+		propValue = getProperty(tapConfig, KEY_FETCH_MEMORY_BUDGET);
+		if (propValue != null){
+			Object[] limit = parseLimit(propValue, KEY_FETCH_MEMORY_BUDGET, true, true);
+			if ((Long)limit[0] > 0 && !LimitUnit.bytes.isCompatibleWith((LimitUnit)limit[1]))
+				throw new TAPException("The memory budget " + KEY_FETCH_MEMORY_BUDGET + " (here: " + propValue + ") can not be expressed in a unit different from bytes (B, kB, MB, GB)!");
+			fetchMemoryBudget = Math.max(0, (Long)limit[0] * ((LimitUnit)limit[1]).bytesFactor());
+		}
+
+		/* 4quater. Set the export of results with a binary COPY */
+		propValue = getProperty(tapConfig, KEY_SQL_COPY_EXPORT);
+		copyExport = (propValue == null) ? DEFAULT_SQL_COPY_EXPORT : Boolean.parseBoolean(propValue);
+
+		/* 5. Test the DB connection (note: a translator is needed to create a connection) */
 		DBConnection dbConn = getConnection("0");
 		freeConnection(dbConn);
 
-		/* 5. Set the UWS Backup Parameter */
+		/* 6. Set the UWS Backup Parameter */
 		// Set the backup frequency:
-		String propValue = getProperty(tapConfig, KEY_BACKUP_FREQUENCY);
+		propValue = getProperty(tapConfig, KEY_BACKUP_FREQUENCY);
 		// determine whether the value is a time period ; if yes, set the frequency:
 		if (propValue != null){
 			try{
@@ -280,14 +355,30 @@ public class ConfigurableTAPFactory extends AbstractTAPFactory {
 	 */
 	@Override
 	public DBConnection getConnection(String jobID) throws TAPException{
+		JDBCConnection dbConn;
 		if (datasource != null){
 			try{
-				return new JDBCConnection(datasource.getConnection(), createADQLTranslator(), jobID, this.service.getLogger());
+				dbConn = new JDBCConnection(datasource.getConnection(), createADQLTranslator(), jobID, this.service.getLogger());
 			}catch(SQLException se){
 				throw new TAPException("Impossible to establish a connection to the database using the set up datasource!", se);
 			}
 		}else
-			return new JDBCConnection(driverPath, dbUrl, dbUser, dbPassword, createADQLTranslator(), jobID, this.service.getLogger());
+			dbConn = new JDBCConnection(driverPath, dbUrl, dbUser, dbPassword, createADQLTranslator(), jobID, this.service.getLogger());
+
+		// Set the use of bind parameters:
+		dbConn.setStatementCacheSize(statementCacheSize);
+		dbConn.setBindParameters(bindParameters);
+
+		// Set the loading of huge IN lists into tables:
+		dbConn.setInListTableThreshold(inListTableThreshold);
+
+		// Set the memory budget of the fetched rows:
+		dbConn.setFetchMemoryBudget(fetchMemoryBudget);
+
+		// Set the export of results with a binary COPY:
+		dbConn.setCopyExport(copyExport);
+
+		return dbConn;
 	}
 
 	@Override
@@ -295,6 +386,9 @@ public class ConfigurableTAPFactory extends AbstractTAPFactory {
 		try{
 			// End properly any query that is not yet stopped and cleaned (i.e. no more transaction opened):
 			conn.endQuery();
+			// Close all prepared statements, only if the connection is really closed (otherwise, they are kept for the next job using the same pooled connection):
+			if (datasource == null)
+				((JDBCConnection)conn).clearStatementCache();
 			// Close the connection (if a connection pool is used, the connection is not really closed but is freed and kept in the pool for further usage):
 			((JDBCConnection)conn).getInnerConnection().close();
 		}catch(SQLException se){
@@ -16,14 +16,16 @@ package tap.config;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2015-2021 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2015-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
+import tap.PartitionExecutor;
 import tap.ServiceConnection.LimitUnit;
 import tap.TAPException;
 import tap.TAPFactory;
 import tap.backup.DefaultTAPBackupManager;
+import tap.upload.UploadCache;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
@@ -41,7 +43,7 @@ import java.util.Properties;
  * </i></p>
  *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.4 (11/2021)
+ * @version 2.4 (10/2026)
  * @since 2.0
  */
 public final class TAPConfiguration {
@@ -86,6 +88,17 @@ public final class TAPConfiguration {
 	/** Default value of the property {@value #KEY_GROUP_USER_DIRECTORIES}:
 	 * {@value #DEFAULT_GROUP_USER_DIRECTORIES}. */
 	public final static boolean DEFAULT_GROUP_USER_DIRECTORIES = false;
+	/** Name/Key of the property indicating whether the job results must be
+	 * compressed (in GZIP) on disk. If yes, they are sent compressed to the
+	 * HTTP clients accepting the GZIP content-encoding, and uncompressed to
+	 * the others. <em>This property is used only if {@value #KEY_FILE_MANAGER}
+	 * is set to {@link #VALUE_LOCAL}.</em>
+	 * @since 2.4 */
+	public final static String KEY_COMPRESS_RESULTS = "compress_results";
+	/** Default value of the property {@value #KEY_COMPRESS_RESULTS}:
+	 * {@value #DEFAULT_COMPRESS_RESULTS}.
+	 * @since 2.4 */
+	public final static boolean DEFAULT_COMPRESS_RESULTS = false;
 	/** Name/Key of the property specifying the default period (in seconds)
 	 * while a job must remain on the server. This value is set automatically to
 	 * any job whose the retention period has never been specified by the user. */
@@ -175,6 +188,44 @@ public final class TAPConfiguration {
 	 * {@value #DEFAULT_EXECUTION_DURATION}. */
 	public final static int DEFAULT_EXECUTION_DURATION = 0;
 
+	/* QUERY LIMITS KEYS */
+	/** Name/Key of the property specifying the maximum number of joins in a
+	 * query. If not set or negative, there is no limit.
+	 * @since 2.4 */
+	public final static String KEY_MAX_JOINS = "max_joins";
+	/** Name/Key of the property specifying the maximum depth of nested
+	 * sub-queries. If not set or negative, there is no limit.
+	 * @since 2.4 */
+	public final static String KEY_MAX_SUBQUERY_DEPTH = "max_subquery_depth";
+	/** Name/Key of the property specifying the maximum cost (as estimated by
+	 * the database) of a SYNCHRONOUS query. If not set or &le; 0, there is
+	 * no limit.
+	 * @since 2.4 */
+	public final static String KEY_SYNC_MAX_ESTIMATED_COST = "sync_max_estimated_cost";
+	/** Name/Key of the property specifying the maximum number of rows (as
+	 * estimated by the database) returned by a SYNCHRONOUS query. If not set
+	 * or &le; 0, there is no limit.
+	 * @since 2.4 */
+	public final static String KEY_SYNC_MAX_ESTIMATED_ROWS = "sync_max_estimated_rows";
+	/** Name/Key of the property telling whether queued asynchronous jobs must
+	 * be executed by increasing estimated cost. By default, they are executed
+	 * in their submission order.
+	 * @since 2.4 */
+	public final static String KEY_ASYNC_QUEUE_BY_COST = "async_queue_by_cost";
+	/** Name/Key of the property setting the maximum number of times a queued
+	 * asynchronous job can be overtaken by cheaper jobs, when the queue is
+	 * ordered by cost (see {@link #KEY_ASYNC_QUEUE_BY_COST}). A negative
+	 * value means no limit.
+	 * @since 2.4 */
+	public final static String KEY_ASYNC_QUEUE_MAX_OVERTAKES = "async_queue_max_overtakes";
+	/** Name/Key of the property telling when the result of an asynchronous
+	 * query must be spooled in a local file, so that the database connection
+	 * is freed before the result is formatted: <code>false</code> (never),
+	 * <code>true</code> (always) or a number of milliseconds (only when
+	 * getting the database connection took at least this time).
+	 * @since 2.4 */
+	public final static String KEY_SPOOL_ASYNC_RESULTS = "spool_async_results";
+
 	/* DATABASE KEYS */
 	/** Name/Key of the property specifying the database access method to use. */
 	public final static String KEY_DATABASE_ACCESS = "database_access";
@@ -213,6 +264,12 @@ public final class TAPConfiguration {
 	public final static String KEY_ASYNC_FETCH_SIZE = "async_fetch_size";
 	/** Default value of the property {@value #KEY_ASYNC_FETCH_SIZE}: {@value #DEFAULT_ASYNC_FETCH_SIZE}. */
 	public final static int DEFAULT_ASYNC_FETCH_SIZE = 10000;
+	/** Name/Key of the property specifying the memory (in bytes) that one
+	 * block of rows fetched from the database should not exceed. If set, the
+	 * fetch size of each query is computed from the estimated size of one row
+	 * of its result.
+	 * @since 2.4 */
+	public final static String KEY_FETCH_MEMORY_BUDGET = "fetch_memory_budget";
 	/** Name/Key of the property specifying whether the fixOnFail option is
 	 * enabled or not. This option lets automatically fix the input ADQL query
 	 * if its tokenization fails.
@@ -222,6 +279,41 @@ public final class TAPConfiguration {
 	 * {@value #DEFAULT_FIX_ON_FAIL}.
 	 * @since 2.3  */
 	public final static boolean DEFAULT_FIX_ON_FAIL = false;
+	/** Name/Key of the property specifying whether the literals of ADQL
+	 * constraints must be sent to the database as bind parameters of a
+	 * prepared statement.
+	 * @since 2.4 */
+	public final static String KEY_SQL_BIND_PARAMETERS = "sql_bind_parameters";
+	/** Default value of the property {@link #KEY_SQL_BIND_PARAMETERS}:
+	 * {@value #DEFAULT_SQL_BIND_PARAMETERS}.
+	 * @since 2.4 */
+	public final static boolean DEFAULT_SQL_BIND_PARAMETERS = false;
+	/** Name/Key of the property specifying the maximum number of prepared
+	 * statements kept open by each database connection.
+	 * @since 2.4 */
+	public final static String KEY_SQL_STATEMENT_CACHE_SIZE = "sql_statement_cache_size";
+	/** Default value of the property {@link #KEY_SQL_STATEMENT_CACHE_SIZE}:
+	 * {@value #DEFAULT_SQL_STATEMENT_CACHE_SIZE}.
+	 * @since 2.4 */
+	public final static int DEFAULT_SQL_STATEMENT_CACHE_SIZE = 20;
+	/** Name/Key of the property specifying the minimum number of values of an
+	 * IN list for it to be loaded into a temporary table before the query
+	 * execution.
+	 * @since 2.4 */
+	public final static String KEY_SQL_IN_LIST_TABLE_THRESHOLD = "sql_in_list_table_threshold";
+	/** Default value of the property {@link #KEY_SQL_IN_LIST_TABLE_THRESHOLD}:
+	 * {@value #DEFAULT_SQL_IN_LIST_TABLE_THRESHOLD}.
+	 * @since 2.4 */
+	public final static int DEFAULT_SQL_IN_LIST_TABLE_THRESHOLD = 0;
+	/** Name/Key of the property specifying whether the results of queries
+	 * must be exported with a binary COPY (PostgreSQL only) instead of being
+	 * fetched row by row through JDBC.
+	 * @since 2.4 */
+	public final static String KEY_SQL_COPY_EXPORT = "sql_copy_export";
+	/** Default value of the property {@link #KEY_SQL_COPY_EXPORT}:
+	 * {@value #DEFAULT_SQL_COPY_EXPORT}.
+	 * @since 2.4 */
+	public final static boolean DEFAULT_SQL_COPY_EXPORT = false;
 	/** Name/Key of the property specifying the name of the DataSource into the
 	 * JDNI. */
 	public final static String KEY_DATASOURCE_JNDI_NAME = "datasource_jndi_name";
@@ -264,6 +356,20 @@ public final class TAPConfiguration {
 	/** Name/Key of the property specifying the local file path of the XML file
 	 * containing the TAP metadata to load. */
 	public final static String KEY_METADATA_FILE = "metadata_file";
+	/** Name/Key of the property declaring the partitions of some tables, so
+	 * that queries on them can be executed in parallel (one connection per
+	 * partition). Syntax: <code>schema.table(column: b1, b2, ...) ; ...</code>
+	 * @since 2.4 */
+	public final static String KEY_PARTITIONED_TABLES = "partitioned_tables";
+	/** Name/Key of the property specifying the maximum number of partitions
+	 * executed at the same time by all jobs (i.e. the number of additional
+	 * database connections used for that).
+	 * @since 2.4 */
+	public final static String KEY_PARTITIONED_TABLES_NB_THREADS = "partitioned_tables_nb_threads";
+	/** Default value of the property {@value #KEY_PARTITIONED_TABLES_NB_THREADS} =
+	 * {@value #DEFAULT_PARTITIONED_TABLES_NB_THREADS}.
+	 * @since 2.4 */
+	public final static int DEFAULT_PARTITIONED_TABLES_NB_THREADS = PartitionExecutor.DEFAULT_NB_THREADS;
 
 	/* DATALINK KEY */
 	/** Name/Key of the property providing the API for the Datalink capability.
@@ -338,6 +444,42 @@ public final class TAPConfiguration {
 	 * {@value #DEFAULT_UPLOAD_MAX_REQUEST_SIZE}.
 	 * @since 2.3 */
 	public final static int DEFAULT_UPLOAD_MAX_REQUEST_SIZE = 250 * 1024 * 1024;
+	/** Name/Key of the property specifying the maximum size of the cache in
+	 * which the content of uploads by reference is downloaded. If not set or
+	 * &le; 0, no cache is used.
+	 * @since 2.4 */
+	public final static String KEY_UPLOAD_CACHE_SIZE = "upload_cache_size";
+	/** Name/Key of the property specifying the maximum number of uploads by
+	 * reference that can be downloaded simultaneously in the upload cache.
+	 * @since 2.4 */
+	public final static String KEY_UPLOAD_CACHE_NB_THREADS = "upload_cache_nb_threads";
+	/** Default value of the property {@value #KEY_UPLOAD_CACHE_NB_THREADS} =
+	 * {@value #DEFAULT_UPLOAD_CACHE_NB_THREADS}.
+	 * @since 2.4 */
+	public final static int DEFAULT_UPLOAD_CACHE_NB_THREADS = UploadCache.DEFAULT_NB_THREADS;
+
+	/* RESULT CACHE KEYS */
+	/** Name/Key of the property specifying the maximum size of the cache of
+	 * query results. If not set or &le; 0, no result is cached.
+	 * @since 2.4 */
+	public final static String KEY_RESULT_CACHE_SIZE = "result_cache_size";
+	/** Name/Key of the property listing the user defined functions whose the
+	 * result depends only on their parameters. Only queries using no other
+	 * user defined function can be cached.
+	 * @since 2.4 */
+	public final static String KEY_RESULT_CACHE_DETERMINISTIC_UDFS = "result_cache_deterministic_udfs";
+	/** Name/Key of the property telling whether identical queries submitted
+	 * while the first one is still running must wait for its result instead
+	 * of being executed.
+	 * @since 2.4 */
+	public final static String KEY_RESULT_CACHE_COALESCING = "result_cache_coalescing";
+
+	/* PARSED QUERY CACHE KEYS */
+	/** Name/Key of the property specifying the maximum number of parsed ADQL
+	 * queries to keep in memory. If not set or &le; 0, no parsed query is
+	 * cached.
+	 * @since 2.4 */
+	public final static String KEY_PARSED_QUERY_CACHE_SIZE = "parsed_query_cache_size";
 
 	/* OUTPUT KEYS */
 	/** Name/Key of the property specifying the list of all result output
@@ -423,6 +565,12 @@ public final class TAPConfiguration {
 	 * TAP service (e.g. a ADQL query validator). By default, this list if
 	 * empty ; only the default TAP resources exist. */
 	public final static String KEY_ADD_TAP_RESOURCES = "additional_resources";
+	/** Name/Key of the property enabling the recording of statistics about
+	 * all query executions and their exposure in the resource
+	 * <code>/metrics</code> (Prometheus text format). By default, it is
+	 * disabled.
+	 * @since 2.4 */
+	public final static String KEY_METRICS_ENABLED = "metrics_enabled";
 
 	/* CUSTOM FACTORY */
 	/** Name/Key of the property specifying the {@link TAPFactory} class to use
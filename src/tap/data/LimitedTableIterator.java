@@ -16,7 +16,8 @@ package tap.data;
  * You should have received a copy of the GNU Lesser General Public License
  * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ * Copyright 2014-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ *                       Astronomisches Rechen Institut (ARI)
  */
 
 import java.io.IOException;
@@ -53,8 +54,8 @@ import tap.upload.LimitedSizeInputStream;
  *	or of another problem.
  * </p>
  *
- * @author Gr&eacute;gory Mantelet (ARI)
- * @version 2.0 (01/2015)
+ * @author Gr&eacute;gory Mantelet (CDS;ARI)
+ * @version 2.4 (10/2026)
  * @since 2.0
  */
 public class LimitedTableIterator implements TableIterator {
@@ -164,6 +165,17 @@ public class LimitedTableIterator implements TableIterator {
 		return overflow;
 	}
 
+	/**
+	 * Get the number of rows read so far.
+	 *
+	 * @return	Number of read rows.
+	 *
+	 * @since 2.4
+	 */
+	public final int getNbRows(){
+		return countRow;
+	}
+
 	@Override
 	public void close() throws DataReadException{
 		innerIt.close();
@@ -184,7 +196,8 @@ public class LimitedTableIterator implements TableIterator {
 		boolean nextRow;
 		try{
 			nextRow = innerIt.nextRow();
-			countRow++;
+			if (nextRow)
+				countRow++;
 		}catch(DataReadException ex){
 			ExceededSizeException exceedEx = getExceededSizeException(ex);
 			// if an error caused by an ExceedSizeException occurs, set this iterator as overflowed and throw the exception:
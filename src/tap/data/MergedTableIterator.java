@@ -0,0 +1,461 @@
+package tap.data;
+
+/*
+ * This file is part of TAPLibrary.
+ *
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import adql.db.DBType;
+import tap.metadata.TAPColumn;
+
+/**
+ * {@link TableIterator} merging the rows of several {@link TableIterator}s
+ * having the same columns (e.g. the results of the same query executed on
+ * different partitions of a table).
+ *
+ * <p>
+ * 	Each merged iterator is read by its own thread, so that all of them are
+ * 	fetched concurrently. The read rows are buffered in bounded queues
+ * 	(of {@link #BUFFER_SIZE} rows per iterator).
+ * </p>
+ *
+ * <p>The order of the rows depends on the given order columns:</p>
+ * <ul>
+ * 	<li><b>no order column</b> - the rows are returned as soon as they are read,
+ * 		whatever is their iterator.</li>
+ * 	<li><b>some order columns</b> - all merged iterators MUST be sorted on these
+ * 		columns. A k-way merge then returns all rows in the same order
+ * 		(see {@link #compareValues(Object, Object)}). NULL values must be
+ * 		considered either greater (e.g. PostgreSQL) or smaller (e.g. H2) than
+ * 		any other value, as in the database.</li>
+ * </ul>
+ *
+ * <p>
+ * 	A global limit on the number of rows may be set: after that many rows, the
+ * 	merge stops, whatever is the number of rows still available.
+ * </p>
+ *
+ * <p><i>Note:
+ * 	All merged iterators are closed by this iterator: by the thread reading
+ * 	them, at the end of the reading or when {@link #close()} is called.
+ * </i></p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 2.4 (10/2026)
+ * @since 2.4
+ */
+public class MergedTableIterator implements TableIterator {
+
+	/** Maximum number of rows buffered for each merged iterator. */
+	public final static int BUFFER_SIZE = 1000;
+
+	/** Marker put in a queue when its iterator has no more row. */
+	private final static Object[] END = new Object[0];
+
+	/** Description of all columns (those of the first merged iterator). */
+	private final TAPColumn[] metadata;
+
+	/** Type of the values of each column, as given by the merged iterators.
+	 * <i>An item is NULL as long as no value of the column has been read.</i> */
+	private final DBType[] colTypes;
+
+	/** Index (0-based) of the columns on which the rows are sorted.
+	 * <i>Empty if the rows are not sorted.</i> */
+	private final int[] orderColumns;
+
+	/** Whether the corresponding order column is sorted in descending order. */
+	private final boolean[] descending;
+
+	/** Whether NULL values are greater than any other value (otherwise, smaller). */
+	private final boolean nullsHigh;
+
+	/** Maximum number of rows to return. <i>Negative or null if no limit.</i> */
+	private final int limit;
+
+	/** Queues of read rows: one per merged iterator if sorted,
+	 * otherwise a single one shared by all readers. */
+	private final List<BlockingQueue<Object[]>> queues;
+
+	/** Threads reading the merged iterators. */
+	private final Reader[] readers;
+
+	/** Next row of each merged iterator, if sorted.
+	 * <i>NULL if not yet read, {@link #END} if no more row.</i> */
+	private final Object[][] heads;
+
+	/** Number of merged iterators entirely read. */
+	private int nbEnded = 0;
+
+	/** First error raised by a reader. <i>NULL if none.</i> */
+	private volatile Throwable error = null;
+
+	/** Whether this iterator has been closed. */
+	private volatile boolean closed = false;
+
+	/** Whether {@link #nextRow()} has already been called. */
+	private boolean started = false;
+
+	/** Current row. <i>NULL if no more row or if {@link #nextRow()} has not yet been called.</i> */
+	private Object[] row = null;
+
+	/** Index of the next column to read in the current row. */
+	private int col = 0;
+
+	/** Number of rows returned so far. */
+	private int nbRows = 0;
+
+	/**
+	 * Merge the given iterators, without any particular order and limit.
+	 *
+	 * @param iterators	Iterators to merge. They must have the same columns.
+	 *
+	 * @throws NullPointerException	If no iterator is given.
+	 * @throws DataReadException	If the columns of the iterators can not be read.
+	 */
+	public MergedTableIterator(final TableIterator[] iterators) throws NullPointerException, DataReadException{
+		this(iterators, null, null, true, -1);
+	}
+
+	/**
+	 * Merge the given iterators.
+	 *
+	 * @param iterators		Iterators to merge. They must have the same columns
+	 *                 		and be sorted on the given order columns.
+	 * @param orderColumns	Index (0-based) of the columns on which all iterators
+	 *                    	are sorted. <i>If NULL or empty, the rows are not sorted.</i>
+	 * @param descending	For each order column, whether it is sorted in
+	 *                  	descending order. <i>If NULL, all are ascending.</i>
+	 * @param nullsHigh		Whether NULL values are sorted as greater than any
+	 *                 		other value (e.g. PostgreSQL), or as smaller (e.g. H2).
+	 * @param limit			Maximum number of rows to return.
+	 *             			<i>If negative or null, no limit.</i>
+	 *
+	 * @throws NullPointerException	If no iterator is given.
+	 * @throws DataReadException	If the columns of the iterators can not be read.
+	 */
+	public MergedTableIterator(final TableIterator[] iterators, final int[] orderColumns, final boolean[] descending, final boolean nullsHigh, final int limit) throws NullPointerException, DataReadException{
+		if (iterators == null || iterators.length == 0)
+			throw new NullPointerException("Missing iterators to merge!");
+
+		this.metadata = iterators[0].getMetadata();
+		this.colTypes = new DBType[metadata.length];
+		this.orderColumns = (orderColumns == null) ? new int[0] : orderColumns;
+		this.descending = (descending == null) ? new boolean[this.orderColumns.length] : descending;
+		this.nullsHigh = nullsHigh;
+		this.limit = limit;
+
+		// Create the queues:
+		if (isSorted()){
+			queues = new ArrayList<BlockingQueue<Object[]>>(iterators.length);
+			for(int i = 0; i < iterators.length; i++)
+				queues.add(new ArrayBlockingQueue<Object[]>(BUFFER_SIZE));
+			heads = new Object[iterators.length][];
+		}else{
+			queues = new ArrayList<BlockingQueue<Object[]>>(1);
+			queues.add(new ArrayBlockingQueue<Object[]>(BUFFER_SIZE * iterators.length));
+			heads = null;
+		}
+
+		// Start reading all iterators:
+		readers = new Reader[iterators.length];
+		for(int i = 0; i < iterators.length; i++){
+			readers[i] = new Reader(iterators[i], queues.get(isSorted() ? i : 0));
+			readers[i].setName("MergedTableIterator-" + i);
+			readers[i].setDaemon(true);
+			readers[i].start();
+		}
+	}
+
+	/**
+	 * Tell whether the rows are sorted.
+	 *
+	 * @return	<i>true</i> if there is at least one order column,
+	 *        	<i>false</i> otherwise.
+	 */
+	public final boolean isSorted(){
+		return orderColumns.length > 0;
+	}
+
+	/**
+	 * Get the number of merged iterators.
+	 *
+	 * @return	Number of merged iterators.
+	 */
+	public final int getNbIterators(){
+		return readers.length;
+	}
+
+	@Override
+	public TAPColumn[] getMetadata() throws DataReadException{
+		return metadata;
+	}
+
+	@Override
+	public boolean nextRow() throws DataReadException{
+		started = true;
+		col = 0;
+		if (closed || (limit > 0 && nbRows >= limit) || nbEnded == readers.length){
+			row = null;
+			return false;
+		}
+		try{
+			row = isSorted() ? nextSortedRow() : nextUnsortedRow();
+		}catch(InterruptedException ie){
+			close();
+			throw new DataReadException("Merge of query results interrupted!", ie);
+		}
+		if (error != null){
+			close();
+			throw (error instanceof DataReadException) ? (DataReadException)error : new DataReadException(error);
+		}
+		if (row != null)
+			nbRows++;
+		return row != null;
+	}
+
+	/**
+	 * Get the next row read by any reader.
+	 *
+	 * @return	The next row, or NULL if all iterators have been entirely read.
+	 *
+	 * @throws InterruptedException	If interrupted while waiting for a row.
+	 */
+	private Object[] nextUnsortedRow() throws InterruptedException{
+		while(nbEnded < readers.length){
+			Object[] next = queues.get(0).take();
+			if (next != END)
+				return next;
+			nbEnded++;
+			if (error != null)
+				return null;
+		}
+		return null;
+	}
+
+	/**
+	 * Get the smallest row (according to the order columns) among the next
+	 * row of each iterator.
+	 *
+	 * @return	The next row, or NULL if all iterators have been entirely read.
+	 *
+	 * @throws InterruptedException	If interrupted while waiting for a row.
+	 */
+	private Object[] nextSortedRow() throws InterruptedException{
+		int min = -1;
+		for(int i = 0; i < heads.length; i++){
+			// wait for the next row of this iterator, if not yet read:
+			if (heads[i] == null){
+				heads[i] = queues.get(i).take();
+				if (heads[i] == END){
+					nbEnded++;
+					if (error != null)
+						return null;
+				}
+			}
+			// keep the smallest one (the first one if equal):
+			if (heads[i] != END && (min < 0 || compareRows(heads[i], heads[min]) < 0))
+				min = i;
+		}
+		if (min < 0)
+			return null;
+		Object[] next = heads[min];
+		heads[min] = null;
+		return next;
+	}
+
+	/**
+	 * Compare the given rows on the order columns.
+	 *
+	 * @param row1	A row.
+	 * @param row2	Another row.
+	 *
+	 * @return	A negative value if row1 must be before row2,
+	 *        	a positive value if it must be after,
+	 *        	0 if they are equal on all order columns.
+	 */
+	private int compareRows(final Object[] row1, final Object[] row2){
+		for(int i = 0; i < orderColumns.length; i++){
+			Object value1 = row1[orderColumns[i]], value2 = row2[orderColumns[i]];
+			int comp = compareValues(value1, value2);
+			if (!nullsHigh && (value1 == null) != (value2 == null))
+				comp = -comp;
+			if (comp != 0)
+				return descending[i] ? -comp : comp;
+		}
+		return 0;
+	}
+
+	/**
+	 * Compare two column values.
+	 *
+	 * <p>
+	 * 	NULL values are greater than any other value. Numbers are compared
+	 * 	numerically (exactly if both are integers). Other values are compared
+	 * 	with their natural order if they are {@link Comparable} and of the same
+	 * 	class, otherwise with their string representation.
+	 * </p>
+	 *
+	 * <p><i>Note:
+	 * 	Strings are then compared character by character. This order may be
+	 * 	different from the collation of the database. That's why
+	 * 	{@link tap.QueryPartitioner} splits only queries sorted on numeric or
+	 * 	temporal columns.
+	 * </i></p>
+	 *
+	 * @param value1	A value. <i>MAY be NULL</i>
+	 * @param value2	Another value. <i>MAY be NULL</i>
+	 *
+	 * @return	A negative value if value1 &lt; value2,
+	 *        	a positive value if value1 &gt; value2,
+	 *        	0 if they are equal.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static int compareValues(final Object value1, final Object value2){
+		if (value1 == value2)
+			return 0;
+		else if (value1 == null)
+			return 1;
+		else if (value2 == null)
+			return -1;
+		else if (value1 instanceof Number && value2 instanceof Number){
+			if (isInteger(value1) && isInteger(value2))
+				return Long.compare(((Number)value1).longValue(), ((Number)value2).longValue());
+			else
+				return Double.compare(((Number)value1).doubleValue(), ((Number)value2).doubleValue());
+		}else if (value1 instanceof Comparable && value1.getClass().isInstance(value2))
+			return ((Comparable)value1).compareTo(value2);
+		else
+			return value1.toString().compareTo(value2.toString());
+	}
+
+	/**
+	 * Tell whether the given number is an integer which fits in a long.
+	 *
+	 * @param value	A number.
+	 *
+	 * @return	<i>true</i> if an integer, <i>false</i> otherwise.
+	 */
+	private static boolean isInteger(final Object value){
+		return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+	}
+
+	@Override
+	public boolean hasNextCol() throws IllegalStateException, DataReadException{
+		if (!started)
+			throw new IllegalStateException("Row position not set: the function nextRow() must be called first!");
+		return row != null && col < row.length;
+	}
+
+	@Override
+	public Object nextCol() throws NoSuchElementException, IllegalStateException, DataReadException{
+		if (!hasNextCol())
+			throw new NoSuchElementException("No more column to read!");
+		return row[col++];
+	}
+
+	@Override
+	public DBType getColType() throws IllegalStateException, DataReadException{
+		if (col == 0)
+			throw new IllegalStateException("No column value read yet: the function nextCol() must be called first!");
+		return (colTypes[col - 1] != null) ? colTypes[col - 1] : metadata[col - 1].getDatatype();
+	}
+
+	@Override
+	public void close() throws DataReadException{
+		if (closed)
+			return;
+		closed = true;
+		row = null;
+		// Stop all readers (each one closes its iterator)...
+		for(Reader reader : readers)
+			reader.interrupt();
+		// ...and wait for them, so that the merged iterators are not used any more:
+		boolean interrupted = false;
+		for(Reader reader : readers){
+			while(reader.isAlive()){
+				try{
+					reader.join();
+				}catch(InterruptedException ie){
+					interrupted = true;
+				}
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	/**
+	 * Thread reading entirely a merged iterator and putting all its rows in a
+	 * queue, followed by {@link MergedTableIterator#END}.
+	 *
+	 * @author Gr&eacute;gory Mantelet (CDS)
+	 * @version 2.4 (10/2026)
+	 * @since 2.4
+	 */
+	private class Reader extends Thread {
+
+		/** The iterator to read. */
+		private final TableIterator iterator;
+
+		/** The queue in which the read rows must be put. */
+		private final BlockingQueue<Object[]> queue;
+
+		public Reader(final TableIterator iterator, final BlockingQueue<Object[]> queue){
+			this.iterator = iterator;
+			this.queue = queue;
+		}
+
+		@Override
+		public void run(){
+			try{
+				while(!closed && iterator.nextRow()){
+					Object[] values = new Object[metadata.length];
+					for(int c = 0; c < values.length && iterator.hasNextCol(); c++){
+						values[c] = iterator.nextCol();
+						if (colTypes[c] == null)
+							colTypes[c] = iterator.getColType();
+					}
+					queue.put(values);
+				}
+			}catch(InterruptedException ie){
+				// closed => nothing more to do
+			}catch(Throwable t){
+				if (error == null)
+					error = t;
+			}finally{
+				try{
+					iterator.close();
+				}catch(DataReadException dre){
+					if (error == null && !closed)
+						error = dre;
+				}
+				// Tell the end of this iterator (if still needed):
+				try{
+					if (!closed)
+						queue.put(END);
+				}catch(InterruptedException ie){}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,594 @@
+package tap.data;
+
+/*
+ * This file is part of TAPLibrary.
+ *
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyOut;
+import org.postgresql.copy.PGCopyInputStream;
+
+import adql.db.DBColumn;
+import adql.db.DBType;
+import adql.db.DBType.DBDatatype;
+import tap.db.DBConnection;
+import tap.metadata.TAPColumn;
+
+/**
+ * {@link TableIterator} reading the result of a PostgreSQL query exported with
+ * <code>COPY (...) TO STDOUT WITH (FORMAT binary)</code>.
+ *
+ * <p>
+ * 	Instead of fetching the rows through JDBC (one {@link java.sql.ResultSet}
+ * 	row object per row, one conversion per value), the whole result is streamed
+ * 	by the database in the binary COPY format and the values are decoded
+ * 	directly from this stream. This is much cheaper, on both sides, for huge
+ * 	results.
+ * </p>
+ *
+ * <p>
+ * 	The binary COPY format does not carry the type of the columns. That's why
+ * 	the real PostgreSQL types of the result columns are first fetched from the
+ * 	description of the prepared query (see {@link #getResultTypes(Connection, String)}).
+ * 	The values are decoded according to these types, without any cast: the
+ * 	declared metadata (e.g. TAP_SCHEMA) may not match the table exactly
+ * 	(e.g. a <code>bigint</code> declared as INTEGER), and a cast would then
+ * 	overflow, lose precision or trim the padding of <code>char(n)</code>
+ * 	values. Only results whose all columns have a decodable type can be
+ * 	exported (see {@link #isExportable(DBColumn[])} and
+ * 	{@link #isExportableResult(String[])}).
+ * </p>
+ *
+ * <p><i>Note:
+ * 	The row limit of the query (e.g. MAXREC+1) is kept in the wrapped query. So
+ * 	an overflow can still be detected by the reader of this iterator.
+ * </i></p>
+ *
+ * <p><i>Note:
+ * 	The COPY is not run by a JDBC statement: {@link java.sql.Statement#cancel()}
+ * 	has no effect on it. It is stopped with {@link #cancel()} (e.g. when the
+ * 	query execution is cancelled), when this iterator is closed before the end,
+ * 	or by {@link #nextRow()} when the current thread is interrupted.
+ * </i></p>
+ *
+ * <p><i>Note:
+ * 	Requires the PostgreSQL JDBC driver.
+ * </i></p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 2.4 (10/2026)
+ * @since 2.4
+ */
+public class PgCopyTableIterator implements TableIterator {
+
+	/** Signature starting the binary COPY format. */
+	private final static byte[] SIGNATURE = new byte[]{ 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte)0xFF, '\r', '\n', 0 };
+
+	/** Flag of the binary COPY header telling that each row starts with an OID. */
+	private final static int FLAG_OIDS = 1 << 16;
+
+	/** {@link DBConnection} instance which has provided the result. <i>May be NULL.</i> */
+	private final DBConnection dbConn;
+
+	/** Binary COPY stream. */
+	private final DataInputStream data;
+
+	/** The running COPY operation, if the stream is a PostgreSQL COPY.
+	 * <i>NULL otherwise.</i> */
+	private final CopyOut copyOut;
+
+	/** Description of all columns. */
+	private final TAPColumn[] colMeta;
+
+	/** PostgreSQL type in which each column is decoded (see {@link #getCopyType(String)}). */
+	private final String[] copyTypes;
+
+	/** Values of the current row. */
+	private final Object[] row;
+
+	/** Indicate whether the header of the COPY stream has already been read. */
+	private boolean headerRead = false;
+
+	/** Indicate whether each row starts with an OID. */
+	private boolean withOids = false;
+
+	/** Indicate whether the last row has already been read. */
+	private boolean endReached = false;
+
+	/** Indicate whether the whole COPY stream has been read (i.e. the COPY is finished). */
+	private boolean drained = false;
+
+	/** Index of the last read column (=0 just after {@link #nextRow()}, -1 before the first row). */
+	private int colIndex = -1;
+
+	/**
+	 * Export the result of the given SQL query with a binary COPY and build
+	 * a TableIterator over it.
+	 *
+	 * @param dbConn		{@link DBConnection} instance which provides the given connection.
+	 *              		<i>{@link DBConnection#endQuery()} is called when this iterator is closed ; MAY be NULL.</i>
+	 * @param connection	JDBC connection to a PostgreSQL database.
+	 * @param sql			The SELECT query whose the result must be exported.
+	 * @param resultMeta	Expected columns of the result.
+	 *                  	<i>All of them must be exportable (see {@link #isExportable(DBColumn[])}).</i>
+	 * @param resultTypes	Real PostgreSQL types of the result columns (see {@link #getResultTypes(Connection, String)}).
+	 *                   	<i>All of them must be decodable (see {@link #isExportableResult(String[])}).</i>
+	 *
+	 * @throws NullPointerException		If one of the parameters (except dbConn) is NULL.
+	 * @throws IllegalArgumentException	If a column can not be exported.
+	 * @throws SQLException				If the COPY can not be started (e.g. not a PostgreSQL connection).
+	 */
+	public PgCopyTableIterator(final DBConnection dbConn, final Connection connection, final String sql, final DBColumn[] resultMeta, final String[] resultTypes) throws NullPointerException, IllegalArgumentException, SQLException{
+		this(dbConn, new PGCopyInputStream(connection.unwrap(PGConnection.class), buildCopySQL(sql)), resultMeta, resultTypes);
+	}
+
+	/**
+	 * Build a TableIterator over the given binary COPY stream, whose columns have the types given by
+	 * {@link #getCopyType(DBType)} for the given columns.
+	 *
+	 * @param dbConn		{@link DBConnection} instance which has provided the given stream. <i>MAY be NULL.</i>
+	 * @param copyStream	Stream in the binary COPY format.
+	 * @param resultMeta	Expected columns of the result.
+	 *
+	 * @throws NullPointerException		If the stream or the columns are missing.
+	 * @throws IllegalArgumentException	If a column can not be exported.
+	 */
+	protected PgCopyTableIterator(final DBConnection dbConn, final InputStream copyStream, final DBColumn[] resultMeta) throws NullPointerException, IllegalArgumentException{
+		this(dbConn, copyStream, resultMeta, getDeclaredTypes(resultMeta));
+	}
+
+	/**
+	 * Build a TableIterator over the given binary COPY stream.
+	 *
+	 * @param dbConn		{@link DBConnection} instance which has provided the given stream. <i>MAY be NULL.</i>
+	 * @param copyStream	Stream in the binary COPY format.
+	 * @param resultMeta	Expected columns of the result.
+	 * @param resultTypes	Real PostgreSQL types of the columns of the stream.
+	 *
+	 * @throws NullPointerException		If the stream, the columns or their types are missing.
+	 * @throws IllegalArgumentException	If a column can not be exported.
+	 */
+	protected PgCopyTableIterator(final DBConnection dbConn, final InputStream copyStream, final DBColumn[] resultMeta, final String[] resultTypes) throws NullPointerException, IllegalArgumentException{
+		if (copyStream == null || resultMeta == null || resultTypes == null)
+			throw new NullPointerException("Missing COPY stream or result metadata!");
+		if (!isExportable(resultMeta) || !isExportableResult(resultTypes) || resultTypes.length != resultMeta.length)
+			throw new IllegalArgumentException("Some columns of the result can not be exported with COPY!");
+
+		this.dbConn = dbConn;
+		this.data = new DataInputStream(copyStream);
+		this.copyOut = (copyStream instanceof CopyOut) ? (CopyOut)copyStream : null;
+
+		colMeta = new TAPColumn[resultMeta.length];
+		copyTypes = new String[resultMeta.length];
+		for(int i = 0; i < resultMeta.length; i++){
+			if (resultMeta[i] instanceof TAPColumn)
+				colMeta[i] = (TAPColumn)resultMeta[i];
+			else{
+				colMeta[i] = new TAPColumn(resultMeta[i].getADQLName(), resultMeta[i].getDatatype());
+				colMeta[i].setDBName(resultMeta[i].getDBName());
+			}
+			copyTypes[i] = getCopyType(resultTypes[i]);
+		}
+		row = new Object[resultMeta.length];
+	}
+
+	/**
+	 * Get the PostgreSQL types deduced from the datatype of the given columns.
+	 *
+	 * @param columns	Columns of a result.
+	 *
+	 * @return	Their PostgreSQL types (see {@link #getCopyType(DBType)}),
+	 *        	or NULL if no column is given.
+	 */
+	private static String[] getDeclaredTypes(final DBColumn[] columns){
+		if (columns == null)
+			return null;
+		String[] types = new String[columns.length];
+		for(int i = 0; i < columns.length; i++)
+			types[i] = (columns[i] == null) ? null : getCopyType(columns[i].getDatatype());
+		return types;
+	}
+
+	/**
+	 * Get the PostgreSQL type in which a column of the given datatype must be
+	 * exported.
+	 *
+	 * @param type	Datatype of a result column.
+	 *
+	 * @return	The PostgreSQL type (<code>int2</code>, <code>int4</code>,
+	 *        	<code>int8</code>, <code>float4</code>, <code>float8</code>,
+	 *        	<code>text</code> or <code>bytea</code>),
+	 *        	or NULL if the datatype is unknown or not supported
+	 *        	(e.g. dates and geometries).
+	 */
+	public static String getCopyType(final DBType type){
+		if (type == null || type.isUnknown())
+			return null;
+		switch(type.type){
+			case SMALLINT:
+				return "int2";
+			case INTEGER:
+				return "int4";
+			case BIGINT:
+				return "int8";
+			case REAL:
+				return "float4";
+			case DOUBLE:
+				return "float8";
+			case CHAR:
+			case VARCHAR:
+			case UNICODECHAR:
+			case CLOB:
+				return "text";
+			case BINARY:
+			case VARBINARY:
+			case BLOB:
+				return "bytea";
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Get the PostgreSQL type in which a column of the given real type is
+	 * decoded.
+	 *
+	 * @param pgType	Name of a PostgreSQL type, as returned by
+	 *              	{@link ResultSetMetaData#getColumnTypeName(int)}.
+	 *
+	 * @return	The type to decode (<code>int2</code>, <code>int4</code>,
+	 *        	<code>int8</code>, <code>float4</code>, <code>float8</code>,
+	 *        	<code>text</code> for all character strings, or
+	 *        	<code>bytea</code>),
+	 *        	or NULL if the type can not be decoded (e.g. numeric, dates
+	 *        	and geometries).
+	 */
+	public static String getCopyType(final String pgType){
+		if (pgType == null)
+			return null;
+		switch(pgType.toLowerCase()){
+			case "int2":
+			case "int4":
+			case "int8":
+			case "float4":
+			case "float8":
+			case "text":
+			case "bytea":
+				return pgType.toLowerCase();
+			case "varchar":
+			case "bpchar":
+				return "text";
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Get the real PostgreSQL types of the result of the given query.
+	 *
+	 * <p>
+	 * 	They are read from the metadata of the prepared query: the query is
+	 * 	only described by the database (parse, without any execution).
+	 * </p>
+	 *
+	 * @param connection	JDBC connection to a PostgreSQL database.
+	 * @param sql			The SELECT query whose the result must be exported.
+	 *
+	 * @return	The name of the type of each result column.
+	 *
+	 * @throws SQLException	If the query can not be described.
+	 */
+	public static String[] getResultTypes(final Connection connection, final String sql) throws SQLException{
+		PreparedStatement stmt = connection.prepareStatement(trimQuery(sql));
+		try{
+			ResultSetMetaData meta = stmt.getMetaData();
+			if (meta == null)
+				return new String[0];
+			String[] types = new String[meta.getColumnCount()];
+			for(int i = 0; i < types.length; i++)
+				types[i] = meta.getColumnTypeName(i + 1);
+			return types;
+		}finally{
+			stmt.close();
+		}
+	}
+
+	/**
+	 * Tell whether a result whose columns have the given real types can be
+	 * exported with a binary COPY.
+	 *
+	 * @param resultTypes	Real PostgreSQL types of the result columns
+	 *                   	(see {@link #getResultTypes(Connection, String)}).
+	 *
+	 * @return	<i>true</i> if there is at least one column and all can be
+	 *        	decoded (see {@link #getCopyType(String)}),
+	 *        	<i>false</i> otherwise.
+	 */
+	public static boolean isExportableResult(final String[] resultTypes){
+		if (resultTypes == null || resultTypes.length == 0)
+			return false;
+		for(String type : resultTypes){
+			if (getCopyType(type) == null)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Tell whether a result having the given columns can be exported with a
+	 * binary COPY.
+	 *
+	 * @param columns	Columns of the result.
+	 *
+	 * @return	<i>true</i> if there is at least one column and all have a
+	 *        	supported datatype (see {@link #getCopyType(DBType)}),
+	 *        	<i>false</i> otherwise.
+	 */
+	public static boolean isExportable(final DBColumn[] columns){
+		if (columns == null || columns.length == 0)
+			return false;
+		for(DBColumn col : columns){
+			if (col == null || getCopyType(col.getDatatype()) == null)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Build the COPY exporting the result of the given query. For instance:
+	 *
+	 * <pre>COPY (SELECT ...) TO STDOUT WITH (FORMAT binary)</pre>
+	 *
+	 * <p><i>Note:
+	 * 	No column is cast: the values are decoded according to the real types
+	 * 	of the result (see {@link #getResultTypes(Connection, String)}).
+	 * </i></p>
+	 *
+	 * @param sql	The SELECT query to export.
+	 *
+	 * @return	The COPY query.
+	 *
+	 * @throws NullPointerException	If the query is missing.
+	 */
+	public static String buildCopySQL(final String sql) throws NullPointerException{
+		if (sql == null)
+			throw new NullPointerException("Missing query!");
+		return "COPY (" + trimQuery(sql) + ") TO STDOUT WITH (FORMAT binary)";
+	}
+
+	/**
+	 * Remove the spaces and the final semicolon (if any) of the given query.
+	 *
+	 * @param sql	A SELECT query.
+	 *
+	 * @return	The query which can be wrapped in another one.
+	 */
+	private static String trimQuery(final String sql){
+		String query = sql.trim();
+		if (query.endsWith(";"))
+			query = query.substring(0, query.length() - 1);
+		return query;
+	}
+
+	/**
+	 * Read and check the header of the binary COPY stream.
+	 *
+	 * @throws IOException	If the header can not be read or is incorrect.
+	 */
+	private void readHeader() throws IOException{
+		byte[] signature = new byte[SIGNATURE.length];
+		data.readFully(signature);
+		for(int i = 0; i < SIGNATURE.length; i++){
+			if (signature[i] != SIGNATURE[i])
+				throw new IOException("Incorrect binary COPY signature!");
+		}
+		withOids = (data.readInt() & FLAG_OIDS) != 0;
+		int extensionLength = data.readInt();
+		if (extensionLength > 0)
+			data.readFully(new byte[extensionLength]);
+		headerRead = true;
+	}
+
+	/**
+	 * Read the value of the specified column.
+	 *
+	 * @param col	Index (starting from 0) of the column to read.
+	 *
+	 * @return	The read value. <i>NULL if the value is NULL.</i>
+	 *
+	 * @throws IOException	If the value can not be read.
+	 */
+	protected Object readValue(final int col) throws IOException{
+		int length = data.readInt();
+		if (length < 0)
+			return null;
+
+		switch(copyTypes[col]){
+			case "int2":
+				return data.readShort();
+			case "int4":
+				return data.readInt();
+			case "int8":
+				return data.readLong();
+			case "float4":
+				return data.readFloat();
+			case "float8":
+				return data.readDouble();
+		}
+
+		byte[] bytes = new byte[length];
+		data.readFully(bytes);
+		if (copyTypes[col].equals("bytea"))
+			return bytes;
+
+		String str = new String(bytes, StandardCharsets.UTF_8);
+		// if the column should be only a character (as in ResultSetTableIterator):
+		DBType colType = colMeta[col].getDatatype();
+		if (colType.type == DBDatatype.CHAR && (colType.length == 1 || colType.length <= 0) && str.length() > 0)
+			return str.charAt(0);
+		return str;
+	}
+
+	@Override
+	public TAPColumn[] getMetadata() throws DataReadException{
+		return colMeta;
+	}
+
+	@Override
+	public boolean nextRow() throws DataReadException{
+		if (endReached)
+			return false;
+
+		// Stop the COPY if the thread has been interrupted (e.g. job aborted):
+		if (Thread.currentThread().isInterrupted()){
+			endReached = true;
+			cancel();
+			throw new DataReadException("Reading of the COPY stream interrupted!");
+		}
+
+		try{
+			if (!headerRead)
+				readHeader();
+
+			// Read the number of fields (-1 for the trailer):
+			short nbFields = data.readShort();
+			if (nbFields == -1){
+				endReached = true;
+				colIndex = 0;
+				// Consume the end of the COPY, so that it is not considered as still running:
+				while(data.read() >= 0);
+				drained = true;
+				return false;
+			}
+			if (nbFields != row.length)
+				throw new DataReadException("Unexpected number of columns in the COPY stream: " + nbFields + " instead of " + row.length + "!");
+
+			// Skip the OID, if any:
+			if (withOids){
+				int length = data.readInt();
+				if (length > 0)
+					data.readFully(new byte[length]);
+			}
+
+			// Read all values:
+			for(int i = 0; i < row.length; i++)
+				row[i] = readValue(i);
+			colIndex = 0;
+			return true;
+		}catch(EOFException eofe){
+			endReached = true;
+			throw new DataReadException("Unexpected end of the COPY stream!", eofe);
+		}catch(IOException ioe){
+			endReached = true;
+			throw new DataReadException("Can not read the COPY stream: " + ioe.getMessage(), ioe);
+		}
+	}
+
+	/**
+	 * Check the row iteration state. That's to say whether:
+	 * <ul>
+	 * 	<li>the row iteration has started = the first row has been read = a first call of {@link #nextRow()} has been done</li>
+	 * 	<li>AND the row iteration is not finished = the last row has been read.</li>
+	 * </ul>
+	 *
+	 * @throws IllegalStateException	If the row iteration has not started or is finished.
+	 */
+	private void checkReadState() throws IllegalStateException{
+		if (colIndex < 0)
+			throw new IllegalStateException("No row has yet been read!");
+		else if (endReached)
+			throw new IllegalStateException("End of the COPY stream already reached!");
+	}
+
+	@Override
+	public boolean hasNextCol() throws IllegalStateException, DataReadException{
+		checkReadState();
+		return colIndex < row.length;
+	}
+
+	@Override
+	public Object nextCol() throws NoSuchElementException, IllegalStateException, DataReadException{
+		if (!hasNextCol())
+			throw new NoSuchElementException("No more column to read!");
+		return row[colIndex++];
+	}
+
+	@Override
+	public DBType getColType() throws IllegalStateException, DataReadException{
+		checkReadState();
+		if (colIndex <= 0)
+			throw new IllegalStateException("No column has yet been read!");
+		return colMeta[colIndex - 1].getDatatype();
+	}
+
+	/**
+	 * Stop the COPY, if still running.
+	 *
+	 * <p>
+	 * 	The database is asked to abort the COPY (see {@link CopyOut#cancelCopy()}).
+	 * 	A thread blocked while reading the COPY stream then gets an error.
+	 * </p>
+	 *
+	 * <p><i>Note:
+	 * 	This function can be called by any thread (e.g. the one cancelling the
+	 * 	query execution). Nothing is done if the COPY is already finished or if
+	 * 	the stream is not a PostgreSQL COPY.
+	 * </i></p>
+	 *
+	 * @throws DataReadException	If the COPY can not be cancelled.
+	 */
+	public void cancel() throws DataReadException{
+		try{
+			if (copyOut != null && copyOut.isActive())
+				copyOut.cancelCopy();
+		}catch(SQLException se){
+			// the COPY may have ended meanwhile:
+			if (copyOut.isActive())
+				throw new DataReadException("Can not stop the COPY!", se);
+		}
+	}
+
+	@Override
+	public void close() throws DataReadException{
+		endReached = true;
+		try{
+			// Stop the COPY, if still running:
+			if (!drained){
+				cancel();
+				data.close();
+			}
+		}catch(IOException ioe){
+			throw new DataReadException("Can not stop the COPY!", ioe);
+		}finally{
+			if (dbConn != null)
+				dbConn.endQuery();
+		}
+	}
+
+}
@@ -16,7 +16,7 @@ package tap.data;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2014-2019 - Astronomisches Rechen Institut (ARI),
+ * Copyright 2014-2026 - Astronomisches Rechen Institut (ARI),
  *                       UDS/Centre de Données astronomiques de Strasbourg (CDS)
  */
 
@@ -28,13 +28,12 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
-import java.text.SimpleDateFormat;
 import java.util.NoSuchElementException;
+import java.util.TimeZone;
 
 import adql.db.DBColumn;
 import adql.db.DBType;
 import adql.db.DBType.DBDatatype;
-import adql.db.STCS.Region;
 import adql.parser.ParseException;
 import adql.translator.JDBCTranslator;
 import tap.db.DBConnection;
@@ -49,7 +48,7 @@ import uws.ISO8601Format;
  * </i></p>
  *
  * @author Gr&eacute;gory Mantelet (ARI;CDS)
- * @version 2.3 (03/2019)
+ * @version 2.4 (10/2026)
  * @since 2.0
  */
 public class ResultSetTableIterator implements TableIterator {
@@ -79,10 +78,12 @@ public class ResultSetTableIterator implements TableIterator {
 	/** Index of the last read column (=0 just after {@link #nextRow()} and before {@link #nextCol()}, ={@link #nbColumns} after the last column has been read). */
 	private int colIndex;
 
-	/** Formatter to use in order to format java.sql.Date values. */
-	private static SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-	/** Formatter to use in order to format java.sql.Time values. */
-	private static SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
+	/** Time zone in which java.sql.Date and java.sql.Time values are formatted (i.e. the local one).
+	 * @since 2.4 */
+	private static final TimeZone localTimeZone = TimeZone.getDefault();
+	/** Buffer in which date, time and timestamp values are formatted (see {@link ISO8601Format}).
+	 * @since 2.4 */
+	private final char[] dateBuffer = new char[ISO8601Format.MAX_LENGTH];
 
 	/**
 	 * <p>Build a TableIterator able to read rows and columns of the given ResultSet.</p>
@@ -703,7 +704,7 @@ public class ResultSetTableIterator implements TableIterator {
 	 * <ul>
 	 * 	<li><b>If {@link Timestamp}, {@link Date} or {@link Time}:</b> the date-time is converted into a string with the ISO8601 format (see {@link ISO8601Format}).</li>
 	 * 	<li><b>If a single CHAR is declared and a String is given:</b> only the first character is returned as a {@link Character} object.</li>
-	 * 	<li><b>If the value is declared as a Geometry:</b> the geometry is formatted as a STC-S expression.</li>
+	 * 	<li><b>If the value is declared as a Geometry:</b> the geometry is formatted as a STC-S expression (see {@link JDBCTranslator#translateGeometryToSTCS(Object)}).</li>
 	 * </ul>
 	 *
 	 * @param colValue	A column value as provided by a {@link ResultSet}.
@@ -720,16 +721,16 @@ public class ResultSetTableIterator implements TableIterator {
 
 			// if the column value is a java.sql.Time object, format it into an ISO8601 time (i.e. with the format: HH:mm:ss):
 			if (colValue instanceof java.sql.Time)
-				colValue = timeFormat.format((java.sql.Time)colValue);
+				colValue = new String(dateBuffer, 0, ISO8601Format.formatTime(((java.sql.Time)colValue).getTime(), localTimeZone, dateBuffer, 0));
 
 			// if the column value is a java.sql.Date object, format it into an ISO8601 date (i.e. with the format: yyyy-MM-dd):
 			else if (colValue instanceof java.sql.Date)
-				colValue = dateFormat.format((java.sql.Date)colValue);
+				colValue = new String(dateBuffer, 0, ISO8601Format.formatDate(((java.sql.Date)colValue).getTime(), localTimeZone, dateBuffer, 0));
 
 			// if the column value is a Timestamp (or java.util.Date) object, format it into an ISO8601 date-time:
 			// note: java.sql.Timestamp extends java.util.Date. That's why the next condition also works for java.sql.Timestamp.
 			else if (colValue instanceof java.util.Date)
-				colValue = ISO8601Format.format((java.util.Date)colValue);
+				colValue = new String(dateBuffer, 0, ISO8601Format.format(((java.util.Date)colValue).getTime(), ISO8601Format.targetTimeZone, ISO8601Format.displayTimeZone, ISO8601Format.displayMilliseconds, dateBuffer, 0));
 
 			// if the type is a BigDecimal object (this is possible for instance with PostgreSQL "numeric" datatype or Sybase IQ,
 			// but this type can not be supported in FITS and VOTable):
@@ -773,9 +774,9 @@ public class ResultSetTableIterator implements TableIterator {
 			// if the column value is a geometrical object, it must be serialized in STC-S:
 			else if (translator != null && colType != null && colType.isGeometry()){
 				try{
-					Region region = translator.translateGeometryFromDB(colValue);
-					if (region != null)
-						colValue = region.toSTCS();
+					String stcs = translator.translateGeometryToSTCS(colValue);
+					if (stcs != null)
+						colValue = stcs;
 				}catch(ParseException pe){
 					throw new DataReadException(pe.getMessage());
 				}
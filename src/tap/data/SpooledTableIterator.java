@@ -0,0 +1,364 @@
+package tap.data;
+
+/*
+ * This file is part of TAPLibrary.
+ *
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+import adql.db.DBType;
+import tap.metadata.TAPColumn;
+
+/**
+ * {@link TableIterator} over a copy of another table, spooled in a local
+ * binary file.
+ *
+ * <p>
+ * 	At creation, the given table is read entirely, as fast as possible, and
+ * 	written into a temporary file. It can then be closed immediately, which
+ * 	lets for instance release the database connection from which the rows are
+ * 	read, before a (possibly slow) formatting of the result.
+ * </p>
+ *
+ * <p>
+ * 	In the spool file, each value is written in binary, after a 1-byte tag
+ * 	giving its type (numbers, characters, strings, bytes arrays, or any
+ * 	other serializable object). The end of each row and the end of the table
+ * 	are also marked by a tag. Values of any other type are written as strings
+ * 	(see {@link Object#toString()}).
+ * </p>
+ *
+ * <p>
+ * 	The spool file is deleted when this iterator is closed.
+ * </p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 2.4 (10/2026)
+ * @since 2.4
+ */
+public class SpooledTableIterator implements TableIterator {
+
+	/* TAGS OF THE SPOOL FILE */
+	private final static byte END_OF_TABLE = 0;
+	private final static byte END_OF_ROW = 1;
+	private final static byte NULL = 2;
+	private final static byte BOOLEAN = 3;
+	private final static byte BYTE = 4;
+	private final static byte SHORT = 5;
+	private final static byte INTEGER = 6;
+	private final static byte LONG = 7;
+	private final static byte FLOAT = 8;
+	private final static byte DOUBLE = 9;
+	private final static byte CHARACTER = 10;
+	private final static byte STRING = 11;
+	private final static byte BYTES = 12;
+	private final static byte OBJECT = 13;
+
+	/** Number of rows read between two checks of the interruption of the
+	 * current thread, while spooling. */
+	private final static int INTERRUPTION_CHECK_FREQUENCY = 1000;
+
+	/** Description of all columns. <i>NULL if unknown.</i> */
+	private final TAPColumn[] metadata;
+
+	/** The spool file. */
+	private final File file;
+
+	/** Number of spooled rows. */
+	private final long nbRows;
+
+	/** Stream reading the spool file. */
+	private final DataInputStream input;
+
+	/** Values of the current row. */
+	private Object[] row = new Object[8];
+
+	/** Number of values in the current row.
+	 * <i>-1 before the first call to {@link #nextRow()}.</i> */
+	private int rowSize = -1;
+
+	/** Index of the last read column of the current row. */
+	private int colIndex = -1;
+
+	/** Indicate whether the end of the table has been reached. */
+	private boolean endReached = false;
+
+	/**
+	 * Read entirely the given table and write it into the given file.
+	 *
+	 * <p><i>Note:
+	 * 	The given table is NOT closed by this constructor.
+	 * </i></p>
+	 *
+	 * @param table	The table to spool.
+	 * @param file	The file in which the table must be written.
+	 *            	<i>If it already exists, it is overwritten.</i>
+	 *
+	 * @throws NullPointerException	If one of the parameters is missing.
+	 * @throws DataReadException	If the given table can not be read, if the
+	 *                          	spool file can not be written or if the
+	 *                          	current thread has been interrupted.
+	 *                          	<i>In such case, the spool file is deleted.</i>
+	 */
+	public SpooledTableIterator(final TableIterator table, final File file) throws NullPointerException, DataReadException{
+		if (table == null || file == null)
+			throw new NullPointerException("Missing table or spool file!");
+		this.file = file;
+		this.metadata = table.getMetadata();
+
+		// Write all rows in the spool file:
+		long cnt = 0;
+		try{
+			DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536));
+			try{
+				while(table.nextRow()){
+					while(table.hasNextCol())
+						writeValue(output, table.nextCol());
+					output.writeByte(END_OF_ROW);
+					if (++cnt % INTERRUPTION_CHECK_FREQUENCY == 0 && Thread.currentThread().isInterrupted())
+						throw new DataReadException("Spooling interrupted!");
+				}
+				output.writeByte(END_OF_TABLE);
+			}finally{
+				output.close();
+			}
+			nbRows = cnt;
+			input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 65536));
+		}catch(IOException ioe){
+			file.delete();
+			throw new DataReadException("Can not write the spool file \"" + file.getAbsolutePath() + "\"!", ioe);
+		}catch(DataReadException dre){
+			file.delete();
+			throw dre;
+		}
+	}
+
+	/**
+	 * Write the given value, preceded by its type tag.
+	 *
+	 * @param output	Stream in which the value must be written.
+	 * @param value		The value to write. <i>May be NULL.</i>
+	 *
+	 * @throws IOException	If the value can not be written.
+	 */
+	protected void writeValue(final DataOutputStream output, final Object value) throws IOException{
+		if (value == null)
+			output.writeByte(NULL);
+		else if (value instanceof String){
+			output.writeByte(STRING);
+			writeBytes(output, ((String)value).getBytes(StandardCharsets.UTF_8));
+		}else if (value instanceof Integer){
+			output.writeByte(INTEGER);
+			output.writeInt((Integer)value);
+		}else if (value instanceof Long){
+			output.writeByte(LONG);
+			output.writeLong((Long)value);
+		}else if (value instanceof Double){
+			output.writeByte(DOUBLE);
+			output.writeDouble((Double)value);
+		}else if (value instanceof Float){
+			output.writeByte(FLOAT);
+			output.writeFloat((Float)value);
+		}else if (value instanceof Short){
+			output.writeByte(SHORT);
+			output.writeShort((Short)value);
+		}else if (value instanceof Byte){
+			output.writeByte(BYTE);
+			output.writeByte((Byte)value);
+		}else if (value instanceof Boolean){
+			output.writeByte(BOOLEAN);
+			output.writeBoolean((Boolean)value);
+		}else if (value instanceof Character){
+			output.writeByte(CHARACTER);
+			output.writeChar((Character)value);
+		}else if (value instanceof byte[]){
+			output.writeByte(BYTES);
+			writeBytes(output, (byte[])value);
+		}else if (value instanceof Serializable){
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			ObjectOutputStream objOutput = new ObjectOutputStream(buffer);
+			objOutput.writeObject(value);
+			objOutput.close();
+			output.writeByte(OBJECT);
+			writeBytes(output, buffer.toByteArray());
+		}else{
+			output.writeByte(STRING);
+			writeBytes(output, value.toString().getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	private static void writeBytes(final DataOutputStream output, final byte[] bytes) throws IOException{
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	private static byte[] readBytes(final DataInputStream input) throws IOException{
+		byte[] bytes = new byte[input.readInt()];
+		input.readFully(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Read the next value.
+	 *
+	 * @param tag	Type tag of the value to read.
+	 *
+	 * @return	The read value.
+	 *
+	 * @throws IOException	If the value can not be read or if the tag is unknown.
+	 */
+	protected Object readValue(final byte tag) throws IOException{
+		switch(tag){
+			case NULL:
+				return null;
+			case STRING:
+				return new String(readBytes(input), StandardCharsets.UTF_8);
+			case INTEGER:
+				return input.readInt();
+			case LONG:
+				return input.readLong();
+			case DOUBLE:
+				return input.readDouble();
+			case FLOAT:
+				return input.readFloat();
+			case SHORT:
+				return input.readShort();
+			case BYTE:
+				return input.readByte();
+			case BOOLEAN:
+				return input.readBoolean();
+			case CHARACTER:
+				return input.readChar();
+			case BYTES:
+				return readBytes(input);
+			case OBJECT:
+				ObjectInputStream objInput = new ObjectInputStream(new ByteArrayInputStream(readBytes(input)));
+				try{
+					return objInput.readObject();
+				}catch(ClassNotFoundException cnfe){
+					throw new IOException("Unknown class of a spooled value!", cnfe);
+				}finally{
+					objInput.close();
+				}
+			default:
+				throw new IOException("Corrupted spool file: unknown value tag (" + tag + ")!");
+		}
+	}
+
+	/**
+	 * Get the number of spooled rows.
+	 *
+	 * @return	Number of rows.
+	 */
+	public final long getNbRows(){
+		return nbRows;
+	}
+
+	/**
+	 * Get the size of the spool file.
+	 *
+	 * @return	Size (in bytes) of the spool file,
+	 *        	or 0 if it has already been deleted.
+	 */
+	public final long getSpoolSize(){
+		return file.length();
+	}
+
+	@Override
+	public TAPColumn[] getMetadata() throws DataReadException{
+		return metadata;
+	}
+
+	@Override
+	public boolean nextRow() throws DataReadException{
+		if (endReached)
+			return false;
+		try{
+			rowSize = 0;
+			colIndex = -1;
+			byte tag;
+			while((tag = input.readByte()) != END_OF_ROW){
+				if (tag == END_OF_TABLE){
+					endReached = true;
+					rowSize = 0;
+					return false;
+				}
+				if (rowSize == row.length){
+					Object[] newRow = new Object[row.length * 2];
+					System.arraycopy(row, 0, newRow, 0, row.length);
+					row = newRow;
+				}
+				row[rowSize++] = readValue(tag);
+			}
+			return true;
+		}catch(EOFException eofe){
+			throw new DataReadException("Corrupted spool file: unexpected end of file!", eofe);
+		}catch(IOException ioe){
+			throw new DataReadException("Can not read the spool file \"" + file.getAbsolutePath() + "\"!", ioe);
+		}
+	}
+
+	@Override
+	public boolean hasNextCol() throws IllegalStateException, DataReadException{
+		if (rowSize < 0)
+			throw new IllegalStateException("Row position not set: the function nextRow() must be called first!");
+		return colIndex + 1 < rowSize;
+	}
+
+	@Override
+	public Object nextCol() throws NoSuchElementException, IllegalStateException, DataReadException{
+		if (!hasNextCol())
+			throw new NoSuchElementException("No more column to read!");
+		return row[++colIndex];
+	}
+
+	@Override
+	public DBType getColType() throws IllegalStateException, DataReadException{
+		if (colIndex < 0)
+			throw new IllegalStateException("No column value read yet: the function nextCol() must be called first!");
+		return (metadata != null && colIndex < metadata.length && metadata[colIndex] != null) ? metadata[colIndex].getDatatype() : null;
+	}
+
+	@Override
+	public void close() throws DataReadException{
+		endReached = true;
+		try{
+			input.close();
+		}catch(IOException ioe){
+			throw new DataReadException("Can not close the spool file \"" + file.getAbsolutePath() + "\"!", ioe);
+		}finally{
+			file.delete();
+		}
+	}
+
+}
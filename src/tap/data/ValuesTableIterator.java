@@ -0,0 +1,108 @@
+package tap.data;
+
+/*
+ * This file is part of TAPLibrary.
+ *
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import java.util.NoSuchElementException;
+
+import adql.db.DBType;
+import tap.metadata.TAPColumn;
+
+/**
+ * <p>{@link TableIterator} over a simple list of values: a table of only one column, with one row per value.</p>
+ *
+ * <p>
+ * 	It lets import such list into the database as any other table, with
+ * 	{@link tap.db.DBConnection#addUploadedTable(tap.metadata.TAPTable, TableIterator)}.
+ * </p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 2.4 (10/2026)
+ * @since 2.4
+ */
+public class ValuesTableIterator implements TableIterator {
+
+	/** Description of the only column. */
+	private final TAPColumn column;
+
+	/** All values (one per row). */
+	private final Object[] values;
+
+	/** Index of the current row. <i>-1 before the first call to {@link #nextRow()}.</i> */
+	private int row = -1;
+
+	/** Indicate whether the value of the current row has already been read. */
+	private boolean colRead = false;
+
+	/**
+	 * Build an iterator over the given values.
+	 *
+	 * @param column	Description of the only column.
+	 * @param values	All values, one per row.
+	 *
+	 * @throws NullPointerException	If one of the parameters is missing.
+	 */
+	public ValuesTableIterator(final TAPColumn column, final Object[] values) throws NullPointerException{
+		if (column == null || values == null)
+			throw new NullPointerException("Missing column description or values!");
+		this.column = column;
+		this.values = values;
+	}
+
+	@Override
+	public TAPColumn[] getMetadata() throws DataReadException{
+		return new TAPColumn[]{ column };
+	}
+
+	@Override
+	public boolean nextRow() throws DataReadException{
+		if (row < values.length)
+			row++;
+		colRead = false;
+		return row < values.length;
+	}
+
+	@Override
+	public boolean hasNextCol() throws IllegalStateException, DataReadException{
+		if (row < 0)
+			throw new IllegalStateException("Row position not set: the function nextRow() must be called first!");
+		return row < values.length && !colRead;
+	}
+
+	@Override
+	public Object nextCol() throws NoSuchElementException, IllegalStateException, DataReadException{
+		if (!hasNextCol())
+			throw new NoSuchElementException("No more column to read!");
+		colRead = true;
+		return values[row];
+	}
+
+	@Override
+	public DBType getColType() throws IllegalStateException, DataReadException{
+		if (!colRead)
+			throw new IllegalStateException("No column value read yet: the function nextCol() must be called first!");
+		return column.getDatatype();
+	}
+
+	@Override
+	public void close() throws DataReadException{
+		row = values.length;
+	}
+
+}
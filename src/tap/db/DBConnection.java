@@ -16,7 +16,7 @@ package tap.db;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  * 
- * Copyright 2012-2017 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -45,7 +45,7 @@ import tap.metadata.TAPTable;
  * </p>
  * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.1 (04/2017)
+ * @version 2.4 (10/2026)
  */
 public interface DBConnection {
 
@@ -251,6 +251,27 @@ public interface DBConnection {
 	 */
 	public TableIterator executeQuery(final ADQLQuery adqlQuery) throws DBCancelledException, DBException;
 
+	/**
+	 * <p>Estimate the cost of the given ADQL query, without executing it.</p>
+	 * 
+	 * <p>
+	 * 	The estimation is generally made by the query planner of the database
+	 * 	(e.g. with <code>EXPLAIN</code>). It lets reject or delay a query which
+	 * 	would be too expensive, before running it.
+	 * </p>
+	 * 
+	 * @param adqlQuery	ADQL query to estimate.
+	 * 
+	 * @return	The estimated cost,
+	 *        	or NULL if the database can not estimate it.
+	 * 
+	 * @throws DBCancelledException	If {@link #cancel(boolean)} has been called during the processing.
+	 * @throws DBException			If any errors occurs while estimating the query cost.
+	 * 
+	 * @since 2.4
+	 */
+	public QueryCost estimateCost(final ADQLQuery adqlQuery) throws DBCancelledException, DBException;
+
 	/**
 	 * <p>Set the number of rows to fetch before searching/getting the following.
 	 * Thus, rows are fetched by block whose the size is set by this function.</p>
@@ -286,6 +307,27 @@ public interface DBConnection {
 	 */
 	public void setFetchSize(final int size);
 
+	/**
+	 * <p>Set the maximum duration of the next queries executed by {@link #executeQuery(ADQLQuery)}.</p>
+	 *
+	 * <p>
+	 * 	Unlike {@link #cancel(boolean)}, this timeout should be enforced by the database itself, so that a query
+	 * 	does not keep running in the database after the job which started it has been stopped.
+	 * 	When it is exceeded, {@link #executeQuery(ADQLQuery)} must throw a {@link DBTimeoutException}.
+	 * </p>
+	 *
+	 * <p>
+	 * 	<i>This feature may not be supported.</i> In such case or if an exception occurs while setting the timeout,
+	 * 	this function must not send any exception. A message may be however logged.
+	 * </p>
+	 *
+	 * @param seconds	Maximum execution duration (in seconds).
+	 *               	<i>If negative or null, queries are not limited in time.</i>
+	 *
+	 * @since 2.4
+	 */
+	public void setQueryTimeout(final int seconds);
+
 	/**
 	 * <p>Stop the execution of the current query.</p>
 	 * 
@@ -0,0 +1,55 @@
+package tap.db;
+
+/*
+ * This file is part of TAPLibrary.
+ *
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+/**
+ * Exception thrown when the database stopped the execution of a query
+ * because it exceeded the timeout set with {@link DBConnection#setQueryTimeout(int)}.
+ *
+ * <p>
+ * 	It is a special kind of cancellation: the database itself stopped the
+ * 	query, and not the library (e.g. after a call to {@link DBConnection#cancel(boolean)}).
+ * </p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 2.4 (10/2026)
+ * @since 2.4
+ */
+public class DBTimeoutException extends DBCancelledException {
+	private static final long serialVersionUID = 1L;
+
+	/** The timeout (in seconds) exceeded by the query. */
+	private final int timeout;
+
+	public DBTimeoutException(final int timeout, final Throwable cause, final String query){
+		super("Query execution stopped by the database after " + timeout + " seconds (timeout)!", cause, query);
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Get the timeout exceeded by the query.
+	 *
+	 * @return	The timeout (in seconds).
+	 */
+	public final int getTimeout(){
+		return timeout;
+	}
+
+}
@@ -16,7 +16,7 @@ package tap.db;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2012-2023 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -28,29 +28,50 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.JSONException;
 
 import adql.db.DBColumn;
 import adql.db.DBType;
 import adql.db.DBType.DBDatatype;
 import adql.db.STCS;
 import adql.db.STCS.Region;
+import adql.query.ADQLList;
+import adql.query.ADQLObject;
 import adql.query.ADQLQuery;
 import adql.query.IdentifierField;
+import adql.query.LiteralList;
+import adql.query.constraint.In;
+import adql.query.from.ADQLTable;
+import adql.query.operand.ADQLColumn;
+import adql.query.operand.ADQLOperand;
+import adql.query.operand.NegativeOperand;
+import adql.query.operand.NumericConstant;
+import adql.query.operand.StringConstant;
+import adql.search.ISearchHandler;
+import adql.search.SimpleSearchHandler;
 import adql.translator.ADQLTranslator;
 import adql.translator.JDBCTranslator;
+import adql.translator.ParameterizedSQL;
 import adql.translator.TranslationException;
 import tap.data.DataReadException;
+import tap.data.PgCopyTableIterator;
 import tap.data.ResultSetTableIterator;
 import tap.data.TableIterator;
+import tap.data.ValuesTableIterator;
 import tap.log.TAPLog;
 import tap.metadata.TAPColumn;
 import tap.metadata.TAPCoosys;
@@ -173,6 +194,19 @@ import uws.service.log.UWSLog.LogLevel;
  * 	To enable it, a simple call to {@link #setFetchSize(int)} is enough, whatever is the given value.
  * </i></p>
  *
+ * <p>
+ * 	The fetch size may also be computed for each query from a memory budget (see {@link #setFetchMemoryBudget(long)}):
+ * 	the size of one row of the result is estimated from the types of its columns (see {@link #estimateRowSize(DBColumn[])}),
+ * 	and as many rows as this budget can hold are fetched at once. Thus, a result with hundreds of columns is fetched by
+ * 	small blocks, while a result with only a few narrow columns needs less round trips.
+ * </p>
+ *
+ * <p>
+ * 	With MySQL, a positive fetch size is ignored by the JDBC driver (unless <code>useCursorFetch=true</code> is set in the
+ * 	JDBC URL): the whole result is loaded in memory. So, when the DBMS declared by {@link DatabaseMetaData} is MySQL,
+ * 	the rows are streamed one by one instead (i.e. the fetch size is set to {@link Integer#MIN_VALUE}).
+ * </p>
+ *
  * <p><i>Note 3:
  * 	Generally set a fetch size starts a transaction in the database. So, after the result of the fetched query
  * 	is not needed any more, do not forget to call {@link #endQuery()} in order to end the implicitly opened transaction.
@@ -180,8 +214,71 @@ import uws.service.log.UWSLog.LogLevel;
  * 	{@link ResultSetTableIterator#close()} for more details).
  * </i></p>
  *
+ * <h3>Query timeout</h3>
+ *
+ * <p>
+ * 	The execution duration of the SELECT queries executed by {@link #executeQuery(ADQLQuery)} can be limited with
+ * 	{@link #setQueryTimeout(int)}. This timeout is given to the JDBC driver ({@link Statement#setQueryTimeout(int)})
+ * 	and, when possible, to the DBMS itself so that it stops the query on its side even if the cancellation requested
+ * 	by the library is not supported or does not succeed:
+ * </p>
+ * <ul>
+ * 	<li>PostgreSQL: <code>SET LOCAL statement_timeout</code> (only inside a transaction, i.e. when a fetch size is set),</li>
+ * 	<li>MySQL: <code>SET SESSION max_execution_time</code> (reset by {@link #endQuery()}).</li>
+ * </ul>
+ * <p>
+ * 	When the timeout is exceeded, a {@link DBTimeoutException} is thrown.
+ * </p>
+ *
+ * <h3>Bind parameters</h3>
+ *
+ * <p>
+ * 	By default, all literals of an ADQL query are inlined in the SQL query executed with a simple {@link Statement}.
+ * 	Thus, the DBMS has to parse and plan again every query, even if it differs from a previous one only by its literals
+ * 	(e.g. the position of a cone search). With {@link #setBindParameters(boolean)}, the literals of all constraints
+ * 	become bind parameters (see {@link JDBCTranslator#translateWithParameters(ADQLQuery)}) and the query is executed
+ * 	with a {@link PreparedStatement}, letting the DBMS reuse its execution plan.
+ * </p>
+ *
+ * <p>
+ * 	The {@link PreparedStatement}s are kept open in a cache indexed by the parameterized SQL and limited to the
+ * 	{@link #setStatementCacheSize(int) statementCacheSize} most recently used ones. This cache belongs to the physical
+ * 	connection (see {@link #getPhysicalConnection(Connection)}): with a connection pool, the next job getting the same
+ * 	connection reuses the statements. They are closed by {@link #clearStatementCache()}, which should be called before
+ * 	really closing the JDBC connection.
+ * </p>
+ *
+ * <p><i>Note:
+ * 	The SQL queries written in the log are always the expanded ones (i.e. with all literals inlined).
+ * </i></p>
+ *
+ * <h3>Huge IN lists</h3>
+ *
+ * <p>
+ * 	Many DBMS plan badly a constraint <code>IN</code> with thousands of values (slow planning, sequential scans).
+ * 	With {@link #setInListTableThreshold(int)}, the values of any list of integers or strings having at least this
+ * 	number of items are loaded into a table of the upload schema (see {@link #addUploadedTable(TAPTable, TableIterator)}),
+ * 	and the constraint becomes a semi-join: <code>... IN (SELECT in_value FROM TAP_UPLOAD.in_list_...)</code>.
+ * 	The given {@link ADQLQuery} is not modified: a copy of it is rewritten.
+ * </p>
+ *
+ * <p>
+ * 	These tables are dropped by {@link #endQuery()}, that's to say when the result has been read and its
+ * 	{@link TableIterator} closed.
+ * </p>
+ *
+ * <h3>Binary COPY export</h3>
+ *
+ * <p>
+ * 	With PostgreSQL, fetching huge results row by row through JDBC is CPU-heavy on both sides. With
+ * 	{@link #setCopyExport(boolean)}, the result of a SELECT query whose all columns have a simple datatype
+ * 	(numbers, strings and binaries) is instead exported with <code>COPY (...) TO STDOUT WITH (FORMAT binary)</code>
+ * 	and decoded directly from the binary stream (see {@link PgCopyTableIterator}). Other results (e.g. with dates or
+ * 	geometries) and other DBMS are still fetched through JDBC.
+ * </p>
+ *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.4 (08/2023)
+ * @version 2.4 (10/2026)
  * @since 2.0
  */
 public class JDBCConnection implements DBConnection {
@@ -287,6 +384,11 @@ public class JDBCConnection implements DBConnection {
 	/** Indicate whether the quoted identifiers are stored in upper case in the DBMS. */
 	protected boolean upperCaseQuoted;
 
+	/** Indicate whether NULL values are sorted as smaller than any other value
+	 * (e.g. H2). If <code>false</code>, they are considered as greater (e.g. PostgreSQL).
+	 * @since 2.4 */
+	protected boolean nullsSortedLow;
+
 	/* FETCH SIZE */
 
 	/** Special fetch size meaning that the JDBC driver is free to set its own guess for this value. */
@@ -308,6 +410,119 @@ public class JDBCConnection implements DBConnection {
 	 * <p><i>Note 2: if this feature is enabled (i.e. has a value &gt; 0), the AutoCommit will be disabled.</i></p> */
 	protected int fetchSize = DEFAULT_FETCH_SIZE;
 
+	/** Maximum fetch size computed from {@link #fetchMemoryBudget}.
+	 * @since 2.4 */
+	public final static int MAX_ADAPTIVE_FETCH_SIZE = 100000;
+
+	/** <p>Memory (in bytes) that one block of rows fetched from the database should not exceed.</p>
+	 * <p><i>Note: if negative or null (default), {@link #fetchSize} is used as such for all queries.
+	 * Otherwise, the fetch size of each query is computed with {@link #getFetchSize(DBColumn[])}.</i></p>
+	 * @since 2.4 */
+	protected long fetchMemoryBudget = 0;
+
+	/** Indicate whether the rows of a result must be streamed one by one rather than fetched by blocks
+	 * (i.e. the fetch size is set to {@link Integer#MIN_VALUE}). This is the only way to not load the whole result in memory
+	 * with the default configuration of the MySQL JDBC driver.
+	 * @since 2.4 */
+	protected final boolean streamingFetch;
+
+	/** Estimated size (in bytes) of a value in memory, in addition to the value itself (object header, reference, ...).
+	 * @since 2.4 */
+	protected final static int CELL_OVERHEAD = 16;
+
+	/** Number of characters assumed for a string column whose length is unknown.
+	 * @since 2.4 */
+	protected final static int DEFAULT_STRING_LENGTH = 64;
+
+	/** Number of bytes assumed for a binary column whose length is unknown.
+	 * @since 2.4 */
+	protected final static int DEFAULT_BINARY_LENGTH = 256;
+
+	/* QUERY TIMEOUT */
+
+	/** Maximum execution duration (in seconds) of a SELECT query executed by {@link #executeQuery(ADQLQuery)}.
+	 * <i>Note: if negative or null (default), queries are not limited in time.</i>
+	 * @since 2.4 */
+	protected int queryTimeout = 0;
+
+	/** Indicate whether the JDBC driver supports {@link Statement#setQueryTimeout(int)}.
+	 * <i>Note: set to <code>false</code> as soon as this operation fails once.</i>
+	 * @since 2.4 */
+	protected boolean supportsQueryTimeout = true;
+
+	/** Indicate whether the DBMS-native timeout is supported (see {@link #applyQueryTimeout(Statement)}).
+	 * <i>Note: set to <code>false</code> as soon as this operation fails once.</i>
+	 * @since 2.4 */
+	protected boolean supportsNativeTimeout = true;
+
+	/** Indicate whether a timeout has been set for the whole session and must be reset by {@link #endQuery()}.
+	 * @since 2.4 */
+	private boolean sessionTimeoutSet = false;
+
+	/* BINARY COPY */
+
+	/** Indicate whether the results of SELECT queries must be exported with a binary COPY when possible
+	 * (see {@link #setCopyExport(boolean)}).
+	 * <i>Note: FALSE by default.</i>
+	 * @since 2.4 */
+	protected boolean copyExport = false;
+
+	/** Binary COPY whose the result is currently being read, if any.
+	 * <i>It is stopped by {@link #cancel(boolean)} and {@link #endQuery()}, because a COPY can not be
+	 * cancelled through {@link #stmt}.</i>
+	 * @since 2.4 */
+	protected volatile PgCopyTableIterator copyResult = null;
+
+	/* BIND PARAMETERS */
+
+	/** Default maximum number of {@link PreparedStatement}s kept open by a {@link JDBCConnection}.
+	 * @since 2.4 */
+	public final static int DEFAULT_STATEMENT_CACHE_SIZE = 20;
+
+	/** Indicate whether the literals of ADQL queries are executed as bind parameters of a {@link PreparedStatement}.
+	 * <i>Note: FALSE by default.</i>
+	 * @since 2.4 */
+	protected boolean useBindParameters = false;
+
+	/** Maximum number of {@link PreparedStatement}s kept open in {@link #preparedStatements}.
+	 * <i>Note: if negative or null, no statement is kept.</i>
+	 * @since 2.4 */
+	protected int statementCacheSize = DEFAULT_STATEMENT_CACHE_SIZE;
+
+	/** Open {@link PreparedStatement}s indexed by their parameterized SQL query, from the least to the most recently used.
+	 * <i>Note: shared by all {@link JDBCConnection}s wrapping the same physical connection (see {@link #getStatementCache(Connection)}).</i>
+	 * @since 2.4 */
+	protected final Map<String, PreparedStatement> preparedStatements;
+
+	/** Connection on which the {@link PreparedStatement}s are prepared. It is the physical connection behind the wrapped one
+	 * when a connection pool lets unwrap it, and the wrapped connection otherwise.
+	 * @since 2.4 */
+	protected final Connection physicalConnection;
+
+	/** Caches of {@link PreparedStatement}s of all physical connections, so that a connection given back to a pool keeps its
+	 * statements for the next job using it.
+	 * @since 2.4 */
+	private final static Map<Connection, Map<String, PreparedStatement>> statementCaches = new IdentityHashMap<Connection, Map<String, PreparedStatement>>();
+
+	/* HUGE IN LISTS */
+
+	/** Name of the only column of the tables created for huge IN lists.
+	 * @since 2.4 */
+	protected final static String IN_LIST_COLUMN = "in_value";
+
+	/** Number of tables created for huge IN lists since the start of the JVM. It makes their DB name unique.
+	 * @since 2.4 */
+	private final static AtomicLong nbInListTables = new AtomicLong(0);
+
+	/** Minimum number of values of an IN list for it to be loaded into a table before the query execution.
+	 * <i>Note: if negative or null (default), IN lists are never loaded into a table.</i>
+	 * @since 2.4 */
+	protected int inListTableThreshold = 0;
+
+	/** Tables created for the IN lists of the last executed query. They are dropped by {@link #endQuery()}.
+	 * @since 2.4 */
+	protected final List<TAPTable> inListTables = new ArrayList<TAPTable>();
+
 	/* TAP_SCHEMA MAPPING */
 
 	/** Mapping of the TAP_SCHEMA items between their ADQL name and their name in the database.
@@ -364,6 +579,10 @@ public class JDBCConnection implements DBConnection {
 		this.ID = connID;
 		this.logger = logger;
 
+		// Share the prepared statements of the physical connection:
+		physicalConnection = getPhysicalConnection(conn);
+		preparedStatements = getStatementCache(physicalConnection);
+
 		// Set the supporting features' flags + DBMS type:
 		try{
 			DatabaseMetaData dbMeta = connection.getMetaData();
@@ -379,10 +598,14 @@ public class JDBCConnection implements DBConnection {
 			mixedCaseQuoted = dbMeta.storesMixedCaseQuotedIdentifiers();
 			upperCaseQuoted = dbMeta.storesUpperCaseQuotedIdentifiers();
 			supportsMixedCaseQuotedIdentifier = dbMeta.supportsMixedCaseQuotedIdentifiers();
+			nullsSortedLow = dbMeta.nullsAreSortedLow() || dbMeta.nullsAreSortedAtStart();
 
 		}catch(SQLException se){
 			throw new DBException("Unable to access to one or several DB metadata (url, supportsTransaction, supportsBatchUpdates, supportsDataDefinitionAndDataManipulationTransactions, supportsSchemasInTableDefinitions, storesLowerCaseIdentifiers, storesUpperCaseIdentifiers, supportsMixedCaseIdentifiers, storesLowerCaseQuotedIdentifiers, storesMixedCaseQuotedIdentifiers, storesUpperCaseQuotedIdentifiers and supportsMixedCaseQuotedIdentifiers) from the given Connection!");
 		}
+
+		// MySQL fetches the whole result at once, unless rows are streamed:
+		streamingFetch = DBMS_MYSQL.equalsIgnoreCase(dbms);
 	}
 
 	/**
@@ -483,6 +706,19 @@ public class JDBCConnection implements DBConnection {
 		return connection;
 	}
 
+	/**
+	 * Tell whether the database sorts NULL values as smaller than any other
+	 * value (i.e. first in ascending order).
+	 *
+	 * @return	<code>true</code> if NULL values are sorted low,
+	 *        	<code>false</code> if they are sorted high.
+	 *
+	 * @since 2.4
+	 */
+	public final boolean areNullsSortedLow(){
+		return nullsSortedLow;
+	}
+
 	/**
 	 * <p>Tell whether this {@link JDBCConnection} is already associated with a {@link Statement}.</p>
 	 *
@@ -512,7 +748,7 @@ public class JDBCConnection implements DBConnection {
 	 * @since 2.1
 	 */
 	protected Statement getStatement() throws SQLException{
-		if (hasStatement())
+		if (hasStatement() && !isCachedStatement(stmt))
 			return stmt;
 		else
 			return (stmt = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY));
@@ -524,10 +760,174 @@ public class JDBCConnection implements DBConnection {
 	 * @since 2.1
 	 */
 	protected void closeStatement(){
-		close(stmt);
+		// a cached prepared statement is kept open for a further execution:
+		if (!isCachedStatement(stmt))
+			close(stmt);
 		stmt = null;
 	}
 
+	/**
+	 * Tell whether the given statement is one of the {@link PreparedStatement}s kept open by this {@link JDBCConnection}.
+	 *
+	 * @param stmt	The statement to test.
+	 *
+	 * @return	<code>true</code> if the given statement is in the cache of prepared statements,
+	 *        	<code>false</code> otherwise.
+	 *
+	 * @since 2.4
+	 */
+	protected final boolean isCachedStatement(final Statement stmt){
+		if (stmt == null || !(stmt instanceof PreparedStatement))
+			return false;
+		synchronized(preparedStatements){
+			return preparedStatements.containsValue(stmt);
+		}
+	}
+
+	/**
+	 * <p>Get the physical connection behind the given one, on which {@link PreparedStatement}s can be kept open.</p>
+	 *
+	 * <p>
+	 * 	Connection pools generally give a new wrapper of the same physical connection for each request, and close all its
+	 * 	statements when this wrapper is closed. This function returns the connection obtained with
+	 * 	{@link Connection#unwrap(Class)}, which is the physical one for most pools. If it can not be unwrapped,
+	 * 	the given connection is returned.
+	 * </p>
+	 *
+	 * @param conn	The wrapped connection.
+	 *
+	 * @return	The physical connection, or the given one.
+	 *
+	 * @since 2.4
+	 */
+	protected static Connection getPhysicalConnection(final Connection conn){
+		try{
+			Connection physical = conn.unwrap(Connection.class);
+			return (physical != null) ? physical : conn;
+		}catch(Throwable t){
+			return conn;
+		}
+	}
+
+	/**
+	 * <p>Get the cache of {@link PreparedStatement}s of the given physical connection, and create it if needed.</p>
+	 *
+	 * <p><i>Note:
+	 * 	The caches of all connections closed in the meantime (e.g. by their pool) are forgotten.
+	 * </i></p>
+	 *
+	 * @param physical	The physical connection.
+	 *
+	 * @return	Its cache of prepared statements, from the least to the most recently used.
+	 *
+	 * @since 2.4
+	 */
+	protected static Map<String, PreparedStatement> getStatementCache(final Connection physical){
+		synchronized(statementCaches){
+			// Forget the caches of closed connections:
+			Iterator<Connection> it = statementCaches.keySet().iterator();
+			while(it.hasNext()){
+				Connection c = it.next();
+				try{
+					if (c != physical && c.isClosed())
+						it.remove();
+				}catch(SQLException se){
+					it.remove();
+				}
+			}
+
+			// Get (or create) the cache of the given connection:
+			Map<String, PreparedStatement> cache = statementCaches.get(physical);
+			if (cache == null){
+				cache = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true);
+				statementCaches.put(physical, cache);
+			}
+			return cache;
+		}
+	}
+
+	/**
+	 * <p>Get a {@link PreparedStatement} for the given parameterized query, with all its parameters set.</p>
+	 *
+	 * <p>
+	 * 	If a {@link PreparedStatement} already exists for the same SQL, it is reused. Otherwise, a new one is created
+	 * 	and cached ; the least recently used {@link PreparedStatement}s are then closed so that no more than
+	 * 	{@link #statementCacheSize} statements are kept open.
+	 * </p>
+	 *
+	 * @param query	The SQL query to execute.
+	 *
+	 * @return	The corresponding {@link PreparedStatement}.
+	 *
+	 * @throws SQLException	If the statement can not be prepared or if a parameter can not be set.
+	 *
+	 * @since 2.4
+	 */
+	protected PreparedStatement getPreparedStatement(final ParameterizedSQL query) throws SQLException{
+		PreparedStatement pstmt;
+		synchronized(preparedStatements){
+			pstmt = preparedStatements.get(query.getSQL());
+
+			// Forget any statement closed in the meantime:
+			if (pstmt != null && pstmt.isClosed()){
+				preparedStatements.remove(query.getSQL());
+				pstmt = null;
+			}
+
+			// Prepare the statement, if not already done:
+			if (pstmt == null){
+				pstmt = physicalConnection.prepareStatement(query.getSQL(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+				if (statementCacheSize > 0){
+					preparedStatements.put(query.getSQL(), pstmt);
+					shrinkStatementCache(statementCacheSize);
+				}
+			}
+		}
+		pstmt.clearParameters();
+
+		// Set all parameters:
+		Object[] params = query.getParameters();
+		for(int i = 0; i < params.length; i++)
+			pstmt.setObject(i + 1, params[i]);
+
+		return pstmt;
+	}
+
+	/**
+	 * Close the least recently used {@link PreparedStatement}s until there are no more than the given number of open
+	 * statements in the cache.
+	 *
+	 * @param maxSize	Maximum number of statements to keep open.
+	 *
+	 * @since 2.4
+	 */
+	private void shrinkStatementCache(final int maxSize){
+		synchronized(preparedStatements){
+			Iterator<PreparedStatement> it = preparedStatements.values().iterator();
+			while(preparedStatements.size() > Math.max(0, maxSize) && it.hasNext()){
+				PreparedStatement pstmt = it.next();
+				it.remove();
+				if (pstmt == stmt)
+					stmt = null;
+				close(pstmt);
+			}
+		}
+	}
+
+	/**
+	 * <p>Close all {@link PreparedStatement}s kept open for the physical connection of this {@link JDBCConnection}.</p>
+	 *
+	 * <p><i>Note:
+	 * 	This function should be called only when the physical connection is really closed. A connection given back to
+	 * 	a pool should keep its statements for the next job.
+	 * </i></p>
+	 *
+	 * @since 2.4
+	 */
+	public synchronized void clearStatementCache(){
+		shrinkStatementCache(0);
+	}
+
 	/**
 	 * <p>Cancel (and rollback when possible) the currently running query of this {@link JDBCConnection} instance.</p>
 	 *
@@ -570,7 +970,8 @@ public class JDBCConnection implements DBConnection {
 	public final void cancel(final boolean rollback){
 		synchronized(cancelled){
 			cancelled = true;
-			boolean effectivelyCancelled = cancel(stmt, rollback);
+			boolean effectivelyCancelled = cancelCopy();
+			effectivelyCancelled = cancel(stmt, rollback) || effectivelyCancelled;
 			// Log the success of the cancellation:
 			if (effectivelyCancelled && logger != null)
 				logger.logDB(LogLevel.INFO, this, "CANCEL", "Query execution successfully stopped!", null);
@@ -632,6 +1033,32 @@ public class JDBCConnection implements DBConnection {
 		}
 	}
 
+	/**
+	 * <p>Stop the binary COPY whose the result is currently being read, if any (see {@link #copyResult}).</p>
+	 *
+	 * <p><i>Note:
+	 * 	In case of failure, only an ERROR is written in the log file ; no exception is thrown.
+	 * </i></p>
+	 *
+	 * @return	<code>true</code> if a COPY has been stopped (or was already finished),
+	 *        	<code>false</code> if there is no COPY or if its cancellation failed.
+	 *
+	 * @since 2.4
+	 */
+	protected boolean cancelCopy(){
+		final PgCopyTableIterator copy = copyResult;
+		if (copy == null)
+			return false;
+		try{
+			copy.cancel();
+			return true;
+		}catch(DataReadException dre){
+			if (logger != null)
+				logger.logDB(LogLevel.ERROR, this, "CANCEL", "Abortion of the current binary COPY apparently fails! The query may still run on the database server.", dre);
+			return false;
+		}
+	}
+
 	/**
 	 * <p>Tell whether the last query execution has been canceled.</p>
 	 *
@@ -669,6 +1096,9 @@ public class JDBCConnection implements DBConnection {
 
 	@Override
 	public void endQuery(){
+		// Stop the binary COPY, if still running:
+		cancelCopy();
+		copyResult = null;
 		// Cancel the last query processing, if still running:
 		cancel(stmt, false);  // note: this function is called instead of cancel(false) in order to avoid a log message about the cancellation operation result.
 		// Close the statement, if still opened:
@@ -677,6 +1107,180 @@ public class JDBCConnection implements DBConnection {
 		rollback(false);
 		// End the transaction (i.e. go back to autocommit=true), if one has been opened:
 		endTransaction(false);
+		// Remove the session timeout, if one has been set:
+		resetSessionTimeout();
+		// Drop the tables created for huge IN lists, if any:
+		dropInListTables();
+	}
+
+	/**
+	 * <p>Load into tables all the huge IN lists of the given query, and rewrite them as sub-queries on these tables.</p>
+	 *
+	 * <p>
+	 * 	Only the lists of integers or strings (see {@link #getInListValues(ADQLList)}) having at least
+	 * 	{@link #inListTableThreshold} items are concerned. Each one is loaded into a new table of the upload schema,
+	 * 	with {@link #addUploadedTable(TAPTable, TableIterator)}. All created tables are listed in {@link #inListTables}
+	 * 	so that being dropped by {@link #endQuery()}.
+	 * </p>
+	 *
+	 * <p><i>Note:
+	 * 	If a table can not be created (e.g. because the database user is not allowed to), a warning is logged and
+	 * 	the IN list is kept as it is.
+	 * </i></p>
+	 *
+	 * @param adqlQuery	The query to execute.
+	 *
+	 * @return	The given query if it has no huge IN list,
+	 *        	or a rewritten copy of it.
+	 *
+	 * @throws DBException			If the query can not be copied or if the execution has been cancelled.
+	 * @throws DataReadException	If a value can not be inserted.
+	 *
+	 * @since 2.4
+	 */
+	protected ADQLQuery loadInLists(final ADQLQuery adqlQuery) throws DBException, DataReadException{
+		// Search for all IN lists long enough:
+		ISearchHandler sHandler = new SimpleSearchHandler(true){
+			@Override
+			protected boolean match(final ADQLObject obj){
+				return (obj instanceof In) && !((In)obj).hasSubQuery() && ((In)obj).getValuesList().size() >= inListTableThreshold;
+			}
+		};
+		sHandler.search(adqlQuery);
+		if (sHandler.getNbMatch() == 0)
+			return adqlQuery;
+
+		// Rewrite a copy of the query (the given one may be used again):
+		ADQLQuery query;
+		try{
+			query = (ADQLQuery)adqlQuery.getCopy();
+		}catch(Exception ex){
+			throw new DBException("Impossible to copy the ADQL query in order to load its IN lists into tables! Cause: " + ex.getMessage(), ex);
+		}
+		sHandler.search(query);
+		for(ADQLObject obj : sHandler){
+			In in = (In)obj;
+			Object[] values = getInListValues(in.getValuesList());
+			if (values == null)
+				continue;
+
+			// Create and fill the table:
+			TAPSchema uploadSchema = new TAPSchema(STDSchema.UPLOADSCHEMA.label);
+			TAPTable table = new TAPTable("in_list_" + (inListTables.size() + 1));
+			table.setDBName("in_list_" + nbInListTables.incrementAndGet() + "_" + System.currentTimeMillis());
+			uploadSchema.addTable(table);
+			TAPColumn column = table.addColumn(IN_LIST_COLUMN, new DBType((values instanceof String[]) ? DBDatatype.VARCHAR : DBDatatype.BIGINT), null, null, null, null);
+			inListTables.add(table);
+			try{
+				addUploadedTable(table, new ValuesTableIterator(column, values));
+			}catch(DBCancelledException dce){
+				throw dce;
+			}catch(DBException de){
+				inListTables.remove(table);
+				if (logger != null)
+					logger.logDB(LogLevel.WARNING, this, "IN_LIST", "Impossible to load an IN list of " + values.length + " values into a table! The list is then kept as it is in the query.", de);
+				continue;
+			}
+
+			// Replace the list by a sub-query on this table:
+			ADQLTable adqlTable = new ADQLTable(STDSchema.UPLOADSCHEMA.label, table.getADQLName());
+			adqlTable.setDBLink(table);
+			ADQLColumn adqlColumn = new ADQLColumn(IN_LIST_COLUMN);
+			adqlColumn.setDBLink(column);
+			adqlColumn.setAdqlTable(adqlTable);
+			ADQLQuery subQuery = new ADQLQuery();
+			subQuery.setFrom(adqlTable);
+			subQuery.getSelect().add(adqlColumn);
+			in.setSubQuery(subQuery);
+		}
+
+		// The upload functions reset the cancel flag ; so check whether the execution is still running:
+		if (isCancelled())
+			throw new DBCancelledException();
+
+		return query;
+	}
+
+	/**
+	 * <p>Get the values of the given IN list, in order to load them into a table.</p>
+	 *
+	 * <p>
+	 * 	Only lists of integers (see {@link Long#parseLong(String)}) or lists of strings can be loaded into a table.
+	 * 	Lists containing any other item (decimal number, column, function, mix of numbers and strings, ...) are kept as
+	 * 	they are, in order to not change the comparison semantics.
+	 * </p>
+	 *
+	 * @param list	An IN list.
+	 *
+	 * @return	A {@link Long}[] or a {@link String}[],
+	 *        	or NULL if this list can not be loaded into a table.
+	 *
+	 * @since 2.4
+	 */
+	protected Object[] getInListValues(final ADQLList<ADQLOperand> list){
+		final int size = list.size();
+
+		// Compact list of literals => no need to create the operands:
+		if (list instanceof LiteralList && ((LiteralList)list).isCompact()){
+			LiteralList literals = (LiteralList)list;
+			if (literals.isStringList()){
+				String[] values = new String[size];
+				for(int i = 0; i < size; i++)
+					values[i] = literals.getValue(i);
+				return values;
+			}else{
+				Long[] values = new Long[size];
+				try{
+					for(int i = 0; i < size; i++)
+						values[i] = Long.parseLong(literals.getValue(i));
+				}catch(NumberFormatException nfe){
+					return null;
+				}
+				return values;
+			}
+		}
+
+		// Otherwise, check each item:
+		if (size == 0)
+			return null;
+		Object[] values = (list.get(0) instanceof StringConstant) ? new String[size] : new Long[size];
+		try{
+			for(int i = 0; i < size; i++){
+				ADQLOperand item = list.get(i);
+				if (values instanceof String[] && item instanceof StringConstant)
+					values[i] = ((StringConstant)item).getValue();
+				else if (values instanceof Long[] && item instanceof NumericConstant)
+					values[i] = Long.parseLong(((NumericConstant)item).getValue());
+				else if (values instanceof Long[] && item instanceof NegativeOperand && ((NegativeOperand)item).getOperand() instanceof NumericConstant)
+					values[i] = Long.parseLong("-" + ((NumericConstant)((NegativeOperand)item).getOperand()).getValue());
+				else
+					return null;
+			}
+		}catch(NumberFormatException nfe){
+			return null;
+		}
+		return values;
+	}
+
+	/**
+	 * <p>Drop all tables created for the IN lists of the last executed query (see {@link #loadInLists(ADQLQuery)}).</p>
+	 *
+	 * <p><i>Note:
+	 * 	An error while dropping a table is just logged.
+	 * </i></p>
+	 *
+	 * @since 2.4
+	 */
+	protected void dropInListTables(){
+		for(TAPTable table : inListTables){
+			try{
+				dropUploadedTable(table);
+			}catch(DBException de){
+				if (logger != null)
+					logger.logDB(LogLevel.ERROR, this, "DROP_IN_LIST", "Can not drop the table \"" + table.getDBName() + "\" created for an IN list!", de);
+			}
+		}
+		inListTables.clear();
 	}
 
 	/* ********************* */
@@ -688,15 +1292,29 @@ public class JDBCConnection implements DBConnection {
 		resetCancel();
 
 		String sql = null;
+		ParameterizedSQL parameterizedSQL = null;
 		ResultSet result = null;
 		try{
+			// 0. Load the huge IN lists into tables, if any:
+			ADQLQuery query = adqlQuery;
+			if (inListTableThreshold > 0)
+				query = loadInLists(adqlQuery);
+
 			// 1. Translate the ADQL query into SQL:
 			if (logger != null)
-				logger.logDB(LogLevel.INFO, this, "TRANSLATE", "Translating ADQL: " + adqlQuery.toADQL().replaceAll("(\t|\r?\n)+", " "), null);
-			sql = translator.translate(adqlQuery);
+				logger.logDB(LogLevel.INFO, this, "TRANSLATE", "Translating ADQL: " + query.toADQL().replaceAll("(\t|\r?\n)+", " "), null);
+			if (useBindParameters){
+				parameterizedSQL = translator.translateWithParameters(query);
+				sql = parameterizedSQL.getExpandedSQL();
+			}else
+				sql = translator.translate(query);
+
+			// Export the result with a binary COPY, if enabled and possible:
+			final boolean copy = copyExport && DBMS_POSTGRES.equals(dbms) && PgCopyTableIterator.isExportable(adqlQuery.getResultingColumns());
 
 			// 2. Create the statement and if needed, configure it for the given fetch size:
-			if (supportsTransaction && supportsFetchSize && fetchSize > 0){
+			final int queryFetchSize = getFetchSize(adqlQuery.getResultingColumns());
+			if (supportsTransaction && supportsFetchSize && queryFetchSize > 0 && !streamingFetch){
 				try{
 					connection.setAutoCommit(false);
 				}catch(SQLException se){
@@ -713,12 +1331,16 @@ public class JDBCConnection implements DBConnection {
 				throw new DBCancelledException();
 
 			// Get a statement:
-			getStatement();
+			// (note: with a COPY, the statement is used only to set the timeout ; the COPY is cancelled with cancelCopy())
+			if (parameterizedSQL != null && !copy)
+				stmt = getPreparedStatement(parameterizedSQL);
+			else
+				getStatement();
 
 			// Adjust the fetching size of this statement:
 			if (supportsFetchSize){
 				try{
-					stmt.setFetchSize(fetchSize);
+					stmt.setFetchSize((streamingFetch && queryFetchSize > 0) ? Integer.MIN_VALUE : queryFetchSize);
 				}catch(SQLException se){
 					if (!isCancelled()){
 						supportsFetchSize = false;
@@ -728,10 +1350,32 @@ public class JDBCConnection implements DBConnection {
 				}
 			}
 
+			// Limit the execution duration of this statement, if needed:
+			applyQueryTimeout(stmt);
+
+			// 3bis. Export the result with a binary COPY:
+			if (copy){
+				if (logger != null)
+					logger.logDB(LogLevel.INFO, this, "EXECUTE", "SQL query (binary COPY): " + sql.replaceAll("(\t|\r?\n)+", " "), null);
+				TableIterator copyResult = createCopyTableIterator(sql, adqlQuery.getResultingColumns());
+				if (copyResult != null){
+					if (logger != null)
+						logger.logDB(LogLevel.INFO, this, "RESULT", "Returning result (binary COPY).", null);
+					return copyResult;
+				}
+				// the real types of the result can not be decoded => normal execution (with all literals inlined):
+				if (logger != null)
+					logger.logDB(LogLevel.INFO, this, "EXECUTE", "Result not exportable with a binary COPY (column types).", null);
+				parameterizedSQL = null;
+			}
+
 			// 3. Execute the SQL query:
 			if (logger != null)
 				logger.logDB(LogLevel.INFO, this, "EXECUTE", "SQL query: " + sql.replaceAll("(\t|\r?\n)+", " "), null);
-			result = stmt.executeQuery(sql);
+			if (parameterizedSQL != null)
+				result = ((PreparedStatement)stmt).executeQuery();
+			else
+				result = stmt.executeQuery(sql);
 
 			// If the query has been aborted, return immediately:
 			if (isCancelled())
@@ -739,7 +1383,7 @@ public class JDBCConnection implements DBConnection {
 
 			// 4. Return the result through a TableIterator object:
 			if (logger != null)
-				logger.logDB(LogLevel.INFO, this, "RESULT", "Returning result (" + (supportsFetchSize ? "fetch size = " + fetchSize : "all in once") + ").", null);
+				logger.logDB(LogLevel.INFO, this, "RESULT", "Returning result (" + (supportsFetchSize ? ((streamingFetch && queryFetchSize > 0) ? "row streaming" : "fetch size = " + queryFetchSize) : "all in once") + ").", null);
 			return createTableIterator(result, adqlQuery.getResultingColumns());
 
 		}catch(Exception ex){
@@ -756,7 +1400,12 @@ public class JDBCConnection implements DBConnection {
 				 * then, it is normal to receive an SQLException: */
 				if (isCancelled())
 					throw new DBCancelledException();
-				else
+				// ...or if the query has been stopped by the database because of the timeout:
+				else if (queryTimeout > 0 && isTimeout((SQLException)ex)){
+					if (logger != null)
+						logger.logDB(LogLevel.INFO, this, "TIME_OUT", "Query execution stopped by the database after " + queryTimeout + " seconds!", null);
+					throw new DBTimeoutException(queryTimeout, ex, sql);
+				}else
 					throw new DBException("Unexpected error while executing a SQL query: " + ex.getMessage(), ex);
 			}else if (ex instanceof TranslationException)
 				throw new DBException("Unexpected error while translating ADQL into SQL: " + ex.getMessage(), ex);
@@ -767,6 +1416,197 @@ public class JDBCConnection implements DBConnection {
 		}
 	}
 
+	/**
+	 * <p>Limit the execution duration of the given statement to {@link #queryTimeout}.</p>
+	 *
+	 * <p>
+	 * 	The timeout is always set with {@link Statement#setQueryTimeout(int)} (if supported by the JDBC driver).
+	 * 	Besides, the following DBMS-native timeouts are set, so that the database stops the query by itself:
+	 * </p>
+	 * <ul>
+	 * 	<li>PostgreSQL: <code>SET LOCAL statement_timeout</code>, only if a transaction is open
+	 * 	    (otherwise, this setting would have no effect),</li>
+	 * 	<li>MySQL: <code>SET SESSION max_execution_time</code>, reset by {@link #endQuery()}.</li>
+	 * </ul>
+	 *
+	 * <p><i>Note:
+	 * 	If one of these operations fails, a warning is logged and it is not attempted any more by this connection.
+	 * </i></p>
+	 *
+	 * @param stmt	The statement which is going to execute a query.
+	 *
+	 * @throws SQLException	If the transaction status can not be checked.
+	 *
+	 * @since 2.4
+	 */
+	protected void applyQueryTimeout(final Statement stmt) throws SQLException{
+		// Timeout of the JDBC driver (also reset, because the statement may be reused):
+		if (supportsQueryTimeout){
+			try{
+				stmt.setQueryTimeout(Math.max(queryTimeout, 0));
+			}catch(SQLException se){
+				supportsQueryTimeout = false;
+				if (logger != null)
+					logger.logDB(LogLevel.WARNING, this, "TIME_OUT", "Query timeout unsupported by the JDBC driver!", se);
+			}
+		}
+
+		// Timeout of the DBMS:
+		if (queryTimeout <= 0 || !supportsNativeTimeout)
+			return;
+		try{
+			if (DBMS_POSTGRES.equals(dbms) && !connection.getAutoCommit())
+				executeSetting("SET LOCAL statement_timeout = " + (queryTimeout * 1000L));
+			else if (DBMS_MYSQL.equals(dbms)){
+				executeSetting("SET SESSION max_execution_time = " + (queryTimeout * 1000L));
+				sessionTimeoutSet = true;
+			}
+		}catch(SQLException se){
+			supportsNativeTimeout = false;
+			if (logger != null)
+				logger.logDB(LogLevel.WARNING, this, "TIME_OUT", "Query timeout unsupported by the database!", se);
+		}
+	}
+
+	/**
+	 * Remove the timeout set for the whole session by {@link #applyQueryTimeout(Statement)}, if any.
+	 *
+	 * <p><i>Note:
+	 * 	An error while resetting this timeout is just logged.
+	 * </i></p>
+	 *
+	 * @since 2.4
+	 */
+	protected void resetSessionTimeout(){
+		if (!sessionTimeoutSet)
+			return;
+		sessionTimeoutSet = false;
+		try{
+			if (DBMS_MYSQL.equals(dbms))
+				executeSetting("SET SESSION max_execution_time = 0");
+		}catch(SQLException se){
+			if (logger != null)
+				logger.logDB(LogLevel.WARNING, this, "TIME_OUT", "Can not reset the query timeout of the database session!", se);
+		}
+	}
+
+	/**
+	 * Execute the given setting instruction (e.g. <code>SET ...</code>) with a new statement.
+	 *
+	 * @param sql	The instruction to execute.
+	 *
+	 * @throws SQLException	If the execution failed.
+	 *
+	 * @since 2.4
+	 */
+	private void executeSetting(final String sql) throws SQLException{
+		Statement setStmt = connection.createStatement();
+		try{
+			setStmt.execute(sql);
+		}finally{
+			setStmt.close();
+		}
+	}
+
+	/**
+	 * <p>Tell whether the given error has been raised because the query timeout has been exceeded.</p>
+	 *
+	 * <p>
+	 * 	It is the case for a {@link SQLTimeoutException}, for the SQL states <code>57014</code> (query canceled, e.g. by
+	 * 	PostgreSQL because of <code>statement_timeout</code>) and <code>HY008</code> (operation canceled), and for the
+	 * 	MySQL error 3024 (maximum statement execution time exceeded).
+	 * </p>
+	 *
+	 * @param se	The error to test.
+	 *
+	 * @return	<code>true</code> if the error is a timeout,
+	 *        	<code>false</code> otherwise.
+	 *
+	 * @since 2.4
+	 */
+	protected boolean isTimeout(final SQLException se){
+		return se instanceof SQLTimeoutException || "57014".equals(se.getSQLState()) || "HY008".equals(se.getSQLState()) || (DBMS_MYSQL.equals(dbms) && se.getErrorCode() == 3024);
+	}
+
+	/**
+	 * <p>Estimate the cost of the given ADQL query, without executing it.</p>
+	 *
+	 * <p>
+	 * 	Only PostgreSQL is supported: the translated SQL query is submitted
+	 * 	with <code>EXPLAIN (FORMAT JSON)</code> and the total cost and number
+	 * 	of rows of the root node of the plan are returned. For any other DBMS,
+	 * 	NULL is returned.
+	 * </p>
+	 *
+	 * @see tap.db.DBConnection#estimateCost(adql.query.ADQLQuery)
+	 * @see #getEstimationQuery(String)
+	 *
+	 * @since 2.4
+	 */
+	@Override
+	public synchronized QueryCost estimateCost(final ADQLQuery adqlQuery) throws DBException{
+		// Starting of a new query => disable the cancel flag:
+		resetCancel();
+
+		String sql = null;
+		ResultSet result = null;
+		try{
+			// 1. Translate the ADQL query into SQL:
+			sql = getEstimationQuery(translator.translate(adqlQuery));
+			if (sql == null)
+				return null;
+
+			// 2. Get the plan:
+			if (logger != null)
+				logger.logDB(LogLevel.INFO, this, "ESTIMATE", "Estimating SQL query: " + sql.replaceAll("(\t|\r?\n)+", " "), null);
+			getStatement();
+			result = stmt.executeQuery(sql);
+			if (isCancelled())
+				throw new DBCancelledException();
+			if (!result.next())
+				return null;
+
+			// 3. Extract the cost:
+			QueryCost cost = QueryCost.parsePostgreSQLPlan(result.getString(1));
+			if (logger != null)
+				logger.logDB(LogLevel.INFO, this, "ESTIMATE", "Estimated " + cost + ".", null);
+			return cost;
+
+		}catch(DBCancelledException dce){
+			throw dce;
+		}catch(SQLException se){
+			if (isCancelled())
+				throw new DBCancelledException();
+			else
+				throw new DBException("Unexpected error while estimating the cost of a SQL query: " + se.getMessage(), se, sql);
+		}catch(TranslationException te){
+			throw new DBException("Unexpected error while translating ADQL into SQL: " + te.getMessage(), te);
+		}catch(JSONException je){
+			throw new DBException("Unexpected query plan returned by the database: " + je.getMessage(), je, sql);
+		}finally{
+			close(result);
+			closeStatement();
+		}
+	}
+
+	/**
+	 * Get the SQL query asking the database for the plan of the given query.
+	 *
+	 * @param sql	The SQL query to estimate.
+	 *
+	 * @return	The query returning the plan in the format expected by
+	 *        	{@link QueryCost#parsePostgreSQLPlan(String)},
+	 *        	or NULL if the DBMS can not provide it.
+	 *
+	 * @since 2.4
+	 */
+	protected String getEstimationQuery(final String sql){
+		if (DBMS_POSTGRES.equals(dbms))
+			return "EXPLAIN (FORMAT JSON) " + sql;
+		else
+			return null;
+	}
+
 	/**
 	 * <p>Create a {@link TableIterator} instance which lets reading the given result table.</p>
 	 *
@@ -796,6 +1636,46 @@ public class JDBCConnection implements DBConnection {
 		}
 	}
 
+	/**
+	 * <p>Export the result of the given SQL query with a binary COPY and return a {@link TableIterator} over it.</p>
+	 *
+	 * <p><i>Note:
+	 * 	This function is called by {@link #executeQuery(ADQLQuery)} only with PostgreSQL, if enabled by
+	 * 	{@link #setCopyExport(boolean)} and if all resulting columns can be exported
+	 * 	(see {@link PgCopyTableIterator#isExportable(DBColumn[])}).
+	 * </i></p>
+	 *
+	 * <p>
+	 * 	The real types of the result columns are first fetched (see {@link PgCopyTableIterator#getResultTypes(Connection, String)}),
+	 * 	because the declared metadata may not match exactly the tables. If they can not all be decoded, NULL is returned
+	 * 	and the query must be executed normally.
+	 * </p>
+	 *
+	 * <p>
+	 * 	The returned iterator is kept in {@link #copyResult}, so that {@link #cancel(boolean)} can stop the COPY.
+	 * </p>
+	 *
+	 * @param sql				The SELECT query whose the result must be exported.
+	 * @param resultingColumns	List of the columns expected in the result.
+	 *
+	 * @return	{@link TableIterator} instance over the exported result,
+	 *        	or NULL if the result can not be exported.
+	 *
+	 * @throws SQLException	If the COPY can not be started.
+	 *
+	 * @since 2.4
+	 */
+	protected TableIterator createCopyTableIterator(final String sql, final DBColumn[] resultingColumns) throws SQLException{
+		String[] resultTypes = PgCopyTableIterator.getResultTypes(connection, sql);
+		if (resultTypes.length != resultingColumns.length || !PgCopyTableIterator.isExportableResult(resultTypes))
+			return null;
+		copyResult = new PgCopyTableIterator(this, connection, sql, resultingColumns, resultTypes);
+		// the query may have been cancelled while starting the COPY:
+		if (isCancelled())
+			cancelCopy();
+		return copyResult;
+	}
+
 	/* *********************** */
 	/* TAP_SCHEMA MANIPULATION */
 	/* *********************** */
@@ -3660,4 +4540,242 @@ public class JDBCConnection implements DBConnection {
 		supportsFetchSize = true;
 		fetchSize = (size > 0) ? size : IGNORE_FETCH_SIZE;
 	}
+
+	@Override
+	public void setQueryTimeout(final int seconds){
+		queryTimeout = (seconds > 0) ? seconds : 0;
+	}
+
+	/**
+	 * Get the maximum execution duration of a SELECT query executed by {@link #executeQuery(ADQLQuery)}.
+	 *
+	 * @return	The query timeout (in seconds),
+	 *        	or 0 if queries are not limited in time.
+	 *
+	 * @since 2.4
+	 */
+	public final int getQueryTimeout(){
+		return queryTimeout;
+	}
+
+	/**
+	 * Tell whether the results of SELECT queries are exported with a binary COPY when possible.
+	 *
+	 * @return	<i>true</i> if the binary COPY export is enabled,
+	 *        	<i>false</i> otherwise.
+	 *
+	 * @since 2.4
+	 */
+	public final boolean isCopyExport(){
+		return copyExport;
+	}
+
+	/**
+	 * <p>Enable or disable the export of the results of SELECT queries with a binary COPY.</p>
+	 *
+	 * <p><i>Note:
+	 * 	This option has an effect only with PostgreSQL and only on results whose all columns can be exported
+	 * 	(see {@link PgCopyTableIterator#isExportable(DBColumn[])}).
+	 * </i></p>
+	 *
+	 * @param enabled	<i>true</i> to export the results with a binary COPY when possible,
+	 *               	<i>false</i> to always fetch them through JDBC.
+	 *
+	 * @since 2.4
+	 */
+	public void setCopyExport(final boolean enabled){
+		copyExport = enabled;
+	}
+
+	/**
+	 * Get the memory (in bytes) that one block of rows fetched from the database should not exceed.
+	 *
+	 * @return	The memory budget of a fetch,
+	 *        	or 0 if the fetch size is not computed for each query.
+	 *
+	 * @since 2.4
+	 */
+	public final long getFetchMemoryBudget(){
+		return fetchMemoryBudget;
+	}
+
+	/**
+	 * <p>Set the memory (in bytes) that one block of rows fetched from the database should not exceed.</p>
+	 *
+	 * <p><i>Note:
+	 * 	This budget is used only if the fetch size feature is enabled with a positive value (see {@link #setFetchSize(int)}).
+	 * </i></p>
+	 *
+	 * @param bytes	The memory budget of a fetch.
+	 *             	<i>If negative or null, the fetch size set with {@link #setFetchSize(int)} is used for all queries.</i>
+	 *
+	 * @since 2.4
+	 */
+	public void setFetchMemoryBudget(final long bytes){
+		fetchMemoryBudget = (bytes > 0) ? bytes : 0;
+	}
+
+	/**
+	 * <p>Get the fetch size to use for a query whose result has the given columns.</p>
+	 *
+	 * <p>
+	 * 	If a memory budget is set (see {@link #setFetchMemoryBudget(long)}), the fetch size is the number of rows
+	 * 	of the estimated size (see {@link #estimateRowSize(DBColumn[])}) this budget can hold, between 1 and
+	 * 	{@link #MAX_ADAPTIVE_FETCH_SIZE}. Otherwise, it is the fetch size set with {@link #setFetchSize(int)}.
+	 * </p>
+	 *
+	 * @param columns	Columns of the query result. <i>May be NULL.</i>
+	 *
+	 * @return	The fetch size to set in the {@link Statement},
+	 *        	or {@link #IGNORE_FETCH_SIZE} if the fetch size feature is disabled.
+	 *
+	 * @since 2.4
+	 */
+	protected int getFetchSize(final DBColumn[] columns){
+		if (!supportsFetchSize || fetchSize <= 0 || fetchMemoryBudget <= 0)
+			return fetchSize;
+		long nbRows = fetchMemoryBudget / estimateRowSize(columns);
+		return (int)Math.max(1, Math.min(nbRows, MAX_ADAPTIVE_FETCH_SIZE));
+	}
+
+	/**
+	 * <p>Estimate the memory (in bytes) taken by one row of a result having the given columns.</p>
+	 *
+	 * <p>
+	 * 	The size of each value is deduced from the column datatype. For strings and binaries,
+	 * 	the declared length is used when known (a string character taking 2 bytes in Java).
+	 * 	A fixed overhead ({@link #CELL_OVERHEAD}) is added for each value.
+	 * </p>
+	 *
+	 * @param columns	Columns of the result. <i>May be NULL.</i>
+	 *
+	 * @return	The estimated size of a row (always &gt; 0).
+	 *
+	 * @since 2.4
+	 */
+	protected int estimateRowSize(final DBColumn[] columns){
+		long size = CELL_OVERHEAD;
+		if (columns == null)
+			return CELL_OVERHEAD;
+		for(DBColumn col : columns){
+			DBType type = (col == null) ? null : col.getDatatype();
+			size += CELL_OVERHEAD;
+			if (type == null){
+				size += DEFAULT_STRING_LENGTH;
+				continue;
+			}
+			switch(type.type){
+				case SMALLINT:
+				case INTEGER:
+				case REAL:
+					size += 4;
+					break;
+				case BIGINT:
+				case DOUBLE:
+				case TIMESTAMP:
+					size += 8;
+					break;
+				case CHAR:
+				case VARCHAR:
+				case UNICODECHAR:
+					size += 2L * ((type.length > 0) ? type.length : DEFAULT_STRING_LENGTH);
+					break;
+				case BINARY:
+				case VARBINARY:
+					size += (type.length > 0) ? type.length : DEFAULT_BINARY_LENGTH;
+					break;
+				case BLOB:
+					size += 16 * DEFAULT_BINARY_LENGTH;
+					break;
+				case CLOB:
+				case REGION:
+					size += 2 * 16 * DEFAULT_STRING_LENGTH;
+					break;
+				case POINT:
+					size += 2 * DEFAULT_STRING_LENGTH;
+					break;
+				default:
+					size += DEFAULT_STRING_LENGTH;
+			}
+		}
+		return (int)Math.min(size, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Tell whether the literals of ADQL queries are executed as bind parameters.
+	 *
+	 * @return	<code>true</code> if ADQL queries are executed with a {@link PreparedStatement},
+	 *        	<code>false</code> if all literals are inlined in the SQL query.
+	 *
+	 * @since 2.4
+	 */
+	public final boolean isUsingBindParameters(){
+		return useBindParameters;
+	}
+
+	/**
+	 * <p>Set whether the literals of ADQL queries must be executed as bind parameters.</p>
+	 *
+	 * <p><i>Note:
+	 * 	When disabled, all cached {@link PreparedStatement}s are closed.
+	 * </i></p>
+	 *
+	 * @param enabled	<code>true</code> to execute ADQL queries with a {@link PreparedStatement},
+	 *               	<code>false</code> to inline all literals in the SQL query.
+	 *
+	 * @since 2.4
+	 */
+	public synchronized void setBindParameters(final boolean enabled){
+		useBindParameters = enabled;
+		if (!enabled)
+			clearStatementCache();
+	}
+
+	/**
+	 * Get the maximum number of {@link PreparedStatement}s kept open by this {@link JDBCConnection}.
+	 *
+	 * @return	Size of the cache of prepared statements.
+	 *
+	 * @since 2.4
+	 */
+	public final int getStatementCacheSize(){
+		return statementCacheSize;
+	}
+
+	/**
+	 * Set the maximum number of {@link PreparedStatement}s kept open by this {@link JDBCConnection}.
+	 *
+	 * @param size	Size of the cache of prepared statements.
+	 *            	<i>If negative or null, no statement is kept open after its use.</i>
+	 *
+	 * @since 2.4
+	 */
+	public synchronized void setStatementCacheSize(final int size){
+		statementCacheSize = (size > 0) ? size : 0;
+		shrinkStatementCache(statementCacheSize);
+	}
+
+	/**
+	 * Get the minimum number of values of an IN list for it to be loaded into a table before the query execution.
+	 *
+	 * @return	The minimum size of the IN lists to load into a table,
+	 *        	or 0 if this feature is disabled.
+	 *
+	 * @since 2.4
+	 */
+	public final int getInListTableThreshold(){
+		return inListTableThreshold;
+	}
+
+	/**
+	 * Set the minimum number of values of an IN list for it to be loaded into a table before the query execution.
+	 *
+	 * @param threshold	The minimum size of the IN lists to load into a table.
+	 *                 	<i>If negative or null, IN lists are never loaded into a table.</i>
+	 *
+	 * @since 2.4
+	 */
+	public void setInListTableThreshold(final int threshold){
+		inListTableThreshold = (threshold > 0) ? threshold : 0;
+	}
 }
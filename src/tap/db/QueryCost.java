@@ -0,0 +1,81 @@
+package tap.db;
+
+/*
+ * This file is part of TAPLibrary.
+ *
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Cost of an SQL query, as estimated by the query planner of the database
+ * (e.g. with <code>EXPLAIN</code>) without executing it.
+ *
+ * <p><i>Note:
+ * 	The cost is expressed in the unit of the database (e.g. arbitrary units
+ * 	based on disk page fetches for PostgreSQL). It can be compared only with
+ * 	costs estimated by the same database.
+ * </i></p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 2.4 (10/2026)
+ * @since 2.4
+ *
+ * @see DBConnection#estimateCost(adql.query.ADQLQuery)
+ */
+public class QueryCost {
+
+	/** Estimated total cost of the query. */
+	public final double cost;
+
+	/** Estimated number of rows returned by the query. */
+	public final double nbRows;
+
+	/**
+	 * Build a query cost.
+	 *
+	 * @param cost		Estimated total cost.
+	 * @param nbRows	Estimated number of rows.
+	 */
+	public QueryCost(final double cost, final double nbRows){
+		this.cost = cost;
+		this.nbRows = nbRows;
+	}
+
+	/**
+	 * Extract the cost of the root node of a plan returned by PostgreSQL with
+	 * <code>EXPLAIN (FORMAT JSON)</code>.
+	 *
+	 * @param jsonPlan	The JSON plan.
+	 *
+	 * @return	The estimated cost.
+	 *
+	 * @throws JSONException	If the given plan can not be read.
+	 */
+	public static QueryCost parsePostgreSQLPlan(final String jsonPlan) throws JSONException{
+		JSONObject plan = new JSONArray(jsonPlan).getJSONObject(0).getJSONObject("Plan");
+		return new QueryCost(plan.getDouble("Total Cost"), plan.getDouble("Plan Rows"));
+	}
+
+	@Override
+	public String toString(){
+		return "cost=" + cost + " ; rows=" + Math.round(nbRows);
+	}
+
+}
@@ -16,7 +16,8 @@ package tap.formatter;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  * 
- * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ * Copyright 2014-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ *                       Astronomisches Rechen Institut (ARI)
  */
 
 import java.io.BufferedWriter;
@@ -35,8 +36,8 @@ import adql.db.DBColumn;
 /**
  * Format any given query (table) result into HTML.
  * 
- * @author Gr&eacute;gory Mantelet (ARI)
- * @version 2.0 (10/2014)
+ * @author Gr&eacute;gory Mantelet (CDS;ARI)
+ * @version 2.4 (10/2026)
  * @since 2.0
  */
 public class HTMLFormat implements OutputFormat {
@@ -119,7 +120,7 @@ public class HTMLFormat implements OutputFormat {
 		if (service.getProviderName() != null)
 			writer.write(" from " + VOSerializer.formatText(service.getProviderName()));
 		writer.write(" on " + ISO8601Format.format(System.currentTimeMillis()));
-		writer.write("<br/><em>" + VOSerializer.formatText(execReport.parameters.getQuery()) + "</em>");
+		writer.write("<br/><em>" + VOSerializer.formatText((execReport.sharedQuery != null) ? execReport.sharedQuery : execReport.parameters.getQuery()) + "</em>");
 		writer.write("</caption>");
 		writer.newLine();
 
@@ -16,7 +16,7 @@ package tap.formatter;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  * 
- * Copyright 2012-2015 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -29,13 +29,14 @@ import tap.ServiceConnection;
 import tap.TAPException;
 import tap.TAPExecutionReport;
 import tap.data.TableIterator;
+import uws.ISO8601Format;
 import adql.db.DBColumn;
 
 /**
  * Format any given query (table) result into CSV or TSV (or with custom separator).
  * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.0 (04/2015)
+ * @version 2.4 (10/2026)
  */
 public class SVFormat implements OutputFormat {
 
@@ -345,6 +346,11 @@ public class SVFormat implements OutputFormat {
 	 *  be processed like the other type of values: no delimiter and just transformed into a string.
 	 * </p>
 	 * 
+	 * <p>
+	 * 	A date ({@link java.util.Date} or any subclass) is directly written in ISO8601 format (see {@link ISO8601Format}),
+	 * 	without creating any intermediate string.
+	 * </p>
+	 * 
 	 * @param value				The value to write.
 	 * @param column			The corresponding column metadata.
 	 * @param writer			The stream in which the field value must be written.
@@ -354,12 +360,18 @@ public class SVFormat implements OutputFormat {
 	 */
 	protected void writeFieldValue(final Object value, final DBColumn column, final BufferedWriter writer) throws IOException, TAPException{
 		if (value != null){
-			if ((delimitStr && value instanceof String) || value.toString().contains(separator)){
-				writer.write('"');
-				writer.write(value.toString().replaceAll("\"", "'"));
-				writer.write('"');
-			}else
-				writer.write(value.toString());
+			// an ISO8601 date can not contain any other character than digits, '-', ':', '.', '+', 'T' and 'Z':
+			if (value instanceof java.util.Date && separator.length() == 1 && "0123456789-:.+TZ".indexOf(separator.charAt(0)) < 0)
+				ISO8601Format.format((java.util.Date)value, writer);
+			else{
+				String str = (value instanceof java.util.Date) ? ISO8601Format.format((java.util.Date)value) : value.toString();
+				if ((delimitStr && value instanceof String) || str.contains(separator)){
+					writer.write('"');
+					writer.write(str.replaceAll("\"", "'"));
+					writer.write('"');
+				}else
+					writer.write(str);
+			}
 		}
 	}
 }
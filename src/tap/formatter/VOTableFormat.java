@@ -16,7 +16,7 @@ package tap.formatter;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2012-2023 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -96,6 +96,13 @@ import uk.ac.starlink.votable.VOTableVersion;
  * </ul>
  *
  * <p>
+ * 	If the result is shared with other jobs (see
+ * 	{@link TAPExecutionReport#sharedQuery}), QUERY is the normalized ADQL
+ * 	query, QUERY_AFTER_AUTO_FIX is not written and the table is just named
+ * 	<code>result</code> (instead of <code>result_{jobID}</code>).
+ * </p>
+ *
+ * <p>
  * 	Furthermore, this formatter provides a function to format an error in
  * 	VOTable: {@link #writeError(String, Map, PrintWriter)}. This is useful for
  * 	TAP which requires to return in VOTable any error that occurs while any
@@ -103,7 +110,7 @@ import uk.ac.starlink.votable.VOTableVersion;
  * </p>
  *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.4 (08/2023)
+ * @version 2.4 (10/2026)
  */
 public class VOTableFormat implements OutputFormat {
 
@@ -391,7 +398,7 @@ public class VOTableFormat implements OutputFormat {
 
 		/* Turns the result set into a table. */
 		LimitedStarTable table = new LimitedStarTable(queryResult, colInfos, execReport.parameters.getMaxRec(), thread);
-		table.setName("result_" + execReport.jobID);
+		table.setName((execReport.sharedQuery != null) ? "result" : "result_" + execReport.jobID);
 
 		/* Prepares the object that will do the serialization work. */
 		VOSerializer voser = null;
@@ -431,6 +438,7 @@ public class VOTableFormat implements OutputFormat {
 				/* If synchronous, the partially written VOTable should be
 				 * properly closed and an error INFO should be appended: */
 				if (execReport.synchronous) {
+					execReport.resultTruncated = true;
 					if (votFormat != DataFormat.TABLEDATA) {
 						out.write("</STREAM>\n</BINARY>\n</DATA>\n</TABLE>");
 						out.newLine();
@@ -452,6 +460,7 @@ public class VOTableFormat implements OutputFormat {
 		if (thread.isInterrupted()) {
 			// ...if synchronous, end properly the VOTable with an error INFO:
 			if (execReport != null && execReport.synchronous) {
+				execReport.resultTruncated = true;
 				out.write("<INFO name=\"QUERY_STATUS\" value=\"ERROR\">Time out! (Hint: Try running this query in asynchronous mode to get the complete result)</INFO>");
 				out.newLine();
 			}
@@ -509,14 +518,14 @@ public class VOTableFormat implements OutputFormat {
 		}
 
 		// Append the ADQL query at the origin of this result:	[OPTIONAL]
-		String adqlQuery = execReport.parameters.getQuery();
+		String adqlQuery = (execReport.sharedQuery != null) ? execReport.sharedQuery : execReport.parameters.getQuery();
 		if (adqlQuery != null) {
 			out.write("<INFO name=\"QUERY\"" + VOSerializer.formatAttribute("value", adqlQuery) + "/>");
 			out.newLine();
 		}
 
 		// Append the fixed ADQL query, if any:	[OPTIONAL]
-		String fixedQuery = execReport.fixedQuery;
+		String fixedQuery = (execReport.sharedQuery != null) ? null : execReport.fixedQuery;
 		if (fixedQuery != null) {
 			out.write("<INFO name=\"QUERY_AFTER_AUTO_FIX\"" + VOSerializer.formatAttribute("value", fixedQuery) + "/>");
 			out.newLine();
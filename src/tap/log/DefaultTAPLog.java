@@ -16,7 +16,7 @@ package tap.log;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  * 
- * Copyright 2012-2015 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -37,7 +37,7 @@ import uws.service.log.DefaultUWSLog;
  * Default implementation of the {@link TAPLog} interface which lets logging any message about a TAP service.
  * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.0 (04/2015)
+ * @version 2.4 (10/2026)
  * 
  * @see DefaultUWSLog
  */
@@ -162,7 +162,7 @@ public class DefaultTAPLog extends DefaultUWSLog implements TAPLog {
 				}else if (obj instanceof TAPExecutionReport){
 					TAPExecutionReport report = (TAPExecutionReport)obj;
 					jobId = report.jobID;
-					msgAppend = (report.synchronous ? "SYNC" : "ASYNC") + ",duration=" + report.getTotalDuration() + "ms (upload=" + report.getUploadDuration() + ",parse=" + report.getParsingDuration() + ",exec=" + report.getExecutionDuration() + ",format[" + report.parameters.getFormat() + "]=" + report.getFormattingDuration() + ")";
+					msgAppend = (report.synchronous ? "SYNC" : "ASYNC") + ",duration=" + report.getTotalDuration() + "ms (upload=" + report.getUploadDuration() + ",parse=" + report.getParsingDuration() + ",exec=" + report.getExecutionDuration() + ((report.getSpoolingDuration() >= 0) ? ",spool=" + report.getSpoolingDuration() : "") + ",format[" + report.parameters.getFormat() + "]=" + report.getFormattingDuration() + ")";
 				}else if (event.equalsIgnoreCase("WRITING_ERROR"))
 					jobId = obj.toString();
 			}
@@ -16,7 +16,7 @@ package tap.log;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2018 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ * Copyright 2018-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
  */
 
 import java.sql.SQLException;
@@ -83,7 +83,7 @@ import uws.service.log.Slf4jUWSLog;
  * </p>
  *
  * @author Gr&eacute;gory Mantelet (CDS)
- * @version 2.3 (07/2018)
+ * @version 2.4 (10/2026)
  * @since 2.3
  */
 public class Slf4jTAPLog extends Slf4jUWSLog implements TAPLog {
@@ -161,7 +161,7 @@ public class Slf4jTAPLog extends Slf4jUWSLog implements TAPLog {
 				}else if (obj instanceof TAPExecutionReport){
 					TAPExecutionReport report = (TAPExecutionReport)obj;
 					jobId = report.jobID;
-					msgAppend = (report.synchronous ? "SYNC" : "ASYNC") + ",duration=" + report.getTotalDuration() + "ms (upload=" + report.getUploadDuration() + ",parse=" + report.getParsingDuration() + ",exec=" + report.getExecutionDuration() + ",format[" + report.parameters.getFormat() + "]=" + report.getFormattingDuration() + ")";
+					msgAppend = (report.synchronous ? "SYNC" : "ASYNC") + ",duration=" + report.getTotalDuration() + "ms (upload=" + report.getUploadDuration() + ",parse=" + report.getParsingDuration() + ",exec=" + report.getExecutionDuration() + ((report.getSpoolingDuration() >= 0) ? ",spool=" + report.getSpoolingDuration() : "") + ",format[" + report.parameters.getFormat() + "]=" + report.getFormattingDuration() + ")";
 				}else if (event.equalsIgnoreCase("WRITING_ERROR"))
 					jobId = obj.toString();
 			}
@@ -16,7 +16,7 @@ package tap.metadata;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  * 
- * Copyright 2012-2024 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -26,9 +26,11 @@ import java.util.Iterator;
 import java.util.Map;
 
 import adql.db.DBColumn;
+import adql.db.DBSpatialIndexColumn;
 import adql.db.DBTable;
 import adql.db.DBType;
 import adql.db.DBType.DBDatatype;
+import adql.db.SpatialIndex;
 
 /**
  * <p>Represent a column as described by the IVOA standard in the TAP protocol definition.</p>
@@ -68,10 +70,18 @@ import adql.db.DBType.DBDatatype;
  * 	{@link #addTarget(TAPForeignKey)}.
  * </p>
  * 
+ * <h3>Spatial index column</h3>
+ * 
+ * <p>
+ * 	A column may store the cell number of a spatial index (e.g. HEALPix) of two other columns of
+ * 	the same table (RA and Dec.). This is declared with {@link #setSpatialIndex(SpatialIndex)} ; the
+ * 	ADQL translator may then use this column to pre-filter geometrical constraints.
+ * </p>
+ * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.4 (10/2024)
+ * @version 2.4 (10/2026)
  */
-public class TAPColumn implements DBColumn {
+public class TAPColumn implements DBSpatialIndexColumn {
 
 	/** Name that this column MUST have in ADQL queries. */
 	private final String adqlName;
@@ -119,6 +129,11 @@ public class TAPColumn implements DBColumn {
 	 * <i>Note: Standard TAP column field ; FALSE by default.</i> */
 	private boolean indexed = false;
 
+	/** Description of the spatial index stored in this column.
+	 * <i>Note: NULL if this column is not a spatial index column.</i>
+	 * @since 2.4 */
+	private SpatialIndex spatialIndex = null;
+
 	/** Flag indicating whether this column can be set to NULL in the database.
 	 * <i>Note: Standard TAP column field ; FALSE by default.</i>
 	 * @since 2.0 */
@@ -675,6 +690,8 @@ public class TAPColumn implements DBColumn {
 			datatype = type;
 		else
 			datatype = new DBType(DBDatatype.UNKNOWN);
+		if (table instanceof TAPTable)
+			((TAPTable)table).incrementVersion();
 	}
 
 	/**
@@ -713,6 +730,30 @@ public class TAPColumn implements DBColumn {
 		this.indexed = indexed;
 	}
 
+	@Override
+	public final SpatialIndex getSpatialIndex(){
+		return spatialIndex;
+	}
+
+	/**
+	 * Declare this column as storing the cell number of the given spatial
+	 * index.
+	 * 
+	 * <p><i>Note:
+	 * 	If not NULL, this column is also flagged as indexed.
+	 * </i></p>
+	 * 
+	 * @param index	Description of the spatial index stored in this column,
+	 *             	or NULL if this column is not a spatial index column.
+	 * 
+	 * @since 2.4
+	 */
+	public final void setSpatialIndex(final SpatialIndex index){
+		spatialIndex = index;
+		if (index != null)
+			indexed = true;
+	}
+
 	/**
 	 * Tell whether this column is nullable.
 	 * 
@@ -976,6 +1017,7 @@ public class TAPColumn implements DBColumn {
 		copy.setTable(dbTable);
 
 		copy.setIndexed(indexed);
+		copy.setSpatialIndex(spatialIndex);
 		copy.setPrincipal(principal);
 		copy.setStd(std);
 		copy.setOtherData(otherData);
@@ -1000,6 +1042,7 @@ public class TAPColumn implements DBColumn {
 		copy.setDBName(dbName);
 		copy.setTable(table);
 		copy.setIndexed(indexed);
+		copy.setSpatialIndex(spatialIndex);
 		copy.setPrincipal(principal);
 		copy.setStd(std);
 		copy.setOtherData(otherData);
@@ -16,7 +16,7 @@ package tap.metadata;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2012-2017 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -30,6 +30,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
@@ -75,8 +76,14 @@ import uws.UWSToolBox;
  * 	IVOA specification.
  * </p>
  *
+ * <p>
+ * 	Any change of the schemas, tables or columns of this metadata set gives it
+ * 	a new version (see {@link #getVersion()}). This version lets identify the
+ * 	metadata against which a query has been checked.
+ * </p>
+ *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.1 (11/2017)
+ * @version 2.4 (10/2026)
  */
 public class TAPMetadata implements Iterable<TAPSchema>, VOSIResource, TAPResource {
 
@@ -99,6 +106,15 @@ public class TAPMetadata implements Iterable<TAPSchema>, VOSIResource, TAPResour
 	 * @since 2.1 */
 	protected String xsltPath = null;
 
+	/** Source of all metadata versions. Since it is shared by all instances,
+	 * no version can be given to two different metadata sets.
+	 * @since 2.4 */
+	private static final AtomicLong VERSIONS = new AtomicLong(0);
+
+	/** Current version of this metadata set.
+	 * @since 2.4 */
+	private volatile long version = VERSIONS.incrementAndGet();
+
 	/**
 	 * <p>Build an empty list of metadata.</p>
 	 *
@@ -154,6 +170,35 @@ public class TAPMetadata implements Iterable<TAPSchema>, VOSIResource, TAPResour
 		}
 	}
 
+	/**
+	 * <p>Get the current version of this metadata set.</p>
+	 *
+	 * <p>
+	 * 	A new version is given each time a schema, a table or a column is added
+	 * 	or removed, and each time the datatype of a column is changed. Versions
+	 * 	are unique among all {@link TAPMetadata} instances: two metadata sets
+	 * 	never have the same version.
+	 * </p>
+	 *
+	 * @return	The current version of this metadata set.
+	 *
+	 * @since 2.4
+	 */
+	public final long getVersion(){
+		return version;
+	}
+
+	/**
+	 * Give a new version to this metadata set.
+	 *
+	 * @see #getVersion()
+	 *
+	 * @since 2.4
+	 */
+	final void incrementVersion(){
+		version = VERSIONS.incrementAndGet();
+	}
+
 	/**
 	 * <p>Add the given schema inside this TAP metadata set.</p>
 	 *
@@ -164,8 +209,13 @@ public class TAPMetadata implements Iterable<TAPSchema>, VOSIResource, TAPResour
 	 * @param s	The schema to add.
 	 */
 	public final void addSchema(TAPSchema s){
-		if (s != null && s.getADQLName() != null)
-			schemas.put(s.getADQLName(), s);
+		if (s != null && s.getADQLName() != null){
+			TAPSchema replaced = schemas.put(s.getADQLName(), s);
+			if (replaced != null && replaced != s)
+				replaced.setMetadata(null);
+			s.setMetadata(this);
+			incrementVersion();
+		}
 	}
 
 	/**
@@ -298,15 +348,23 @@ public class TAPMetadata implements Iterable<TAPSchema>, VOSIResource, TAPResour
 	public final TAPSchema removeSchema(String schemaName){
 		if (schemaName == null)
 			return null;
-		else
-			return schemas.remove(schemaName);
+
+		TAPSchema removedSchema = schemas.remove(schemaName);
+		if (removedSchema != null){
+			removedSchema.setMetadata(null);
+			incrementVersion();
+		}
+		return removedSchema;
 	}
 
 	/**
 	 * Remove all schemas of this metadata set.
 	 */
 	public final void removeAllSchemas(){
+		for(TAPSchema s : schemas.values())
+			s.setMetadata(null);
 		schemas.clear();
+		incrementVersion();
 	}
 
 	@Override
@@ -541,10 +599,12 @@ public class TAPMetadata implements Iterable<TAPSchema>, VOSIResource, TAPResour
 	 * @version 2.0 (08/2014)
 	 */
 	protected static class TAPTableIterator implements Iterator<TAPTable> {
+		private final TAPMetadata metadata;
 		private Iterator<TAPSchema> it;
 		private Iterator<TAPTable> itTables;
 
 		public TAPTableIterator(TAPMetadata tapSchema){
+			metadata = tapSchema;
 			it = tapSchema.iterator();
 
 			if (it.hasNext())
@@ -583,9 +643,10 @@ public class TAPMetadata implements Iterable<TAPSchema>, VOSIResource, TAPResour
 
 		@Override
 		public void remove(){
-			if (itTables != null)
+			if (itTables != null){
 				itTables.remove();
-			else
+				metadata.incrementVersion();
+			}else
 				throw new IllegalStateException("Impossible to remove the table because there is no more table in TAP_SCHEMA !");
 		}
 	}
@@ -16,7 +16,7 @@ package tap.metadata;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  * 
- * Copyright 2012-2016 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -45,7 +45,7 @@ import tap.metadata.TAPTable.TableType;
  * </i></p>
  * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.1 (07/2016)
+ * @version 2.4 (10/2026)
  */
 public class TAPSchema implements Iterable<TAPTable> {
 
@@ -88,6 +88,10 @@ public class TAPSchema implements Iterable<TAPTable> {
 	/** List all tables contained inside this schema. */
 	protected final Map<String,TAPTable> tables;
 
+	/** The metadata set containing this schema.
+	 * @since 2.4 */
+	private TAPMetadata metadata = null;
+
 	/**
 	 * <p>Build a {@link TAPSchema} instance with the given ADQL name.</p>
 	 * 
@@ -369,6 +373,45 @@ public class TAPSchema implements Iterable<TAPTable> {
 		otherData = data;
 	}
 
+	/**
+	 * Get the metadata set containing this schema.
+	 * 
+	 * @return	Its metadata set. <i>MAY be NULL</i>
+	 * 
+	 * @since 2.4
+	 */
+	public final TAPMetadata getMetadata(){
+		return metadata;
+	}
+
+	/**
+	 * <p>Set the metadata set containing this schema.</p>
+	 * 
+	 * <p><i><b>Warning:</b>
+	 * 	For consistency reasons, this function SHOULD be called only by the {@link TAPMetadata}
+	 * 	that owns this schema.
+	 * </i></p>
+	 * 
+	 * @param metadata	The metadata set that owns this schema.
+	 * 
+	 * @since 2.4
+	 */
+	protected final void setMetadata(final TAPMetadata metadata){
+		this.metadata = metadata;
+	}
+
+	/**
+	 * Give a new version to the metadata set containing this schema, if any.
+	 * 
+	 * @see TAPMetadata#getVersion()
+	 * 
+	 * @since 2.4
+	 */
+	final void incrementVersion(){
+		if (metadata != null)
+			metadata.incrementVersion();
+	}
+
 	/**
 	 * <p>Add the given table inside this schema.</p>
 	 * 
@@ -389,6 +432,7 @@ public class TAPSchema implements Iterable<TAPTable> {
 		if (newTable != null && newTable.getADQLName() != null){
 			newTable.setSchema(this);
 			tables.put(newTable.getADQLName(), newTable);
+			incrementVersion();
 		}
 	}
 
@@ -530,8 +574,10 @@ public class TAPSchema implements Iterable<TAPTable> {
 			return null;
 
 		TAPTable removedTable = tables.remove(tableName);
-		if (removedTable != null)
+		if (removedTable != null){
 			removedTable.setSchema(null);
+			incrementVersion();
+		}
 		return removedTable;
 	}
 
@@ -557,6 +603,7 @@ public class TAPSchema implements Iterable<TAPTable> {
 			it.remove();
 			entry.getValue().setSchema(null);
 		}
+		incrementVersion();
 	}
 
 	@Override
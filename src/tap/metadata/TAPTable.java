@@ -16,7 +16,7 @@ package tap.metadata;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  * 
- * Copyright 2012-2016 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -31,6 +31,7 @@ import adql.db.DBColumn;
 import adql.db.DBTable;
 import adql.db.DBType;
 import tap.TAPException;
+import tap.data.MergedTableIterator;
 
 /**
  * <p>Represent a table as described by the IVOA standard in the TAP protocol definition.</p>
@@ -52,7 +53,7 @@ import tap.TAPException;
  * </i></p>
  * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.1 (07/2016)
+ * @version 2.4 (10/2026)
  */
 public class TAPTable implements DBTable {
 
@@ -123,6 +124,16 @@ public class TAPTable implements DBTable {
 	/** List of all foreign keys linking this table to others. */
 	protected final ArrayList<TAPForeignKey> foreignKeys;
 
+	/** Name of the column on which this table is partitioned.
+	 * <i>NULL if this table is not partitioned.</i>
+	 * @since 2.4 */
+	private String partitionColumn = null;
+
+	/** Ordered boundaries of the partitions of this table.
+	 * <i>NULL if this table is not partitioned.</i>
+	 * @since 2.4 */
+	private Number[] partitionBoundaries = null;
+
 	/** Let add some information in addition of the ones of the TAP protocol.
 	 * <i>Note: This object can be anything: an {@link Integer}, a {@link String}, a {@link Map}, a {@link List}, ...
 	 * Its content is totally free and never used or checked.</i> */
@@ -433,6 +444,18 @@ public class TAPTable implements DBTable {
 		this.schema = schema;
 	}
 
+	/**
+	 * Give a new version to the metadata set containing this table, if any.
+	 * 
+	 * @see TAPMetadata#getVersion()
+	 * 
+	 * @since 2.4
+	 */
+	final void incrementVersion(){
+		if (schema != null)
+			schema.incrementVersion();
+	}
+
 	/**
 	 * Get the type of this table.
 	 * 
@@ -536,6 +559,89 @@ public class TAPTable implements DBTable {
 		this.index = tableIndex;
 	}
 
+	/**
+	 * Tell whether this table is partitioned (see {@link #setPartitioning(String, Number...)}).
+	 *
+	 * @return	<i>true</i> if partitioned,
+	 *        	<i>false</i> otherwise.
+	 *
+	 * @since 2.4
+	 */
+	public final boolean isPartitioned(){
+		return partitionColumn != null;
+	}
+
+	/**
+	 * Get the ADQL name of the column on which this table is partitioned.
+	 *
+	 * @return	Name of the partition column,
+	 *        	or NULL if this table is not partitioned.
+	 *
+	 * @since 2.4
+	 */
+	public final String getPartitionColumn(){
+		return partitionColumn;
+	}
+
+	/**
+	 * Get the ordered boundaries of the partitions of this table.
+	 *
+	 * @return	A copy of the partition boundaries,
+	 *        	or NULL if this table is not partitioned.
+	 *
+	 * @since 2.4
+	 */
+	public final Number[] getPartitionBoundaries(){
+		return (partitionBoundaries == null) ? null : partitionBoundaries.clone();
+	}
+
+	/**
+	 * Declare the ranges of values of a numeric column along which this table
+	 * may be split.
+	 *
+	 * <p>
+	 * 	N boundaries define N+1 partitions: <code>column &lt; b<sub>1</sub></code>
+	 * 	(NULL values included), <code>b<sub>1</sub> &le; column &lt; b<sub>2</sub></code>,
+	 * 	..., <code>column &ge; b<sub>N</sub></code>. So, together, the partitions
+	 * 	always cover all rows of the table.
+	 * </p>
+	 *
+	 * <p>
+	 * 	A query scanning only a partitioned table may then be executed in
+	 * 	parallel, one partition per database connection
+	 * 	(see {@link tap.QueryPartitioner}). The partitions should then match the
+	 * 	physical partitions (or shards) of the table or, at least, an index.
+	 * </p>
+	 *
+	 * @param columnName	ADQL name of the partition column.
+	 *                  	<i>If NULL, this table is not partitioned any more.</i>
+	 * @param boundaries	Strictly increasing boundaries of the partitions.
+	 *
+	 * @throws IllegalArgumentException	If the column does not exist in this
+	 *                                 	table, or if the boundaries are
+	 *                                 	missing or not strictly increasing.
+	 *
+	 * @since 2.4
+	 */
+	public final void setPartitioning(final String columnName, final Number... boundaries) throws IllegalArgumentException{
+		if (columnName == null){
+			partitionColumn = null;
+			partitionBoundaries = null;
+			return;
+		}else if (getColumn(columnName) == null)
+			throw new IllegalArgumentException("Unknown partition column: \"" + columnName + "\" is not a column of the table \"" + getFullName() + "\"!");
+		else if (boundaries == null || boundaries.length == 0)
+			throw new IllegalArgumentException("Missing partition boundaries for the table \"" + getFullName() + "\"!");
+		for(int i = 0; i < boundaries.length; i++){
+			if (boundaries[i] == null || Double.isNaN(boundaries[i].doubleValue()) || Double.isInfinite(boundaries[i].doubleValue()))
+				throw new IllegalArgumentException("Incorrect partition boundary for the table \"" + getFullName() + "\": " + boundaries[i] + "!");
+			else if (i > 0 && MergedTableIterator.compareValues(boundaries[i], boundaries[i - 1]) <= 0)
+				throw new IllegalArgumentException("The partition boundaries of the table \"" + getFullName() + "\" must be strictly increasing!");
+		}
+		partitionColumn = columnName;
+		partitionBoundaries = boundaries.clone();
+	}
+
 	/**
 	 * <p>Get the other (piece of) information associated with this table.</p>
 	 * 
@@ -579,6 +685,7 @@ public class TAPTable implements DBTable {
 		if (newColumn != null && newColumn.getADQLName() != null){
 			newColumn.setTable(this);
 			columns.put(newColumn.getADQLName(), newColumn);
+			incrementVersion();
 		}
 	}
 
@@ -801,8 +908,10 @@ public class TAPTable implements DBTable {
 			return null;
 
 		TAPColumn removedColumn = columns.remove(columnName);
-		if (removedColumn != null)
+		if (removedColumn != null){
 			deleteColumnRelations(removedColumn);
+			incrementVersion();
+		}
 
 		return removedColumn;
 	}
@@ -839,6 +948,7 @@ public class TAPTable implements DBTable {
 			it.remove();
 			deleteColumnRelations(entry.getValue());
 		}
+		incrementVersion();
 	}
 
 	/**
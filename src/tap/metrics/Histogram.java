@@ -0,0 +1,204 @@
+package tap.metrics;
+
+/*
+ * This file is part of TAPLibrary.
+ *
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of positive long values (e.g. durations in
+ * microseconds).
+ *
+ * <p>
+ * 	As in an HDR histogram, values are counted in log-linear buckets: each
+ * 	power of 2 is split into {@value #NB_SUB_BUCKETS} buckets of equal width.
+ * 	The relative error on a recorded value is then at most 25%, whatever its
+ * 	magnitude, with a fixed and small memory footprint. Besides, a bucket
+ * 	includes its upper bound and any power of 2 is the upper bound of a
+ * 	bucket: the number of values lower than or equal to a power of 2 is then
+ * 	exact (see {@link #getCountAtMost(long)}), as required by the
+ * 	cumulative <code>le</code> buckets of Prometheus.
+ * </p>
+ *
+ * <p>
+ * 	{@link #record(long)} only increments atomic counters: it never blocks
+ * 	and can be called concurrently by any number of threads. Reading
+ * 	functions do not block either ; they may just miss values recorded
+ * 	during the reading.
+ * </p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 2.4 (10/2026)
+ * @since 2.4
+ */
+public final class Histogram {
+
+	/** Number of bits used to split a power of 2 into sub-buckets. */
+	private final static int SUB_BUCKET_BITS = 2;
+
+	/** Number of buckets per power of 2. */
+	public final static int NB_SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/** Number of buckets needed to count any positive long value. */
+	private final static int NB_BUCKETS = indexOf(Long.MAX_VALUE) + 1;
+
+	/** Number of values recorded in each bucket. */
+	private final AtomicLongArray counts = new AtomicLongArray(NB_BUCKETS);
+
+	/** Sum of all recorded values. */
+	private final LongAdder sum = new LongAdder();
+
+	/**
+	 * Record the given value.
+	 *
+	 * @param value	Value to record. <i>A negative value is recorded as 0.</i>
+	 */
+	public void record(long value){
+		if (value < 0)
+			value = 0;
+		counts.incrementAndGet(indexOf(value));
+		sum.add(value);
+	}
+
+	/**
+	 * Get the number of recorded values.
+	 *
+	 * @return	Number of values.
+	 */
+	public long getCount(){
+		long count = 0;
+		for(int i = 0; i < NB_BUCKETS; i++)
+			count += counts.get(i);
+		return count;
+	}
+
+	/**
+	 * Get the sum of all recorded values.
+	 *
+	 * @return	Sum of all values.
+	 */
+	public long getSum(){
+		return sum.sum();
+	}
+
+	/**
+	 * Get the number of recorded values lower than or equal to the given
+	 * bound.
+	 *
+	 * <p><i>Note:
+	 * 	The result is exact only if the given bound is the upper bound of a
+	 * 	bucket (e.g. a power of 2). Otherwise, the values of the bucket
+	 * 	containing the bound are not counted.
+	 * </i></p>
+	 *
+	 * @param bound	Inclusive upper bound.
+	 *
+	 * @return	Number of values lower than or equal to the given bound.
+	 */
+	public long getCountAtMost(final long bound){
+		if (bound < 0)
+			return 0;
+		long count = 0;
+		for(int i = 0; i < NB_BUCKETS && upperBound(i) <= bound; i++)
+			count += counts.get(i);
+		return count;
+	}
+
+	/**
+	 * Get the value below (or at) which the given fraction of the recorded
+	 * values are.
+	 *
+	 * <p><i>Note:
+	 * 	As for an HDR histogram, the returned value is the highest value of
+	 * 	the bucket containing the searched value (i.e. its upper bound).
+	 * </i></p>
+	 *
+	 * @param quantile	A fraction between 0 and 1 (e.g. 0.99 for the 99th
+	 *                	percentile).
+	 *
+	 * @return	The corresponding value,
+	 *        	or 0 if no value has been recorded.
+	 */
+	public long getValueAtQuantile(final double quantile){
+		final long[] snapshot = new long[NB_BUCKETS];
+		long total = 0;
+		for(int i = 0; i < NB_BUCKETS; i++)
+			total += (snapshot[i] = counts.get(i));
+		if (total == 0)
+			return 0;
+
+		final long rank = Math.max(1, (long)Math.ceil(Math.min(1, Math.max(0, quantile)) * total));
+		long count = 0;
+		for(int i = 0; i < NB_BUCKETS; i++){
+			count += snapshot[i];
+			if (count >= rank)
+				return upperBound(i);
+		}
+		return Long.MAX_VALUE;
+	}
+
+	/**
+	 * Forget all recorded values.
+	 */
+	public void reset(){
+		for(int i = 0; i < NB_BUCKETS; i++)
+			counts.set(i, 0);
+		sum.reset();
+	}
+
+	/**
+	 * Get the index of the bucket of the given value.
+	 *
+	 * <p>
+	 * 	The bucket 0 contains only 0. The bucket <code>i &gt; 0</code>
+	 * 	contains the values in <code>]upperBound(i-1), upperBound(i)]</code>.
+	 * </p>
+	 *
+	 * @param value	A positive value.
+	 *
+	 * @return	Index of its bucket.
+	 */
+	static int indexOf(final long value){
+		if (value <= 0)
+			return 0;
+		final long v = value - 1;
+		if (v < NB_SUB_BUCKETS)
+			return (int)v + 1;
+		final int msb = 63 - Long.numberOfLeadingZeros(v);
+		return ((msb - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + (int)((v >>> (msb - SUB_BUCKET_BITS)) & (NB_SUB_BUCKETS - 1)) + 1;
+	}
+
+	/**
+	 * Get the biggest value of the specified bucket.
+	 *
+	 * @param index	Index of a bucket.
+	 *
+	 * @return	Its upper bound (inclusive).
+	 */
+	static long upperBound(final int index){
+		if (index < NB_SUB_BUCKETS)
+			return index;
+		final int msb = (index >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+		if (msb > 62)
+			return Long.MAX_VALUE;
+		return (1L << msb) + ((long)(index & (NB_SUB_BUCKETS - 1)) << (msb - SUB_BUCKET_BITS));
+	}
+
+}
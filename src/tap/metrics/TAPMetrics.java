@@ -0,0 +1,333 @@
+package tap.metrics;
+
+/*
+ * This file is part of TAPLibrary.
+ *
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import tap.ExecutionProgression;
+import tap.TAPExecutionReport;
+
+/**
+ * Statistics about all the ADQL query executions of a TAP service.
+ *
+ * <p>
+ * 	They are recorded by {@link tap.ADQLExecutor} (if
+ * 	{@link tap.ServiceConnection#getMetrics()} returns an instance of this
+ * 	class) and exposed by the resource {@link tap.resource.Metrics}:
+ * </p>
+ * <ul>
+ * 	<li>the number of running and finished executions,</li>
+ * 	<li>the duration of each execution step (see {@link ExecutionProgression}),</li>
+ * 	<li>per output format: the duration of the result writing, and the number
+ * 		of written rows and bytes,</li>
+ * 	<li>the time spent to get a database connection,</li>
+ * 	<li>the number of uploaded rows and the upload speed (in rows per
+ * 		second),</li>
+ * 	<li>the number of synchronous executions stopped because the HTTP client
+ * 		disconnected.</li>
+ * </ul>
+ *
+ * <p>
+ * 	All durations are expressed in microseconds and recorded in a
+ * 	{@link Histogram}. Recording never blocks: it only increments atomic
+ * 	counters, and so adds no contention between concurrent executions.
+ * </p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 2.4 (10/2026)
+ * @since 2.4
+ */
+public class TAPMetrics {
+
+	/** Execution steps whose the duration is recorded. */
+	public final static ExecutionProgression[] STAGES = new ExecutionProgression[]{ ExecutionProgression.UPLOADING, ExecutionProgression.PARSING, ExecutionProgression.EXECUTING_ADQL, ExecutionProgression.SPOOLING_RESULT, ExecutionProgression.WRITING_RESULT };
+
+	/** Duration of each execution step (same order as {@link #STAGES}). */
+	private final Histogram[] stageDurations = new Histogram[STAGES.length];
+
+	/** Statistics of each used output format, indexed by format name. */
+	private final ConcurrentHashMap<String, FormatMetrics> formats = new ConcurrentHashMap<String, FormatMetrics>();
+
+	/** Time spent to get a database connection. */
+	private final Histogram connectionDurations = new Histogram();
+
+	/** Number of uploaded rows per second, for each upload. */
+	private final Histogram uploadSpeeds = new Histogram();
+
+	/** Total number of uploaded rows. */
+	private final LongAdder nbUploadedRows = new LongAdder();
+
+	/** Number of running synchronous executions. */
+	private final LongAdder nbRunningSync = new LongAdder();
+
+	/** Number of running asynchronous executions. */
+	private final LongAdder nbRunningAsync = new LongAdder();
+
+	/** Number of successful executions. */
+	private final LongAdder nbSuccesses = new LongAdder();
+
+	/** Number of failed (or aborted) executions. */
+	private final LongAdder nbFailures = new LongAdder();
+
+	/** Number of synchronous executions stopped because the HTTP client
+	 * disconnected. */
+	private final LongAdder nbClientDisconnections = new LongAdder();
+
+	/**
+	 * Create empty statistics.
+	 */
+	public TAPMetrics(){
+		for(int i = 0; i < stageDurations.length; i++)
+			stageDurations[i] = new Histogram();
+	}
+
+	/**
+	 * Notify the start of an ADQL query execution.
+	 *
+	 * @param synchronous	<i>true</i> for a synchronous execution,
+	 *                   	<i>false</i> for an asynchronous one.
+	 */
+	public void executionStarted(final boolean synchronous){
+		(synchronous ? nbRunningSync : nbRunningAsync).increment();
+	}
+
+	/**
+	 * Notify the end (successful or not) of an ADQL query execution.
+	 *
+	 * @param report	Report of the finished execution.
+	 */
+	public void executionEnded(final TAPExecutionReport report){
+		(report.synchronous ? nbRunningSync : nbRunningAsync).decrement();
+		(report.success ? nbSuccesses : nbFailures).increment();
+	}
+
+	/**
+	 * Notify that a synchronous execution has been stopped because the HTTP
+	 * client disconnected.
+	 */
+	public void recordClientDisconnection(){
+		nbClientDisconnections.increment();
+	}
+
+	/**
+	 * Record the duration of an execution step.
+	 *
+	 * @param stage		The finished step.
+	 * @param duration	Its duration (in microseconds).
+	 */
+	public void recordStage(final ExecutionProgression stage, final long duration){
+		for(int i = 0; i < STAGES.length; i++){
+			if (STAGES[i] == stage){
+				stageDurations[i].record(duration);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Record the writing of a query result.
+	 *
+	 * @param format	Name of the output format.
+	 * @param nbRows	Number of written rows. <i>Ignored if negative.</i>
+	 * @param nbBytes	Number of written bytes. <i>Ignored if negative.</i>
+	 * @param duration	Duration of the writing (in microseconds).
+	 */
+	public void recordResult(final String format, final long nbRows, final long nbBytes, final long duration){
+		FormatMetrics stats = getFormatMetrics(format);
+		if (stats == null){
+			FormatMetrics newStats = new FormatMetrics();
+			stats = formats.putIfAbsent(format, newStats);
+			if (stats == null)
+				stats = newStats;
+		}
+		stats.durations.record(duration);
+		if (nbRows > 0)
+			stats.nbRows.add(nbRows);
+		if (nbBytes > 0)
+			stats.nbBytes.add(nbBytes);
+	}
+
+	/**
+	 * Record the time spent to get a database connection.
+	 *
+	 * @param duration	Waiting time (in microseconds).
+	 */
+	public void recordConnection(final long duration){
+		connectionDurations.record(duration);
+	}
+
+	/**
+	 * Record the upload of tables.
+	 *
+	 * @param nbRows	Number of uploaded rows.
+	 * @param duration	Duration of the upload (in microseconds).
+	 */
+	public void recordUpload(final long nbRows, final long duration){
+		if (nbRows <= 0)
+			return;
+		nbUploadedRows.add(nbRows);
+		uploadSpeeds.record((duration <= 0) ? nbRows * 1000000 : (long)(nbRows * 1000000.0 / duration));
+	}
+
+	/**
+	 * Get the durations (in microseconds) of the given execution step.
+	 *
+	 * @param stage	An execution step.
+	 *
+	 * @return	Its durations,
+	 *        	or NULL if the durations of this step are not recorded.
+	 */
+	public final Histogram getStageDurations(final ExecutionProgression stage){
+		for(int i = 0; i < STAGES.length; i++){
+			if (STAGES[i] == stage)
+				return stageDurations[i];
+		}
+		return null;
+	}
+
+	/**
+	 * Get the statistics of the given output format.
+	 *
+	 * @param format	Name of an output format.
+	 *
+	 * @return	Its statistics,
+	 *        	or NULL if no result has been written in this format.
+	 */
+	public final FormatMetrics getFormatMetrics(final String format){
+		return (format == null) ? null : formats.get(format);
+	}
+
+	/**
+	 * Get the statistics of all used output formats.
+	 *
+	 * @return	Statistics per format name, sorted by format name.
+	 */
+	public final Map<String, FormatMetrics> getFormatMetrics(){
+		return new TreeMap<String, FormatMetrics>(formats);
+	}
+
+	/**
+	 * Get the times (in microseconds) spent to get a database connection.
+	 *
+	 * @return	Connection waiting times.
+	 */
+	public final Histogram getConnectionDurations(){
+		return connectionDurations;
+	}
+
+	/**
+	 * Get the speeds (in rows per second) of all uploads.
+	 *
+	 * @return	Upload speeds.
+	 */
+	public final Histogram getUploadSpeeds(){
+		return uploadSpeeds;
+	}
+
+	/**
+	 * Get the total number of uploaded rows.
+	 *
+	 * @return	Number of uploaded rows.
+	 */
+	public final long getNbUploadedRows(){
+		return nbUploadedRows.sum();
+	}
+
+	/**
+	 * Get the number of running executions.
+	 *
+	 * @param synchronous	<i>true</i> to count synchronous executions,
+	 *                   	<i>false</i> to count asynchronous ones.
+	 *
+	 * @return	Number of running executions.
+	 */
+	public final long getNbRunningExecutions(final boolean synchronous){
+		return (synchronous ? nbRunningSync : nbRunningAsync).sum();
+	}
+
+	/**
+	 * Get the number of finished executions.
+	 *
+	 * @param success	<i>true</i> to count successful executions,
+	 *               	<i>false</i> to count failed or aborted ones.
+	 *
+	 * @return	Number of finished executions.
+	 */
+	public final long getNbExecutions(final boolean success){
+		return (success ? nbSuccesses : nbFailures).sum();
+	}
+
+	/**
+	 * Get the number of synchronous executions stopped because the HTTP client
+	 * disconnected.
+	 *
+	 * @return	Number of executions cancelled by a client disconnection.
+	 */
+	public final long getNbClientDisconnections(){
+		return nbClientDisconnections.sum();
+	}
+
+	/**
+	 * Statistics about the results written in one output format.
+	 *
+	 * @author Gr&eacute;gory Mantelet (CDS)
+	 * @version 2.4 (10/2026)
+	 * @since 2.4
+	 */
+	public final static class FormatMetrics {
+		/** Durations (in microseconds) of the result writing. */
+		private final Histogram durations = new Histogram();
+		/** Total number of written rows. */
+		private final LongAdder nbRows = new LongAdder();
+		/** Total number of written bytes. */
+		private final LongAdder nbBytes = new LongAdder();
+
+		/**
+		 * Get the durations (in microseconds) of the result writing.
+		 *
+		 * @return	Writing durations.
+		 */
+		public Histogram getDurations(){
+			return durations;
+		}
+
+		/**
+		 * Get the total number of written rows.
+		 *
+		 * @return	Number of rows.
+		 */
+		public long getNbRows(){
+			return nbRows.sum();
+		}
+
+		/**
+		 * Get the total number of written bytes.
+		 *
+		 * @return	Number of bytes.
+		 */
+		public long getNbBytes(){
+			return nbBytes.sum();
+		}
+	}
+
+}
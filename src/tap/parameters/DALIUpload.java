@@ -16,9 +16,12 @@ package tap.parameters;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  * 
- * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ * Copyright 2014-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ *                       Astronomisches Rechen Institut (ARI)
  */
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
@@ -29,11 +32,13 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import tap.TAPException;
 import tap.TAPJob;
+import tap.upload.UploadCache;
 import uws.UWSException;
 import uws.service.file.UWSFileManager;
 import uws.service.file.UnsupportedURIProtocolException;
@@ -95,8 +100,16 @@ import uws.service.request.UploadFile;
  * 	done by setting the second parameter of {@link #getDALIUploads(Map, boolean, UWSFileManager)} to <i>false</i>.
  * </i></p>
  * 
- * @author Gr&eacute;gory Mantelet (ARI)
- * @version 2.0 (12/2014)
+ * <h3>Prefetch of uploads by reference</h3>
+ * 
+ * <p>
+ * 	The content of an upload by reference can be downloaded in background, before the job execution, thanks to
+ * 	{@link #prefetch(UploadCache)}. Downloaded contents are kept in an {@link UploadCache} so that they can be
+ * 	reused by other jobs.
+ * </p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI;CDS)
+ * @version 2.4 (10/2026)
  * @since 2.0
  * 
  * @see RequestParser
@@ -129,6 +142,16 @@ public class DALIUpload {
 	 * unknown by the library (e.g. ivo, vos). */
 	protected final UWSFileManager fileManager;
 
+	/** Cache in which the distant content of this upload is downloaded.
+	 * <i>NULL if no cache is used.</i>
+	 * @since 2.4 */
+	protected UploadCache cache = null;
+
+	/** Download of the distant content of this upload, started by
+	 * {@link #prefetch(UploadCache)}. <i>NULL if not prefetched.</i>
+	 * @since 2.4 */
+	protected Future<File> prefetched = null;
+
 	/**
 	 * <p>Build a {@link DALIUpload} whose the content has been submitted inline in an HTTP request.</p>
 	 * 
@@ -190,21 +213,123 @@ public class DALIUpload {
 		return (file == null);
 	}
 
+	/**
+	 * <p>Start downloading in background the distant content of this upload into the given cache.</p>
+	 * 
+	 * <p>
+	 * 	This function should be called once the job has been accepted (i.e. when it is put in the execution queue)
+	 * 	so that the content is already available when the job is executed. Then, {@link #open()} will read the
+	 * 	downloaded content (waiting for the end of the download if needed). If the job is destroyed before,
+	 * 	the download should be given back with {@link #cancelPrefetch()}.
+	 * </p>
+	 * 
+	 * <p><i>Note:
+	 * 	Nothing is done if this upload is not by reference, if the given cache is NULL or if this upload has
+	 * 	already been prefetched.
+	 * </i></p>
+	 * 
+	 * @param uploadCache	The cache in which the content must be downloaded.
+	 * 
+	 * @see UploadCache#prefetch(URI, UWSFileManager)
+	 * 
+	 * @since 2.4
+	 */
+	public synchronized void prefetch(final UploadCache uploadCache){
+		if (isByReference() && uploadCache != null && prefetched == null){
+			cache = uploadCache;
+			prefetched = uploadCache.prefetch(uri, fileManager);
+		}
+	}
+
+	/**
+	 * <p>Give back the download started by {@link #prefetch(UploadCache)}, because the content of this upload
+	 * is not needed anymore (e.g. the job has been destroyed).</p>
+	 * 
+	 * <p><i>Note:
+	 * 	The download is cancelled only if no other upload is waiting for it (see {@link UploadCache#release(URI, Future)}).
+	 * 	Nothing is done if this upload has not been prefetched.
+	 * </i></p>
+	 * 
+	 * @since 2.4
+	 */
+	public synchronized void cancelPrefetch(){
+		if (prefetched != null){
+			cache.release(uri, prefetched);
+			prefetched = null;
+		}
+	}
+
 	/**
 	 * Open a stream to the content of this upload.
 	 * 
+	 * <p><i>Note:
+	 * 	If this upload has been prefetched (see {@link #prefetch(UploadCache)}), the downloaded content is read.
+	 * </i></p>
+	 * 
 	 * @return	An InputStream.
 	 * 
 	 * @throws UnsupportedURIProtocolException	If the URI of this upload item is using a protocol not supported by this service implementation.
 	 * @throws IOException				If the stream can not be opened.
 	 */
 	public InputStream open() throws UnsupportedURIProtocolException, IOException{
-		if (file == null)
-			return fileManager.openURI(uri);
-		else
+		if (file == null){
+			Future<File> download;
+			UploadCache uploadCache;
+			synchronized(this){
+				download = prefetched;
+				uploadCache = cache;
+			}
+			if (download != null){
+				File f = UploadCache.getFile(download);
+				if (f.exists())
+					return new FileInputStream(f);
+			}
+			// the prefetched file has been evicted from the cache (or no prefetch) => download it again:
+			if (uploadCache != null)
+				return uploadCache.open(uri, fileManager);
+			else
+				return fileManager.openURI(uri);
+		}else
 			return file.open();
 	}
 
+	/**
+	 * <p>Start downloading in background the distant content of all the given uploads.</p>
+	 * 
+	 * @param uploads		The uploads to prefetch. <i>Uploads which are not by reference are ignored.</i>
+	 * @param uploadCache	The cache in which contents must be downloaded. <i>If NULL, nothing is done.</i>
+	 * 
+	 * @see #prefetch(UploadCache)
+	 * 
+	 * @since 2.4
+	 */
+	public final static void prefetch(final List<DALIUpload> uploads, final UploadCache uploadCache){
+		if (uploads == null || uploadCache == null)
+			return;
+		for(DALIUpload upl : uploads){
+			if (upl != null)
+				upl.prefetch(uploadCache);
+		}
+	}
+
+	/**
+	 * <p>Give back the downloads of all the given uploads.</p>
+	 * 
+	 * @param uploads	The uploads whose the prefetch must be cancelled. <i>If NULL, nothing is done.</i>
+	 * 
+	 * @see #cancelPrefetch()
+	 * 
+	 * @since 2.4
+	 */
+	public final static void cancelPrefetch(final List<DALIUpload> uploads){
+		if (uploads == null)
+			return;
+		for(DALIUpload upl : uploads){
+			if (upl != null)
+				upl.cancelPrefetch();
+		}
+	}
+
 	@Override
 	public String toString(){
 		return label + "," + (file != null ? "param:" + file.paramName : uri.toString());
@@ -16,7 +16,7 @@ package tap.parameters;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  * 
- * Copyright 2012-2016 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -32,6 +32,7 @@ import javax.servlet.http.HttpServletRequest;
 import tap.ServiceConnection;
 import tap.TAPException;
 import tap.TAPJob;
+import tap.upload.UploadCache;
 import uws.UWSException;
 import uws.job.parameters.InputParamController;
 import uws.job.parameters.StringParamController;
@@ -42,7 +43,7 @@ import uws.job.parameters.UWSParameters;
  * submitted by a TAP client to this TAP service.
  * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.1 (04/2017)
+ * @version 2.4 (10/2026)
  */
 public class TAPParameters extends UWSParameters {
 
@@ -275,6 +276,39 @@ public class TAPParameters extends UWSParameters {
 		return (DALIUpload[])get(TAPJob.PARAM_UPLOAD);
 	}
 
+	/**
+	 * Start downloading in background all tables uploaded by reference.
+	 * 
+	 * <p><i>Note:
+	 * 	This function should be called only once the job has been accepted (i.e. when it is queued or
+	 * 	executed), so that no download is started for a request which will never be executed.
+	 * </i></p>
+	 * 
+	 * @param uploadCache	The cache in which contents must be downloaded. <i>If NULL, nothing is done.</i>
+	 * 
+	 * @see DALIUpload#prefetch(List, UploadCache)
+	 * 
+	 * @since 2.4
+	 */
+	public void prefetchUploads(final UploadCache uploadCache){
+		DALIUpload[] uploads = getUploadedTables();
+		if (uploads != null)
+			DALIUpload.prefetch(Arrays.asList(uploads), uploadCache);
+	}
+
+	/**
+	 * Give back the downloads started by {@link #prefetchUploads(UploadCache)} (e.g. because the job has been destroyed).
+	 * 
+	 * @see DALIUpload#cancelPrefetch(List)
+	 * 
+	 * @since 2.4
+	 */
+	public void cancelPrefetchUploads(){
+		DALIUpload[] uploads = getUploadedTables();
+		if (uploads != null)
+			DALIUpload.cancelPrefetch(Arrays.asList(uploads));
+	}
+
 	/**
 	 * Get the value of the standard TAP parameter "MAX_REC".
 	 * This value is the maximum number of rows that the result of the query must contain.
@@ -16,10 +16,11 @@ package tap.resource;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2012-2021 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
+import tap.QueryLimits;
 import tap.ServiceConnection;
 import tap.TAPException;
 import tap.TAPJob;
@@ -41,6 +42,8 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * <p>Asynchronous resource of a TAP service.</p>
@@ -73,7 +76,7 @@ import java.net.URL;
  * </ul>
  *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.4 (11/2021)
+ * @version 2.4 (10/2026)
  *
  * @see UWSService
  */
@@ -214,7 +217,7 @@ public class ASync implements TAPResource {
 	 * when no more DB connection is available for the moment.
 	 *
 	 * @author Gr&eacute;gory Mantelet (CDS;ARI)
-	 * @version 2.0 (02/2015)
+	 * @version 2.4 (10/2026)
 	 * @since 2.0
 	 */
 	private class AsyncExecutionManager extends AbstractQueuedExecutionManager {
@@ -222,6 +225,10 @@ public class ASync implements TAPResource {
 		/** The maximum number of running jobs. */
 		protected int nbMaxRunningJobs = QueuedExecutionManager.NO_QUEUE;
 
+		/** Number of times each queued job has been overtaken by a cheaper job.
+		 * @since 2.4 */
+		protected final Map<UWSJob, Integer> nbOvertakes = new HashMap<UWSJob, Integer>();
+
 		/**
 		 * Build a queuing execution manager.
 		 *
@@ -241,6 +248,51 @@ public class ASync implements TAPResource {
 				return (runningJobs.size() < nbMaxRunningJobs) && ((TAPJob)jobToExecute).isReadyForExecution();
 		}
 
+		/**
+		 * Put the cheapest jobs first if the service asks to order the queue by
+		 * estimated cost (see {@link QueryLimits#isQueueOrderedByCost()}).
+		 *
+		 * <p>
+		 * 	The cost has already been estimated (see {@link TAPJob#estimateCost()})
+		 * 	before the job is given to this manager: it is only read here, so that
+		 * 	no query is parsed and no database connection is used while this
+		 * 	manager is locked. The position in the queue is then given by
+		 * 	{@link QueryLimits#getQueuePosition(double, double[], int[])}, which
+		 * 	bounds the number of times a queued job can be overtaken. A job whose
+		 * 	the cost is unknown is put at the end.
+		 * </p>
+		 *
+		 * @since 2.4
+		 */
+		@Override
+		protected int getQueuePosition(final UWSJob jobToQueue) {
+			final QueryLimits limits = service.getQueryLimits();
+			if (!hasQueue() || limits == null || !limits.isQueueOrderedByCost())
+				return queuedJobs.size();
+
+			// If the job can be started right now, its position does not matter:
+			if (queuedJobs.isEmpty() && runningJobs.size() < nbMaxRunningJobs)
+				return 0;
+
+			// Forget the jobs which are not queued any more:
+			nbOvertakes.keySet().retainAll(queuedJobs);
+
+			// Find the position of the job:
+			final double[] queuedCosts = new double[queuedJobs.size()];
+			final int[] queuedOvertakes = new int[queuedJobs.size()];
+			for(int i = 0; i < queuedCosts.length; i++) {
+				queuedCosts[i] = ((TAPJob)queuedJobs.get(i)).getEstimatedCost();
+				queuedOvertakes[i] = nbOvertakes.containsKey(queuedJobs.get(i)) ? nbOvertakes.get(queuedJobs.get(i)) : 0;
+			}
+			final int position = limits.getQueuePosition(((TAPJob)jobToQueue).getEstimatedCost(), queuedCosts, queuedOvertakes);
+
+			// Count the overtaking of all the following jobs:
+			for(int i = position; i < queuedCosts.length; i++)
+				nbOvertakes.put(queuedJobs.get(i), queuedOvertakes[i] + 1);
+
+			return position;
+		}
+
 	}
 
 }
@@ -0,0 +1,284 @@
+package tap.resource;
+
+/*
+ * This file is part of TAPLibrary.
+ *
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Iterator;
+import java.util.Map;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import tap.ExecutionProgression;
+import tap.ServiceConnection;
+import tap.TAPException;
+import tap.cache.ParsedQueryCache;
+import tap.cache.ResultCache;
+import tap.metrics.Histogram;
+import tap.metrics.TAPMetrics;
+import uws.UWSToolBox;
+import uws.job.JobList;
+import uws.service.UWSService;
+import uws.service.actions.JobSummary;
+import uws.service.wait.AsyncWaitObserver;
+
+/**
+ * TAP resource exposing the statistics of the TAP service in the text
+ * format of <a href="https://prometheus.io/docs/instrumenting/exposition_formats/">Prometheus</a>.
+ *
+ * <p>The following metrics are written:</p>
+ * <ul>
+ * 	<li>all statistics recorded in {@link ServiceConnection#getMetrics()}
+ * 		<i>(if any)</i>: executions, durations per execution step and per
+ * 		output format, written rows and bytes, database connection waiting
+ * 		time and upload speed,</li>
+ * 	<li>hits and misses of the parsed query cache and of the result cache
+ * 		<i>(if any)</i>,</li>
+ * 	<li>for each job list of /async: the number of queued and running jobs,
+ * 		and the number of jobs waiting for their destruction,</li>
+ * 	<li>the number of requests waiting for a job phase change (parameter
+ * 		WAIT).</li>
+ * </ul>
+ *
+ * <p>
+ * 	Durations are written as histograms in seconds, with one bucket per
+ * 	power of 2 microseconds (from 128&micro;s to about 9.5 hours).
+ * </p>
+ *
+ * <p><i>Note:
+ * 	This resource is automatically added to the TAP service if
+ * 	{@link ServiceConnection#getMetrics()} does not return NULL.
+ * </i></p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 2.4 (10/2026)
+ * @since 2.4
+ */
+public class Metrics implements TAPResource {
+
+	/** Name of this TAP resource. */
+	public static final String RESOURCE_NAME = "metrics";
+
+	/** MIME type of the Prometheus text format. */
+	public static final String MIME_TYPE = "text/plain; version=0.0.4";
+
+	/** Exponent of the smallest power of 2 used as histogram bucket for durations (in microseconds). */
+	private final static int MIN_DURATION_EXP = 7;
+
+	/** Exponent of the biggest power of 2 used as histogram bucket for durations (in microseconds). */
+	private final static int MAX_DURATION_EXP = 35;
+
+	/** Exponent of the biggest power of 2 used as histogram bucket for upload speeds (in rows per second). */
+	private final static int MAX_SPEED_EXP = 24;
+
+	/** The TAP service owning this resource. */
+	protected final TAP tap;
+
+	/**
+	 * Build a "metrics" resource.
+	 *
+	 * @param tap	The TAP service which will own this resource.
+	 */
+	public Metrics(final TAP tap){
+		this.tap = tap;
+	}
+
+	@Override
+	public void setTAPBaseURL(final String baseURL){
+		;
+	}
+
+	@Override
+	public final String getName(){
+		return RESOURCE_NAME;
+	}
+
+	@Override
+	public void init(final ServletConfig config) throws ServletException{
+		;
+	}
+
+	@Override
+	public void destroy(){
+		;
+	}
+
+	@Override
+	public boolean executeResource(final HttpServletRequest request, final HttpServletResponse response) throws IOException, TAPException{
+		if (!request.getMethod().equalsIgnoreCase("GET"))
+			throw new TAPException("The METRICS resource is only accessible in HTTP-GET!", HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+
+		response.setContentType(MIME_TYPE);
+		response.setCharacterEncoding(UWSToolBox.DEFAULT_CHAR_ENCODING);
+
+		PrintWriter pw = response.getWriter();
+		writeMetrics(pw);
+		pw.flush();
+
+		return true;
+	}
+
+	/**
+	 * Write all the metrics in the Prometheus text format.
+	 *
+	 * @param out	Where metrics must be written.
+	 */
+	public void writeMetrics(final PrintWriter out){
+		final ServiceConnection service = tap.getServiceConnection();
+
+		// Statistics about the executions:
+		TAPMetrics metrics = service.getMetrics();
+		if (metrics != null){
+			writeHeader(out, "tap_executions_running", "gauge", "Number of running ADQL query executions.");
+			out.println("tap_executions_running{mode=\"sync\"} " + metrics.getNbRunningExecutions(true));
+			out.println("tap_executions_running{mode=\"async\"} " + metrics.getNbRunningExecutions(false));
+
+			writeHeader(out, "tap_executions_total", "counter", "Number of finished ADQL query executions.");
+			out.println("tap_executions_total{status=\"success\"} " + metrics.getNbExecutions(true));
+			out.println("tap_executions_total{status=\"error\"} " + metrics.getNbExecutions(false));
+
+			writeHeader(out, "tap_sync_client_disconnections_total", "counter", "Number of synchronous executions stopped because the HTTP client disconnected.");
+			out.println("tap_sync_client_disconnections_total " + metrics.getNbClientDisconnections());
+
+			writeHeader(out, "tap_stage_duration_seconds", "histogram", "Duration of each step of the ADQL query executions.");
+			for(ExecutionProgression stage : TAPMetrics.STAGES)
+				writeHistogram(out, "tap_stage_duration_seconds", "stage=\"" + stage.name().toLowerCase() + "\"", metrics.getStageDurations(stage), MIN_DURATION_EXP, MAX_DURATION_EXP, 1e6);
+
+			Map<String, TAPMetrics.FormatMetrics> formats = metrics.getFormatMetrics();
+			writeHeader(out, "tap_result_duration_seconds", "histogram", "Duration of the result writing, per output format.");
+			for(Map.Entry<String, TAPMetrics.FormatMetrics> format : formats.entrySet())
+				writeHistogram(out, "tap_result_duration_seconds", "format=\"" + escape(format.getKey()) + "\"", format.getValue().getDurations(), MIN_DURATION_EXP, MAX_DURATION_EXP, 1e6);
+			writeHeader(out, "tap_result_rows_total", "counter", "Number of written result rows, per output format.");
+			for(Map.Entry<String, TAPMetrics.FormatMetrics> format : formats.entrySet())
+				out.println("tap_result_rows_total{format=\"" + escape(format.getKey()) + "\"} " + format.getValue().getNbRows());
+			writeHeader(out, "tap_result_bytes_total", "counter", "Number of written result bytes, per output format.");
+			for(Map.Entry<String, TAPMetrics.FormatMetrics> format : formats.entrySet())
+				out.println("tap_result_bytes_total{format=\"" + escape(format.getKey()) + "\"} " + format.getValue().getNbBytes());
+
+			writeHeader(out, "tap_db_connection_acquire_seconds", "histogram", "Time spent to get a database connection.");
+			writeHistogram(out, "tap_db_connection_acquire_seconds", null, metrics.getConnectionDurations(), MIN_DURATION_EXP, MAX_DURATION_EXP, 1e6);
+
+			writeHeader(out, "tap_upload_rows_total", "counter", "Number of uploaded rows.");
+			out.println("tap_upload_rows_total " + metrics.getNbUploadedRows());
+			writeHeader(out, "tap_upload_rows_per_second", "histogram", "Speed of the uploads.");
+			writeHistogram(out, "tap_upload_rows_per_second", null, metrics.getUploadSpeeds(), 0, MAX_SPEED_EXP, 1);
+		}
+
+		// Statistics about the caches:
+		ParsedQueryCache queryCache = service.getParsedQueryCache();
+		ResultCache resultCache = service.getResultCache();
+		if (queryCache != null || resultCache != null){
+			writeHeader(out, "tap_cache_hits_total", "counter", "Number of items found in cache.");
+			if (queryCache != null)
+				out.println("tap_cache_hits_total{cache=\"parsed_query\"} " + queryCache.getNbHits());
+			if (resultCache != null)
+				out.println("tap_cache_hits_total{cache=\"result\"} " + resultCache.getNbHits());
+			writeHeader(out, "tap_cache_misses_total", "counter", "Number of items not found in cache.");
+			if (queryCache != null)
+				out.println("tap_cache_misses_total{cache=\"parsed_query\"} " + queryCache.getNbMisses());
+			if (resultCache != null)
+				out.println("tap_cache_misses_total{cache=\"result\"} " + resultCache.getNbMisses());
+			if (resultCache != null && resultCache.isCoalescing()){
+				writeHeader(out, "tap_result_coalesced_total", "counter", "Number of query executions which have waited for the result of an identical query.");
+				out.println("tap_result_coalesced_total " + resultCache.getNbCoalesced());
+			}
+		}
+
+		// Jobs of /async:
+		UWSService uws = tap.getUWS();
+		if (uws != null){
+			writeHeader(out, "uws_jobs_queued", "gauge", "Number of queued jobs.");
+			for(Iterator<JobList> it = uws.iterator(); it.hasNext();){
+				JobList jobs = it.next();
+				out.println("uws_jobs_queued{job_list=\"" + escape(jobs.getName()) + "\"} " + jobs.getExecutionManager().getNbQueuedJobs());
+			}
+			writeHeader(out, "uws_jobs_running", "gauge", "Number of running jobs.");
+			for(Iterator<JobList> it = uws.iterator(); it.hasNext();){
+				JobList jobs = it.next();
+				out.println("uws_jobs_running{job_list=\"" + escape(jobs.getName()) + "\"} " + jobs.getExecutionManager().getNbRunningJobs());
+			}
+			writeHeader(out, "uws_jobs_to_destroy", "gauge", "Number of jobs waiting for their destruction.");
+			for(Iterator<JobList> it = uws.iterator(); it.hasNext();){
+				JobList jobs = it.next();
+				if (jobs.getDestructionManager() != null)
+					out.println("uws_jobs_to_destroy{job_list=\"" + escape(jobs.getName()) + "\"} " + jobs.getDestructionManager().getNbJobsToDestroy());
+			}
+		}
+
+		// Requests waiting for a job phase change:
+		writeHeader(out, "uws_wait_blocked_threads", "gauge", "Number of threads blocked by a WAIT request.");
+		out.println("uws_wait_blocked_threads " + JobSummary.getNbBlockedThreads());
+		writeHeader(out, "uws_wait_async_requests", "gauge", "Number of WAIT requests waiting without blocking any thread.");
+		out.println("uws_wait_async_requests " + AsyncWaitObserver.getNbWaitingRequests());
+	}
+
+	/**
+	 * Write the HELP and TYPE lines of a metric.
+	 *
+	 * @param out	Where to write.
+	 * @param name	Name of the metric.
+	 * @param type	Type of the metric (counter, gauge or histogram).
+	 * @param help	Description of the metric.
+	 */
+	protected static void writeHeader(final PrintWriter out, final String name, final String type, final String help){
+		out.println("# HELP " + name + " " + help);
+		out.println("# TYPE " + name + " " + type);
+	}
+
+	/**
+	 * Write the given histogram, with one bucket per power of 2 between the
+	 * given exponents.
+	 *
+	 * @param out		Where to write.
+	 * @param name		Name of the metric.
+	 * @param labels	Labels of the histogram (e.g. <code>format="csv"</code>).
+	 *              	<i>May be NULL.</i>
+	 * @param histogram	The histogram to write.
+	 * @param minExp	Exponent of the smallest bucket bound.
+	 * @param maxExp	Exponent of the biggest bucket bound.
+	 * @param unit		Divisor to apply to recorded values (e.g. 1e6 to
+	 *            		convert microseconds into seconds).
+	 */
+	protected static void writeHistogram(final PrintWriter out, final String name, final String labels, final Histogram histogram, final int minExp, final int maxExp, final double unit){
+		final String prefix = name + "_bucket{" + ((labels == null) ? "" : labels + ",") + "le=\"";
+		for(int exp = minExp; exp <= maxExp; exp++)
+			out.println(prefix + ((1L << exp) / unit) + "\"} " + histogram.getCountAtMost(1L << exp));
+		final long count = histogram.getCount();
+		out.println(prefix + "+Inf\"} " + count);
+		final String suffix = (labels == null) ? " " : "{" + labels + "} ";
+		out.println(name + "_sum" + suffix + (histogram.getSum() / unit));
+		out.println(name + "_count" + suffix + count);
+	}
+
+	/**
+	 * Escape the given label value.
+	 *
+	 * @param value	Label value.
+	 *
+	 * @return	The escaped value.
+	 */
+	protected static String escape(final String value){
+		return (value == null) ? "" : value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+}
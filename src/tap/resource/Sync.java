@@ -16,7 +16,7 @@ package tap.resource;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  * 
- * Copyright 2012-2016 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -45,7 +45,7 @@ import uws.service.UWS;
  * </p>
  * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.1 (01/2016)
+ * @version 2.4 (10/2026)
  */
 public class Sync implements TAPResource {
 
@@ -112,11 +112,33 @@ public class Sync implements TAPResource {
 			requestID = (String)request.getAttribute(UWS.REQ_ATTRIBUTE_ID);
 
 		// Execute synchronously the given job:
-		TAPSyncJob syncJob = new TAPSyncJob(service, params, requestID);
-		syncJob.start(response);
+		TAPSyncJob syncJob = createSyncJob(params, requestID);
+		syncJob.start(request, response);
 
 		return true;
 
 	}
 
+	/**
+	 * Create the synchronous job which will execute the given query.
+	 *
+	 * <p>
+	 * 	This function can be overwritten in order to use an extension of {@link TAPSyncJob}
+	 * 	(e.g. with a probe of the HTTP client connection specific to the servlet container,
+	 * 	see {@link TAPSyncJob#isClientDisconnected(HttpServletRequest, HttpServletResponse)}).
+	 * </p>
+	 *
+	 * @param params	Parameters of the query to execute.
+	 * @param requestID	ID of the HTTP request which asked for this execution. <i>May be NULL.</i>
+	 *
+	 * @return	The synchronous job to start.
+	 *
+	 * @throws TAPException	If the job can not be created.
+	 *
+	 * @since 2.4
+	 */
+	protected TAPSyncJob createSyncJob(final TAPParameters params, final String requestID) throws TAPException{
+		return new TAPSyncJob(service, params, requestID);
+	}
+
 }
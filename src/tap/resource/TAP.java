@@ -16,7 +16,7 @@ package tap.resource;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2012-2022 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -25,6 +25,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -35,6 +36,7 @@ import adql.db.FunctionDef;
 import tap.ServiceConnection;
 import tap.ServiceConnection.LimitUnit;
 import tap.TAPException;
+import tap.TAPSyncJob;
 import tap.error.DefaultTAPErrorWriter;
 import tap.formatter.OutputFormat;
 import tap.log.TAPLog;
@@ -60,7 +62,7 @@ import uws.service.log.UWSLog.LogLevel;
  * </p>
  *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.3 (04/2022)
+ * @version 2.4 (10/2026)
  */
 public class TAP implements VOSIResource {
 
@@ -216,6 +218,12 @@ public class TAP implements VOSIResource {
 		TAPMetadata metadata = service.getTAPMetadata();
 		resources.put(metadata.getName(), metadata);
 
+		// Expose the execution statistics, if recorded:
+		if (service.getMetrics() != null){
+			res = new Metrics(this);
+			resources.put(res.getName(), res);
+		}
+
 		// If a custom Base URL is provided, share it with all TAP resources:
 		if (service.getBaseUrl() != null)
 			setTAPBaseURL(service.getBaseUrl().toString());
@@ -261,6 +269,10 @@ public class TAP implements VOSIResource {
 		for(TAPResource res : resources.values())
 			res.destroy();
 
+		// Stop the threads executing partitions, if any:
+		if (service.getPartitionExecutor() != null)
+			service.getPartitionExecutor().close();
+
 		// Destroy also all resources allocated in the factory:
 		service.getFactory().destroy();
 
@@ -965,6 +977,14 @@ public class TAP implements VOSIResource {
 	 * 	Besides, every requests and their response are logged as INFO with this ID.
 	 * </p>
 	 *
+	 * <h3>Synchronous queries</h3>
+	 * <p>
+	 * 	When the servlet supports it, a request to the resource /sync is put in asynchronous mode
+	 * 	({@link HttpServletRequest#startAsync(javax.servlet.ServletRequest, javax.servlet.ServletResponse)}) and processed
+	 * 	in another thread. The container is then able to report the disconnection of the HTTP client, which stops the query
+	 * 	(see {@link TAPSyncJob.DisconnectionListener}).
+	 * </p>
+	 *
 	 * @param request	Request of the user to execute in this TAP service.
 	 * @param response	Object in which the result of the request must be written.
 	 *
@@ -996,6 +1016,53 @@ public class TAP implements VOSIResource {
 			getLogger().logUWS(LogLevel.INFO, this, "INIT", "TAP successfully initialized (" + tapBaseURL + ").", null);
 		}
 
+		/* Execute a synchronous query outside of the container thread, so that
+		 * the container can report a disconnection of the HTTP client (see
+		 * TAPSyncJob.DisconnectionListener): */
+		if (resourceName.equalsIgnoreCase(Sync.RESOURCE_NAME) && request.isAsyncSupported() && !request.isAsyncStarted()){
+			final AsyncContext context = request.startAsync(request, response);
+			// (the execution duration is already limited by the synchronous job)
+			context.setTimeout(0);
+			context.addListener(new TAPSyncJob.DisconnectionListener());
+			final String syncResourceName = resourceName;
+			context.start(new Runnable(){
+				@Override
+				public void run(){
+					try{
+						processRequest(request, response, reqID, syncResourceName);
+					}finally{
+						try{
+							context.complete();
+						}catch(IllegalStateException ise){
+							// already completed by the container (e.g. after a client disconnection)
+						}
+					}
+				}
+			});
+		}else
+			processRequest(request, response, reqID, resourceName);
+	}
+
+	/**
+	 * <p>Forward the given request to the appropriate resource, and write any error in the response.</p>
+	 *
+	 * <p>
+	 * 	This function is called by {@link #executeRequest(HttpServletRequest, HttpServletResponse)}, either in the
+	 * 	container thread or, for a synchronous query, in a thread of the asynchronous context of the request.
+	 * </p>
+	 *
+	 * @param request		Request of the user to execute in this TAP service.
+	 * @param response		Object in which the result of the request must be written.
+	 * @param reqID			ID of the request (for log purpose only).
+	 * @param resource		Name of the asked resource. <i>Empty for the home page.</i>
+	 *
+	 * @since 2.4
+	 */
+	protected void processRequest(final HttpServletRequest request, final HttpServletResponse response, final String reqID, final String resource){
+		String resourceName = resource;
+		// (true if the request is already asynchronous, as a synchronous query)
+		final boolean asyncRequest = request.isAsyncStarted();
+
 		JobOwner user = null;
 		try{
 			// Identify the user:
@@ -1035,7 +1102,10 @@ public class TAP implements VOSIResource {
 					throw new TAPException("Unknown TAP resource: \"" + resourceName + "\"!", UWSException.NOT_IMPLEMENTED);
 			}
 
-			response.flushBuffer();
+			/* note: the response of a request which became asynchronous (e.g.
+			 *       a WAIT on a job) is written and flushed later: */
+			if (asyncRequest || !request.isAsyncStarted())
+				response.flushBuffer();
 
 			// Log the successful execution of the action, only if the asked resource is not UWS (because UWS is already logging the received request):
 			if (!resourceName.equalsIgnoreCase(ASync.RESOURCE_NAME))
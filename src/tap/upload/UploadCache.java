@@ -0,0 +1,707 @@
+package tap.upload;
+
+/*
+ * This file is part of TAPLibrary.
+ *
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import tap.parameters.DALIUpload;
+import uws.service.file.UWSFileManager;
+import uws.service.file.UnsupportedURIProtocolException;
+
+/**
+ * Local cache of the tables uploaded by reference (i.e. DALI uploads whose
+ * the content is specified by a URI, e.g. <code>UPLOAD=t,http://...</code>).
+ *
+ * <h3>Prefetch</h3>
+ * <p>
+ * 	The content of a distant table can be downloaded in background with
+ * 	{@link #prefetch(URI, UWSFileManager)} (generally called when the job is
+ * 	put in the execution queue ; see {@link DALIUpload#prefetch(UploadCache)}).
+ * 	Several downloads are run concurrently by a pool of {@link #getNbThreads()}
+ * 	threads. If the same URI is asked several times while its download is
+ * 	still running, the same download is shared.
+ * </p>
+ * <p>
+ * 	An upload which does not need its download anymore (e.g. its job has been
+ * 	destroyed) should give it back with {@link #release(URI, Future)}. The
+ * 	download is cancelled only when no other upload is waiting for it.
+ * </p>
+ *
+ * <h3>Cache entries</h3>
+ * <p>
+ * 	Each downloaded content is stored in a file of the cache directory. Its
+ * 	name is the SHA-256 hash of the URI and of the HTTP validators returned
+ * 	by the distant server (i.e. <code>ETag</code> and
+ * 	<code>Last-Modified</code>). These validators are asked with an HTTP
+ * 	<code>HEAD</code> request. When the same URI is asked again, this request
+ * 	is conditional (<code>If-None-Match</code> and/or
+ * 	<code>If-Modified-Since</code>). If the server answers that the content
+ * 	did not change (HTTP-304), the cached file is used.
+ * </p>
+ * <p>
+ * 	Contents are always downloaded with
+ * 	{@link UWSFileManager#openURI(URI)}. So, the file manager still decides
+ * 	which URIs can be opened, and a cached file is only reused for a URI
+ * 	already accepted by the file manager.
+ * </p>
+ * <p>
+ * 	Only HTTP(S) contents having at least one validator can be reused by
+ * 	another upload. Other contents (e.g. URI with a scheme only supported by
+ * 	the {@link UWSFileManager}) are still downloaded in the cache directory,
+ * 	but only for the upload which asked for them.
+ * </p>
+ *
+ * <h3>Eviction</h3>
+ * <p>
+ * 	The total size of the cached files is limited to {@link #getMaxSize()}
+ * 	bytes. When exceeded, the least recently used entries are deleted.
+ * </p>
+ * <p>
+ * 	The size of each download can also be limited with
+ * 	{@link #setMaxFileSize(long)} (e.g. to the upload limit of the TAP
+ * 	service). A download exceeding this limit is aborted and its partial
+ * 	file deleted.
+ * </p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 2.4 (10/2026)
+ * @since 2.4
+ */
+public class UploadCache {
+
+	/** Default number of threads downloading uploads by reference. */
+	public final static int DEFAULT_NB_THREADS = 4;
+
+	/** Directory in which all cached files are stored. */
+	protected final File directory;
+
+	/** Maximum total size (in bytes) of all cached files. */
+	protected final long maxSize;
+
+	/** Maximum size (in bytes) of one downloaded content.
+	 * <i>A negative or null value means "unlimited".</i> */
+	protected volatile long maxFileSize = -1;
+
+	/** Number of threads downloading distant contents. */
+	protected final int nbThreads;
+
+	/** Pool of threads downloading distant contents. */
+	protected final ExecutorService executor;
+
+	/** All cached entries, sorted from the least recently used to the most
+	 * recently used one. Keys are the entries' keys (i.e. SHA-256 hashes). */
+	protected final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+	/** Last reusable entry for each URI. */
+	protected final Map<String, Entry> lastEntries = new HashMap<String, Entry>();
+
+	/** Downloads currently running, for each URI. */
+	protected final Map<String, Future<File>> inProgress = new HashMap<String, Future<File>>();
+
+	/** Number of uploads waiting for each running download (see
+	 * {@link #inProgress}). */
+	protected final Map<String, Integer> nbRequesters = new HashMap<String, Integer>();
+
+	/** Total size (in bytes) of all cached files. */
+	protected long totalSize = 0;
+
+	/** Number of times a cached file has been reused. */
+	protected long nbHits = 0;
+
+	/** Number of times a content had to be downloaded. */
+	protected long nbMisses = 0;
+
+	/** Counter used to build unique names for temporary files. */
+	private long tmpCounter = 0;
+
+	/**
+	 * Create a cache of uploads by reference with {@link #DEFAULT_NB_THREADS}
+	 * download threads.
+	 *
+	 * @param directory	Directory in which cached files must be stored.
+	 * @param maxSize	Maximum total size (in bytes) of all cached files.
+	 *
+	 * @throws NullPointerException		If the given directory is NULL.
+	 * @throws IllegalArgumentException	If the given directory can not be
+	 *                                 	created or is not writable.
+	 */
+	public UploadCache(final File directory, final long maxSize) throws NullPointerException, IllegalArgumentException{
+		this(directory, maxSize, DEFAULT_NB_THREADS);
+	}
+
+	/**
+	 * Create a cache of uploads by reference.
+	 *
+	 * @param directory	Directory in which cached files must be stored.
+	 * @param maxSize	Maximum total size (in bytes) of all cached files.
+	 *               	<i>If &le;0, nothing will be kept after use.</i>
+	 * @param nbThreads	Maximum number of concurrent downloads.
+	 *                 	<i>If &le;0, {@link #DEFAULT_NB_THREADS} is used.</i>
+	 *
+	 * @throws NullPointerException		If the given directory is NULL.
+	 * @throws IllegalArgumentException	If the given directory can not be
+	 *                                 	created or is not writable.
+	 */
+	public UploadCache(final File directory, final long maxSize, final int nbThreads) throws NullPointerException, IllegalArgumentException{
+		if (directory == null)
+			throw new NullPointerException("Missing cache directory!");
+		else if (!directory.exists() && !directory.mkdirs())
+			throw new IllegalArgumentException("Impossible to create the upload cache directory \"" + directory.getAbsolutePath() + "\"!");
+		else if (!directory.isDirectory() || !directory.canWrite())
+			throw new IllegalArgumentException("The upload cache location \"" + directory.getAbsolutePath() + "\" is not a writable directory!");
+
+		this.directory = directory;
+		this.maxSize = Math.max(0, maxSize);
+		this.nbThreads = (nbThreads <= 0) ? DEFAULT_NB_THREADS : nbThreads;
+		this.executor = Executors.newFixedThreadPool(this.nbThreads, new ThreadFactory(){
+			private int cnt = 0;
+
+			@Override
+			public Thread newThread(final Runnable r){
+				Thread t = new Thread(r, "UploadCache-" + (++cnt));
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	/**
+	 * Get the directory in which cached files are stored.
+	 *
+	 * @return	The cache directory.
+	 */
+	public final File getDirectory(){
+		return directory;
+	}
+
+	/**
+	 * Get the maximum total size (in bytes) of all cached files.
+	 *
+	 * @return	Maximum cache size.
+	 */
+	public final long getMaxSize(){
+		return maxSize;
+	}
+
+	/**
+	 * Get the maximum size (in bytes) of one downloaded content.
+	 *
+	 * @return	Maximum size of a download,
+	 *        	or a negative or null value if unlimited.
+	 */
+	public final long getMaxFileSize(){
+		return maxFileSize;
+	}
+
+	/**
+	 * Set the maximum size (in bytes) of one downloaded content.
+	 *
+	 * <p>
+	 * 	A download exceeding this limit is aborted (with an
+	 * 	{@link ExceededSizeException}) and its partial file is deleted.
+	 * </p>
+	 *
+	 * @param maxFileSize	Maximum size of a download.
+	 *                   	<i>A negative or null value means "unlimited".</i>
+	 */
+	public final void setMaxFileSize(final long maxFileSize){
+		this.maxFileSize = maxFileSize;
+	}
+
+	/**
+	 * Get the maximum number of concurrent downloads.
+	 *
+	 * @return	Number of download threads.
+	 */
+	public final int getNbThreads(){
+		return nbThreads;
+	}
+
+	/**
+	 * Get the current total size (in bytes) of all cached files.
+	 *
+	 * @return	Current cache size.
+	 */
+	public synchronized long getSize(){
+		return totalSize;
+	}
+
+	/**
+	 * Get the number of cached files.
+	 *
+	 * @return	Number of cache entries.
+	 */
+	public synchronized int getNbEntries(){
+		return entries.size();
+	}
+
+	/**
+	 * Get the number of times a cached content has been reused instead of
+	 * being downloaded again.
+	 *
+	 * @return	Number of cache hits.
+	 */
+	public synchronized long getNbHits(){
+		return nbHits;
+	}
+
+	/**
+	 * Get the number of times a content had to be downloaded.
+	 *
+	 * @return	Number of cache misses.
+	 */
+	public synchronized long getNbMisses(){
+		return nbMisses;
+	}
+
+	/**
+	 * Start downloading (in background) the content of the given URI.
+	 *
+	 * <p><i><b>Note:</b>
+	 * 	If a download of the same URI is already running, no new download is
+	 * 	started: the running one is returned.
+	 * </i></p>
+	 *
+	 * <p><i><b>Note:</b>
+	 * 	If the returned download is not needed anymore before its end, it
+	 * 	should be given back with {@link #release(URI, Future)}.
+	 * </i></p>
+	 *
+	 * @param uri			URI of the content to download.
+	 * @param fileManager	File manager to use in order to open URIs.
+	 *
+	 * @return	The running download. Once completed, it provides the local
+	 *        	file containing the downloaded content.
+	 */
+	public synchronized Future<File> prefetch(final URI uri, final UWSFileManager fileManager){
+		final String uriStr = uri.toString();
+		Future<File> download = inProgress.get(uriStr);
+		if (download == null){
+			download = executor.submit(new Callable<File>(){
+				@Override
+				public File call() throws Exception{
+					try{
+						return fetch(uri, fileManager);
+					}finally{
+						synchronized(UploadCache.this){
+							inProgress.remove(uriStr);
+							nbRequesters.remove(uriStr);
+						}
+					}
+				}
+			});
+			inProgress.put(uriStr, download);
+			nbRequesters.put(uriStr, 1);
+		}else
+			nbRequesters.put(uriStr, nbRequesters.get(uriStr) + 1);
+		return download;
+	}
+
+	/**
+	 * Give back a download returned by {@link #prefetch(URI, UWSFileManager)}
+	 * and not needed anymore.
+	 *
+	 * <p>
+	 * 	If no other upload is waiting for it, the download is cancelled (and
+	 * 	its partial file deleted).
+	 * </p>
+	 *
+	 * <p><i><b>Note:</b>
+	 * 	Nothing is done if this download is already completed.
+	 * </i></p>
+	 *
+	 * @param uri		URI of the downloaded content.
+	 * @param download	The download to give back.
+	 */
+	public synchronized void release(final URI uri, final Future<File> download){
+		final String uriStr = uri.toString();
+		if (download == null || inProgress.get(uriStr) != download)
+			return;
+		int nb = nbRequesters.get(uriStr) - 1;
+		if (nb > 0)
+			nbRequesters.put(uriStr, nb);
+		else{
+			inProgress.remove(uriStr);
+			nbRequesters.remove(uriStr);
+			download.cancel(true);
+		}
+	}
+
+	/**
+	 * Open a stream toward the content of the given URI, using the cache when
+	 * possible.
+	 *
+	 * <p><i><b>Note:</b>
+	 * 	If this URI is being prefetched, this function waits for the end of
+	 * 	the download.
+	 * </i></p>
+	 *
+	 * @param uri			URI of the content to read.
+	 * @param fileManager	File manager to use in order to open URIs.
+	 *
+	 * @return	A stream toward the local copy of the content.
+	 *
+	 * @throws UnsupportedURIProtocolException	If the URI scheme is not
+	 *                                        	supported.
+	 * @throws IOException						If the content can not be
+	 *                    						downloaded or read.
+	 */
+	public InputStream open(final URI uri, final UWSFileManager fileManager) throws UnsupportedURIProtocolException, IOException{
+		Future<File> download = prefetch(uri, fileManager);
+		try{
+			return new FileInputStream(getFile(download));
+		}finally{
+			release(uri, download);
+		}
+	}
+
+	/**
+	 * Wait for the end of the given download and return the downloaded file.
+	 *
+	 * @param download	The download to wait for.
+	 *
+	 * @return	The downloaded file.
+	 *
+	 * @throws UnsupportedURIProtocolException	If the URI scheme is not
+	 *                                        	supported.
+	 * @throws IOException						If the download failed or has
+	 *                    						been interrupted.
+	 */
+	public static File getFile(final Future<File> download) throws UnsupportedURIProtocolException, IOException{
+		try{
+			return download.get();
+		}catch(InterruptedException ie){
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the upload download!", ie);
+		}catch(CancellationException ce){
+			throw new InterruptedIOException("Download of the upload cancelled!");
+		}catch(ExecutionException ee){
+			Throwable cause = ee.getCause();
+			if (cause instanceof UnsupportedURIProtocolException)
+				throw (UnsupportedURIProtocolException)cause;
+			else if (cause instanceof IOException)
+				throw (IOException)cause;
+			else
+				throw new IOException("Impossible to download the upload content! Cause: " + cause.getMessage(), cause);
+		}
+	}
+
+	/**
+	 * Download the content of the given URI in the cache directory, unless
+	 * the last cached version is still valid.
+	 *
+	 * @param uri			URI of the content to download.
+	 * @param fileManager	File manager to use in order to open URIs.
+	 *
+	 * @return	The local file containing the content.
+	 *
+	 * @throws UnsupportedURIProtocolException	If the URI scheme is not
+	 *                                        	supported.
+	 * @throws IOException						If an error occurs while
+	 *                    						downloading.
+	 */
+	protected File fetch(final URI uri, final UWSFileManager fileManager) throws UnsupportedURIProtocolException, IOException{
+		final String uriStr = uri.toString();
+		final String scheme = uri.getScheme();
+
+		// CASE: Not HTTP => no validator, so no possible reuse:
+		if (scheme == null || !(scheme.equalsIgnoreCase("http") || scheme.equalsIgnoreCase("https")))
+			return store(uriStr, null, null, fileManager.openURI(uri), false);
+
+		// CASE: HTTP => get the validators (conditional request, if a version is already cached):
+		Entry last;
+		synchronized(this){
+			last = lastEntries.get(uriStr);
+			if (last != null && !last.file.exists()){
+				remove(last);
+				last = null;
+			}
+		}
+
+		String etag = null, lastModified = null;
+		HttpURLConnection conn = (HttpURLConnection)uri.toURL().openConnection();
+		try{
+			conn.setRequestMethod("HEAD");
+			if (last != null){
+				if (last.etag != null)
+					conn.setRequestProperty("If-None-Match", last.etag);
+				if (last.lastModified != null)
+					conn.setRequestProperty("If-Modified-Since", last.lastModified);
+			}
+			int status = conn.getResponseCode();
+			// the cached version is still valid:
+			if (status == HttpURLConnection.HTTP_NOT_MODIFIED && last != null)
+				return hit(last);
+			// the validators of the current version:
+			else if (status < 400){
+				etag = conn.getHeaderField("ETag");
+				lastModified = conn.getHeaderField("Last-Modified");
+			}
+			// error (except if HEAD is not supported ; then, no validator):
+			else if (status != HttpURLConnection.HTTP_BAD_METHOD && status != HttpURLConnection.HTTP_NOT_IMPLEMENTED)
+				throw new IOException("Impossible to download the upload \"" + uriStr + "\"! HTTP error " + status + ": " + conn.getResponseMessage());
+		}finally{
+			conn.disconnect();
+		}
+
+		// The content must be downloaded (except if already known):
+		boolean reusable = (etag != null || lastModified != null);
+		if (reusable){
+			Entry known;
+			synchronized(this){
+				known = entries.get(getKey(uriStr, etag, lastModified));
+			}
+			if (known != null && known.file.exists())
+				return hit(known);
+		}
+		return store(uriStr, etag, lastModified, fileManager.openURI(uri), reusable);
+	}
+
+	/**
+	 * Mark the given entry as used and return its file.
+	 *
+	 * @param entry	A cached entry.
+	 *
+	 * @return	File of this entry.
+	 */
+	protected synchronized File hit(final Entry entry){
+		entries.get(entry.key);	// access => most recently used
+		nbHits++;
+		return entry.file;
+	}
+
+	/**
+	 * Copy the given content in a new cache file.
+	 *
+	 * @param uri			URI of the content.
+	 * @param etag			ETag of the content. <i>May be NULL.</i>
+	 * @param lastModified	Last modification date of the content.
+	 *                    	<i>May be NULL.</i>
+	 * @param input			Stream toward the content to store.
+	 *             			<i>It is always closed by this function.</i>
+	 * @param reusable		<i>true</i> if this content may be reused by other
+	 *                		uploads of the same URI.
+	 *
+	 * @return	The file containing the content.
+	 *
+	 * @throws ExceededSizeException	If the content is bigger than
+	 *                              	{@link #getMaxFileSize()}.
+	 * @throws IOException				If an error occurs while copying the
+	 *                    				content.
+	 */
+	protected File store(final String uri, final String etag, final String lastModified, final InputStream input, final boolean reusable) throws IOException{
+		String key;
+		File tmpFile;
+		synchronized(this){
+			nbMisses++;
+			key = getKey(uri, etag, lastModified) + (reusable ? "" : "-" + System.currentTimeMillis() + "-" + (++tmpCounter));
+			tmpFile = new File(directory, key + ".part" + (++tmpCounter));
+		}
+
+		// Download the content (in the limit of maxFileSize):
+		final long limit = maxFileSize;
+		final InputStream limitedInput = (limit > 0) ? new LimitedSizeInputStream(input, limit) : input;
+		OutputStream output = null;
+		try{
+			output = new FileOutputStream(tmpFile);
+			byte[] buffer = new byte[8192];
+			int len;
+			while((len = limitedInput.read(buffer)) > 0){
+				// the download has been cancelled:
+				if (Thread.currentThread().isInterrupted())
+					throw new InterruptedIOException("Download of the upload \"" + uri + "\" cancelled!");
+				output.write(buffer, 0, len);
+			}
+			output.close();
+			output = null;
+		}catch(IOException ioe){
+			tmpFile.delete();
+			throw ioe;
+		}finally{
+			input.close();
+			if (output != null){
+				try{
+					output.close();
+				}catch(IOException ioe){
+				}
+			}
+		}
+
+		// Add it to the cache:
+		synchronized(this){
+			Entry entry = new Entry(key, uri, etag, lastModified, new File(directory, key));
+			Entry old = entries.get(key);
+			if (old != null)
+				remove(old);
+			if (!tmpFile.renameTo(entry.file)){
+				tmpFile.delete();
+				throw new IOException("Impossible to move the downloaded upload into the cache file \"" + entry.file.getAbsolutePath() + "\"!");
+			}
+			entry.size = entry.file.length();
+			entries.put(key, entry);
+			totalSize += entry.size;
+			if (reusable)
+				lastEntries.put(uri, entry);
+			evict(entry);
+			return entry.file;
+		}
+	}
+
+	/**
+	 * Delete the least recently used entries until the total size of the
+	 * cache is below its limit.
+	 *
+	 * @param keep	An entry which must not be deleted (i.e. the one just
+	 *            	added). <i>May be NULL.</i>
+	 */
+	protected synchronized void evict(final Entry keep){
+		Iterator<Entry> it = entries.values().iterator();
+		while(totalSize > maxSize && it.hasNext()){
+			Entry entry = it.next();
+			if (entry != keep){
+				it.remove();
+				forget(entry);
+			}
+		}
+	}
+
+	/**
+	 * Remove the given entry from the cache and delete its file.
+	 *
+	 * @param entry	The entry to remove.
+	 */
+	protected synchronized void remove(final Entry entry){
+		if (entries.remove(entry.key) != null)
+			forget(entry);
+	}
+
+	/**
+	 * Update the cache statistics and delete the file of an entry already
+	 * removed from {@link #entries}.
+	 *
+	 * @param entry	The removed entry.
+	 */
+	private void forget(final Entry entry){
+		totalSize -= entry.size;
+		if (lastEntries.get(entry.uri) == entry)
+			lastEntries.remove(entry.uri);
+		entry.file.delete();
+	}
+
+	/**
+	 * Delete all cached files.
+	 */
+	public synchronized void clear(){
+		for(Entry entry : entries.values())
+			entry.file.delete();
+		entries.clear();
+		lastEntries.clear();
+		totalSize = 0;
+	}
+
+	/**
+	 * Stop all running downloads and delete all cached files.
+	 */
+	public void close(){
+		executor.shutdownNow();
+		clear();
+	}
+
+	/**
+	 * Build the key of a cache entry: the SHA-256 hash (in hexadecimal) of
+	 * the URI and of the HTTP validators.
+	 *
+	 * @param uri			URI of the content.
+	 * @param etag			ETag of the content. <i>May be NULL.</i>
+	 * @param lastModified	Last modification date of the content.
+	 *                    	<i>May be NULL.</i>
+	 *
+	 * @return	The corresponding cache key.
+	 */
+	protected static String getKey(final String uri, final String etag, final String lastModified){
+		try{
+			MessageDigest md = MessageDigest.getInstance("SHA-256");
+			byte[] hash = md.digest((uri + "\n" + (etag == null ? "" : etag) + "\n" + (lastModified == null ? "" : lastModified)).getBytes("UTF-8"));
+			StringBuilder buf = new StringBuilder(hash.length * 2);
+			for(byte b : hash)
+				buf.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+			return buf.toString();
+		}catch(NoSuchAlgorithmException nsae){
+			// should never happen: SHA-256 is always supported by the JVM.
+			return Integer.toHexString(uri.hashCode()) + Integer.toHexString((etag + "\n" + lastModified).hashCode());
+		}catch(IOException ioe){
+			// should never happen: UTF-8 is always supported by the JVM.
+			return Integer.toHexString(uri.hashCode()) + Integer.toHexString((etag + "\n" + lastModified).hashCode());
+		}
+	}
+
+	/**
+	 * Description of a cached content.
+	 *
+	 * @author Gr&eacute;gory Mantelet (CDS)
+	 * @version 2.4 (10/2026)
+	 * @since 2.4
+	 */
+	protected static class Entry {
+		/** Key of this entry in the cache. */
+		public final String key;
+		/** URI of the cached content. */
+		public final String uri;
+		/** HTTP ETag of the cached content. <i>May be NULL.</i> */
+		public final String etag;
+		/** HTTP last modification date of the cached content.
+		 * <i>May be NULL.</i> */
+		public final String lastModified;
+		/** File containing the cached content. */
+		public final File file;
+		/** Size (in bytes) of the cached file. */
+		public long size = 0;
+
+		public Entry(final String key, final String uri, final String etag, final String lastModified, final File file){
+			this.key = key;
+			this.uri = uri;
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.file = file;
+		}
+	}
+
+}
@@ -16,7 +16,7 @@ package tap.upload;
  * You should have received a copy of the GNU Lesser General Public License
  * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2012-2018 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -31,7 +31,6 @@ import tap.ServiceConnection.LimitUnit;
 import tap.TAPException;
 import tap.data.DataReadException;
 import tap.data.LimitedTableIterator;
-import tap.data.TableIterator;
 import tap.data.VOTableIterator;
 import tap.db.DBConnection;
 import tap.db.DBException;
@@ -53,7 +52,7 @@ import uws.service.file.UnsupportedURIProtocolException;
  * </p>
  *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.3 (08/2018)
+ * @version 2.4 (10/2026)
  *
  * @see LimitedTableIterator
  * @see VOTableIterator
@@ -166,7 +165,7 @@ public class Uploader {
 	 * @see DBConnection#addUploadedTable(TAPTable, tap.data.TableIterator)
 	 */
 	public TAPSchema upload(final DALIUpload[] uploads) throws TAPException{
-		TableIterator dataIt = null;
+		LimitedTableIterator dataIt = null;
 		InputStream votable = null;
 		HashSet<String> tableNames = new HashSet<String>(uploads.length);
 		String tableName = null;
@@ -207,6 +206,7 @@ public class Uploader {
 
 				// Create and fill the corresponding table in the database:
 				dbConn.addUploadedTable(table, dataIt);
+				nbRows += dataIt.getNbRows();
 
 				// Close the VOTable stream:
 				dataIt.close();
@@ -252,6 +252,17 @@ public class Uploader {
 		return uploadSchema;
 	}
 
+	/**
+	 * Get the number of rows loaded so far in the database.
+	 *
+	 * @return	Number of uploaded rows.
+	 *
+	 * @since 2.4
+	 */
+	public final int getNbRows(){
+		return nbRows;
+	}
+
 	/**
 	 * Drop all tables already uploaded in the database.
 	 *
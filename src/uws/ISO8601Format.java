@@ -16,15 +16,18 @@ package uws;
  * You should have received a copy of the GNU Lesser General Public License
  * along with UWSLibrary.  If not, see <http://www.gnu.org/licenses/>.
  * 
- * Copyright 2014-2017 - Astronomisches Rechen Institut (ARI)
+ * Copyright 2014-2026 - Astronomisches Rechen Institut (ARI)
  */
 
+import java.io.IOException;
+import java.io.Writer;
 import java.text.DecimalFormat;
 import java.text.ParseException;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -51,6 +54,14 @@ import java.util.regex.Pattern;
  * 	{@link TimeZone#getAvailableIDs()}.
  * </p>
  * 
+ * <p>
+ * 	All format functions are thread-safe. To avoid the creation of intermediate {@link String}s (e.g. while writing
+ * 	a big number of dates in a result file), the digits can be written directly in a reusable <code>char[]</code> with
+ * 	{@link #format(long, String, boolean, boolean, char[], int)} (and also with {@link #formatDate(long, TimeZone, char[], int)}
+ * 	and {@link #formatTime(long, TimeZone, char[], int)}), or in any {@link Appendable} (e.g. a {@link Writer})
+ * 	with {@link #format(long, String, boolean, boolean, Appendable)}.
+ * </p>
+ * 
  * <h3>Date parsing</h3>
  * 
  * <p>
@@ -95,7 +106,7 @@ import java.util.regex.Pattern;
  * </p>
  * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 4.2 (03/2017)
+ * @version 4.5 (10/2026)
  * @since 4.1
  */
 public class ISO8601Format {
@@ -116,6 +127,38 @@ public class ISO8601Format {
 	/** Object to use to format numbers with three digits (ie. 001, 000, 123). */
 	protected final static DecimalFormat threeDigitsFmt = new DecimalFormat("000");
 
+	/** Maximum number of characters written by {@link #format(long, String, boolean, boolean, char[], int)}.
+	 * <i>Note: This is the size a buffer should have to receive any formatted date.</i>
+	 * @since 4.5 */
+	public final static int MAX_LENGTH = 35;
+
+	/** Number of milliseconds in one day.
+	 * @since 4.5 */
+	private final static long MS_PER_DAY = 86400000L;
+
+	/** Local time (i.e. with the time zone offset) from which dates are converted arithmetically: 1583-01-01T00:00:00.
+	 * <i>Note: Before, the {@link GregorianCalendar} switches to the Julian calendar, so a {@link GregorianCalendar} is still used.</i>
+	 * @since 4.5 */
+	private final static long MIN_FAST_LOCAL = daysFromCivil(1583, 1, 1) * MS_PER_DAY;
+
+	/** Local time (i.e. with the time zone offset) until which dates are converted arithmetically: 10000-01-01T00:00:00 (excluded).
+	 * @since 4.5 */
+	private final static long MAX_FAST_LOCAL = daysFromCivil(10000, 1, 1) * MS_PER_DAY;
+
+	/** Time zones already resolved from their ID.
+	 * <i>Note: {@link TimeZone#getTimeZone(String)} creates a new {@link TimeZone} at each call.</i>
+	 * @since 4.5 */
+	private final static ConcurrentHashMap<String, TimeZone> timeZones = new ConcurrentHashMap<String, TimeZone>();
+
+	/** Buffer used by each thread to format a date before appending it in an {@link Appendable}.
+	 * @since 4.5 */
+	private final static ThreadLocal<char[]> buffers = new ThreadLocal<char[]>(){
+		@Override
+		protected char[] initialValue(){
+			return new char[MAX_LENGTH];
+		}
+	};
+
 	/**
 	 * <p>Format the given date-time in ISO8601 format.</p>
 	 * 
@@ -202,11 +245,8 @@ public class ISO8601Format {
 	 * Convert the given date in the given time zone and format it in ISO8601 format, with or without displaying the time zone
 	 * and/or the milliseconds field.
 	 * 
-	 * <p><i><b>Important Note:</b>
-	 * 	This function is synchronized because it is using (directly or in other static functions) static {@link DecimalFormat} instances.
-	 * 	A {@link DecimalFormat} is a Java class which can be used only by one thread at a time. So {@link #format(long, String, boolean, boolean)}
-	 * 	and {@link #parse(String)} (main public functions of {@link ISO8601Format}) must be synchronized in order to avoid concurrent access
-	 * 	to the {@link DecimalFormat} instances and so to avoid unpredictable errors/results.
+	 * <p><i>Note:
+	 * 	Since v4.5, this function is no longer synchronized: no shared {@link DecimalFormat} is used any more.
 	 * </i></p>
 	 * 
 	 * @param date				Date-time in milliseconds (from the 1st January 1970 ; this value is returned by java.util.Date#getTime()).
@@ -216,48 +256,297 @@ public class ISO8601Format {
 	 * 
 	 * @return	Date formatted in ISO8601.
 	 */
-	protected static synchronized String format(final long date, final String targetTimeZone, final boolean withTimeZone, final boolean withMillisec){
-		GregorianCalendar cal = new GregorianCalendar();
-		cal.setTimeInMillis(date);
+	protected static String format(final long date, final String targetTimeZone, final boolean withTimeZone, final boolean withMillisec){
+		char[] buffer = buffers.get();
+		return new String(buffer, 0, format(date, targetTimeZone, withTimeZone, withMillisec, buffer, 0));
+	}
 
-		// Convert the given date in the target Time Zone:
-		if (targetTimeZone != null && targetTimeZone.length() > 0)
-			cal.setTimeZone(TimeZone.getTimeZone(targetTimeZone));
-		else
-			cal.setTimeZone(TimeZone.getTimeZone(ISO8601Format.targetTimeZone));
+	/**
+	 * <p>Convert the given date in the given time zone and write it in ISO8601 format in the given buffer,
+	 * with or without displaying the time zone and/or the milliseconds field.</p>
+	 * 
+	 * <p>
+	 * 	The result is exactly the same as {@link #format(long, String, boolean, boolean)}, but no object is created
+	 * 	(except when the date is before the year 1583 or after the year 9999).
+	 * </p>
+	 * 
+	 * @param date				Date-time in milliseconds (from the 1st January 1970 ; this value is returned by java.util.Date#getTime()).
+	 * @param targetTimeZone	Target time zone. <i>If NULL or empty, {@link #targetTimeZone} is used.</i>
+	 * @param withTimeZone		<i>true</i> to display the time zone, <i>false</i> otherwise.
+	 * @param withMillisec		<i>true</i> to display the milliseconds, <i>false</i> otherwise.
+	 * @param buffer			Buffer in which the formatted date must be written.
+	 *              			<i>It must have at least {@link #MAX_LENGTH} characters from the given offset.</i>
+	 * @param offset			Index in the buffer of the first character to write.
+	 * 
+	 * @return	Index in the buffer just after the last written character.
+	 * 
+	 * @throws ArrayIndexOutOfBoundsException	If the buffer is too small.
+	 * 
+	 * @since 4.5
+	 */
+	public static int format(final long date, final String targetTimeZone, final boolean withTimeZone, final boolean withMillisec, final char[] buffer, final int offset) throws ArrayIndexOutOfBoundsException{
+		TimeZone tz = getTimeZone((targetTimeZone != null && targetTimeZone.length() > 0) ? targetTimeZone : ISO8601Format.targetTimeZone);
+		return write(date, tz, true, true, withMillisec, withTimeZone, buffer, offset);
+	}
 
-		StringBuffer buf = new StringBuffer();
+	/**
+	 * <p>Convert the given date in the given time zone and append it in ISO8601 format to the given output,
+	 * with or without displaying the time zone and/or the milliseconds field.</p>
+	 * 
+	 * <p>
+	 * 	The result is exactly the same as {@link #format(long, String, boolean, boolean)}, but no {@link String} is created:
+	 * 	the date is written in a buffer specific to the current thread and then copied in the given output.
+	 * </p>
+	 * 
+	 * @param date				Date-time in milliseconds (from the 1st January 1970 ; this value is returned by java.util.Date#getTime()).
+	 * @param targetTimeZone	Target time zone. <i>If NULL or empty, {@link #targetTimeZone} is used.</i>
+	 * @param withTimeZone		<i>true</i> to display the time zone, <i>false</i> otherwise.
+	 * @param withMillisec		<i>true</i> to display the milliseconds, <i>false</i> otherwise.
+	 * @param out				Output in which the formatted date must be appended.
+	 * 
+	 * @return	The given output.
+	 * 
+	 * @throws IOException	If the given output can not be written.
+	 * 
+	 * @since 4.5
+	 */
+	public static < A extends Appendable > A format(final long date, final String targetTimeZone, final boolean withTimeZone, final boolean withMillisec, final A out) throws IOException{
+		char[] buffer = buffers.get();
+		int length = format(date, targetTimeZone, withTimeZone, withMillisec, buffer, 0);
+		if (out instanceof Writer)
+			((Writer)out).write(buffer, 0, length);
+		else if (out instanceof StringBuilder)
+			((StringBuilder)out).append(buffer, 0, length);
+		else if (out instanceof StringBuffer)
+			((StringBuffer)out).append(buffer, 0, length);
+		else{
+			for(int i = 0; i < length; i++)
+				out.append(buffer[i]);
+		}
+		return out;
+	}
+
+	/**
+	 * <p>Append the given date-time in ISO8601 format to the given output.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	This function is equivalent to {@link #format(long, String, boolean, boolean, Appendable)} with the following parameters:
+	 * 	d, ISO8601Format.targetTimeZone, ISO8601Format.displayTimeZone, ISO8601Format.displayMilliseconds, out.
+	 * </i></p>
+	 * 
+	 * @param date	Date-time.
+	 * @param out	Output in which the formatted date must be appended.
+	 * 
+	 * @return	The given output.
+	 * 
+	 * @throws IOException	If the given output can not be written.
+	 * 
+	 * @since 4.5
+	 */
+	public static < A extends Appendable > A format(final Date date, final A out) throws IOException{
+		return format(date.getTime(), targetTimeZone, displayTimeZone, displayMilliseconds, out);
+	}
+
+	/**
+	 * <p>Write only the date part ("yyyy-MM-dd") of the given date-time, in the given time zone, in the given buffer.</p>
+	 * 
+	 * @param date		Date-time in milliseconds (from the 1st January 1970 ; this value is returned by java.util.Date#getTime()).
+	 * @param timeZone	Time zone in which the date must be expressed. <i>If NULL, the local time zone is used.</i>
+	 * @param buffer	Buffer in which the formatted date must be written.
+	 *              	<i>It must have at least {@link #MAX_LENGTH} characters from the given offset.</i>
+	 * @param offset	Index in the buffer of the first character to write.
+	 * 
+	 * @return	Index in the buffer just after the last written character.
+	 * 
+	 * @throws ArrayIndexOutOfBoundsException	If the buffer is too small.
+	 * 
+	 * @since 4.5
+	 */
+	public static int formatDate(final long date, final TimeZone timeZone, final char[] buffer, final int offset) throws ArrayIndexOutOfBoundsException{
+		return write(date, (timeZone == null) ? TimeZone.getDefault() : timeZone, true, false, false, false, buffer, offset);
+	}
+
+	/**
+	 * <p>Write only the time part ("HH:mm:ss") of the given date-time, in the given time zone, in the given buffer.</p>
+	 * 
+	 * @param date		Date-time in milliseconds (from the 1st January 1970 ; this value is returned by java.util.Date#getTime()).
+	 * @param timeZone	Time zone in which the time must be expressed. <i>If NULL, the local time zone is used.</i>
+	 * @param buffer	Buffer in which the formatted time must be written.
+	 *              	<i>It must have at least {@link #MAX_LENGTH} characters from the given offset.</i>
+	 * @param offset	Index in the buffer of the first character to write.
+	 * 
+	 * @return	Index in the buffer just after the last written character.
+	 * 
+	 * @throws ArrayIndexOutOfBoundsException	If the buffer is too small.
+	 * 
+	 * @since 4.5
+	 */
+	public static int formatTime(final long date, final TimeZone timeZone, final char[] buffer, final int offset) throws ArrayIndexOutOfBoundsException{
+		return write(date, (timeZone == null) ? TimeZone.getDefault() : timeZone, false, true, false, false, buffer, offset);
+	}
+
+	/**
+	 * Get the time zone having the given ID.
+	 * 
+	 * @param id	ID of a time zone.
+	 * 
+	 * @return	The corresponding time zone (GMT if unknown ; see {@link TimeZone#getTimeZone(String)}).
+	 * 
+	 * @since 4.5
+	 */
+	private static TimeZone getTimeZone(final String id){
+		TimeZone tz = timeZones.get(id);
+		if (tz == null){
+			tz = TimeZone.getTimeZone(id);
+			timeZones.putIfAbsent(id, tz);
+		}
+		return tz;
+	}
+
+	/**
+	 * <p>Convert the given date in the given time zone and write the selected parts in the given buffer.</p>
+	 * 
+	 * <p>
+	 * 	Between the years 1583 and 9999, all date and time fields are computed arithmetically.
+	 * 	Otherwise, a {@link GregorianCalendar} is used so that the Julian calendar is applied like in {@link #format(long, String, boolean, boolean)}.
+	 * </p>
+	 * 
+	 * @param date			Date-time in milliseconds (from the 1st January 1970).
+	 * @param tz			Target time zone.
+	 * @param withDate		<i>true</i> to write the date ("yyyy-MM-dd").
+	 * @param withTime		<i>true</i> to write the time ("HH:mm:ss"). <i>If the date is also written, they are separated by a 'T'.</i>
+	 * @param withMillisec	<i>true</i> to write the milliseconds after the time.
+	 * @param withTimeZone	<i>true</i> to write the time zone after the time.
+	 * @param buffer		Buffer in which the date must be written.
+	 * @param offset		Index in the buffer of the first character to write.
+	 * 
+	 * @return	Index in the buffer just after the last written character.
+	 * 
+	 * @since 4.5
+	 */
+	private static int write(final long date, final TimeZone tz, final boolean withDate, final boolean withTime, final boolean withMillisec, final boolean withTimeZone, final char[] buffer, final int offset){
+		int tzOffset = tz.getOffset(date);
+		long local = date + tzOffset;
+		int year, month, day, msOfDay;
+
+		// Extract all date fields...
+		if (local >= MIN_FAST_LOCAL && local < MAX_FAST_LOCAL){
+			// ...arithmetically (see http://howardhinnant.github.io/date_algorithms.html#civil_from_days):
+			long days = Math.floorDiv(local, MS_PER_DAY);
+			msOfDay = (int)(local - days * MS_PER_DAY);
+			long shiftedDays = days + 719468;	// days since 0000-03-01 (always positive here)
+			int era = (int)(shiftedDays / 146097);
+			int dayOfEra = (int)(shiftedDays - era * 146097L);
+			int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+			int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+			int shiftedMonth = (5 * dayOfYear + 2) / 153;
+			day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+			month = (shiftedMonth < 10) ? shiftedMonth + 3 : shiftedMonth - 9;
+			year = yearOfEra + era * 400 + ((month <= 2) ? 1 : 0);
+		}else{
+			// ...or with a calendar (for the Julian calendar and the years of more than 4 digits):
+			GregorianCalendar cal = new GregorianCalendar(tz);
+			cal.setTimeInMillis(date);
+			year = cal.get(Calendar.YEAR);
+			month = cal.get(Calendar.MONTH) + 1;
+			day = cal.get(Calendar.DAY_OF_MONTH);
+			msOfDay = ((cal.get(Calendar.HOUR_OF_DAY) * 60 + cal.get(Calendar.MINUTE)) * 60 + cal.get(Calendar.SECOND)) * 1000 + cal.get(Calendar.MILLISECOND);
+			tzOffset = cal.get(Calendar.ZONE_OFFSET) + cal.get(Calendar.DST_OFFSET);
+		}
+
+		int pos = offset;
 
 		// Date with format yyyy-MM-dd :
-		buf.append(cal.get(Calendar.YEAR)).append('-');
-		buf.append(twoDigitsFmt.format(cal.get(Calendar.MONTH) + 1)).append('-');
-		buf.append(twoDigitsFmt.format(cal.get(Calendar.DAY_OF_MONTH)));
-
-		// Time with format 'T'HH:mm:ss :
-		buf.append('T').append(twoDigitsFmt.format(cal.get(Calendar.HOUR_OF_DAY))).append(':');
-		buf.append(twoDigitsFmt.format(cal.get(Calendar.MINUTE))).append(':');
-		buf.append(twoDigitsFmt.format(cal.get(Calendar.SECOND)));
-		if (withMillisec){
-			buf.append('.').append(threeDigitsFmt.format(cal.get(Calendar.MILLISECOND)));
+		if (withDate){
+			if (year < 1000){
+				buffer[pos++] = (char)('0' + year / 1000);
+				buffer[pos++] = (char)('0' + (year / 100) % 10);
+				pos = writeTwoDigits(year % 100, buffer, pos);
+			}else{
+				int nbDigits = 4;
+				for(int y = year / 10000; y > 0; y /= 10)
+					nbDigits++;
+				for(int i = nbDigits - 1, y = year; i >= 0; i--, y /= 10)
+					buffer[pos + i] = (char)('0' + y % 10);
+				pos += nbDigits;
+			}
+			buffer[pos++] = '-';
+			pos = writeTwoDigits(month, buffer, pos);
+			buffer[pos++] = '-';
+			pos = writeTwoDigits(day, buffer, pos);
+			if (withTime)
+				buffer[pos++] = 'T';
+		}
+
+		// Time with format HH:mm:ss :
+		if (withTime){
+			int seconds = msOfDay / 1000;
+			pos = writeTwoDigits(seconds / 3600, buffer, pos);
+			buffer[pos++] = ':';
+			pos = writeTwoDigits((seconds / 60) % 60, buffer, pos);
+			buffer[pos++] = ':';
+			pos = writeTwoDigits(seconds % 60, buffer, pos);
+			if (withMillisec){
+				int millis = msOfDay % 1000;
+				buffer[pos++] = '.';
+				buffer[pos++] = (char)('0' + millis / 100);
+				pos = writeTwoDigits(millis % 100, buffer, pos);
+			}
 		}
 
 		// Time zone with format (+|-)HH:mm :
 		if (withTimeZone){
-			int tzOffset = (cal.get(Calendar.ZONE_OFFSET) + cal.get(Calendar.DST_OFFSET)) / (60 * 1000); // offset in minutes
-			boolean negative = (tzOffset < 0);
-			if (negative)
-				tzOffset *= -1;
-			int hours = tzOffset / 60, minutes = tzOffset - (hours * 60);
-			if (hours == 0 && minutes == 0)
-				buf.append('Z');
+			int tzMinutes = tzOffset / (60 * 1000); // offset in minutes
+			if (tzMinutes == 0)
+				buffer[pos++] = 'Z';
 			else{
-				buf.append(negative ? '-' : '+');
-				buf.append(twoDigitsFmt.format(hours)).append(':');
-				buf.append(twoDigitsFmt.format(minutes));
+				buffer[pos++] = (tzMinutes < 0) ? '-' : '+';
+				tzMinutes = Math.abs(tzMinutes);
+				pos = writeTwoDigits(tzMinutes / 60, buffer, pos);
+				buffer[pos++] = ':';
+				pos = writeTwoDigits(tzMinutes % 60, buffer, pos);
 			}
 		}
 
-		return buf.toString();
+		return pos;
+	}
+
+	/**
+	 * Write the given number (between 0 and 99) with exactly two digits.
+	 * 
+	 * @param value		Number to write.
+	 * @param buffer	Buffer in which the digits must be written.
+	 * @param pos		Index in the buffer of the first digit.
+	 * 
+	 * @return	Index in the buffer just after the second digit.
+	 * 
+	 * @since 4.5
+	 */
+	private static int writeTwoDigits(final int value, final char[] buffer, final int pos){
+		buffer[pos] = (char)('0' + value / 10);
+		buffer[pos + 1] = (char)('0' + value % 10);
+		return pos + 2;
+	}
+
+	/**
+	 * Get the number of days since the 1st January 1970 of the given date of the proleptic Gregorian calendar.
+	 * (see http://howardhinnant.github.io/date_algorithms.html#days_from_civil)
+	 * 
+	 * @param year	Year (positive).
+	 * @param month	Month (1 = January, ..., 12 = December).
+	 * @param day	Day of the month (1..31).
+	 * 
+	 * @return	The corresponding number of days since 1970-01-01.
+	 * 
+	 * @since 4.5
+	 */
+	private static long daysFromCivil(final int year, final int month, final int day){
+		int y = (month <= 2) ? year - 1 : year;
+		int era = y / 400;
+		int yearOfEra = y - era * 400;
+		int dayOfYear = (153 * (month + ((month > 2) ? -3 : 9)) + 2) / 5 + day - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097L + dayOfEra - 719468;
 	}
 
 	/**
@@ -400,11 +689,10 @@ public class ISO8601Format {
 	 * 	Separators (like '-', ':' and '.') are optional. The date and time separator ('T') may be replaced by a space.
 	 * </p>
 	 * 
-	 * <p><i><b>Important Note:</b>
-	 * 	This function is synchronized because it is using (directly or in other static functions) static {@link DecimalFormat} instances.
-	 * 	A {@link DecimalFormat} is a Java class which can be used only by one thread at a time. So {@link #format(long, String, boolean, boolean)}
-	 * 	and {@link #parse(String)} (main public functions of {@link ISO8601Format}) must be synchronized in order to avoid concurrent access
-	 * 	to the {@link DecimalFormat} instances and so to avoid unpredictable errors/results.
+	 * <p><i>Note:
+	 * 	The most common syntaxes (month based dates between the years 1583 and 9999) are parsed directly, without any object creation.
+	 * 	All the other ones are parsed with a regular expression and a {@link GregorianCalendar} (see {@link #parseWithPattern(String)}).
+	 * 	Both ways return exactly the same result.
 	 * </i></p>
 	 * 
 	 * @param strDate	Date expressed as a string in ISO8601 format.
@@ -414,7 +702,174 @@ public class ISO8601Format {
 	 * 
 	 * @throws ParseException	If the given date is not expressed in ISO8601 format or is not merely parseable with this implementation.
 	 */
-	public static synchronized long parse(final String strDate) throws ParseException{
+	public static long parse(final String strDate) throws ParseException{
+		long date = fastParse(strDate);
+		return (date != Long.MIN_VALUE) ? date : parseWithPattern(strDate);
+	}
+
+	/**
+	 * <p>Parse directly the given month based ISO8601 date: YYYY[-MM[-DD[(T| )hh[:mm[:ss[.s]]][Z|(+|-)hh[:mm]]]]].</p>
+	 * 
+	 * <p>
+	 * 	Separators are optional, exactly as with {@link #ISO8601_PATTERN}. Out of range values are interpreted exactly
+	 * 	as in {@link #parseWithPattern(String)}: the hours can be 24, the minutes and seconds can be 60 and the decimal
+	 * 	fraction of a second is read as a number of milliseconds.
+	 * </p>
+	 * 
+	 * @param str	Date to parse.
+	 * 
+	 * @return	The parsed date (in milliseconds from the 1st January 1970),
+	 *        	or {@link Long#MIN_VALUE} if the date is incorrect or must be parsed with {@link #parseWithPattern(String)}.
+	 * 
+	 * @since 4.5
+	 */
+	private static long fastParse(final String str){
+		final int length = str.length();
+
+		// YEAR (between 1583 and 9999, otherwise the Julian calendar would apply):
+		int year = readDigits(str, 0, 4);
+		if (year < 1583)
+			return Long.MIN_VALUE;
+		int pos = 4, month = 1, day = 1, hours = 0, minutes = 0, seconds = 0, millis = 0, tzMinutes = 0;
+
+		// MONTH:
+		if (pos < length){
+			if (str.charAt(pos) == '-')
+				pos++;
+			month = readDigits(str, pos, 2);
+			if (month < 1 || month > 12)
+				return Long.MIN_VALUE;
+			pos += 2;
+
+			// DAY:
+			if (pos < length){
+				if (str.charAt(pos) == '-')
+					pos++;
+				day = readDigits(str, pos, 2);
+				if (day < 1 || day > ((month == 2) ? (((year % 4 == 0 && year % 100 != 0) || year % 400 == 0) ? 29 : 28) : ((month == 4 || month == 6 || month == 9 || month == 11) ? 30 : 31)))
+					return Long.MIN_VALUE;
+				pos += 2;
+
+				// TIME:
+				if (pos < length){
+					if (str.charAt(pos) != 'T' && str.charAt(pos) != ' ')
+						return Long.MIN_VALUE;
+					hours = readDigits(str, pos + 1, 2);
+					if (hours < 0 || hours > 24)
+						return Long.MIN_VALUE;
+					pos += 3;
+					// minutes:
+					if (pos < length && str.charAt(pos) != 'Z' && str.charAt(pos) != '+' && str.charAt(pos) != '-'){
+						if (str.charAt(pos) == ':')
+							pos++;
+						minutes = readDigits(str, pos, 2);
+						if (minutes < 0 || minutes > 60)
+							return Long.MIN_VALUE;
+						pos += 2;
+						// seconds:
+						if (pos < length && str.charAt(pos) != 'Z' && str.charAt(pos) != '+' && str.charAt(pos) != '-'){
+							if (str.charAt(pos) == ':')
+								pos++;
+							seconds = readDigits(str, pos, 2);
+							if (seconds < 0 || seconds > 60)
+								return Long.MIN_VALUE;
+							pos += 2;
+							// milliseconds (up to 9 digits, so that it always fits in an int):
+							if (pos < length && str.charAt(pos) != 'Z' && str.charAt(pos) != '+' && str.charAt(pos) != '-'){
+								if (str.charAt(pos) == '.')
+									pos++;
+								int end = pos;
+								while(end < length && str.charAt(end) >= '0' && str.charAt(end) <= '9')
+									end++;
+								if (end == pos || end - pos > 9)
+									return Long.MIN_VALUE;
+								millis = readDigits(str, pos, end - pos);
+								pos = end;
+							}
+						}
+					}
+
+					// TIME ZONE:
+					if (pos < length){
+						char c = str.charAt(pos++);
+						if (c == '+' || c == '-'){
+							int tzHours = readDigits(str, pos, 2);
+							if (tzHours < 0 || tzHours > 24)
+								return Long.MIN_VALUE;
+							pos += 2;
+							if (pos < length){
+								if (str.charAt(pos) == ':')
+									pos++;
+								tzMinutes = readDigits(str, pos, 2);
+								if (tzMinutes < 0 || tzMinutes > 60)
+									return Long.MIN_VALUE;
+								pos += 2;
+							}
+							tzMinutes += tzHours * 60;
+							if (c == '+')
+								tzMinutes = -tzMinutes;
+						}else if (c != 'Z')
+							return Long.MIN_VALUE;
+					}
+				}
+			}
+		}
+
+		// Nothing must remain:
+		if (pos != length)
+			return Long.MIN_VALUE;
+
+		// Date without time zone are in UTC (see parseWithPattern(String)):
+		return daysFromCivil(year, month, day) * MS_PER_DAY + ((hours * 60L + minutes + tzMinutes) * 60 + seconds) * 1000 + millis;
+	}
+
+	/**
+	 * Read the given number of digits from the given position.
+	 * 
+	 * @param str		String to read.
+	 * @param pos		Position of the first digit.
+	 * @param nbDigits	Number of digits to read (at most 9).
+	 * 
+	 * @return	The read positive number, or -1 if the string is too short or if one of these characters is not a digit.
+	 * 
+	 * @since 4.5
+	 */
+	private static int readDigits(final String str, final int pos, final int nbDigits){
+		if (pos + nbDigits > str.length())
+			return -1;
+		int value = 0;
+		for(int i = pos; i < pos + nbDigits; i++){
+			char c = str.charAt(i);
+			if (c < '0' || c > '9')
+				return -1;
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	/**
+	 * <p>Parse the given date with {@link #ISO8601_PATTERN} and a {@link GregorianCalendar}.</p>
+	 * 
+	 * <p>
+	 * 	This is the original implementation of {@link #parse(String)}. Since v4.5, it is used only when the given date
+	 * 	can not be parsed by {@link #fastParse(String)} (e.g. day of year or week based date, year before 1583, incorrect date).
+	 * </p>
+	 * 
+	 * <p><i><b>Important Note:</b>
+	 * 	This function is synchronized because it is using (directly or in other static functions) static {@link DecimalFormat} instances.
+	 * 	A {@link DecimalFormat} is a Java class which can be used only by one thread at a time. So this function must be
+	 * 	synchronized in order to avoid concurrent access to the {@link DecimalFormat} instances and so to avoid unpredictable errors/results.
+	 * </i></p>
+	 * 
+	 * @param strDate	Date expressed as a string in ISO8601 format.
+	 * 
+	 * @return	Parsed date (expressed in milliseconds from the 1st January 1970).
+	 * 
+	 * @throws ParseException	If the given date is not expressed in ISO8601 format or is not merely parseable with this implementation.
+	 * 
+	 * @since 4.5
+	 */
+	private static synchronized long parseWithPattern(final String strDate) throws ParseException{
 		Matcher m = ISO8601_PATTERN.matcher(strDate);
 		if (m.matches()){
 			GregorianCalendar cal = new GregorianCalendar();
@@ -1,6 +1,7 @@
 package uws;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -11,6 +12,9 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -36,16 +40,19 @@ import javax.servlet.http.HttpServletResponse;
  * You should have received a copy of the GNU Lesser General Public License
  * along with UWSLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2012-2019 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
 import uws.job.ErrorSummary;
+import uws.job.Result;
 import uws.job.UWSJob;
 import uws.job.user.JobOwner;
 import uws.service.UWS;
 import uws.service.UWSUrl;
 import uws.service.UserIdentifier;
+import uws.service.file.LocalUWSFileManager;
+import uws.service.file.UWSFileManager;
 import uws.service.log.DefaultUWSLog;
 import uws.service.log.UWSLog;
 import uws.service.request.RequestParser;
@@ -55,7 +62,7 @@ import uws.service.request.UploadFile;
  * Some useful functions for the managing of a UWS service.
  *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 4.4 (03/2019)
+ * @version 4.5 (10/2026)
  */
 public class UWSToolBox {
 
@@ -519,8 +526,52 @@ public class UWSToolBox {
 	 * @param response		Response in which the data must be copied.
 	 *
 	 * @throws IOException	If there is an error while opening the output stream or while copying.
+	 *
+	 * @see #write(InputStream, String, long, HttpServletRequest, HttpServletResponse)
 	 */
 	public static final void write(final InputStream input, final String mimeType, final long contentSize, final HttpServletResponse response) throws IOException{
+		write(input, mimeType, contentSize, null, response);
+	}
+
+	/**
+	 * Copies the content of the given input stream in the given HTTP response,
+	 * considering the HTTP header <code>Range</code> of the given request
+	 * (if any).
+	 *
+	 * <p>
+	 * 	If the HTTP request asks for a single byte range (e.g.
+	 * 	<code>Range: bytes=1024-</code>) and if the content size is known, only
+	 * 	the requested bytes are written and the HTTP status is set to
+	 * 	<code>206 (Partial Content)</code>. If the requested range can not be
+	 * 	satisfied, nothing is written and the HTTP status
+	 * 	<code>416 (Requested Range Not Satisfiable)</code> is set. In any other
+	 * 	case (e.g. no or several ranges), the whole content is written.
+	 * </p>
+	 *
+	 * <p><i><b>Implementation note:</b>
+	 * 	If the given input stream is a {@link FileInputStream}, the copy is
+	 * 	performed with {@link FileChannel#transferTo(long, long, WritableByteChannel)}
+	 * 	so that the file content does not have to go through a user-space
+	 * 	buffer when the output stream of the servlet container is itself a
+	 * 	{@link WritableByteChannel}. Otherwise, a simple read/write loop is
+	 * 	used.
+	 * </i></p>
+	 *
+	 * @param input			Data to copy.
+	 * @param mimeType		Type of data to copy (may be null).
+	 * @param contentSize	Size of the file to write. <i>If &le; 0, the size is
+	 *                   	considered as unknown and the <code>Range</code>
+	 *                   	header is ignored.</i>
+	 * @param request		Request asking for the data. <i>May be NULL.</i>
+	 * @param response		Response in which the data must be copied.
+	 *
+	 * @throws IOException	If there is an error while opening the output stream or while copying.
+	 *
+	 * @see #getRange(String, long)
+	 *
+	 * @since 4.5
+	 */
+	public static final void write(final InputStream input, final String mimeType, final long contentSize, final HttpServletRequest request, final HttpServletResponse response) throws IOException{
 		ServletOutputStream output = null;
 		try{
 			// Set the HTTP content type:
@@ -530,21 +581,273 @@ public class UWSToolBox {
 			// Set the character encoding:
 			response.setCharacterEncoding(UWSToolBox.DEFAULT_CHAR_ENCODING);
 
+			// Determine which part of the content must be written:
+			long offset = 0, length = contentSize;
+			if (contentSize > 0){
+				response.setHeader("Accept-Ranges", "bytes");
+				long[] range = (request == null) ? null : getRange(request.getHeader("Range"), contentSize);
+				if (range != null){
+					// CASE: unsatisfiable range => 416 and no content:
+					if (range[0] < 0){
+						response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+						response.setHeader("Content-Range", "bytes */" + contentSize);
+						setContentLength(response, 0);
+						return;
+					}
+					// CASE: satisfiable range => 206 and only the requested bytes:
+					else{
+						offset = range[0];
+						length = range[1] - range[0] + 1;
+						response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+						response.setHeader("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + contentSize);
+					}
+				}
+			}
+
 			// Set the HTTP content length:
-			setContentLength(response, contentSize);
+			setContentLength(response, length);
 
 			// Write the file into the HTTP response:
 			output = response.getOutputStream();
-			byte[] buffer = new byte[1024];
-			int length;
-			while((length = input.read(buffer)) > 0)
-				output.write(buffer, 0, length);
+			copy(input, output, offset, (contentSize > 0) ? length : -1);
 		}finally{
 			if (output != null)
 				output.flush();
 		}
 	}
 
+	/**
+	 * Write the content of the given job result in the given HTTP response.
+	 *
+	 * <p>
+	 * 	If the result is stored compressed in GZIP by a
+	 * 	{@link LocalUWSFileManager} and if the HTTP client accepts the GZIP
+	 * 	content-encoding, the compressed bytes are sent as such with the HTTP
+	 * 	header <code>Content-Encoding: gzip</code>. Otherwise, the
+	 * 	uncompressed content is sent.
+	 * </p>
+	 *
+	 * @param fileManager	File manager giving access to the result content.
+	 * @param result		The result to write.
+	 * @param job			The job owning the result.
+	 * @param request		Request asking for the result. <i>May be NULL.</i>
+	 * @param response		Response in which the result must be written.
+	 *
+	 * @throws IOException	If there is an error while reading the result or
+	 *                    	while writing it.
+	 *
+	 * @see #write(InputStream, String, long, HttpServletRequest, HttpServletResponse)
+	 *
+	 * @since 4.5
+	 */
+	public static final void writeResult(final UWSFileManager fileManager, final Result result, final UWSJob job, final HttpServletRequest request, final HttpServletResponse response) throws IOException{
+		InputStream input = null;
+		try{
+			long size;
+
+			// CASE: compressed result and client accepting GZIP => pass-through:
+			if (fileManager instanceof LocalUWSFileManager && ((LocalUWSFileManager)fileManager).isResultCompressed(result, job)){
+				response.setHeader("Vary", "Accept-Encoding");
+				if (request != null && acceptsEncoding(request, "gzip")){
+					LocalUWSFileManager localFM = (LocalUWSFileManager)fileManager;
+					input = localFM.getResultStoredInput(result, job);
+					size = localFM.getResultStoredSize(result, job);
+					response.setHeader("Content-Encoding", "gzip");
+					write(input, result.getMimeType(), size, request, response);
+					return;
+				}
+			}
+
+			// DEFAULT: uncompressed content:
+			input = fileManager.getResultInput(result, job);
+			size = fileManager.getResultSize(result, job);
+			write(input, result.getMimeType(), (size > 0) ? size : result.getSize(), request, response);
+		}finally{
+			if (input != null)
+				input.close();
+		}
+	}
+
+	/**
+	 * Tell whether the given HTTP request accepts the specified
+	 * content-encoding (see the HTTP header <code>Accept-Encoding</code>).
+	 *
+	 * <p><i><b>Note:</b>
+	 * 	An encoding is accepted if explicitly listed or if <code>*</code> is
+	 * 	listed, and if its quality is not <code>0</code>.
+	 * </i></p>
+	 *
+	 * @param request	An HTTP request.
+	 * @param encoding	The content-encoding to test (e.g. <code>gzip</code>).
+	 *
+	 * @return	<i>true</i> if the specified encoding is accepted,
+	 *        	<i>false</i> otherwise.
+	 *
+	 * @since 4.5
+	 */
+	public static final boolean acceptsEncoding(final HttpServletRequest request, final String encoding){
+		String header = (request == null) ? null : request.getHeader("Accept-Encoding");
+		if (header == null || encoding == null)
+			return false;
+
+		Boolean accepted = null, wildcard = null;
+		for(String item : header.split(",")){
+			String[] parts = item.split(";");
+			String name = parts[0].trim();
+			boolean nullQuality = false;
+			for(int i = 1; i < parts.length; i++){
+				String param = parts[i].trim();
+				if (param.startsWith("q=")){
+					try{
+						nullQuality = (Float.parseFloat(param.substring(2).trim()) <= 0);
+					}catch(NumberFormatException nfe){
+					}
+				}
+			}
+			if (name.equalsIgnoreCase(encoding) || name.equalsIgnoreCase("x-" + encoding))
+				accepted = !nullQuality;
+			else if (name.equals("*"))
+				wildcard = !nullQuality;
+		}
+
+		return (accepted != null) ? accepted : (wildcard != null && wildcard);
+	}
+
+	/**
+	 * Copy the specified part of the given input stream into the given output
+	 * stream.
+	 *
+	 * <p>
+	 * 	If the given input is a {@link FileInputStream}, its
+	 * 	{@link FileChannel} is used to transfer directly the bytes to the output
+	 * 	with {@link FileChannel#transferTo(long, long, WritableByteChannel)}.
+	 * </p>
+	 *
+	 * @param input		Data to copy.
+	 * @param output	Stream in which data must be copied.
+	 * @param offset	Number of bytes to skip before starting the copy.
+	 * @param length	Maximum number of bytes to copy.
+	 *              	<i>If negative, everything until the end of the input
+	 *              	is copied.</i>
+	 *
+	 * @return	The number of copied bytes.
+	 *
+	 * @throws IOException	If there is an error while reading or writing.
+	 *
+	 * @since 4.5
+	 */
+	protected static final long copy(final InputStream input, final OutputStream output, final long offset, final long length) throws IOException{
+		long nbCopied = 0;
+
+		// CASE: File => zero-copy transfer through the file channel:
+		if (input instanceof FileInputStream){
+			FileChannel inChannel = ((FileInputStream)input).getChannel();
+			WritableByteChannel outChannel = (output instanceof WritableByteChannel) ? (WritableByteChannel)output : Channels.newChannel(output);
+			long position = inChannel.position() + offset;
+			long end = (length < 0) ? inChannel.size() : Math.min(inChannel.size(), position + length);
+			long nb;
+			while(position < end){
+				nb = inChannel.transferTo(position, end - position, outChannel);
+				if (nb <= 0)
+					break;
+				position += nb;
+				nbCopied += nb;
+			}
+			inChannel.position(position);
+		}
+
+		// CASE: any other stream => classic read/write loop:
+		else{
+			// skip the first bytes (if needed):
+			long toSkip = offset, nb;
+			while(toSkip > 0 && (nb = input.skip(toSkip)) > 0)
+				toSkip -= nb;
+			if (toSkip > 0)
+				return 0;
+
+			// copy all the requested bytes:
+			byte[] buffer = new byte[8192];
+			int len;
+			while((length < 0 || nbCopied < length) && (len = input.read(buffer, 0, (length < 0) ? buffer.length : (int)Math.min(buffer.length, length - nbCopied))) > 0){
+				output.write(buffer, 0, len);
+				nbCopied += len;
+			}
+		}
+
+		return nbCopied;
+	}
+
+	/**
+	 * Interpret the given value of the HTTP header <code>Range</code>.
+	 *
+	 * <p>
+	 * 	Only one range expressed in bytes is supported. Thus the following
+	 * 	syntaxes are interpreted: <code>bytes=first-last</code>,
+	 * 	<code>bytes=first-</code> and <code>bytes=-suffixLength</code>.
+	 * 	Any other value (e.g. unknown unit, several ranges, syntax error) is
+	 * 	ignored.
+	 * </p>
+	 *
+	 * @param rangeHeader	Value of the HTTP header <code>Range</code>.
+	 *                   	<i>May be NULL.</i>
+	 * @param contentSize	Full size (in bytes) of the content.
+	 *
+	 * @return	NULL if the range must be ignored (i.e. the whole content must
+	 *        	be returned),
+	 *        	an array of 2 items (first and last byte position, inclusive)
+	 *        	if the range can be satisfied,
+	 *        	or <code>{-1, -1}</code> if the range can not be satisfied.
+	 *
+	 * @since 4.5
+	 */
+	public static final long[] getRange(final String rangeHeader, final long contentSize){
+		if (rangeHeader == null || contentSize <= 0)
+			return null;
+
+		String range = rangeHeader.trim();
+		if (!range.toLowerCase().startsWith("bytes="))
+			return null;
+		range = range.substring(6).trim();
+
+		// Several ranges are not supported:
+		if (range.indexOf(',') >= 0)
+			return null;
+
+		int indSep = range.indexOf('-');
+		if (indSep < 0)
+			return null;
+
+		try{
+			String firstStr = range.substring(0, indSep).trim(), lastStr = range.substring(indSep + 1).trim();
+			long first, last;
+
+			// CASE: suffix range (i.e. "-500" = the last 500 bytes):
+			if (firstStr.isEmpty()){
+				if (lastStr.isEmpty())
+					return null;
+				long suffix = Long.parseLong(lastStr);
+				if (suffix <= 0)
+					return new long[]{ -1, -1 };
+				first = Math.max(0, contentSize - suffix);
+				last = contentSize - 1;
+			}
+			// CASE: "first-" or "first-last":
+			else{
+				first = Long.parseLong(firstStr);
+				last = lastStr.isEmpty() ? Long.MAX_VALUE : Long.parseLong(lastStr);
+				if (first < 0 || last < first)
+					return null;
+				else if (first >= contentSize)
+					return new long[]{ -1, -1 };
+				last = Math.min(last, contentSize - 1);
+			}
+
+			return new long[]{ first, last };
+		}catch(NumberFormatException nfe){
+			return null;
+		}
+	}
+
 	/**
 	 * Writes the stack trace of the given exception in the file whose the name and the parent directory are given in parameters.
 	 * If the specified file already exists, it will be overwritten if the parameter <i>overwrite</i> is equal to <i>true</i>, otherwise
@@ -22,6 +22,7 @@ package uws.config;
 
 import static uws.config.UWSConfiguration.DEFAULT_BACKUP_BY_USER;
 import static uws.config.UWSConfiguration.DEFAULT_BACKUP_FREQUENCY;
+import static uws.config.UWSConfiguration.DEFAULT_COMPRESS_RESULTS;
 import static uws.config.UWSConfiguration.DEFAULT_DIRECTORY_PER_USER;
 import static uws.config.UWSConfiguration.DEFAULT_GROUP_USER_DIRECTORIES;
 import static uws.config.UWSConfiguration.DEFAULT_LOGGER;
@@ -31,6 +32,7 @@ import static uws.config.UWSConfiguration.KEY_ADD_UWS_ACTIONS;
 import static uws.config.UWSConfiguration.KEY_BACKUP_BY_USER;
 import static uws.config.UWSConfiguration.KEY_BACKUP_FREQUENCY;
 import static uws.config.UWSConfiguration.KEY_DESTRUCTION_MANAGER;
+import static uws.config.UWSConfiguration.KEY_COMPRESS_RESULTS;
 import static uws.config.UWSConfiguration.KEY_DIRECTORY_PER_USER;
 import static uws.config.UWSConfiguration.KEY_ERROR_WRITER;
 import static uws.config.UWSConfiguration.KEY_EXECUTION_MANAGER;
@@ -283,9 +285,15 @@ public class ConfigurableUWSServlet extends HttpServlet {
 			propValue = getProperty(uwsConfig, KEY_GROUP_USER_DIRECTORIES);
 			boolean groupUserDirectories = (propValue == null) ? DEFAULT_GROUP_USER_DIRECTORIES : Boolean.parseBoolean(propValue);
 
+			// Determine whether results must be compressed on disk:
+			propValue = getProperty(uwsConfig, KEY_COMPRESS_RESULTS);
+			boolean compressResults = (propValue == null) ? DEFAULT_COMPRESS_RESULTS : Boolean.parseBoolean(propValue);
+
 			// Build the Local TAP File Manager:
 			try{
-				return new LocalUWSFileManager(rootFile, oneDirectoryPerUser, groupUserDirectories);
+				LocalUWSFileManager localFileManager = new LocalUWSFileManager(rootFile, oneDirectoryPerUser, groupUserDirectories);
+				localFileManager.setResultCompressionEnabled(compressResults);
+				return localFileManager;
 			}catch(UWSException e){
 				throw new UWSException("The property \"" + KEY_FILE_ROOT_PATH + "\" (" + rootPath + ") is incorrect: " + e.getMessage());
 			}
@@ -176,6 +176,14 @@ public final class UWSConfiguration {
 	public final static String KEY_GROUP_USER_DIRECTORIES = "group_user_directories";
 	/** Default value of the property {@link #KEY_GROUP_USER_DIRECTORIES}: {@value #DEFAULT_GROUP_USER_DIRECTORIES}. */
 	public final static boolean DEFAULT_GROUP_USER_DIRECTORIES = false;
+	/** Name/Key of the property indicating whether the job results must be compressed (in GZIP) on disk.
+	 * If yes, they are sent compressed to the HTTP clients accepting the GZIP content-encoding, and uncompressed to the others.
+	 * <em>This property is used only if {@link #KEY_FILE_MANAGER} is set to {@link #VALUE_LOCAL}.</em>
+	 * @since 4.5 */
+	public final static String KEY_COMPRESS_RESULTS = "compress_results";
+	/** Default value of the property {@link #KEY_COMPRESS_RESULTS}: {@value #DEFAULT_COMPRESS_RESULTS}.
+	 * @since 4.5 */
+	public final static boolean DEFAULT_COMPRESS_RESULTS = false;
 
 	/* LOG KEYS */
 
@@ -16,7 +16,7 @@ package uws.job;
  * You should have received a copy of the GNU Lesser General Public License
  * along with UWSLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2012-2025 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -123,7 +123,7 @@ import java.util.*;
  * </ul>
  *
  * @author	Gr&eacute;gory Mantelet (CDS;ARI)
- * @version	4.5 (02/2025)
+ * @version	4.5 (10/2026)
  */
 public class UWSJob extends SerializableUWSObject {
 	private static final long serialVersionUID = 1L;
@@ -2008,7 +2008,9 @@ public class UWSJob extends SerializableUWSObject {
 	public final void notifyObservers(ExecutionPhase oldPhase) {
 		String errors = null;
 
-		for(JobObserver observer : observers) {
+		/* note: iterate over a copy because observers may be removed (even by
+		 *       themselves) while being notified: */
+		for(JobObserver observer : observers.toArray(new JobObserver[0])) {
 			// Update this observer:
 			try {
 				observer.update(this, oldPhase, getPhase());
@@ -16,7 +16,7 @@ package uws.job.manager;
  * You should have received a copy of the GNU Lesser General Public License
  * along with UWSLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2012-2017 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -45,7 +45,9 @@ import uws.service.log.UWSLog.LogLevel;
  * </p>
  *
  * <p><i>Note:
- * 	The order of queued jobs is preserved: it is implemented by a FIFO queue.
+ * 	By default, the order of queued jobs is preserved: it is implemented by a
+ * 	FIFO queue. An extension can change the position at which a job is put
+ * 	into the queue by overwriting {@link #getQueuePosition(UWSJob)}.
  * </i></p>
  *
  * <p><i>Note:
@@ -56,7 +58,7 @@ import uws.service.log.UWSLog.LogLevel;
  * </i></p>
  *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 4.3 (09/2017)
+ * @version 4.5 (10/2026)
  */
 public abstract class AbstractQueuedExecutionManager implements ExecutionManager {
 
@@ -185,6 +187,30 @@ public abstract class AbstractQueuedExecutionManager implements ExecutionManager
 		}
 	}
 
+	/**
+	 * Gives the position at which the given job must be put into the queue.
+	 *
+	 * <p>
+	 * 	By default, the job is put at the end of the queue (i.e. the position
+	 * 	returned is the current number of queued jobs).
+	 * </p>
+	 *
+	 * <p><i>Note:
+	 * 	This function is called while this manager is locked. So, the queue
+	 * 	can not change during its execution.
+	 * </i></p>
+	 *
+	 * @param jobToQueue	The job to put into the queue.
+	 *
+	 * @return	Index of the job in the queue, between 0 (i.e. first job to
+	 *        	execute) and {@link #getNbQueuedJobs()} (i.e. end of the queue).
+	 *
+	 * @since 4.5
+	 */
+	protected int getQueuePosition(final UWSJob jobToQueue){
+		return queuedJobs.size();
+	}
+
 	/**
 	 * Refreshes this manager and then put the given job into the queue (if
 	 * it is not already into it).
@@ -232,7 +258,7 @@ public abstract class AbstractQueuedExecutionManager implements ExecutionManager
 					jobToExecute.setPhase(ExecutionPhase.QUEUED);
 
 				if (!queuedJobs.contains(jobToExecute)){
-					queuedJobs.add(jobToExecute);
+					queuedJobs.add(Math.max(0, Math.min(getQueuePosition(jobToExecute), queuedJobs.size())), jobToExecute);
 					refresh();
 				}
 			}catch(UWSException ue){
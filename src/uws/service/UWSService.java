@@ -16,7 +16,7 @@ package uws.service;
  * You should have received a copy of the GNU Lesser General Public License
  * along with UWSLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2012-2022 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -139,7 +139,7 @@ import uws.service.wait.BlockingPolicy;
  * </p>
  *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 4.4 (04/2022)
+ * @version 4.5 (10/2026)
  */
 public class UWSService implements UWS {
 
@@ -1196,7 +1196,10 @@ public class UWSService implements UWS {
 			if (action == null)
 				throw new UWSException(UWSException.NOT_IMPLEMENTED, "Unknown UWS action!");
 
-			response.flushBuffer();
+			/* note: the response of an asynchronous request (e.g. a WAIT on a
+			 *       job) is written and flushed later: */
+			if (!request.isAsyncStarted())
+				response.flushBuffer();
 
 			// Log the successful execution of the action:
 			logger.logHttp(LogLevel.INFO, response, reqID, user, "UWS action \"" + ((action != null) ? action.getName() : null) + "\" successfully executed.", null);
@@ -16,7 +16,7 @@ package uws.service;
  * You should have received a copy of the GNU Lesser General Public License
  * along with UWSLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2012-2020 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -72,6 +72,7 @@ import uws.service.log.UWSLog.LogLevel;
 import uws.service.request.RequestParser;
 import uws.service.request.UWSRequestParser;
 import uws.service.request.UploadFile;
+import uws.service.wait.AsyncWaitObserver;
 import uws.service.wait.BlockingPolicy;
 
 /**
@@ -153,7 +154,7 @@ import uws.service.wait.BlockingPolicy;
  * </p>
  *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 4.5 (07/2020)
+ * @version 4.5 (10/2026)
  */
 public abstract class UWSServlet extends HttpServlet implements UWS, UWSFactory {
 	private static final long serialVersionUID = 1L;
@@ -457,7 +458,10 @@ public abstract class UWSServlet extends HttpServlet implements UWS, UWSFactory
 			else
 				throw new UWSException(UWSException.NOT_IMPLEMENTED, "Unknown UWS action!");
 
-			resp.flushBuffer();
+			/* note: the response of an asynchronous request (e.g. a WAIT on a
+			 *       job) is written and flushed later: */
+			if (!req.isAsyncStarted())
+				resp.flushBuffer();
 
 			// Log the successful execution of the action:
 			logger.logHttp(LogLevel.INFO, resp, reqID, user, "UWS action \"" + uwsAction + "\" successfully executed.", null);
@@ -655,14 +659,40 @@ public abstract class UWSServlet extends HttpServlet implements UWS, UWSFactory
 		redirect(requestUrl.listJobs(jobsList.getName()).getRequestURL(), req, user, UWSAction.DESTROY_JOB, resp);
 	}
 
-	protected void doJobSummary(UWSUrl requestUrl, HttpServletRequest req, HttpServletResponse resp, JobOwner user) throws UWSException, ServletException, IOException {
+	protected void doJobSummary(final UWSUrl requestUrl, final HttpServletRequest req, final HttpServletResponse resp, final JobOwner user) throws UWSException, ServletException, IOException {
 		// Get the job:
-		UWSJob job = getJob(requestUrl);
-
-		// Block if necessary:
-		JobSummary.block(waitPolicy, req, job, user);
+		final UWSJob job = getJob(requestUrl);
+
+		/* Wait if necessary, without blocking the current thread if possible
+		 * (the job summary will then be written once the wait is over): */
+		AsyncWaitObserver.ResponseWriter writer = new AsyncWaitObserver.ResponseWriter() {
+			@Override
+			public void write(final HttpServletResponse response) throws Exception {
+				writeJobSummary(requestUrl, job, user, req, response);
+			}
+		};
+		if (JobSummary.blockAsync(waitPolicy, req, resp, job, user, writer, getLogger()))
+			return;
 
 		// Write the job summary:
+		writeJobSummary(requestUrl, job, user, req, resp);
+	}
+
+	/**
+	 * Write the serialization of the given job in the given response.
+	 *
+	 * @param requestUrl	The UWS URL of the request.
+	 * @param job			The job to serialize.
+	 * @param user			The user who asked for the job summary.
+	 * @param req			The HTTP request.
+	 * @param resp			The HTTP response in which the job must be
+	 *            			serialized.
+	 *
+	 * @throws UWSException	If any error occurs while serializing the job.
+	 *
+	 * @since 4.5
+	 */
+	protected void writeJobSummary(final UWSUrl requestUrl, final UWSJob job, final JobOwner user, final HttpServletRequest req, final HttpServletResponse resp) throws UWSException {
 		UWSSerializer serializer = getSerializer(req.getHeader("Accept"));
 		resp.setContentType(serializer.getMimeType());
 		resp.setCharacterEncoding(UWSToolBox.DEFAULT_CHAR_ENCODING);
@@ -691,16 +721,11 @@ public abstract class UWSServlet extends HttpServlet implements UWS, UWSFactory
 			else if (result.getHref() != null && !result.getHref().trim().isEmpty() && !result.getHref().equalsIgnoreCase(req.getRequestURL().toString()))
 				redirect(result.getHref(), req, user, UWSAction.GET_JOB_PARAM, resp);
 			else {
-				InputStream input = null;
 				try {
-					input = getFileManager().getResultInput(result, job);
-					UWSToolBox.write(input, result.getMimeType(), result.getSize(), resp);
+					UWSToolBox.writeResult(getFileManager(), result, job, req, resp);
 				} catch(IOException ioe) {
 					getLogger().logUWS(LogLevel.ERROR, result, "GET_RESULT", "Can not read the content of the result \"" + result.getId() + "\" of the job \"" + job.getJobId() + "\"!", ioe);
 					throw new UWSException(UWSException.INTERNAL_SERVER_ERROR, ioe, "Can not read the content of the result " + result.getId() + " (job ID: " + job.getJobId() + ").");
-				} finally {
-					if (input != null)
-						input.close();
 				}
 			}
 		}
@@ -16,12 +16,13 @@ package uws.service.actions;
  * You should have received a copy of the GNU Lesser General Public License
  * along with UWSLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2012-2017 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
 import java.io.IOException;
 import java.util.Enumeration;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
@@ -35,7 +36,9 @@ import uws.job.serializer.UWSSerializer;
 import uws.job.user.JobOwner;
 import uws.service.UWSService;
 import uws.service.UWSUrl;
+import uws.service.log.UWSLog;
 import uws.service.log.UWSLog.LogLevel;
+import uws.service.wait.AsyncWaitObserver;
 import uws.service.wait.BlockingPolicy;
 import uws.service.wait.WaitObserver;
 
@@ -53,7 +56,7 @@ import uws.service.wait.WaitObserver;
  * </p>
  *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 4.3 (11/2017)
+ * @version 4.5 (10/2026)
  */
 public class JobSummary extends UWSAction {
 	private static final long serialVersionUID = 1L;
@@ -63,10 +66,26 @@ public class JobSummary extends UWSAction {
 	 * @since 4.3 */
 	public final static String WAIT_PARAMETER = "WAIT";
 
+	/** Number of threads currently blocked by {@link #block(BlockingPolicy, HttpServletRequest, UWSJob, JobOwner)}.
+	 * @since 4.5 */
+	private final static AtomicInteger nbBlockedThreads = new AtomicInteger(0);
+
 	public JobSummary(UWSService u){
 		super(u);
 	}
 
+	/**
+	 * Get the number of threads currently blocked by a WAIT request
+	 * (see {@link #block(BlockingPolicy, HttpServletRequest, UWSJob, JobOwner)}).
+	 *
+	 * @return	Number of blocked threads.
+	 *
+	 * @since 4.5
+	 */
+	public static int getNbBlockedThreads(){
+		return nbBlockedThreads.get();
+	}
+
 	/**
 	 * @see UWSAction#JOB_SUMMARY
 	 * @see uws.service.actions.UWSAction#getName()
@@ -112,14 +131,42 @@ public class JobSummary extends UWSAction {
 	 * @see uws.service.actions.UWSAction#apply(UWSUrl, JobOwner, HttpServletRequest, HttpServletResponse)
 	 */
 	@Override
-	public boolean apply(UWSUrl urlInterpreter, JobOwner user, HttpServletRequest request, HttpServletResponse response) throws UWSException, IOException{
+	public boolean apply(final UWSUrl urlInterpreter, final JobOwner user, final HttpServletRequest request, final HttpServletResponse response) throws UWSException, IOException{
 		// Get the job:
-		UWSJob job = getJob(urlInterpreter);
+		final UWSJob job = getJob(urlInterpreter);
 
-		// Block if necessary:
-		JobSummary.block(uws.getWaitPolicy(), request, job, user);
+		/* Wait if necessary, without blocking the current thread if possible
+		 * (the job summary will then be written once the wait is over): */
+		AsyncWaitObserver.ResponseWriter writer = new AsyncWaitObserver.ResponseWriter(){
+			@Override
+			public void write(final HttpServletResponse response) throws Exception{
+				writeSummary(urlInterpreter, job, user, request, response);
+			}
+		};
+		if (JobSummary.blockAsync(uws.getWaitPolicy(), request, response, job, user, writer, getLogger()))
+			return true;
 
 		// Write the job summary:
+		writeSummary(urlInterpreter, job, user, request, response);
+
+		return true;
+	}
+
+	/**
+	 * Write the serialization of the given job in the given response.
+	 *
+	 * @param urlInterpreter	The UWS URL of the request.
+	 * @param job				The job to serialize.
+	 * @param user				The user who asked for the job summary.
+	 * @param request			The HTTP request.
+	 * @param response			The HTTP response in which the job must be
+	 *                			serialized.
+	 *
+	 * @throws UWSException	If any error occurs while serializing the job.
+	 *
+	 * @since 4.5
+	 */
+	protected void writeSummary(final UWSUrl urlInterpreter, final UWSJob job, final JobOwner user, final HttpServletRequest request, final HttpServletResponse response) throws UWSException{
 		UWSSerializer serializer = uws.getSerializer(request.getHeader("Accept"));
 		response.setContentType(serializer.getMimeType());
 		response.setCharacterEncoding(UWSToolBox.DEFAULT_CHAR_ENCODING);
@@ -132,8 +179,6 @@ public class JobSummary extends UWSAction {
 			}else
 				throw (UWSException)e;
 		}
-
-		return true;
 	}
 
 	/**
@@ -205,9 +250,140 @@ public class JobSummary extends UWSAction {
 		if (req == null || job == null)
 			return;
 
+		/* The HTTP-GET request should block until either the specified time
+		 * (or the timeout) is reached or if the job phase changed: */
+		long waitingTime = getWaitingTime(req, job);
+		if (waitingTime != 0){
+			Thread threadToBlock = Thread.currentThread();
+			WaitObserver observer = null;
+
+			/* Eventually limit the waiting time in function of the chosen
+			 * policy: */
+			if (policy != null)
+				waitingTime = policy.block(threadToBlock, waitingTime, job, user, req);
+
+			/* Blocking ONLY IF the duration is NOT NULL (i.e. wait during 0
+			 * seconds): */
+			if (waitingTime != 0){
+				try{
+					/* Watch the job in order to detect an execution phase
+					 * modification: */
+					observer = new WaitObserver(threadToBlock);
+					job.addObserver(observer);
+
+					/* If the job is still processing, then wait the specified
+					 * time: */
+					if (job.getPhase() == ExecutionPhase.PENDING || job.getPhase() == ExecutionPhase.QUEUED || job.getPhase() == ExecutionPhase.EXECUTING){
+						nbBlockedThreads.incrementAndGet();
+						try{
+							synchronized(threadToBlock){
+								// Limited duration:
+								if (waitingTime > 0)
+									threadToBlock.wait(waitingTime * 1000);
+								/* "Unlimited" duration (the wait will stop only if
+								 * the job phase changes): */
+								else
+									threadToBlock.wait();
+							}
+						}finally{
+							nbBlockedThreads.decrementAndGet();
+						}
+					}
+
+				}catch(InterruptedException ie){
+					/* If the WAIT has been interrupted, the blocking
+					 * is stopped and nothing special should happen. */
+				}
+				/* Clear all retained resources. */
+				finally{
+					// Do not observe any more the job:
+					if (observer != null)
+						job.removeObserver(observer);
+
+					/* Notify the BlockingPolicy that this Thread is no longer
+					 * blocked: */
+					if (policy != null)
+						policy.unblocked(threadToBlock, job, user, req);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Wait until the specified duration (in seconds) is elapsed or if the
+	 * execution phase of the target job changes, <b>without blocking the
+	 * current thread</b>.
+	 *
+	 * <p>
+	 * 	The HTTP parameters WAIT and PHASE are interpreted exactly as in
+	 * 	{@link #block(BlockingPolicy, HttpServletRequest, UWSJob, JobOwner)}.
+	 * 	But instead of blocking the current thread, the request is put in the
+	 * 	asynchronous mode of Servlet 3.0 thanks to an {@link AsyncWaitObserver}:
+	 * 	the container thread is immediately released and the response is
+	 * 	written by the given {@link AsyncWaitObserver.ResponseWriter} only
+	 * 	once the wait is over.
+	 * </p>
+	 *
+	 * <p><i>Note:
+	 * 	If the request does not support the asynchronous mode (i.e. the servlet
+	 * 	is not declared with <code>&lt;async-supported&gt;true&lt;/async-supported&gt;</code>),
+	 * 	this function falls back on
+	 * 	{@link #block(BlockingPolicy, HttpServletRequest, UWSJob, JobOwner)}
+	 * 	and returns <i>false</i>.
+	 * </i></p>
+	 *
+	 * @param policy	Strategy to adopt for the blocking behavior.
+	 *              	<i>If NULL, the duration specified by the user is
+	 *              	applied.</i>
+	 * @param req		The HTTP request which asked for the blocking.
+	 * @param resp		The HTTP response of this request.
+	 * @param job		The job associate with the HTTP request.
+	 * @param user		The user who asked for the blocking behavior.
+	 *            		<i>NULL if no user is logged in.</i>
+	 * @param writer	The object writing the response once the wait is over.
+	 * @param logger	The logger to use in case of error while writing the
+	 *              	response. <i>May be NULL.</i>
+	 *
+	 * @return	<i>true</i> if the request is waiting (the response must not be
+	 *        	written by the caller),
+	 *        	<i>false</i> if the response must be written immediately by the
+	 *        	caller (no wait, or wait already done).
+	 *
+	 * @since 4.5
+	 */
+	public static boolean blockAsync(final BlockingPolicy policy, final HttpServletRequest req, final HttpServletResponse resp, final UWSJob job, final JobOwner user, final AsyncWaitObserver.ResponseWriter writer, final UWSLog logger){
+		if (req == null || resp == null || job == null || writer == null)
+			return false;
+
+		// No asynchronous support => block the current thread:
+		if (!req.isAsyncSupported() || req.isAsyncStarted()){
+			block(policy, req, job, user);
+			return false;
+		}
+
+		return new AsyncWaitObserver(policy, req, resp, job, user, writer, logger).start(getWaitingTime(req, job));
+	}
+
+	/**
+	 * Get the duration (in seconds) to wait, in function of the parameters
+	 * WAIT and PHASE of the given request and of the phase of the given job.
+	 *
+	 * <p>See {@link #block(BlockingPolicy, HttpServletRequest, UWSJob, JobOwner)}
+	 * for more details about these parameters.</p>
+	 *
+	 * @param req	The HTTP request which asked for the blocking.
+	 * @param job	The job associate with the HTTP request.
+	 *
+	 * @return	The duration to wait (in seconds),
+	 *        	a negative value for an unlimited wait,
+	 *        	or 0 if no wait must be done.
+	 *
+	 * @since 4.5
+	 */
+	protected static long getWaitingTime(final HttpServletRequest req, final UWSJob job){
 		/* No blocking if the job is not in an "active" phase: */
 		if (job.getPhase() != ExecutionPhase.PENDING && job.getPhase() != ExecutionPhase.QUEUED && job.getPhase() != ExecutionPhase.EXECUTING)
-			return;
+			return 0;
 
 		/* Extract the parameters WAIT (only the smallest waiting time is taken
 		 * into account) and PHASE (only the last legal occurrence is taken into
@@ -251,57 +427,8 @@ public class JobSummary extends UWSAction {
 			}
 		}
 
-		/* The HTTP-GET request should block until either the specified time
-		 * (or the timeout) is reached or if the job phase changed: */
-		if (waitingTime != 0 && (phase == null || job.getPhase() == phase)){
-			Thread threadToBlock = Thread.currentThread();
-			WaitObserver observer = null;
-
-			/* Eventually limit the waiting time in function of the chosen
-			 * policy: */
-			if (policy != null)
-				waitingTime = policy.block(threadToBlock, waitingTime, job, user, req);
-
-			/* Blocking ONLY IF the duration is NOT NULL (i.e. wait during 0
-			 * seconds): */
-			if (waitingTime != 0){
-				try{
-					/* Watch the job in order to detect an execution phase
-					 * modification: */
-					observer = new WaitObserver(threadToBlock);
-					job.addObserver(observer);
-
-					/* If the job is still processing, then wait the specified
-					 * time: */
-					if (job.getPhase() == ExecutionPhase.PENDING || job.getPhase() == ExecutionPhase.QUEUED || job.getPhase() == ExecutionPhase.EXECUTING){
-						synchronized(threadToBlock){
-							// Limited duration:
-							if (waitingTime > 0)
-								threadToBlock.wait(waitingTime * 1000);
-							/* "Unlimited" duration (the wait will stop only if
-							 * the job phase changes): */
-							else
-								threadToBlock.wait();
-						}
-					}
-
-				}catch(InterruptedException ie){
-					/* If the WAIT has been interrupted, the blocking
-					 * is stopped and nothing special should happen. */
-				}
-				/* Clear all retained resources. */
-				finally{
-					// Do not observe any more the job:
-					if (observer != null)
-						job.removeObserver(observer);
-
-					/* Notify the BlockingPolicy that this Thread is no longer
-					 * blocked: */
-					if (policy != null)
-						policy.unblocked(threadToBlock, job, user, req);
-				}
-			}
-		}
+		/* Wait only if the job is in the specified phase (if any): */
+		return (phase == null || job.getPhase() == phase) ? waitingTime : 0;
 	}
 
 }
@@ -16,7 +16,7 @@ package uws.service.file;
  * You should have received a copy of the GNU Lesser General Public License
  * along with UWSLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2012-2025 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2012-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
@@ -41,6 +41,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
 
 import uws.UWSException;
 import uws.UWSToolBox;
@@ -48,6 +49,7 @@ import uws.job.ErrorSummary;
 import uws.job.Result;
 import uws.job.UWSJob;
 import uws.job.user.JobOwner;
+import uws.service.file.io.GZIPBlockOutputStream;
 import uws.service.file.io.OutputStreamWithCloseAction;
 import uws.service.file.io.RotateFileAction;
 import uws.service.log.UWSLog.LogLevel;
@@ -77,8 +79,13 @@ import uws.service.request.UploadFile;
  * 	function {@link #setLogRotationFreq(String)}.
  * </p>
  *
+ * <p>
+ * 	Result files may be compressed (in GZIP) on disk. This option is disabled
+ * 	by default ; see {@link #setResultCompressionEnabled(boolean)}.
+ * </p>
+ *
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 4.5 (02/2025)
+ * @version 4.5 (10/2026)
  */
 public class LocalUWSFileManager implements UWSFileManager {
 
@@ -97,6 +104,11 @@ public class LocalUWSFileManager implements UWSFileManager {
 	 * @since 4.4 */
 	protected File tmpDirectory = new File(System.getProperty("java.io.tmpdir"));
 
+	/** Indicate whether result files must be compressed (in GZIP) when
+	 * written.
+	 * @since 4.5 */
+	protected boolean compressResults = false;
+
 	/** Output toward the service log file. */
 	protected PrintWriter logOutput = null;
 	/** Frequency at which the log file must be "rotated" (the file is renamed with the date of its first write and a new log file is created).
@@ -513,6 +525,15 @@ public class LocalUWSFileManager implements UWSFileManager {
 		if (!ownerDir.exists())
 			createParentDir(copy);
 
+		/* If possible, just rename the file (i.e. no copy is needed when the
+		 * source and the destination are on the same file system): */
+		try{
+			if (source.renameTo(copy))
+				return copy.toURI().toString();
+		}catch(SecurityException se){
+		}
+
+		// Otherwise, copy the file content:
 		OutputStream output = null;
 		InputStream input = null;
 		boolean done = false;
@@ -604,31 +625,177 @@ public class LocalUWSFileManager implements UWSFileManager {
 		return new File(ownerDir, getResultFileName(result, job));
 	}
 
+	/**
+	 * Gets the file in which the given result is/must be written when result
+	 * compression is enabled.
+	 *
+	 * <p>By default: {@link #getResultFile(Result, UWSJob)} + ".gz"</p>
+	 *
+	 * @param result	The result whose the compressed file is asked.
+	 * @param job		The job which owns the given result.
+	 *
+	 * @return			The compressed file corresponding to the given result.
+	 *
+	 * @see #getResultFile(Result, UWSJob)
+	 *
+	 * @since 4.5
+	 */
+	protected File getCompressedResultFile(final Result result, final UWSJob job){
+		File ownerDir = getOwnerDirectory(job.getOwner());
+		return new File(ownerDir, getResultFileName(result, job) + ".gz");
+	}
+
+	/**
+	 * Tell whether result files are compressed when written.
+	 *
+	 * @return	<i>true</i> if new results are compressed in GZIP,
+	 *        	<i>false</i> otherwise.
+	 *
+	 * @since 4.5
+	 */
+	public final boolean isResultCompressionEnabled(){
+		return compressResults;
+	}
+
+	/**
+	 * Enable/Disable the compression of result files.
+	 *
+	 * <p>
+	 * 	If enabled, results are written in GZIP with a
+	 * 	{@link GZIPBlockOutputStream} (i.e. one independent GZIP member per
+	 * 	block of uncompressed data). {@link #getResultInput(Result, UWSJob)}
+	 * 	still returns the uncompressed content, but the compressed one can be
+	 * 	got with {@link #getResultStoredInput(Result, UWSJob)} so that it can be
+	 * 	sent as such to HTTP clients accepting the GZIP content-encoding.
+	 * </p>
+	 *
+	 * <p><i><b>Note:</b>
+	 * 	This option has an effect only on the results written after this
+	 * 	function call. Results already written in another mode can still be
+	 * 	read.
+	 * </i></p>
+	 *
+	 * @param enabled	<i>true</i> to compress new results,
+	 *               	<i>false</i> to store them as provided.
+	 *
+	 * @since 4.5
+	 */
+	public final void setResultCompressionEnabled(final boolean enabled){
+		compressResults = enabled;
+	}
+
+	/**
+	 * Tell whether the given result is stored compressed (in GZIP).
+	 *
+	 * @param result	The result to test.
+	 * @param job		The job which owns the given result.
+	 *
+	 * @return	<i>true</i> if the result is stored in GZIP,
+	 *        	<i>false</i> otherwise.
+	 *
+	 * @since 4.5
+	 */
+	public boolean isResultCompressed(final Result result, final UWSJob job){
+		return getCompressedResultFile(result, job).exists();
+	}
+
 	@Override
 	public InputStream getResultInput(Result result, UWSJob job) throws IOException{
-		File resultFile = getResultFile(result, job);
+		File resultFile = getCompressedResultFile(result, job);
+		if (resultFile.exists())
+			return new GZIPInputStream(new FileInputStream(resultFile), 8192);
+		resultFile = getResultFile(result, job);
+		return resultFile.exists() ? new FileInputStream(resultFile) : null;
+	}
+
+	/**
+	 * Open a stream toward the result file exactly as it is stored.
+	 *
+	 * <p>
+	 * 	If the result is stored compressed (see
+	 * 	{@link #isResultCompressed(Result, UWSJob)}), the returned stream
+	 * 	provides the GZIP content. Otherwise, it is the same as
+	 * 	{@link #getResultInput(Result, UWSJob)}.
+	 * </p>
+	 *
+	 * @param result	The description of the result whose the content is asked.
+	 * @param job		The job which owns the given result.
+	 *
+	 * @return	A stream toward the stored result,
+	 *        	or NULL if the result file does not exist.
+	 *
+	 * @throws IOException	If there is an error while opening the file.
+	 *
+	 * @since 4.5
+	 */
+	public InputStream getResultStoredInput(final Result result, final UWSJob job) throws IOException{
+		File resultFile = getCompressedResultFile(result, job);
+		if (!resultFile.exists())
+			resultFile = getResultFile(result, job);
 		return resultFile.exists() ? new FileInputStream(resultFile) : null;
 	}
 
 	@Override
 	public OutputStream getResultOutput(Result result, UWSJob job) throws IOException{
-		File resultFile = getResultFile(result, job);
-		createParentDir(resultFile);
-		return new FileOutputStream(resultFile);
+		if (compressResults){
+			File resultFile = getCompressedResultFile(result, job);
+			createParentDir(resultFile);
+			return new GZIPBlockOutputStream(new FileOutputStream(resultFile));
+		}else{
+			File resultFile = getResultFile(result, job);
+			createParentDir(resultFile);
+			return new FileOutputStream(resultFile);
+		}
 	}
 
+	/**
+	 * Get the logical size of the given result, that is to say the size of
+	 * the uncompressed content.
+	 *
+	 * <p>See {@link #getResultStoredSize(Result, UWSJob)} for the size on disk.</p>
+	 */
 	@Override
 	public long getResultSize(Result result, UWSJob job) throws IOException{
-		File resultFile = getResultFile(result, job);
+		File resultFile = getCompressedResultFile(result, job);
+		if (resultFile.exists())
+			return GZIPBlockOutputStream.readUncompressedSize(resultFile);
+		resultFile = getResultFile(result, job);
 		if (resultFile == null || !resultFile.exists())
 			return -1;
 		else
 			return resultFile.length();
 	}
 
+	/**
+	 * Get the size of the given result as it is stored on disk.
+	 *
+	 * <p>
+	 * 	If the result is stored compressed, this size is the size of the GZIP
+	 * 	file. Otherwise, it is the same as
+	 * 	{@link #getResultSize(Result, UWSJob)}.
+	 * </p>
+	 *
+	 * @param result	The description of the result whose the size is asked.
+	 * @param job		The job which owns the given result.
+	 *
+	 * @return	Size (in bytes) of the stored result,
+	 *        	or -1 if the result file does not exist.
+	 *
+	 * @throws IOException	If there is an error while getting the size.
+	 *
+	 * @since 4.5
+	 */
+	public long getResultStoredSize(final Result result, final UWSJob job) throws IOException{
+		File resultFile = getCompressedResultFile(result, job);
+		if (!resultFile.exists())
+			resultFile = getResultFile(result, job);
+		return resultFile.exists() ? resultFile.length() : -1;
+	}
+
 	@Override
 	public boolean deleteResult(Result result, UWSJob job) throws IOException{
 		boolean deleted = getResultFile(result, job).delete();
+		deleted = getCompressedResultFile(result, job).delete() || deleted;
 
 		if (deleted)
 			cleanOwnerDirectory(job.getOwner());
@@ -0,0 +1,347 @@
+package uws.service.file.io;
+
+/*
+ * This file is part of UWSLibrary.
+ *
+ * UWSLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * UWSLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with UWSLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * This {@link OutputStream} compresses everything written inside it in the
+ * GZIP format before forwarding it to the wrapped {@link OutputStream}.
+ *
+ * <p>
+ * 	Contrary to {@link java.util.zip.GZIPOutputStream}, the data are not
+ * 	compressed as a single GZIP member. A new independent GZIP member is
+ * 	started every {@link #getBlockSize()} uncompressed bytes. Since GZIP
+ * 	readers (including {@link GZIPInputStream} and HTTP clients) concatenate
+ * 	the content of all members, the result is still a valid GZIP stream ; but
+ * 	it can be produced, read and served progressively.
+ * </p>
+ *
+ * <p>
+ * 	The written bytes are buffered until a whole block is available (or
+ * 	until the stream is closed): each GZIP member is then compressed in one
+ * 	go. Thus, callers do not need to buffer their writes themselves, even if
+ * 	they write byte per byte (as some formatters do).
+ * </p>
+ *
+ * <p>
+ * 	When this stream is closed, a last empty GZIP member is appended. Its
+ * 	header contains an extra field ({@link #SIZE_FIELD_ID1} and
+ * 	{@link #SIZE_FIELD_ID2}) declaring the total number of uncompressed bytes.
+ * 	This member has always a size of {@link #SIZE_MEMBER_LENGTH} bytes. Thus,
+ * 	the uncompressed size of a GZIP file written by this class can be read
+ * 	without decompressing the whole file, with {@link #readUncompressedSize(File)}.
+ * </p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 4.5 (10/2026)
+ * @since 4.5
+ */
+public class GZIPBlockOutputStream extends OutputStream {
+
+	/** Default number of uncompressed bytes per GZIP member: 1MiB. */
+	public final static int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+	/** First byte of the identifier of the GZIP extra field declaring the
+	 * total uncompressed size. */
+	public final static byte SIZE_FIELD_ID1 = 'U';
+	/** Second byte of the identifier of the GZIP extra field declaring the
+	 * total uncompressed size. */
+	public final static byte SIZE_FIELD_ID2 = 'S';
+
+	/** Length (in bytes) of the last GZIP member declaring the total
+	 * uncompressed size. */
+	public final static int SIZE_MEMBER_LENGTH = 34;
+
+	/** Header of a GZIP member without any optional field. */
+	private final static byte[] MEMBER_HEADER = new byte[]{ (byte)0x1f, (byte)0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+	/** Wrapped {@link OutputStream}. */
+	private final OutputStream output;
+
+	/** Maximum number of uncompressed bytes in a GZIP member. */
+	private final int blockSize;
+
+	/** Compressor (without any header ; it is reset for each new member). */
+	private final Deflater deflater;
+
+	/** Checksum of the uncompressed data of the current member. */
+	private final CRC32 crc = new CRC32();
+
+	/** Buffer for the compressed bytes. */
+	private final byte[] buffer = new byte[8192];
+
+	/** Buffer for the uncompressed bytes of the next member.
+	 * <i>Allocated at the first write.</i> */
+	private byte[] input = null;
+
+	/** Number of uncompressed bytes waiting in {@link #input}. */
+	private int nbPending = 0;
+
+	/** Buffer for the little-endian integers of the GZIP trailers. */
+	private final byte[] intBuffer = new byte[4];
+
+	/** Total number of uncompressed bytes written in this stream. */
+	private long totalSize = 0;
+
+	/** Indicate whether this stream is closed. */
+	private boolean closed = false;
+
+	/**
+	 * Create a {@link GZIPBlockOutputStream} with the default block size
+	 * ({@link #DEFAULT_BLOCK_SIZE}) and compression level.
+	 *
+	 * @param output	The {@link OutputStream} to wrap.
+	 *
+	 * @throws NullPointerException	If the given {@link OutputStream} is missing.
+	 */
+	public GZIPBlockOutputStream(final OutputStream output) throws NullPointerException{
+		this(output, DEFAULT_BLOCK_SIZE, Deflater.DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * Create a {@link GZIPBlockOutputStream}.
+	 *
+	 * @param output	The {@link OutputStream} to wrap.
+	 * @param blockSize	Maximum number of uncompressed bytes per GZIP member.
+	 *                 	<i>If &le; 0, {@link #DEFAULT_BLOCK_SIZE} is used.</i>
+	 * @param level		Compression level (from 0 to 9, or
+	 *             		{@link Deflater#DEFAULT_COMPRESSION}).
+	 *
+	 * @throws NullPointerException	If the given {@link OutputStream} is missing.
+	 */
+	public GZIPBlockOutputStream(final OutputStream output, final int blockSize, final int level) throws NullPointerException{
+		if (output == null)
+			throw new NullPointerException("Missing OutputStream to wrap!");
+		else
+			this.output = output;
+
+		this.blockSize = (blockSize <= 0) ? DEFAULT_BLOCK_SIZE : blockSize;
+		this.deflater = new Deflater(level, true);
+	}
+
+	/**
+	 * Get the maximum number of uncompressed bytes per GZIP member.
+	 *
+	 * @return	Block size.
+	 */
+	public final int getBlockSize(){
+		return blockSize;
+	}
+
+	@Override
+	public void write(final int b) throws IOException{
+		if (closed)
+			throw new IOException("Stream closed!");
+		if (input == null)
+			input = new byte[blockSize];
+		input[nbPending++] = (byte)b;
+		if (nbPending == blockSize)
+			writePending();
+	}
+
+	@Override
+	public void write(final byte[] b, int off, int len) throws IOException{
+		if (closed)
+			throw new IOException("Stream closed!");
+
+		int nb;
+		while(len > 0){
+			// a whole block with nothing pending => compressed without copy:
+			if (nbPending == 0 && len >= blockSize){
+				writeMember(b, off, blockSize);
+				off += blockSize;
+				len -= blockSize;
+				continue;
+			}
+
+			// otherwise, complete the pending block:
+			if (input == null)
+				input = new byte[blockSize];
+			nb = Math.min(len, blockSize - nbPending);
+			System.arraycopy(b, off, input, nbPending, nb);
+			nbPending += nb;
+			off += nb;
+			len -= nb;
+
+			// write it as a member if full:
+			if (nbPending == blockSize)
+				writePending();
+		}
+	}
+
+	/**
+	 * Get the total number of uncompressed bytes written so far (including
+	 * the buffered ones, not yet compressed).
+	 *
+	 * @return	Uncompressed size.
+	 */
+	public final long getUncompressedSize(){
+		return totalSize + nbPending;
+	}
+
+	/**
+	 * Write all pending uncompressed bytes as a GZIP member (if any).
+	 *
+	 * @throws IOException	If an error occurs while writing.
+	 */
+	private void writePending() throws IOException{
+		if (nbPending > 0){
+			writeMember(input, 0, nbPending);
+			nbPending = 0;
+		}
+	}
+
+	/**
+	 * Write the given bytes as a complete GZIP member: header, compressed
+	 * bytes and trailer (CRC32 and size).
+	 *
+	 * @param b		Uncompressed bytes.
+	 * @param off	Index of the first byte to compress.
+	 * @param len	Number of bytes to compress.
+	 *
+	 * @throws IOException	If an error occurs while writing.
+	 */
+	private void writeMember(final byte[] b, final int off, final int len) throws IOException{
+		output.write(MEMBER_HEADER);
+
+		crc.update(b, off, len);
+		deflater.setInput(b, off, len);
+		deflater.finish();
+		while(!deflater.finished()){
+			int nb = deflater.deflate(buffer, 0, buffer.length);
+			if (nb > 0)
+				output.write(buffer, 0, nb);
+		}
+
+		writeInt((int)crc.getValue());
+		writeInt(len);
+
+		deflater.reset();
+		crc.reset();
+		totalSize += len;
+	}
+
+	/**
+	 * Write the given integer in little-endian order (as required by GZIP).
+	 *
+	 * @param i	Integer to write.
+	 *
+	 * @throws IOException	If an error occurs while writing.
+	 */
+	private void writeInt(final int i) throws IOException{
+		intBuffer[0] = (byte)i;
+		intBuffer[1] = (byte)(i >> 8);
+		intBuffer[2] = (byte)(i >> 16);
+		intBuffer[3] = (byte)(i >> 24);
+		output.write(intBuffer);
+	}
+
+	/**
+	 * Flush the wrapped stream.
+	 *
+	 * <p><i>Note:
+	 * 	The pending uncompressed bytes are not compressed: they are written
+	 * 	only when their block is complete or when this stream is closed, so
+	 * 	that all members (except the last one) have the same size.
+	 * </i></p>
+	 */
+	@Override
+	public void flush() throws IOException{
+		output.flush();
+	}
+
+	@Override
+	public void close() throws IOException{
+		if (closed)
+			return;
+
+		try{
+			// Write the last member:
+			writePending();
+
+			// Append the empty member declaring the total uncompressed size:
+			output.write(MEMBER_HEADER, 0, 3);
+			output.write(4);	// FLG = FEXTRA
+			output.write(MEMBER_HEADER, 4, 6);
+			output.write(12);	// XLEN
+			output.write(0);
+			output.write(SIZE_FIELD_ID1);
+			output.write(SIZE_FIELD_ID2);
+			output.write(8);	// LEN
+			output.write(0);
+			writeInt((int)totalSize);
+			writeInt((int)(totalSize >>> 32));
+			output.write(3);	// empty final block of compressed data
+			output.write(0);
+			writeInt(0);		// CRC32
+			writeInt(0);		// ISIZE
+
+			output.flush();
+		}finally{
+			closed = true;
+			deflater.end();
+			output.close();
+		}
+	}
+
+	/**
+	 * Read the total uncompressed size declared at the end of the given GZIP
+	 * file by a {@link GZIPBlockOutputStream}.
+	 *
+	 * @param gzipFile	The GZIP file to read.
+	 *
+	 * @return	The uncompressed size of the given file,
+	 *        	or -1 if the file does not exist or has not been written by
+	 *        	a {@link GZIPBlockOutputStream}.
+	 *
+	 * @throws IOException	If an error occurs while reading the file.
+	 */
+	public static long readUncompressedSize(final File gzipFile) throws IOException{
+		if (gzipFile == null || !gzipFile.exists() || gzipFile.length() < SIZE_MEMBER_LENGTH)
+			return -1;
+
+		byte[] member = new byte[SIZE_MEMBER_LENGTH];
+		RandomAccessFile file = new RandomAccessFile(gzipFile, "r");
+		try{
+			file.seek(gzipFile.length() - SIZE_MEMBER_LENGTH);
+			file.readFully(member);
+		}finally{
+			file.close();
+		}
+
+		// Check this is really the expected GZIP member:
+		if (member[0] != MEMBER_HEADER[0] || member[1] != MEMBER_HEADER[1] || member[3] != 4 || member[12] != SIZE_FIELD_ID1 || member[13] != SIZE_FIELD_ID2 || member[14] != 8)
+			return -1;
+
+		// Read the size (little-endian):
+		long size = 0;
+		for(int i = 23; i >= 16; i--)
+			size = (size << 8) | (member[i] & 0xff);
+		return size;
+	}
+
+}
@@ -16,21 +16,23 @@ package uws.service.request;
  * You should have received a copy of the GNU Lesser General Public License
  * along with UWSLibrary.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Copyright 2014-2018 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
+ * Copyright 2014-2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS),
  *                       Astronomisches Rechen Institut (ARI)
  */
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 
-import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUploadBase.FileUploadIOException;
 import org.apache.commons.fileupload.FileUploadException;
 import org.apache.commons.fileupload.disk.DiskFileItemFactory;
 import org.apache.commons.fileupload.servlet.ServletFileUpload;
@@ -55,6 +57,11 @@ import uws.service.file.UWSFileManager;
  * 	implementation to delete unused request files.
  * </p>
  *
+ * <p>
+ * 	The request body is read in a streaming way: the content of an uploaded
+ * 	file is written only once on the disk, directly from the HTTP request.
+ * </p>
+ *
  * <h4>Upload limits</h4>
  *
  * <p>
@@ -84,7 +91,7 @@ import uws.service.file.UWSFileManager;
  * </p>
  *
  * @author Gr&eacute;gory Mantelet (ARI;CDS)
- * @version 4.4 (09/2018)
+ * @version 4.5 (10/2026)
  * @since 4.1
  */
 public class MultipartParser implements RequestParser {
@@ -104,6 +111,11 @@ public class MultipartParser implements RequestParser {
 	/** Size threshold (in bytes) for an individual file before being stored on
 	 * disk. Below this threshold, the file is only stored in memory.
 	 * <p><i><b>Note:</b> By default, set to 10 kiB.</i></p>
+	 * <p><i><b>Note:</b>
+	 * 	Since 4.5, {@link #parse(HttpServletRequest)} uses the streaming API of
+	 * 	Commons FileUpload. So, this threshold is used only by
+	 * 	{@link ServletFileUpload#parseRequest(HttpServletRequest)}.
+	 * </i></p>
 	 * @since 4.4 */
 	protected final static int SIZE_BEFORE_DISK_STORAGE = 10 * 1024;
 
@@ -279,37 +291,69 @@ public class MultipartParser implements RequestParser {
 		fileUpload.setSizeMax((maxRequestSize < 0) ? -1 : maxRequestSize);
 	}
 
+	/**
+	 * Parse the given multipart HTTP request.
+	 *
+	 * <p>
+	 * 	The request content is read with the streaming API of Commons
+	 * 	FileUpload: each part is read only once, directly from the request
+	 * 	body. Form fields are kept in memory, while the content of each
+	 * 	uploaded file is written directly in its final file inside the
+	 * 	temporary directory of the file manager (there is no intermediate
+	 * 	temporary copy).
+	 * </p>
+	 *
+	 * <p><i><b>Note:</b>
+	 * 	If an error occurs while reading the request, all the files already
+	 * 	written for this request are deleted.
+	 * </i></p>
+	 */
 	@Override
 	public final Map<String, Object> parse(final HttpServletRequest request) throws UWSException{
 		LinkedHashMap<String, Object> parameters = new LinkedHashMap<String, Object>();
+		ArrayList<UploadFile> uploads = new ArrayList<UploadFile>();
+		boolean done = false;
 
 		try{
-			List<FileItem> fileItems = fileUpload.parseRequest(request);
-			for(FileItem item : fileItems){
+			FileItemIterator itemIterator = fileUpload.getItemIterator(request);
+			while(itemIterator.hasNext()){
+				FileItemStream item = itemIterator.next();
 				String name = item.getFieldName();
-				InputStream stream = item.getInputStream();
-				if (item.isFormField())
-					consumeParameter(name, Streams.asString(stream), parameters);
-				else{
-					if (!allowUpload)
-						throw new UWSException(UWSException.BAD_REQUEST, "Uploads are not allowed by this service!");
+				InputStream stream = item.openStream();
+				try{
+					if (item.isFormField())
+						consumeParameter(name, Streams.asString(stream), parameters);
 					else{
-						// keep the file:
-						File file = getFileFromParam(request, fileManager.getTmpDirectory().getPath(), FilenameUtils.getName(item.getName()));
-						FileUtils.copyInputStreamToFile(stream, file);
-						// build its description/pointer:
-						UploadFile lob = new UploadFile(name, FilenameUtils.getName(item.getName()), file.toURI().toString(), fileManager);
-						lob.mimeType = item.getContentType();
-						lob.length = file.length();
-						// add it inside the parameters map:
-						consumeParameter(name, lob, parameters);
+						if (!allowUpload)
+							throw new UWSException(UWSException.BAD_REQUEST, "Uploads are not allowed by this service!");
+						else{
+							// keep the file:
+							File file = getFileFromParam(request, fileManager.getTmpDirectory().getPath(), FilenameUtils.getName(item.getName()));
+							// build its description/pointer:
+							UploadFile lob = new UploadFile(name, FilenameUtils.getName(item.getName()), file.toURI().toString(), fileManager);
+							lob.mimeType = item.getContentType();
+							uploads.add(lob);
+							// write its content (in one pass):
+							FileUtils.copyInputStreamToFile(stream, file);
+							lob.length = file.length();
+							// add it inside the parameters map:
+							consumeParameter(name, lob, parameters);
+						}
 					}
+				}finally{
+					stream.close();
 				}
-				// finally delete the file item stored by FileUpload:
-				item.delete();
 			}
+			done = true;
 		}catch(FileUploadException fue){
-			throw new UWSException(UWSException.BAD_REQUEST, fue, "Incorrect HTTP request: " + fue.getMessage() + " (server limits: each file/parameter <= " + (fileUpload.getFileSizeMax() <= 0 ? "unlimited" : fileUpload.getFileSizeMax() + " bytes") + " and the whole request <= " + (fileUpload.getSizeMax() <= 0 ? "unlimited" : fileUpload.getSizeMax()) + " bytes)");
+			throw new UWSException(UWSException.BAD_REQUEST, fue, getLimitsErrorMessage(fue));
+		}catch(FileUploadIOException fuioe){
+			/* Note: with the streaming API, exceeded limits are reported with
+			 *       an IOException wrapping the FileUploadException. */
+			if (fuioe.getCause() != null && fuioe.getCause() instanceof FileUploadException)
+				throw new UWSException(UWSException.BAD_REQUEST, fuioe.getCause(), getLimitsErrorMessage((FileUploadException)fuioe.getCause()));
+			else
+				throw new UWSException(UWSException.BAD_REQUEST, fuioe, "Incorrect HTTP request: " + fuioe.getMessage());
 		}catch(IOException ioe){
 			throw new UWSException(UWSException.BAD_REQUEST, ioe, "Incorrect HTTP request: " + ioe.getMessage());
 		}catch(IllegalArgumentException iae){
@@ -317,11 +361,36 @@ public class MultipartParser implements RequestParser {
 			if (fileManager.getTmpDirectory() == null)
 				confError = "Missing upload directory!";
 			throw new UWSException(UWSException.INTERNAL_SERVER_ERROR, iae, "Internal Error! Incorrect UPLOAD configuration: " + confError);
+		}finally{
+			// In case of error, delete all the files written for this request:
+			if (!done){
+				for(UploadFile upl : uploads){
+					try{
+						upl.deleteFile();
+					}catch(IOException ioe){
+					}
+				}
+			}
 		}
 
 		return parameters;
 	}
 
+	/**
+	 * Build the error message to return when the given {@link FileUploadException}
+	 * is thrown while reading the HTTP request. This message lists the limits
+	 * set on this parser.
+	 *
+	 * @param fue	The error thrown while reading the request.
+	 *
+	 * @return	The corresponding error message.
+	 *
+	 * @since 4.5
+	 */
+	protected String getLimitsErrorMessage(final FileUploadException fue){
+		return "Incorrect HTTP request: " + fue.getMessage() + " (server limits: each file/parameter <= " + (fileUpload.getFileSizeMax() <= 0 ? "unlimited" : fileUpload.getFileSizeMax() + " bytes") + " and the whole request <= " + (fileUpload.getSizeMax() <= 0 ? "unlimited" : fileUpload.getSizeMax()) + " bytes)";
+	}
+
 	/**
 	 * Return the path of a non-existing file inside the given directory and
 	 * whose the name is built using the given file name and the HTTP request
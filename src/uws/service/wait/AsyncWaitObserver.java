@@ -0,0 +1,389 @@
+package uws.service.wait;
+
+/*
+ * This file is part of UWSLibrary.
+ *
+ * UWSLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * UWSLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with UWSLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2026 - UDS/Centre de Données astronomiques de Strasbourg (CDS)
+ */
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import uws.UWSException;
+import uws.job.ExecutionPhase;
+import uws.job.JobObserver;
+import uws.job.UWSJob;
+import uws.job.user.JobOwner;
+import uws.service.log.UWSLog;
+import uws.service.log.UWSLog.LogLevel;
+
+/**
+ * Job observer which lets an HTTP request wait for a change of the execution
+ * phase of a job <b>without blocking any thread</b>.
+ *
+ * <p>
+ * 	Contrary to {@link WaitObserver}, the waiting request is put in the
+ * 	asynchronous mode of Servlet 3.0 ({@link HttpServletRequest#startAsync()}):
+ * 	the container thread is immediately released. The response is written
+ * 	(by the given {@link ResponseWriter}) and the request completed only when:
+ * </p>
+ * <ul>
+ * 	<li>the execution phase of the job changes,</li>
+ * 	<li>the waiting duration (possibly limited by the {@link BlockingPolicy})
+ * 		is elapsed,</li>
+ * 	<li>or the {@link BlockingPolicy} unblocks this request (see
+ * 		{@link WaitingRequest#unblock()}).</li>
+ * </ul>
+ *
+ * <h3>Blocking policy</h3>
+ * <p>
+ * 	A {@link BlockingPolicy} identifies blocked requests by their thread.
+ * 	Since no thread is blocked here, the waiting request is represented by a
+ * 	{@link WaitingRequest}: a {@link Thread} which is never started. A
+ * 	{@link BlockingPolicy} wanting to unblock it must call
+ * 	{@link WaitingRequest#unblock()} instead of {@link Object#notifyAll()}
+ * 	(as done by {@link UserLimitedBlockingPolicy}).
+ * </p>
+ *
+ * @author Gr&eacute;gory Mantelet (CDS)
+ * @version 4.5 (10/2026)
+ * @since 4.5
+ */
+public class AsyncWaitObserver implements JobObserver, AsyncListener {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Object writing the response of the waiting request, once the wait is
+	 * over.
+	 *
+	 * @author Gr&eacute;gory Mantelet (CDS)
+	 * @version 4.5 (10/2026)
+	 * @since 4.5
+	 */
+	public static interface ResponseWriter {
+		/**
+		 * Write the response of the waiting request.
+		 *
+		 * @param response	The response to write.
+		 *
+		 * @throws Exception	If any error occurs while writing the response.
+		 */
+		public void write(final HttpServletResponse response) throws Exception;
+	}
+
+	/**
+	 * Thread (never started) representing a waiting request for a
+	 * {@link BlockingPolicy}.
+	 *
+	 * @author Gr&eacute;gory Mantelet (CDS)
+	 * @version 4.5 (10/2026)
+	 * @since 4.5
+	 */
+	public static class WaitingRequest extends Thread {
+		/** The observer managing the waiting request. */
+		private final AsyncWaitObserver observer;
+
+		protected WaitingRequest(final AsyncWaitObserver observer){
+			super("AsyncWait-" + observer.job.getJobId());
+			this.observer = observer;
+		}
+
+		/**
+		 * Stop waiting: the response is written and the request completed.
+		 */
+		public void unblock(){
+			observer.resume(false);
+		}
+	}
+
+	/** The watched job. */
+	private final transient UWSJob job;
+
+	/** The policy limiting the waiting duration. <i>May be NULL.</i> */
+	private final transient BlockingPolicy policy;
+
+	/** The user who asked for the wait. <i>May be NULL.</i> */
+	private final transient JobOwner user;
+
+	/** The waiting request. */
+	private final transient HttpServletRequest request;
+
+	/** The response of the waiting request. */
+	private final transient HttpServletResponse response;
+
+	/** The object writing the response once the wait is over. */
+	private final transient ResponseWriter writer;
+
+	/** The logger to use in case of error while writing the response.
+	 * <i>May be NULL.</i> */
+	private final transient UWSLog logger;
+
+	/** Representation of the waiting request for the {@link BlockingPolicy}. */
+	private final transient WaitingRequest waitingRequest;
+
+	/** Asynchronous context of the waiting request.
+	 * <i>NULL until the wait is started.</i> */
+	private transient AsyncContext context = null;
+
+	/** Indicate whether the wait is over. */
+	private boolean resumed = false;
+
+	/** Number of requests currently waiting (i.e. started but not yet
+	 * completed). */
+	private final static AtomicInteger nbWaitingRequests = new AtomicInteger(0);
+
+	/**
+	 * Build an observer able to make the given request wait for a change of
+	 * the execution phase of the given job.
+	 *
+	 * @param policy	The policy limiting the waiting duration.
+	 *              	<i>May be NULL.</i>
+	 * @param request	The request which must wait.
+	 * @param response	The response of this request.
+	 * @param job		The job to watch.
+	 * @param user		The user who asked for the wait. <i>May be NULL.</i>
+	 * @param writer	The object writing the response once the wait is over.
+	 * @param logger	The logger to use in case of error while writing the
+	 *              	response. <i>May be NULL.</i>
+	 *
+	 * @throws NullPointerException	If the request, response, job or writer is
+	 *                             	missing.
+	 */
+	public AsyncWaitObserver(final BlockingPolicy policy, final HttpServletRequest request, final HttpServletResponse response, final UWSJob job, final JobOwner user, final ResponseWriter writer, final UWSLog logger) throws NullPointerException{
+		if (request == null || response == null || job == null || writer == null)
+			throw new NullPointerException("Missing request, response, job or response writer!");
+
+		this.policy = policy;
+		this.request = request;
+		this.response = response;
+		this.job = job;
+		this.user = user;
+		this.writer = writer;
+		this.logger = logger;
+		this.waitingRequest = new WaitingRequest(this);
+	}
+
+	/**
+	 * Get the thread representing the waiting request for the
+	 * {@link BlockingPolicy}.
+	 *
+	 * @return	The waiting request.
+	 */
+	public final WaitingRequest getWaitingRequest(){
+		return waitingRequest;
+	}
+
+	/**
+	 * Start waiting.
+	 *
+	 * <p>
+	 * 	The given duration is first submitted to the {@link BlockingPolicy}
+	 * 	(if any). If the resulting duration is not null, the request is put
+	 * 	in asynchronous mode and this function returns immediately.
+	 * </p>
+	 *
+	 * @param waitingTime	Duration (in seconds) asked by the user.
+	 *                   	<i>&lt; 0 means indefinite, 0 means no wait.</i>
+	 *
+	 * @return	<i>true</i> if the request is waiting (its response will be
+	 *        	written later),
+	 *        	<i>false</i> if no wait is needed (the response must be
+	 *        	written immediately by the caller).
+	 *
+	 * @throws IllegalStateException	If the request does not support the
+	 *                              	asynchronous mode.
+	 */
+	public boolean start(long waitingTime) throws IllegalStateException{
+		if (waitingTime == 0)
+			return false;
+
+		/* Eventually limit the waiting time in function of the chosen
+		 * policy: */
+		if (policy != null)
+			waitingTime = policy.block(waitingRequest, waitingTime, job, user, request);
+
+		if (waitingTime == 0)
+			return false;
+
+		final boolean alreadyUnblocked;
+		synchronized(this){
+			// Release the container thread:
+			context = request.startAsync(request, response);
+			context.setTimeout((waitingTime > 0) ? waitingTime * 1000 : 0);
+			context.addListener(this);
+			alreadyUnblocked = resumed;
+			nbWaitingRequests.incrementAndGet();
+		}
+
+		// If the policy already unblocked this request, stop immediately the wait:
+		if (alreadyUnblocked){
+			complete(context, false);
+			return true;
+		}
+
+		// Watch the job in order to detect an execution phase modification:
+		job.addObserver(this);
+
+		// If the job is not processing any more, stop immediately the wait:
+		if (!isActive(job.getPhase()))
+			resume(false);
+
+		return true;
+	}
+
+	/**
+	 * Tell whether the given phase is one in which a job may be waited for.
+	 *
+	 * @param phase	The phase to test.
+	 *
+	 * @return	<i>true</i> if PENDING, QUEUED or EXECUTING,
+	 *        	<i>false</i> otherwise.
+	 */
+	protected static boolean isActive(final ExecutionPhase phase){
+		return phase == ExecutionPhase.PENDING || phase == ExecutionPhase.QUEUED || phase == ExecutionPhase.EXECUTING;
+	}
+
+	/**
+	 * Get the number of requests currently waiting for a job phase change
+	 * (i.e. started with {@link #start(long)} but not yet completed).
+	 *
+	 * @return	Number of waiting requests.
+	 */
+	public static int getNbWaitingRequests(){
+		return nbWaitingRequests.get();
+	}
+
+	@Override
+	public void update(final UWSJob job, final ExecutionPhase oldPhase, final ExecutionPhase newPhase) throws UWSException{
+		if (oldPhase != null && newPhase != null && oldPhase != newPhase)
+			resume(false);
+	}
+
+	/**
+	 * Stop waiting: write the response and complete the request.
+	 *
+	 * <p><i>Note:
+	 * 	Only the first call has an effect.
+	 * </i></p>
+	 *
+	 * @param inContainerThread	<i>true</i> if the current thread is a
+	 *                         	container thread dedicated to this request
+	 *                         	(e.g. in {@link #onTimeout(AsyncEvent)}) ;
+	 *                         	the response is then written immediately.
+	 *                         	<i>false</i> to write it in another thread
+	 *                         	of the container.
+	 */
+	protected void resume(final boolean inContainerThread){
+		final AsyncContext ctx;
+		synchronized(this){
+			if (resumed)
+				return;
+			resumed = true;
+			/* if the wait is not yet started (i.e. unblocked by the policy
+			 * while being blocked), start() will complete the request: */
+			if (context == null)
+				return;
+			ctx = context;
+		}
+		complete(ctx, inContainerThread);
+	}
+
+	/**
+	 * Release all retained resources, write the response and complete the
+	 * request.
+	 *
+	 * @param ctx				Asynchronous context of the request.
+	 * @param inContainerThread	<i>true</i> to write the response in the
+	 *                         	current thread,
+	 *                         	<i>false</i> to write it in another thread of
+	 *                         	the container.
+	 */
+	private void complete(final AsyncContext ctx, final boolean inContainerThread){
+		// Clear all retained resources:
+		release();
+		nbWaitingRequests.decrementAndGet();
+
+		// Write the response and complete the request:
+		Runnable task = new Runnable(){
+			@Override
+			public void run(){
+				try{
+					writer.write(response);
+				}catch(Throwable t){
+					if (logger != null)
+						logger.logUWS(LogLevel.ERROR, job, "WAIT", "Can not write the response of the request which was waiting for the job \"" + job.getJobId() + "\"!", t);
+					try{
+						if (!response.isCommitted())
+							response.sendError(UWSException.INTERNAL_SERVER_ERROR, "Can not write the description of the job \"" + job.getJobId() + "\"!");
+					}catch(IOException ioe){}
+				}finally{
+					ctx.complete();
+				}
+			}
+		};
+		if (inContainerThread)
+			task.run();
+		else
+			ctx.start(task);
+	}
+
+	/**
+	 * Stop watching the job and notify the {@link BlockingPolicy} that the
+	 * request is not blocked any more.
+	 */
+	private void release(){
+		job.removeObserver(this);
+		if (policy != null)
+			policy.unblocked(waitingRequest, job, user, request);
+	}
+
+	@Override
+	public void onTimeout(final AsyncEvent event) throws IOException{
+		resume(true);
+	}
+
+	@Override
+	public void onComplete(final AsyncEvent event) throws IOException{
+		// nothing to do: already released
+	}
+
+	@Override
+	public void onError(final AsyncEvent event) throws IOException{
+		// the client is gone => just release the resources:
+		boolean wasWaiting;
+		synchronized(this){
+			wasWaiting = !resumed;
+			resumed = true;
+		}
+		if (wasWaiting){
+			release();
+			nbWaitingRequests.decrementAndGet();
+			event.getAsyncContext().complete();
+		}
+	}
+
+	@Override
+	public void onStartAsync(final AsyncEvent event) throws IOException{
+		// nothing to do
+	}
+
+}
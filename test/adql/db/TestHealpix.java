@@ -0,0 +1,157 @@
+package adql.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestHealpix {
+
+	@Test
+	public void testAng2Pix(){
+		// Base pixels:
+		assertEquals(0, Healpix.ang2pix(0, 45, 60));
+		assertEquals(1, Healpix.ang2pix(0, 135, 60));
+		assertEquals(4, Healpix.ang2pix(0, 0, 0));
+		assertEquals(5, Healpix.ang2pix(0, 90, 0));
+		assertEquals(6, Healpix.ang2pix(0, 180, 0));
+		assertEquals(7, Healpix.ang2pix(0, 270, 0));
+		assertEquals(8, Healpix.ang2pix(0, 45, -60));
+
+		// Negative or >= 360 right ascensions:
+		assertEquals(Healpix.ang2pix(10, 350, 12.5), Healpix.ang2pix(10, -10, 12.5));
+		assertEquals(Healpix.ang2pix(10, 10, 12.5), Healpix.ang2pix(10, 370, 12.5));
+
+		// Pixel center => same pixel:
+		Random random = new Random(42);
+		for(int order : new int[]{ 0, 3, 10, Healpix.MAX_ORDER }){
+			for(int i = 0; i < 1000; i++){
+				long pix = Healpix.ang2pix(order, random.nextDouble() * 360, Math.toDegrees(Math.asin(random.nextDouble() * 2 - 1)));
+				assertTrue(pix >= 0 && pix < 12L << (2 * order));
+				double[] center = Healpix.pix2ang(order, pix);
+				assertEquals(pix, Healpix.ang2pix(order, center[0], center[1]));
+			}
+		}
+
+		// Incorrect order:
+		for(int order : new int[]{ -1, Healpix.MAX_ORDER + 1 }){
+			try{
+				Healpix.ang2pix(order, 0, 0);
+				fail("This order should have been rejected: " + order);
+			}catch(Exception ex){
+				assertEquals(IllegalArgumentException.class, ex.getClass());
+			}
+		}
+	}
+
+	@Test
+	public void testQueryDisc(){
+		Random random = new Random(42);
+		for(double[] disc : new double[][]{ { 10, 20, 0.5 }, { 359.8, -5, 1 }, { 0, 89.5, 2 }, { 120, -60, 15 } }){
+			long[] ranges = Healpix.queryDisc(8, disc[0], disc[1], disc[2], 0);
+			checkRanges(ranges);
+			// Any position inside the disc must be in a returned pixel:
+			for(int i = 0; i < 2000; i++){
+				double[] pos = randomPosition(random, disc[0], disc[1], disc[2]);
+				if (distance(pos[0], pos[1], disc[0], disc[1]) <= disc[2])
+					assertTrue(contains(ranges, Healpix.ang2pix(8, pos[0], pos[1])));
+			}
+			// ...but not too many pixels must be returned:
+			assertTrue(count(ranges) < 4 * Math.PI * Math.pow(disc[2] + 2 * Math.toDegrees(Healpix.getMaxPixelRadius(8)), 2) / (41253.0 / (12L << 16)));
+		}
+
+		// Limited number of ranges => superset of the unlimited ranges:
+		long[] all = Healpix.queryDisc(10, 120, -60, 15, 0);
+		long[] limited = Healpix.queryDisc(10, 120, -60, 15, 3);
+		checkRanges(limited);
+		assertTrue(limited.length <= 6);
+		assertTrue(all.length > limited.length);
+		for(int i = 0; i < all.length; i += 2)
+			assertTrue(contains(limited, all[i]) && contains(limited, all[i + 1]));
+	}
+
+	@Test
+	public void testQueryBox(){
+		Random random = new Random(42);
+		for(double[] box : new double[][]{ { 10, 20, 1, 0.5 }, { 0, 0, 2, 2 }, { 200, -85, 40, 10 } }){
+			long[] ranges = Healpix.queryBox(8, box[0], box[1], box[2], box[3], 0);
+			checkRanges(ranges);
+			for(int i = 0; i < 2000; i++){
+				double ra = box[0] + (random.nextDouble() - 0.5) * box[2], dec = Math.max(-90, box[1] + (random.nextDouble() - 0.5) * box[3]);
+				assertTrue(contains(ranges, Healpix.ang2pix(8, ra, dec)));
+			}
+		}
+	}
+
+	@Test
+	public void testQueryPolygon(){
+		double[] ras = new double[]{ 10, 12, 11 }, decs = new double[]{ 20, 20, 22 };
+		long[] ranges = Healpix.queryPolygon(8, ras, decs, 0);
+		checkRanges(ranges);
+
+		// Any position inside the triangle (barycentric coordinates) must be in a returned pixel:
+		Random random = new Random(42);
+		for(int i = 0; i < 2000; i++){
+			double a = random.nextDouble(), b = random.nextDouble();
+			if (a + b > 1){
+				a = 1 - a;
+				b = 1 - b;
+			}
+			double ra = ras[0] + a * (ras[1] - ras[0]) + b * (ras[2] - ras[0]), dec = decs[0] + a * (decs[1] - decs[0]) + b * (decs[2] - decs[0]);
+			// (stay away from the edges: they are great circles, not straight lines in RA/Dec)
+			if (a > 0.01 && b > 0.01 && a + b < 0.99)
+				assertTrue(contains(ranges, Healpix.ang2pix(8, ra, dec)));
+		}
+
+		// A position far away from the polygon must not be returned:
+		assertTrue(!contains(ranges, Healpix.ang2pix(8, 30, 20)));
+
+		// Not enough vertices:
+		try{
+			Healpix.queryPolygon(8, new double[]{ 10, 12 }, new double[]{ 20, 20 }, 0);
+			fail("A polygon with only 2 vertices should have been rejected!");
+		}catch(Exception ex){
+			assertEquals(IllegalArgumentException.class, ex.getClass());
+		}
+	}
+
+	private static void checkRanges(final long[] ranges){
+		assertTrue(ranges.length > 0);
+		assertEquals(0, ranges.length % 2);
+		for(int i = 0; i < ranges.length; i += 2){
+			assertTrue(ranges[i] <= ranges[i + 1]);
+			if (i > 0)
+				assertTrue(ranges[i - 1] + 1 < ranges[i]);
+		}
+	}
+
+	private static boolean contains(final long[] ranges, final long pix){
+		for(int i = 0; i < ranges.length; i += 2){
+			if (pix >= ranges[i] && pix <= ranges[i + 1])
+				return true;
+		}
+		return false;
+	}
+
+	private static long count(final long[] ranges){
+		long n = 0;
+		for(int i = 0; i < ranges.length; i += 2)
+			n += ranges[i + 1] - ranges[i] + 1;
+		return n;
+	}
+
+	private static double[] randomPosition(final Random random, final double ra, final double dec, final double radius){
+		double d = Math.max(-90, Math.min(90, dec + (random.nextDouble() * 2 - 1) * radius));
+		double cosDec = Math.max(Math.cos(Math.toRadians(d)), 1e-6);
+		return new double[]{ ra + (random.nextDouble() * 2 - 1) * Math.min(180, radius / cosDec), d };
+	}
+
+	private static double distance(final double ra1, final double dec1, final double ra2, final double dec2){
+		double a = Math.pow(Math.sin(Math.toRadians(dec2 - dec1) / 2), 2) + Math.cos(Math.toRadians(dec1)) * Math.cos(Math.toRadians(dec2)) * Math.pow(Math.sin(Math.toRadians(ra2 - ra1) / 2), 2);
+		return Math.toDegrees(2 * Math.asin(Math.min(1, Math.sqrt(a))));
+	}
+
+}
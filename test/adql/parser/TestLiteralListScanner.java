@@ -0,0 +1,199 @@
+package adql.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import adql.query.ADQLList;
+import adql.query.ADQLObject;
+import adql.query.ADQLQuery;
+import adql.query.ClauseConstraints;
+import adql.query.LiteralList;
+import adql.query.TextPosition;
+import adql.query.constraint.Comparison;
+import adql.query.constraint.In;
+import adql.query.operand.NegativeOperand;
+import adql.query.operand.NumericConstant;
+import adql.query.operand.StringConstant;
+import adql.query.operand.function.geometry.ContainsFunction;
+import adql.query.operand.function.geometry.PolygonFunction;
+import adql.search.ISearchHandler;
+import adql.search.SimpleSearchHandler;
+import adql.translator.PgSphereTranslator;
+import adql.translator.PostgreSQLTranslator;
+
+public class TestLiteralListScanner {
+
+	/** Query with a numeric IN list, a string IN list and a big polygon, on
+	 * several lines and with tabulations. */
+	private String bigQuery;
+
+	@Before
+	public void setUp() throws Exception{
+		StringBuffer adql = new StringBuffer("SELECT id\nFROM stars\tWHERE id NOT IN (\t-1,\n +2");
+		for(int i = 3; i < 300; i++)
+			adql.append((i % 7 == 0) ? ",\r\n" : ", ").append((i % 3 == 0) ? "-" : "").append(i).append((i % 5 == 0) ? ".5E-3" : "");
+		adql.append(" ) AND name IN ('a''b'");
+		for(int i = 0; i < 200; i++)
+			adql.append(", 'x").append(i).append('\'');
+		adql.append(") AND CONTAINS(POINT('ICRS', ra, dec), POLYGON('ICRS'");
+		for(int i = 0; i < 150; i++)
+			adql.append(", ").append(10 + i).append(",\t-").append(i * 0.5);
+		bigQuery = adql.append(")) = 1 ORDER BY id").toString();
+	}
+
+	@Test
+	public void testScan(){
+		/* CASE: No query or no list long enough => nothing to extract */
+		assertNull(LiteralListScanner.scan(null, 3));
+		assertNull(LiteralListScanner.scan(bigQuery, 0));
+		assertNull(LiteralListScanner.scan(bigQuery, 1000));
+		assertNull(LiteralListScanner.scan("SELECT * FROM t WHERE a IN (1, 2)", 3));
+
+		/* CASE: Lists inside strings, delimited identifiers or comments => nothing to extract */
+		assertNull(LiteralListScanner.scan("SELECT 'IN (1, 2, 3, 4)' AS \"IN (1, 2, 3, 4)\" FROM t -- IN (1, 2, 3, 4)", 3));
+
+		/* CASE: Mixed or concatenated items => nothing to extract */
+		assertNull(LiteralListScanner.scan("SELECT * FROM t WHERE a IN (1, 'b', 3, 4)", 3));
+		assertNull(LiteralListScanner.scan("SELECT * FROM t WHERE a IN ('a', 'b' 'c', 'd', 'e')", 3));
+		assertNull(LiteralListScanner.scan("SELECT * FROM t WHERE a IN (1, 2, b, 4)", 3));
+
+		/* CASE: Keyword not separated from a preceding identifier => nothing to extract */
+		assertNull(LiteralListScanner.scan("SELECT * FROM t WHERE myIN (1, 2, 3, 4) = 1", 3));
+
+		/* CASE: A numeric list and a string list => reduced to their first item */
+		LiteralListScanner scanner = LiteralListScanner.scan("SELECT * FROM t WHERE a IN (1, -2, 3.5E2, +4) AND b in ('a''b', 'c', 'd')", 3);
+		assertNotNull(scanner);
+		assertEquals("SELECT * FROM t WHERE a IN (1) AND b in ('a''b')", scanner.getReducedQuery());
+		assertFalse(scanner.isFullyClaimed());
+
+		/* CASE: A polygon => reduced to its first 3 vertices */
+		scanner = LiteralListScanner.scan("SELECT * FROM t WHERE CONTAINS(POINT('', ra, dec), POLYGON('ICRS', 1, 2, 3, 4, 5, 6, 7, 8)) = 1", 3);
+		assertNotNull(scanner);
+		assertEquals("SELECT * FROM t WHERE CONTAINS(POINT('', ra, dec), POLYGON('ICRS', 1, 2, 3, 4, 5, 6)) = 1", scanner.getReducedQuery());
+
+		/* CASE: Polygon with an odd number of coordinates => nothing to extract */
+		assertNull(LiteralListScanner.scan("SELECT * FROM t WHERE CONTAINS(POINT('', ra, dec), POLYGON('ICRS', 1, 2, 3, 4, 5, 6, 7)) = 1", 3));
+	}
+
+	@Test
+	public void testParseQuery() throws Exception{
+		ADQLParser fast = new ADQLParser();
+		fast.setMinCompactListSize(3);
+		ADQLParser normal = new ADQLParser();
+		normal.setMinCompactListSize(0);
+		assertEquals(0, normal.getMinCompactListSize());
+
+		String[] queries = new String[]{ bigQuery,
+				// error after the lists:
+				bigQuery.replace("ORDER BY id", "ORDER BY"),
+				// error inside a list:
+				bigQuery.replace(", 'x5'", ", 'x5' 'y'"), bigQuery.replace("id NOT IN (", "id NOT IN (1 "),
+				// mixed list:
+				bigQuery.replace("IN ('a", "IN (1, 'a"),
+				// list not parsed as a list of values:
+				bigQuery.replace("id NOT IN (", "id = -- IN\n("), bigQuery.replace("POLYGON('ICRS'", "POLYGON(COORDSYS(ra)") };
+		for(String adql : queries){
+			String expected, result;
+			try{
+				expected = dump(normal.parseQuery(adql));
+			}catch(ParseException pe){
+				expected = "ERROR " + pe.getMessage() + " " + pe.getPosition();
+			}
+			try{
+				result = dump(fast.parseQuery(adql));
+			}catch(ParseException pe){
+				result = "ERROR " + pe.getMessage() + " " + pe.getPosition();
+			}
+			assertEquals(expected, result);
+		}
+	}
+
+	@Test
+	public void testCompactList() throws Exception{
+		ADQLParser parser = new ADQLParser();
+		parser.setMinCompactListSize(3);
+		ADQLQuery query = parser.parseQuery(bigQuery);
+		ClauseConstraints where = query.getWhere();
+
+		/* Numeric IN list: */
+		In in = (In)where.get(0);
+		assertTrue(in.isNotIn());
+		assertEquals(LiteralList.class, in.getValuesList().getClass());
+		LiteralList numbers = (LiteralList)in.getValuesList();
+		assertTrue(numbers.isCompact());
+		assertFalse(numbers.isStringList());
+		assertEquals(299, numbers.size());
+		assertEquals("-1", numbers.getValue(0));
+		assertEquals("2", numbers.getValue(1));
+		assertEquals("5.5E-3", numbers.getValue(4));
+		assertEquals(NegativeOperand.class, numbers.get(0).getClass());
+		assertEquals(NumericConstant.class, numbers.get(1).getClass());
+		assertEquals(new TextPosition(2, 41, 45, 36).toString(), numbers.getPosition().toString());
+
+		/* String IN list: */
+		LiteralList strings = (LiteralList)((In)where.get(1)).getValuesList();
+		assertTrue(strings.isStringList());
+		assertEquals(201, strings.size());
+		assertEquals("a'b", strings.getValue(0));
+		assertEquals("a'b", ((StringConstant)strings.get(0)).getValue());
+		assertEquals("x199", strings.getValue(200));
+
+		/* Polygon: */
+		PolygonFunction polygon = (PolygonFunction)((ContainsFunction)((Comparison)where.get(2)).getLeftOperand()).getRightParam().getValue();
+		assertEquals(301, polygon.getNbParameters());
+		assertEquals("10", polygon.getParameter(1).toADQL());
+		assertEquals("-74.5", polygon.getParameter(300).toADQL());
+
+		/* A copy shares the compact storage: */
+		LiteralList copy = (LiteralList)numbers.getCopy();
+		assertTrue(copy.isCompact());
+		assertEquals(numbers.toADQL(), copy.toADQL());
+
+		/* A modification inflates the list, but not its copy: */
+		numbers.set(1, new NumericConstant("42"));
+		assertFalse(numbers.isCompact());
+		assertEquals(299, numbers.size());
+		assertEquals("42", numbers.get(1).toADQL());
+		assertEquals("2", copy.get(1).toADQL());
+		assertNull(numbers.getPosition());
+		assertNotNull(copy.getPosition());
+		try{
+			numbers.getValue(1);
+			fail("The values of a modified list should not be readable any more with getValue(int)!");
+		}catch(Exception ex){
+			assertEquals(IllegalStateException.class, ex.getClass());
+		}
+	}
+
+	/**
+	 * Serialize everything which must be identical between a normal and a
+	 * fast parsing: the ADQL and SQL translations and the position of all
+	 * ADQL objects.
+	 */
+	private static String dump(final ADQLQuery query) throws Exception{
+		StringBuffer buf = new StringBuffer(query.toADQL());
+		buf.append('\n').append(new PostgreSQLTranslator().translate(query));
+		buf.append('\n').append(new PgSphereTranslator().translate(query)).append('\n');
+		ISearchHandler sHandler = new SimpleSearchHandler(true){
+			@Override
+			protected boolean match(final ADQLObject obj){
+				return !(obj instanceof ADQLList) || obj instanceof ClauseConstraints;
+			}
+		};
+		sHandler.search(query);
+		for(ADQLObject obj : sHandler){
+			// items of a compact list are created on the fly, without position:
+			if (!(obj instanceof NumericConstant || obj instanceof StringConstant || obj instanceof NegativeOperand))
+				buf.append(obj.getClass().getSimpleName()).append(obj.getPosition()).append(';');
+		}
+		return buf.toString();
+	}
+
+}
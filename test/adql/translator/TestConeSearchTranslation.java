@@ -0,0 +1,111 @@
+package adql.translator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Random;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import adql.parser.ADQLParser;
+import adql.parser.SQLServer_ADQLQueryFactory;
+
+/**
+ * Compare, in H2, the number of rows selected by the translation of cone
+ * searches (see {@link JDBCTranslator#translateConeSearch(adql.query.constraint.Comparison)})
+ * with a brute-force computation of the angular distances.
+ */
+public class TestConeSearchTranslation {
+
+	private final static int NB_ROWS = 20000;
+
+	/** Cones to test: {ra0, dec0, radius}. */
+	private final static double[][] CONES = new double[][]{ { 10, 20, 1 }, { 359.5, -20, 1 }, { 0.3, 10, 2 }, { 10, 89.5, 1 }, { 200, -89, 3 }, { 100, 30, 120 }, { 180, 0, 0.5 }, { 45, -60, 10 } };
+
+	private static double[][] positions;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception{
+		Class.forName("org.h2.Driver");
+		Random random = new Random(42);
+		positions = new double[NB_ROWS][];
+		for(int i = 0; i < NB_ROWS; i++)
+			positions[i] = new double[]{ random.nextDouble() * 360, Math.toDegrees(Math.asin(random.nextDouble() * 2 - 1)) };
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception{
+		positions = null;
+	}
+
+	@Test
+	public void testMySQL() throws Exception{
+		check(new MySQLTranslator(false), new ADQLParser(), "jdbc:h2:mem:conemysql;MODE=MySQL");
+	}
+
+	@Test
+	public void testSQLServer() throws Exception{
+		check(new SQLServerTranslator(false), new ADQLParser(new SQLServer_ADQLQueryFactory()), "jdbc:h2:mem:conesqlserver;MODE=MSSQLServer");
+	}
+
+	private void check(final JDBCTranslator translator, final ADQLParser parser, final String url) throws Exception{
+		Connection connection = DriverManager.getConnection(url, "sa", "");
+		try{
+			Statement stmt = connection.createStatement();
+			stmt.execute("CREATE TABLE stars (ra DOUBLE, dec DOUBLE)");
+			PreparedStatement insert = connection.prepareStatement("INSERT INTO stars VALUES (?, ?)");
+			for(double[] pos : positions){
+				insert.setDouble(1, pos[0]);
+				insert.setDouble(2, pos[1]);
+				insert.addBatch();
+			}
+			insert.executeBatch();
+			insert.close();
+
+			for(double[] cone : CONES){
+				long expected = countBruteForce(cone[0], cone[1], cone[2]);
+
+				// CONTAINS(POINT, CIRCLE) = 1 (RA range, if any, computed by the translator):
+				String adql = "SELECT COUNT(*) FROM stars WHERE CONTAINS(POINT('ICRS', ra, dec), CIRCLE('ICRS', " + cone[0] + ", " + cone[1] + ", " + cone[2] + ")) = 1";
+				assertEquals(adql, expected, count(stmt, translator.translate(parser.parseQuery(adql))));
+
+				// Same cone with a non-constant center (no RA range):
+				adql = "SELECT COUNT(*) FROM stars WHERE DISTANCE(POINT('ICRS', ra, dec), POINT('ICRS', " + cone[0] + " + 0 * ra, " + cone[1] + " + 0 * dec)) < " + cone[2];
+				assertEquals(adql, expected, count(stmt, translator.translate(parser.parseQuery(adql))));
+			}
+
+			stmt.execute("DROP TABLE stars");
+			stmt.close();
+		}finally{
+			connection.close();
+		}
+	}
+
+	private static long count(final Statement stmt, final String sql) throws Exception{
+		ResultSet rs = stmt.executeQuery(sql);
+		try{
+			rs.next();
+			return rs.getLong(1);
+		}finally{
+			rs.close();
+		}
+	}
+
+	private static long countBruteForce(final double ra0, final double dec0, final double radius){
+		long nb = 0;
+		for(double[] pos : positions){
+			double sinDDec = Math.sin(Math.toRadians(pos[1] - dec0) / 2), sinDRA = Math.sin(Math.toRadians(pos[0] - ra0) / 2);
+			double distance = Math.toDegrees(2 * Math.asin(Math.sqrt(sinDDec * sinDDec + Math.cos(Math.toRadians(pos[1])) * Math.cos(Math.toRadians(dec0)) * sinDRA * sinDRA)));
+			if (distance < radius)
+				nb++;
+		}
+		return nb;
+	}
+
+}
@@ -1,18 +1,33 @@
 package adql.translator;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+
 import org.junit.Before;
 import org.junit.Test;
 
+import adql.db.DBChecker;
+import adql.db.DBTable;
 import adql.db.DBType;
 import adql.db.FunctionDef;
 import adql.db.STCS.Region;
+import adql.db.SpatialIndex;
+import adql.parser.ADQLParser;
 import adql.parser.ParseException;
+import adql.query.ADQLQuery;
 import adql.query.IdentifierField;
+import adql.query.constraint.Comparison;
+import adql.query.constraint.In;
 import adql.query.operand.ADQLColumn;
 import adql.query.operand.ADQLOperand;
+import adql.query.operand.Concatenation;
 import adql.query.operand.StringConstant;
 import adql.query.operand.function.DefaultUDF;
 import adql.query.operand.function.geometry.AreaFunction;
@@ -27,6 +42,8 @@ import adql.query.operand.function.geometry.IntersectsFunction;
 import adql.query.operand.function.geometry.PointFunction;
 import adql.query.operand.function.geometry.PolygonFunction;
 import adql.query.operand.function.geometry.RegionFunction;
+import tap.metadata.TAPColumn;
+import tap.metadata.TAPTable;
 
 public class TestJDBCTranslator {
 
@@ -49,6 +66,150 @@ public class TestJDBCTranslator {
 		}
 	}
 
+	@Test
+	public void testPixelIndexConstraint() {
+		JDBCTranslator tr = new AJDBCTranslator();
+
+		TAPTable table = new TAPTable("stars");
+		table.addColumn("ra");
+		table.addColumn("dec");
+		TAPColumn pixColumn = new TAPColumn("hpx");
+		pixColumn.setDBName("hpx_nested");
+		pixColumn.setSpatialIndex(new SpatialIndex(SpatialIndex.Scheme.HEALPIX_NESTED, 6, "ra", "dec"));
+		table.addColumn(pixColumn);
+		ArrayList<DBTable> tables = new ArrayList<DBTable>(1);
+		tables.add(table);
+		ADQLParser parser = new ADQLParser(new DBChecker(tables));
+
+		try {
+			// Cone search => pixel ranges + the normal translation:
+			ADQLQuery query = parser.parseQuery("SELECT * FROM stars WHERE CONTAINS(POINT('ICRS', ra, dec), CIRCLE('ICRS', 10, 20, 0.5)) = 1");
+			String prefilter = "(stars.hpx_nested BETWEEN 19860 AND 19863 OR stars.hpx_nested BETWEEN 19868 AND 19869 OR stars.hpx_nested IN (19904, 19906, 19912))";
+			assertEquals(prefilter, tr.getPixelIndexConstraint((Comparison)query.getWhere().get(0)));
+			assertTrue(tr.translate(query.getWhere()).startsWith("WHERE (" + prefilter + " AND "));
+
+			// DISTANCE with a table alias:
+			query = parser.parseQuery("SELECT * FROM stars AS s WHERE DISTANCE(POINT('ICRS', 10, 20), POINT('ICRS', s.ra, s.dec)) <= 0.5");
+			assertEquals(prefilter.replace("stars.", "s."), tr.getPixelIndexConstraint((Comparison)query.getWhere().get(0)));
+
+			// Polygon, with a limited number of ranges:
+			tr.setMaxPixelRanges(2);
+			query = parser.parseQuery("SELECT * FROM stars WHERE 1 = CONTAINS(POINT('ICRS', ra, dec), POLYGON('ICRS', 10, 20, 12, 20, 11, 22))");
+			assertEquals("(stars.hpx_nested BETWEEN 19818 AND 19819 OR stars.hpx_nested BETWEEN 19861 AND 19916)", tr.getPixelIndexConstraint((Comparison)query.getWhere().get(0)));
+
+			// Not a constant region or not a positive constraint => no prefilter:
+			query = parser.parseQuery("SELECT * FROM stars WHERE CONTAINS(POINT('ICRS', ra, dec), CIRCLE('ICRS', ra, 20, 0.5)) = 1");
+			assertNull(tr.getPixelIndexConstraint((Comparison)query.getWhere().get(0)));
+			query = parser.parseQuery("SELECT * FROM stars WHERE CONTAINS(POINT('ICRS', ra, dec), CIRCLE('ICRS', 10, 20, 0.5)) = 0");
+			assertNull(tr.getPixelIndexConstraint((Comparison)query.getWhere().get(0)));
+			query = parser.parseQuery("SELECT * FROM stars WHERE DISTANCE(POINT('ICRS', ra, dec), POINT('ICRS', 10, 20)) > 0.5");
+			assertNull(tr.getPixelIndexConstraint((Comparison)query.getWhere().get(0)));
+
+			// No spatial index column => no prefilter:
+			pixColumn.setSpatialIndex(null);
+			query = parser.parseQuery("SELECT * FROM stars WHERE CONTAINS(POINT('ICRS', ra, dec), CIRCLE('ICRS', 10, 20, 0.5)) = 1");
+			assertNull(tr.getPixelIndexConstraint((Comparison)query.getWhere().get(0)));
+			assertFalse(tr.translate(query.getWhere()).contains("hpx_nested"));
+		} catch(ParseException pe) {
+			pe.printStackTrace(System.err);
+			fail("The given ADQL queries are correct. No error should have occurred while parsing them.");
+		} catch(TranslationException te) {
+			te.printStackTrace(System.err);
+			fail("No error was expected from this translation.");
+		}
+	}
+
+	@Test
+	public void testTranslateWithParameters() {
+		JDBCTranslator tr = new AJDBCTranslator();
+		ADQLParser parser = new ADQLParser();
+
+		try {
+			// No literal in a constraint => no parameter:
+			ParameterizedSQL sql = tr.translateWithParameters(parser.parseQuery("SELECT 2 * a, 'text' AS t FROM foo"));
+			assertEquals("SELECT 2*a AS \"MULT\" , 'text' AS \"t\"\nFROM foo", sql.getSQL());
+			assertEquals(sql.getSQL(), sql.getExpandedSQL());
+			assertEquals(0, sql.getNbParameters());
+
+			// Literals of WHERE, JOIN, HAVING and sub-queries => parameters:
+			sql = tr.translateWithParameters(parser.parseQuery("SELECT a, 1 FROM foo JOIN bar ON foo.id = bar.id + 1 WHERE a > 10.5 AND b LIKE 'O''Neil%' AND c IN (1, 2) AND d IN (SELECT 3 FROM foo2 WHERE e = -4) GROUP BY a HAVING COUNT(*) > 5"));
+			assertEquals("SELECT a AS \"a\" , 1 AS \"1\"\nFROM foo INNER JOIN bar ON foo.id = bar.id+?\nWHERE a > ? AND b LIKE ? AND c IN (? , ?) AND d IN (SELECT 3 AS \"3\"\nFROM foo2\nWHERE e = -?)\nGROUP BY a\nHAVING COUNT(*) > ?", sql.getSQL());
+			assertEquals("SELECT a AS \"a\" , 1 AS \"1\"\nFROM foo INNER JOIN bar ON foo.id = bar.id+1\nWHERE a > 10.5 AND b LIKE 'O''Neil%' AND c IN (1 , 2) AND d IN (SELECT 3 AS \"3\"\nFROM foo2\nWHERE e = -4)\nGROUP BY a\nHAVING COUNT(*) > 5", sql.getExpandedSQL());
+			assertEquals(Arrays.asList(new Object[]{ 1L, new BigDecimal("10.5"), "O'Neil%", 1L, 2L, 4L, 5L }), Arrays.asList(sql.getParameters()));
+
+			// Too many parameters => all inlined:
+			tr.setMaxBindParameters(3);
+			sql = tr.translateWithParameters(parser.parseQuery("SELECT * FROM foo WHERE a IN (1, 2, 3, 4)"));
+			assertEquals("SELECT *\nFROM foo\nWHERE a IN (1 , 2 , 3 , 4)", sql.getSQL());
+			assertEquals(0, sql.getNbParameters());
+			sql = tr.translateWithParameters(parser.parseQuery("SELECT * FROM foo WHERE a IN (1, 2, 3)"));
+			assertEquals("SELECT *\nFROM foo\nWHERE a IN (? , ? , ?)", sql.getSQL());
+
+			// Normal translation => no parameter:
+			assertEquals("SELECT *\nFROM foo\nWHERE a IN (1 , 2 , 3)", tr.translate(parser.parseQuery("SELECT * FROM foo WHERE a IN (1, 2, 3)")));
+
+			// NUL characters in a string constant are not parameter markers:
+			tr.setMaxBindParameters(JDBCTranslator.DEFAULT_MAX_BIND_PARAMETERS);
+			sql = tr.translateWithParameters(parser.parseQuery("SELECT 'x\u00005\u0000y' AS s FROM t WHERE c = 3"));
+			assertEquals("SELECT 'x\u00005\u0000y' AS \"s\"\nFROM t\nWHERE c = ?", sql.getSQL());
+			assertEquals("SELECT 'x\u00005\u0000y' AS \"s\"\nFROM t\nWHERE c = 3", sql.getExpandedSQL());
+			assertEquals(Arrays.asList(new Object[]{ 3L }), Arrays.asList(sql.getParameters()));
+			sql = tr.translateWithParameters(parser.parseQuery("SELECT * FROM t WHERE c = 'x\u00000\u0000y' AND d = 3"));
+			assertEquals("SELECT *\nFROM t\nWHERE c = ? AND d = ?", sql.getSQL());
+			assertEquals(Arrays.asList(new Object[]{ "x\u00000\u0000y", 3L }), Arrays.asList(sql.getParameters()));
+		} catch(ParseException pe) {
+			pe.printStackTrace(System.err);
+			fail("The given ADQL queries are correct. No error should have occurred while parsing them.");
+		} catch(TranslationException te) {
+			te.printStackTrace(System.err);
+			fail("No error was expected from this translation.");
+		}
+	}
+
+	@Test
+	public void testAppend() {
+		ADQLParser parser = new ADQLParser();
+
+		try {
+			ADQLQuery query = parser.parseQuery("SELECT a, b || 'x' AS c FROM foo WHERE a IN (1, 2, 3) AND NOT (b = -a + 2 * (a - 1)) AND EXISTS (SELECT id FROM bar WHERE id > 2) ORDER BY a");
+			final String expected = "SELECT a AS \"a\" , b || 'x' AS \"c\"\nFROM foo\nWHERE a IN (1 , 2 , 3) AND NOT (b = -a+2*(a-1)) AND EXISTS(SELECT id AS \"id\"\nFROM bar\nWHERE id > 2)\nORDER BY a ASC";
+
+			// The appended translation must be the same as the normal one:
+			JDBCTranslator tr = new AJDBCTranslator();
+			assertEquals(expected, tr.translate(query));
+			assertEquals("-- " + expected, tr.append(new StringBuffer("-- "), query).toString());
+
+			// An overridden translate(...) function must still be used:
+			tr = new PostgreSQLTranslator() {
+				@Override
+				public String translate(In in) throws TranslationException {
+					return "IN_OVERRIDDEN";
+				}
+			};
+			assertTrue(tr.isOverridden("translate", In.class));
+			assertFalse(tr.isOverridden("translate", Comparison.class));
+			assertEquals(expected.replace("a IN (1 , 2 , 3)", "IN_OVERRIDDEN"), tr.translate(query));
+			assertEquals(expected.replace("a IN (1 , 2 , 3)", "IN_OVERRIDDEN"), tr.append(new StringBuffer(), query).toString());
+			assertFalse(new PostgreSQLTranslator().isOverridden("translate", In.class));
+			assertTrue(new MySQLTranslator().isOverridden("translate", Concatenation.class));
+
+			// Huge IN list:
+			StringBuffer adql = new StringBuffer("SELECT a FROM foo WHERE a IN (0");
+			for(int i = 1; i < 10000; i++)
+				adql.append(", ").append(i);
+			query = parser.parseQuery(adql.append(')').toString());
+			String sql = new PostgreSQLTranslator().translate(query);
+			assertTrue(sql.startsWith("SELECT a AS \"a\"\nFROM foo\nWHERE a IN (0 , 1 , 2 , "));
+			assertTrue(sql.endsWith(" , 9998 , 9999)"));
+		} catch(ParseException pe) {
+			pe.printStackTrace(System.err);
+			fail("The given ADQL queries are correct. No error should have occurred while parsing them.");
+		} catch(TranslationException te) {
+			te.printStackTrace(System.err);
+			fail("No error was expected from this translation.");
+		}
+	}
+
 	@Test
 	public void testTranslateUserDefinedFunction() {
 		JDBCTranslator tr = new AJDBCTranslator();
@@ -33,4 +33,45 @@ public class TestMySQLTranslator {
 		}
 	}
 
+	@Test
+	public void testConeSearch(){
+		try{
+			MySQLTranslator translator = new MySQLTranslator(false);
+			ADQLParser parser = new ADQLParser();
+
+			// CONTAINS(POINT, CIRCLE) = 1 => Dec band + RA range + haversine:
+			ADQLQuery query = parser.parseQuery("SELECT * FROM aTable WHERE CONTAINS(POINT('ICRS', ra, dec), CIRCLE('ICRS', 10, 20, 1)) = 1");
+			assertEquals("WHERE (dec BETWEEN 19.0 AND 21.0 AND ra BETWEEN 8.935815069218847 AND 11.064184930781153 AND POWER(SIN(RADIANS(dec - 20.0) / 2), 2) + COS(RADIANS(dec)) * 0.9396926207859084 * POWER(SIN(RADIANS(ra - 10.0) / 2), 2) <= 7.615242180438042E-5)", translator.translate(query.getWhere()));
+
+			// Same with the operands swapped:
+			query = parser.parseQuery("SELECT * FROM aTable WHERE 1 = CONTAINS(POINT('ICRS', ra, dec), CIRCLE('ICRS', 10, 20, 1))");
+			assertEquals("WHERE (dec BETWEEN 19.0 AND 21.0 AND ra BETWEEN 8.935815069218847 AND 11.064184930781153 AND POWER(SIN(RADIANS(dec - 20.0) / 2), 2) + COS(RADIANS(dec)) * 0.9396926207859084 * POWER(SIN(RADIANS(ra - 10.0) / 2), 2) <= 7.615242180438042E-5)", translator.translate(query.getWhere()));
+
+			// RA wrap-around => 2 RA ranges:
+			query = parser.parseQuery("SELECT * FROM aTable WHERE CONTAINS(POINT('ICRS', ra, dec), CIRCLE('ICRS', 359.5, -20, 1)) = 1");
+			assertEquals("WHERE (dec BETWEEN (-21.0) AND (-19.0) AND (ra >= 358.43581506921885 OR ra <= 0.5641849307811526) AND POWER(SIN(RADIANS(dec - (-20.0)) / 2), 2) + COS(RADIANS(dec)) * 0.9396926207859084 * POWER(SIN(RADIANS(ra - 359.5) / 2), 2) <= 7.615242180438042E-5)", translator.translate(query.getWhere()));
+
+			// Pole inside the cone => no RA range ; DISTANCE with the constant point first:
+			query = parser.parseQuery("SELECT * FROM aTable WHERE DISTANCE(POINT('ICRS', 0.2, 89.5), POINT('ICRS', ra, dec)) < 1");
+			assertEquals("WHERE (dec BETWEEN 88.5 AND 90.0 AND POWER(SIN(RADIANS(dec - 89.5) / 2), 2) + COS(RADIANS(dec)) * 0.008726535498373897 * POWER(SIN(RADIANS(ra - 0.2) / 2), 2) < 7.615242180438042E-5)", translator.translate(query.getWhere()));
+
+			// Not constant center/radius => Dec band + haversine:
+			query = parser.parseQuery("SELECT * FROM aTable a, anotherTable b WHERE 1 >= DISTANCE(POINT('ICRS', a.ra, a.dec), POINT('ICRS', b.ra, b.dec))");
+			assertEquals("WHERE (a.dec BETWEEN b.dec - 1 AND b.dec + 1 AND POWER(SIN(RADIANS(a.dec - b.dec) / 2), 2) + COS(RADIANS(a.dec)) * COS(RADIANS(b.dec)) * POWER(SIN(RADIANS(a.ra - b.ra) / 2), 2) <= POWER(SIN(RADIANS(1) / 2), 2))", translator.translate(query.getWhere()));
+
+			// Not a cone search => unchanged:
+			query = parser.parseQuery("SELECT * FROM aTable WHERE CONTAINS(POINT('ICRS', ra, dec), CIRCLE('ICRS', 10, 20, 1)) = 0");
+			assertEquals("WHERE CONTAINS(POINT('ICRS', ra, dec), CIRCLE('ICRS', 10, 20, 1)) = 0", translator.translate(query.getWhere()));
+			query = parser.parseQuery("SELECT * FROM aTable WHERE DISTANCE(POINT('ICRS', ra, dec), POINT('ICRS', 10, 20)) > 1");
+			assertEquals("WHERE DEGREES(2 * ASIN(SQRT(POWER(SIN(RADIANS(dec - 20) / 2), 2) + COS(RADIANS(dec)) * COS(RADIANS(20)) * POWER(SIN(RADIANS(ra - 10) / 2), 2)))) > 1", translator.translate(query.getWhere()));
+
+		}catch(ParseException pe){
+			pe.printStackTrace();
+			fail("The given ADQL query is completely correct. No error should have occurred while parsing it. (see the console for more details)");
+		}catch(TranslationException te){
+			te.printStackTrace();
+			fail("No error was expected from this translation. (see the console for more details)");
+		}
+	}
+
 }
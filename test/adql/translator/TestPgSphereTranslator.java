@@ -6,6 +6,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.math.BigDecimal;
 import java.sql.Types;
 import java.util.regex.Pattern;
 
@@ -19,6 +20,7 @@ import org.postgresql.util.PGobject;
 import adql.db.DBType;
 import adql.db.DBType.DBDatatype;
 import adql.db.STCS.Region;
+import adql.parser.ADQLParser;
 import adql.parser.ParseException;
 import adql.query.operand.NumericConstant;
 import adql.query.operand.StringConstant;
@@ -53,6 +55,32 @@ public class TestPgSphereTranslator {
 		}
 	}
 
+	@Test
+	public void testTranslateWithParameters(){
+		try{
+			PgSphereTranslator translator = new PgSphereTranslator();
+			ADQLParser parser = new ADQLParser();
+
+			// Cone search => all coordinates as parameters, but not the compared value (inside a SQL string):
+			ParameterizedSQL sql = translator.translateWithParameters(parser.parseQuery("SELECT * FROM foo WHERE CONTAINS(POINT('ICRS', ra, dec), CIRCLE('ICRS', 10.5, -20, 1)) = 1"));
+			assertEquals("SELECT *\nFROM foo\nWHERE (spoint(radians(ra),radians(dec)) @ scircle(spoint(radians(?),radians(-?)),radians(?))) = '1'", sql.getSQL());
+			assertEquals("SELECT *\nFROM foo\nWHERE (spoint(radians(ra),radians(dec)) @ scircle(spoint(radians(10.5),radians(-20)),radians(1))) = '1'", sql.getExpandedSQL());
+			assertEquals(3, sql.getNbParameters());
+			assertEquals(new BigDecimal("10.5"), sql.getParameters()[0]);
+			assertEquals(20L, sql.getParameters()[1]);
+			assertEquals(1L, sql.getParameters()[2]);
+
+			// Same query with other coordinates => same SQL:
+			assertEquals(sql.getSQL(), translator.translateWithParameters(parser.parseQuery("SELECT * FROM foo WHERE CONTAINS(POINT('ICRS', ra, dec), CIRCLE('ICRS', 200.1, -3, 0.5)) = 1")).getSQL());
+
+			// Normal translation => unchanged:
+			assertEquals(sql.getExpandedSQL(), translator.translate(parser.parseQuery("SELECT * FROM foo WHERE CONTAINS(POINT('ICRS', ra, dec), CIRCLE('ICRS', 10.5, -20, 1)) = 1")));
+		}catch(Throwable t){
+			t.printStackTrace(System.err);
+			fail("Unexpected error while translating a query with bind parameters! (see the console for more details)");
+		}
+	}
+
 	@Test
 	public void testConvertTypeFromDB(){
 		PgSphereTranslator translator = new PgSphereTranslator();
@@ -296,6 +324,52 @@ public class TestPgSphereTranslator {
 		}
 	}
 
+	@Test
+	public void testTranslateGeometryToSTCS() throws Exception{
+		PgSphereTranslator translator = new PgSphereTranslator();
+		PgSphereTranslator.PgSphereGeometryParser parser = new PgSphereTranslator.PgSphereGeometryParser();
+
+		// NULL
+		assertNull(translator.translateGeometryToSTCS(null));
+
+		/* The STC-S expression must be exactly the same as the one of the Region
+		 * (in RAD and DEG, directly ; in DMS and HMS, through a Region): */
+		String[][] values = new String[][]{ { "spoint", "(0.1 , 0.2)", "(5.72957d , -11.45915d)", "(  5d 43m 46.480625s , +11d 27m 32.961249s)" }, { "scircle", "<(0.1,-0.2),1>", "<(5.72957d , -11.45915d) , 57.29577d>", "<(  0h 22m 55.0968s , -11d 27m 32.94s) , 57d 17m 44.772s>" }, { "sbox", "((0.1,0.2),(0.5,0.5))", "((5.72957795130823d , 11.4591559026165d), (28.6478897565412d , 28.6478897565412d))", "((  5d 43m 46.480625s , +11d 27m 32.961249s), ( 28d 38m 52.403124s , +28d 38m 52.403124s))" }, { "spoly", "{(0.789761486527434 , 0.00436332312998582),(0.789761486527434 , 0.00872664625997165),(0.785398163397448 , 0.00872664625997165),(0.785398163397448 , 0)}", "{(45.25d , 0.25d), (45.25d , 0.5d), (45d , -1e-3d)} ", "{( 45d 15m 0s , + 0d 15m 0s),( 45d 15m 0s , + 0d 30m 0s),( 45d  0m 0s , + 0d 30m 0s)}" } };
+		PGobject pgo = new PGobject();
+		for(String[] geom : values){
+			pgo.setType(geom[0]);
+			for(int i = 1; i < geom.length; i++){
+				pgo.setValue(geom[i]);
+				assertEquals(translator.translateGeometryFromDB(pgo).toSTCS(), translator.translateGeometryToSTCS(pgo));
+				if (i < 3)
+					assertEquals(translator.translateGeometryFromDB(pgo).toSTCS(), parser.toSTCS(geom[0], geom[i]));
+				else
+					assertNull(parser.toSTCS(geom[0], geom[i]));
+			}
+		}
+		assertEquals("POSITION 5.72957 -11.45915", parser.toSTCS("spoint", "(5.72957d , -11.45915d)"));
+
+		// Incorrect expressions are rejected exactly as by translateGeometryFromDB(Object):
+		pgo.setType("spoly");
+		pgo.setValue("{(0.1 , 0.2),(0.3 , 0.4)}");
+		assertNull(parser.toSTCS("spoly", pgo.getValue()));
+		try{
+			translator.translateGeometryToSTCS(pgo);
+			fail("A polygon must have at least 3 points!");
+		}catch(Throwable t){
+			assertTrue(t instanceof ParseException);
+		}
+		pgo.setType("sline");
+		pgo.setValue("( -90d, -20d, 200d, XYZ ), 30d ");
+		try{
+			translator.translateGeometryToSTCS(pgo);
+			fail("The translation of a sline is not supported!");
+		}catch(Throwable t){
+			assertTrue(t instanceof ParseException);
+			assertEquals("Unsupported PgSphere type: \"sline\"! Impossible to convert the column value \"( -90d, -20d, 200d, XYZ ), 30d \" into a Region.", t.getMessage());
+		}
+	}
+
 	@Test
 	public void testTranslateGeometryToDB(){
 		PgSphereTranslator translator = new PgSphereTranslator();
@@ -105,4 +105,31 @@ public class TestSQLServerTranslator {
 		}
 	}
 
+	@Test
+	public void testConeSearch(){
+		try{
+			SQLServerTranslator translator = new SQLServerTranslator(false);
+			ADQLParser parser = new ADQLParser(new SQLServer_ADQLQueryFactory());
+
+			// Constant center and radius => all angles converted into float before RADIANS:
+			ADQLQuery query = parser.parseQuery("SELECT * FROM aTable WHERE CONTAINS(POINT('ICRS', ra, dec), CIRCLE('ICRS', 10, 20, 1)) = 1");
+			assertEquals("WHERE (dec BETWEEN 19.0 AND 21.0 AND ra BETWEEN 8.935815069218847 AND 11.064184930781153 AND POWER(SIN(radians(convert(float, dec - 20.0)) / 2), 2) + COS(radians(convert(float, dec))) * 0.9396926207859084 * POWER(SIN(radians(convert(float, ra - 10.0)) / 2), 2) <= 7.615242180438042E-5)", translator.translate(query.getWhere()));
+
+			// Not constant center, integer radius => RADIANS(1) must not be 0:
+			query = parser.parseQuery("SELECT * FROM aTable a, anotherTable b WHERE 1 >= DISTANCE(POINT('ICRS', a.ra, a.dec), POINT('ICRS', b.ra, b.dec))");
+			assertEquals("WHERE (a.dec BETWEEN b.dec - 1 AND b.dec + 1 AND POWER(SIN(radians(convert(float, a.dec - b.dec)) / 2), 2) + COS(radians(convert(float, a.dec))) * COS(radians(convert(float, b.dec))) * POWER(SIN(radians(convert(float, a.ra - b.ra)) / 2), 2) <= POWER(SIN(radians(convert(float, 1)) / 2), 2))", translator.translate(query.getWhere()));
+
+			// DISTANCE with integer coordinates:
+			query = parser.parseQuery("SELECT DISTANCE(POINT('ICRS', ra, dec), POINT('ICRS', 10, 20)) FROM aTable");
+			assertEquals("SELECT DEGREES(2 * ASIN(SQRT(POWER(SIN(radians(convert(float, dec - 20)) / 2), 2) + COS(radians(convert(float, dec))) * COS(radians(convert(float, 20))) * POWER(SIN(radians(convert(float, ra - 10)) / 2), 2)))) AS \"DISTANCE\"", translator.translate(query.getSelect()));
+
+		}catch(ParseException pe){
+			pe.printStackTrace();
+			fail("The given ADQL query is completely correct. No error should have occurred while parsing it. (see the console for more details)");
+		}catch(TranslationException te){
+			te.printStackTrace();
+			fail("No error was expected from this translation. (see the console for more details)");
+		}
+	}
+
 }
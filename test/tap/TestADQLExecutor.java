@@ -0,0 +1,265 @@
+package tap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import tap.cache.ResultCache;
+import tap.data.DataReadException;
+import tap.data.TableIterator;
+import tap.data.ValuesTableIterator;
+import tap.db.DBConnection;
+import tap.formatter.OutputFormat;
+import tap.formatter.ServiceConnection4Test;
+import tap.formatter.VOTableFormat;
+import tap.log.DefaultTAPLog;
+import tap.log.TAPLog;
+import tap.metadata.TAPColumn;
+import tap.metadata.TAPMetadata;
+import tap.metadata.TAPSchema;
+import tap.parameters.TAPParameters;
+import uws.service.file.LocalUWSFileManager;
+
+public class TestADQLExecutor {
+	final String TMP_DIR = System.getProperty("java.io.tmpdir");
+
+	File cacheDir;
+	ResultCache cache;
+	ServiceConnection4Test service;
+
+	/** Number of queries executed in the "database". */
+	final AtomicInteger nbExecutions = new AtomicInteger(0);
+	/** Number of rows to return before failing. <i>Negative = no failure.</i> */
+	volatile int failAfter = -1;
+	/** Latch blocking the query executions until released. */
+	volatile CountDownLatch blocker = null;
+
+	@Before
+	public void setUp() throws Exception{
+		cacheDir = new File(TMP_DIR, "taptest_executor_cache_" + System.currentTimeMillis());
+		cache = new ResultCache(cacheDir, 100000);
+
+		TAPMetadata metadata = new TAPMetadata();
+		TAPSchema schema = new TAPSchema("cat");
+		schema.addTable("stars").addColumn("ra");
+		metadata.addSchema(schema);
+
+		final TAPLog logger = new DefaultTAPLog(new ByteArrayOutputStream());
+		service = new ServiceConnection4Test(metadata, new LocalUWSFileManager(new File(TMP_DIR))){
+			private final OutputFormat votable = new VOTableFormat(this);
+
+			@Override
+			public TAPLog getLogger(){
+				return logger;
+			}
+
+			@Override
+			public ResultCache getResultCache(){
+				return cache;
+			}
+
+			@Override
+			public OutputFormat getOutputFormat(final String mimeOrAlias){
+				return votable;
+			}
+		};
+		service.setFactory(new AbstractTAPFactory(service){
+			@Override
+			public DBConnection getConnection(final String jobID) throws TAPException{
+				return createConnection(jobID);
+			}
+
+			@Override
+			public void freeConnection(final DBConnection conn){}
+
+			@Override
+			public void destroy(){}
+		});
+	}
+
+	@After
+	public void tearDown() throws Exception{
+		if (cache != null)
+			cache.clear();
+		if (cacheDir != null)
+			cacheDir.delete();
+	}
+
+	@Test
+	public void testCachedResultIsJobIndependent() throws Exception{
+		/* CASE: First execution => executed in the database and cached */
+		String result1 = execute("job1", "SELECT ra FROM cat.stars -- private comment");
+		assertEquals(1, nbExecutions.get());
+		assertEquals(1, cache.getNbEntries());
+
+		/* CASE: Same query (different text) by another job => read from the cache */
+		String result2 = execute("job2", "select ra from cat.stars");
+		assertEquals(1, nbExecutions.get());
+		assertEquals(result1, result2);
+
+		// Nothing specific to the first job is written in the shared result:
+		assertFalse(result2.contains("job1"));
+		assertFalse(result2.contains("private comment"));
+		assertTrue(result2.contains("name=\"result\""));
+		assertTrue(result2.contains("<INFO name=\"QUERY\" value=\"SELECT TOP 101 ra\nFROM cat.stars\"/>"));
+	}
+
+	@Test
+	public void testTruncatedResultNotCached() throws Exception{
+		/* CASE: Error while formatting (reported inside the synchronous
+		 *       VOTable) => incomplete result not cached */
+		failAfter = 1;
+		String result = execute("job1", "SELECT ra FROM cat.stars");
+		assertTrue(result.contains("Result truncated"));
+		assertEquals(0, cache.getNbEntries());
+
+		/* CASE: Same query again => executed again and, now complete, cached */
+		failAfter = -1;
+		result = execute("job2", "SELECT ra FROM cat.stars");
+		assertFalse(result.contains("QUERY_STATUS\" value=\"ERROR"));
+		assertEquals(2, nbExecutions.get());
+		assertEquals(1, cache.getNbEntries());
+	}
+
+	@Test
+	public void testCoalescingWithFailedLeader() throws Exception{
+		cache.setCoalescing(true);
+
+		// The leading execution fails while its result is being written:
+		failAfter = 1;
+		blocker = new CountDownLatch(1);
+		final String[] results = new String[3];
+		final Exception[] errors = new Exception[3];
+		Thread[] threads = new Thread[3];
+		for(int i = 0; i < threads.length; i++){
+			final int index = i;
+			threads[i] = new Thread(){
+				@Override
+				public void run(){
+					try{
+						results[index] = execute("job" + index, "SELECT ra FROM cat.stars");
+					}catch(Exception ex){
+						errors[index] = ex;
+					}
+				}
+			};
+		}
+
+		// Start the leader and wait for its execution in the database:
+		threads[0].start();
+		for(int i = 0; i < 500 && nbExecutions.get() < 1; i++)
+			Thread.sleep(10);
+		assertEquals(1, nbExecutions.get());
+		failAfter = -1;
+
+		// Start the identical queries and wait until they wait for the leader:
+		threads[1].start();
+		threads[2].start();
+		for(int i = 0; i < 500 && (threads[1].getState() != Thread.State.WAITING || threads[2].getState() != Thread.State.WAITING); i++)
+			Thread.sleep(10);
+		assertEquals(1, nbExecutions.get());
+
+		/* CASE: The leader's result is truncated => not cached, so the
+		 *       waiting queries are executed in the database */
+		blocker.countDown();
+		for(Thread t : threads)
+			t.join(5000);
+		for(int i = 0; i < threads.length; i++)
+			assertNull(errors[i]);
+		assertTrue(results[0].contains("Result truncated"));
+		assertFalse(results[1].contains("QUERY_STATUS\" value=\"ERROR"));
+		assertEquals(results[1], results[2]);
+		// (a waiting query may also read the result cached by another one)
+		assertTrue(nbExecutions.get() >= 2);
+		assertEquals(1, cache.getNbEntries());
+	}
+
+	private String execute(final String jobID, final String query) throws Exception{
+		TAPParameters params = new TAPParameters(service);
+		params.set(TAPJob.PARAM_REQUEST, TAPJob.REQUEST_DO_QUERY);
+		params.set(TAPJob.PARAM_LANGUAGE, TAPJob.LANG_ADQL);
+		params.set(TAPJob.PARAM_QUERY, query);
+		params.set(TAPJob.PARAM_MAX_REC, "100");
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		new ADQLExecutor(service).start(Thread.currentThread(), jobID, params, createResponse(output));
+		return output.toString("UTF-8");
+	}
+
+	private static HttpServletResponse createResponse(final ByteArrayOutputStream output){
+		final ServletOutputStream servletOutput = new ServletOutputStream(){
+			@Override
+			public void write(final int b) throws IOException{
+				output.write(b);
+			}
+		};
+		return (HttpServletResponse)Proxy.newProxyInstance(TestADQLExecutor.class.getClassLoader(), new Class<?>[]{ HttpServletResponse.class }, new InvocationHandler(){
+			@Override
+			public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable{
+				if (method.getName().equals("getOutputStream"))
+					return servletOutput;
+				else if (method.getReturnType() == boolean.class)
+					return false;
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Create a connection returning 3 rows, or failing after
+	 * {@link #failAfter} rows.
+	 */
+	private DBConnection createConnection(final String jobID){
+		return (DBConnection)Proxy.newProxyInstance(DBConnection.class.getClassLoader(), new Class<?>[]{ DBConnection.class }, new InvocationHandler(){
+			@Override
+			public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable{
+				if (method.getName().equals("executeQuery")){
+					TableIterator result = createResult();
+					if (blocker != null)
+						blocker.await(5, TimeUnit.SECONDS);
+					return result;
+				}
+				else if (method.getName().equals("getID"))
+					return jobID;
+				else if (method.getReturnType() == boolean.class)
+					return false;
+				else if (method.getReturnType() == int.class)
+					return 0;
+				return null;
+			}
+		});
+	}
+
+	private TableIterator createResult(){
+		nbExecutions.incrementAndGet();
+		final int limit = failAfter;
+		return new ValuesTableIterator(new TAPColumn("ra"), new Object[]{ "1.0", "2.0", "3.0" }){
+			private int nbRows = 0;
+
+			@Override
+			public boolean nextRow() throws DataReadException{
+				if (limit >= 0 && nbRows++ >= limit)
+					throw new DataReadException("Connection lost!");
+				return super.nextRow();
+			}
+		};
+	}
+
+}
@@ -0,0 +1,107 @@
+package tap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestPartitionExecutor {
+
+	private PartitionExecutor executor;
+
+	@Before
+	public void setUp() throws Exception{
+		executor = new PartitionExecutor(2, 100);
+	}
+
+	@After
+	public void tearDown() throws Exception{
+		executor.close();
+	}
+
+	@Test
+	public void testReserve() throws Exception{
+		assertEquals(2, executor.getNbFreeThreads());
+
+		// CASE: more threads than available => nothing reserved:
+		assertFalse(executor.reserve(3));
+		assertEquals(2, executor.getNbFreeThreads());
+
+		// CASE: all threads:
+		assertTrue(executor.reserve(2));
+		assertEquals(0, executor.getNbFreeThreads());
+		assertFalse(executor.reserve(1));
+
+		// CASE: given back:
+		executor.release(2);
+		assertEquals(2, executor.getNbFreeThreads());
+	}
+
+	@Test
+	public void testThreadReleasedAtTheEnd() throws Exception{
+		final CountDownLatch running = new CountDownLatch(1);
+		final CountDownLatch end = new CountDownLatch(1);
+		assertTrue(executor.reserve(1));
+		Future<String> future = executor.submit(new Callable<String>(){
+			@Override
+			public String call() throws Exception{
+				running.countDown();
+				end.await();
+				return Thread.currentThread().getName();
+			}
+		});
+
+		// CASE: running => still reserved:
+		assertTrue(running.await(5, TimeUnit.SECONDS));
+		assertEquals(1, executor.getNbFreeThreads());
+
+		// CASE: ended => given back:
+		end.countDown();
+		assertTrue(future.get(5, TimeUnit.SECONDS).startsWith("PartitionExecutor-"));
+		waitFreeThreads(2);
+	}
+
+	@Test
+	public void testThreadReleasedWhenStopped() throws Exception{
+		final CountDownLatch running = new CountDownLatch(1);
+		final CountDownLatch cleaned = new CountDownLatch(1);
+		assertTrue(executor.reserve(1));
+		Future<Void> future = executor.submit(new Callable<Void>(){
+			@Override
+			public Void call() throws Exception{
+				running.countDown();
+				try{
+					Thread.sleep(10000);
+				}finally{
+					// some cleaning still done after the cancellation:
+					Thread.sleep(100);
+					cleaned.countDown();
+				}
+				return null;
+			}
+		});
+		assertTrue(running.await(5, TimeUnit.SECONDS));
+
+		// CASE: canceled while running => given back only once really stopped:
+		assertTrue(future.cancel(true));
+		assertEquals(1, executor.getNbFreeThreads());
+		assertTrue(cleaned.await(5, TimeUnit.SECONDS));
+		waitFreeThreads(2);
+	}
+
+	private void waitFreeThreads(final int expected) throws InterruptedException{
+		long deadline = System.currentTimeMillis() + 5000;
+		while(executor.getNbFreeThreads() != expected && System.currentTimeMillis() < deadline)
+			Thread.sleep(10);
+		assertEquals(expected, executor.getNbFreeThreads());
+	}
+
+}
@@ -0,0 +1,147 @@
+package tap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import adql.parser.ADQLParser;
+import adql.query.ADQLQuery;
+import tap.db.QueryCost;
+import uws.UWSException;
+
+public class TestQueryLimits {
+
+	@Test
+	public void testComplexity() throws Exception{
+		ADQLParser parser = new ADQLParser();
+		ADQLQuery simple = parser.parseQuery("SELECT * FROM t");
+		ADQLQuery joins = parser.parseQuery("SELECT * FROM a JOIN b USING(id) JOIN c USING(id) WHERE id IN (SELECT id FROM d NATURAL JOIN e)");
+		ADQLQuery nested = parser.parseQuery("SELECT * FROM (SELECT * FROM (SELECT * FROM t) AS t1) AS t2 WHERE EXISTS(SELECT * FROM u)");
+
+		assertEquals(0, QueryLimits.countJoins(simple));
+		assertEquals(3, QueryLimits.countJoins(joins));
+		assertEquals(0, QueryLimits.getSubQueryDepth(simple));
+		assertEquals(1, QueryLimits.getSubQueryDepth(joins));
+		assertEquals(2, QueryLimits.getSubQueryDepth(nested));
+
+		/* CASE: No limit => nothing rejected */
+		QueryLimits limits = new QueryLimits();
+		limits.check(joins);
+		limits.check(nested);
+
+		/* CASE: Too many joins */
+		limits.setMaxJoins(2);
+		limits.check(simple);
+		limits.check(nested);
+		try{
+			limits.check(joins);
+			fail("This query should have been rejected because of its number of joins!");
+		}catch(TAPException te){
+			assertEquals(UWSException.BAD_REQUEST, te.getHttpErrorCode());
+			assertTrue(te.getMessage().startsWith("Too complex query: 3 joins"));
+		}
+
+		/* CASE: Too deep sub-queries */
+		limits.setMaxJoins(-1);
+		limits.setMaxSubQueryDepth(1);
+		limits.check(joins);
+		try{
+			limits.check(nested);
+			fail("This query should have been rejected because of the depth of its sub-queries!");
+		}catch(TAPException te){
+			assertEquals(UWSException.BAD_REQUEST, te.getHttpErrorCode());
+		}
+	}
+
+	@Test
+	public void testCost() throws Exception{
+		QueryLimits limits = new QueryLimits();
+		assertTrue(!limits.isCostChecked(true) && !limits.isCostChecked(false));
+
+		/* CASE: Cost limited only in synchronous mode */
+		limits.setSyncMaxCost(1000);
+		assertTrue(limits.isCostChecked(true) && !limits.isCostChecked(false));
+		limits.check((QueryCost)null);
+		limits.check(new QueryCost(999, 1e9));
+		try{
+			limits.check(new QueryCost(1001, 1));
+			fail("This query should have been rejected because of its cost!");
+		}catch(TAPException te){
+			assertEquals(UWSException.BAD_REQUEST, te.getHttpErrorCode());
+			assertTrue(te.getMessage().contains("/async"));
+		}
+
+		/* CASE: Number of rows limited */
+		limits.setSyncMaxCost(-1);
+		limits.setSyncMaxRows(100);
+		limits.check(new QueryCost(1e9, 100));
+		try{
+			limits.check(new QueryCost(1, 101));
+			fail("This query should have been rejected because of its estimated number of rows!");
+		}catch(TAPException te){
+			assertEquals(UWSException.BAD_REQUEST, te.getHttpErrorCode());
+		}
+	}
+
+	@Test
+	public void testQueuePosition() throws Exception{
+		QueryLimits limits = new QueryLimits();
+		final double NaN = Double.NaN;
+
+		/* CASE: Put before the first job having a higher or unknown cost */
+		assertEquals(0, limits.getQueuePosition(5, new double[0], new int[0]));
+		assertEquals(1, limits.getQueuePosition(5, new double[]{ 1, 10, 3 }, new int[3]));
+		assertEquals(1, limits.getQueuePosition(5, new double[]{ 1, NaN, 3 }, new int[3]));
+		assertEquals(3, limits.getQueuePosition(50, new double[]{ 1, 10, 30 }, new int[3]));
+
+		/* CASE: Unknown cost => at the end */
+		assertEquals(3, limits.getQueuePosition(NaN, new double[]{ 1, 10, 30 }, new int[3]));
+
+		/* CASE: Never before a job overtaken too many times */
+		limits.setQueueMaxOvertakes(2);
+		assertEquals(0, limits.getQueuePosition(5, new double[]{ 100, 10 }, new int[]{ 1, 0 }));
+		assertEquals(1, limits.getQueuePosition(5, new double[]{ 100, 10 }, new int[]{ 2, 0 }));
+		assertEquals(2, limits.getQueuePosition(5, new double[]{ 100, 10 }, new int[]{ 2, 2 }));
+
+		/* CASE: A flow of cheap jobs can not starve an expensive one */
+		List<Double> costs = new ArrayList<Double>();
+		List<Integer> overtakes = new ArrayList<Integer>();
+		costs.add(1000.0);
+		overtakes.add(0);
+		for(int n = 0; n < 10; n++){
+			double[] queuedCosts = new double[costs.size()];
+			int[] queuedOvertakes = new int[costs.size()];
+			for(int i = 0; i < queuedCosts.length; i++){
+				queuedCosts[i] = costs.get(i);
+				queuedOvertakes[i] = overtakes.get(i);
+			}
+			int position = limits.getQueuePosition(1, queuedCosts, queuedOvertakes);
+			for(int i = position; i < overtakes.size(); i++)
+				overtakes.set(i, overtakes.get(i) + 1);
+			costs.add(position, 1.0);
+			overtakes.add(position, 0);
+		}
+		assertEquals(2, costs.indexOf(1000.0));
+
+		/* CASE: No overtake allowed => submission order */
+		limits.setQueueMaxOvertakes(0);
+		assertEquals(2, limits.getQueuePosition(5, new double[]{ 100, 10 }, new int[2]));
+
+		/* CASE: No limit */
+		limits.setQueueMaxOvertakes(-1);
+		assertEquals(0, limits.getQueuePosition(5, new double[]{ 100, 10 }, new int[]{ 50, 50 }));
+	}
+
+	@Test
+	public void testParsePostgreSQLPlan() throws Exception{
+		QueryCost cost = QueryCost.parsePostgreSQLPlan("[ { \"Plan\": { \"Node Type\": \"Seq Scan\", \"Relation Name\": \"t\", \"Startup Cost\": 0.00, \"Total Cost\": 35.50, \"Plan Rows\": 2550, \"Plan Width\": 4 } } ]");
+		assertEquals(35.5, cost.cost, 0);
+		assertEquals(2550, cost.nbRows, 0);
+	}
+
+}
@@ -0,0 +1,109 @@
+package tap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import adql.db.DBChecker;
+import adql.db.DBTable;
+import adql.db.DBType;
+import adql.db.DBType.DBDatatype;
+import adql.parser.ADQLParser;
+import adql.query.ADQLQuery;
+import adql.translator.PostgreSQLTranslator;
+import tap.metadata.TAPSchema;
+import tap.metadata.TAPTable;
+
+public class TestQueryPartitioner {
+
+	private ADQLParser parser;
+
+	private TAPTable stars;
+
+	@Before
+	public void setUp() throws Exception{
+		TAPSchema schema = new TAPSchema("cat");
+		stars = schema.addTable("stars");
+		stars.addColumn("id", new DBType(DBDatatype.BIGINT), null, null, null, null);
+		stars.addColumn("ra", new DBType(DBDatatype.DOUBLE), null, null, null, null);
+		stars.addColumn("dec", new DBType(DBDatatype.DOUBLE), null, null, null, null);
+		stars.getColumn("dec").setDBName("DecDB");
+		stars.addColumn("name", new DBType(DBDatatype.VARCHAR), null, null, null, null);
+		stars.addColumn("obs_date", new DBType(DBDatatype.TIMESTAMP), null, null, null, null);
+		TAPTable mags = schema.addTable("mags");
+		mags.addColumn("id", new DBType(DBDatatype.BIGINT), null, null, null, null);
+		stars.setPartitioning("dec", -30, 0L, 30.5);
+
+		ArrayList<DBTable> tables = new ArrayList<DBTable>();
+		for(TAPTable t : schema)
+			tables.add(t);
+		parser = new ADQLParser(new DBChecker(tables));
+	}
+
+	@Test
+	public void testSetPartitioning(){
+		assertTrue(stars.isPartitioned());
+		assertEquals("dec", stars.getPartitionColumn());
+		assertEquals(3, stars.getPartitionBoundaries().length);
+
+		/* CASE: Unknown column, missing or not increasing boundaries => ERROR */
+		for(Object[] wrong : new Object[][]{ { "unknown", new Number[]{ 1 } }, { "ra", new Number[0] }, { "ra", new Number[]{ 1, 1 } }, { "ra", new Number[]{ 1, Double.NaN } } }){
+			try{
+				stars.setPartitioning((String)wrong[0], (Number[])wrong[1]);
+				fail("These partitions should have been rejected!");
+			}catch(Exception ex){
+				assertEquals(IllegalArgumentException.class, ex.getClass());
+			}
+		}
+		assertEquals("dec", stars.getPartitionColumn());
+
+		/* CASE: No column => not partitioned */
+		stars.setPartitioning(null);
+		assertFalse(stars.isPartitioned());
+		assertNull(stars.getPartitionBoundaries());
+	}
+
+	@Test
+	public void testSplit() throws Exception{
+		PostgreSQLTranslator translator = new PostgreSQLTranslator();
+
+		/* CASE: Query on a partitioned table => one query per partition */
+		ADQLQuery query = parser.parseQuery("SELECT TOP 10 s.id, s.ra FROM cat.stars AS s WHERE s.ra > 10 OR s.ra < 5 ORDER BY ra DESC");
+		String original = translator.translate(query);
+		ADQLQuery[] parts = QueryPartitioner.split(query);
+		assertEquals(4, parts.length);
+		assertEquals("SELECT \"s\".\"id\" AS \"id\" , \"s\".\"ra\" AS \"ra\"\nFROM \"cat\".\"stars\" AS \"s\"\nWHERE (\"s\".\"ra\" > 10 OR \"s\".\"ra\" < 5) AND (\"s\".\"DecDB\" < -30 OR \"s\".\"DecDB\" IS NULL)\nORDER BY \"s\".\"ra\" DESC\nLimit 10", translator.translate(parts[0]));
+		assertTrue(translator.translate(parts[1]).contains("AND \"s\".\"DecDB\" >= -30 AND \"s\".\"DecDB\" < 0\n"));
+		assertTrue(translator.translate(parts[2]).contains("AND \"s\".\"DecDB\" >= 0 AND \"s\".\"DecDB\" < 30.5\n"));
+		assertTrue(translator.translate(parts[3]).contains("AND \"s\".\"DecDB\" >= 30.5\n"));
+		// the original query must not be modified:
+		assertEquals(original, translator.translate(query));
+
+		// ORDER BY on the 2nd output column, in descending order:
+		assertEquals(1, QueryPartitioner.getOrderColumns(query).length);
+		assertEquals(1, QueryPartitioner.getOrderColumns(query)[0]);
+		assertTrue(QueryPartitioner.getOrderDirections(query)[0]);
+
+		/* CASE: ORDER BY on a temporal column => the merge is possible */
+		assertTrue(QueryPartitioner.isSplittable(parser.parseQuery("SELECT id, obs_date FROM cat.stars ORDER BY obs_date")));
+
+		/* CASE: No WHERE clause */
+		parts = QueryPartitioner.split(parser.parseQuery("SELECT * FROM cat.stars"));
+		assertTrue(translator.translate(parts[3]).endsWith("WHERE \"cat\".\"stars\".\"DecDB\" >= 30.5"));
+
+		/* CASE: Queries which can not be split */
+		for(String adql : new String[]{ "SELECT * FROM cat.mags", "SELECT * FROM cat.stars NATURAL JOIN cat.mags", "SELECT DISTINCT ra FROM cat.stars", "SELECT COUNT(*) FROM cat.stars", "SELECT ra, MAX(dec) FROM cat.stars GROUP BY ra", "SELECT ra FROM cat.stars ORDER BY dec", "SELECT ra, name FROM cat.stars ORDER BY name", "SELECT ra, name FROM cat.stars ORDER BY ra, 2", "SELECT * FROM (SELECT * FROM cat.stars) AS t" }){
+			query = parser.parseQuery(adql);
+			assertFalse(adql, QueryPartitioner.isSplittable(query));
+			assertNull(adql, QueryPartitioner.split(query));
+		}
+	}
+
+}
@@ -0,0 +1,175 @@
+package tap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tap.db.DBCancelledException;
+import tap.db.DBConnection;
+import tap.formatter.ServiceConnection4Test;
+import tap.log.DefaultTAPLog;
+import tap.log.TAPLog;
+import tap.metadata.TAPMetadata;
+import tap.metadata.TAPSchema;
+import tap.metrics.TAPMetrics;
+import tap.parameters.TAPParameters;
+import uws.service.file.LocalUWSFileManager;
+
+public class TestTAPSyncJob {
+
+	private final TAPMetrics metrics = new TAPMetrics();
+
+	/** Set when the query is running in the "database". */
+	private CountDownLatch queryStarted;
+	/** Set when the running query has been cancelled. */
+	private CountDownLatch queryCancelled;
+	/** Set when the connection has been freed. */
+	private CountDownLatch connectionFreed;
+
+	private ServiceConnection4Test service;
+
+	@Before
+	public void setUp() throws Exception{
+		queryStarted = new CountDownLatch(1);
+		queryCancelled = new CountDownLatch(1);
+		connectionFreed = new CountDownLatch(1);
+
+		TAPMetadata metadata = new TAPMetadata();
+		TAPSchema schema = new TAPSchema("cat");
+		schema.addTable("stars").addColumn("ra");
+		metadata.addSchema(schema);
+
+		final TAPLog logger = new DefaultTAPLog(new ByteArrayOutputStream());
+		service = new ServiceConnection4Test(metadata, new LocalUWSFileManager(new File(System.getProperty("java.io.tmpdir")))){
+			@Override
+			public TAPLog getLogger(){
+				return logger;
+			}
+
+			@Override
+			public TAPMetrics getMetrics(){
+				return metrics;
+			}
+		};
+		service.setFactory(new AbstractTAPFactory(service){
+			@Override
+			public DBConnection getConnection(final String jobID) throws TAPException{
+				return createBlockingConnection(jobID);
+			}
+
+			@Override
+			public void freeConnection(final DBConnection conn){
+				connectionFreed.countDown();
+			}
+
+			@Override
+			public void destroy(){}
+		});
+	}
+
+	@Test
+	public void testClientDisconnection() throws Exception{
+		final TAPSyncJob job = new TAPSyncJob(service, createParameters()){
+			{
+				probeInterval = 50;
+			}
+		};
+
+		// Notify the disconnection as soon as the query is running in the database:
+		new Thread(){
+			@Override
+			public void run(){
+				try{
+					if (queryStarted.await(5, TimeUnit.SECONDS))
+						job.notifyClientDisconnection();
+				}catch(InterruptedException ie){}
+			}
+		}.start();
+
+		final long start = System.currentTimeMillis();
+		try{
+			job.start(null, null);
+			fail("The execution should have been stopped because of the client disconnection!");
+		}catch(IOException ioe){
+			assertTrue(ioe.getMessage().startsWith("Connection with the HTTP client closed"));
+		}
+
+		// The query must have been stopped long before the execution duration (10s by default):
+		assertTrue(System.currentTimeMillis() - start < 5000);
+		assertTrue(queryCancelled.await(1, TimeUnit.SECONDS));
+		assertTrue(connectionFreed.await(1, TimeUnit.SECONDS));
+		assertEquals(1, metrics.getNbClientDisconnections());
+	}
+
+	@Test
+	public void testNoProbe() throws Exception{
+		// Without any probe and disconnection, the query is stopped only by the timeout:
+		TAPSyncJob job = new TAPSyncJob(service, createParameters()){
+			{
+				probeInterval = 0;
+			}
+
+			@Override
+			protected long determineMaxExecutionDuration(){
+				return 300;
+			}
+		};
+		try{
+			job.start(null, null);
+			fail("The execution should have been stopped because of the timeout!");
+		}catch(TAPException te){
+			assertTrue(te.getMessage(), te.getMessage().startsWith("Time out!"));
+		}
+		assertTrue(queryCancelled.await(1, TimeUnit.SECONDS));
+		assertEquals(0, metrics.getNbClientDisconnections());
+	}
+
+	private TAPParameters createParameters() throws Exception{
+		TAPParameters params = new TAPParameters(service);
+		params.set(TAPJob.PARAM_REQUEST, TAPJob.REQUEST_DO_QUERY);
+		params.set(TAPJob.PARAM_LANGUAGE, TAPJob.LANG_ADQL);
+		params.set(TAPJob.PARAM_QUERY, "SELECT ra FROM cat.stars");
+		return params;
+	}
+
+	/**
+	 * Create a connection whose query execution blocks until it is cancelled
+	 * or interrupted.
+	 */
+	private DBConnection createBlockingConnection(final String jobID){
+		return (DBConnection)Proxy.newProxyInstance(DBConnection.class.getClassLoader(), new Class<?>[]{ DBConnection.class }, new InvocationHandler(){
+			@Override
+			public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable{
+				if (method.getName().equals("executeQuery")){
+					queryStarted.countDown();
+					try{
+						queryCancelled.await(10, TimeUnit.SECONDS);
+					}catch(InterruptedException ie){
+						// the execution thread itself has been interrupted:
+						queryCancelled.countDown();
+					}
+					throw new DBCancelledException();
+				}else if (method.getName().equals("cancel"))
+					queryCancelled.countDown();
+				else if (method.getName().equals("getID"))
+					return jobID;
+				else if (method.getReturnType() == boolean.class)
+					return false;
+				return null;
+			}
+		});
+	}
+
+}
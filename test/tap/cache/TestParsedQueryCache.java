@@ -0,0 +1,140 @@
+package tap.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import adql.db.DBChecker;
+import adql.db.DBTable;
+import adql.parser.ADQLParser;
+import adql.parser.ParseException;
+import adql.query.ADQLQuery;
+import adql.translator.PostgreSQLTranslator;
+import tap.metadata.TAPSchema;
+import tap.metadata.TAPTable;
+
+public class TestParsedQueryCache {
+
+	ADQLParser parser;
+
+	@Before
+	public void setUp() throws Exception{
+		TAPSchema schema = new TAPSchema("cat");
+		TAPTable stars = schema.addTable("stars");
+		stars.addColumn("ra");
+		stars.addColumn("dec");
+		stars.getColumn("dec").setDBName("DecDB");
+		stars.setDBName("StarsDB");
+		ArrayList<DBTable> tables = new ArrayList<DBTable>();
+		for(TAPTable t : schema)
+			tables.add(t);
+		parser = new ADQLParser(new DBChecker(tables));
+	}
+
+	@Test
+	public void testParsedQueryCache(){
+		/* CASE: Not a positive number of entries => ERROR */
+		try{
+			new ParsedQueryCache(0);
+			fail("This construction should have failed because the maximum number of entries is not positive!");
+		}catch(Exception ex){
+			assertEquals(IllegalArgumentException.class, ex.getClass());
+		}
+
+		ParsedQueryCache cache = new ParsedQueryCache(10);
+		assertEquals(10, cache.getMaxEntries());
+		assertEquals(0, cache.getNbEntries());
+	}
+
+	@Test
+	public void testGetCopy() throws Exception{
+		ParsedQueryCache cache = new ParsedQueryCache(10);
+		PostgreSQLTranslator translator = new PostgreSQLTranslator();
+		for(String adql : new String[]{ "SELECT * FROM cat.stars", "SELECT s.* FROM cat.stars AS s WHERE s.dec > 10", "SELECT \"dec\", ra FROM cat.stars ORDER BY 1", "SELECT TOP 5 dec FROM (SELECT * FROM cat.stars) AS t WHERE dec IN (SELECT dec FROM cat.stars)", "SELECT ra FROM cat.stars WHERE ra > 1 AND (dec < 2 OR dec > 3) OR ra = 0", "SELECT COUNT(*), PI(), DISTANCE(POINT('', ra, dec), POINT('', 1, 2)) FROM cat.stars WHERE dec NOT BETWEEN 1 AND 2", "SELECT a.ra FROM cat.stars AS a JOIN cat.stars AS b USING (ra)" }){
+			ADQLQuery query = parser.parseQuery(adql);
+			String expectedSQL = translator.translate(query);
+			cache.put(adql, null, query, null);
+
+			// The copy must be translated exactly as the original query:
+			ADQLQuery copy = cache.get(adql, null).getQuery();
+			assertNotSame(query, copy);
+			assertEquals(expectedSQL, translator.translate(copy));
+			assertEquals(query.getResultingColumns().length, copy.getResultingColumns().length);
+
+			// ...and modifying it must not affect the cached query:
+			copy.getSelect().setLimit(1);
+			assertEquals(expectedSQL, translator.translate(cache.get(adql, null).getQuery()));
+		}
+	}
+
+	@Test
+	public void testGet() throws Exception{
+		ParsedQueryCache cache = new ParsedQueryCache(10);
+		final String adql = "SELECT ra FROM cat.stars";
+		assertNull(cache.get(adql, "ctx"));
+		assertEquals(1, cache.getNbMisses());
+
+		/* CASE: Successful parsing */
+		cache.put(adql, "ctx", parser.parseQuery(adql), null);
+		ParsedQueryCache.ParsedQuery parsed = cache.get(adql, "ctx");
+		assertNotNull(parsed);
+		assertFalse(parsed.isError());
+		assertNull(parsed.getFixedQuery());
+		assertEquals(1, cache.getNbHits());
+
+		/* CASE: Same text but different context => not found */
+		assertNull(cache.get(adql, "otherCtx"));
+		assertNull(cache.get(adql + " ", "ctx"));
+
+		/* CASE: Failed parsing (after a fix) => the same error each time */
+		final String wrong = "SELECT unknown FROM cat.stars";
+		ParseException error = null;
+		try{
+			parser.parseQuery(wrong);
+			fail("This query should have been rejected!");
+		}catch(ParseException pe){
+			error = pe;
+		}
+		cache.putError(wrong, "ctx", error, "SELECT \"unknown\" FROM cat.stars");
+		parsed = cache.get(wrong, "ctx");
+		assertTrue(parsed.isError());
+		assertEquals("SELECT \"unknown\" FROM cat.stars", parsed.getFixedQuery());
+		for(int i = 0; i < 2; i++){
+			try{
+				parsed.getQuery();
+				fail("The cached parsing error should have been thrown!");
+			}catch(ParseException pe){
+				assertSame(error, pe);
+			}
+		}
+	}
+
+	@Test
+	public void testEviction() throws Exception{
+		ParsedQueryCache cache = new ParsedQueryCache(2);
+		cache.put("SELECT ra FROM cat.stars", null, parser.parseQuery("SELECT ra FROM cat.stars"), null);
+		cache.put("SELECT dec FROM cat.stars", null, parser.parseQuery("SELECT dec FROM cat.stars"), null);
+
+		// Use the first query => the second one becomes the least recently used:
+		assertNotNull(cache.get("SELECT ra FROM cat.stars", null));
+		cache.put("SELECT ra, dec FROM cat.stars", null, parser.parseQuery("SELECT ra, dec FROM cat.stars"), null);
+		assertEquals(2, cache.getNbEntries());
+		assertNotNull(cache.get("SELECT ra FROM cat.stars", null));
+		assertNull(cache.get("SELECT dec FROM cat.stars", null));
+		assertNotNull(cache.get("SELECT ra, dec FROM cat.stars", null));
+
+		cache.clear();
+		assertEquals(0, cache.getNbEntries());
+	}
+
+}
@@ -0,0 +1,331 @@
+package tap.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import adql.db.DBChecker;
+import adql.db.DBTable;
+import adql.db.FunctionDef;
+import adql.parser.ADQLParser;
+import adql.query.ADQLQuery;
+import tap.metadata.TAPSchema;
+import tap.metadata.TAPTable;
+
+public class TestResultCache {
+	final String TMP_DIR = System.getProperty("java.io.tmpdir");
+
+	File cacheDir;
+	ResultCache cache;
+	ADQLParser parser;
+
+	@Before
+	public void setUp() throws Exception{
+		cacheDir = new File(TMP_DIR, "taptest_result_cache_" + System.currentTimeMillis());
+
+		TAPSchema schema = new TAPSchema("cat");
+		schema.addTable("stars").addColumn("ra");
+		schema.addTable("galaxies").addColumn("ra");
+		TAPSchema upload = new TAPSchema("TAP_UPLOAD");
+		upload.addTable("mytable").addColumn("ra");
+		ArrayList<DBTable> tables = new ArrayList<DBTable>();
+		for(TAPTable t : schema)
+			tables.add(t);
+		for(TAPTable t : upload)
+			tables.add(t);
+		parser = new ADQLParser(new DBChecker(tables, Arrays.asList(new FunctionDef[]{ FunctionDef.parse("myfct(x DOUBLE) -> DOUBLE"), FunctionDef.parse("myrandom() -> DOUBLE") })));
+	}
+
+	@After
+	public void tearDown() throws Exception{
+		if (cache != null)
+			cache.clear();
+		if (cacheDir != null)
+			cacheDir.delete();
+	}
+
+	@Test
+	public void testResultCache(){
+		/* CASE: Missing directory => ERROR */
+		try{
+			new ResultCache(null, 1000);
+			fail("This construction should have failed because no directory has been provided!");
+		}catch(Exception ex){
+			assertEquals(NullPointerException.class, ex.getClass());
+			assertEquals("Missing cache directory!", ex.getMessage());
+		}
+
+		/* CASE: The directory is created if needed */
+		cache = new ResultCache(cacheDir, 1000);
+		assertTrue(cacheDir.isDirectory());
+		assertEquals(1000, cache.getMaxSize());
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	public void testGetKey() throws Exception{
+		cache = new ResultCache(cacheDir, 1000);
+
+		/* CASE: Whitespace and keyword case variants => same key */
+		String key = cache.getKey(parser.parseQuery("SELECT ra FROM cat.stars WHERE ra > 10"), "votable", 100);
+		assertEquals(key, cache.getKey(parser.parseQuery("select   ra\n\tfrom cat.stars  where ra>10"), "votable", 100));
+
+		/* CASE: Different query, format or MAXREC => different key */
+		assertFalse(key.equals(cache.getKey(parser.parseQuery("SELECT ra FROM cat.stars WHERE ra > 11"), "votable", 100)));
+		assertFalse(key.equals(cache.getKey(parser.parseQuery("SELECT ra FROM cat.stars WHERE ra > 10"), "csv", 100)));
+		assertFalse(key.equals(cache.getKey(parser.parseQuery("SELECT ra FROM cat.stars WHERE ra > 10"), "votable", 101)));
+		assertFalse(key.equals(cache.getKey(parser.parseQuery("SELECT ra FROM cat.stars WHERE ra > 10"), "votable", null)));
+	}
+
+	@Test
+	public void testIsCacheable() throws Exception{
+		cache = new ResultCache(cacheDir, 1000);
+
+		assertFalse(cache.isCacheable(null));
+		assertTrue(cache.isCacheable(parser.parseQuery("SELECT ra, ABS(ra) FROM cat.stars")));
+
+		/* CASE: Uploaded table => not cacheable */
+		assertFalse(cache.isCacheable(parser.parseQuery("SELECT ra FROM TAP_UPLOAD.mytable")));
+		assertFalse(cache.isCacheable(parser.parseQuery("SELECT ra FROM cat.stars WHERE ra IN (SELECT ra FROM TAP_UPLOAD.mytable)")));
+
+		/* CASE: Non-deterministic function => not cacheable */
+		assertFalse(cache.isCacheable(parser.parseQuery("SELECT ra, RAND() FROM cat.stars")));
+		assertFalse(cache.isCacheable(parser.parseQuery("SELECT myfct(ra) FROM cat.stars")));
+
+		/* CASE: UDF declared as deterministic => cacheable */
+		cache.addDeterministicFunction(" MyFct ");
+		assertTrue(cache.isCacheable(parser.parseQuery("SELECT myfct(ra) FROM cat.stars")));
+		assertFalse(cache.isCacheable(parser.parseQuery("SELECT myfct(ra), myrandom() FROM cat.stars")));
+	}
+
+	@Test
+	public void testRecordAndGet() throws Exception{
+		cache = new ResultCache(cacheDir, 100);
+		ADQLQuery query = parser.parseQuery("SELECT ra FROM cat.stars");
+		String key = cache.getKey(query, "csv", null);
+
+		/* CASE: Not yet in cache => miss */
+		assertNull(cache.get(key));
+		assertEquals(1, cache.getNbMisses());
+
+		/* CASE: Record a result */
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ResultCache.Recorder recorder = cache.record(key, query, output);
+		recorder.write("ra\n1.0\n".getBytes("UTF-8"));
+		recorder.write('2');
+		assertEquals("ra\n1.0\n2", output.toString("UTF-8"));
+		assertEquals(null, cache.get(key));	// not committed yet
+		recorder.commit("text/csv", 2);
+		assertFalse(recorder.isRecording());
+		assertEquals(1, cache.getNbEntries());
+		assertEquals(8, cache.getSize());
+
+		/* CASE: In cache => hit */
+		ResultCache.CachedResult result = cache.get(key);
+		assertNotNull(result);
+		assertEquals("text/csv", result.mimeType);
+		assertEquals(2, result.nbRows);
+		assertEquals(8, result.size);
+		assertEquals("ra\n1.0\n2", read(result.input));
+		assertEquals(1, cache.getNbHits());
+
+		/* CASE: Discarded recording => not cached */
+		query = parser.parseQuery("SELECT ra FROM cat.galaxies");
+		key = cache.getKey(query, "csv", null);
+		recorder = cache.record(key, query, new ByteArrayOutputStream());
+		recorder.write(new byte[10]);
+		recorder.discard();
+		recorder.commit("text/csv", 10);
+		assertNull(cache.get(key));
+		assertEquals(1, cache.getNbEntries());
+
+		/* CASE: Result bigger than the cache => not cached, but still written */
+		output = new ByteArrayOutputStream();
+		recorder = cache.record(key, query, output);
+		recorder.write(new byte[101]);
+		assertFalse(recorder.isRecording());
+		recorder.commit("text/csv", 101);
+		assertEquals(101, output.size());
+		assertNull(cache.get(key));
+		assertEquals(1, cache.getNbEntries());
+		assertEquals(1, cacheDir.listFiles().length);
+	}
+
+	@Test
+	public void testEviction() throws Exception{
+		cache = new ResultCache(cacheDir, 100);
+		ADQLQuery query = parser.parseQuery("SELECT ra FROM cat.stars");
+
+		// Fill the cache:
+		String key1 = store(query, 1, 40), key2 = store(query, 2, 40);
+		assertEquals(2, cache.getNbEntries());
+
+		// Access the first one => the second one is the least recently used:
+		cache.get(key1).input.close();
+
+		/* CASE: Size exceeded => the least recently used result is deleted */
+		String key3 = store(query, 3, 40);
+		assertEquals(2, cache.getNbEntries());
+		assertEquals(80, cache.getSize());
+		assertNotNull(cache.get(key1));
+		assertNull(cache.get(key2));
+		assertNotNull(cache.get(key3));
+	}
+
+	@Test
+	public void testInvalidate() throws Exception{
+		cache = new ResultCache(cacheDir, 1000);
+		String key1 = store(parser.parseQuery("SELECT ra FROM cat.stars"), 1, 10);
+		String key2 = store(parser.parseQuery("SELECT ra FROM cat.galaxies WHERE ra IN (SELECT ra FROM cat.stars)"), 1, 10);
+		String key3 = store(parser.parseQuery("SELECT ra FROM cat.galaxies"), 1, 10);
+		assertEquals(3, cache.getNbEntries());
+
+		/* CASE: Unknown table => nothing removed */
+		assertEquals(0, cache.invalidate((String)null));
+		assertEquals(0, cache.invalidate("cat.planets"));
+		assertEquals(0, cache.invalidate("other.stars"));
+
+		/* CASE: Table (even used in a sub-query) => all corresponding results removed */
+		assertEquals(2, cache.invalidate("CAT.Stars"));
+		assertNull(cache.get(key1));
+		assertNull(cache.get(key2));
+		assertNotNull(cache.get(key3));
+		assertEquals(10, cache.getSize());
+
+		/* CASE: Table name without schema */
+		assertEquals(1, cache.invalidate("galaxies"));
+		assertEquals(0, cache.getNbEntries());
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	public void testCoalescing() throws Exception{
+		cache = new ResultCache(cacheDir, 100);
+		final ADQLQuery query = parser.parseQuery("SELECT ra FROM cat.stars");
+		final String key = cache.getKey(query, "csv", null);
+
+		/* CASE: Coalescing disabled => every execution leads */
+		assertFalse(cache.isCoalescing());
+		assertTrue(cache.lead(key));
+		assertTrue(cache.lead(key));
+		assertFalse(cache.isInFlight(key));
+
+		/* CASE: Only the first execution leads ; the other ones wait for its result */
+		cache.setCoalescing(true);
+		assertTrue(cache.lead(key));
+		assertTrue(cache.isInFlight(key));
+		assertFalse(cache.lead(key));
+		final ResultCache.CachedResult[] results = new ResultCache.CachedResult[2];
+		Thread[] waiters = new Thread[results.length];
+		for(int i = 0; i < waiters.length; i++){
+			final int index = i;
+			waiters[i] = new Thread(){
+				@Override
+				public void run(){
+					try{
+						results[index] = cache.await(key);
+					}catch(InterruptedException ie){}
+				}
+			};
+			waiters[i].start();
+		}
+		waitFor(key, waiters.length);
+		ResultCache.Recorder recorder = cache.record(key, query, new ByteArrayOutputStream());
+		recorder.write("ra\n1.0\n".getBytes("UTF-8"));
+		recorder.commit("text/csv", 1);
+		cache.land(key);
+		for(Thread t : waiters)
+			t.join(5000);
+		assertFalse(cache.isInFlight(key));
+		for(ResultCache.CachedResult result : results)
+			assertEquals("ra\n1.0\n", read(result.input));
+		assertEquals(2, cache.getNbCoalesced());
+
+		/* CASE: Already cached => no lead, no wait */
+		assertFalse(cache.lead(key));
+		assertEquals("ra\n1.0\n", read(cache.await(key).input));
+		assertEquals(2, cache.getNbCoalesced());
+
+		/* CASE: Result not cached by the leader => NULL for the waiting executions */
+		final ADQLQuery query2 = parser.parseQuery("SELECT ra FROM cat.galaxies");
+		final String key2 = cache.getKey(query2, "csv", null);
+		assertTrue(cache.lead(key2));
+		Thread waiter = new Thread(){
+			@Override
+			public void run(){
+				try{
+					results[0] = cache.await(key2);
+				}catch(InterruptedException ie){}
+			}
+		};
+		waiter.start();
+		waitFor(key2, 1);
+		recorder = cache.record(key2, query2, new ByteArrayOutputStream());
+		recorder.write(new byte[101]);
+		recorder.commit("text/csv", 101);
+		cache.land(key2);
+		waiter.join(5000);
+		assertFalse(waiter.isAlive());
+		assertNull(results[0]);
+		assertFalse(cache.isInFlight(key2));
+
+		/* CASE: Interrupted while waiting => not counted as waiting anymore */
+		assertTrue(cache.lead(key2));
+		Thread.currentThread().interrupt();
+		try{
+			cache.await(key2);
+			fail("The wait should have been interrupted!");
+		}catch(InterruptedException ie){}
+		assertEquals(0, cache.getNbWaiting(key2));
+
+		/* CASE: Still computed after the maximum waiting time => NULL, and not counted as waiting anymore */
+		long start = System.currentTimeMillis();
+		assertNull(cache.await(key2, 50));
+		assertTrue(System.currentTimeMillis() - start >= 50);
+		assertEquals(0, cache.getNbWaiting(key2));
+		assertTrue(cache.isInFlight(key2));
+		cache.land(key2);
+	}
+
+	private void waitFor(final String key, final int nbWaiting) throws InterruptedException{
+		for(int i = 0; i < 500 && cache.getNbWaiting(key) < nbWaiting; i++)
+			Thread.sleep(10);
+		assertEquals(nbWaiting, cache.getNbWaiting(key));
+	}
+
+	private String store(final ADQLQuery query, final int maxRec, final int size) throws IOException{
+		String key = cache.getKey(query, "csv", maxRec);
+		ResultCache.Recorder recorder = cache.record(key, query, new ByteArrayOutputStream());
+		recorder.write(new byte[size]);
+		recorder.commit("text/csv", size);
+		return key;
+	}
+
+	private static String read(final InputStream input) throws IOException{
+		try{
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			int len;
+			while((len = input.read(buffer)) > 0)
+				output.write(buffer, 0, len);
+			return output.toString("UTF-8");
+		}finally{
+			input.close();
+		}
+	}
+
+}
@@ -13,6 +13,7 @@ import static tap.config.TAPConfiguration.KEY_DB_PASSWORD;
 import static tap.config.TAPConfiguration.KEY_DB_USERNAME;
 import static tap.config.TAPConfiguration.KEY_JDBC_DRIVER;
 import static tap.config.TAPConfiguration.KEY_JDBC_URL;
+import static tap.config.TAPConfiguration.KEY_SQL_BIND_PARAMETERS;
 import static tap.config.TAPConfiguration.KEY_SQL_TRANSLATOR;
 import static tap.config.TAPConfiguration.VALUE_JDBC;
 import static tap.config.TAPConfiguration.VALUE_JNDI;
@@ -20,17 +21,28 @@ import static tap.config.TAPConfiguration.VALUE_PGSPHERE;
 import static tap.config.TAPConfiguration.VALUE_POSTGRESQL;
 
 import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.net.URL;
+import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.naming.Context;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
 import javax.servlet.http.HttpServletRequest;
+import javax.sql.DataSource;
 
 import org.h2.jdbc.JdbcSQLException;
 import org.h2.jdbcx.JdbcDataSource;
@@ -39,10 +51,17 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import adql.db.FunctionDef;
+import adql.parser.ADQLParser;
+import adql.translator.H2Translator;
+import tap.PartitionExecutor;
+import tap.QueryLimits;
 import tap.ServiceConnection;
 import tap.TAPException;
 import tap.TAPFactory;
 import tap.backup.DefaultTAPBackupManager;
+import tap.cache.ParsedQueryCache;
+import tap.cache.ResultCache;
+import tap.data.TableIterator;
 import tap.db.DBConnection;
 import tap.db.DBException;
 import tap.db.JDBCConnection;
@@ -51,6 +70,8 @@ import tap.formatter.OutputFormat;
 import tap.log.DefaultTAPLog;
 import tap.log.TAPLog;
 import tap.metadata.TAPMetadata;
+import tap.metrics.TAPMetrics;
+import tap.upload.UploadCache;
 import uws.UWSException;
 import uws.job.user.JobOwner;
 import uws.service.UWSService;
@@ -388,6 +409,109 @@ public class TestConfigurableTAPFactory {
 		}
 	}
 
+	@Test
+	public void testStatementCacheWithPooledConnection() throws Exception{
+		// A physical connection counting the prepared statements:
+		final Connection h2 = DriverManager.getConnection(DBTools.DB_TEST_URL, DBTools.DB_TEST_USER, DBTools.DB_TEST_PWD);
+		final AtomicInteger nbPrepared = new AtomicInteger(0);
+		final Connection physical = (Connection)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ Connection.class }, new InvocationHandler(){
+			@Override
+			public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable{
+				if (method.getName().equals("unwrap"))
+					return proxy;
+				else if (method.getName().equals("prepareStatement"))
+					nbPrepared.incrementAndGet();
+				try{
+					return method.invoke(h2, args);
+				}catch(InvocationTargetException ite){
+					throw ite.getCause();
+				}
+			}
+		});
+
+		// A pool of this only connection, given to each job in a new wrapper:
+		DataSource pool = (DataSource)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ DataSource.class }, new InvocationHandler(){
+			@Override
+			public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable{
+				if (method.getName().equals("getConnection"))
+					return createPooledConnection(physical);
+				return null;
+			}
+		});
+		new InitialContext().rebind("jdbc/MyPool", pool);
+
+		Properties prop = (Properties)validJNDIProp.clone();
+		prop.setProperty(KEY_DATASOURCE_JNDI_NAME, "jdbc/MyPool");
+		prop.setProperty(KEY_SQL_BIND_PARAMETERS, "true");
+
+		Statement stmt = physical.createStatement();
+		try{
+			stmt.execute("CREATE TABLE pool_test (id INTEGER)");
+			stmt.execute("INSERT INTO pool_test VALUES (1), (2)");
+			TAPFactory factory = new ConfigurableTAPFactory(serviceConnection, prop);
+
+			/* CASE: First job => the statement is prepared and kept after the job */
+			assertEquals(1, executeJob(factory, "job1", "SELECT id FROM pool_test WHERE id = 1"));
+			assertEquals(1, nbPrepared.get());
+
+			/* CASE: Second job on the same pooled connection => the statement is reused */
+			assertEquals(1, executeJob(factory, "job2", "SELECT id FROM pool_test WHERE id = 2"));
+			assertEquals(1, nbPrepared.get());
+		}finally{
+			stmt.execute("DROP TABLE IF EXISTS pool_test");
+			stmt.close();
+			new JDBCConnection(physical, new H2Translator(), "cleaner", null).clearStatementCache();
+			physical.close();
+		}
+	}
+
+	private static int executeJob(final TAPFactory factory, final String jobID, final String adql) throws Exception{
+		DBConnection conn = factory.getConnection(jobID);
+		try{
+			TableIterator it = conn.executeQuery(new ADQLParser().parseQuery(adql));
+			int nbRows = 0;
+			while(it.nextRow())
+				nbRows++;
+			it.close();
+			return nbRows;
+		}finally{
+			factory.freeConnection(conn);
+		}
+	}
+
+	/**
+	 * Wrap the given physical connection as a connection pool would do:
+	 * closing the wrapper closes its statements, but not the physical
+	 * connection.
+	 */
+	private static Connection createPooledConnection(final Connection physical){
+		final List<Statement> statements = new ArrayList<Statement>();
+		return (Connection)Proxy.newProxyInstance(TestConfigurableTAPFactory.class.getClassLoader(), new Class<?>[]{ Connection.class }, new InvocationHandler(){
+			private boolean closed = false;
+
+			@Override
+			public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable{
+				if (method.getName().equals("close")){
+					for(Statement s : statements)
+						s.close();
+					closed = true;
+					return null;
+				}else if (method.getName().equals("isClosed"))
+					return closed;
+				else if (method.getName().equals("unwrap"))
+					return physical;
+				try{
+					Object result = method.invoke(physical, args);
+					if (result instanceof Statement)
+						statements.add((Statement)result);
+					return result;
+				}catch(InvocationTargetException ite){
+					throw ite.getCause();
+				}
+			}
+		});
+	}
+
 	public static final String getPertinentMessage(final Exception ex){
 		return (ex.getCause() == null || ex.getMessage().equals(ex.getCause().getMessage())) ? ex.getMessage() : ex.getCause().getMessage();
 	}
@@ -531,6 +655,41 @@ public class TestConfigurableTAPFactory {
 		public boolean fixOnFailEnabled(){
 			return false;
 		}
+
+		@Override
+		public UploadCache getUploadCache(){
+			return null;
+		}
+
+		@Override
+		public ResultCache getResultCache(){
+			return null;
+		}
+
+		@Override
+		public ParsedQueryCache getParsedQueryCache(){
+			return null;
+		}
+
+		@Override
+		public TAPMetrics getMetrics(){
+			return null;
+		}
+
+		@Override
+		public QueryLimits getQueryLimits(){
+			return null;
+		}
+
+		@Override
+		public long getResultSpoolingThreshold(){
+			return -1;
+		}
+
+		@Override
+		public PartitionExecutor getPartitionExecutor(){
+			return null;
+		}
 	}
 
 }
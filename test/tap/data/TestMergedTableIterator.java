@@ -0,0 +1,108 @@
+package tap.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Test;
+
+import adql.db.DBType;
+import adql.db.DBType.DBDatatype;
+import tap.metadata.TAPColumn;
+
+public class TestMergedTableIterator {
+
+	private final static TAPColumn COLUMN = new TAPColumn("id", new DBType(DBDatatype.INTEGER));
+
+	private static TableIterator values(final Object... values){
+		return new ValuesTableIterator(COLUMN, values);
+	}
+
+	private static List<Object> readAll(final TableIterator it) throws DataReadException{
+		ArrayList<Object> rows = new ArrayList<Object>();
+		while(it.nextRow()){
+			assertTrue(it.hasNextCol());
+			rows.add(it.nextCol());
+			assertEquals(DBDatatype.INTEGER, it.getColType().type);
+			assertFalse(it.hasNextCol());
+		}
+		it.close();
+		return rows;
+	}
+
+	@Test
+	public void testUnsorted() throws Exception{
+		/* CASE: No iterator => ERROR */
+		try{
+			new MergedTableIterator(new TableIterator[0]);
+			fail("This construction should have failed because there is no iterator to merge!");
+		}catch(Exception ex){
+			assertEquals(NullPointerException.class, ex.getClass());
+		}
+
+		/* CASE: All rows of all iterators, whatever is their order */
+		TableIterator[] iterators = new TableIterator[]{ values(1, 2, 3), values(), values(4, 5) };
+		MergedTableIterator merged = new MergedTableIterator(iterators);
+		assertEquals(3, merged.getNbIterators());
+		assertFalse(merged.isSorted());
+		assertSame(COLUMN, merged.getMetadata()[0]);
+		try{
+			merged.hasNextCol();
+			fail("No row should be readable before the first call to nextRow()!");
+		}catch(Exception ex){
+			assertEquals(IllegalStateException.class, ex.getClass());
+		}
+		List<Object> rows = readAll(merged);
+		Collections.sort(rows, new Comparator<Object>(){
+			@Override
+			public int compare(Object o1, Object o2){
+				return MergedTableIterator.compareValues(o1, o2);
+			}
+		});
+		assertEquals("[1, 2, 3, 4, 5]", rows.toString());
+
+		/* CASE: Limited number of rows */
+		assertEquals(2, readAll(new MergedTableIterator(new TableIterator[]{ values(1, 2, 3), values(4, 5) }, null, null, true, 2)).size());
+	}
+
+	@Test
+	public void testSorted() throws Exception{
+		/* CASE: Ascending order, NULL last */
+		MergedTableIterator merged = new MergedTableIterator(new TableIterator[]{ values(1, 4, 4, null), values(), values(2, 3, 5), values(0, 6) }, new int[]{ 0 }, new boolean[]{ false }, true, -1);
+		assertTrue(merged.isSorted());
+		assertEquals("[0, 1, 2, 3, 4, 4, 5, 6, null]", readAll(merged).toString());
+
+		/* CASE: Descending order, NULL first, limited */
+		merged = new MergedTableIterator(new TableIterator[]{ values(null, 9, 3), values(8, 7, 1) }, new int[]{ 0 }, new boolean[]{ true }, true, 4);
+		assertEquals("[null, 9, 8, 7]", readAll(merged).toString());
+
+		/* CASE: NULL smaller than any other value */
+		merged = new MergedTableIterator(new TableIterator[]{ values(null, 2, 3), values(null, 1) }, new int[]{ 0 }, null, false, -1);
+		assertEquals("[null, null, 1, 2, 3]", readAll(merged).toString());
+
+		/* CASE: Close before the end => no more row */
+		merged = new MergedTableIterator(new TableIterator[]{ values(1, 3), values(2, 4) }, new int[]{ 0 }, null, true, -1);
+		assertTrue(merged.nextRow());
+		merged.close();
+		assertFalse(merged.nextRow());
+	}
+
+	@Test
+	public void testCompareValues(){
+		assertEquals(0, MergedTableIterator.compareValues(null, null));
+		assertTrue(MergedTableIterator.compareValues(null, 1) > 0);
+		assertTrue(MergedTableIterator.compareValues(1, null) < 0);
+		assertTrue(MergedTableIterator.compareValues(1, 2.5) < 0);
+		assertTrue(MergedTableIterator.compareValues(Long.MAX_VALUE, Long.MAX_VALUE - 1) > 0);
+		assertTrue(MergedTableIterator.compareValues("abc", "abd") < 0);
+		assertEquals(0, MergedTableIterator.compareValues(3, 3L));
+	}
+
+}
@@ -0,0 +1,318 @@
+package tap.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+import org.junit.Test;
+import org.postgresql.copy.CopyOut;
+
+import adql.db.DBColumn;
+import adql.db.DBType;
+import adql.db.DBType.DBDatatype;
+import tap.metadata.TAPColumn;
+
+public class TestPgCopyTableIterator {
+
+	private final static DBColumn[] COLUMNS = new DBColumn[]{ new TAPColumn("id", new DBType(DBDatatype.BIGINT)), new TAPColumn("ra", new DBType(DBDatatype.DOUBLE)), new TAPColumn("mag", new DBType(DBDatatype.REAL)), new TAPColumn("flag", new DBType(DBDatatype.SMALLINT)), new TAPColumn("name", new DBType(DBDatatype.VARCHAR)), new TAPColumn("type", new DBType(DBDatatype.CHAR, 1)), new TAPColumn("data", new DBType(DBDatatype.VARBINARY)) };
+
+	@Test
+	public void testIsExportable(){
+		assertTrue(PgCopyTableIterator.isExportable(COLUMNS));
+		assertFalse(PgCopyTableIterator.isExportable(null));
+		assertFalse(PgCopyTableIterator.isExportable(new DBColumn[0]));
+		assertFalse(PgCopyTableIterator.isExportable(new DBColumn[]{ COLUMNS[0], new TAPColumn("obs_date", new DBType(DBDatatype.TIMESTAMP)) }));
+		assertFalse(PgCopyTableIterator.isExportable(new DBColumn[]{ COLUMNS[0], new TAPColumn("pos", new DBType(DBDatatype.POINT)) }));
+		assertFalse(PgCopyTableIterator.isExportable(new DBColumn[]{ COLUMNS[0], new TAPColumn("unknown", new DBType(DBDatatype.UNKNOWN)) }));
+	}
+
+	@Test
+	public void testIsExportableResult(){
+		assertTrue(PgCopyTableIterator.isExportableResult(new String[]{ "int8", "float8", "float4", "int2", "varchar", "bpchar", "bytea" }));
+		assertFalse(PgCopyTableIterator.isExportableResult((String[])null));
+		assertFalse(PgCopyTableIterator.isExportableResult(new String[0]));
+		assertFalse(PgCopyTableIterator.isExportableResult(new String[]{ "int8", "numeric" }));
+		assertFalse(PgCopyTableIterator.isExportableResult(new String[]{ "int8", "timestamp" }));
+		assertFalse(PgCopyTableIterator.isExportableResult(new String[]{ "int8", null }));
+	}
+
+	@Test
+	public void testGetCopyType(){
+		assertEquals("int4", PgCopyTableIterator.getCopyType("int4"));
+		assertEquals("int8", PgCopyTableIterator.getCopyType("INT8"));
+		assertEquals("float8", PgCopyTableIterator.getCopyType("float8"));
+		assertEquals("text", PgCopyTableIterator.getCopyType("text"));
+		assertEquals("text", PgCopyTableIterator.getCopyType("varchar"));
+		assertEquals("text", PgCopyTableIterator.getCopyType("bpchar"));
+		assertEquals("bytea", PgCopyTableIterator.getCopyType("bytea"));
+		assertNull(PgCopyTableIterator.getCopyType("numeric"));
+		assertNull(PgCopyTableIterator.getCopyType("geometry"));
+		assertNull(PgCopyTableIterator.getCopyType((String)null));
+	}
+
+	@Test
+	public void testBuildCopySQL(){
+		// no cast: the values are decoded with the real types of the result
+		assertEquals("COPY (SELECT id, ra, name FROM stars LIMIT 11) TO STDOUT WITH (FORMAT binary)", PgCopyTableIterator.buildCopySQL("SELECT id, ra, name FROM stars LIMIT 11;"));
+		try{
+			PgCopyTableIterator.buildCopySQL(null);
+			fail("A query is required!");
+		}catch(Exception ex){
+			assertEquals(NullPointerException.class, ex.getClass());
+		}
+	}
+
+	@Test
+	public void testReadRealTypes() throws Exception{
+		/* The declared metadata do not match the table: a bigint declared as
+		 * INTEGER, a double precision declared as REAL and a char(5) declared
+		 * as CHAR(5) */
+		DBColumn[] declared = new DBColumn[]{ new TAPColumn("id", new DBType(DBDatatype.INTEGER)), new TAPColumn("ra", new DBType(DBDatatype.REAL)), new TAPColumn("code", new DBType(DBDatatype.CHAR, 5)) };
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.write(new byte[]{ 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte)0xFF, '\r', '\n', 0 });
+		out.writeInt(0);
+		out.writeInt(0);
+		out.writeShort(3);
+		out.writeInt(8);
+		out.writeLong(5000000000L);
+		out.writeInt(8);
+		out.writeDouble(0.1234567890123);
+		writeBytes(out, "ab   ".getBytes(StandardCharsets.UTF_8));
+		out.writeShort(-1);
+		out.close();
+
+		PgCopyTableIterator it = new PgCopyTableIterator(null, new ByteArrayInputStream(bytes.toByteArray()), declared, new String[]{ "int8", "float8", "bpchar" });
+		assertTrue(it.nextRow());
+		assertEquals(5000000000L, it.nextCol());
+		assertEquals(0.1234567890123, it.nextCol());
+		assertEquals("ab   ", it.nextCol());
+		assertFalse(it.nextRow());
+		it.close();
+
+		/* CASE: Real types not decodable or not matching the columns */
+		try{
+			new PgCopyTableIterator(null, new ByteArrayInputStream(bytes.toByteArray()), declared, new String[]{ "int8", "numeric", "bpchar" });
+			fail("A numeric column can not be decoded!");
+		}catch(Exception ex){
+			assertEquals(IllegalArgumentException.class, ex.getClass());
+		}
+		try{
+			new PgCopyTableIterator(null, new ByteArrayInputStream(bytes.toByteArray()), declared, new String[]{ "int8", "float8" });
+			fail("The number of types does not match the number of columns!");
+		}catch(Exception ex){
+			assertEquals(IllegalArgumentException.class, ex.getClass());
+		}
+	}
+
+	@Test
+	public void testRead() throws Exception{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		// header (with a 2 bytes extension):
+		out.write(new byte[]{ 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte)0xFF, '\r', '\n', 0 });
+		out.writeInt(0);
+		out.writeInt(2);
+		out.writeShort(0);
+		// row 1:
+		out.writeShort(7);
+		out.writeInt(8);
+		out.writeLong(123456789012L);
+		out.writeInt(8);
+		out.writeDouble(10.5);
+		out.writeInt(4);
+		out.writeFloat(12.25f);
+		out.writeInt(2);
+		out.writeShort(3);
+		writeBytes(out, "éàç".getBytes(StandardCharsets.UTF_8));
+		writeBytes(out, "G".getBytes(StandardCharsets.UTF_8));
+		writeBytes(out, new byte[]{ 1, 2 });
+		// row 2 (only NULLs):
+		out.writeShort(7);
+		for(int i = 0; i < 7; i++)
+			out.writeInt(-1);
+		// trailer:
+		out.writeShort(-1);
+		out.close();
+
+		PgCopyTableIterator it = new PgCopyTableIterator(null, new ByteArrayInputStream(bytes.toByteArray()), COLUMNS);
+		assertEquals(COLUMNS.length, it.getMetadata().length);
+		try{
+			it.hasNextCol();
+			fail("No row should be readable before the first call to nextRow()!");
+		}catch(Exception ex){
+			assertEquals(IllegalStateException.class, ex.getClass());
+		}
+
+		assertTrue(it.nextRow());
+		assertEquals(123456789012L, it.nextCol());
+		assertEquals(DBDatatype.BIGINT, it.getColType().type);
+		assertEquals(10.5, it.nextCol());
+		assertEquals(12.25f, it.nextCol());
+		assertEquals((short)3, it.nextCol());
+		assertEquals("éàç", it.nextCol());
+		assertEquals('G', it.nextCol());
+		assertArrayEquals(new byte[]{ 1, 2 }, (byte[])it.nextCol());
+		assertFalse(it.hasNextCol());
+
+		assertTrue(it.nextRow());
+		for(int i = 0; i < COLUMNS.length; i++)
+			assertNull(it.nextCol());
+		assertFalse(it.hasNextCol());
+
+		assertFalse(it.nextRow());
+		assertFalse(it.nextRow());
+		it.close();
+	}
+
+	@Test
+	public void testCorruptedStream() throws Exception{
+		/* CASE: Incorrect signature */
+		PgCopyTableIterator it = new PgCopyTableIterator(null, new ByteArrayInputStream("SELECT 1;\n0123456789".getBytes()), COLUMNS);
+		try{
+			it.nextRow();
+			fail("The signature of the stream is incorrect!");
+		}catch(DataReadException dre){
+			assertTrue(dre.getMessage().contains("signature"));
+		}
+
+		/* CASE: Truncated stream */
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.write(new byte[]{ 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte)0xFF, '\r', '\n', 0 });
+		out.writeInt(0);
+		out.writeInt(0);
+		out.writeShort(7);
+		out.writeInt(8);
+		out.close();
+		it = new PgCopyTableIterator(null, new ByteArrayInputStream(bytes.toByteArray()), COLUMNS);
+		try{
+			it.nextRow();
+			fail("The stream is truncated!");
+		}catch(DataReadException dre){
+			assertEquals("Unexpected end of the COPY stream!", dre.getMessage());
+		}
+	}
+
+	@Test
+	public void testCancel() throws Exception{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.write(new byte[]{ 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte)0xFF, '\r', '\n', 0 });
+		out.writeInt(0);
+		out.writeInt(0);
+		for(int r = 0; r < 2; r++){
+			out.writeShort(7);
+			for(int i = 0; i < 7; i++)
+				out.writeInt(-1);
+		}
+		out.writeShort(-1);
+		out.close();
+
+		/* CASE: Cancelled (e.g. by another thread) => the COPY is stopped */
+		CopyOutStream copy = new CopyOutStream(bytes.toByteArray());
+		PgCopyTableIterator it = new PgCopyTableIterator(null, copy, COLUMNS);
+		assertTrue(it.nextRow());
+		it.cancel();
+		assertEquals(1, copy.nbCancels);
+		// ...and once stopped, nothing more is done:
+		it.cancel();
+		it.close();
+		assertEquals(1, copy.nbCancels);
+
+		/* CASE: Thread interrupted => the COPY is stopped */
+		copy = new CopyOutStream(bytes.toByteArray());
+		it = new PgCopyTableIterator(null, copy, COLUMNS);
+		assertTrue(it.nextRow());
+		Thread.currentThread().interrupt();
+		try{
+			it.nextRow();
+			fail("The reading should have been interrupted!");
+		}catch(DataReadException dre){
+			assertEquals("Reading of the COPY stream interrupted!", dre.getMessage());
+		}finally{
+			assertTrue(Thread.interrupted());
+		}
+		assertEquals(1, copy.nbCancels);
+		assertFalse(it.nextRow());
+
+		/* CASE: Closed before the end => the COPY is stopped */
+		copy = new CopyOutStream(bytes.toByteArray());
+		it = new PgCopyTableIterator(null, copy, COLUMNS);
+		assertTrue(it.nextRow());
+		it.close();
+		assertEquals(1, copy.nbCancels);
+
+		/* CASE: Closed after the end => nothing to stop */
+		copy = new CopyOutStream(bytes.toByteArray());
+		it = new PgCopyTableIterator(null, copy, COLUMNS);
+		while(it.nextRow());
+		copy.active = false;
+		it.close();
+		assertEquals(0, copy.nbCancels);
+	}
+
+	/**
+	 * COPY stream whose the cancellations are counted.
+	 */
+	private static class CopyOutStream extends ByteArrayInputStream implements CopyOut {
+		volatile boolean active = true;
+		int nbCancels = 0;
+
+		public CopyOutStream(final byte[] bytes){
+			super(bytes);
+		}
+
+		@Override
+		public int getFieldCount(){
+			return COLUMNS.length;
+		}
+
+		@Override
+		public int getFormat(){
+			return 1;
+		}
+
+		@Override
+		public int getFieldFormat(final int field){
+			return 1;
+		}
+
+		@Override
+		public boolean isActive(){
+			return active;
+		}
+
+		@Override
+		public void cancelCopy() throws SQLException{
+			nbCancels++;
+			active = false;
+		}
+
+		@Override
+		public long getHandledRowCount(){
+			return -1;
+		}
+
+		@Override
+		public byte[] readFromCopy() throws SQLException{
+			return null;
+		}
+	}
+
+	private static void writeBytes(final DataOutputStream out, final byte[] bytes) throws IOException{
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+}
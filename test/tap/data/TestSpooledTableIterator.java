@@ -0,0 +1,117 @@
+package tap.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.Date;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import adql.db.DBType;
+import adql.db.DBType.DBDatatype;
+import tap.metadata.TAPColumn;
+
+public class TestSpooledTableIterator {
+
+	private final static TAPColumn COLUMN = new TAPColumn("value", new DBType(DBDatatype.VARCHAR));
+
+	private File spoolFile;
+
+	@Before
+	public void setUp() throws Exception{
+		spoolFile = File.createTempFile("test_spool_", ".bin");
+	}
+
+	@After
+	public void tearDown(){
+		spoolFile.delete();
+	}
+
+	@Test
+	public void testSpool() throws Exception{
+		final Date date = new Date(1234567890L);
+		Object[] values = new Object[]{ null, "éàç string", 1, 2L, 3.5, 4.5f, (short)6, (byte)7, true, 'c', new byte[]{ 1, 2, 3 }, date, new Object(){
+			@Override
+			public String toString(){
+				return "not serializable";
+			}
+		} };
+
+		SpooledTableIterator spool = new SpooledTableIterator(new ValuesTableIterator(COLUMN, values), spoolFile);
+		assertEquals(values.length, spool.getNbRows());
+		assertTrue(spool.getSpoolSize() > 0);
+		assertSame(COLUMN, spool.getMetadata()[0]);
+
+		try{
+			spool.hasNextCol();
+			fail("No row should be readable before the first call to nextRow()!");
+		}catch(Exception ex){
+			assertEquals(IllegalStateException.class, ex.getClass());
+		}
+
+		Object[] read = new Object[values.length];
+		for(int i = 0; i < values.length; i++){
+			assertTrue(spool.nextRow());
+			assertTrue(spool.hasNextCol());
+			read[i] = spool.nextCol();
+			assertEquals(DBDatatype.VARCHAR, spool.getColType().type);
+			assertFalse(spool.hasNextCol());
+		}
+		assertFalse(spool.nextRow());
+		assertFalse(spool.nextRow());
+
+		assertNull(read[0]);
+		assertEquals("éàç string", read[1]);
+		assertEquals(1, read[2]);
+		assertEquals(2L, read[3]);
+		assertEquals(3.5, read[4]);
+		assertEquals(4.5f, read[5]);
+		assertEquals((short)6, read[6]);
+		assertEquals((byte)7, read[7]);
+		assertEquals(true, read[8]);
+		assertEquals('c', read[9]);
+		assertArrayEquals(new byte[]{ 1, 2, 3 }, (byte[])read[10]);
+		assertEquals(date, read[11]);
+		assertEquals("not serializable", read[12]);
+
+		// The spool file must be deleted when closing the iterator:
+		spool.close();
+		assertFalse(spoolFile.exists());
+	}
+
+	@Test
+	public void testEmpty() throws Exception{
+		SpooledTableIterator spool = new SpooledTableIterator(new ValuesTableIterator(COLUMN, new Object[0]), spoolFile);
+		assertEquals(0, spool.getNbRows());
+		assertFalse(spool.nextRow());
+		spool.close();
+		assertFalse(spoolFile.exists());
+	}
+
+	@Test
+	public void testInterruption() throws Exception{
+		Object[] values = new Object[5000];
+		for(int i = 0; i < values.length; i++)
+			values[i] = i;
+
+		Thread.currentThread().interrupt();
+		try{
+			new SpooledTableIterator(new ValuesTableIterator(COLUMN, values), spoolFile);
+			fail("The spooling should have been interrupted!");
+		}catch(DataReadException dre){
+			assertEquals("Spooling interrupted!", dre.getMessage());
+		}finally{
+			Thread.interrupted();
+		}
+		assertFalse(spoolFile.exists());
+	}
+
+}
@@ -3,6 +3,7 @@ package tap.db;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -12,8 +13,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -31,6 +34,7 @@ import adql.parser.ADQLParser;
 import adql.parser.ParseException;
 import adql.query.ADQLQuery;
 import adql.query.IdentifierField;
+import adql.query.constraint.In;
 import adql.translator.AstroH2Translator;
 import adql.translator.PostgreSQLTranslator;
 import tap.data.DataReadException;
@@ -596,6 +600,232 @@ public class TestJDBCConnection {
 		}
 	}
 
+	@Test
+	public void testExecuteQueryWithBindParameters() throws Exception{
+		// There should be no difference between a H2 connection and a SQLITE one!
+		JDBCConnection[] connections = new JDBCConnection[]{ new JDBCConnection(h2Connection, new AstroH2Translator(false), "H2", null), new JDBCConnection(sqliteConnection, new PostgreSQLTranslator(false), "SQLITE", null) };
+		for(JDBCConnection conn : connections){
+			conn.setBindParameters(true);
+			assertTrue(conn.isUsingBindParameters());
+
+			TAPSchema schema = TAPMetadata.getStdSchema(conn.supportsSchema);
+			ArrayList<DBTable> tables = new ArrayList<DBTable>(schema.getNbTables());
+			for(TAPTable t : schema)
+				tables.add(t);
+			ADQLParser parser = new ADQLParser(new DBChecker(tables));
+
+			try{
+				createTAPSchema(conn);
+
+				/* CASE: Same query with different literals => same prepared statement */
+				assertEquals(1, count(conn, parser.parseQuery("SELECT table_name FROM TAP_SCHEMA.tables WHERE table_name = 'columns'")));
+				assertEquals(1, conn.preparedStatements.size());
+				PreparedStatement pstmt = conn.preparedStatements.values().iterator().next();
+				assertFalse(pstmt.isClosed());
+				assertEquals(1, count(conn, parser.parseQuery("SELECT table_name FROM TAP_SCHEMA.tables WHERE table_name = 'keys'")));
+				assertEquals(0, count(conn, parser.parseQuery("SELECT table_name FROM TAP_SCHEMA.tables WHERE table_name = 'foo'")));
+				assertEquals(1, conn.preparedStatements.size());
+				assertTrue(pstmt == conn.preparedStatements.values().iterator().next());
+
+				/* CASE: Cache full => the least recently used statement is closed */
+				conn.setStatementCacheSize(1);
+				assertEquals(4, count(conn, parser.parseQuery("SELECT table_name FROM TAP_SCHEMA.tables WHERE table_name <> 'keys'")));
+				assertEquals(1, conn.preparedStatements.size());
+				assertTrue(pstmt.isClosed());
+
+				/* CASE: Other queries are still executed with a simple statement */
+				assertEquals(5, count(conn, parser.parseQuery("SELECT table_name FROM TAP_SCHEMA.tables")));
+				assertEquals(1, conn.preparedStatements.size());
+
+				/* CASE: Clear the cache => all statements closed */
+				pstmt = conn.preparedStatements.values().iterator().next();
+				conn.clearStatementCache();
+				assertEquals(0, conn.preparedStatements.size());
+				assertTrue(pstmt.isClosed());
+
+				/* CASE: No cache => statement closed after its use */
+				conn.setStatementCacheSize(0);
+				assertEquals(1, count(conn, parser.parseQuery("SELECT table_name FROM TAP_SCHEMA.tables WHERE table_name = 'keys'")));
+				assertEquals(0, conn.preparedStatements.size());
+			}catch(Exception ex){
+				ex.printStackTrace(System.err);
+				fail("{" + conn.ID + "} No error was expected while executing queries with bind parameters!");
+			}finally{
+				conn.clearStatementCache();
+			}
+		}
+	}
+
+	@Test
+	public void testExecuteQueryWithInListTable() throws Exception{
+		// There should be no difference between a H2 connection and a SQLITE one!
+		JDBCConnection[] connections = new JDBCConnection[]{ new JDBCConnection(h2Connection, new AstroH2Translator(false), "H2", null), new JDBCConnection(sqliteConnection, new PostgreSQLTranslator(false), "SQLITE", null) };
+		for(JDBCConnection conn : connections){
+			assertEquals(0, conn.getInListTableThreshold());
+
+			TAPSchema schema = TAPMetadata.getStdSchema(conn.supportsSchema);
+			ArrayList<DBTable> tables = new ArrayList<DBTable>(schema.getNbTables());
+			for(TAPTable t : schema)
+				tables.add(t);
+			ADQLParser parser = new ADQLParser(new DBChecker(tables));
+			parser.setMinCompactListSize(3);
+
+			try{
+				createTAPSchema(conn);
+				final String strQuery = "SELECT table_name FROM TAP_SCHEMA.tables WHERE table_name IN ('columns', 'keys', 'foo')";
+				final String numQuery = "SELECT column_name FROM TAP_SCHEMA.columns WHERE principal NOT IN (-1, 1, 2)";
+				final String decQuery = "SELECT column_name FROM TAP_SCHEMA.columns WHERE principal IN (0.0, 1, 2)";
+				final int nbStrRows = count(conn, parser.parseQuery(strQuery)), nbNumRows = count(conn, parser.parseQuery(numQuery)), nbDecRows = count(conn, parser.parseQuery(decQuery));
+				assertEquals(2, nbStrRows);
+				assertTrue(nbNumRows > 0);
+
+				conn.setInListTableThreshold(3);
+				assertEquals(3, conn.getInListTableThreshold());
+
+				/* CASE: List of strings => table created, then dropped when the result is closed */
+				ADQLQuery query = parser.parseQuery(strQuery);
+				TableIterator result = conn.executeQuery(query);
+				assertEquals(1, conn.inListTables.size());
+				assertTrue(isTableExisting(conn, conn.inListTables.get(0)));
+				TAPTable inListTable = conn.inListTables.get(0);
+				int cntRow = 0;
+				while(result.nextRow())
+					cntRow++;
+				result.close();
+				assertEquals(nbStrRows, cntRow);
+				assertEquals(0, conn.inListTables.size());
+				assertFalse(isTableExisting(conn, inListTable));
+				// the given query must not be modified:
+				assertEquals(parser.parseQuery(strQuery).toADQL(), query.toADQL());
+
+				/* CASE: Compact list of integers (with a negative one) */
+				assertEquals(nbNumRows, count(conn, parser.parseQuery(numQuery)));
+				assertEquals(0, conn.inListTables.size());
+				assertTrue(conn.loadInLists(parser.parseQuery(numQuery)).toADQL().endsWith("NOT IN (SELECT in_value\nFROM TAP_UPLOAD.in_list_1)"));
+				conn.endQuery();
+				assertEquals(0, conn.inListTables.size());
+
+				/* CASE: Not only integers => list kept as it is */
+				assertNull(conn.getInListValues(((In)parser.parseQuery(decQuery).getWhere().get(0)).getValuesList()));
+				assertEquals(nbDecRows, count(conn, parser.parseQuery(decQuery)));
+
+				/* CASE: List too short => list kept as it is */
+				conn.setInListTableThreshold(4);
+				assertEquals(parser.parseQuery(strQuery).toADQL(), conn.loadInLists(parser.parseQuery(strQuery)).toADQL());
+				assertEquals(0, conn.inListTables.size());
+			}catch(Exception ex){
+				ex.printStackTrace(System.err);
+				fail("{" + conn.ID + "} No error was expected while executing queries with huge IN lists!");
+			}finally{
+				conn.setInListTableThreshold(0);
+			}
+		}
+	}
+
+	@Test
+	public void testGetFetchSize() throws Exception{
+		JDBCConnection conn = new JDBCConnection(h2Connection, new AstroH2Translator(false), "H2", null);
+		assertFalse(conn.streamingFetch);
+		assertEquals(0, conn.getFetchMemoryBudget());
+
+		TAPColumn narrow = new TAPColumn("id", new DBType(DBDatatype.INTEGER));
+		TAPColumn wide = new TAPColumn("name", new DBType(DBDatatype.VARCHAR, 1000));
+		DBColumn[] narrowRow = new DBColumn[]{ narrow, narrow };
+		DBColumn[] wideRow = new DBColumn[50];
+		for(int i = 0; i < wideRow.length; i++)
+			wideRow[i] = wide;
+
+		/* CASE: Size of a row */
+		assertEquals(JDBCConnection.CELL_OVERHEAD, conn.estimateRowSize(null));
+		assertEquals(3 * JDBCConnection.CELL_OVERHEAD + 8, conn.estimateRowSize(narrowRow));
+		assertEquals(51 * JDBCConnection.CELL_OVERHEAD + 50 * 2000, conn.estimateRowSize(wideRow));
+		assertTrue(conn.estimateRowSize(new DBColumn[]{ new TAPColumn("huge", new DBType(DBDatatype.VARCHAR, Integer.MAX_VALUE)) }) > 0);
+
+		/* CASE: No memory budget => the fetch size is used as such */
+		conn.setFetchSize(1000);
+		assertEquals(1000, conn.getFetchSize(narrowRow));
+		assertEquals(1000, conn.getFetchSize(wideRow));
+
+		/* CASE: Memory budget => the fetch size depends on the row size */
+		conn.setFetchMemoryBudget(10 * 1024 * 1024);
+		assertEquals(10 * 1024 * 1024, conn.getFetchMemoryBudget());
+		assertEquals(JDBCConnection.MAX_ADAPTIVE_FETCH_SIZE, conn.getFetchSize(narrowRow));
+		assertEquals(10 * 1024 * 1024 / conn.estimateRowSize(wideRow), conn.getFetchSize(wideRow));
+		conn.setFetchMemoryBudget(10);
+		assertEquals(1, conn.getFetchSize(wideRow));
+
+		/* CASE: Fetch size disabled => the budget is ignored */
+		conn.setFetchSize(0);
+		assertEquals(JDBCConnection.IGNORE_FETCH_SIZE, conn.getFetchSize(wideRow));
+
+		/* CASE: Negative budget => feature disabled */
+		conn.setFetchMemoryBudget(-1);
+		assertEquals(0, conn.getFetchMemoryBudget());
+	}
+
+	@Test
+	public void testQueryTimeout() throws Exception{
+		JDBCConnection conn = new JDBCConnection(h2Connection, new AstroH2Translator(false), "H2", null);
+		assertEquals(0, conn.getQueryTimeout());
+		conn.setQueryTimeout(-5);
+		assertEquals(0, conn.getQueryTimeout());
+
+		/* CASE: Timeout errors */
+		assertTrue(conn.isTimeout(new SQLTimeoutException("timeout")));
+		assertTrue(conn.isTimeout(new SQLException("canceling statement due to statement timeout", "57014")));
+		assertTrue(conn.isTimeout(new SQLException("operation canceled", "HY008")));
+		assertFalse(conn.isTimeout(new SQLException("syntax error", "42601")));
+
+		TAPSchema schema = TAPMetadata.getStdSchema(conn.supportsSchema);
+		ArrayList<DBTable> tables = new ArrayList<DBTable>(schema.getNbTables());
+		for(TAPTable t : schema)
+			tables.add(t);
+		ADQLParser parser = new ADQLParser(new DBChecker(tables));
+		try{
+			createTAPSchema(conn);
+
+			/* CASE: Quick query => no timeout */
+			conn.setQueryTimeout(1);
+			assertEquals(1, conn.getQueryTimeout());
+			assertTrue(count(conn, parser.parseQuery("SELECT column_name FROM TAP_SCHEMA.columns")) > 0);
+
+			/* CASE: Too long query => stopped by the database */
+			ADQLQuery longQuery = parser.parseQuery("SELECT COUNT(*) FROM TAP_SCHEMA.columns AS a, TAP_SCHEMA.columns AS b, TAP_SCHEMA.columns AS c, TAP_SCHEMA.columns AS d, TAP_SCHEMA.columns AS e, TAP_SCHEMA.columns AS f");
+			try{
+				count(conn, longQuery);
+				fail("This query should have been stopped by the database after 1 second!");
+			}catch(Exception ex){
+				assertEquals(DBTimeoutException.class, ex.getClass());
+				assertEquals(1, ((DBTimeoutException)ex).getTimeout());
+			}
+
+			/* CASE: No more timeout => the statement is not limited any more */
+			conn.setQueryTimeout(0);
+			TableIterator result = conn.executeQuery(parser.parseQuery("SELECT COUNT(*) FROM TAP_SCHEMA.columns"));
+			assertEquals(0, conn.stmt.getQueryTimeout());
+			result.close();
+		}finally{
+			conn.endQuery();
+			dropSchema(STDSchema.TAPSCHEMA.label, conn);
+		}
+	}
+
+	private static boolean isTableExisting(final JDBCConnection conn, final TAPTable table) throws Exception{
+		return conn.isTableExisting(table.getDBSchemaName(), table.getDBName(), conn.connection.getMetaData());
+	}
+
+	private static int count(final JDBCConnection conn, final ADQLQuery query) throws Exception{
+		TableIterator result = conn.executeQuery(query);
+		try{
+			int cntRow = 0;
+			while(result.nextRow())
+				cntRow++;
+			return cntRow;
+		}finally{
+			result.close();
+		}
+	}
+
 	/* ************** */
 	/* TOOL FUNCTIONS */
 	/* ************** */
@@ -5,10 +5,16 @@ import java.util.Collection;
 import java.util.Iterator;
 
 import adql.db.FunctionDef;
+import tap.PartitionExecutor;
+import tap.QueryLimits;
 import tap.ServiceConnection;
 import tap.TAPFactory;
+import tap.cache.ParsedQueryCache;
+import tap.cache.ResultCache;
 import tap.log.TAPLog;
 import tap.metadata.TAPMetadata;
+import tap.metrics.TAPMetrics;
+import tap.upload.UploadCache;
 import uws.service.UserIdentifier;
 import uws.service.file.UWSFileManager;
 
@@ -164,4 +170,39 @@ public class ServiceConnection4Test implements ServiceConnection {
 		return false;
 	}
 
+	@Override
+	public UploadCache getUploadCache(){
+		return null;
+	}
+
+	@Override
+	public ResultCache getResultCache(){
+		return null;
+	}
+
+	@Override
+	public ParsedQueryCache getParsedQueryCache(){
+		return null;
+	}
+
+	@Override
+	public TAPMetrics getMetrics(){
+		return null;
+	}
+
+	@Override
+	public QueryLimits getQueryLimits(){
+		return null;
+	}
+
+	@Override
+	public long getResultSpoolingThreshold(){
+		return -1;
+	}
+
+	@Override
+	public PartitionExecutor getPartitionExecutor(){
+		return null;
+	}
+
 }
\ No newline at end of file
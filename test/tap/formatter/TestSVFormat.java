@@ -1,15 +1,19 @@
 package tap.formatter;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.OutputStream;
+import java.io.StringWriter;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Date;
 import java.util.HashMap;
 
 import org.junit.AfterClass;
@@ -27,6 +31,7 @@ import tap.db_testtools.CommandExecute;
 import tap.db_testtools.DBTools;
 import tap.metadata.TAPColumn;
 import tap.parameters.TAPParameters;
+import uws.ISO8601Format;
 
 /**
  * <p>Test the SVFormat function {@link SVFormat#writeResult(TableIterator, OutputStream, TAPExecutionReport, Thread)}.</p>
@@ -99,6 +104,19 @@ public class TestSVFormat {
 		}
 	}
 
+	@Test
+	public void testWriteDateFieldValue() throws Exception{
+		Date date = new Date(1411737870325L);
+		for(String separator : new String[]{ SVFormat.COMMA_SEPARATOR + "", SVFormat.TAB_SEPARATOR + "", ":", ", " }){
+			StringWriter str = new StringWriter();
+			BufferedWriter writer = new BufferedWriter(str);
+			new SVFormat(serviceConn, separator).writeFieldValue(date, resultingColumns[0], writer);
+			writer.flush();
+			// the date must be delimited only if it contains the separator:
+			assertEquals(separator.equals(":") ? "\"" + ISO8601Format.format(date) + "\"" : ISO8601Format.format(date), str.toString());
+		}
+	}
+
 	@Test
 	public void testWriteResultWithOverflow(){
 		ResultSet rs = null;
@@ -1,11 +1,15 @@
 package tap.metadata;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
 import org.junit.Test;
 
+import adql.db.DBType;
+import adql.db.DBType.DBDatatype;
+
 import tap.metadata.TAPTable.TableType;
 
 public class TestTAPMetadata {
@@ -43,4 +47,55 @@ public class TestTAPMetadata {
 		assertNull(metadata.getObsCoreTable());
 	}
 
+	@Test
+	public void testGetVersion(){
+		TAPMetadata metadata = new TAPMetadata();
+		long version = metadata.getVersion();
+
+		// CASE: two metadata sets never share a version:
+		assertFalse(version == new TAPMetadata().getVersion());
+
+		// CASE: new schema:
+		TAPSchema schema = new TAPSchema("foo");
+		metadata.addSchema(schema);
+		assertFalse(version == metadata.getVersion());
+		version = metadata.getVersion();
+
+		// CASE: new table:
+		TAPTable table = schema.addTable("bar");
+		assertFalse(version == metadata.getVersion());
+		version = metadata.getVersion();
+
+		// CASE: new column:
+		TAPColumn column = table.addColumn("col1");
+		assertFalse(version == metadata.getVersion());
+		version = metadata.getVersion();
+
+		// CASE: new datatype:
+		column.setDatatype(new DBType(DBDatatype.INTEGER));
+		assertFalse(version == metadata.getVersion());
+		version = metadata.getVersion();
+
+		// CASE: no change:
+		metadata.getTable("foo", "bar");
+		assertEquals(version, metadata.getVersion());
+
+		// CASE: removed column:
+		table.removeColumn("col1");
+		assertFalse(version == metadata.getVersion());
+		version = metadata.getVersion();
+
+		// CASE: removed table:
+		schema.removeTable("bar");
+		assertFalse(version == metadata.getVersion());
+		version = metadata.getVersion();
+
+		// CASE: no more change of the metadata once the schema removed:
+		metadata.removeSchema("foo");
+		assertFalse(version == metadata.getVersion());
+		version = metadata.getVersion();
+		schema.addTable("bar");
+		assertEquals(version, metadata.getVersion());
+	}
+
 }
@@ -0,0 +1,80 @@
+package tap.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TestHistogram {
+
+	@Test
+	public void testBuckets(){
+		/* Each value must be between the bounds of its bucket (upper bound included): */
+		for(long value : new long[]{ 0, 1, 3, 4, 5, 7, 8, 9, 15, 16, 17, 1000, 123456789, (1L << 40) + 1, Long.MAX_VALUE - 1, Long.MAX_VALUE }){
+			int index = Histogram.indexOf(value);
+			assertTrue(value <= Histogram.upperBound(index));
+			assertTrue(index == 0 || Histogram.upperBound(index - 1) < value);
+		}
+
+		/* Any power of 2 must be the upper bound of a bucket: */
+		for(int exp = 0; exp < 63; exp++)
+			assertEquals(1L << exp, Histogram.upperBound(Histogram.indexOf(1L << exp)));
+
+		/* Consecutive buckets must be contiguous: */
+		for(int i = 0; i <= Histogram.indexOf(Long.MAX_VALUE); i++)
+			assertEquals(i, Histogram.indexOf(Histogram.upperBound(i)));
+		assertEquals(Long.MAX_VALUE, Histogram.upperBound(Histogram.indexOf(Long.MAX_VALUE)));
+	}
+
+	@Test
+	public void testRecord(){
+		Histogram histogram = new Histogram();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getValueAtQuantile(0.5));
+
+		for(long value = 1; value <= 1000; value++)
+			histogram.record(value);
+		histogram.record(-5);
+		assertEquals(1001, histogram.getCount());
+		assertEquals(500500, histogram.getSum());
+
+		/* Counts up to a power of 2 (included, as the "le" buckets of Prometheus) are exact: */
+		assertEquals(1, histogram.getCountAtMost(0));
+		assertEquals(2, histogram.getCountAtMost(1));
+		assertEquals(129, histogram.getCountAtMost(128));
+		assertEquals(1001, histogram.getCountAtMost(1024));
+		assertEquals(0, histogram.getCountAtMost(-1));
+
+		/* Quantiles are precise within a bucket (at most 25%): */
+		long median = histogram.getValueAtQuantile(0.5);
+		assertTrue(median >= 500 && median <= 625);
+		long p99 = histogram.getValueAtQuantile(0.99);
+		assertTrue(p99 >= 990 && p99 <= 1024);
+		assertEquals(0, histogram.getValueAtQuantile(0));
+
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getSum());
+	}
+
+	@Test
+	public void testConcurrentRecord() throws Exception{
+		final Histogram histogram = new Histogram();
+		Thread[] threads = new Thread[4];
+		for(int t = 0; t < threads.length; t++){
+			threads[t] = new Thread(){
+				@Override
+				public void run(){
+					for(int i = 0; i < 100000; i++)
+						histogram.record(i % 1000);
+				}
+			};
+			threads[t].start();
+		}
+		for(Thread t : threads)
+			t.join();
+		assertEquals(400000, histogram.getCount());
+		assertEquals(4 * 100 * 499500L, histogram.getSum());
+	}
+
+}
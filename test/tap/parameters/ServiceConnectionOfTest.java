@@ -7,8 +7,12 @@ import java.util.Iterator;
 import java.util.List;
 
 import adql.db.FunctionDef;
+import tap.PartitionExecutor;
+import tap.QueryLimits;
 import tap.ServiceConnection;
 import tap.TAPFactory;
+import tap.cache.ParsedQueryCache;
+import tap.cache.ResultCache;
 import tap.TAPJob;
 import tap.formatter.FITSFormat;
 import tap.formatter.OutputFormat;
@@ -16,6 +20,8 @@ import tap.formatter.SVFormat;
 import tap.formatter.VOTableFormat;
 import tap.log.TAPLog;
 import tap.metadata.TAPMetadata;
+import tap.metrics.TAPMetrics;
+import tap.upload.UploadCache;
 import uws.service.UserIdentifier;
 import uws.service.file.UWSFileManager;
 
@@ -185,4 +191,39 @@ public class ServiceConnectionOfTest implements ServiceConnection {
 		return false;
 	}
 
+	@Override
+	public UploadCache getUploadCache(){
+		return null;
+	}
+
+	@Override
+	public ResultCache getResultCache(){
+		return null;
+	}
+
+	@Override
+	public ParsedQueryCache getParsedQueryCache(){
+		return null;
+	}
+
+	@Override
+	public TAPMetrics getMetrics(){
+		return null;
+	}
+
+	@Override
+	public QueryLimits getQueryLimits(){
+		return null;
+	}
+
+	@Override
+	public long getResultSpoolingThreshold(){
+		return -1;
+	}
+
+	@Override
+	public PartitionExecutor getPartitionExecutor(){
+		return null;
+	}
+
 }
\ No newline at end of file
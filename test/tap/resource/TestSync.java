@@ -0,0 +1,273 @@
+package tap.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tap.AbstractTAPFactory;
+import tap.TAPException;
+import tap.TAPJob;
+import tap.TAPSyncJob;
+import tap.db.DBCancelledException;
+import tap.db.DBConnection;
+import tap.formatter.ServiceConnection4Test;
+import tap.log.DefaultTAPLog;
+import tap.log.TAPLog;
+import tap.metadata.TAPMetadata;
+import tap.metadata.TAPSchema;
+import tap.metrics.TAPMetrics;
+import tap.parameters.TAPParameters;
+import uws.service.UWS;
+import uws.service.file.LocalUWSFileManager;
+
+public class TestSync {
+
+	private final TAPMetrics metrics = new TAPMetrics();
+
+	/** Set when the query is running in the "database". */
+	private CountDownLatch queryStarted;
+	/** Set when the running query has been cancelled. */
+	private CountDownLatch queryCancelled;
+	/** Set when the connection has been freed. */
+	private CountDownLatch connectionFreed;
+
+	private ServiceConnection4Test service;
+
+	@Before
+	public void setUp() throws Exception{
+		queryStarted = new CountDownLatch(1);
+		queryCancelled = new CountDownLatch(1);
+		connectionFreed = new CountDownLatch(1);
+
+		TAPMetadata metadata = new TAPMetadata();
+		TAPSchema schema = new TAPSchema("cat");
+		schema.addTable("stars").addColumn("ra");
+		metadata.addSchema(schema);
+
+		final TAPLog logger = new DefaultTAPLog(new ByteArrayOutputStream());
+		service = new ServiceConnection4Test(metadata, new LocalUWSFileManager(new File(System.getProperty("java.io.tmpdir")))){
+			@Override
+			public TAPLog getLogger(){
+				return logger;
+			}
+
+			@Override
+			public TAPMetrics getMetrics(){
+				return metrics;
+			}
+		};
+		service.setFactory(new AbstractTAPFactory(service){
+			@Override
+			public DBConnection getConnection(final String jobID) throws TAPException{
+				return createBlockingConnection(jobID);
+			}
+
+			@Override
+			public void freeConnection(final DBConnection conn){
+				connectionFreed.countDown();
+			}
+
+			@Override
+			public void destroy(){}
+		});
+	}
+
+	@Test
+	public void testClientDisconnection() throws Exception{
+		final TAPSyncJob[] jobs = new TAPSyncJob[1];
+		Sync sync = new Sync(service, null){
+			@Override
+			protected TAPSyncJob createSyncJob(final TAPParameters params, final String requestID) throws TAPException{
+				jobs[0] = new TAPSyncJob(service, params, requestID){
+					{
+						probeInterval = 50;
+					}
+				};
+				return jobs[0];
+			}
+		};
+		final HttpServletRequest request = createRequest(null);
+
+		// Report the disconnection as the container would do, as soon as the query is running in the database:
+		new Thread(){
+			@Override
+			public void run(){
+				try{
+					if (queryStarted.await(5, TimeUnit.SECONDS))
+						new TAPSyncJob.DisconnectionListener().onError(new AsyncEvent(null, request, null));
+				}catch(Exception ex){}
+			}
+		}.start();
+
+		final long start = System.currentTimeMillis();
+		try{
+			sync.executeResource(request, null);
+			fail("The execution should have been stopped because of the client disconnection!");
+		}catch(IOException ioe){
+			assertTrue(ioe.getMessage().startsWith("Connection with the HTTP client closed"));
+		}
+
+		// The job has been created by the factory hook:
+		assertNotNull(jobs[0]);
+		// The query must have been stopped long before the execution duration (10s by default):
+		assertTrue(System.currentTimeMillis() - start < 5000);
+		assertTrue(queryCancelled.await(1, TimeUnit.SECONDS));
+		assertTrue(connectionFreed.await(1, TimeUnit.SECONDS));
+		assertEquals(1, metrics.getNbClientDisconnections());
+	}
+
+	@Test
+	public void testAsyncModeThroughTAP() throws Exception{
+		TAP tap = new TAP(service);
+		final List<AsyncListener> listeners = new ArrayList<AsyncListener>();
+		final CountDownLatch completed = new CountDownLatch(1);
+		final HttpServletRequest request = createRequest(new InvocationHandler(){
+			@Override
+			public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable{
+				if (method.getName().equals("addListener"))
+					listeners.add((AsyncListener)args[0]);
+				else if (method.getName().equals("start")){
+					new Thread((Runnable)args[0]).start();
+				}else if (method.getName().equals("complete"))
+					completed.countDown();
+				return null;
+			}
+		});
+
+		/* CASE: The query is executed outside of the container thread, in
+		 *       asynchronous mode => the container thread is released */
+		tap.executeRequest(request, createResponse());
+		assertEquals(1, listeners.size());
+		assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+		assertEquals(1, completed.getCount());
+
+		/* CASE: The container reports the client disconnection => the
+		 *       query is stopped and the request completed */
+		for(AsyncListener listener : listeners)
+			listener.onError(new AsyncEvent(null, request, null));
+		assertTrue(queryCancelled.await(5, TimeUnit.SECONDS));
+		assertTrue(connectionFreed.await(1, TimeUnit.SECONDS));
+		assertTrue(completed.await(5, TimeUnit.SECONDS));
+		assertEquals(1, metrics.getNbClientDisconnections());
+	}
+
+	/**
+	 * Create a request for the synchronous execution of a query.
+	 *
+	 * @param asyncContext	Handler of the asynchronous context.
+	 *                    	<i>If NULL, the asynchronous mode is not supported.</i>
+	 */
+	private HttpServletRequest createRequest(final InvocationHandler asyncContext){
+		final Map<String, Object> attributes = new ConcurrentHashMap<String, Object>();
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put(TAPJob.PARAM_REQUEST, TAPJob.REQUEST_DO_QUERY);
+		params.put(TAPJob.PARAM_LANGUAGE, TAPJob.LANG_ADQL);
+		params.put(TAPJob.PARAM_QUERY, "SELECT ra FROM cat.stars");
+		attributes.put(UWS.REQ_ATTRIBUTE_PARAMETERS, params);
+
+		return (HttpServletRequest)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ HttpServletRequest.class }, new InvocationHandler(){
+			private AsyncContext context = null;
+
+			@Override
+			public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable{
+				String name = method.getName();
+				if (name.equals("getAttribute"))
+					return attributes.get(args[0]);
+				else if (name.equals("setAttribute")){
+					attributes.put((String)args[0], args[1]);
+					return null;
+				}else if (name.equals("getPathInfo"))
+					return "/" + Sync.RESOURCE_NAME;
+				else if (name.equals("getRequestURL"))
+					return new StringBuffer("http://localhost/tap/" + Sync.RESOURCE_NAME);
+				else if (name.equals("getRequestURI"))
+					return "/tap/" + Sync.RESOURCE_NAME;
+				else if (name.equals("getContextPath"))
+					return "";
+				else if (name.equals("getServletPath"))
+					return "/tap";
+				else if (name.equals("getMethod"))
+					return "POST";
+				else if (name.equals("isAsyncSupported"))
+					return asyncContext != null;
+				else if (name.equals("isAsyncStarted"))
+					return context != null;
+				else if (name.equals("startAsync") || name.equals("getAsyncContext")){
+					if (context == null && asyncContext != null)
+						context = (AsyncContext)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ AsyncContext.class }, asyncContext);
+					return context;
+				}else if (method.getReturnType() == boolean.class)
+					return false;
+				else if (method.getReturnType() == int.class)
+					return 0;
+				return null;
+			}
+		});
+	}
+
+	private HttpServletResponse createResponse(){
+		return (HttpServletResponse)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ HttpServletResponse.class }, new InvocationHandler(){
+			@Override
+			public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable{
+				if (method.getReturnType() == boolean.class)
+					return false;
+				else if (method.getReturnType() == int.class)
+					return 0;
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Create a connection whose query execution blocks until it is cancelled
+	 * or interrupted.
+	 */
+	private DBConnection createBlockingConnection(final String jobID){
+		return (DBConnection)Proxy.newProxyInstance(DBConnection.class.getClassLoader(), new Class<?>[]{ DBConnection.class }, new InvocationHandler(){
+			@Override
+			public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable{
+				if (method.getName().equals("executeQuery")){
+					queryStarted.countDown();
+					try{
+						queryCancelled.await(10, TimeUnit.SECONDS);
+					}catch(InterruptedException ie){
+						// the execution thread itself has been interrupted:
+						queryCancelled.countDown();
+					}
+					throw new DBCancelledException();
+				}else if (method.getName().equals("cancel"))
+					queryCancelled.countDown();
+				else if (method.getName().equals("getID"))
+					return jobID;
+				else if (method.getReturnType() == boolean.class)
+					return false;
+				return null;
+			}
+		});
+	}
+
+}
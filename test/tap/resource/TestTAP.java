@@ -1,15 +1,20 @@
 package tap.resource;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 
 import org.junit.Test;
 
 import adql.db.DBType;
 import adql.db.DBType.DBDatatype;
 import tap.AbstractTAPFactory;
+import tap.ExecutionProgression;
 import tap.ServiceConnection;
 import tap.TAPException;
 import tap.db.DBConnection;
@@ -17,6 +22,7 @@ import tap.formatter.ServiceConnection4Test;
 import tap.metadata.TAPMetadata;
 import tap.metadata.TAPSchema;
 import tap.metadata.TAPTable;
+import tap.metrics.TAPMetrics;
 import uws.service.file.LocalUWSFileManager;
 
 public class TestTAP {
@@ -70,6 +76,52 @@ public class TestTAP {
 		}
 	}
 
+	@Test
+	public void testMetrics() throws Exception{
+		final TAPMetrics metrics = new TAPMetrics();
+		File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+
+		/* CASE: No metrics => no /metrics resource */
+		ServiceConnection4Test serviceConn = new ServiceConnection4Test(new TAPMetadata(), new LocalUWSFileManager(tmpDir));
+		serviceConn.setFactory(new TAPFactory4Test(serviceConn));
+		assertNull(new TAP(serviceConn).getResource(Metrics.RESOURCE_NAME));
+
+		/* CASE: With metrics => /metrics resource in Prometheus format */
+		serviceConn = new ServiceConnection4Test(new TAPMetadata(), new LocalUWSFileManager(tmpDir)){
+			@Override
+			public TAPMetrics getMetrics(){
+				return metrics;
+			}
+		};
+		serviceConn.setFactory(new TAPFactory4Test(serviceConn));
+		TAP tap = new TAP(serviceConn);
+		Metrics resource = (Metrics)tap.getResource(Metrics.RESOURCE_NAME);
+
+		metrics.recordStage(ExecutionProgression.PARSING, 100);
+		metrics.recordStage(ExecutionProgression.PARSING, 1000);
+		// exactly on a bucket bound => counted in this bucket ("le" = lower or equal):
+		metrics.recordStage(ExecutionProgression.PARSING, 128);
+		metrics.recordResult("csv", 10, 123, 2000);
+		metrics.recordUpload(50, 500000);
+		metrics.recordClientDisconnection();
+
+		StringWriter out = new StringWriter();
+		resource.writeMetrics(new PrintWriter(out));
+		String text = out.toString();
+		assertTrue(text.contains("# TYPE tap_stage_duration_seconds histogram\n"));
+		assertTrue(text.contains("tap_stage_duration_seconds_bucket{stage=\"parsing\",le=\"1.28E-4\"} 2\n"));
+		assertTrue(text.contains("tap_stage_duration_seconds_bucket{stage=\"parsing\",le=\"+Inf\"} 3\n"));
+		assertTrue(text.contains("tap_stage_duration_seconds_count{stage=\"parsing\"} 3\n"));
+		assertTrue(text.contains("tap_stage_duration_seconds_count{stage=\"executing_adql\"} 0\n"));
+		assertTrue(text.contains("tap_result_rows_total{format=\"csv\"} 10\n"));
+		assertTrue(text.contains("tap_result_bytes_total{format=\"csv\"} 123\n"));
+		assertTrue(text.contains("tap_upload_rows_total 50\n"));
+		assertTrue(text.contains("tap_sync_client_disconnections_total 1\n"));
+		assertTrue(text.contains("tap_upload_rows_per_second_bucket{le=\"128.0\"} 1\n"));
+		assertTrue(text.contains("uws_jobs_queued{job_list=\"async\"} 0\n"));
+		assertTrue(text.contains("uws_wait_blocked_threads 0\n"));
+	}
+
 	private static class TAPFactory4Test extends AbstractTAPFactory {
 
 		protected TAPFactory4Test(ServiceConnection service) throws NullPointerException{
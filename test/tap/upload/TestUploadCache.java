@@ -0,0 +1,291 @@
+package tap.upload;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import uws.service.file.LocalUWSFileManager;
+import uws.service.file.UWSFileManager;
+import uws.service.file.UnsupportedURIProtocolException;
+
+public class TestUploadCache {
+	final String TMP_DIR = System.getProperty("java.io.tmpdir");
+
+	File cacheDir;
+	UploadCache cache;
+	UWSFileManager fileManager;
+
+	HttpServer server;
+	String baseURL;
+
+	/** Content served by the HTTP server. */
+	volatile String content = "col1,col2\n1,2\n";
+	/** ETag of the content served by the HTTP server. */
+	volatile String etag = "\"v1\"";
+	/** Number of full downloads done by the HTTP server. */
+	final AtomicInteger nbDownloads = new AtomicInteger(0);
+	/** Latch blocking the HTTP responses until released. */
+	volatile CountDownLatch blocker = null;
+
+	@Before
+	public void setUp() throws Exception{
+		cacheDir = new File(TMP_DIR, "taptest_upload_cache_" + System.currentTimeMillis());
+		fileManager = new LocalUWSFileManager(new File(TMP_DIR));
+
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/", new HttpHandler(){
+			@Override
+			public void handle(final HttpExchange exchange) throws IOException{
+				try{
+					if (blocker != null)
+						blocker.await();
+				}catch(InterruptedException ie){
+				}
+				if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))){
+					exchange.sendResponseHeaders(304, -1);
+				}else if (exchange.getRequestMethod().equals("HEAD")){
+					exchange.getResponseHeaders().set("ETag", etag);
+					exchange.sendResponseHeaders(200, -1);
+				}else{
+					nbDownloads.incrementAndGet();
+					byte[] data = (exchange.getRequestURI().getPath() + "\n" + content).getBytes("UTF-8");
+					exchange.getResponseHeaders().set("ETag", etag);
+					exchange.sendResponseHeaders(200, data.length);
+					OutputStream output = exchange.getResponseBody();
+					output.write(data);
+					output.close();
+				}
+				exchange.close();
+			}
+		});
+		server.start();
+		baseURL = "http://localhost:" + server.getAddress().getPort();
+	}
+
+	@After
+	public void tearDown() throws Exception{
+		if (cache != null)
+			cache.close();
+		if (server != null)
+			server.stop(0);
+		if (cacheDir != null)
+			cacheDir.delete();
+	}
+
+	@Test
+	public void testUploadCache(){
+		/* CASE: Missing directory => ERROR */
+		try{
+			new UploadCache(null, 1000);
+			fail("This construction should have failed because no directory has been provided!");
+		}catch(Exception ex){
+			assertEquals(NullPointerException.class, ex.getClass());
+			assertEquals("Missing cache directory!", ex.getMessage());
+		}
+
+		/* CASE: The directory is created if needed ; null or negative number of threads => default */
+		cache = new UploadCache(cacheDir, 1000, -1);
+		assertTrue(cacheDir.isDirectory());
+		assertEquals(UploadCache.DEFAULT_NB_THREADS, cache.getNbThreads());
+		assertEquals(1000, cache.getMaxSize());
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	public void testPrefetch() throws Exception{
+		cache = new UploadCache(cacheDir, 10000);
+		URI uri = new URI(baseURL + "/table1");
+
+		/* CASE: Several prefetches of the same URI while downloading => only one download */
+		blocker = new CountDownLatch(1);
+		Future<File> download1 = cache.prefetch(uri, fileManager);
+		Future<File> download2 = cache.prefetch(uri, fileManager);
+		assertTrue(download1 == download2);
+		blocker.countDown();
+		File file = UploadCache.getFile(download1);
+		assertEquals("/table1\n" + content, read(cache.open(uri, fileManager)));
+		assertEquals(1, nbDownloads.get());
+		assertEquals(file.length(), cache.getSize());
+
+		/* CASE: HTTP error => IOException */
+		server.removeContext("/");
+		try{
+			cache.open(uri, fileManager);
+			fail("This download should have failed because the server returns an HTTP error!");
+		}catch(IOException ioe){
+			assertTrue(ioe.getMessage().contains("HTTP error 404"));
+		}
+	}
+
+	@Test
+	public void testRelease() throws Exception{
+		cache = new UploadCache(cacheDir, 10000);
+		URI uri = new URI(baseURL + "/table1");
+		blocker = new CountDownLatch(1);
+
+		/* CASE: Released by one of two uploads => still running */
+		Future<File> download1 = cache.prefetch(uri, fileManager);
+		Future<File> download2 = cache.prefetch(uri, fileManager);
+		cache.release(uri, download1);
+		assertFalse(download2.isCancelled());
+
+		/* CASE: Released by all uploads => cancelled */
+		cache.release(uri, download2);
+		assertTrue(download2.isCancelled());
+		try{
+			UploadCache.getFile(download2);
+			fail("This download should have failed because it has been cancelled!");
+		}catch(IOException ioe){
+			assertEquals("Download of the upload cancelled!", ioe.getMessage());
+		}
+
+		/* CASE: Prefetched again => new download */
+		Future<File> download3 = cache.prefetch(uri, fileManager);
+		assertTrue(download3 != download2);
+		blocker.countDown();
+		assertEquals("/table1\n" + content, read(new FileInputStream(UploadCache.getFile(download3))));
+
+		/* CASE: Released once completed => nothing done */
+		cache.release(uri, download3);
+		assertFalse(download3.isCancelled());
+		assertEquals(1, cache.getNbEntries());
+	}
+
+	@Test
+	public void testReuse() throws Exception{
+		cache = new UploadCache(cacheDir, 10000);
+		URI uri = new URI(baseURL + "/table1");
+
+		/* CASE: First download => miss */
+		assertEquals("/table1\n" + content, read(cache.open(uri, fileManager)));
+		assertEquals(1, nbDownloads.get());
+		assertEquals(0, cache.getNbHits());
+		assertEquals(1, cache.getNbMisses());
+
+		/* CASE: Not modified => hit without download */
+		assertEquals("/table1\n" + content, read(cache.open(uri, fileManager)));
+		assertEquals(1, nbDownloads.get());
+		assertEquals(1, cache.getNbHits());
+		assertEquals(1, cache.getNbEntries());
+
+		/* CASE: Modified (new ETag) => new download */
+		content = "col1,col2\n3,4\n";
+		etag = "\"v2\"";
+		assertEquals("/table1\n" + content, read(cache.open(uri, fileManager)));
+		assertEquals(2, nbDownloads.get());
+		assertEquals(2, cache.getNbMisses());
+		assertEquals(2, cache.getNbEntries());
+
+		/* CASE: Clear => everything is downloaded again */
+		cache.clear();
+		assertEquals(0, cache.getSize());
+		assertEquals("/table1\n" + content, read(cache.open(uri, fileManager)));
+		assertEquals(3, nbDownloads.get());
+	}
+
+	@Test
+	public void testEviction() throws Exception{
+		String expected = "/table1\n" + content;
+		cache = new UploadCache(cacheDir, expected.length() * 2);
+
+		// Fill the cache:
+		File file1 = UploadCache.getFile(cache.prefetch(new URI(baseURL + "/table1"), fileManager));
+		File file2 = UploadCache.getFile(cache.prefetch(new URI(baseURL + "/table2"), fileManager));
+		assertEquals(2, cache.getNbEntries());
+
+		// Access the first one => the second one is the least recently used:
+		assertEquals(expected, read(cache.open(new URI(baseURL + "/table1"), fileManager)));
+
+		/* CASE: Size exceeded => the least recently used entry is deleted */
+		File file3 = UploadCache.getFile(cache.prefetch(new URI(baseURL + "/table3"), fileManager));
+		assertEquals(2, cache.getNbEntries());
+		assertTrue(cache.getSize() <= cache.getMaxSize());
+		assertTrue(file1.exists());
+		assertFalse(file2.exists());
+		assertTrue(file3.exists());
+	}
+
+	@Test
+	public void testFileManager() throws Exception{
+		cache = new UploadCache(cacheDir, 10000);
+		URI uri = new URI(baseURL + "/table1");
+
+		/* CASE: URI refused by the file manager => not downloaded */
+		UWSFileManager restrictedManager = new LocalUWSFileManager(new File(TMP_DIR)){
+			@Override
+			public InputStream openURI(final URI uri) throws UnsupportedURIProtocolException, IOException{
+				throw new UnsupportedURIProtocolException(uri);
+			}
+		};
+		try{
+			cache.open(uri, restrictedManager);
+			fail("This download should have failed because the file manager does not accept this URI!");
+		}catch(UnsupportedURIProtocolException upe){
+		}
+		assertEquals(0, nbDownloads.get());
+		assertEquals(0, cache.getNbEntries());
+
+		/* CASE: URI accepted by the file manager => downloaded */
+		assertEquals("/table1\n" + content, read(cache.open(uri, fileManager)));
+		assertEquals(1, nbDownloads.get());
+		assertEquals(1, cache.getNbEntries());
+	}
+
+	@Test
+	public void testMaxFileSize() throws Exception{
+		cache = new UploadCache(cacheDir, 10000);
+		URI uri = new URI(baseURL + "/table1");
+
+		/* CASE: Download bigger than the limit => aborted and partial file deleted */
+		cache.setMaxFileSize(5);
+		assertEquals(5, cache.getMaxFileSize());
+		try{
+			cache.open(uri, fileManager);
+			fail("This download should have failed because the content exceeds the limit!");
+		}catch(ExceededSizeException ese){
+		}
+		assertEquals(0, cache.getNbEntries());
+		assertEquals(0, cache.getSize());
+		assertEquals(0, cacheDir.list().length);
+
+		/* CASE: Download smaller than the limit => kept */
+		cache.setMaxFileSize(1000);
+		assertEquals("/table1\n" + content, read(cache.open(uri, fileManager)));
+		assertEquals(1, cache.getNbEntries());
+	}
+
+	private static String read(final InputStream input) throws IOException{
+		try{
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			int len;
+			while((len = input.read(buffer)) > 0)
+				output.write(buffer, 0, len);
+			return output.toString("UTF-8");
+		}finally{
+			input.close();
+		}
+	}
+
+}
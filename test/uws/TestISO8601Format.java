@@ -3,7 +3,9 @@ package uws;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
+import java.io.StringWriter;
 import java.text.ParseException;
+import java.util.Date;
 import java.util.TimeZone;
 
 import org.junit.AfterClass;
@@ -79,6 +81,62 @@ public class TestISO8601Format {
 		assertEquals("2014-09-26T13:24:30.325", ISO8601Format.format(date, "UTC", false, true));
 	}
 
+	@Test
+	public void testFormatInBuffer() throws Exception{
+		char[] buffer = new char[ISO8601Format.MAX_LENGTH + 2];
+
+		// Same result as the String version, from the given offset:
+		for(long d : new long[]{ 0, date, oldDate, dateWithNoTime, -1, Long.MAX_VALUE, Long.MIN_VALUE }){
+			for(String tz : new String[]{ null, "UTC", "Indian/Reunion", "America/St_Johns" }){
+				for(int i = 0; i < 4; i++){
+					String expected = ISO8601Format.format(d, tz, i % 2 == 0, i / 2 == 0);
+					assertEquals(expected.length() + 2, ISO8601Format.format(d, tz, i % 2 == 0, i / 2 == 0, buffer, 2));
+					assertEquals(expected, new String(buffer, 2, expected.length()));
+				}
+			}
+		}
+
+		// Years with less than 4 digits are padded and the Julian calendar applies before 1582:
+		assertEquals("0999-12-31T23:59:59Z", ISO8601Format.format(ISO8601Format.parse("1000-01-01T00:00:00Z") - 1000, "UTC", true, false));
+		assertEquals("1582-10-04T00:00:00Z", ISO8601Format.format(ISO8601Format.parse("1582-10-15") - 24 * 3600 * 1000, "UTC", true, false));
+
+		// Only the date or only the time:
+		TimeZone reunion = TimeZone.getTimeZone("Indian/Reunion");
+		assertEquals("2014-09-26", new String(buffer, 0, ISO8601Format.formatDate(date, reunion, buffer, 0)));
+		assertEquals("17:24:30", new String(buffer, 0, ISO8601Format.formatTime(date, reunion, buffer, 0)));
+
+		// In an Appendable:
+		StringWriter writer = new StringWriter();
+		ISO8601Format.format(new Date(date), writer).write(';');
+		ISO8601Format.format(date, "UTC", true, true, writer);
+		assertEquals("2014-09-26T15:24:30+02:00;2014-09-26T13:24:30.325Z", writer.toString());
+		assertEquals("2014-09-26T13:24:30.325", ISO8601Format.format(date, "UTC", false, true, new StringBuffer()).toString());
+	}
+
+	@Test
+	public void testParseOutOfRange() throws Exception{
+		// 24:00, 60 minutes and 60 seconds are accepted and overflow in the next day/hour/minute:
+		assertEquals(dateWithNoTime, ISO8601Format.parse("2015-12-10T24:00:00Z"));
+		assertEquals(dateWithNoTime, ISO8601Format.parse("2015-12-10T23:60:00Z"));
+		assertEquals(dateWithNoTime, ISO8601Format.parse("2015-12-10T23:59:60Z"));
+
+		// The decimal fraction of a second is read as a number of milliseconds:
+		assertEquals(dateWithNoTime + 5, ISO8601Format.parse("2015-12-11T00:00:00.5Z"));
+		assertEquals(dateWithNoTime + 1234, ISO8601Format.parse("2015-12-11T00:00:00.1234Z"));
+
+		// Out of range values are rejected:
+		for(String str : new String[]{ "2015-13-01", "2015-02-29", "2015-12-11T25:00", "2015-12-11T00:61", "2015-12-11T00:00:61", "2015-12-11T00:00+25:00", "2015-12-11T00:00:00.", "2015-12-11T", "2015-12-" }){
+			try{
+				ISO8601Format.parse(str);
+				fail("The date \"" + str + "\" should have been rejected!");
+			}catch(ParseException pe){}
+		}
+
+		// ...except the 29th February of leap years:
+		assertEquals(ISO8601Format.parse("2016-03-01") - 24 * 3600 * 1000, ISO8601Format.parse("2016-02-29"));
+		assertEquals(ISO8601Format.parse("2000-03-01") - 24 * 3600 * 1000, ISO8601Format.parse("2000-02-29"));
+	}
+
 	@Test
 	public void testParse(){
 		// Special case: NULL
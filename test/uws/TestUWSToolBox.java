@@ -1,8 +1,15 @@
 package uws;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+
 import org.junit.Test;
 
 public class TestUWSToolBox {
@@ -92,4 +99,79 @@ public class TestUWSToolBox {
 		assertEquals("vot", UWSToolBox.getFileExtension("application/x-VOTable+XML"));
 	}
 
+	@Test
+	public void testGetRange(){
+		// TEST: no range or unknown content size => NULL
+		assertNull(UWSToolBox.getRange(null, 100));
+		assertNull(UWSToolBox.getRange("bytes=0-10", 0));
+		assertNull(UWSToolBox.getRange("bytes=0-10", -1));
+
+		// TEST: unsupported unit, several ranges or wrong syntax => NULL
+		assertNull(UWSToolBox.getRange("items=0-10", 100));
+		assertNull(UWSToolBox.getRange("bytes=0-10,20-30", 100));
+		assertNull(UWSToolBox.getRange("bytes=10", 100));
+		assertNull(UWSToolBox.getRange("bytes=-", 100));
+		assertNull(UWSToolBox.getRange("bytes=a-b", 100));
+		assertNull(UWSToolBox.getRange("bytes=20-10", 100));
+
+		// TEST: first-last
+		assertArrayEquals(new long[]{ 0, 9 }, UWSToolBox.getRange("bytes=0-9", 100));
+		assertArrayEquals(new long[]{ 10, 99 }, UWSToolBox.getRange(" Bytes=10-500 ", 100));
+
+		// TEST: first-
+		assertArrayEquals(new long[]{ 50, 99 }, UWSToolBox.getRange("bytes=50-", 100));
+
+		// TEST: -suffixLength
+		assertArrayEquals(new long[]{ 90, 99 }, UWSToolBox.getRange("bytes=-10", 100));
+		assertArrayEquals(new long[]{ 0, 99 }, UWSToolBox.getRange("bytes=-500", 100));
+
+		// TEST: unsatisfiable range => {-1, -1}
+		assertArrayEquals(new long[]{ -1, -1 }, UWSToolBox.getRange("bytes=100-", 100));
+		assertArrayEquals(new long[]{ -1, -1 }, UWSToolBox.getRange("bytes=-0", 100));
+	}
+
+	@Test
+	public void testCopy() throws Exception{
+		byte[] data = new byte[20000];
+		for(int i = 0; i < data.length; i++)
+			data[i] = (byte)i;
+
+		// TEST: copy from any input stream
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		assertEquals(data.length, UWSToolBox.copy(new ByteArrayInputStream(data), output, 0, -1));
+		assertArrayEquals(data, output.toByteArray());
+
+		output = new ByteArrayOutputStream();
+		assertEquals(10, UWSToolBox.copy(new ByteArrayInputStream(data), output, 15000, 10));
+		assertEquals(10, output.size());
+		assertEquals(data[15000], output.toByteArray()[0]);
+
+		// TEST: copy from a file (i.e. with FileChannel.transferTo(...))
+		File file = File.createTempFile("uwstoolbox", ".bin");
+		file.deleteOnExit();
+		FileOutputStream fOutput = new FileOutputStream(file);
+		fOutput.write(data);
+		fOutput.close();
+
+		FileInputStream input = new FileInputStream(file);
+		try{
+			output = new ByteArrayOutputStream();
+			assertEquals(data.length, UWSToolBox.copy(input, output, 0, -1));
+			assertArrayEquals(data, output.toByteArray());
+		}finally{
+			input.close();
+		}
+
+		input = new FileInputStream(file);
+		try{
+			output = new ByteArrayOutputStream();
+			assertEquals(data.length - 19990, UWSToolBox.copy(input, output, 19990, 500));
+			assertEquals(data[19990], output.toByteArray()[0]);
+			assertEquals(data[19999], output.toByteArray()[9]);
+		}finally{
+			input.close();
+			file.delete();
+		}
+	}
+
 }
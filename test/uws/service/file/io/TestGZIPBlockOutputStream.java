@@ -0,0 +1,148 @@
+package uws.service.file.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestGZIPBlockOutputStream {
+	final String TMP_DIR = System.getProperty("java.io.tmpdir");
+
+	File gzFile;
+
+	@Before
+	public void setUp() throws Exception{
+		gzFile = new File(TMP_DIR, "taptest_gzip_" + System.currentTimeMillis() + ".gz");
+	}
+
+	@After
+	public void tearDown() throws Exception{
+		if (gzFile != null){
+			gzFile.delete();
+			gzFile = null;
+		}
+	}
+
+	@Test
+	public void testGZIPBlockOutputStream(){
+		/* CASE: Missing OutputStream to wrap => ERROR */
+		try{
+			new GZIPBlockOutputStream(null);
+			fail("This construction should have failed because no OutputStream has been provided!");
+		}catch(Exception ex){
+			assertEquals(NullPointerException.class, ex.getClass());
+			assertEquals("Missing OutputStream to wrap!", ex.getMessage());
+		}
+
+		/* CASE: Null or negative block size => default block size */
+		assertEquals(GZIPBlockOutputStream.DEFAULT_BLOCK_SIZE, new GZIPBlockOutputStream(new ByteArrayOutputStream(), 0, -1).getBlockSize());
+		assertEquals(GZIPBlockOutputStream.DEFAULT_BLOCK_SIZE, new GZIPBlockOutputStream(new ByteArrayOutputStream(), -10, -1).getBlockSize());
+	}
+
+	@Test
+	public void testWriteAndRead() throws IOException{
+		// Build some compressible content:
+		StringBuffer buf = new StringBuffer();
+		for(int i = 0; i < 5000; i++)
+			buf.append("<TR><TD>").append(i).append("</TD><TD>").append(i * 0.5).append("</TD></TR>\n");
+		byte[] data = buf.toString().getBytes("UTF-8");
+
+		/* CASE: Several GZIP members (blocks of 1000 bytes) */
+		GZIPBlockOutputStream output = new GZIPBlockOutputStream(new FileOutputStream(gzFile), 1000, -1);
+		output.write(data, 0, 10);
+		output.write(data[10]);
+		output.write(data, 11, data.length - 11);
+		assertEquals(data.length, output.getUncompressedSize());
+		output.close();
+
+		// the file must be smaller than the uncompressed content:
+		assertEquals(true, gzFile.length() < data.length);
+
+		// the uncompressed size must be readable without decompression:
+		assertEquals(data.length, GZIPBlockOutputStream.readUncompressedSize(gzFile));
+
+		// the content must be readable with a standard GZIP reader:
+		assertArrayEquals(data, readAll(new GZIPInputStream(new FileInputStream(gzFile))));
+
+		/* CASE: Empty content */
+		output = new GZIPBlockOutputStream(new FileOutputStream(gzFile));
+		output.close();
+		assertEquals(GZIPBlockOutputStream.SIZE_MEMBER_LENGTH, gzFile.length());
+		assertEquals(0, GZIPBlockOutputStream.readUncompressedSize(gzFile));
+		assertEquals(0, readAll(new GZIPInputStream(new FileInputStream(gzFile))).length);
+	}
+
+	@Test
+	public void testBufferedWrites() throws IOException{
+		byte[] data = new byte[10000];
+		for(int i = 0; i < data.length; i++)
+			data[i] = (byte)('a' + (i % 7));
+
+		// Count the writes reaching the wrapped stream:
+		final int[] nbWrites = new int[1];
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		GZIPBlockOutputStream output = new GZIPBlockOutputStream(new OutputStream(){
+			@Override
+			public void write(final int b) throws IOException{
+				nbWrites[0]++;
+				bytes.write(b);
+			}
+
+			@Override
+			public void write(final byte[] b, final int off, final int len) throws IOException{
+				nbWrites[0]++;
+				bytes.write(b, off, len);
+			}
+		}, 1000, -1);
+
+		/* CASE: Byte per byte => buffered and compressed by whole blocks */
+		for(byte b : data)
+			output.write(b);
+		assertEquals(data.length, output.getUncompressedSize());
+		output.close();
+		// (a few writes per member - header, data, trailer - instead of one per byte):
+		assertTrue(nbWrites[0] < 10 * (data.length / 1000 + 2));
+		assertArrayEquals(data, readAll(new GZIPInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+	}
+
+	@Test
+	public void testReadUncompressedSize() throws IOException{
+		/* CASE: NULL or not existing file => -1 */
+		assertEquals(-1, GZIPBlockOutputStream.readUncompressedSize(null));
+		assertEquals(-1, GZIPBlockOutputStream.readUncompressedSize(gzFile));
+
+		/* CASE: Not written by GZIPBlockOutputStream => -1 */
+		FileOutputStream output = new FileOutputStream(gzFile);
+		output.write(new byte[100]);
+		output.close();
+		assertEquals(-1, GZIPBlockOutputStream.readUncompressedSize(gzFile));
+	}
+
+	private static byte[] readAll(final InputStream input) throws IOException{
+		try{
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			int len;
+			while((len = input.read(buffer)) > 0)
+				output.write(buffer, 0, len);
+			return output.toByteArray();
+		}finally{
+			input.close();
+		}
+	}
+
+}
@@ -0,0 +1,173 @@
+package uws.service.request;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uws.UWSException;
+import uws.service.file.LocalUWSFileManager;
+
+public class TestMultipartParser {
+
+	private final static String BOUNDARY = "---------TestMultipartParserBoundary";
+
+	private File tmpDir;
+	private LocalUWSFileManager fileManager;
+
+	@Before
+	public void setUp() throws Exception{
+		tmpDir = new File(System.getProperty("java.io.tmpdir"), "uwstest_multipart_" + System.currentTimeMillis());
+		tmpDir.mkdirs();
+		fileManager = new LocalUWSFileManager(tmpDir);
+		assertTrue(fileManager.setTmpDirectory(tmpDir));
+	}
+
+	@After
+	public void tearDown() throws Exception{
+		FileUtils.deleteDirectory(tmpDir);
+	}
+
+	@Test
+	public void testParseSeveralFiles() throws Exception{
+		String content1 = "col1,col2\n1,2\n", content2 = "<VOTABLE/>";
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		writeField(body, "QUERY", "SELECT * FROM TAP_UPLOAD.t1");
+		writeFile(body, "t1", "t1.csv", "text/csv", content1.getBytes("UTF-8"));
+		writeFile(body, "t2", "t2.xml", "application/x-votable+xml", content2.getBytes("UTF-8"));
+		writeEnd(body);
+
+		MultipartParser parser = new MultipartParser(true, fileManager, -1, -1);
+		Map<String, Object> params = parser.parse(createRequest(body.toByteArray()));
+
+		assertEquals(3, params.size());
+		assertEquals("SELECT * FROM TAP_UPLOAD.t1", params.get("QUERY"));
+		checkUpload(params.get("t1"), "t1.csv", "text/csv", content1);
+		checkUpload(params.get("t2"), "t2.xml", "application/x-votable+xml", content2);
+		assertEquals(2, tmpDir.list().length);
+	}
+
+	@Test
+	public void testParseFileTooBig() throws Exception{
+		byte[] bigContent = new byte[100 * 1024];
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		writeFile(body, "small", "small.csv", "text/csv", "a\n1\n".getBytes("UTF-8"));
+		writeFile(body, "big", "big.bin", "application/octet-stream", bigContent);
+		writeEnd(body);
+
+		MultipartParser parser = new MultipartParser(true, fileManager, 50 * 1024, -1);
+		try{
+			parser.parse(createRequest(body.toByteArray()));
+			fail("The file exceeding the size limit should have been rejected!");
+		}catch(UWSException ue){
+			assertEquals(UWSException.BAD_REQUEST, ue.getHttpErrorCode());
+			assertTrue(ue.getMessage().contains("server limits"));
+		}
+
+		// Neither the complete file nor the partial one should remain:
+		assertEquals(0, tmpDir.list().length);
+	}
+
+	@Test
+	public void testParseMalformedBody() throws Exception{
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		writeFile(body, "t1", "t1.csv", "text/csv", "col1,col2\n1,2\n".getBytes("UTF-8"));
+		// truncated part (no final boundary):
+		body.write(("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"t2\"; filename=\"t2.csv\"\r\n\r\ncol1,col2\n3,4").getBytes("UTF-8"));
+
+		MultipartParser parser = new MultipartParser(true, fileManager, -1, -1);
+		try{
+			parser.parse(createRequest(body.toByteArray()));
+			fail("A malformed multipart body should have been rejected!");
+		}catch(UWSException ue){
+			assertEquals(UWSException.BAD_REQUEST, ue.getHttpErrorCode());
+			assertTrue(ue.getMessage().startsWith("Incorrect HTTP request"));
+		}
+
+		// The files already written for this request should be deleted:
+		assertEquals(0, tmpDir.list().length);
+	}
+
+	private void checkUpload(final Object param, final String fileName, final String mimeType, final String content) throws IOException{
+		assertTrue(param instanceof UploadFile);
+		UploadFile upload = (UploadFile)param;
+		assertEquals(fileName, upload.fileName);
+		assertEquals(mimeType, upload.mimeType);
+		assertEquals(content.length(), upload.length);
+		InputStream input = upload.open();
+		try{
+			assertEquals(content, IOUtils.toString(input, "UTF-8"));
+		}finally{
+			input.close();
+		}
+	}
+
+	private static void writeField(final ByteArrayOutputStream body, final String name, final String value) throws IOException{
+		body.write(("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n\r\n" + value + "\r\n").getBytes("UTF-8"));
+	}
+
+	private static void writeFile(final ByteArrayOutputStream body, final String name, final String fileName, final String mimeType, final byte[] content) throws IOException{
+		body.write(("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + name + "\"; filename=\"" + fileName + "\"\r\nContent-Type: " + mimeType + "\r\n\r\n").getBytes("UTF-8"));
+		body.write(content);
+		body.write("\r\n".getBytes("UTF-8"));
+	}
+
+	private static void writeEnd(final ByteArrayOutputStream body) throws IOException{
+		body.write(("--" + BOUNDARY + "--\r\n").getBytes("UTF-8"));
+	}
+
+	private static HttpServletRequest createRequest(final byte[] body){
+		final ByteArrayInputStream input = new ByteArrayInputStream(body);
+		final ServletInputStream servletInput = new ServletInputStream(){
+			@Override
+			public int read() throws IOException{
+				return input.read();
+			}
+
+			@Override
+			public int read(final byte[] b, final int off, final int len) throws IOException{
+				return input.read(b, off, len);
+			}
+		};
+		return (HttpServletRequest)Proxy.newProxyInstance(TestMultipartParser.class.getClassLoader(), new Class<?>[]{ HttpServletRequest.class }, new InvocationHandler(){
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable{
+				if (method.getName().equals("getMethod"))
+					return "POST";
+				else if (method.getName().equals("getContentType"))
+					return "multipart/form-data; boundary=" + BOUNDARY;
+				else if (method.getName().equals("getContentLength"))
+					return body.length;
+				else if (method.getName().equals("getCharacterEncoding"))
+					return "UTF-8";
+				else if (method.getName().equals("getInputStream"))
+					return servletInput;
+				else if (method.getReturnType() == boolean.class)
+					return Boolean.FALSE;
+				else if (method.getReturnType() == int.class)
+					return -1;
+				else
+					return null;
+			}
+		});
+	}
+
+}
@@ -0,0 +1,227 @@
+package uws.service.wait;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uws.job.ExecutionPhase;
+import uws.job.UWSJob;
+import uws.job.parameters.UWSParameters;
+
+public class TestAsyncWaitObserver {
+
+	UWSJob job;
+	TestRequest req;
+	HttpServletResponse resp;
+	TestWriter writer;
+
+	@Before
+	public void setUp() throws Exception{
+		job = new UWSJob(new UWSParameters());
+		req = new TestRequest();
+		resp = (HttpServletResponse)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ HttpServletResponse.class }, new InvocationHandler(){
+			@Override
+			public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable{
+				return (method.getReturnType() == boolean.class) ? Boolean.FALSE : null;
+			}
+		});
+		writer = new TestWriter();
+	}
+
+	@Test
+	public void testAsyncWaitObserver(){
+		try{
+			new AsyncWaitObserver(null, null, resp, job, null, writer, null);
+			fail("This construction should have failed because no request has been provided!");
+		}catch(Exception ex){
+			assertEquals(NullPointerException.class, ex.getClass());
+		}
+		try{
+			new AsyncWaitObserver(null, req.getRequest(), resp, job, null, null, null);
+			fail("This construction should have failed because no response writer has been provided!");
+		}catch(Exception ex){
+			assertEquals(NullPointerException.class, ex.getClass());
+		}
+	}
+
+	@Test
+	public void testNoWait(){
+		// Waiting time = 0 => no wait:
+		assertFalse(new AsyncWaitObserver(null, req.getRequest(), resp, job, null, writer, null).start(0));
+		assertFalse(req.asyncStarted);
+
+		// Policy reducing the waiting time to 0 => no wait:
+		assertFalse(new AsyncWaitObserver(new LimitedBlockingPolicy(0), req.getRequest(), resp, job, null, writer, null).start(10));
+		assertFalse(req.asyncStarted);
+		assertEquals(0, writer.nbWrites.get());
+	}
+
+	@Test
+	public void testPhaseChange() throws Exception{
+		job.setPhase(ExecutionPhase.EXECUTING, true);
+
+		/* CASE: Unlimited wait => async mode without timeout */
+		assertTrue(new AsyncWaitObserver(null, req.getRequest(), resp, job, null, writer, null).start(-1));
+		assertTrue(req.asyncStarted);
+		assertEquals(0, req.timeout);
+		assertEquals(1, job.getNbObservers());
+		assertEquals(0, writer.nbWrites.get());
+		assertFalse(req.completed);
+
+		/* CASE: Phase change => response written and request completed */
+		job.setPhase(ExecutionPhase.COMPLETED, true);
+		assertEquals(1, writer.nbWrites.get());
+		assertTrue(req.completed);
+		assertEquals(0, job.getNbObservers());
+
+		/* CASE: Any further event => nothing more */
+		req.listener.onTimeout(null);
+		job.setPhase(ExecutionPhase.ERROR, true);
+		assertEquals(1, writer.nbWrites.get());
+	}
+
+	@Test
+	public void testTimeout() throws Exception{
+		job.setPhase(ExecutionPhase.QUEUED, true);
+
+		/* CASE: Limited wait => async mode with the corresponding timeout */
+		assertTrue(new AsyncWaitObserver(null, req.getRequest(), resp, job, null, writer, null).start(2));
+		assertEquals(2000, req.timeout);
+
+		/* CASE: Timeout => response written and request completed */
+		req.listener.onTimeout(new AsyncEvent(req.context));
+		assertEquals(1, writer.nbWrites.get());
+		assertTrue(req.completed);
+		assertEquals(0, job.getNbObservers());
+
+		/* CASE: Policy limiting the waiting time => shorter timeout */
+		req = new TestRequest();
+		assertTrue(new AsyncWaitObserver(new LimitedBlockingPolicy(1), req.getRequest(), resp, job, null, writer, null).start(-1));
+		assertEquals(1000, req.timeout);
+	}
+
+	@Test
+	public void testJobAlreadyFinished() throws Exception{
+		/* CASE: Job not active any more => immediately resumed */
+		job.setPhase(ExecutionPhase.ABORTED, true);
+		assertTrue(new AsyncWaitObserver(null, req.getRequest(), resp, job, null, writer, null).start(10));
+		assertEquals(1, writer.nbWrites.get());
+		assertTrue(req.completed);
+		assertEquals(0, job.getNbObservers());
+	}
+
+	@Test
+	public void testUnblockedByPolicy() throws Exception{
+		job.setPhase(ExecutionPhase.EXECUTING, true);
+		UserLimitedBlockingPolicy policy = new UserLimitedBlockingPolicy(60, 1);
+
+		// First waiting request:
+		TestRequest req1 = req;
+		TestWriter writer1 = writer;
+		assertTrue(new AsyncWaitObserver(policy, req1.getRequest(), resp, job, null, writer1, null).start(-1));
+		assertEquals(60000, req1.timeout);
+
+		/* CASE: A second request of the same user => the first one is
+		 *       unblocked */
+		TestRequest req2 = new TestRequest();
+		TestWriter writer2 = new TestWriter();
+		assertTrue(new AsyncWaitObserver(policy, req2.getRequest(), resp, job, null, writer2, null).start(-1));
+		assertEquals(1, writer1.nbWrites.get());
+		assertTrue(req1.completed);
+		assertEquals(0, writer2.nbWrites.get());
+		assertFalse(req2.completed);
+		assertEquals(1, job.getNbObservers());
+
+		/* CASE: Phase change => the second one is resumed */
+		job.setPhase(ExecutionPhase.COMPLETED, true);
+		assertEquals(1, writer2.nbWrites.get());
+		assertTrue(req2.completed);
+	}
+
+	@Test
+	public void testClientError() throws Exception{
+		job.setPhase(ExecutionPhase.EXECUTING, true);
+		final int nbWaiting = AsyncWaitObserver.getNbWaitingRequests();
+		assertTrue(new AsyncWaitObserver(null, req.getRequest(), resp, job, null, writer, null).start(-1));
+		assertEquals(nbWaiting + 1, AsyncWaitObserver.getNbWaitingRequests());
+
+		/* CASE: Error (e.g. client gone) => request completed without
+		 *       writing anything */
+		req.listener.onError(new AsyncEvent(req.context));
+		assertTrue(req.completed);
+		assertEquals(nbWaiting, AsyncWaitObserver.getNbWaitingRequests());
+		req.listener.onError(new AsyncEvent(req.context));
+		assertEquals(nbWaiting, AsyncWaitObserver.getNbWaitingRequests());
+		assertEquals(0, job.getNbObservers());
+		job.setPhase(ExecutionPhase.COMPLETED, true);
+		assertEquals(0, writer.nbWrites.get());
+	}
+
+	protected final static class TestWriter implements AsyncWaitObserver.ResponseWriter {
+		public final AtomicInteger nbWrites = new AtomicInteger(0);
+
+		@Override
+		public void write(final HttpServletResponse response) throws Exception{
+			nbWrites.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Fake HTTP request (and its asynchronous context) recording what is done
+	 * on it. Asynchronous tasks are executed immediately in the current
+	 * thread.
+	 */
+	protected final static class TestRequest {
+		public boolean asyncStarted = false;
+		public boolean completed = false;
+		public long timeout = -1;
+		public AsyncListener listener = null;
+		public AsyncContext context;
+
+		public HttpServletRequest getRequest(){
+			context = (AsyncContext)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ AsyncContext.class }, new InvocationHandler(){
+				@Override
+				public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable{
+					if (method.getName().equals("setTimeout"))
+						timeout = (Long)args[0];
+					else if (method.getName().equals("addListener"))
+						listener = (AsyncListener)args[0];
+					else if (method.getName().equals("complete"))
+						completed = true;
+					else if (method.getName().equals("start"))
+						((Runnable)args[0]).run();
+					return null;
+				}
+			});
+			return (HttpServletRequest)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ HttpServletRequest.class }, new InvocationHandler(){
+				@Override
+				public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable{
+					if (method.getName().equals("startAsync")){
+						asyncStarted = true;
+						return context;
+					}else if (method.getName().equals("isAsyncStarted"))
+						return asyncStarted;
+					else if (method.getName().equals("isAsyncSupported"))
+						return Boolean.TRUE;
+					return (method.getReturnType() == boolean.class) ? Boolean.FALSE : null;
+				}
+			});
+		}
+	}
+
+}